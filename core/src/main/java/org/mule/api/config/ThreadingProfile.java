@@ -72,6 +72,11 @@ public interface ThreadingProfile extends MuleContextAware
      */
     boolean DEFAULT_DO_THREADING = true;
 
+    /**
+     * Default value for VIRTUAL_THREADS
+     */
+    boolean DEFAULT_VIRTUAL_THREADS = DefaultThreadingProfileConfig.DEFAULT_VIRTUAL_THREADS;
+
     /**
      * Actions to perform on pool exhaustion
      */
@@ -174,6 +179,14 @@ public interface ThreadingProfile extends MuleContextAware
 
     void setDoThreading(boolean doThreading);
 
+    /**
+     * @return true if the work of the pools created from this profile runs on virtual threads, a new one for each
+     *         unit of work, when the JVM supports them
+     */
+    boolean isVirtualThreads();
+
+    void setVirtualThreads(boolean virtualThreads);
+
     ThreadPoolFactory getPoolFactory();
 
     ScheduledExecutorService createScheduledPool(String name);
@@ -43,6 +43,7 @@ public class ChainedThreadingProfile implements ThreadingProfile
     private Long threadWaitTimeout;
     private Integer poolExhaustedAction;
     private Boolean doThreading;
+    private Boolean virtualThreads;
 
     private ThreadPoolFactory poolFactory = ThreadPoolFactory.newInstance();
     private WorkManagerFactory workManagerFactory = new ImmutableThreadingProfile.DefaultWorkManagerFactory();
@@ -195,7 +196,7 @@ public class ChainedThreadingProfile implements ThreadingProfile
     public ExecutorService createPool(String name)
     {
         // we deliberately don't instantiate the chained profile as we just want a cloned copy, not recursion
-        return poolFactory.createPool(name, new ImmutableThreadingProfile(this));
+        return poolFactory.createExecutor(name, new ImmutableThreadingProfile(this));
     }
 
     public boolean isDoThreading()
@@ -208,6 +209,16 @@ public class ChainedThreadingProfile implements ThreadingProfile
         this.doThreading = doThreading;
     }
 
+    public boolean isVirtualThreads()
+    {
+        return null != virtualThreads ? virtualThreads : delegate.isVirtualThreads();
+    }
+
+    public void setVirtualThreads(boolean virtualThreads)
+    {
+        this.virtualThreads = virtualThreads;
+    }
+
     public ThreadPoolFactory getPoolFactory()
     {
         return poolFactory;
@@ -242,7 +253,8 @@ public class ChainedThreadingProfile implements ThreadingProfile
         return "ThreadingProfile{" + "maxThreadsActive=" + maxThreadsActive + ", maxThreadsIdle="
                         + maxThreadsIdle + ", maxBufferSize=" + maxBufferSize + ", threadTTL=" + threadTTL
                         + ", poolExhaustedAction=" + poolExhaustedAction + ", threadWaitTimeout="
-                        + threadWaitTimeout + ", doThreading=" + doThreading + ", workManagerFactory="
+                        + threadWaitTimeout + ", doThreading=" + doThreading + ", virtualThreads=" + virtualThreads
+                        + ", workManagerFactory="
                         + workManagerFactory + ", rejectedExecutionHandler=" + rejectedExecutionHandler
                         + ", threadFactory=" + threadFactory + "}";
     }
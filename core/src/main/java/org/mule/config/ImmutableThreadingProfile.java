@@ -29,6 +29,7 @@ public class ImmutableThreadingProfile implements ThreadingProfile
     private long threadWaitTimeout;
     private int poolExhaustedAction;
     private boolean doThreading;
+    private boolean virtualThreads = DEFAULT_VIRTUAL_THREADS;
 
     private ThreadPoolFactory poolFactory = ThreadPoolFactory.newInstance();
     private WorkManagerFactory workManagerFactory = new DefaultWorkManagerFactory();
@@ -68,6 +69,7 @@ public class ImmutableThreadingProfile implements ThreadingProfile
                 tp.isDoThreading(),
                 tp.getRejectedExecutionHandler(),
                 tp.getThreadFactory());
+        this.virtualThreads = tp.isVirtualThreads();
     }
 
     public int getMaxThreadsActive()
@@ -172,7 +174,7 @@ public class ImmutableThreadingProfile implements ThreadingProfile
 
     public ExecutorService createPool(String name)
     {
-        return poolFactory.createPool(name, new ImmutableThreadingProfile(this));
+        return poolFactory.createExecutor(name, new ImmutableThreadingProfile(this));
     }
 
     public boolean isDoThreading()
@@ -185,6 +187,16 @@ public class ImmutableThreadingProfile implements ThreadingProfile
         throw new UnsupportedOperationException(getClass().getName());
     }
 
+    public boolean isVirtualThreads()
+    {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads)
+    {
+        throw new UnsupportedOperationException(getClass().getName());
+    }
+
     public ThreadPoolFactory getPoolFactory()
     {
         return poolFactory;
@@ -219,7 +231,8 @@ public class ImmutableThreadingProfile implements ThreadingProfile
         return "ThreadingProfile{" + "maxThreadsActive=" + maxThreadsActive + ", maxThreadsIdle="
                         + maxThreadsIdle + ", maxBufferSize=" + maxBufferSize + ", threadTTL=" + threadTTL
                         + ", poolExhaustedAction=" + poolExhaustedAction + ", threadWaitTimeout="
-                        + threadWaitTimeout + ", doThreading=" + doThreading + ", workManagerFactory="
+                        + threadWaitTimeout + ", doThreading=" + doThreading + ", virtualThreads=" + virtualThreads
+                        + ", workManagerFactory="
                         + workManagerFactory + ", rejectedExecutionHandler=" + rejectedExecutionHandler
                         + ", threadFactory=" + threadFactory + "}";
     }
@@ -29,6 +29,7 @@ import java.util.concurrent.ThreadFactory;
  *  <li>{@link #threadWaitTimeout}
  *  <li>{@link #poolExhaustedAction}
  *  <li>{@link #doThreading}
+ *  <li>{@link #virtualThreads}
  * </ul>
  * <p/>The following parameters re-use the same object reference as the original threading
  * profile and <strong>are not deep clones</strong> of those:
@@ -49,6 +50,7 @@ public class MutableThreadingProfile implements ThreadingProfile
     private long threadWaitTimeout;
     private int poolExhaustedAction;
     private boolean doThreading;
+    private boolean virtualThreads;
 
     private ThreadPoolFactory poolFactory;
     private WorkManagerFactory workManagerFactory;
@@ -65,6 +67,7 @@ public class MutableThreadingProfile implements ThreadingProfile
         this.threadWaitTimeout = tp.getThreadWaitTimeout();
         this.poolExhaustedAction = tp.getPoolExhaustedAction();
         this.doThreading = tp.isDoThreading();
+        this.virtualThreads = tp.isVirtualThreads();
         this.rejectedExecutionHandler = tp.getRejectedExecutionHandler();
         this.threadFactory = tp.getThreadFactory();
         this.workManagerFactory = tp.getWorkManagerFactory();
@@ -173,7 +176,7 @@ public class MutableThreadingProfile implements ThreadingProfile
 
     public ExecutorService createPool(String name)
     {
-        return poolFactory.createPool(name, new ImmutableThreadingProfile(this));
+        return poolFactory.createExecutor(name, new ImmutableThreadingProfile(this));
     }
 
     public boolean isDoThreading()
@@ -186,6 +189,16 @@ public class MutableThreadingProfile implements ThreadingProfile
         this.doThreading = doThreading;
     }
 
+    public boolean isVirtualThreads()
+    {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads)
+    {
+        this.virtualThreads = virtualThreads;
+    }
+
     public ThreadPoolFactory getPoolFactory()
     {
         return poolFactory;
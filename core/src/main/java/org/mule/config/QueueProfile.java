@@ -28,6 +28,7 @@ public class QueueProfile
 {
     private int maxOutstandingMessages = 0;
     private QueueStore<Serializable> objectStore;
+    private boolean segmentedLog = Boolean.getBoolean(DefaultQueueConfiguration.SEGMENTED_LOG_PROPERTY_KEY);
 
     public static QueueProfile newInstancePersistingToDefaultMemoryQueueStore(MuleContext muleContext)
     {
@@ -55,6 +56,7 @@ public class QueueProfile
     {
         this.maxOutstandingMessages = queueProfile.getMaxOutstandingMessages();
         this.objectStore = queueProfile.objectStore;
+        this.segmentedLog = queueProfile.isSegmentedLog();
     }
 
     public QueueProfile(int maxOutstandingMessages, QueueStore<Serializable> objectStore)
@@ -85,6 +87,25 @@ public class QueueProfile
         this.maxOutstandingMessages = maxOutstandingMessages;
     }
 
+    /**
+     * @return true if a persistent queue is stored in a segmented append-only log
+     */
+    public boolean isSegmentedLog()
+    {
+        return segmentedLog;
+    }
+
+    /**
+     * Selects the segmented append-only log as the storage of a persistent queue. Defaults to the value
+     * of the {@link DefaultQueueConfiguration#SEGMENTED_LOG_PROPERTY_KEY} system property.
+     *
+     * @param segmentedLog true to store a persistent queue in a segmented append-only log
+     */
+    public void setSegmentedLog(boolean segmentedLog)
+    {
+        this.segmentedLog = segmentedLog;
+    }
+
     public QueueConfiguration configureQueue(MuleContext context, String component, QueueManager queueManager)
         throws InitialisationException
     {
@@ -103,7 +124,7 @@ public class QueueProfile
         {
             return new org.mule.util.queue.objectstore.QueueConfiguration(context, maxOutstandingMessages, objectStore);
         }
-        return new DefaultQueueConfiguration(maxOutstandingMessages, objectStore.isPersistent());
+        return new DefaultQueueConfiguration(maxOutstandingMessages, objectStore.isPersistent(), segmentedLog);
     }
 
     public ListableObjectStore<Serializable> getObjectStore()
@@ -9,9 +9,12 @@ package org.mule.config.pool;
 import org.mule.api.config.ThreadingProfile;
 import org.mule.util.StringUtils;
 import org.mule.util.concurrent.NamedThreadFactory;
+import org.mule.util.concurrent.VirtualThreadFactory;
+import org.mule.util.concurrent.VirtualThreadPerTaskExecutor;
 import org.mule.util.concurrent.WaitPolicy;
 
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
@@ -26,6 +29,8 @@ public class DefaultThreadPoolFactory extends ThreadPoolFactory
     // deliberately shadow the superclass' static logger as to avoid log congestion on it
     protected final Log logger = LogFactory.getLog(getClass());
 
+    private static final String VIRTUAL_THREAD_NAME = "virtual";
+
     @Override
     public ThreadPoolExecutor createPool(String name, ThreadingProfile tp)
     {
@@ -46,6 +51,22 @@ public class DefaultThreadPoolFactory extends ThreadPoolFactory
 
     }
 
+    /**
+     * Runs each unit of work in a new virtual thread when the profile asks for virtual threads and the JVM
+     * supports them, capped at the maximum active threads of the profile. Otherwise it is the usual pool.
+     */
+    @Override
+    public ExecutorService createExecutor(String name, ThreadingProfile tp)
+    {
+        if (tp.isVirtualThreads() && tp.getThreadFactory() == null && VirtualThreadFactory.isSupported())
+        {
+            return new VirtualThreadPerTaskExecutor(createVirtualThreadFactory(name), tp.getMaxThreadsActive(),
+                                                    tp.getPoolExhaustedAction() == ThreadingProfile.WHEN_EXHAUSTED_RUN,
+                                                    tp.getThreadWaitTimeout());
+        }
+        return createPool(name, tp);
+    }
+
     private void configureThreadPoolExecutor(String name, ThreadingProfile tp, ThreadPoolExecutor pool)
     {
         configureThreadFactory(name, tp, pool);
@@ -96,8 +117,13 @@ public class DefaultThreadPoolFactory extends ThreadPoolFactory
         }
         else
         {
+            // ..else run the work in virtual threads if requested, falling back to platform threads if the JVM does not support them
+            if (tp.isVirtualThreads())
+            {
+                pool.setThreadFactory(createVirtualThreadFactory(name));
+            }
             // ..else create a "NamedThreadFactory" if a proper name was passed in
-            if (StringUtils.isNotBlank(name))
+            else if (StringUtils.isNotBlank(name))
             {
                 // Threads must use the MuleApplicationClassLoader related to MuleContext or the
                 // thread context class loader in case of embedding mule.
@@ -111,6 +137,11 @@ public class DefaultThreadPoolFactory extends ThreadPoolFactory
         }
     }
 
+    private VirtualThreadFactory createVirtualThreadFactory(String name)
+    {
+        return new VirtualThreadFactory(StringUtils.isNotBlank(name) ? name : VIRTUAL_THREAD_NAME, Thread.currentThread().getContextClassLoader());
+    }
+
     protected ThreadPoolExecutor internalCreatePool(String name, ThreadingProfile tp, BlockingQueue buffer)
     {
         return new ThreadPoolExecutor(Math.min(tp.getMaxThreadsIdle(), tp.getMaxThreadsActive()),
@@ -14,11 +14,11 @@ import org.mule.config.PreferredObjectSelector;
 import org.mule.config.i18n.MessageFactory;
 
 import java.util.Iterator;
+import java.util.ServiceLoader;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 
-import javax.imageio.spi.ServiceRegistry;
-
 /**
  * Uses a standard JDK's
  * <a href="http://java.sun.com/j2se/1.3/docs/guide/jar/jar.html#Service%20Provider">SPI discovery</a>
@@ -35,16 +35,11 @@ public abstract class ThreadPoolFactory implements MuleContextAware
     public static ThreadPoolFactory newInstance()
     {
         /*
-           There's a public (at last!) SPI mechanism in Java 6, java.util.ServiceLoader, but
-           it's hidden in earlier versions.
-
-           The javax.imageio.spi.ServiceRegistry, while not belonging here at first look, is
-           perfectly functional. Underneath, it wraps the sun.misc.Service class, which does the
-           lookup. The latter has been available since Java 1.3 and standardized internally at Sun.
-           Also, Sun, Bea JRockit and IBM JDK all have it readily available for use, so it's safe to
-           rely on.
+           javax.imageio.spi.ServiceRegistry was used here before java.util.ServiceLoader was available, but
+           since Java 9 it only accepts ImageIO classes. ServiceLoader does the same lookup using the thread
+           context class loader.
         */
-        final Iterator<ThreadPoolFactory> servicesIterator = ServiceRegistry.lookupProviders(ThreadPoolFactory.class);
+        final Iterator<ThreadPoolFactory> servicesIterator = ServiceLoader.load(ThreadPoolFactory.class).iterator();
 
         PreferredObjectSelector<ThreadPoolFactory> selector = new PreferredObjectSelector<ThreadPoolFactory>();
         ThreadPoolFactory threadPoolFactory = selector.select(servicesIterator);
@@ -67,6 +62,16 @@ public abstract class ThreadPoolFactory implements MuleContextAware
 
     public abstract ThreadPoolExecutor createPool(String name, ThreadingProfile tp);
 
+    /**
+     * Creates the executor that runs the work of a profile. Factories that run the work in something other
+     * than a {@link ThreadPoolExecutor} override this method, by default it is the pool from
+     * {@link #createPool(String, ThreadingProfile)}.
+     */
+    public ExecutorService createExecutor(String name, ThreadingProfile tp)
+    {
+        return createPool(name, tp);
+    }
+
     /**
      * By limitations of java's {@link ScheduledThreadPoolExecutor}, {@link ThreadingProfile#getMaxThreadsActive()} will
      * be ignored and a fixed pool with {@link ThreadingProfile#getMaxThreadsIdle()} will be created.
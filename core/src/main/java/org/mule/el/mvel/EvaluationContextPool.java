@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.el.mvel;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.mvel2.integration.VariableResolverFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of variable resolver factory chains used to evaluate compiled expressions. Building the chain that
+ * exposes the event, the message and the flow variables to an expression allocates a handful of factories
+ * and maps, so instead of doing it for every evaluation a chain is borrowed from this pool, bound to the
+ * event or message being evaluated and unbound when it is returned.
+ * <p/>
+ * A borrowed chain is used by a single evaluation at a time, so nested evaluations simply borrow another
+ * one. Only up to {@link #MAX_IDLE_CONTEXTS} idle chains are kept.
+ */
+class EvaluationContextPool
+{
+
+    static final int MAX_IDLE_CONTEXTS = 64;
+
+    private final MVELExpressionLanguage expressionLanguage;
+    private final Queue<EvaluationContext> idleContexts = new ConcurrentLinkedQueue<EvaluationContext>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    EvaluationContextPool(MVELExpressionLanguage expressionLanguage)
+    {
+        this.expressionLanguage = expressionLanguage;
+    }
+
+    EvaluationContext borrow()
+    {
+        EvaluationContext context = idleContexts.poll();
+        if (context != null)
+        {
+            idleCount.decrementAndGet();
+            return context;
+        }
+        return new EvaluationContext();
+    }
+
+    void release(EvaluationContext context)
+    {
+        context.unbind();
+        if (idleCount.incrementAndGet() <= MAX_IDLE_CONTEXTS)
+        {
+            idleContexts.offer(context);
+        }
+        else
+        {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * The same resolver factory chain {@link MVELExpressionLanguage} builds for each evaluation, kept with
+     * references to the factories that have to be bound to the event or message. When the expression
+     * language creates variable resolver factories that cannot be rebound, a new one is created for each
+     * evaluation, as {@link MVELExpressionLanguage} does when evaluating expression strings.
+     */
+    class EvaluationContext
+    {
+
+        private final MVELExpressionLanguageContext context;
+        private final EventVariableResolverFactory eventFactory;
+        private final MessageVariableResolverFactory messageFactory;
+        private final VariableResolverFactory variableFactory;
+        private final boolean reusableVariableFactory;
+        private final DelegateVariableResolverFactory globalChain;
+        private final VariableResolverFactory eventChain;
+        private final VariableResolverFactory messageChain;
+
+        EvaluationContext()
+        {
+            context = expressionLanguage.createExpressionLanguageContext();
+            variableFactory = expressionLanguage.createVariableVariableResolverFactory((MuleEvent) null);
+            reusableVariableFactory = variableFactory instanceof VariableVariableResolverFactory
+                                      || variableFactory instanceof NullVariableResolverFactory;
+            globalChain = new DelegateVariableResolverFactory(expressionLanguage.globalContext, variableFactory);
+            eventFactory = new EventVariableResolverFactory(expressionLanguage.parserConfiguration,
+                expressionLanguage.muleContext, (MuleEvent) null, globalChain);
+            messageFactory = new MessageVariableResolverFactory(expressionLanguage.parserConfiguration,
+                expressionLanguage.muleContext, null, globalChain);
+            eventChain = new DelegateVariableResolverFactory(expressionLanguage.staticContext, eventFactory);
+            messageChain = new DelegateVariableResolverFactory(expressionLanguage.staticContext, messageFactory);
+        }
+
+        MVELExpressionLanguageContext bind(MuleEvent event)
+        {
+            eventFactory.bindEvent(event);
+            if (reusableVariableFactory)
+            {
+                bindVariables(event != null ? event.getMessage() : null);
+            }
+            else
+            {
+                globalChain.setNextFactory(expressionLanguage.createVariableVariableResolverFactory(event));
+            }
+            context.setNextFactory(eventChain);
+            return context;
+        }
+
+        @SuppressWarnings("deprecation")
+        MVELExpressionLanguageContext bind(MuleMessage message)
+        {
+            messageFactory.bindMessage(message);
+            if (reusableVariableFactory)
+            {
+                bindVariables(message);
+            }
+            else
+            {
+                globalChain.setNextFactory(expressionLanguage.createVariableVariableResolverFactory(message));
+            }
+            context.setNextFactory(messageChain);
+            return context;
+        }
+
+        private void bindVariables(MuleMessage message)
+        {
+            if (variableFactory instanceof VariableVariableResolverFactory)
+            {
+                ((VariableVariableResolverFactory) variableFactory).bindMessage(message);
+            }
+        }
+
+        private void unbind()
+        {
+            eventFactory.bindEvent(null);
+            messageFactory.bindMessage(null);
+            if (reusableVariableFactory)
+            {
+                bindVariables(null);
+            }
+            else
+            {
+                globalChain.setNextFactory(variableFactory);
+            }
+            context.clearVariables();
+        }
+    }
+}
@@ -25,7 +25,7 @@ public class EventVariableResolverFactory extends MessageVariableResolverFactory
                                         MuleContext muleContext,
                                         MuleEvent event)
     {
-        super(parserConfiguration, muleContext, event.getMessage());
+        super(parserConfiguration, muleContext, event != null ? event.getMessage() : null);
         this.event = event;
     }
 
@@ -45,6 +45,15 @@ public class EventVariableResolverFactory extends MessageVariableResolverFactory
         setNextFactory(next);
     }
 
+    /**
+     * Binds this factory to a different event so that an existing resolver factory chain can be reused.
+     */
+    void bindEvent(MuleEvent event)
+    {
+        bindMessage(event != null ? event.getMessage() : null);
+        this.event = event;
+    }
+
     @Override
     public VariableResolver getVariableResolver(String name)
     {
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.el.mvel;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.api.expression.ExpressionRuntimeException;
+import org.mule.expression.AbstractCompiledExpression;
+import org.mule.transformer.types.TypedValue;
+
+import java.io.Serializable;
+
+/**
+ * MEL expression compiled by {@link MVELExpressionLanguage#compile(String)}. Keeps the output of the MVEL
+ * compiler so that evaluating it does not go through validation nor the compiled expressions cache, and
+ * evaluates it using the resolver factory chains pooled by the expression language.
+ */
+class MVELCompiledExpression extends AbstractCompiledExpression
+{
+
+    private final MVELExpressionLanguage expressionLanguage;
+    private final Serializable compiledExpression;
+
+    MVELCompiledExpression(MVELExpressionLanguage expressionLanguage,
+                           String expression,
+                           Serializable compiledExpression)
+    {
+        super(expression);
+        this.expressionLanguage = expressionLanguage;
+        this.compiledExpression = compiledExpression;
+    }
+
+    @Override
+    public Object evaluate(MuleEvent event) throws ExpressionRuntimeException
+    {
+        return expressionLanguage.evaluateCompiled(getExpression(), compiledExpression, event);
+    }
+
+    @Override
+    public Object evaluate(MuleMessage message) throws ExpressionRuntimeException
+    {
+        return expressionLanguage.evaluateCompiled(getExpression(), compiledExpression, message);
+    }
+
+    @Override
+    public TypedValue evaluateTyped(MuleMessage message) throws ExpressionRuntimeException
+    {
+        return expressionLanguage.evaluateCompiledTyped(getExpression(), compiledExpression, message);
+    }
+}
@@ -32,6 +32,15 @@ import org.slf4j.LoggerFactory;
  * This MVEL executor uses MVEL {@link ReflectiveAccessorOptimizer} implementation rather than the default
  * {@link DynamicOptimizer} (which generates byte-code accessors using ASM) because we found that, at least
  * with JDK7, the {@link ReflectiveAccessorOptimizer} was fastest in typical Mule use cases.
+ * <p/>
+ * Expressions that are evaluated many times against the same types, such as deep property navigation or
+ * method invocation on the payload, can still benefit from generated accessors. Setting the
+ * {@link #MEL_BYTECODE_ACCESSORS} system property switches to the {@link DynamicOptimizer}, which starts
+ * with reflective accessors and replaces them with generated ones once an accessor has been used
+ * {@link #MEL_BYTECODE_ACCESSORS_THRESHOLD} times. When the types an accessor was generated for change, MVEL
+ * goes back to a reflective accessor for it. As the optimizer is shared by the whole JVM and the generated
+ * classes are defined by a single class loader, this mode is meant for runtimes hosting one application.
+ * For the same reason the threshold is only read the first time the mode is enabled.
  */
 public class MVELExpressionExecutor implements ExpressionExecutor<MVELExpressionLanguageContext>
 {
@@ -39,7 +48,11 @@ public class MVELExpressionExecutor implements ExpressionExecutor<MVELExpression
     private static Logger log = LoggerFactory.getLogger(MVELExpressionExecutor.class);
     protected static final String DISABLE_MEL_EXPRESSION_CACHE = MuleProperties.SYSTEM_PROPERTY_PREFIX + "disableMelExpressionCache";
 
+    public static final String MEL_BYTECODE_ACCESSORS = MuleProperties.SYSTEM_PROPERTY_PREFIX + "mel.bytecodeAccessors";
+    public static final String MEL_BYTECODE_ACCESSORS_THRESHOLD = MEL_BYTECODE_ACCESSORS + ".threshold";
+
     protected static final int COMPILED_EXPRESSION_MAX_CACHE_SIZE = 1000;
+    protected static final int DEFAULT_BYTECODE_ACCESSORS_THRESHOLD = 50;
 
     protected ParserConfiguration parserConfiguration;
 
@@ -50,7 +63,7 @@ public class MVELExpressionExecutor implements ExpressionExecutor<MVELExpression
         this.parserConfiguration = parserConfiguration;
 
         MVEL.COMPILER_OPT_PROPERTY_ACCESS_DOESNT_FAIL = true;
-        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        configureOptimizer();
 
         compiledExpressionsCache = CacheBuilder.newBuilder()
             .maximumSize(getCompiledExpressionMaxCacheSize())
@@ -64,6 +77,40 @@ public class MVELExpressionExecutor implements ExpressionExecutor<MVELExpression
             });
     }
 
+    private void configureOptimizer()
+    {
+        if (Boolean.getBoolean(MEL_BYTECODE_ACCESSORS))
+        {
+            BytecodeAccessorsThreshold.configure();
+            OptimizerFactory.setDefaultOptimizer(OptimizerFactory.DYNAMIC);
+        }
+        else
+        {
+            OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        }
+    }
+
+    /**
+     * Sets the JVM wide {@link DynamicOptimizer#tenuringThreshold} when the class is initialized, which
+     * happens the first time byte-code generated accessors are enabled, instead of every time an executor is
+     * created.
+     */
+    private static class BytecodeAccessorsThreshold
+    {
+
+        static
+        {
+            DynamicOptimizer.tenuringThreshold = Integer.getInteger(MEL_BYTECODE_ACCESSORS_THRESHOLD,
+                DEFAULT_BYTECODE_ACCESSORS_THRESHOLD);
+            log.info("Using byte-code generated MEL accessors after {} invocations", DynamicOptimizer.tenuringThreshold);
+        }
+
+        static void configure()
+        {
+            // Initializes the class
+        }
+    }
+
     private int getCompiledExpressionMaxCacheSize()
     {
         final String propertyValue = System.getProperty(DISABLE_MEL_EXPRESSION_CACHE);
@@ -87,6 +134,24 @@ public class MVELExpressionExecutor implements ExpressionExecutor<MVELExpression
         return MVEL.executeExpression(getCompiledExpression(expression), context);
     }
 
+    /**
+     * Executes an expression previously obtained from {@link #getCompiledExpression(String)}, without looking
+     * it up in the compiled expressions cache.
+     *
+     * @param expression Expression the compiled expression was obtained from
+     * @param compiledExpression The compiled expression to execute
+     * @param context The context used to resolve variables
+     * @return The result of the execution
+     */
+    public Object execute(String expression, Serializable compiledExpression, MVELExpressionLanguageContext context)
+    {
+        if (log.isTraceEnabled())
+        {
+            log.trace("Executing compiled MVEL expression '" + expression + "' with context: \n" + context.toString());
+        }
+        return MVEL.executeExpression(compiledExpression, context);
+    }
+
     @Override
     public void validate(String expression) throws InvalidExpressionException
     {
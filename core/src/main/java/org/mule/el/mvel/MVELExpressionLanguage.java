@@ -21,6 +21,8 @@ import org.mule.api.transformer.DataType;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.el.mvel.datatype.MvelEnricherDataTypePropagator;
 import org.mule.el.mvel.datatype.MvelDataTypeResolver;
+import org.mule.expression.CompiledExpression;
+import org.mule.expression.CompiledExpressionFactory;
 import org.mule.mvel2.CompileException;
 import org.mule.mvel2.ParserConfiguration;
 import org.mule.mvel2.ast.Function;
@@ -49,7 +51,7 @@ import javax.activation.MimeType;
 /**
  * Expression language that uses MVEL (http://mvel.codehaus.org/).
  */
-public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
+public class MVELExpressionLanguage implements ExpressionLanguage, CompiledExpressionFactory, Initialisable
 {
     protected ParserConfiguration parserConfiguration;
     protected MuleContext muleContext;
@@ -68,6 +70,8 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
     protected MvelDataTypeResolver dataTypeResolver = new MvelDataTypeResolver();
     protected MvelEnricherDataTypePropagator dataTypePropagator = new MvelEnricherDataTypePropagator();
 
+    private final EvaluationContextPool evaluationContextPool = new EvaluationContextPool(this);
+
     public MVELExpressionLanguage(MuleContext muleContext)
     {
         this.muleContext = muleContext;
@@ -233,6 +237,64 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
         }
     }
 
+    @Override
+    public CompiledExpression compile(String expression) throws InvalidExpressionException
+    {
+        validate(expression);
+
+        expression = removeExpressionMarker(expression);
+
+        return new MVELCompiledExpression(this, expression, expressionExecutor.getCompiledExpression(expression));
+    }
+
+    Object evaluateCompiled(String expression, Serializable compiledExpression, MuleEvent event)
+    {
+        EvaluationContextPool.EvaluationContext context = evaluationContextPool.borrow();
+        try
+        {
+            return executeCompiled(expression, compiledExpression, context.bind(event));
+        }
+        finally
+        {
+            evaluationContextPool.release(context);
+        }
+    }
+
+    Object evaluateCompiled(String expression, Serializable compiledExpression, MuleMessage message)
+    {
+        EvaluationContextPool.EvaluationContext context = evaluationContextPool.borrow();
+        try
+        {
+            return executeCompiled(expression, compiledExpression, context.bind(message));
+        }
+        finally
+        {
+            evaluationContextPool.release(context);
+        }
+    }
+
+    TypedValue evaluateCompiledTyped(String expression, Serializable compiledExpression, MuleMessage message)
+    {
+        final Object value = evaluateCompiled(expression, compiledExpression, message);
+        final DataType dataType = dataTypeResolver.resolve(value, message, compiledExpression);
+
+        return new TypedValue(value, dataType);
+    }
+
+    private Object executeCompiled(String expression,
+                                   Serializable compiledExpression,
+                                   MVELExpressionLanguageContext context)
+    {
+        try
+        {
+            return expressionExecutor.execute(expression, compiledExpression, context);
+        }
+        catch (Exception e)
+        {
+            throw new ExpressionRuntimeException(CoreMessages.expressionEvaluationFailed(expression), e);
+        }
+    }
+
     @Override
     public boolean isValid(String expression)
     {
@@ -46,6 +46,17 @@ public class MVELExpressionLanguageContext extends MuleBaseVariableResolverFacto
         this.variableResolvers = context.variableResolvers;
     }
 
+    /**
+     * Removes the variables created by a previous evaluation so that this context can be reused.
+     */
+    void clearVariables()
+    {
+        if (!variableResolvers.isEmpty())
+        {
+            variableResolvers.clear();
+        }
+    }
+
     @Override
     public VariableResolver getVariableResolver(String name)
     {
@@ -55,6 +55,14 @@ public class MessageVariableResolverFactory extends MuleBaseVariableResolverFact
         setNextFactory(next);
     }
 
+    /**
+     * Binds this factory to a different message so that an existing resolver factory chain can be reused.
+     */
+    void bindMessage(MuleMessage message)
+    {
+        this.muleMessage = message;
+    }
+
     @Override
     public boolean isTarget(String name)
     {
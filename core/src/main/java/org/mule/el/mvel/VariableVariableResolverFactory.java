@@ -23,7 +23,7 @@ public class VariableVariableResolverFactory extends MuleBaseVariableResolverFac
                                            MuleContext muleContext,
                                            MuleEvent event)
     {
-        this.message = event.getMessage();
+        this.message = event != null ? event.getMessage() : null;
     }
 
     @Deprecated
@@ -34,6 +34,14 @@ public class VariableVariableResolverFactory extends MuleBaseVariableResolverFac
         this.message = message;
     }
 
+    /**
+     * Binds this factory to a different message so that an existing resolver factory chain can be reused.
+     */
+    void bindMessage(MuleMessage message)
+    {
+        this.message = message;
+    }
+
     @SuppressWarnings("deprecation")
     @Override
     public boolean isTarget(String name)
@@ -16,12 +16,15 @@ import org.mule.api.MuleException;
 import org.mule.api.MuleMessage;
 import org.mule.api.ThreadSafeAccess;
 import org.mule.api.expression.ExpressionManager;
+import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.processor.InternalMessageProcessor;
 import org.mule.api.processor.MessageProcessor;
 import org.mule.api.processor.MessageProcessorChain;
 import org.mule.api.processor.MessageProcessorContainer;
 import org.mule.api.processor.MessageProcessorPathElement;
 import org.mule.api.processor.MessageProcessors;
+import org.mule.expression.CompiledExpression;
+import org.mule.expression.CompiledExpressionFactory;
 import org.mule.processor.AbstractMessageProcessorOwner;
 import org.mule.processor.AbstractRequestResponseMessageProcessor;
 import org.mule.processor.NonBlockingMessageProcessor;
@@ -32,6 +35,8 @@ import org.mule.util.StringUtils;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The <code>Message Enricher</code> allows the current message to be augmented using data from a seperate
@@ -62,16 +67,38 @@ import java.util.List;
 public class MessageEnricher extends AbstractMessageProcessorOwner implements NonBlockingMessageProcessor
 {
 
+    private static final String DEFAULT_SOURCE_EXPRESSION = "#[payload:]";
+
     private List<EnrichExpressionPair> enrichExpressionPairs = new ArrayList<EnrichExpressionPair>();
 
     private MessageProcessor enrichmentProcessor;
 
+    /**
+     * Source expressions compiled on initialise, used instead of evaluating the matching expression string
+     */
+    private final Map<String, CompiledExpression> compiledSources = new ConcurrentHashMap<String, CompiledExpression>();
+
     @Override
     public MuleEvent process(MuleEvent event) throws MuleException
     {
         return new EnricherProcessor(enrichmentProcessor, muleContext).process(event);
     }
 
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        super.initialise();
+        ExpressionManager expressionManager = muleContext.getExpressionManager();
+        if (expressionManager instanceof CompiledExpressionFactory)
+        {
+            for (EnrichExpressionPair pair : enrichExpressionPairs)
+            {
+                String source = StringUtils.isEmpty(pair.getSource()) ? DEFAULT_SOURCE_EXPRESSION : pair.getSource();
+                compiledSources.put(source, ((CompiledExpressionFactory) expressionManager).compile(source));
+            }
+        }
+    }
+
     protected void enrich(MuleMessage currentMessage,
                           MuleMessage enrichmentMessage,
                           String sourceExpressionArg,
@@ -80,10 +107,12 @@ public class MessageEnricher extends AbstractMessageProcessorOwner implements No
     {
         if (StringUtils.isEmpty(sourceExpressionArg))
         {
-            sourceExpressionArg = "#[payload:]";
+            sourceExpressionArg = DEFAULT_SOURCE_EXPRESSION;
         }
 
-        TypedValue typedValue = expressionManager.evaluateTyped(sourceExpressionArg, enrichmentMessage);
+        CompiledExpression compiledSource = compiledSources.get(sourceExpressionArg);
+        TypedValue typedValue = compiledSource != null ? compiledSource.evaluateTyped(enrichmentMessage)
+                                                       : expressionManager.evaluateTyped(sourceExpressionArg, enrichmentMessage);
 
         if (typedValue.getValue() instanceof MuleMessage)
         {
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.expression;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.api.expression.ExpressionRuntimeException;
+import org.mule.api.expression.RequiredValueException;
+
+/**
+ * Base class for {@link CompiledExpression} implementations that converts evaluation results to booleans
+ * using the same rules as {@link DefaultExpressionManager}.
+ *
+ * @since 3.8.0
+ */
+public abstract class AbstractCompiledExpression implements CompiledExpression
+{
+
+    private final String expression;
+
+    protected AbstractCompiledExpression(String expression)
+    {
+        this.expression = expression;
+    }
+
+    @Override
+    public String getExpression()
+    {
+        return expression;
+    }
+
+    @Override
+    public boolean evaluateBoolean(MuleEvent event, boolean nullReturnsTrue, boolean nonBooleanReturnsTrue)
+        throws ExpressionRuntimeException
+    {
+        return DefaultExpressionManager.toBoolean(evaluate(event), nullReturnsTrue, nonBooleanReturnsTrue,
+            expression);
+    }
+
+    @Override
+    public boolean evaluateBoolean(MuleMessage message, boolean nullReturnsTrue, boolean nonBooleanReturnsTrue)
+        throws ExpressionRuntimeException
+    {
+        try
+        {
+            return DefaultExpressionManager.toBoolean(evaluate(message), nullReturnsTrue,
+                nonBooleanReturnsTrue, expression);
+        }
+        catch (RequiredValueException e)
+        {
+            return nullReturnsTrue;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + expression + "]";
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.expression;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.api.expression.ExpressionManager;
+import org.mule.api.expression.ExpressionRuntimeException;
+import org.mule.transformer.types.TypedValue;
+
+/**
+ * A single expression that has been compiled by a {@link CompiledExpressionFactory} so that it can be
+ * evaluated repeatedly without being parsed, validated or looked up again. Message processors obtain an
+ * instance once, when they are initialised, and keep it for the rest of their lifecycle.
+ * <p/>
+ * Like its factory, this is not part of the public API. Implementations are thread safe.
+ *
+ * @see CompiledExpressionFactory#compile(String)
+ * @since 3.8.0
+ */
+public interface CompiledExpression
+{
+
+    /**
+     * @return the expression this instance was compiled from
+     */
+    String getExpression();
+
+    /**
+     * Evaluates the expression against the given event.
+     *
+     * @param event the current event being processed
+     * @return the result of the evaluation
+     * @throws ExpressionRuntimeException if the evaluation fails
+     */
+    Object evaluate(MuleEvent event) throws ExpressionRuntimeException;
+
+    /**
+     * Evaluates the expression against the given message.
+     *
+     * @param message the current message being processed
+     * @return the result of the evaluation
+     * @throws ExpressionRuntimeException if the evaluation fails
+     */
+    Object evaluate(MuleMessage message) throws ExpressionRuntimeException;
+
+    /**
+     * Evaluates the expression against the given message, resolving the data type of the result.
+     *
+     * @param message the current message being processed
+     * @return the result of the evaluation along with its data type
+     * @throws ExpressionRuntimeException if the evaluation fails
+     */
+    TypedValue evaluateTyped(MuleMessage message) throws ExpressionRuntimeException;
+
+    /**
+     * Evaluates the expression against the given event and converts the result to a boolean the same way
+     * {@link ExpressionManager#evaluateBoolean(String, MuleEvent, boolean, boolean)} does.
+     *
+     * @param event the current event being processed
+     * @param nullReturnsTrue determines if true should be returned if the result of the evaluation is null
+     * @param nonBooleanReturnsTrue determines if true should returned if the result is not null but isn't
+     *            recognised as a boolean
+     * @return the result of the evaluation as a boolean
+     * @throws ExpressionRuntimeException if the evaluation fails
+     */
+    boolean evaluateBoolean(MuleEvent event, boolean nullReturnsTrue, boolean nonBooleanReturnsTrue)
+        throws ExpressionRuntimeException;
+
+    /**
+     * Evaluates the expression against the given message and converts the result to a boolean the same way
+     * {@link ExpressionManager#evaluateBoolean(String, MuleMessage, boolean, boolean)} does.
+     *
+     * @param message the current message being processed
+     * @param nullReturnsTrue determines if true should be returned if the result of the evaluation is null
+     * @param nonBooleanReturnsTrue determines if true should returned if the result is not null but isn't
+     *            recognised as a boolean
+     * @return the result of the evaluation as a boolean
+     * @throws ExpressionRuntimeException if the evaluation fails
+     */
+    boolean evaluateBoolean(MuleMessage message, boolean nullReturnsTrue, boolean nonBooleanReturnsTrue)
+        throws ExpressionRuntimeException;
+}
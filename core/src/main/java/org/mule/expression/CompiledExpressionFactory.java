@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.expression;
+
+import org.mule.api.expression.InvalidExpressionException;
+
+/**
+ * Implemented by the {@link org.mule.api.expression.ExpressionManager} and
+ * {@link org.mule.api.el.ExpressionLanguage} implementations able to compile an expression once so that it
+ * can be evaluated repeatedly without being parsed, validated or looked up again.
+ * <p/>
+ * This is not part of the public API: components check for it with {@code instanceof} and evaluate the
+ * expression string when it is not implemented.
+ *
+ * @since 3.8.0
+ */
+public interface CompiledExpressionFactory
+{
+
+    /**
+     * Compiles a single expression. The expression is resolved the same way
+     * {@link org.mule.api.expression.ExpressionManager#evaluate(String, org.mule.api.MuleEvent)} resolves
+     * it, i.e. "#[message.payload]" and "header:foo" are both valid.
+     *
+     * @param expression a single expression i.e. #[message.payload]
+     * @return a handle that evaluates the expression
+     * @throws InvalidExpressionException if the expression is invalid
+     */
+    CompiledExpression compile(String expression) throws InvalidExpressionException;
+}
@@ -42,7 +42,7 @@ import org.apache.commons.logging.LogFactory;
  * <p/>
  * Users can register or unregister {@link ExpressionEvaluator} through this interface.
  */
-public class DefaultExpressionManager implements ExpressionManager, MuleContextAware, Initialisable
+public class DefaultExpressionManager implements ExpressionManager, CompiledExpressionFactory, MuleContextAware, Initialisable
 {
 
     /**
@@ -422,6 +422,14 @@ public class DefaultExpressionManager implements ExpressionManager, MuleContextA
                                      boolean nullReturnsTrue,
                                      boolean nonBooleanReturnsTrue,
                                      String expression)
+    {
+        return toBoolean(result, nullReturnsTrue, nonBooleanReturnsTrue, expression);
+    }
+
+    static boolean toBoolean(Object result,
+                             boolean nullReturnsTrue,
+                             boolean nonBooleanReturnsTrue,
+                             String expression)
     {
         if (result == null)
         {
@@ -674,6 +682,26 @@ public class DefaultExpressionManager implements ExpressionManager, MuleContextA
         return evaluateBoolean(expression, event, false, false);
     }
 
+    @Override
+    public CompiledExpression compile(String expression) throws InvalidExpressionException
+    {
+        String unwrappedExpression = removeExpressionMarker(expression);
+        if (isEvaluatorExpression(unwrappedExpression))
+        {
+            String[] parts = unwrappedExpression.split(":", 2);
+            return new EvaluatorCompiledExpression(unwrappedExpression, parts[0], parts[1]);
+        }
+        else if (expressionLanguage instanceof CompiledExpressionFactory)
+        {
+            return ((CompiledExpressionFactory) expressionLanguage).compile(expression);
+        }
+        else
+        {
+            expressionLanguage.validate(expression);
+            return new ExpressionLanguageCompiledExpression(expression);
+        }
+    }
+
     public static String removeExpressionMarker(String expression)
     {
         if (expression == null)
@@ -735,4 +763,71 @@ public class DefaultExpressionManager implements ExpressionManager, MuleContextA
     {
         return expressionLanguage;
     }
+
+    /**
+     * Compiled form of an expression that uses a registered {@link ExpressionEvaluator}, which keeps the
+     * evaluator name and the expression apart so that they are not split for every evaluation.
+     */
+    private class EvaluatorCompiledExpression extends AbstractCompiledExpression
+    {
+
+        private final String evaluator;
+        private final String evaluatorExpression;
+
+        EvaluatorCompiledExpression(String expression, String evaluator, String evaluatorExpression)
+        {
+            super(expression);
+            this.evaluator = evaluator;
+            this.evaluatorExpression = evaluatorExpression;
+        }
+
+        @Override
+        public Object evaluate(MuleEvent event) throws ExpressionRuntimeException
+        {
+            return DefaultExpressionManager.this.evaluate(evaluatorExpression, evaluator, event.getMessage(), false);
+        }
+
+        @Override
+        public Object evaluate(MuleMessage message) throws ExpressionRuntimeException
+        {
+            return DefaultExpressionManager.this.evaluate(evaluatorExpression, evaluator, message, false);
+        }
+
+        @Override
+        public TypedValue evaluateTyped(MuleMessage message) throws ExpressionRuntimeException
+        {
+            return DefaultExpressionManager.this.evaluateTyped(evaluatorExpression, evaluator, message, false);
+        }
+    }
+
+    /**
+     * Expression for an {@link ExpressionLanguage} that cannot compile it, which is evaluated from the
+     * expression string every time.
+     */
+    private class ExpressionLanguageCompiledExpression extends AbstractCompiledExpression
+    {
+
+        ExpressionLanguageCompiledExpression(String expression)
+        {
+            super(expression);
+        }
+
+        @Override
+        public Object evaluate(MuleEvent event) throws ExpressionRuntimeException
+        {
+            return DefaultExpressionManager.this.evaluate(getExpression(), event);
+        }
+
+        @Override
+        public Object evaluate(MuleMessage message) throws ExpressionRuntimeException
+        {
+            return DefaultExpressionManager.this.evaluate(getExpression(), message);
+        }
+
+        @Override
+        public TypedValue evaluateTyped(MuleMessage message) throws ExpressionRuntimeException
+        {
+            return DefaultExpressionManager.this.evaluateTyped(getExpression(), message);
+        }
+    }
 }
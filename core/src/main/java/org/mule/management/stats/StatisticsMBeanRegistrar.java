@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.management.stats;
+
+import static java.lang.String.format;
+
+import org.mule.api.MuleContext;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registers the statistics of configuration elements as MBeans in the platform MBean server, under the domain of
+ * the application they belong to, so they can be monitored even when no JMX agent is configured.
+ * <p/>
+ * Failures are logged instead of thrown, since statistics are not needed for the element to work.
+ */
+public class StatisticsMBeanRegistrar
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsMBeanRegistrar.class);
+
+    private StatisticsMBeanRegistrar()
+    {
+    }
+
+    /**
+     * Registers the statistics with the name {@code Mule.<application>:type=<type>,name=<name>}. When that name is
+     * already taken, for example by another instance created for a dynamic configuration, a numeric suffix is
+     * appended to the name.
+     *
+     * @param muleContext the context of the application the statistics belong to
+     * @param type the type of the statistics
+     * @param name the name of the element the statistics belong to
+     * @param statistics the MBean with the statistics
+     * @return the name the statistics were registered with, or null if they could not be registered
+     */
+    public static ObjectName register(MuleContext muleContext, String type, String name, Object statistics)
+    {
+        try
+        {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            for (int i = 1; ; i++)
+            {
+                String uniqueName = i == 1 ? name : name + "-" + i;
+                ObjectName objectName = new ObjectName(format("Mule.%s:type=%s,name=%s", muleContext.getConfiguration().getId(),
+                                                              type, ObjectName.quote(uniqueName)));
+                if (!mBeanServer.isRegistered(objectName))
+                {
+                    mBeanServer.registerMBean(statistics, objectName);
+                    return objectName;
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            logger.warn(format("Could not register the %s statistics of %s", type, name), e);
+            return null;
+        }
+    }
+
+    /**
+     * @param objectName the name returned by {@link #register(MuleContext, String, String, Object)}, or null
+     */
+    public static void unregister(ObjectName objectName)
+    {
+        if (objectName == null)
+        {
+            return;
+        }
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        }
+        catch (Exception e)
+        {
+            logger.warn(format("Could not unregister statistics %s", objectName), e);
+        }
+    }
+}
@@ -7,14 +7,13 @@
 package org.mule.model.streaming;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
 /**
  * FileInputStream which deletes the underlying file when the stream is closed.
  */
-public class DeleteOnCloseFileInputStream extends FileInputStream
+public class DeleteOnCloseFileInputStream extends FileBackedInputStream
 {
     private File file;
 
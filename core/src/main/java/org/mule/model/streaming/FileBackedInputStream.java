@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.model.streaming;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+
+/**
+ * FileInputStream that keeps a reference to the file it reads, so transports can send the remaining
+ * content of the file without copying it through the stream.
+ */
+public class FileBackedInputStream extends FileInputStream
+{
+
+    private final File file;
+
+    public FileBackedInputStream(File file) throws FileNotFoundException
+    {
+        super(file);
+        this.file = file;
+    }
+
+    /**
+     * @return the file read by this stream
+     */
+    public File getFile()
+    {
+        return file;
+    }
+}
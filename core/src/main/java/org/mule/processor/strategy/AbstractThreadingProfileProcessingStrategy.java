@@ -37,6 +37,7 @@ public abstract class AbstractThreadingProfileProcessingStrategy implements Proc
     protected Long threadTTL;
     protected Long threadWaitTimeout;
     protected Integer poolExhaustedAction;
+    protected Boolean virtualThreads;
 
     protected ThreadingProfile createThreadingProfile(MuleContext muleContext)
     {
@@ -65,6 +66,10 @@ public abstract class AbstractThreadingProfileProcessingStrategy implements Proc
         {
             threadingProfile.setPoolExhaustedAction(poolExhaustedAction);
         }
+        if (virtualThreads != null)
+        {
+            threadingProfile.setVirtualThreads(virtualThreads);
+        }
         threadingProfile.setMuleContext(muleContext);
         return threadingProfile;
     }
@@ -114,6 +119,11 @@ public abstract class AbstractThreadingProfileProcessingStrategy implements Proc
         this.poolExhaustedAction = poolExhaustedAction;
     }
 
+    public void setVirtualThreads(Boolean virtualThreads)
+    {
+        this.virtualThreads = virtualThreads;
+    }
+
     public Integer getMaxBufferSize()
     {
         return maxBufferSize;
@@ -134,4 +144,9 @@ public abstract class AbstractThreadingProfileProcessingStrategy implements Proc
         return poolExhaustedAction;
     }
 
+    public Boolean getVirtualThreads()
+    {
+        return virtualThreads;
+    }
+
 }
@@ -40,6 +40,7 @@ import org.mule.api.transformer.Transformer;
 import org.mule.api.transformer.TransformerException;
 import org.mule.api.transport.Connector;
 import org.mule.config.i18n.CoreMessages;
+import org.mule.transformer.types.DataTypePair;
 import org.mule.transformer.types.SimpleDataType;
 import org.mule.util.Predicate;
 import org.mule.util.SpiUtils;
@@ -81,8 +82,8 @@ public class MuleRegistryHelper implements MuleRegistry, RegistryProvider
     /**
      * We cache transformer searches so that we only search once
      */
-    protected ConcurrentHashMap/*<String, Transformer>*/ exactTransformerCache = new ConcurrentHashMap/*<String, Transformer>*/(8);
-    protected ConcurrentHashMap/*Map<String, List<Transformer>>*/ transformerListCache = new ConcurrentHashMap/*<String, List<Transformer>>*/(8);
+    protected ConcurrentHashMap<DataTypePair, Transformer> exactTransformerCache = new ConcurrentHashMap<DataTypePair, Transformer>(8);
+    protected ConcurrentHashMap<DataTypePair, List<Transformer>> transformerListCache = new ConcurrentHashMap<DataTypePair, List<Transformer>>(8);
 
     private MuleContext muleContext;
 
@@ -221,8 +222,8 @@ public class MuleRegistryHelper implements MuleRegistry, RegistryProvider
      */
     public Transformer lookupTransformer(DataType source, DataType result) throws TransformerException
     {
-        final String dataTypePairHash = getDataTypeSourceResultPairHash(source, result);
-        Transformer cachedTransformer = (Transformer) exactTransformerCache.get(dataTypePairHash);
+        final DataTypePair dataTypePair = new DataTypePair(source, result);
+        Transformer cachedTransformer = exactTransformerCache.get(dataTypePair);
         if (cachedTransformer != null)
         {
             return cachedTransformer;
@@ -232,8 +233,7 @@ public class MuleRegistryHelper implements MuleRegistry, RegistryProvider
 
         if (trans != null)
         {
-            Transformer concurrentlyAddedTransformer = (Transformer) exactTransformerCache.putIfAbsent(
-                    dataTypePairHash, trans);
+            Transformer concurrentlyAddedTransformer = exactTransformerCache.putIfAbsent(DataTypePair.copyOf(source, result), trans);
             if (concurrentlyAddedTransformer != null)
             {
                 return concurrentlyAddedTransformer;
@@ -285,9 +285,9 @@ public class MuleRegistryHelper implements MuleRegistry, RegistryProvider
      */
     public List<Transformer> lookupTransformers(DataType source, DataType result)
     {
-        final String dataTypePairHash = getDataTypeSourceResultPairHash(source, result);
+        final DataTypePair dataTypePair = new DataTypePair(source, result);
 
-        List<Transformer> results = (List<Transformer>) transformerListCache.get(dataTypePairHash);
+        List<Transformer> results = transformerListCache.get(dataTypePair);
         if (results != null)
         {
             return results;
@@ -319,8 +319,7 @@ public class MuleRegistryHelper implements MuleRegistry, RegistryProvider
             readLock.unlock();
         }
 
-        List<Transformer> concurrentlyAddedTransformers = (List<Transformer>) transformerListCache.putIfAbsent(
-                dataTypePairHash, results);
+        List<Transformer> concurrentlyAddedTransformers = transformerListCache.putIfAbsent(DataTypePair.copyOf(source, result), results);
         if (concurrentlyAddedTransformers != null)
         {
             return concurrentlyAddedTransformers;
@@ -945,12 +944,6 @@ public class MuleRegistryHelper implements MuleRegistry, RegistryProvider
         return false;
     }
 
-    private String getDataTypeSourceResultPairHash(DataType<?> source, DataType<?> result)
-    {
-        return source.getClass().getName() + source.hashCode() + ":" + result.getClass().getName()
-               + result.hashCode();
-    }
-
     private class TransformerResolverComparator implements Comparator<TransformerResolver>
     {
 
@@ -9,10 +9,12 @@ package org.mule.registry;
 import static org.mule.api.lifecycle.LifecycleUtils.initialiseIfNeeded;
 import org.mule.api.MuleContext;
 import org.mule.api.MuleException;
+import org.mule.api.config.MuleProperties;
 import org.mule.api.context.MuleContextAware;
 import org.mule.api.lifecycle.Disposable;
 import org.mule.api.lifecycle.Initialisable;
 import org.mule.api.lifecycle.InitialisationException;
+import org.mule.api.lifecycle.Startable;
 import org.mule.api.registry.ResolverException;
 import org.mule.api.registry.TransformerResolver;
 import org.mule.api.transformer.Converter;
@@ -24,6 +26,7 @@ import org.mule.transformer.TransformerWeighting;
 import org.mule.transformer.graph.GraphTransformerResolver;
 import org.mule.transformer.simple.ObjectToByteArray;
 import org.mule.transformer.simple.ObjectToString;
+import org.mule.transformer.types.DataTypePair;
 import org.mule.transformer.types.SimpleDataType;
 
 import java.util.ArrayList;
@@ -41,9 +44,16 @@ import org.apache.commons.logging.LogFactory;
  * Will discover transformers based on type information only. It looks for transformers that support
  * the source and result types passed into the method. This resolver only resolves on the first
  * source type, which is the way transformer resolution working in Mule 2.x.
+ * <p/>
+ * When extended transformations are enabled, the resolutions of the transformation graph
+ * are precomputed on start unless the {@link #PRECOMPUTE_GRAPH_RESOLUTIONS_PROPERTY} system
+ * property is set to false.
  */
-public class TypeBasedTransformerResolver implements TransformerResolver, MuleContextAware, Disposable, Initialisable
+public class TypeBasedTransformerResolver implements TransformerResolver, MuleContextAware, Disposable, Initialisable, Startable
 {
+
+    public static final String PRECOMPUTE_GRAPH_RESOLUTIONS_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "transformer.precomputeGraphResolutions";
+
     /**
      * logger used by this class
      */
@@ -54,7 +64,7 @@ public class TypeBasedTransformerResolver implements TransformerResolver, MuleCo
 
     private MuleContext muleContext;
 
-    protected Map<String, Transformer> exactTransformerCache = new ConcurrentHashMap/*<String, Transformer>*/(8);
+    protected Map<DataTypePair, Transformer> exactTransformerCache = new ConcurrentHashMap<DataTypePair, Transformer>(8);
 
     protected TransformerResolver graphTransformerResolver = new GraphTransformerResolver();
 
@@ -81,9 +91,20 @@ public class TypeBasedTransformerResolver implements TransformerResolver, MuleCo
         }
     }
 
+    public void start() throws MuleException
+    {
+        if (muleContext != null && muleContext.getConfiguration().useExtendedTransformations()
+            && graphTransformerResolver instanceof GraphTransformerResolver
+            && Boolean.parseBoolean(System.getProperty(PRECOMPUTE_GRAPH_RESOLUTIONS_PROPERTY, "true")))
+        {
+            ((GraphTransformerResolver) graphTransformerResolver).precompute();
+        }
+    }
+
     public Transformer resolve(DataType source, DataType result) throws ResolverException
     {
-        Transformer transformer = exactTransformerCache.get(source.toString() + result.toString());
+        DataTypePair dataTypePair = new DataTypePair(source, result);
+        Transformer transformer = exactTransformerCache.get(dataTypePair);
         if (transformer != null)
         {
             return transformer;
@@ -143,7 +164,7 @@ public class TypeBasedTransformerResolver implements TransformerResolver, MuleCo
 
         if (transformer != null)
         {
-            exactTransformerCache.put(source.toString() + result.toString(), transformer);
+            exactTransformerCache.put(DataTypePair.copyOf(source, result), transformer);
         }
         return transformer;
     }
@@ -12,6 +12,8 @@ import org.mule.api.MuleMessage;
 import org.mule.api.expression.ExpressionManager;
 import org.mule.api.lifecycle.Initialisable;
 import org.mule.api.lifecycle.InitialisationException;
+import org.mule.expression.CompiledExpression;
+import org.mule.expression.CompiledExpressionFactory;
 import org.mule.expression.ExpressionConfig;
 
 import java.util.ArrayList;
@@ -38,6 +40,7 @@ public class ExpressionSplitter extends AbstractSplitter
 
     protected ExpressionManager expressionManager;
     protected ExpressionConfig config = new ExpressionConfig();
+    protected CompiledExpression compiledExpression;
 
     public ExpressionSplitter()
     {
@@ -54,14 +57,26 @@ public class ExpressionSplitter extends AbstractSplitter
     {
         expressionManager = muleContext.getExpressionManager();
         config.validate(expressionManager);
+        if (expressionManager instanceof CompiledExpressionFactory)
+        {
+            compiledExpression = ((CompiledExpressionFactory) expressionManager).compile(config.getFullExpression(expressionManager));
+        }
     }
 
     @Override
     protected List<MuleMessage> splitMessage(MuleEvent event)
     {
-        Object result = event.getMuleContext()
-            .getExpressionManager()
-            .evaluate(config.getFullExpression(expressionManager), event);
+        Object result;
+        if (compiledExpression != null)
+        {
+            result = compiledExpression.evaluate(event);
+        }
+        else
+        {
+            result = event.getMuleContext()
+                .getExpressionManager()
+                .evaluate(config.getFullExpression(expressionManager), event);
+        }
         if (result instanceof Object[])
         {
             result = Arrays.asList((Object[]) result);
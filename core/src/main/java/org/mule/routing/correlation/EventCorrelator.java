@@ -44,7 +44,9 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
+import com.google.common.util.concurrent.Striped;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -60,6 +62,12 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
 
     public static final int MAX_PROCESSED_GROUPS = 50000;
 
+    /**
+     * Number of locks shared by the event groups. Events for groups that map to different
+     * stripes are correlated in parallel.
+     */
+    public static final int GROUP_LOCK_STRIPES = 1024;
+
     private static final long ONE_DAY_IN_MILLI = 1000 * 60 * 60 * 24;
 
     protected long groupTimeToLive = ONE_DAY_IN_MILLI;
@@ -71,9 +79,18 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
      */
     protected ListableObjectStore<EventGroup> eventGroups;
 
+    /**
+     * Locks guarding the state of each event group, keyed by group id. Every read-modify-write of
+     * a group or of its entry in {@link #processedGroups} happens while holding its lock.
+     */
+    protected final Striped<Lock> groupLocks = Striped.lazyWeakLock(GROUP_LOCK_STRIPES);
+
+    /**
+     * Deprecated from 3.8.0. No longer used, groups are guarded by {@link #groupLocks}.
+     */
+    @Deprecated
     protected final Object groupsLock = new Object();
 
-    // @GuardedBy groupsLock
     protected ObjectStore<Long> processedGroups = null;
 
     private long timeout = -1; // undefined
@@ -186,8 +203,10 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
             throw new RoutingException(CoreMessages.noCorrelationId(), event, timeoutMessageProcessor);
         }
 
-        // spinloop for the EventGroup lookup
-        while (true)
+        // ensure that only one thread at a time evaluates this EventGroup
+        final Lock groupLock = getGroupLock(groupId);
+        groupLock.lock();
+        try
         {
             try
             {
@@ -236,58 +255,67 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
                 }
             }
 
-            // ensure that only one thread at a time evaluates this EventGroup
-            synchronized (groupsLock)
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Adding event to aggregator group: " + groupId);
+            }
+
+            // add the incoming event to the group
+            try
+            {
+                group.addEvent(event);
+            }
+            catch (ObjectStoreException e)
+            {
+                throw new RoutingException(event, timeoutMessageProcessor, e);
+            }
+
+            // check to see if the event group is ready to be aggregated
+            if (callback.shouldAggregateEvents(group))
             {
-                if (logger.isDebugEnabled())
+                // create the response event
+                MuleEvent returnEvent = callback.aggregateEvents(group);
+                returnEvent.getMessage().setCorrelationId(groupId);
+                String rootId = group.getCommonRootId();
+                if (rootId != null)
                 {
-                    logger.debug("Adding event to aggregator group: " + groupId);
+                    returnEvent.getMessage().setMessageRootId(rootId);
                 }
 
-                // add the incoming event to the group
+                // remove the eventGroup as no further message will be received
+                // for this group once we aggregate
                 try
                 {
-                    group.addEvent(event);
+                    this.removeEventGroup(group);
+                    group.clear();
                 }
                 catch (ObjectStoreException e)
                 {
                     throw new RoutingException(event, timeoutMessageProcessor, e);
                 }
 
-                // check to see if the event group is ready to be aggregated
-                if (callback.shouldAggregateEvents(group))
-                {
-                    // create the response event
-                    MuleEvent returnEvent = callback.aggregateEvents(group);
-                    returnEvent.getMessage().setCorrelationId(groupId);
-                    String rootId = group.getCommonRootId();
-                    if (rootId != null)
-                    {
-                        returnEvent.getMessage().setMessageRootId(rootId);
-                    }
-
-                    // remove the eventGroup as no further message will be received
-                    // for this group once we aggregate
-                    try
-                    {
-                        this.removeEventGroup(group);
-                        group.clear();
-                    }
-                    catch (ObjectStoreException e)
-                    {
-                        throw new RoutingException(event, timeoutMessageProcessor, e);
-                    }
-
-                    return returnEvent;
-                }
-                else
-                {
-                    return null;
-                }
+                return returnEvent;
             }
+            else
+            {
+                return null;
+            }
+        }
+        finally
+        {
+            groupLock.unlock();
         }
     }
 
+    /**
+     * @param groupId the id of an event group
+     * @return the lock that guards the event group with the given id
+     */
+    protected Lock getGroupLock(Object groupId)
+    {
+        return groupLocks.get(groupId);
+    }
+
     protected EventGroup getEventGroup(Serializable groupId) throws ObjectStoreException
     {
         try
@@ -328,7 +356,9 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
     protected void removeEventGroup(EventGroup group) throws ObjectStoreException
     {
         final Object groupId = group.getGroupId();
-        synchronized (groupsLock)
+        final Lock groupLock = getGroupLock(groupId);
+        groupLock.lock();
+        try
         {
             if (!isGroupAlreadyProcessed(groupId))
             {
@@ -336,22 +366,20 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
                 addProcessedGroup(groupId);
             }
         }
+        finally
+        {
+            groupLock.unlock();
+        }
     }
 
     protected void addProcessedGroup(Object id) throws ObjectStoreException
     {
-        synchronized (groupsLock)
-        {
-            processedGroups.store((Serializable) id, System.currentTimeMillis());
-        }
+        processedGroups.store((Serializable) id, System.currentTimeMillis());
     }
 
     protected boolean isGroupAlreadyProcessed(Object id) throws ObjectStoreException
     {
-        synchronized (groupsLock)
-        {
-            return processedGroups.contains((Serializable) id);
-        }
+        return processedGroups.contains((Serializable) id);
     }
 
     public boolean isFailOnTimeout()
@@ -376,43 +404,55 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
 
     protected void handleGroupExpiry(EventGroup group) throws MessagingException
     {
-        try
-        {
-            removeEventGroup(group);
-        }
-        catch (ObjectStoreException e)
-        {
-            throw new MessagingException(group.getMessageCollectionEvent(), e);
-        }
+        MuleEvent newEvent;
 
-        if (isFailOnTimeout())
+        // the group is expired while holding its lock so that concurrent events for it are either
+        // added before the expiration or dropped as belonging to an already processed group
+        final Lock groupLock = getGroupLock(group.getGroupId());
+        groupLock.lock();
+        try
         {
-            MuleMessageCollection messageCollection;
             try
             {
-                messageCollection = group.toMessageCollection();
+                if (isGroupAlreadyProcessed(group.getGroupId()))
+                {
+                    // the group was aggregated by a concurrent event after being selected for expiration
+                    return;
+                }
+                removeEventGroup(group);
             }
             catch (ObjectStoreException e)
             {
                 throw new MessagingException(group.getMessageCollectionEvent(), e);
             }
-            muleContext.fireNotification(new RoutingNotification(messageCollection, null,
-                                                                 RoutingNotification.CORRELATION_TIMEOUT));
-            MuleEvent groupCollectionEvent = group.getMessageCollectionEvent();
-            try
-            {
-                group.clear();
-            }
-            catch (ObjectStoreException e)
+
+            if (isFailOnTimeout())
             {
-                logger.warn("Failed to clear group with id " + group.getGroupId()
-                            + " since underlying ObjectStore threw Exception:" + e.getMessage());
+                MuleMessageCollection messageCollection;
+                try
+                {
+                    messageCollection = group.toMessageCollection();
+                }
+                catch (ObjectStoreException e)
+                {
+                    throw new MessagingException(group.getMessageCollectionEvent(), e);
+                }
+                muleContext.fireNotification(new RoutingNotification(messageCollection, null,
+                                                                     RoutingNotification.CORRELATION_TIMEOUT));
+                MuleEvent groupCollectionEvent = group.getMessageCollectionEvent();
+                try
+                {
+                    group.clear();
+                }
+                catch (ObjectStoreException e)
+                {
+                    logger.warn("Failed to clear group with id " + group.getGroupId()
+                                + " since underlying ObjectStore threw Exception:" + e.getMessage());
+                }
+                throw new CorrelationTimeoutException(CoreMessages.correlationTimedOut(group.getGroupId()),
+                                                      groupCollectionEvent);
             }
-            throw new CorrelationTimeoutException(CoreMessages.correlationTimedOut(group.getGroupId()),
-                                                  groupCollectionEvent);
-        }
-        else
-        {
+
             if (logger.isDebugEnabled())
             {
                 logger.debug(MessageFormat.format(
@@ -421,41 +461,15 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
                         group.getGroupId()));
             }
 
-            try
+            if (group.getCreated() + groupTimeToLive < System.currentTimeMillis())
             {
-                if (!(group.getCreated() + groupTimeToLive < System.currentTimeMillis()))
-                {
-                    MuleEvent newEvent = callback.aggregateEvents(group);
-                    group.clear();
-                    newEvent.getMessage().setCorrelationId(group.getGroupId().toString());
+                return;
+            }
 
-                    if (!expiredAndDispatchedGroups.contains((Serializable) group.getGroupId()))
-                    {
-                        // TODO which use cases would need a sync reply event
-                        // returned?
-                        if (timeoutMessageProcessor != null)
-                        {
-                            timeoutMessageProcessor.process(newEvent);
-                        }
-                        else
-                        {
-                            final FlowConstruct service = group.toArray(false)[0].getFlowConstruct();
-                            if (!(service instanceof Service))
-                            {
-                                throw new UnsupportedOperationException(
-                                        "EventAggregator is only supported with Service");
-                            }
-
-                            ((Service) service).dispatchEvent(newEvent);
-                        }
-                        expiredAndDispatchedGroups.store((Serializable) group.getGroupId(),
-                                                         group.getCreated());
-                    }
-                    else
-                    {
-                        logger.warn(MessageFormat.format("Discarding group {0}", group.getGroupId()));
-                    }
-                }
+            try
+            {
+                newEvent = callback.aggregateEvents(group);
+                group.clear();
             }
             catch (MessagingException me)
             {
@@ -466,6 +480,50 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
                 throw new MessagingException(group.getMessageCollectionEvent(), e);
             }
         }
+        finally
+        {
+            groupLock.unlock();
+        }
+
+        try
+        {
+            newEvent.getMessage().setCorrelationId(group.getGroupId().toString());
+
+            if (!expiredAndDispatchedGroups.contains((Serializable) group.getGroupId()))
+            {
+                // TODO which use cases would need a sync reply event
+                // returned?
+                if (timeoutMessageProcessor != null)
+                {
+                    timeoutMessageProcessor.process(newEvent);
+                }
+                else
+                {
+                    final FlowConstruct service = group.toArray(false)[0].getFlowConstruct();
+                    if (!(service instanceof Service))
+                    {
+                        throw new UnsupportedOperationException(
+                                "EventAggregator is only supported with Service");
+                    }
+
+                    ((Service) service).dispatchEvent(newEvent);
+                }
+                expiredAndDispatchedGroups.store((Serializable) group.getGroupId(),
+                                                 group.getCreated());
+            }
+            else
+            {
+                logger.warn(MessageFormat.format("Discarding group {0}", group.getGroupId()));
+            }
+        }
+        catch (MessagingException me)
+        {
+            throw me;
+        }
+        catch (Exception e)
+        {
+            throw new MessagingException(group.getMessageCollectionEvent(), e);
+        }
     }
 
     @Override
@@ -12,8 +12,12 @@ import static org.mule.util.ClassUtils.hash;
 import org.mule.api.MuleContext;
 import org.mule.api.MuleMessage;
 import org.mule.api.context.MuleContextAware;
+import org.mule.api.lifecycle.Initialisable;
+import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.routing.filter.Filter;
 import org.mule.api.transport.PropertyScope;
+import org.mule.expression.CompiledExpression;
+import org.mule.expression.CompiledExpressionFactory;
 import org.mule.expression.ExceptionTypeExpressionEvaluator;
 import org.mule.expression.ExpressionConfig;
 import org.mule.expression.PayloadTypeExpressionEvaluator;
@@ -43,7 +47,7 @@ import org.apache.commons.logging.LogFactory;
  * </code> Note that it if the expression is not a boolean expression this filter will return true if the
  * expression returns a result
  */
-public class ExpressionFilter implements Filter, MuleContextAware
+public class ExpressionFilter implements Filter, MuleContextAware, Initialisable
 {
     /**
      * logger used by this class
@@ -64,6 +68,8 @@ public class ExpressionFilter implements Filter, MuleContextAware
     /** For evaluators that are not expression languages we can delegate the execution to another filter */
     private Filter delegateFilter;
 
+    private volatile CompiledExpression compiledExpression;
+
     public ExpressionFilter(String evaluator, String customEvaluator, String expression)
     {
         this.config = new ExpressionConfig(expression, evaluator, customEvaluator);
@@ -89,6 +95,35 @@ public class ExpressionFilter implements Filter, MuleContextAware
     public void setMuleContext(MuleContext context)
     {
         this.muleContext = context;
+        compiledExpression = null;
+    }
+
+    /**
+     * Compiles the expression, so that routers owning the filter do it when they are initialised. Filters
+     * that are not initialised compile it when they accept the first message.
+     */
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        if (muleContext == null)
+        {
+            return;
+        }
+        String expr = getFullExpression();
+        if (delegateFilter != null)
+        {
+            return;
+        }
+        ClassLoader originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+        try
+        {
+            Thread.currentThread().setContextClassLoader(expressionEvaluationClassLoader);
+            getCompiledExpression(expr);
+        }
+        finally
+        {
+            Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+        }
     }
 
     /**
@@ -120,6 +155,11 @@ public class ExpressionFilter implements Filter, MuleContextAware
         try
         {
             Thread.currentThread().setContextClassLoader(expressionEvaluationClassLoader);
+            CompiledExpression compiled = getCompiledExpression(expr);
+            if (compiled != null)
+            {
+                return compiled.evaluateBoolean(message, nullReturnsTrue, !nullReturnsTrue);
+            }
             return muleContext.getExpressionManager().evaluateBoolean(expr, message, nullReturnsTrue,
                 !nullReturnsTrue);
         }
@@ -130,6 +170,20 @@ public class ExpressionFilter implements Filter, MuleContextAware
         }
     }
 
+    /**
+     * @return the compiled expression, or null if the expression manager cannot compile expressions
+     */
+    private CompiledExpression getCompiledExpression(String expression)
+    {
+        CompiledExpression compiled = compiledExpression;
+        if (compiled == null && muleContext.getExpressionManager() instanceof CompiledExpressionFactory)
+        {
+            compiled = ((CompiledExpressionFactory) muleContext.getExpressionManager()).compile(expression);
+            compiledExpression = compiled;
+        }
+        return compiled;
+    }
+
     protected String getFullExpression()
     {
         if (config.getEvaluator() == null)
@@ -207,6 +261,7 @@ public class ExpressionFilter implements Filter, MuleContextAware
     {
         this.config.setCustomEvaluator(customEvaluator);
         fullExpression = null;
+        compiledExpression = null;
     }
 
     public String getEvaluator()
@@ -218,6 +273,7 @@ public class ExpressionFilter implements Filter, MuleContextAware
     {
         this.config.setEvaluator(evaluator);
         fullExpression = null;
+        compiledExpression = null;
     }
 
     public String getExpression()
@@ -229,6 +285,7 @@ public class ExpressionFilter implements Filter, MuleContextAware
     {
         this.config.setExpression(expression);
         fullExpression = null;
+        compiledExpression = null;
     }
 
     public boolean isNullReturnsTrue()
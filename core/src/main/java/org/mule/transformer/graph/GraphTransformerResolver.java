@@ -12,19 +12,45 @@ import org.mule.api.transformer.Converter;
 import org.mule.api.transformer.DataType;
 import org.mule.api.transformer.Transformer;
 import org.mule.config.i18n.CoreMessages;
+import org.mule.transformer.types.DataTypePair;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import org.apache.commons.collections.map.LRUMap;
-
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Resolves transformers using the shortest conversion paths available in a
+ * {@link TransformationGraph}.
+ * <p/>
+ * Resolutions are kept in a bounded table keyed by copies of the source and result
+ * {@link DataType}, so once a pair was resolved, or {@link #precompute() precomputed}
+ * for the data types in the graph, resolving it again is a single non blocking
+ * lookup. The least recently used pairs are discarded when the table holds
+ * {@link #MAX_RESOLUTIONS} of them. When a converter is added or removed only the
+ * pairs whose conversion paths may go through it are discarded from the table.
+ */
 public class GraphTransformerResolver implements TransformerResolver
 {
 
+    public static final int MAX_RESOLUTIONS = 1000;
+
+    private static final Object NO_CONVERTER = new Object();
+
+    protected final Log logger = LogFactory.getLog(getClass());
+
     private ReentrantReadWriteLock readWriteLock;
     private TransformationGraph graph;
     private CompositeConverterFilter converterFilter;
-    private LRUMap cache;
+    private Cache<DataTypePair, Object> resolutions;
     private TransformationGraphLookupStrategy lookupStrategyTransformation;
 
     public GraphTransformerResolver()
@@ -33,83 +59,104 @@ public class GraphTransformerResolver implements TransformerResolver
         this.graph = new TransformationGraph();
         lookupStrategyTransformation = new TransformationGraphLookupStrategy(graph);
         converterFilter = new CompositeConverterFilter(new TransformationLengthConverterFilter(), new PriorityWeightingConverterFilter(), new NameConverterFilter());
-        cache = new LRUMap();
+        resolutions = CacheBuilder.newBuilder().maximumSize(MAX_RESOLUTIONS).build();
     }
 
     @Override
     public Transformer resolve(DataType<?> source, DataType<?> result) throws ResolverException
     {
-        String cacheKey = getDataTypeSourceResultPairHash(source, result);
+        Object resolution = resolutions.getIfPresent(new DataTypePair(source, result));
 
-        readWriteLock.readLock().lock();
-        try
+        if (resolution == null)
         {
-            if (cache.containsKey(cacheKey))
+            // Resolves holding the read lock so the graph can not change and the
+            // resolution can not be stored after the pair was invalidated
+            readWriteLock.readLock().lock();
+            try
             {
-                return (Converter) cache.get(cacheKey);
-            }
-        }
-        finally
-        {
-            readWriteLock.readLock().unlock();
-        }
+                List<Converter> converters = converterFilter.filter(lookupStrategyTransformation.lookupConverters(source, result), source, result);
 
-        List<Converter> converters = converterFilter.filter(lookupStrategyTransformation.lookupConverters(source, result), source, result);
+                if (converters.size() > 1)
+                {
+                    throw new ResolverException(CoreMessages.transformHasMultipleMatches(source.getType(), result.getType(), converters));
+                }
 
-        if (converters.size() > 1)
-        {
-            throw new ResolverException(CoreMessages.transformHasMultipleMatches(source.getType(), result.getType(), converters));
+                resolution = (converters.size() == 0) ? NO_CONVERTER : converters.get(0);
+                resolutions.put(DataTypePair.copyOf(source, result), resolution);
+            }
+            finally
+            {
+                readWriteLock.readLock().unlock();
+            }
         }
 
-        Transformer converter = (converters.size() == 0) ? null : converters.get(0);
+        return resolution == NO_CONVERTER ? null : (Transformer) resolution;
+    }
 
+    /**
+     * Resolves the converters for every pair of data types connected in the
+     * transformation graph, so they are already available the first time they are
+     * requested. Pairs with more than one matching converter are skipped and fail
+     * when they are actually resolved. When the graph has more pairs than
+     * {@link #MAX_RESOLUTIONS} only the last ones precomputed are kept.
+     */
+    public void precompute()
+    {
+        long startTime = System.currentTimeMillis();
+        int precomputed = 0;
 
-        readWriteLock.writeLock().lock();
+        readWriteLock.readLock().lock();
         try
         {
-            cache.put(cacheKey, converter);
+            for (DataType<?> source : graph.vertexSet())
+            {
+                Map<DataType<?>, List<Converter>> convertersByResult = lookupStrategyTransformation.lookupConverters(source);
+
+                for (Map.Entry<DataType<?>, List<Converter>> entry : convertersByResult.entrySet())
+                {
+                    List<Converter> converters = converterFilter.filter(entry.getValue(), source, entry.getKey());
+
+                    if (converters.size() == 1)
+                    {
+                        resolutions.put(DataTypePair.copyOf(source, entry.getKey()), converters.get(0));
+                        precomputed++;
+                    }
+                }
+            }
         }
         finally
         {
-            readWriteLock.writeLock().unlock();
+            readWriteLock.readLock().unlock();
         }
 
-        return converter;
-    }
-
-    private String getDataTypeSourceResultPairHash(DataType<?> source, DataType<?> result)
-    {
-        StringBuilder builder = new StringBuilder();
-        builder.append(source.getClass().getName());
-        builder.append(source.hashCode());
-        builder.append(":");
-        builder.append(result.getClass().getName());
-        builder.append(result.hashCode());
-
-        return builder.toString();
+        if (logger.isDebugEnabled())
+        {
+            logger.debug(String.format("Precomputed %d transformer resolutions in %d ms", precomputed, System.currentTimeMillis() - startTime));
+        }
     }
 
     @Override
     public void transformerChange(Transformer transformer, RegistryAction registryAction)
     {
-        readWriteLock.writeLock().lock();
-
-        try
+        if (!(transformer instanceof Converter))
         {
-            if (!(transformer instanceof Converter))
-            {
-                return;
-            }
+            return;
+        }
 
-            cache.clear();
+        Converter converter = (Converter) transformer;
 
+        readWriteLock.writeLock().lock();
+        try
+        {
             if (registryAction == RegistryAction.ADDED)
             {
-                graph.addConverter((Converter) transformer);
+                graph.addConverter(converter);
+                invalidate(converter);
             }
             else if (registryAction == RegistryAction.REMOVED)
             {
-                graph.removeConverter((Converter) transformer);
+                invalidate(converter);
+                graph.removeConverter(converter);
             }
         }
         finally
@@ -117,4 +164,34 @@ public class GraphTransformerResolver implements TransformerResolver
             readWriteLock.writeLock().unlock();
         }
     }
+
+    /**
+     * Discards the resolutions of the pairs that have a conversion path going through
+     * the given converter, that is, the ones from a data type reaching any of the
+     * converter's sources to a data type reachable from the converter's result.
+     * Must be called with the converter registered in the graph.
+     */
+    private void invalidate(Converter converter)
+    {
+        Set<DataType<?>> reachable = graph.getReachableDataTypes(converter.getReturnDataType());
+        if (reachable.isEmpty())
+        {
+            return;
+        }
+
+        Set<DataType<?>> reaching = new HashSet<DataType<?>>();
+        for (DataType<?> sourceDataType : converter.getSourceDataTypes())
+        {
+            reaching.addAll(graph.getReachingDataTypes(sourceDataType));
+        }
+
+        for (Iterator<DataTypePair> iterator = resolutions.asMap().keySet().iterator(); iterator.hasNext(); )
+        {
+            DataTypePair pair = iterator.next();
+            if (reaching.contains(pair.getSource()) && reachable.contains(pair.getResult()))
+            {
+                iterator.remove();
+            }
+        }
+    }
 }
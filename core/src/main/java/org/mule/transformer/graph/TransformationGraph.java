@@ -10,6 +10,7 @@ import org.mule.api.transformer.Converter;
 import org.mule.api.transformer.DataType;
 
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -106,4 +107,56 @@ public class TransformationGraph extends DirectedMultigraph<DataType<?>, Transfo
 
         registeredConverters.remove(converter);
     }
+
+    /**
+     * Returns the data types that can be reached from the given one following any
+     * number of transformations, including the data type itself.
+     *
+     * @param source data type where the transformations start
+     * @return the reachable data types, empty if the data type is not in the graph
+     */
+    public Set<DataType<?>> getReachableDataTypes(DataType<?> source)
+    {
+        return collectDataTypes(source, true);
+    }
+
+    /**
+     * Returns the data types that can be transformed to the given one using any
+     * number of transformations, including the data type itself.
+     *
+     * @param target data type where the transformations end
+     * @return the data types reaching the target, empty if the data type is not in the graph
+     */
+    public Set<DataType<?>> getReachingDataTypes(DataType<?> target)
+    {
+        return collectDataTypes(target, false);
+    }
+
+    private Set<DataType<?>> collectDataTypes(DataType<?> start, boolean outgoing)
+    {
+        Set<DataType<?>> dataTypes = new HashSet<DataType<?>>();
+        if (!containsVertex(start))
+        {
+            return dataTypes;
+        }
+
+        LinkedList<DataType<?>> pending = new LinkedList<DataType<?>>();
+        dataTypes.add(start);
+        pending.add(start);
+        while (!pending.isEmpty())
+        {
+            DataType<?> dataType = pending.removeFirst();
+            Set<TransformationEdge> edges = outgoing ? outgoingEdgesOf(dataType) : incomingEdgesOf(dataType);
+            for (TransformationEdge edge : edges)
+            {
+                DataType<?> next = outgoing ? getEdgeTarget(edge) : getEdgeSource(edge);
+                if (dataTypes.add(next))
+                {
+                    pending.add(next);
+                }
+            }
+        }
+
+        return dataTypes;
+    }
 }
@@ -10,9 +10,11 @@ import org.mule.api.transformer.Converter;
 import org.mule.api.transformer.DataType;
 import org.mule.transformer.CompositeConverter;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -65,6 +67,69 @@ public class TransformationGraphLookupStrategy
         return converters;
     }
 
+    /**
+     * Looks for the {@link Converter} able to convert from the source data type to
+     * every data type reachable from it. Returns the same converters that
+     * {@link #lookupConverters(DataType, DataType)} returns for each of those data
+     * types, but walks the graph only once.
+     *
+     * @param source data type to be converted
+     * @return the converters found for each reachable data type
+     */
+    public Map<DataType<?>, List<Converter>> lookupConverters(DataType<?> source)
+    {
+        Map<DataType<?>, List<List<TransformationEdge>>> transformationPaths = new HashMap<DataType<?>, List<List<TransformationEdge>>>();
+        if (graph.containsVertex(source))
+        {
+            Set<DataType<?>> visited = new HashSet<DataType<?>>();
+            visited.add(source);
+            findAllTransformationPaths(source, source, new LinkedList<TransformationEdge>(), visited, transformationPaths);
+        }
+
+        Map<DataType<?>, List<Converter>> converters = new HashMap<DataType<?>, List<Converter>>();
+        for (Map.Entry<DataType<?>, List<List<TransformationEdge>>> entry : transformationPaths.entrySet())
+        {
+            converters.put(entry.getKey(), createConverters(entry.getValue()));
+        }
+
+        return converters;
+    }
+
+    private void findAllTransformationPaths(DataType<?> origin, DataType<?> current, LinkedList<TransformationEdge> currentPath,
+                                            Set<DataType<?>> visited, Map<DataType<?>, List<List<TransformationEdge>>> transformationPaths)
+    {
+        for (TransformationEdge transformationEdge : graph.outgoingEdgesOf(current))
+        {
+            DataType<?> edgeTarget = graph.getEdgeTarget(transformationEdge);
+            boolean cycle = visited.contains(edgeTarget);
+
+            // A path may only go back to a visited data type when it closes a cycle over the origin
+            if (cycle && !edgeTarget.equals(origin))
+            {
+                continue;
+            }
+
+            currentPath.addLast(transformationEdge);
+
+            List<List<TransformationEdge>> pathsToTarget = transformationPaths.get(edgeTarget);
+            if (pathsToTarget == null)
+            {
+                pathsToTarget = new LinkedList<List<TransformationEdge>>();
+                transformationPaths.put(edgeTarget, pathsToTarget);
+            }
+            pathsToTarget.add(new LinkedList<TransformationEdge>(currentPath));
+
+            if (!cycle)
+            {
+                visited.add(edgeTarget);
+                findAllTransformationPaths(origin, edgeTarget, currentPath, visited, transformationPaths);
+                visited.remove(edgeTarget);
+            }
+
+            currentPath.removeLast();
+        }
+    }
+
     private List<Converter> createConverters(List<List<TransformationEdge>> transformationPaths)
     {
         List<Converter> converters = new LinkedList<Converter>();
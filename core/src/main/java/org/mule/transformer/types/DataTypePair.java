@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transformer.types;
+
+import org.mule.api.transformer.DataType;
+
+/**
+ * Source and result {@link DataType} pair used as key of the transformer resolution
+ * caches. The hash code is computed once so a lookup does not have to build an
+ * intermediate key for every transformation.
+ * <p/>
+ * {@link DataType} instances can be modified after being used, so keys stored in a
+ * cache must be created with {@link #copyOf(DataType, DataType)}.
+ */
+public final class DataTypePair
+{
+
+    private final DataType<?> source;
+    private final DataType<?> result;
+    private final int hashCode;
+
+    public DataTypePair(DataType<?> source, DataType<?> result)
+    {
+        this.source = source;
+        this.result = result;
+        this.hashCode = 31 * source.hashCode() + result.hashCode();
+    }
+
+    /**
+     * Creates a pair holding copies of the given data types, so changing them
+     * afterwards does not change the pair.
+     */
+    public static DataTypePair copyOf(DataType<?> source, DataType<?> result)
+    {
+        return new DataTypePair(source.cloneDataType(), result.cloneDataType());
+    }
+
+    public DataType<?> getSource()
+    {
+        return source;
+    }
+
+    public DataType<?> getResult()
+    {
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof DataTypePair))
+        {
+            return false;
+        }
+
+        DataTypePair that = (DataTypePair) o;
+        return hashCode == that.hashCode && source.equals(that.source) && result.equals(that.result);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DataTypePair{source=" + source + ", result=" + result + "}";
+    }
+}
@@ -0,0 +1,577 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Hash array mapped trie used as the persistent storage of {@link CopyOnWriteCaseInsensitiveMap}.
+ * <p/>
+ * {@link String} keys are hashed and compared ignoring case, any other key uses its own
+ * {@link Object#hashCode()} and {@link Object#equals(Object)}. Nodes are never modified once they
+ * may be reachable from more than one map: every update copies only the nodes on the path from the
+ * root to the modified entry. To avoid copying that path again on every subsequent update, nodes
+ * carry the edit token of the map that created them and are updated in place by that map for as
+ * long as it keeps the same token.
+ * <p/>
+ * Each node keeps its entries and its child nodes in a single array indexed by two bitmaps: the
+ * entries at the beginning of the array and the child nodes, in reverse order, at its end.
+ */
+final class CaseInsensitiveHashTrie
+{
+
+    /**
+     * Value returned by {@link Node#find(Object, int, int)} when there is no entry for the key,
+     * as entries are allowed to have null values.
+     */
+    static final Object NOT_FOUND = new Object();
+
+    static final Node EMPTY = new BitmapIndexedNode(null, 0, 0, new Object[0]);
+
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+    private static final int HASH_BITS = 32;
+    // levels of bitmap indexed nodes plus the collision node at the bottom of the trie
+    private static final int MAX_DEPTH = (HASH_BITS + BITS_PER_LEVEL - 1) / BITS_PER_LEVEL + 1;
+
+    private CaseInsensitiveHashTrie()
+    {
+    }
+
+    static int hash(Object key)
+    {
+        if (key instanceof String)
+        {
+            String string = (String) key;
+            int hash = 0;
+            for (int i = 0; i < string.length(); i++)
+            {
+                // consistent with String.equalsIgnoreCase
+                hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(string.charAt(i)));
+            }
+            return hash;
+        }
+        return key == null ? 0 : key.hashCode();
+    }
+
+    static boolean keyEquals(Object key1, Object key2)
+    {
+        if (key1 == key2)
+        {
+            return true;
+        }
+        if (key1 instanceof String && key2 instanceof String)
+        {
+            return ((String) key1).equalsIgnoreCase((String) key2);
+        }
+        return key1 != null && key1.equals(key2);
+    }
+
+    private static boolean valueEquals(Object value1, Object value2)
+    {
+        return value1 == value2;
+    }
+
+    private static int bitpos(int hash, int shift)
+    {
+        return 1 << ((hash >>> shift) & LEVEL_MASK);
+    }
+
+    /**
+     * Outcome of an update of the trie.
+     */
+    static final class Change
+    {
+
+        boolean sizeChanged;
+        Object oldValue;
+    }
+
+    abstract static class Node
+    {
+
+        final Object edit;
+
+        Node(Object edit)
+        {
+            this.edit = edit;
+        }
+
+        /**
+         * @return the value of the entry for the key or {@link #NOT_FOUND}
+         */
+        abstract Object find(Object key, int hash, int shift);
+
+        /**
+         * @return the node replacing this one, which is this same node when it could be updated in place
+         */
+        abstract Node put(Object edit, Object key, int hash, Object value, int shift, Change change);
+
+        /**
+         * @return the node replacing this one, or null if it no longer has entries
+         */
+        abstract Node remove(Object edit, Object key, int hash, int shift, Change change);
+
+        abstract int payloadArity();
+
+        abstract Object getKey(int index);
+
+        abstract Object getValue(int index);
+
+        abstract int nodeArity();
+
+        abstract Node getNode(int index);
+    }
+
+    private static final class BitmapIndexedNode extends Node
+    {
+
+        private int dataMap;
+        private int nodeMap;
+        private Object[] content;
+
+        BitmapIndexedNode(Object edit, int dataMap, int nodeMap, Object[] content)
+        {
+            super(edit);
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        private int dataIndex(int bit)
+        {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit)
+        {
+            return content.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift)
+        {
+            int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0)
+            {
+                int index = 2 * dataIndex(bit);
+                return keyEquals(content[index], key) ? content[index + 1] : NOT_FOUND;
+            }
+            if ((nodeMap & bit) != 0)
+            {
+                return ((Node) content[nodeIndex(bit)]).find(key, hash, shift + BITS_PER_LEVEL);
+            }
+            return NOT_FOUND;
+        }
+
+        @Override
+        Node put(Object edit, Object key, int hash, Object value, int shift, Change change)
+        {
+            int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0)
+            {
+                int index = 2 * dataIndex(bit);
+                Object currentKey = content[index];
+                Object currentValue = content[index + 1];
+                if (keyEquals(currentKey, key))
+                {
+                    // keeps the key as it was first stored, like CaseInsensitiveHashMap does
+                    change.oldValue = currentValue;
+                    if (valueEquals(currentValue, value))
+                    {
+                        return this;
+                    }
+                    BitmapIndexedNode node = editable(edit);
+                    node.content[index + 1] = value;
+                    return node;
+                }
+
+                Node subNode = merge(edit, currentKey, hash(currentKey), currentValue, key, hash, value, shift + BITS_PER_LEVEL);
+                change.sizeChanged = true;
+                return migrateToNode(edit, bit, index, subNode);
+            }
+            if ((nodeMap & bit) != 0)
+            {
+                int index = nodeIndex(bit);
+                Node subNode = (Node) content[index];
+                Node newSubNode = subNode.put(edit, key, hash, value, shift + BITS_PER_LEVEL, change);
+                if (newSubNode == subNode)
+                {
+                    return this;
+                }
+                BitmapIndexedNode node = editable(edit);
+                node.content[index] = newSubNode;
+                return node;
+            }
+
+            change.sizeChanged = true;
+            int index = 2 * dataIndex(bit);
+            Object[] newContent = new Object[content.length + 2];
+            System.arraycopy(content, 0, newContent, 0, index);
+            newContent[index] = key;
+            newContent[index + 1] = value;
+            System.arraycopy(content, index, newContent, index + 2, content.length - index);
+            return update(edit, dataMap | bit, nodeMap, newContent);
+        }
+
+        @Override
+        Node remove(Object edit, Object key, int hash, int shift, Change change)
+        {
+            int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0)
+            {
+                int index = 2 * dataIndex(bit);
+                if (!keyEquals(content[index], key))
+                {
+                    return this;
+                }
+                change.sizeChanged = true;
+                change.oldValue = content[index + 1];
+                if (content.length == 2)
+                {
+                    return null;
+                }
+                Object[] newContent = new Object[content.length - 2];
+                System.arraycopy(content, 0, newContent, 0, index);
+                System.arraycopy(content, index + 2, newContent, index, content.length - index - 2);
+                return update(edit, dataMap ^ bit, nodeMap, newContent);
+            }
+            if ((nodeMap & bit) != 0)
+            {
+                int index = nodeIndex(bit);
+                Node subNode = (Node) content[index];
+                Node newSubNode = subNode.remove(edit, key, hash, shift + BITS_PER_LEVEL, change);
+                if (newSubNode == subNode)
+                {
+                    return this;
+                }
+                if (newSubNode == null)
+                {
+                    if (content.length == 1)
+                    {
+                        return null;
+                    }
+                    Object[] newContent = new Object[content.length - 1];
+                    System.arraycopy(content, 0, newContent, 0, index);
+                    System.arraycopy(content, index + 1, newContent, index, content.length - index - 1);
+                    return update(edit, dataMap, nodeMap ^ bit, newContent);
+                }
+                if (newSubNode instanceof BitmapIndexedNode && newSubNode.nodeArity() == 0 && newSubNode.payloadArity() == 1)
+                {
+                    // keeps the trie compact by inlining the remaining entry of the child
+                    return migrateToData(edit, bit, index, newSubNode.getKey(0), newSubNode.getValue(0));
+                }
+                BitmapIndexedNode node = editable(edit);
+                node.content[index] = newSubNode;
+                return node;
+            }
+            return this;
+        }
+
+        private Node migrateToNode(Object edit, int bit, int dataIndex, Node subNode)
+        {
+            // removes the key and value at dataIndex and adds the node in the position for bit
+            int oldNodeIndex = content.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+            int newNodeIndex = oldNodeIndex - 1;
+            Object[] newContent = new Object[content.length - 1];
+            System.arraycopy(content, 0, newContent, 0, dataIndex);
+            System.arraycopy(content, dataIndex + 2, newContent, dataIndex, newNodeIndex - dataIndex);
+            newContent[newNodeIndex] = subNode;
+            System.arraycopy(content, oldNodeIndex + 1, newContent, newNodeIndex + 1, content.length - oldNodeIndex - 1);
+            return update(edit, dataMap ^ bit, nodeMap | bit, newContent);
+        }
+
+        private Node migrateToData(Object edit, int bit, int nodeIndex, Object key, Object value)
+        {
+            // removes the node at nodeIndex and adds the key and value in the position for bit
+            int newDataIndex = 2 * dataIndex(bit);
+            Object[] newContent = new Object[content.length + 1];
+            System.arraycopy(content, 0, newContent, 0, newDataIndex);
+            newContent[newDataIndex] = key;
+            newContent[newDataIndex + 1] = value;
+            System.arraycopy(content, newDataIndex, newContent, newDataIndex + 2, nodeIndex - newDataIndex);
+            System.arraycopy(content, nodeIndex + 1, newContent, nodeIndex + 2, content.length - nodeIndex - 1);
+            return update(edit, dataMap | bit, nodeMap ^ bit, newContent);
+        }
+
+        private BitmapIndexedNode editable(Object edit)
+        {
+            if (this.edit == edit)
+            {
+                return this;
+            }
+            return new BitmapIndexedNode(edit, dataMap, nodeMap, content.clone());
+        }
+
+        private Node update(Object edit, int dataMap, int nodeMap, Object[] content)
+        {
+            if (this.edit == edit)
+            {
+                this.dataMap = dataMap;
+                this.nodeMap = nodeMap;
+                this.content = content;
+                return this;
+            }
+            return new BitmapIndexedNode(edit, dataMap, nodeMap, content);
+        }
+
+        @Override
+        int payloadArity()
+        {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        Object getKey(int index)
+        {
+            return content[2 * index];
+        }
+
+        @Override
+        Object getValue(int index)
+        {
+            return content[2 * index + 1];
+        }
+
+        @Override
+        int nodeArity()
+        {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        Node getNode(int index)
+        {
+            return (Node) content[content.length - 1 - index];
+        }
+    }
+
+    /**
+     * Holds the entries of keys with the same hash.
+     */
+    private static final class CollisionNode extends Node
+    {
+
+        private final int hash;
+        private Object[] content;
+
+        CollisionNode(Object edit, int hash, Object[] content)
+        {
+            super(edit);
+            this.hash = hash;
+            this.content = content;
+        }
+
+        private int indexOf(Object key)
+        {
+            for (int i = 0; i < content.length; i += 2)
+            {
+                if (keyEquals(content[i], key))
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift)
+        {
+            int index = indexOf(key);
+            return index < 0 ? NOT_FOUND : content[index + 1];
+        }
+
+        @Override
+        Node put(Object edit, Object key, int hash, Object value, int shift, Change change)
+        {
+            int index = indexOf(key);
+            Object[] newContent;
+            if (index >= 0)
+            {
+                change.oldValue = content[index + 1];
+                if (valueEquals(content[index + 1], value))
+                {
+                    return this;
+                }
+                newContent = this.edit == edit ? content : content.clone();
+                newContent[index + 1] = value;
+            }
+            else
+            {
+                change.sizeChanged = true;
+                newContent = new Object[content.length + 2];
+                System.arraycopy(content, 0, newContent, 0, content.length);
+                newContent[content.length] = key;
+                newContent[content.length + 1] = value;
+            }
+            return update(edit, newContent);
+        }
+
+        @Override
+        Node remove(Object edit, Object key, int hash, int shift, Change change)
+        {
+            int index = indexOf(key);
+            if (index < 0)
+            {
+                return this;
+            }
+            change.sizeChanged = true;
+            change.oldValue = content[index + 1];
+            if (content.length == 2)
+            {
+                return null;
+            }
+            Object[] newContent = new Object[content.length - 2];
+            System.arraycopy(content, 0, newContent, 0, index);
+            System.arraycopy(content, index + 2, newContent, index, content.length - index - 2);
+            return update(edit, newContent);
+        }
+
+        private Node update(Object edit, Object[] content)
+        {
+            if (this.edit == edit)
+            {
+                this.content = content;
+                return this;
+            }
+            return new CollisionNode(edit, hash, content);
+        }
+
+        @Override
+        int payloadArity()
+        {
+            return content.length / 2;
+        }
+
+        @Override
+        Object getKey(int index)
+        {
+            return content[2 * index];
+        }
+
+        @Override
+        Object getValue(int index)
+        {
+            return content[2 * index + 1];
+        }
+
+        @Override
+        int nodeArity()
+        {
+            return 0;
+        }
+
+        @Override
+        Node getNode(int index)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private static Node merge(Object edit, Object key1, int hash1, Object value1, Object key2, int hash2, Object value2, int shift)
+    {
+        if (shift >= HASH_BITS)
+        {
+            return new CollisionNode(edit, hash1, new Object[] {key1, value1, key2, value2});
+        }
+
+        int mask1 = (hash1 >>> shift) & LEVEL_MASK;
+        int mask2 = (hash2 >>> shift) & LEVEL_MASK;
+        if (mask1 != mask2)
+        {
+            int dataMap = (1 << mask1) | (1 << mask2);
+            if (mask1 < mask2)
+            {
+                return new BitmapIndexedNode(edit, dataMap, 0, new Object[] {key1, value1, key2, value2});
+            }
+            return new BitmapIndexedNode(edit, dataMap, 0, new Object[] {key2, value2, key1, value1});
+        }
+
+        Node subNode = merge(edit, key1, hash1, value1, key2, hash2, value2, shift + BITS_PER_LEVEL);
+        return new BitmapIndexedNode(edit, 0, 1 << mask1, new Object[] {subNode});
+    }
+
+    /**
+     * Iterates the entries reachable from a root node, entries of a node first and then the ones
+     * of its child nodes.
+     */
+    abstract static class EntryIterator<T> implements Iterator<T>
+    {
+
+        private final Node[] nodes = new Node[MAX_DEPTH];
+        private final int[] nodeCursors = new int[MAX_DEPTH];
+        private int depth;
+
+        private Node dataNode;
+        private int dataCursor;
+        private int dataLength;
+
+        EntryIterator(Node root)
+        {
+            nodes[0] = root;
+            dataNode = root;
+            dataLength = root.payloadArity();
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (dataCursor < dataLength)
+            {
+                return true;
+            }
+            while (depth >= 0)
+            {
+                Node node = nodes[depth];
+                int cursor = nodeCursors[depth];
+                if (cursor < node.nodeArity())
+                {
+                    nodeCursors[depth]++;
+                    Node child = node.getNode(cursor);
+                    if (child.nodeArity() > 0)
+                    {
+                        depth++;
+                        nodes[depth] = child;
+                        nodeCursors[depth] = 0;
+                    }
+                    if (child.payloadArity() > 0)
+                    {
+                        dataNode = child;
+                        dataCursor = 0;
+                        dataLength = child.payloadArity();
+                        return true;
+                    }
+                }
+                else
+                {
+                    nodes[depth] = null;
+                    depth--;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public T next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            return next(dataNode, dataCursor++);
+        }
+
+        protected abstract T next(Node node, int index);
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -6,12 +6,19 @@
  */
 package org.mule.util;
 
+import org.mule.util.CaseInsensitiveHashTrie.Change;
+import org.mule.util.CaseInsensitiveHashTrie.EntryIterator;
+import org.mule.util.CaseInsensitiveHashTrie.Node;
+
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.AbstractSet;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -21,8 +28,12 @@ import java.util.Set;
 /**
  * Implementation of {@link Map} that provides copy on write semantics while providing the case-insensitivity
  * of {@link CaseInsensitiveHashMap}. <br>
+ * The entries are kept in a persistent hash trie shared between a map and its copies, so copying the map
+ * is a constant time operation and a write after a copy only duplicates the few trie nodes on the path to
+ * the written entry instead of the whole map. <br>
  * <b>Note:</b> In this {@link Map} implementation {@link #values()} and {@link #entrySet()} return
- * unmodifiable {@link Collection}'s.<br>
+ * unmodifiable {@link Collection}'s. Iterators of the map work on a snapshot of it, so the map may be
+ * modified while iterating.<br>
  * This implementation is not thread-safe.
  */
 public class CopyOnWriteCaseInsensitiveMap<K, V> implements Map<K, V>, Serializable
@@ -30,110 +41,146 @@ public class CopyOnWriteCaseInsensitiveMap<K, V> implements Map<K, V>, Serializa
 
     private static final long serialVersionUID = -2753436627413265538L;
 
-    private Map<K, V> core;
-    private transient Map<K, V> view;
-    private transient boolean requiresCopy;
+    /**
+     * Keeps the serialized form of the map it had when it was backed by a {@link CaseInsensitiveHashMap}.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {new ObjectStreamField("core", Map.class)};
+
+    private transient Node root;
+    private transient int size;
+    // nodes created with this token are not shared with any other map and can be updated in place
+    private transient Object edit;
     private transient Set<K> keyset = new KeySet();
 
-    @SuppressWarnings("unchecked")
     public CopyOnWriteCaseInsensitiveMap()
     {
-        updateCore(new CaseInsensitiveHashMap());
+        updateRoot(CaseInsensitiveHashTrie.EMPTY, 0);
     }
 
     public CopyOnWriteCaseInsensitiveMap(Map<K, V> that)
     {
         if (that instanceof CopyOnWriteCaseInsensitiveMap)
         {
-            updateCore(((CopyOnWriteCaseInsensitiveMap) that).core);
+            CopyOnWriteCaseInsensitiveMap<K, V> other = (CopyOnWriteCaseInsensitiveMap<K, V>) that;
+            other.share();
+            updateRoot(other.root, other.size);
         }
         else
         {
-            updateCore(that);
+            updateRoot(CaseInsensitiveHashTrie.EMPTY, 0);
+            putAll(that);
         }
-        this.requiresCopy = true;
     }
 
     @SuppressWarnings({"rawtypes", "unchecked"})
     @Override
     public CopyOnWriteCaseInsensitiveMap<K, V> clone()
     {
-        try
-        {
-            return new CopyOnWriteCaseInsensitiveMap(this);
-        }
-        finally
-        {
-            requiresCopy = true;
-        }
+        return new CopyOnWriteCaseInsensitiveMap(this);
     }
 
-    @SuppressWarnings("unchecked")
-    private void copy()
+    /**
+     * Makes the nodes reachable from the current root read only for this map, since they are about
+     * to be shared with another map or with an iterator.
+     */
+    private void share()
     {
-        if (requiresCopy)
-        {
-            updateCore(new CaseInsensitiveHashMap(core));
-            requiresCopy = false;
-        }
+        edit = new Object();
+    }
+
+    private void updateRoot(Node root, int size)
+    {
+        this.root = root;
+        this.size = size;
+        this.edit = new Object();
     }
 
     @Override
     public int size()
     {
-        return core.size();
+        return size;
     }
 
     @Override
     public boolean isEmpty()
     {
-        return core.isEmpty();
+        return size == 0;
     }
 
     @Override
     public boolean containsKey(Object key)
     {
-        return core.containsKey(key);
+        return root.find(key, CaseInsensitiveHashTrie.hash(key), 0) != CaseInsensitiveHashTrie.NOT_FOUND;
     }
 
     @Override
     public boolean containsValue(Object value)
     {
-        return core.containsValue(value);
+        for (V candidate : values())
+        {
+            if (value == null ? candidate == null : value.equals(candidate))
+            {
+                return true;
+            }
+        }
+        return false;
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     public V get(Object key)
     {
-        return core.get(key);
+        Object value = root.find(key, CaseInsensitiveHashTrie.hash(key), 0);
+        return value == CaseInsensitiveHashTrie.NOT_FOUND ? null : (V) value;
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     public V put(K key, V value)
     {
-        copy();
-        return core.put(key, value);
+        Change change = new Change();
+        root = root.put(edit, key, CaseInsensitiveHashTrie.hash(key), value, 0, change);
+        if (change.sizeChanged)
+        {
+            size++;
+        }
+        return (V) change.oldValue;
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     public V remove(Object key)
     {
-        copy();
-        return core.remove(key);
+        Change change = new Change();
+        Node newRoot = root.remove(edit, key, CaseInsensitiveHashTrie.hash(key), 0, change);
+        root = newRoot == null ? CaseInsensitiveHashTrie.EMPTY : newRoot;
+        if (change.sizeChanged)
+        {
+            size--;
+        }
+        return (V) change.oldValue;
     }
 
     @Override
     public void putAll(Map<? extends K, ? extends V> t)
     {
-        copy();
-        core.putAll(t);
+        if (isEmpty() && t instanceof CopyOnWriteCaseInsensitiveMap)
+        {
+            CopyOnWriteCaseInsensitiveMap<? extends K, ? extends V> other = (CopyOnWriteCaseInsensitiveMap<? extends K, ? extends V>) t;
+            other.share();
+            updateRoot(other.root, other.size);
+            return;
+        }
+        for (Entry<? extends K, ? extends V> entry : t.entrySet())
+        {
+            put(entry.getKey(), entry.getValue());
+        }
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public void clear()
     {
-        updateCore(new CaseInsensitiveHashMap());
+        updateRoot(CaseInsensitiveHashTrie.EMPTY, 0);
     }
 
     public Set<K> keySet()
@@ -156,7 +203,12 @@ public class CopyOnWriteCaseInsensitiveMap<K, V> implements Map<K, V>, Serializa
      */
     public Map<K, V> asHashMap()
     {
-        return new HashMap<>(view);
+        Map<K, V> map = new HashMap<>(size);
+        for (Entry<K, V> entry : entrySet())
+        {
+            map.put(entry.getKey(), entry.getValue());
+        }
+        return map;
     }
 
     private final class KeySet extends AbstractSet<K>
@@ -189,82 +241,147 @@ public class CopyOnWriteCaseInsensitiveMap<K, V> implements Map<K, V>, Serializa
 
     private final class KeyIterator implements Iterator<K>
     {
-        private int current = -1;
-        private int lastRemovalIndex = current;
-        private K[] keyArray;
+        private final Iterator<K> keys;
+        private K current;
+        private boolean removable;
 
-        @SuppressWarnings("unchecked")
         public KeyIterator()
         {
-            keyArray = (K[]) core.keySet().toArray();
+            share();
+            keys = new EntryIterator<K>(root)
+            {
+                @SuppressWarnings("unchecked")
+                @Override
+                protected K next(Node node, int index)
+                {
+                    return (K) node.getKey(index);
+                }
+            };
         }
 
         public boolean hasNext()
         {
-            return current < keyArray.length -1;
+            return keys.hasNext();
         }
 
         public K next()
         {
-            try
-            {
-                return keyArray[++current];
-            }
-            catch (ArrayIndexOutOfBoundsException e)
-            {
-                throw new NoSuchElementException();
-            }
+            current = keys.next();
+            removable = true;
+            return current;
         }
 
         public void remove()
         {
-            if (current == -1)
-            {
-                throw new IllegalStateException("Cannot remove element before first invoking next()");
-            }
-
-            if (current == lastRemovalIndex)
+            if (!removable)
             {
                 throw new IllegalStateException("Remove can only be called once per call to next()");
             }
 
-            CopyOnWriteCaseInsensitiveMap.this.remove(keyArray[current]);
-            lastRemovalIndex = current;
+            CopyOnWriteCaseInsensitiveMap.this.remove(current);
+            removable = false;
         }
     }
 
     @Override
     public Collection<V> values()
     {
-        return view.values();
+        return new AbstractCollection<V>()
+        {
+            @Override
+            public Iterator<V> iterator()
+            {
+                share();
+                return new EntryIterator<V>(root)
+                {
+                    @SuppressWarnings("unchecked")
+                    @Override
+                    protected V next(Node node, int index)
+                    {
+                        return (V) node.getValue(index);
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return size;
+            }
+        };
     }
 
     @Override
     public Set<Entry<K, V>> entrySet()
     {
-        return view.entrySet();
+        return new AbstractSet<Entry<K, V>>()
+        {
+            @Override
+            public Iterator<Entry<K, V>> iterator()
+            {
+                share();
+                return new EntryIterator<Entry<K, V>>(root)
+                {
+                    @SuppressWarnings("unchecked")
+                    @Override
+                    protected Entry<K, V> next(Node node, int index)
+                    {
+                        return new SimpleImmutableEntry<>((K) node.getKey(index), (V) node.getValue(index));
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return size;
+            }
+        };
     }
 
     @Override
     public String toString()
     {
-        return core.toString();
+        StringBuilder builder = new StringBuilder("{");
+        Iterator<Entry<K, V>> entries = entrySet().iterator();
+        while (entries.hasNext())
+        {
+            Entry<K, V> entry = entries.next();
+            builder.append(entry.getKey() == this ? "(this Map)" : entry.getKey());
+            builder.append('=');
+            builder.append(entry.getValue() == this ? "(this Map)" : entry.getValue());
+            if (entries.hasNext())
+            {
+                builder.append(", ");
+            }
+        }
+        return builder.append('}').toString();
     }
 
-    private void updateCore(Map<K, V> core)
+    /**
+     * Writes the entries as a {@link CaseInsensitiveHashMap}, so that the serialized form is the same
+     * as in previous versions.
+     */
+    @SuppressWarnings("unchecked")
+    private void writeObject(ObjectOutputStream out) throws IOException
     {
-        this.core = core;
-        this.view = Collections.unmodifiableMap(core);
+        CaseInsensitiveHashMap core = new CaseInsensitiveHashMap();
+        core.putAll(this);
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("core", core);
+        out.writeFields();
     }
 
-    /**
-     * After deserialization we can just use unserialized original map directly.
-     */
+    @SuppressWarnings("unchecked")
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
     {
-        in.defaultReadObject();
-        this.view = Collections.unmodifiableMap(core);
+        Map<K, V> core = (Map<K, V>) in.readFields().get("core", null);
+        updateRoot(CaseInsensitiveHashTrie.EMPTY, 0);
         this.keyset = new KeySet();
+        if (core != null)
+        {
+            putAll(core);
+        }
     }
 
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link NamedThreadFactory} that creates virtual threads when the JVM supports them (Java 21 or later) and
+ * platform threads otherwise. Virtual threads are looked up by reflection since Mule is compiled for older
+ * versions of Java.
+ * <p/>
+ * Thread locals, and so {@link org.mule.RequestContext} and {@link org.mule.transaction.TransactionCoordination},
+ * work the same way in virtual threads. Blocking inside a synchronized block pins the virtual thread to its
+ * carrier thread though, so code that blocks while holding a monitor does not benefit from them.
+ */
+public class VirtualThreadFactory extends NamedThreadFactory
+{
+
+    private static final Log logger = LogFactory.getLog(VirtualThreadFactory.class);
+
+    private static final ThreadFactory VIRTUAL_THREADS = lookupVirtualThreadFactory();
+
+    public VirtualThreadFactory(String name, ClassLoader contextClassLoader)
+    {
+        super(name, contextClassLoader);
+        if (!isSupported())
+        {
+            logger.info(String.format("Virtual threads are not supported by this JVM, pool %s will use platform threads", name));
+        }
+    }
+
+    /**
+     * @return true if the JVM supports virtual threads
+     */
+    public static boolean isSupported()
+    {
+        return VIRTUAL_THREADS != null;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable)
+    {
+        if (VIRTUAL_THREADS == null)
+        {
+            return super.newThread(runnable);
+        }
+        Thread t = VIRTUAL_THREADS.newThread(runnable);
+        configureThread(t);
+        return t;
+    }
+
+    private static ThreadFactory lookupVirtualThreadFactory()
+    {
+        try
+        {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            // The builder implementation class is not public, so its methods are invoked through the public interface
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        }
+        catch (NoSuchMethodException e)
+        {
+            return null;
+        }
+        catch (ReflectiveOperationException e)
+        {
+            logger.warn("Could not create virtual threads, platform threads will be used", e);
+            return null;
+        }
+    }
+}
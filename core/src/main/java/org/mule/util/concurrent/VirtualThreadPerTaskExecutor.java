@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.concurrent;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor that starts a new thread for each task instead of reusing pooled threads, meant for the cheap threads
+ * of a {@link VirtualThreadFactory}. Since every task gets a fresh thread, no thread local state, like the
+ * {@link org.mule.RequestContext} or {@link org.mule.transaction.TransactionCoordination}, is carried from one
+ * unit of work to the next.
+ * <p/>
+ * The amount of tasks running at the same time can be capped. A task submitted while the cap is reached either
+ * runs in the submitting thread or waits for a running task to complete, and it is rejected if none completes in
+ * time.
+ */
+public class VirtualThreadPerTaskExecutor extends AbstractExecutorService
+{
+
+    public static final int UNLIMITED = -1;
+
+    private final ThreadFactory threadFactory;
+    private final Semaphore permits;
+    private final boolean callerRunsWhenExhausted;
+    private final long waitTimeout;
+    private final Set<Thread> threads = new HashSet<Thread>();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile boolean shutdown;
+
+    /**
+     * @param threadFactory the factory of the thread of each task
+     * @param maxConcurrentTasks the maximum amount of tasks running at the same time, or {@link #UNLIMITED}
+     * @param callerRunsWhenExhausted if the tasks submitted while the maximum is reached run in the submitting
+     *            thread instead of waiting
+     * @param waitTimeout the milliseconds a task waits for a running task to complete when the maximum is reached,
+     *            a negative value waits forever
+     */
+    public VirtualThreadPerTaskExecutor(ThreadFactory threadFactory, int maxConcurrentTasks, boolean callerRunsWhenExhausted, long waitTimeout)
+    {
+        this.threadFactory = threadFactory;
+        this.permits = maxConcurrentTasks > 0 ? new Semaphore(maxConcurrentTasks) : null;
+        this.callerRunsWhenExhausted = callerRunsWhenExhausted;
+        this.waitTimeout = waitTimeout;
+    }
+
+    @Override
+    public void execute(Runnable command)
+    {
+        if (shutdown)
+        {
+            throw new RejectedExecutionException("Executor is already shut down");
+        }
+        if (permits != null && !permits.tryAcquire())
+        {
+            if (callerRunsWhenExhausted)
+            {
+                command.run();
+                return;
+            }
+            waitForPermit();
+        }
+
+        Thread thread = threadFactory.newThread(new Task(command));
+        synchronized (threads)
+        {
+            if (shutdown)
+            {
+                releasePermit();
+                throw new RejectedExecutionException("Executor is already shut down");
+            }
+            threads.add(thread);
+        }
+        thread.start();
+    }
+
+    private void waitForPermit()
+    {
+        try
+        {
+            if (waitTimeout < 0)
+            {
+                permits.acquire();
+            }
+            else if (!permits.tryAcquire(waitTimeout, TimeUnit.MILLISECONDS))
+            {
+                throw new RejectedExecutionException(String.format("Executor did not accept within %d ms", waitTimeout));
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a running task to complete", e);
+        }
+    }
+
+    private void releasePermit()
+    {
+        if (permits != null)
+        {
+            permits.release();
+        }
+    }
+
+    @Override
+    public void shutdown()
+    {
+        synchronized (threads)
+        {
+            shutdown = true;
+            if (threads.isEmpty())
+            {
+                terminated.countDown();
+            }
+        }
+    }
+
+    /**
+     * Interrupts the running tasks. No task is ever waiting to run, so the returned list is always empty.
+     */
+    @Override
+    public List<Runnable> shutdownNow()
+    {
+        shutdown();
+        synchronized (threads)
+        {
+            for (Thread thread : threads)
+            {
+                thread.interrupt();
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown()
+    {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated()
+    {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return terminated.await(timeout, unit);
+    }
+
+    /**
+     * @return the amount of tasks running
+     */
+    public int getActiveCount()
+    {
+        synchronized (threads)
+        {
+            return threads.size();
+        }
+    }
+
+    private class Task implements Runnable
+    {
+
+        private final Runnable command;
+
+        Task(Runnable command)
+        {
+            this.command = command;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                command.run();
+            }
+            finally
+            {
+                releasePermit();
+                synchronized (threads)
+                {
+                    threads.remove(Thread.currentThread());
+                    if (shutdown && threads.isEmpty())
+                    {
+                        terminated.countDown();
+                    }
+                }
+            }
+        }
+    }
+}
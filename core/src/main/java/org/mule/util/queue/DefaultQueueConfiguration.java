@@ -9,8 +9,15 @@ package org.mule.util.queue;
 public class DefaultQueueConfiguration implements QueueConfiguration
 {
 
+    /**
+     * System property that makes {@link SegmentedLogQueueStoreDelegate} the default storage
+     * for persistent queues instead of {@link DualRandomAccessFileQueueStoreDelegate}
+     */
+    public static final String SEGMENTED_LOG_PROPERTY_KEY = "mule.queue.segmentedlog";
+
     private final boolean persistent;
     private final int capacity;
+    private final boolean segmentedLog;
 
     public DefaultQueueConfiguration()
     {
@@ -18,9 +25,15 @@ public class DefaultQueueConfiguration implements QueueConfiguration
     }
 
     public DefaultQueueConfiguration(int capacity, boolean isPersistent)
+    {
+        this(capacity, isPersistent, Boolean.getBoolean(SEGMENTED_LOG_PROPERTY_KEY));
+    }
+
+    public DefaultQueueConfiguration(int capacity, boolean isPersistent, boolean isSegmentedLog)
     {
         this.capacity = capacity;
         this.persistent = isPersistent;
+        this.segmentedLog = isSegmentedLog;
     }
 
     @Override
@@ -35,11 +48,19 @@ public class DefaultQueueConfiguration implements QueueConfiguration
         return capacity;
     }
 
+    /**
+     * @return true if a persistent queue must be stored in a segmented append-only log
+     */
+    public boolean isSegmentedLog()
+    {
+        return segmentedLog;
+    }
+
     @Override
     public String toString()
     {
         return String.format("DefaultQueueConfiguration{" +
-               "persistent=%s, capacity=%s}", persistent, capacity);
+               "persistent=%s, capacity=%s, segmentedLog=%s}", persistent, capacity, segmentedLog);
     }
 
     @Override
@@ -53,6 +74,7 @@ public class DefaultQueueConfiguration implements QueueConfiguration
         {
             return false;
         }
-        return persistent == ((DefaultQueueConfiguration)obj).persistent && capacity == ((DefaultQueueConfiguration)obj).capacity;
+        return persistent == ((DefaultQueueConfiguration)obj).persistent && capacity == ((DefaultQueueConfiguration)obj).capacity
+               && segmentedLog == ((DefaultQueueConfiguration)obj).segmentedLog;
     }
 }
@@ -46,7 +46,11 @@ public class DefaultQueueStore implements RecoverableQueueStore
         {
             this.config = new DefaultQueueConfiguration();
         }
-        if (this.config.isPersistent())
+        if (this.config.isPersistent() && isSegmentedLog(this.config))
+        {
+            delegate = new SegmentedLogQueueStoreDelegate(this.name, muleContext.getConfiguration().getWorkingDirectory(), muleContext, this.config.getCapacity());
+        }
+        else if (this.config.isPersistent())
         {
             delegate = new DualRandomAccessFileQueueStoreDelegate(this.name, muleContext.getConfiguration().getWorkingDirectory(), muleContext, this.config.getCapacity());
         }
@@ -56,6 +60,11 @@ public class DefaultQueueStore implements RecoverableQueueStore
         }
     }
 
+    private boolean isSegmentedLog(QueueConfiguration config)
+    {
+        return config instanceof DefaultQueueConfiguration && ((DefaultQueueConfiguration) config).isSegmentedLog();
+    }
+
     @Override
     public boolean equals(Object obj)
     {
@@ -0,0 +1,1072 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.queue;
+
+import org.mule.api.MuleContext;
+import org.mule.api.MuleRuntimeException;
+import org.mule.api.serialization.ObjectSerializer;
+import org.mule.util.FileUtils;
+import org.mule.util.Preconditions;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link TransactionalQueueStoreDelegate} implementation that stores the queue data in an
+ * append-only log split into fixed-size segment files.
+ * <p/>
+ * Every operation appends a record to the current segment: an add record holding the serialized
+ * item, or a remove record referencing a previously added item. Items are never modified in place,
+ * so writers do not seek and consumers never touch the file except to append. Once the current
+ * segment reaches {@link #MAX_SEGMENT_LENGTH_PROPERTY_KEY} bytes a new one is started, and the
+ * oldest segments are deleted as soon as every item they hold has been consumed.
+ * <p/>
+ * Writes are made durable through group commit: instead of opening the files in synchronous mode,
+ * a thread that needs its record on disk either waits for an in-progress flush that covers it or
+ * flushes the segment itself, so concurrent producers and consumers share a single fsync.
+ * Durability can be turned off with {@link #SYNC_PROPERTY_KEY} for queues that favour throughput
+ * over crash safety.
+ * <p/>
+ * On start up the in-memory index is rebuilt by replaying all the segments. A partially written
+ * record left by a crash is detected through its checksum and truncated.
+ */
+public class SegmentedLogQueueStoreDelegate implements TransactionalQueueStoreDelegate
+{
+
+    public static final String MAX_SEGMENT_LENGTH_PROPERTY_KEY = "mule.queue.segment.maxlength";
+    public static final String SYNC_PROPERTY_KEY = "mule.queue.segment.sync";
+    private static final int SIXTEEN_MEGABYTES = 16 * 1024 * 1024;
+    private static final String QUEUE_STORE_DIRECTORY = "queuestore";
+    private static final String SEGMENTS_DIRECTORY_SUFFIX = "-segments";
+    private static final String SEGMENT_FILE_EXTENSION = ".seg";
+    private static final String SEGMENT_FILE_NAME_FORMAT = "%020d" + SEGMENT_FILE_EXTENSION;
+
+    private static final byte ADD_RECORD = 1;
+    private static final byte REMOVE_RECORD = 2;
+    // type, id, order, payload length and payload checksum
+    private static final int RECORD_HEADER_SIZE = 1 + 8 + 8 + 4 + 4;
+
+    protected final Log logger = LogFactory.getLog(this.getClass());
+    private final String queueName;
+    private final ObjectSerializer serializer;
+    private final int capacity;
+    private final File segmentsDirectory;
+    private final long maxSegmentLength;
+    private final boolean sync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<Entry> entries = new ArrayDeque<Entry>();
+    private final LinkedList<Segment> segments = new LinkedList<Segment>();
+    private Segment writeSegment;
+    private long nextId;
+    private long headOrder;
+    private long tailOrder;
+    private long appendedBytes;
+
+    private final Object syncMonitor = new Object();
+    private boolean syncInProgress;
+    private long syncedBytes;
+
+    public SegmentedLogQueueStoreDelegate(String queueName, String workingDirectory, MuleContext muleContext, int capacity)
+    {
+        this.queueName = queueName;
+        this.capacity = capacity;
+        this.serializer = muleContext.getObjectSerializer();
+        this.maxSegmentLength = Long.getLong(MAX_SEGMENT_LENGTH_PROPERTY_KEY, SIXTEEN_MEGABYTES);
+        this.sync = Boolean.valueOf(System.getProperty(SYNC_PROPERTY_KEY, Boolean.TRUE.toString()));
+        this.segmentsDirectory = createSegmentsDirectory(getQueuesDirectory(workingDirectory), queueName);
+        recover();
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug(String.format("Queue %s has %s messages in %s segments", queueName, getSize(), segments.size()));
+        }
+    }
+
+    private static File getQueuesDirectory(String workingDirectory)
+    {
+        return new File(workingDirectory + File.separator + QUEUE_STORE_DIRECTORY);
+    }
+
+    public static File getSegmentsDirectoryForTesting(String queueName, String workingDirectory)
+    {
+        return new File(getQueuesDirectory(workingDirectory), queueName + SEGMENTS_DIRECTORY_SUFFIX);
+    }
+
+    private static File createSegmentsDirectory(File queuesDirectory, String queueName)
+    {
+        File directory = new File(queuesDirectory, queueName + SEGMENTS_DIRECTORY_SUFFIX);
+        if (!directory.exists() && !directory.mkdirs())
+        {
+            //if file system does not support the name provided then use a hex representation of the name.
+            directory = new File(queuesDirectory, QueueFileProvider.toHex(queueName) + SEGMENTS_DIRECTORY_SUFFIX);
+            if (!directory.exists())
+            {
+                Preconditions.checkState(directory.mkdirs(), "Could not create queue segments directory " + directory.getAbsolutePath());
+            }
+        }
+        return directory;
+    }
+
+    @Override
+    public void putNow(Serializable o)
+    {
+        awaitDurable(append(serializer.serialize(o), false));
+    }
+
+    @Override
+    public boolean offer(Serializable o, int room, long timeout) throws InterruptedException
+    {
+        checkInterrupted();
+        byte[] data = o != null ? serializer.serialize(o) : null;
+        long appendedUpTo;
+        lock.lock();
+        try
+        {
+            if (capacity > 0)
+            {
+                if (capacity <= room)
+                {
+                    throw new IllegalStateException("Can not add more objects than the capacity in one time");
+                }
+                long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+                while (entries.size() >= capacity - room)
+                {
+                    if (nanos <= 0L)
+                    {
+                        return false;
+                    }
+                    nanos = notFull.awaitNanos(nanos);
+                }
+            }
+            if (data == null)
+            {
+                return true;
+            }
+            appendedUpTo = append(data, false);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        awaitDurable(appendedUpTo);
+        return true;
+    }
+
+    @Override
+    public Serializable poll(long timeout) throws InterruptedException
+    {
+        checkInterrupted();
+        Entry entry;
+        lock.lock();
+        try
+        {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (entries.isEmpty())
+            {
+                if (nanos <= 0L)
+                {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            entry = entries.removeFirst();
+            notFull.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        // the entry is still live in its segment so it cannot be reclaimed while it is read
+        Serializable value;
+        try
+        {
+            value = serializer.deserialize(entry.segment.read(entry.offset, entry.length));
+        }
+        catch (ClosedByInterruptException e)
+        {
+            restore(entry);
+            throw interruptedException();
+        }
+        catch (IOException e)
+        {
+            restore(entry);
+            throw new MuleRuntimeException(e);
+        }
+        catch (RuntimeException e)
+        {
+            // for example the class of the item changed, keep it queued instead of losing it
+            restore(entry);
+            throw e;
+        }
+        long appendedUpTo;
+        lock.lock();
+        try
+        {
+            appendedUpTo = appendRemoval(entry);
+            reclaimSegments();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        awaitDurable(appendedUpTo);
+        return value;
+    }
+
+    @Override
+    public Serializable peek() throws InterruptedException
+    {
+        checkInterrupted();
+        while (true)
+        {
+            Entry entry;
+            lock.lock();
+            try
+            {
+                entry = entries.peekFirst();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+            if (entry == null)
+            {
+                return null;
+            }
+            try
+            {
+                return serializer.deserialize(entry.segment.read(entry.offset, entry.length));
+            }
+            catch (ClosedByInterruptException e)
+            {
+                throw interruptedException();
+            }
+            catch (ClosedChannelException e)
+            {
+                // only a reclaimed segment stays closed: the entry was consumed meanwhile, look at the new head
+            }
+            catch (IOException e)
+            {
+                throw new MuleRuntimeException(e);
+            }
+        }
+    }
+
+    @Override
+    public void untake(Serializable item) throws InterruptedException
+    {
+        checkInterrupted();
+        awaitDurable(append(serializer.serialize(item), true));
+    }
+
+    @Override
+    public int getSize()
+    {
+        lock.lock();
+        try
+        {
+            return entries.size();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() throws InterruptedException
+    {
+        checkInterrupted();
+        long appendedUpTo = 0;
+        lock.lock();
+        try
+        {
+            while (!entries.isEmpty())
+            {
+                appendedUpTo = appendRemoval(entries.removeFirst());
+            }
+            reclaimSegments();
+            notFull.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        awaitDurable(appendedUpTo);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Serializable> items)
+    {
+        List<byte[]> serializedItems = new ArrayList<byte[]>(items.size());
+        for (Serializable item : items)
+        {
+            serializedItems.add(serializer.serialize(item));
+        }
+        long appendedUpTo = 0;
+        lock.lock();
+        try
+        {
+            for (byte[] serializedItem : serializedItems)
+            {
+                appendedUpTo = append(serializedItem, false);
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        awaitDurable(appendedUpTo);
+        return true;
+    }
+
+    @Override
+    public void remove(Serializable value)
+    {
+        long appendedUpTo = 0;
+        lock.lock();
+        try
+        {
+            for (Iterator<Entry> iterator = entries.iterator(); iterator.hasNext(); )
+            {
+                Entry entry = iterator.next();
+                if (value.equals(deserializeQuietly(entry)))
+                {
+                    iterator.remove();
+                    appendedUpTo = appendRemoval(entry);
+                    reclaimSegments();
+                    notFull.signalAll();
+                    break;
+                }
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        awaitDurable(appendedUpTo);
+    }
+
+    @Override
+    public boolean contains(Serializable value)
+    {
+        lock.lock();
+        try
+        {
+            for (Entry entry : entries)
+            {
+                if (value.equals(deserializeQuietly(entry)))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Use this method carefully since it reads every item in the queue from disk.
+     *
+     * @return all the elements from the queue.
+     */
+    public Collection<Serializable> allElements()
+    {
+        lock.lock();
+        try
+        {
+            List<Serializable> elements = new ArrayList<Serializable>(entries.size());
+            for (Entry entry : entries)
+            {
+                Serializable value = deserializeQuietly(entry);
+                if (value != null)
+                {
+                    elements.add(value);
+                }
+            }
+            return elements;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        lock.lock();
+        try
+        {
+            doClose();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void dispose()
+    {
+        lock.lock();
+        try
+        {
+            doClose();
+            for (Segment segment : segments)
+            {
+                segment.delete();
+            }
+            segments.clear();
+            entries.clear();
+            FileUtils.deleteQuietly(segmentsDirectory);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void doClose()
+    {
+        for (Segment segment : segments)
+        {
+            segment.close();
+        }
+    }
+
+    /**
+     * Appends an add record for the given data and indexes it.
+     *
+     * @param data serialized item
+     * @param first whether the item goes to the beginning of the queue instead of the end
+     * @return the logical log position that has to be durable for the item to survive a crash
+     */
+    private long append(byte[] data, boolean first)
+    {
+        lock.lock();
+        try
+        {
+            long order = first ? --headOrder : ++tailOrder;
+            if (entries.isEmpty())
+            {
+                headOrder = order;
+                tailOrder = order;
+            }
+            long id = nextId++;
+            Segment segment = segmentFor(RECORD_HEADER_SIZE + data.length);
+            long offset = segment.append(ADD_RECORD, id, order, data) + RECORD_HEADER_SIZE;
+            appendedBytes += RECORD_HEADER_SIZE + data.length;
+            Entry entry = new Entry(id, order, segment, offset, data.length);
+            segment.liveEntries++;
+            if (first)
+            {
+                entries.addFirst(entry);
+            }
+            else
+            {
+                entries.addLast(entry);
+            }
+            notEmpty.signalAll();
+            return appendedBytes;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private long appendRemoval(Entry entry)
+    {
+        segmentFor(RECORD_HEADER_SIZE).append(REMOVE_RECORD, entry.id, entry.order, null);
+        appendedBytes += RECORD_HEADER_SIZE;
+        entry.segment.liveEntries--;
+        return appendedBytes;
+    }
+
+    private Segment segmentFor(int recordSize)
+    {
+        if (writeSegment.length > 0 && writeSegment.length + recordSize > maxSegmentLength)
+        {
+            if (sync)
+            {
+                writeSegment.force();
+                markSynced(appendedBytes);
+            }
+            writeSegment = Segment.create(segmentsDirectory, writeSegment.number + 1);
+            segments.addLast(writeSegment);
+            if (logger.isDebugEnabled())
+            {
+                logger.debug(String.format("Queue %s rolled to segment %s", queueName, writeSegment.file.getName()));
+            }
+        }
+        return writeSegment;
+    }
+
+    /**
+     * Deletes the oldest segments while none of their items are still in the queue. Segments
+     * are always reclaimed in order, so a remove record is never deleted before the add record
+     * it refers to.
+     */
+    private void reclaimSegments()
+    {
+        while (segments.size() > 1 && segments.getFirst().liveEntries == 0)
+        {
+            Segment segment = segments.removeFirst();
+            segment.close();
+            segment.delete();
+            if (logger.isDebugEnabled())
+            {
+                logger.debug(String.format("Queue %s reclaimed segment %s", queueName, segment.file.getName()));
+            }
+        }
+    }
+
+    private byte[] read(Entry entry)
+    {
+        try
+        {
+            return entry.segment.read(entry.offset, entry.length);
+        }
+        catch (IOException e)
+        {
+            throw new MuleRuntimeException(e);
+        }
+    }
+
+    private Serializable deserializeQuietly(Entry entry)
+    {
+        try
+        {
+            return serializer.deserialize(read(entry));
+        }
+        catch (Exception e)
+        {
+            logger.warn("Failure trying to deserialize value " + e.getMessage());
+            if (logger.isDebugEnabled())
+            {
+                logger.debug(e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Waits until the log is durable up to the given position, flushing it if no other thread
+     * is already doing so. All the records appended before the flush starts are covered by it.
+     */
+    private void awaitDurable(long position)
+    {
+        if (!sync)
+        {
+            return;
+        }
+        boolean interrupted = false;
+        try
+        {
+            while (true)
+            {
+                synchronized (syncMonitor)
+                {
+                    while (syncInProgress && syncedBytes < position)
+                    {
+                        try
+                        {
+                            syncMonitor.wait();
+                        }
+                        catch (InterruptedException e)
+                        {
+                            interrupted = true;
+                        }
+                    }
+                    if (syncedBytes >= position)
+                    {
+                        return;
+                    }
+                    syncInProgress = true;
+                }
+
+                long syncedUpTo = -1;
+                try
+                {
+                    Segment segment;
+                    long appendedUpTo;
+                    lock.lock();
+                    try
+                    {
+                        segment = writeSegment;
+                        appendedUpTo = appendedBytes;
+                    }
+                    finally
+                    {
+                        lock.unlock();
+                    }
+                    segment.force();
+                    syncedUpTo = appendedUpTo;
+                }
+                finally
+                {
+                    synchronized (syncMonitor)
+                    {
+                        syncInProgress = false;
+                        syncedBytes = Math.max(syncedBytes, syncedUpTo);
+                        syncMonitor.notifyAll();
+                    }
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void markSynced(long position)
+    {
+        synchronized (syncMonitor)
+        {
+            syncedBytes = Math.max(syncedBytes, position);
+            syncMonitor.notifyAll();
+        }
+    }
+
+    private void recover()
+    {
+        File[] segmentFiles = segmentsDirectory.listFiles(new FileFilter()
+        {
+            @Override
+            public boolean accept(File file)
+            {
+                return file.isFile() && file.getName().endsWith(SEGMENT_FILE_EXTENSION);
+            }
+        });
+        Arrays.sort(segmentFiles);
+
+        Map<Long, Entry> liveEntries = new HashMap<Long, Entry>();
+        long maxId = -1;
+        for (File segmentFile : segmentFiles)
+        {
+            Segment segment = Segment.open(segmentFile);
+            segments.addLast(segment);
+            maxId = Math.max(maxId, segment.replay(liveEntries, logger));
+        }
+        if (segments.isEmpty())
+        {
+            segments.addLast(Segment.create(segmentsDirectory, 0));
+        }
+        writeSegment = segments.getLast();
+        for (Segment segment : segments)
+        {
+            appendedBytes += segment.length;
+        }
+        syncedBytes = appendedBytes;
+        nextId = maxId + 1;
+
+        List<Entry> recovered = new ArrayList<Entry>(liveEntries.values());
+        Collections.sort(recovered, new Comparator<Entry>()
+        {
+            @Override
+            public int compare(Entry entry1, Entry entry2)
+            {
+                return entry1.order < entry2.order ? -1 : (entry1.order == entry2.order ? 0 : 1);
+            }
+        });
+        entries.addAll(recovered);
+        if (!recovered.isEmpty())
+        {
+            headOrder = recovered.get(0).order;
+            tailOrder = recovered.get(recovered.size() - 1).order;
+        }
+        reclaimSegments();
+    }
+
+    /**
+     * Puts back at the head of the queue an entry that was taken but could not be read.
+     */
+    private void restore(Entry entry)
+    {
+        lock.lock();
+        try
+        {
+            entries.addFirst(entry);
+            notEmpty.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private InterruptedException interruptedException()
+    {
+        Thread.interrupted();
+        return new InterruptedException();
+    }
+
+    private void checkInterrupted() throws InterruptedException
+    {
+        if (Thread.interrupted())
+        {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Location of a live item within the segments.
+     */
+    private static class Entry
+    {
+
+        private final long id;
+        private final long order;
+        private final Segment segment;
+        private final long offset;
+        private final int length;
+
+        private Entry(long id, long order, Segment segment, long offset, int length)
+        {
+            this.id = id;
+            this.order = order;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * A single file of the log. Records are only appended and all the accesses are positional, so
+     * reads do not interfere with the write position.
+     * <p/>
+     * A thread interrupted while using the file channel closes it for every thread. Unless the segment
+     * was closed on purpose, the channel is then reopened: the interrupted thread gets the failure and
+     * any other thread caught by the close retries its operation.
+     */
+    private static class Segment
+    {
+
+        private final long number;
+        private final File file;
+        private final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        private final CRC32 checksum = new CRC32();
+        private RandomAccessFile randomAccessFile;
+        private volatile FileChannel channel;
+        private volatile boolean closed;
+        private long length;
+        private boolean dirtyTail;
+        private int liveEntries;
+
+        private Segment(long number, File file)
+        {
+            this.number = number;
+            this.file = file;
+            try
+            {
+                this.randomAccessFile = new RandomAccessFile(file, "rw");
+                this.channel = randomAccessFile.getChannel();
+                this.length = channel.size();
+            }
+            catch (IOException e)
+            {
+                throw new MuleRuntimeException(e);
+            }
+        }
+
+        static Segment create(File directory, long number)
+        {
+            return new Segment(number, new File(directory, String.format(SEGMENT_FILE_NAME_FORMAT, number)));
+        }
+
+        static Segment open(File file)
+        {
+            String name = file.getName();
+            return new Segment(Long.parseLong(name.substring(0, name.length() - SEGMENT_FILE_EXTENSION.length())), file);
+        }
+
+        /**
+         * @return the offset of the record within the segment
+         */
+        long append(byte type, long id, long order, final byte[] data)
+        {
+            final int dataLength = data == null ? 0 : data.length;
+            header.clear();
+            header.put(type).putLong(id).putLong(order).putInt(dataLength).putInt(checksum(data));
+            header.flip();
+            final long recordOffset = length;
+            try
+            {
+                execute(new ChannelOperation<Void>()
+                {
+                    @Override
+                    public Void execute(FileChannel channel) throws IOException
+                    {
+                        if (dirtyTail)
+                        {
+                            // a failed append may have left a longer record behind the one being written
+                            channel.truncate(recordOffset);
+                            dirtyTail = false;
+                        }
+                        header.rewind();
+                        writeFully(channel, header, recordOffset);
+                        if (data != null)
+                        {
+                            writeFully(channel, ByteBuffer.wrap(data), recordOffset + RECORD_HEADER_SIZE);
+                        }
+                        return null;
+                    }
+                });
+                length += RECORD_HEADER_SIZE + dataLength;
+                return recordOffset;
+            }
+            catch (IOException e)
+            {
+                dirtyTail = true;
+                throw new MuleRuntimeException(e);
+            }
+        }
+
+        byte[] read(final long offset, int dataLength) throws IOException
+        {
+            final ByteBuffer buffer = ByteBuffer.allocate(dataLength);
+            return execute(new ChannelOperation<byte[]>()
+            {
+                @Override
+                public byte[] execute(FileChannel channel) throws IOException
+                {
+                    while (buffer.hasRemaining())
+                    {
+                        if (channel.read(buffer, offset + buffer.position()) < 0)
+                        {
+                            throw new IOException("Unexpected end of queue segment " + file.getName());
+                        }
+                    }
+                    return buffer.array();
+                }
+            });
+        }
+
+        /**
+         * Reads all the records in the segment, registering add records in the index and discarding
+         * the entries referenced by remove records. A truncated or corrupted tail is cut off.
+         *
+         * @return the highest record id found
+         */
+        long replay(Map<Long, Entry> index, Log logger)
+        {
+            long maxId = -1;
+            long position = 0;
+            try
+            {
+                ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+                while (position + RECORD_HEADER_SIZE <= length)
+                {
+                    recordHeader.clear();
+                    channel.read(recordHeader, position);
+                    recordHeader.flip();
+                    byte type = recordHeader.get();
+                    long id = recordHeader.getLong();
+                    long order = recordHeader.getLong();
+                    int dataLength = recordHeader.getInt();
+                    int recordChecksum = recordHeader.getInt();
+                    if ((type != ADD_RECORD && type != REMOVE_RECORD) || dataLength < 0 || position + RECORD_HEADER_SIZE + dataLength > length)
+                    {
+                        break;
+                    }
+                    if (type == ADD_RECORD)
+                    {
+                        if (checksum(read(position + RECORD_HEADER_SIZE, dataLength)) != recordChecksum)
+                        {
+                            break;
+                        }
+                        index.put(id, new Entry(id, order, this, position + RECORD_HEADER_SIZE, dataLength));
+                        liveEntries++;
+                    }
+                    else
+                    {
+                        Entry removed = index.remove(id);
+                        if (removed != null)
+                        {
+                            removed.segment.liveEntries--;
+                        }
+                    }
+                    maxId = Math.max(maxId, id);
+                    position += RECORD_HEADER_SIZE + dataLength;
+                }
+                if (position < length)
+                {
+                    logger.warn(String.format("Discarding %s bytes of incomplete data at the end of queue segment %s", length - position, file.getAbsolutePath()));
+                    channel.truncate(position);
+                    length = position;
+                }
+                return maxId;
+            }
+            catch (IOException e)
+            {
+                throw new MuleRuntimeException(e);
+            }
+        }
+
+        void force()
+        {
+            try
+            {
+                execute(new ChannelOperation<Void>()
+                {
+                    @Override
+                    public Void execute(FileChannel channel) throws IOException
+                    {
+                        channel.force(false);
+                        return null;
+                    }
+                });
+            }
+            catch (ClosedByInterruptException e)
+            {
+                throw new MuleRuntimeException(e);
+            }
+            catch (ClosedChannelException e)
+            {
+                // only reclaimed segments and closed queues stay closed, their records do not need to be flushed
+            }
+            catch (IOException e)
+            {
+                throw new MuleRuntimeException(e);
+            }
+        }
+
+        synchronized void close()
+        {
+            closed = true;
+            closeQuietly();
+        }
+
+        void delete()
+        {
+            FileUtils.deleteQuietly(file);
+        }
+
+        /**
+         * Executes an operation on the channel, reopening it if another thread's interruption closed it.
+         * A {@link ClosedByInterruptException} is propagated to the interrupted thread once the channel is
+         * reopened for the rest of threads.
+         */
+        private <T> T execute(ChannelOperation<T> operation) throws IOException
+        {
+            while (true)
+            {
+                FileChannel current = channel;
+                if (closed)
+                {
+                    throw new ClosedChannelException();
+                }
+                try
+                {
+                    return operation.execute(current);
+                }
+                catch (ClosedChannelException e)
+                {
+                    if (!reopen(current) || e instanceof ClosedByInterruptException)
+                    {
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return false if the segment was closed on purpose so the channel must not be reopened
+         */
+        private synchronized boolean reopen(FileChannel failedChannel) throws IOException
+        {
+            if (closed)
+            {
+                return false;
+            }
+            if (channel == failedChannel)
+            {
+                closeQuietly();
+                randomAccessFile = new RandomAccessFile(file, "rw");
+                channel = randomAccessFile.getChannel();
+            }
+            return true;
+        }
+
+        private void closeQuietly()
+        {
+            try
+            {
+                randomAccessFile.close();
+            }
+            catch (IOException e)
+            {
+                // nothing to do, the file is no longer used
+            }
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+        {
+            while (buffer.hasRemaining())
+            {
+                channel.write(buffer, position + buffer.position());
+            }
+        }
+
+        private int checksum(byte[] data)
+        {
+            if (data == null)
+            {
+                return 0;
+            }
+            checksum.reset();
+            checksum.update(data, 0, data.length);
+            return (int) checksum.getValue();
+        }
+    }
+
+    private interface ChannelOperation<T>
+    {
+
+        T execute(FileChannel channel) throws IOException;
+    }
+}
@@ -0,0 +1,901 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.util.store;
+
+import static org.mule.api.store.ObjectStoreManager.UNBOUNDED;
+import org.mule.api.MuleContext;
+import org.mule.api.serialization.ObjectSerializer;
+import org.mule.api.store.ExpirableObjectStore;
+import org.mule.api.store.ListableObjectStore;
+import org.mule.api.store.ObjectAlreadyExistsException;
+import org.mule.api.store.ObjectDoesNotExistException;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.api.store.ObjectStoreNotAvaliableException;
+import org.mule.config.i18n.CoreMessages;
+import org.mule.util.FileUtils;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Persistent object store partition that keeps all its entries in a single append-only data file.
+ * <p/>
+ * Every store appends a record with the key, the serialized value and its creation time, and every
+ * removal appends a tombstone, so the number of files does not grow with the number of entries. An
+ * in-memory index maps each key to the position of its value in the data file. The index keeps
+ * entries in creation order, which makes {@link #expire(int, int)} walk only the entries that are
+ * actually expired or in excess instead of every entry in the partition.
+ * <p/>
+ * Space taken by removed entries is reclaimed by compaction: once the dead records exceed both
+ * the live ones and {@link #COMPACTION_THRESHOLD_PROPERTY_KEY} bytes, the live records are copied
+ * to a new data file that atomically replaces the previous one.
+ * <p/>
+ * Partitions written by {@link PersistentObjectStorePartition} using one file per entry are
+ * migrated into the data file the first time they are loaded.
+ * <p/>
+ * A thread interrupted while accessing the data file closes its channel for every thread, so the
+ * channel is reopened right away: the interrupted thread gets the failure and the rest retry.
+ */
+public class LogStructuredObjectStorePartition<T extends Serializable>
+    implements ListableObjectStore<T>, ExpirableObjectStore<T>
+{
+
+    public static final String COMPACTION_THRESHOLD_PROPERTY_KEY = "mule.objectstore.compaction.threshold";
+    private static final long ONE_MEGABYTE = 1024 * 1024;
+
+    static final String DATA_FILE = "data.log";
+    private static final String COMPACTION_FILE = "data.log.compact";
+    private static final String LEGACY_OBJECT_FILE_EXTENSION = ".obj";
+    private static final String PARTITION_DESCRIPTOR_FILE = "partition-descriptor";
+    private static final Charset KEY_ENCODING = Charset.forName("UTF-8");
+
+    private static final byte STORE_RECORD = 1;
+    private static final byte REMOVE_RECORD = 2;
+    private static final byte STRING_KEY = 0;
+    private static final byte SERIALIZED_KEY = 1;
+    // type, creation time, key type, key length, value length and checksum
+    private static final int RECORD_HEADER_SIZE = 1 + 8 + 1 + 4 + 4 + 4;
+
+    protected final Log logger = LogFactory.getLog(this.getClass());
+    private final MuleContext muleContext;
+    private final ObjectSerializer serializer;
+    private final long compactionThreshold;
+
+    private File partitionDirectory;
+    private String partitionName;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Serializable, IndexEntry> index = new LinkedHashMap<Serializable, IndexEntry>();
+    private final CRC32 checksum = new CRC32();
+    private volatile boolean loaded = false;
+    private final Object dataFileLock = new Object();
+    private volatile RandomAccessFile dataFile;
+    private volatile FileChannel dataChannel;
+    private long dataLength;
+    private boolean dirtyTail;
+    private long liveBytes;
+    private long deadBytes;
+
+    LogStructuredObjectStorePartition(MuleContext muleContext, String partitionName, File partitionDirectory)
+    {
+        this.muleContext = muleContext;
+        this.serializer = muleContext.getObjectSerializer();
+        this.partitionName = partitionName;
+        this.partitionDirectory = partitionDirectory;
+        this.compactionThreshold = Long.getLong(COMPACTION_THRESHOLD_PROPERTY_KEY, ONE_MEGABYTE);
+    }
+
+    LogStructuredObjectStorePartition(MuleContext muleContext, File partitionDirectory)
+        throws ObjectStoreNotAvaliableException
+    {
+        this(muleContext, readPartitionFileName(partitionDirectory), partitionDirectory);
+    }
+
+    private static String readPartitionFileName(File partitionDirectory) throws ObjectStoreNotAvaliableException
+    {
+        File partitionDescriptorFile = new File(partitionDirectory, PARTITION_DESCRIPTOR_FILE);
+        try
+        {
+            return FileUtils.readFileToString(partitionDescriptorFile);
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreNotAvaliableException(e);
+        }
+    }
+
+    @Override
+    public synchronized void open() throws ObjectStoreException
+    {
+        if (!partitionDirectory.exists() && !partitionDirectory.mkdirs())
+        {
+            throw new ObjectStoreException(CoreMessages.failedToCreate("object store directory " + partitionDirectory.getAbsolutePath()));
+        }
+        createOrRetrievePartitionDescriptorFile();
+    }
+
+    /**
+     * Forces all the data written so far to the storage device and closes the data file. The
+     * partition is loaded again if it is used afterwards.
+     */
+    @Override
+    public void close() throws ObjectStoreException
+    {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try
+        {
+            if (dataChannel != null)
+            {
+                execute(new ChannelOperation<Void>()
+                {
+                    @Override
+                    public Void execute(FileChannel channel) throws IOException
+                    {
+                        channel.force(false);
+                        return null;
+                    }
+                });
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(e);
+        }
+        finally
+        {
+            loaded = false;
+            closeDataFile();
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Serializable> allKeys() throws ObjectStoreException
+    {
+        assureLoaded();
+
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try
+        {
+            return Collections.unmodifiableList(new ArrayList<Serializable>(index.keySet()));
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Serializable key) throws ObjectStoreException
+    {
+        checkKey(key);
+        assureLoaded();
+
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try
+        {
+            return index.containsKey(key);
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public void store(Serializable key, T value) throws ObjectStoreException
+    {
+        checkKey(key);
+        assureLoaded();
+
+        byte[] serializedValue = serializeValue(value);
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try
+        {
+            if (index.containsKey(key))
+            {
+                throw new ObjectAlreadyExistsException();
+            }
+            index.put(key, append(STORE_RECORD, System.currentTimeMillis(), key, serializedValue));
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public T retrieve(Serializable key) throws ObjectStoreException
+    {
+        checkKey(key);
+        assureLoaded();
+
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try
+        {
+            return readValue(getExistingEntry(key));
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public T remove(Serializable key) throws ObjectStoreException
+    {
+        checkKey(key);
+        assureLoaded();
+
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try
+        {
+            T value = readValue(getExistingEntry(key));
+            delete(key);
+            compactIfNeeded();
+            return value;
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() throws ObjectStoreException
+    {
+        assureLoaded();
+
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try
+        {
+            execute(new ChannelOperation<Void>()
+            {
+                @Override
+                public Void execute(FileChannel channel) throws IOException
+                {
+                    channel.truncate(0);
+                    return null;
+                }
+            });
+            dirtyTail = false;
+            dataLength = 0;
+            liveBytes = 0;
+            deadBytes = 0;
+            index.clear();
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(CoreMessages.createStaticMessage("Could not clear ObjectStore"), e);
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isPersistent()
+    {
+        return true;
+    }
+
+    @Override
+    public void expire(int entryTTL, int maxEntries) throws ObjectStoreException
+    {
+        assureLoaded();
+
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try
+        {
+            int expired = 0;
+            Iterator<Map.Entry<Serializable, IndexEntry>> entries = index.entrySet().iterator();
+            int excess = maxEntries == UNBOUNDED ? 0 : index.size() - maxEntries;
+            long expirationLimit = System.currentTimeMillis() - entryTTL;
+            List<Serializable> expiredKeys = new ArrayList<Serializable>();
+            while (entries.hasNext())
+            {
+                Map.Entry<Serializable, IndexEntry> entry = entries.next();
+                if (expired < excess || (entryTTL != UNBOUNDED && entry.getValue().creationTime <= expirationLimit))
+                {
+                    expiredKeys.add(entry.getKey());
+                    expired++;
+                }
+                else
+                {
+                    break;
+                }
+            }
+            for (Serializable key : expiredKeys)
+            {
+                delete(key);
+            }
+            compactIfNeeded();
+
+            if (logger.isDebugEnabled() && expired > 0)
+            {
+                logger.debug(String.format("Expired %s entries from partition %s", expired, partitionName));
+            }
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    public String getPartitionName()
+    {
+        return partitionName;
+    }
+
+    private void checkKey(Serializable key) throws ObjectStoreException
+    {
+        if (key == null)
+        {
+            throw new ObjectStoreException(CoreMessages.objectIsNull("key"));
+        }
+    }
+
+    private IndexEntry getExistingEntry(Serializable key) throws ObjectDoesNotExistException
+    {
+        IndexEntry entry = index.get(key);
+        if (entry == null)
+        {
+            String message = "Key does not exist: " + key;
+            throw new ObjectDoesNotExistException(CoreMessages.createStaticMessage(message));
+        }
+        return entry;
+    }
+
+    private void delete(Serializable key) throws ObjectStoreException
+    {
+        IndexEntry entry = index.remove(key);
+        IndexEntry tombstone = append(REMOVE_RECORD, entry.creationTime, key, null);
+        liveBytes -= entry.recordLength + tombstone.recordLength;
+        deadBytes += entry.recordLength + tombstone.recordLength;
+    }
+
+    private IndexEntry append(final byte type, final long creationTime, final Serializable key, final byte[] value) throws ObjectStoreException
+    {
+        final long position = dataLength;
+        try
+        {
+            IndexEntry entry = execute(new ChannelOperation<IndexEntry>()
+            {
+                @Override
+                public IndexEntry execute(FileChannel channel) throws IOException
+                {
+                    if (dirtyTail)
+                    {
+                        // a failed append may have left a longer record behind the one being written
+                        channel.truncate(position);
+                        dirtyTail = false;
+                    }
+                    return writeRecord(channel, position, type, creationTime, key, value);
+                }
+            });
+            dataLength += entry.recordLength;
+            liveBytes += entry.recordLength;
+            return entry;
+        }
+        catch (IOException e)
+        {
+            dirtyTail = true;
+            throw new ObjectStoreException(e);
+        }
+    }
+
+    private IndexEntry writeRecord(FileChannel channel, long position, byte type, long creationTime, Serializable key, byte[] value) throws IOException
+    {
+        byte keyType = key instanceof String ? STRING_KEY : SERIALIZED_KEY;
+        byte[] serializedKey = keyType == STRING_KEY ? ((String) key).getBytes(KEY_ENCODING) : serializer.serialize(key);
+        int valueLength = value == null ? 0 : value.length;
+
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        header.put(type).putLong(creationTime).put(keyType).putInt(serializedKey.length).putInt(valueLength);
+        header.putInt(checksum(serializedKey, value));
+        header.flip();
+        writeFully(channel, header, position);
+        writeFully(channel, ByteBuffer.wrap(serializedKey), position + RECORD_HEADER_SIZE);
+        if (value != null)
+        {
+            writeFully(channel, ByteBuffer.wrap(value), position + RECORD_HEADER_SIZE + serializedKey.length);
+        }
+        int recordLength = RECORD_HEADER_SIZE + serializedKey.length + valueLength;
+        return new IndexEntry(position + RECORD_HEADER_SIZE + serializedKey.length, valueLength, recordLength, creationTime);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private byte[] serializeValue(T value) throws ObjectStoreException
+    {
+        try
+        {
+            return serializer.serialize(value);
+        }
+        catch (Exception e)
+        {
+            throw new ObjectStoreException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T readValue(IndexEntry entry) throws ObjectStoreException
+    {
+        try
+        {
+            T value = (T) serializer.deserialize(readData(entry.valueOffset, entry.valueLength));
+            if (value instanceof DeserializationPostInitialisable)
+            {
+                DeserializationPostInitialisable.Implementation.init(value, muleContext);
+            }
+            return value;
+        }
+        catch (Exception e)
+        {
+            throw new ObjectStoreException(e);
+        }
+    }
+
+    private byte[] readData(final long position, final int length) throws IOException
+    {
+        return execute(new ChannelOperation<byte[]>()
+        {
+            @Override
+            public byte[] execute(FileChannel channel) throws IOException
+            {
+                return read(channel, position, length);
+            }
+        });
+    }
+
+    private byte[] read(FileChannel channel, long position, int length) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+            {
+                throw new IOException("Unexpected end of object store data file in partition " + partitionName);
+            }
+        }
+        return buffer.array();
+    }
+
+    private int checksum(byte[] key, byte[] value)
+    {
+        checksum.reset();
+        checksum.update(key, 0, key.length);
+        if (value != null)
+        {
+            checksum.update(value, 0, value.length);
+        }
+        return (int) checksum.getValue();
+    }
+
+    private void compactIfNeeded() throws ObjectStoreException
+    {
+        if (deadBytes < compactionThreshold || deadBytes < liveBytes)
+        {
+            return;
+        }
+
+        compact();
+    }
+
+    /**
+     * Copies the live records, in index order, to a new data file that replaces the current one.
+     */
+    private void compact() throws ObjectStoreException
+    {
+        File compactionFile = new File(partitionDirectory, COMPACTION_FILE);
+        File currentDataFile = new File(partitionDirectory, DATA_FILE);
+        Map<Serializable, IndexEntry> compactedIndex = new LinkedHashMap<Serializable, IndexEntry>();
+        long compactedLength = 0;
+        try
+        {
+            RandomAccessFile compacted = new RandomAccessFile(compactionFile, "rw");
+            try
+            {
+                FileChannel compactedChannel = compacted.getChannel();
+                compactedChannel.truncate(0);
+                for (Map.Entry<Serializable, IndexEntry> entry : index.entrySet())
+                {
+                    IndexEntry current = entry.getValue();
+                    byte[] value = readData(current.valueOffset, current.valueLength);
+                    IndexEntry moved = writeRecord(compactedChannel, compactedLength, STORE_RECORD, current.creationTime, entry.getKey(), value);
+                    compactedLength += moved.recordLength;
+                    compactedIndex.put(entry.getKey(), moved);
+                }
+                compactedChannel.force(false);
+            }
+            finally
+            {
+                compacted.close();
+            }
+
+            closeDataFile();
+            try
+            {
+                Files.move(compactionFile.toPath(), currentDataFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            finally
+            {
+                openDataFile();
+            }
+        }
+        catch (IOException e)
+        {
+            FileUtils.deleteQuietly(compactionFile);
+            throw new ObjectStoreException(CoreMessages.createStaticMessage("Could not compact partition " + partitionName), e);
+        }
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug(String.format("Compacted partition %s from %s to %s bytes", partitionName, dataLength, compactedLength));
+        }
+        index.clear();
+        index.putAll(compactedIndex);
+        dataLength = compactedLength;
+        liveBytes = compactedLength;
+        deadBytes = 0;
+        dirtyTail = false;
+    }
+
+    private void openDataFile() throws IOException
+    {
+        synchronized (dataFileLock)
+        {
+            dataFile = new RandomAccessFile(new File(partitionDirectory, DATA_FILE), "rw");
+            dataChannel = dataFile.getChannel();
+        }
+    }
+
+    private void closeDataFile()
+    {
+        synchronized (dataFileLock)
+        {
+            if (dataFile != null)
+            {
+                try
+                {
+                    dataFile.close();
+                }
+                catch (IOException e)
+                {
+                    logger.warn("Could not close data file of partition " + partitionName, e);
+                }
+                dataFile = null;
+                dataChannel = null;
+            }
+        }
+    }
+
+    /**
+     * Executes an operation on the data file channel. If the channel was closed because a thread was
+     * interrupted while using it, it is reopened and the operation retried, unless the interrupted
+     * thread is the current one, which gets the {@link ClosedByInterruptException}.
+     */
+    private <R> R execute(ChannelOperation<R> operation) throws IOException
+    {
+        while (true)
+        {
+            FileChannel channel = dataChannel;
+            try
+            {
+                return operation.execute(channel);
+            }
+            catch (ClosedChannelException e)
+            {
+                synchronized (dataFileLock)
+                {
+                    if (dataChannel == channel)
+                    {
+                        closeDataFile();
+                        openDataFile();
+                    }
+                }
+                if (e instanceof ClosedByInterruptException)
+                {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void assureLoaded() throws ObjectStoreException
+    {
+        if (!loaded)
+        {
+            load();
+        }
+    }
+
+    private void load() throws ObjectStoreException
+    {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try
+        {
+            // re-checked after acquiring the lock so only one thread loads the data file
+            if (loaded)
+            {
+                return;
+            }
+            // a compaction file is only left behind by a compaction that did not complete
+            FileUtils.deleteQuietly(new File(partitionDirectory, COMPACTION_FILE));
+            index.clear();
+            liveBytes = 0;
+            deadBytes = 0;
+            dirtyTail = false;
+            openDataFile();
+            dataLength = dataChannel.size();
+            replay();
+            migrateLegacyEntries();
+            compactIfNeeded();
+            loaded = true;
+        }
+        catch (Exception e)
+        {
+            closeDataFile();
+            String message = String.format("Could not restore object store data from %1s", partitionDirectory.getAbsolutePath());
+            throw new ObjectStoreException(CoreMessages.createStaticMessage(message), e);
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the index reading the data file from the beginning. A record left incomplete by a
+     * crash can only be the last one, so the file is truncated at the first invalid record.
+     */
+    private void replay() throws IOException
+    {
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        while (position + RECORD_HEADER_SIZE <= dataLength)
+        {
+            header.clear();
+            dataChannel.read(header, position);
+            header.flip();
+            byte type = header.get();
+            long creationTime = header.getLong();
+            byte keyType = header.get();
+            int keyLength = header.getInt();
+            int valueLength = header.getInt();
+            int recordChecksum = header.getInt();
+            int recordLength = RECORD_HEADER_SIZE + keyLength + valueLength;
+            if ((type != STORE_RECORD && type != REMOVE_RECORD) || keyLength < 0 || valueLength < 0 || position + recordLength > dataLength)
+            {
+                break;
+            }
+            byte[] serializedKey = read(dataChannel, position + RECORD_HEADER_SIZE, keyLength);
+            byte[] value = valueLength > 0 ? read(dataChannel, position + RECORD_HEADER_SIZE + keyLength, valueLength) : null;
+            if (checksum(serializedKey, value) != recordChecksum)
+            {
+                break;
+            }
+
+            Serializable key = keyType == STRING_KEY ? new String(serializedKey, KEY_ENCODING) : (Serializable) serializer.deserialize(serializedKey);
+            IndexEntry previous;
+            if (type == STORE_RECORD)
+            {
+                previous = index.put(key, new IndexEntry(position + RECORD_HEADER_SIZE + keyLength, valueLength, recordLength, creationTime));
+                liveBytes += recordLength;
+            }
+            else
+            {
+                previous = index.remove(key);
+                deadBytes += recordLength;
+            }
+            if (previous != null)
+            {
+                liveBytes -= previous.recordLength;
+                deadBytes += previous.recordLength;
+            }
+            position += recordLength;
+        }
+
+        if (position < dataLength)
+        {
+            logger.warn(String.format("Discarding %s bytes of incomplete data at the end of %s", dataLength - position, new File(partitionDirectory, DATA_FILE).getAbsolutePath()));
+            dataChannel.truncate(position);
+            dataLength = position;
+        }
+    }
+
+    /**
+     * Moves the entries stored by {@link PersistentObjectStorePartition}, one file per entry,
+     * into the data file. Each file is deleted only after its entry is safely stored.
+     * <p/>
+     * Legacy entries keep their original creation time, which may be older than the one of entries
+     * already in the data file. In that case the index is sorted by creation time and the data file
+     * rewritten in that order, as {@link #expire(int, int)} relies on it.
+     */
+    @SuppressWarnings("unchecked")
+    private void migrateLegacyEntries() throws Exception
+    {
+        File[] files = partitionDirectory.listFiles(new FileFilter()
+        {
+            @Override
+            public boolean accept(File file)
+            {
+                return !file.isDirectory() && file.getName().endsWith(LEGACY_OBJECT_FILE_EXTENSION);
+            }
+        });
+        if (files == null || files.length == 0)
+        {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>()
+        {
+            public int compare(File f1, File f2)
+            {
+                return Long.valueOf(f1.lastModified()).compareTo(f2.lastModified());
+            }
+        });
+
+        boolean inCreationOrder = index.isEmpty();
+        for (File file : files)
+        {
+            ObjectInputStream objectInputStream = new ObjectInputStream(new FileInputStream(file));
+            PersistentObjectStorePartition.StoreValue<T> storeValue;
+            try
+            {
+                storeValue = serializer.deserialize(objectInputStream);
+            }
+            finally
+            {
+                objectInputStream.close();
+            }
+            if (!index.containsKey(storeValue.getKey()))
+            {
+                index.put(storeValue.getKey(), append(STORE_RECORD, file.lastModified(), storeValue.getKey(), serializer.serialize(storeValue.getValue())));
+            }
+        }
+        if (inCreationOrder)
+        {
+            execute(new ChannelOperation<Void>()
+            {
+                @Override
+                public Void execute(FileChannel channel) throws IOException
+                {
+                    channel.force(false);
+                    return null;
+                }
+            });
+        }
+        else
+        {
+            sortIndexByCreationTime();
+            compact();
+        }
+        for (File file : files)
+        {
+            FileUtils.deleteQuietly(file);
+        }
+        logger.info(String.format("Migrated %s entries of partition %s to a single data file", files.length, partitionName));
+    }
+
+    private void sortIndexByCreationTime()
+    {
+        List<Serializable> keys = new ArrayList<Serializable>(index.keySet());
+        Collections.sort(keys, new Comparator<Serializable>()
+        {
+            @Override
+            public int compare(Serializable key1, Serializable key2)
+            {
+                return Long.valueOf(index.get(key1).creationTime).compareTo(index.get(key2).creationTime);
+            }
+        });
+        Map<Serializable, IndexEntry> sortedIndex = new LinkedHashMap<Serializable, IndexEntry>();
+        for (Serializable key : keys)
+        {
+            sortedIndex.put(key, index.get(key));
+        }
+        index.clear();
+        index.putAll(sortedIndex);
+    }
+
+    private void createOrRetrievePartitionDescriptorFile() throws ObjectStoreException
+    {
+        try
+        {
+            File partitionDescriptorFile = new File(partitionDirectory, PARTITION_DESCRIPTOR_FILE);
+            if (partitionDescriptorFile.exists())
+            {
+                this.partitionName = readPartitionFileName(partitionDirectory);
+                return;
+            }
+            FileWriter fileWriter = new FileWriter(partitionDescriptorFile.getAbsolutePath(), false);
+            try
+            {
+                fileWriter.write(partitionName);
+                fileWriter.flush();
+            }
+            finally
+            {
+                fileWriter.close();
+            }
+        }
+        catch (Exception e)
+        {
+            throw new ObjectStoreException(e);
+        }
+    }
+
+    private interface ChannelOperation<R>
+    {
+
+        R execute(FileChannel channel) throws IOException;
+    }
+
+    /**
+     * Location of the current value of a key within the data file.
+     */
+    private static class IndexEntry
+    {
+
+        private final long valueOffset;
+        private final int valueLength;
+        private final int recordLength;
+        private final long creationTime;
+
+        private IndexEntry(long valueOffset, int valueLength, int recordLength, long creationTime)
+        {
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.recordLength = recordLength;
+            this.creationTime = creationTime;
+        }
+    }
+}
@@ -14,6 +14,13 @@ import java.io.Serializable;
 public class MuleDefaultObjectStoreFactory implements DefaultObjectStoreFactory
 {
 
+    /**
+     * System property to keep storing persistent object store entries one file per entry using
+     * {@link PartitionedPersistentObjectStore}. Note that partitions already migrated to a single
+     * data file by {@link PartitionedLogStructuredObjectStore} are not converted back.
+     */
+    public static final String FILE_PER_ENTRY_PERSISTENT_STORE_PROPERTY = "mule.objectstore.persistent.filePerEntry";
+
     @Override
     public ObjectStore<Serializable> createDefaultInMemoryObjectStore()
     {
@@ -23,7 +30,7 @@ public class MuleDefaultObjectStoreFactory implements DefaultObjectStoreFactory
     @Override
     public ObjectStore<Serializable> createDefaultPersistentObjectStore()
     {
-        return new PartitionedPersistentObjectStore<Serializable>();
+        return createPersistentObjectStore();
     }
 
     @Override
@@ -41,7 +48,7 @@ public class MuleDefaultObjectStoreFactory implements DefaultObjectStoreFactory
     @Override
     public ObjectStore<Serializable> createDefaultUserObjectStore()
     {
-        return new PartitionedPersistentObjectStore<Serializable>();
+        return createPersistentObjectStore();
     }
 
     @Override
@@ -49,4 +56,13 @@ public class MuleDefaultObjectStoreFactory implements DefaultObjectStoreFactory
     {
         return new PartitionedInMemoryObjectStore<Serializable>();
     }
+
+    private ObjectStore<Serializable> createPersistentObjectStore()
+    {
+        if (Boolean.getBoolean(FILE_PER_ENTRY_PERSISTENT_STORE_PROPERTY))
+        {
+            return new PartitionedPersistentObjectStore<Serializable>();
+        }
+        return new PartitionedLogStructuredObjectStore<Serializable>();
+    }
 }
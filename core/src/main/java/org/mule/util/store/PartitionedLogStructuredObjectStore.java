@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.store;
+
+import org.mule.api.MuleContext;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.api.store.PartitionableExpirableObjectStore;
+
+import java.io.File;
+import java.io.Serializable;
+
+/**
+ * Persistent {@link PartitionableExpirableObjectStore} that stores each partition in a single
+ * data file through {@link LogStructuredObjectStorePartition}. It uses the same directory layout as
+ * {@link PartitionedPersistentObjectStore}, so partitions written by the latter are picked up and
+ * migrated when this store is opened.
+ */
+public class PartitionedLogStructuredObjectStore<T extends Serializable> extends
+        AbstractPartitionedPersistentObjectStore<T, LogStructuredObjectStorePartition<T>>
+{
+
+    public PartitionedLogStructuredObjectStore()
+    {
+        super();
+    }
+
+    public PartitionedLogStructuredObjectStore(MuleContext context)
+    {
+        super(context);
+    }
+
+    @Override
+    protected LogStructuredObjectStorePartition<T> createPartition(String partitionName, File partitionDirectory)
+    {
+        return new LogStructuredObjectStorePartition<T>(muleContext, partitionName, partitionDirectory);
+    }
+
+    @Override
+    protected LogStructuredObjectStorePartition<T> restorePartition(File partitionDirectory) throws ObjectStoreException
+    {
+        return new LogStructuredObjectStorePartition<T>(muleContext, partitionDirectory);
+    }
+
+    @Override
+    protected String getPartitionName(LogStructuredObjectStorePartition<T> partition)
+    {
+        return partition.getPartitionName();
+    }
+}
@@ -94,6 +94,15 @@ public class PersistentObjectStorePartition<T extends Serializable>
     public synchronized void open() throws ObjectStoreException
     {
         createDirectory(partitionDirectory);
+        // Entries migrated to a single data file are no longer in their own files, opening the partition
+        // would silently lose them
+        if (new File(partitionDirectory, LogStructuredObjectStorePartition.DATA_FILE).exists())
+        {
+            String message = String.format("Object store partition %s was migrated to a single data file and cannot be opened with %s set. " +
+                                           "Unset the property, or delete the partition directory to start empty", partitionDirectory.getAbsolutePath(),
+                                           MuleDefaultObjectStoreFactory.FILE_PER_ENTRY_PERSISTENT_STORE_PROPERTY);
+            throw new ObjectStoreException(CoreMessages.createStaticMessage(message));
+        }
         createOrRetrievePartitionDescriptorFile();
     }
 
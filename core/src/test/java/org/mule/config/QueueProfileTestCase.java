@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.config;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+import org.mule.api.MuleContext;
+import org.mule.api.store.QueueStore;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.util.queue.DefaultQueueConfiguration;
+
+import java.io.Serializable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+@SmallTest
+public class QueueProfileTestCase extends AbstractMuleTestCase
+{
+
+    @Mock
+    private MuleContext muleContext;
+
+    @Mock
+    private QueueStore<Serializable> queueStore;
+
+    @Test
+    public void selectsSegmentedLogPerQueue()
+    {
+        when(queueStore.isPersistent()).thenReturn(true);
+        QueueProfile queueProfile = new QueueProfile(10, queueStore);
+        queueProfile.setSegmentedLog(true);
+
+        DefaultQueueConfiguration queueConfiguration = (DefaultQueueConfiguration) queueProfile.toQueueConfiguration(muleContext);
+
+        assertThat(queueConfiguration.isSegmentedLog(), is(true));
+        assertThat(queueConfiguration.isPersistent(), is(true));
+        assertThat(queueConfiguration.getCapacity(), is(10));
+    }
+
+    @Test
+    public void copiesSegmentedLog()
+    {
+        QueueProfile queueProfile = new QueueProfile(10, queueStore);
+        queueProfile.setSegmentedLog(true);
+
+        assertThat(new QueueProfile(queueProfile).isSegmentedLog(), is(true));
+    }
+}
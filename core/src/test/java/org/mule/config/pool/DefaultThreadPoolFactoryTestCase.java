@@ -8,12 +8,26 @@ package org.mule.config.pool;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNot.not;
 import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
 
+import org.mule.RequestContext;
+import org.mule.api.MuleEvent;
 import org.mule.api.config.ThreadingProfile;
+import org.mule.api.transaction.Transaction;
+import org.mule.config.ChainedThreadingProfile;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.transaction.TransactionCoordination;
+import org.mule.util.concurrent.VirtualThreadFactory;
+import org.mule.util.concurrent.VirtualThreadPerTaskExecutor;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ScheduledExecutorService;
@@ -71,4 +85,108 @@ public class DefaultThreadPoolFactoryTestCase extends AbstractMuleContextTestCas
         ScheduledThreadPoolExecutor scheduledPool = (ScheduledThreadPoolExecutor) executorService;
         assertThat(scheduledPool.getRejectedExecutionHandler(), is((RejectedExecutionHandler) expectedRejectedExecutionHandler));
     }
+
+    @Test
+    public void virtualThreadPoolKeepsThreadLocalContext() throws Exception
+    {
+        ExecutorService pool = createVirtualThreadPool();
+        try
+        {
+            final MuleEvent event = getTestEvent(TEST_MESSAGE);
+            final Transaction transaction = mock(Transaction.class);
+            boolean contextKept = pool.submit(new Callable<Boolean>()
+            {
+                @Override
+                public Boolean call() throws Exception
+                {
+                    RequestContext.setEvent(event);
+                    TransactionCoordination.getInstance().bindTransaction(transaction);
+                    try
+                    {
+                        assertThat(RequestContext.getEvent().getId(), is(event.getId()));
+                        assertThat(TransactionCoordination.getInstance().getTransaction(), sameInstance(transaction));
+                        return true;
+                    }
+                    finally
+                    {
+                        TransactionCoordination.getInstance().unbindTransaction(transaction);
+                        RequestContext.clear();
+                    }
+                }
+            }).get(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+            assertThat(contextKept, is(true));
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void virtualThreadPoolRunsEachUnitOfWorkInNewThread() throws Exception
+    {
+        assumeTrue(VirtualThreadFactory.isSupported());
+        ExecutorService pool = createVirtualThreadPool();
+        assertThat(pool, instanceOf(VirtualThreadPerTaskExecutor.class));
+        try
+        {
+            final MuleEvent event = getTestEvent(TEST_MESSAGE);
+            final Transaction transaction = mock(Transaction.class);
+            final Thread[] threads = new Thread[2];
+            pool.submit(new Callable<Void>()
+            {
+                @Override
+                public Void call() throws Exception
+                {
+                    threads[0] = Thread.currentThread();
+                    // left bound on purpose, the next unit of work must not see it
+                    RequestContext.setEvent(event);
+                    TransactionCoordination.getInstance().bindTransaction(transaction);
+                    return null;
+                }
+            }).get(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+
+            boolean contextIsolated = pool.submit(new Callable<Boolean>()
+            {
+                @Override
+                public Boolean call() throws Exception
+                {
+                    threads[1] = Thread.currentThread();
+                    assertThat(RequestContext.getEvent(), is(nullValue()));
+                    assertThat(TransactionCoordination.getInstance().getTransaction(), is(nullValue()));
+                    return true;
+                }
+            }).get(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+
+            assertThat(contextIsolated, is(true));
+            assertThat(threads[1], not(sameInstance(threads[0])));
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void virtualThreadPoolFallsBackToPlatformThreads() throws Exception
+    {
+        assumeFalse(VirtualThreadFactory.isSupported());
+        ExecutorService pool = createVirtualThreadPool();
+        try
+        {
+            assertThat(pool, instanceOf(ThreadPoolExecutor.class));
+            assertThat(((ThreadPoolExecutor) pool).getThreadFactory(), instanceOf(VirtualThreadFactory.class));
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    private ExecutorService createVirtualThreadPool()
+    {
+        ThreadingProfile threadingProfile = new ChainedThreadingProfile(muleContext.getDefaultThreadingProfile());
+        threadingProfile.setVirtualThreads(true);
+        return threadingProfile.createPool("sapo pepe");
+    }
 }
@@ -6,8 +6,10 @@
  */
 package org.mule.el.mvel;
 
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
@@ -17,10 +19,18 @@ import org.mule.api.lifecycle.InitialisationException;
 import org.mule.el.context.AbstractELTestCase;
 import org.mule.mvel2.CompileException;
 import org.mule.mvel2.ParserConfiguration;
+import org.mule.mvel2.compiler.Accessor;
+import org.mule.mvel2.compiler.ExecutableAccessor;
+import org.mule.mvel2.optimizers.OptimizerFactory;
+import org.mule.mvel2.optimizers.dynamic.DynamicAccessor;
+import org.mule.mvel2.optimizers.dynamic.DynamicGetAccessor;
+import org.mule.mvel2.optimizers.dynamic.DynamicOptimizer;
 import org.mule.tck.MuleTestUtils;
 import org.mule.tck.size.SmallTest;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -179,6 +189,41 @@ public class MVELExpressionExecutorTestCase extends AbstractELTestCase
         });
     }
 
+    @Test
+    public void bytecodeAccessorsFallBackToReflectionWhenTypesChange() throws Exception
+    {
+        MuleTestUtils.testWithSystemProperty(MVELExpressionExecutor.MEL_BYTECODE_ACCESSORS, "true", new MuleTestUtils.TestCallback()
+        {
+            @Override
+            public void run() throws Exception
+            {
+                setupMVEL();
+                assertThat(OptimizerFactory.getDefaultAccessorCompiler(), instanceOf(DynamicOptimizer.class));
+
+                String expression = "value.size()";
+                Serializable compiledExpression = mvel.getCompiledExpression(expression);
+                MVELExpressionLanguageContext variables = new MVELExpressionLanguageContext(new ParserConfiguration(), muleContext);
+                variables.addVariable("value", Arrays.asList("a", "b"));
+                for (int i = 0; i < DynamicOptimizer.tenuringThreshold * 2; i++)
+                {
+                    assertEquals(2, mvel.execute(expression, compiledExpression, variables));
+                }
+                DynamicGetAccessor optimized = (DynamicGetAccessor) getAccessor(compiledExpression);
+                assertThat(optimized.getAccessor(), not(sameInstance(optimized.getSafeAccessor())));
+
+                variables.addVariable("value", Collections.singletonMap("a", "b"));
+                assertEquals(1, mvel.execute(expression, compiledExpression, variables));
+                assertThat(getAccessor(compiledExpression), not(instanceOf(DynamicAccessor.class)));
+            }
+        });
+        setupMVEL();
+    }
+
+    private Accessor getAccessor(Serializable compiledExpression)
+    {
+        return ((ExecutableAccessor) compiledExpression).getNode().getAccessor();
+    }
+
     static class MyClassClassLoader extends ClassLoader
     {
         @Override
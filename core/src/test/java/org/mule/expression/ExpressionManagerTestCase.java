@@ -17,10 +17,19 @@ import org.mule.DefaultMuleMessage;
 import org.mule.RequestContext;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleMessage;
+import org.mule.api.expression.ExpressionRuntimeException;
+import org.mule.api.expression.InvalidExpressionException;
+import org.mule.el.mvel.MVELExpressionLanguage;
+import org.mule.expression.CompiledExpressionFactory;
+import org.mule.mvel2.integration.VariableResolverFactory;
+import org.mule.mvel2.integration.impl.MapVariableResolverFactory;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
 import org.mule.transformer.simple.StringAppendTransformer;
 
 import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.junit.Test;
 
@@ -179,4 +188,97 @@ public class ExpressionManagerTestCase extends AbstractMuleContextTestCase
             false, false));
     }
 
+    @Test
+    public void compiledELExpression() throws Exception
+    {
+        CompiledExpression expression = compile("#[payload + flowVars.suffix]");
+        MuleEvent event = getTestEvent("test");
+        event.setFlowVariable("suffix", "-1");
+
+        assertEquals("test-1", expression.evaluate(event));
+        assertEquals("test-1", expression.evaluate(event.getMessage()));
+        assertEquals("payload + flowVars.suffix", expression.getExpression());
+    }
+
+    @Test
+    public void compiledBooleanExpression() throws Exception
+    {
+        MuleMessage msg = new DefaultMuleMessage("test", muleContext);
+        msg.setOutboundProperty("user", "vasya");
+
+        assertTrue(compile("#[2>1]").evaluateBoolean(msg, false, false));
+        assertTrue(compile("header:user").evaluateBoolean(msg, false, true));
+        assertFalse(compile("header:user").evaluateBoolean(msg, false, false));
+        assertTrue(compile("header:ur").evaluateBoolean(msg, true, false));
+        assertTrue(compile("string:true").evaluateBoolean(getTestEvent("test"), false, false));
+    }
+
+    @Test
+    public void compiledExpressionDoesNotLeakLocalVariables() throws Exception
+    {
+        CompiledExpression declaring = compile("#[local = payload; local]");
+        CompiledExpression reading = compile("#[local]");
+
+        assertEquals("first", declaring.evaluate(getTestEvent("first")));
+        try
+        {
+            reading.evaluate(getTestEvent("second"));
+            fail("Variable declared by a previous evaluation should not be resolvable");
+        }
+        catch (ExpressionRuntimeException e)
+        {
+            // Expected
+        }
+        assertEquals("third", declaring.evaluate(getTestEvent("third")));
+    }
+
+    @Test
+    public void nestedCompiledExpressionEvaluation() throws Exception
+    {
+        final CompiledExpression inner = compile("#[payload]");
+        final MuleEvent innerEvent = getTestEvent("inner");
+        MuleEvent outerEvent = getTestEvent("outer");
+        outerEvent.setFlowVariable("callback", new Callable<Object>()
+        {
+            @Override
+            public Object call() throws Exception
+            {
+                return inner.evaluate(innerEvent);
+            }
+        });
+
+        CompiledExpression outer = compile("#[flowVars.callback.call() + payload]");
+        assertEquals("innerouter", outer.evaluate(outerEvent));
+    }
+
+    @Test
+    public void compiledExpressionUsesVariableResolverFactoryOfEachEvent() throws Exception
+    {
+        MVELExpressionLanguage expressionLanguage = new MVELExpressionLanguage(muleContext)
+        {
+            @Override
+            protected VariableResolverFactory createVariableVariableResolverFactory(MuleEvent event)
+            {
+                Map<String, Object> variables = new HashMap<String, Object>();
+                variables.put("original", event == null ? null : event.getMessage().getPayload());
+                return new MapVariableResolverFactory(variables);
+            }
+        };
+        expressionLanguage.initialise();
+        CompiledExpression expression = expressionLanguage.compile("#[original]");
+
+        assertEquals("first", expression.evaluate(getTestEvent("first")));
+        assertEquals("second", expression.evaluate(getTestEvent("second")));
+    }
+
+    @Test(expected = InvalidExpressionException.class)
+    public void compileInvalidELExpression()
+    {
+        compile("#[2*'2]");
+    }
+
+    private CompiledExpression compile(String expression)
+    {
+        return ((CompiledExpressionFactory) muleContext.getExpressionManager()).compile(expression);
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.management.stats;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+
+import org.mule.api.MuleContext;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+@SmallTest
+public class StatisticsMBeanRegistrarTestCase extends AbstractMuleTestCase
+{
+
+    private static final String TYPE = "TestStatistics";
+    private static final String NAME = "config";
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private MuleContext muleContext;
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    private ObjectName first;
+    private ObjectName second;
+
+    @Before
+    public void before()
+    {
+        when(muleContext.getConfiguration().getId()).thenReturn("app");
+    }
+
+    @After
+    public void after()
+    {
+        StatisticsMBeanRegistrar.unregister(first);
+        StatisticsMBeanRegistrar.unregister(second);
+    }
+
+    @Test
+    public void registersUnderApplicationDomain() throws Exception
+    {
+        first = StatisticsMBeanRegistrar.register(muleContext, TYPE, NAME, new TestStatistics());
+        assertThat(first, is(new ObjectName("Mule.app:type=TestStatistics,name=\"config\"")));
+        assertThat((Integer) mBeanServer.getAttribute(first, "Value"), is(1));
+    }
+
+    @Test
+    public void takenNamesGetSuffix() throws Exception
+    {
+        first = StatisticsMBeanRegistrar.register(muleContext, TYPE, NAME, new TestStatistics());
+        second = StatisticsMBeanRegistrar.register(muleContext, TYPE, NAME, new TestStatistics());
+        assertThat(second, is(new ObjectName("Mule.app:type=TestStatistics,name=\"config-2\"")));
+    }
+
+    @Test
+    public void unregistersStatistics() throws Exception
+    {
+        first = StatisticsMBeanRegistrar.register(muleContext, TYPE, NAME, new TestStatistics());
+        StatisticsMBeanRegistrar.unregister(first);
+        assertThat(mBeanServer.isRegistered(first), is(false));
+    }
+
+    @Test
+    public void invalidStatisticsAreNotRegistered() throws Exception
+    {
+        assertThat(StatisticsMBeanRegistrar.register(muleContext, TYPE, NAME, new Object()), is(nullValue()));
+    }
+
+    public interface TestStatisticsMBean
+    {
+
+        int getValue();
+    }
+
+    public static class TestStatistics implements TestStatisticsMBean
+    {
+
+        @Override
+        public int getValue()
+        {
+            return 1;
+        }
+    }
+}
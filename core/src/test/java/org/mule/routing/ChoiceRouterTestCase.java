@@ -6,10 +6,14 @@
  */
 package org.mule.routing;
 
+import org.mule.api.MuleContext;
 import org.mule.api.MuleException;
+import org.mule.api.expression.ExpressionManager;
 import org.mule.api.routing.RoutePathNotFoundException;
+import org.mule.expression.CompiledExpressionFactory;
 import org.mule.management.stats.RouterStatistics;
 import org.mule.routing.filters.EqualsFilter;
+import org.mule.routing.filters.ExpressionFilter;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
 import org.mule.tck.testmodels.mule.TestMessageProcessor;
 
@@ -18,6 +22,10 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 public class ChoiceRouterTestCase extends AbstractMuleContextTestCase
 {
@@ -122,6 +130,20 @@ public class ChoiceRouterTestCase extends AbstractMuleContextTestCase
         assertEquals("zap:bar", choiceRouter.process(getTestEvent("zap")).getMessageAsString());
     }
 
+    @Test
+    public void compilesRouteExpressionsOnInitialise() throws Exception
+    {
+        ExpressionManager expressionManager = mock(ExpressionManager.class, withSettings().extraInterfaces(CompiledExpressionFactory.class));
+        MuleContext context = mock(MuleContext.class);
+        when(context.getExpressionManager()).thenReturn(expressionManager);
+        choiceRouter.addRoute(new TestMessageProcessor("bar"), new ExpressionFilter("payload == 'zap'"));
+        choiceRouter.setMuleContext(context);
+
+        choiceRouter.initialise();
+
+        verify((CompiledExpressionFactory) expressionManager).compile("payload == 'zap'");
+    }
+
     @Test
     public void testRemovingUpdatingMissingRoutes()
     {
@@ -6,6 +6,8 @@
  */
 package org.mule.routing.correlation;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.doReturn;
@@ -32,14 +34,19 @@ import org.mule.tck.probe.PollingProber;
 import org.mule.tck.probe.Probe;
 import org.mule.tck.probe.Prober;
 import org.mule.tck.size.SmallTest;
+import org.mule.util.concurrent.Latch;
 import org.mule.util.store.SimpleMemoryObjectStore;
 
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +58,7 @@ public class EventCorrelatorTestCase extends AbstractMuleTestCase
     public static final String OBJECT_STOR_NAME_PREFIX = "prefix";
     public static final String TEST_GROUP_ID = "groupId";
     public static final boolean USE_PERSISTENT_STORE = false;
+    public static final long PROCESSING_TIMEOUT = 5000;
 
     private static final Logger logger = LoggerFactory.getLogger(EventCorrelatorTestCase.class);
 
@@ -192,6 +200,82 @@ public class EventCorrelatorTestCase extends AbstractMuleTestCase
         Mockito.verify(mockEventGroup, Mockito.times(1)).getMessageCollectionEvent();
     }
 
+    @Test
+    public void processesEventsForDifferentGroupsConcurrently() throws Exception
+    {
+        final EventCorrelator eventCorrelator = createEventCorrelator();
+        final MuleEvent blockedEvent = mock(MuleEvent.class, RETURNS_DEEP_STUBS);
+        final MuleEvent otherEvent = mock(MuleEvent.class, RETURNS_DEEP_STUBS);
+        final EventGroup blockedGroup = mock(EventGroup.class, RETURNS_DEEP_STUBS);
+        final EventGroup otherGroup = mock(EventGroup.class, RETURNS_DEEP_STUBS);
+        final Latch blockedGroupEntered = new Latch();
+        final Latch releaseBlockedGroup = new Latch();
+        final Latch otherGroupProcessed = new Latch();
+
+        when(mockMessagingInfoMapping.getCorrelationId(blockedEvent.getMessage())).thenReturn("blocked");
+        when(mockMessagingInfoMapping.getCorrelationId(otherEvent.getMessage())).thenReturn("other");
+        when(mockEventCorrelatorCallback.createEventGroup(blockedEvent, "blocked")).thenReturn(blockedGroup);
+        when(blockedGroup.getGroupId()).thenReturn("blocked");
+        when(mockEventCorrelatorCallback.createEventGroup(otherEvent, "other")).thenReturn(otherGroup);
+        when(otherGroup.getGroupId()).thenReturn("other");
+        when(mockEventCorrelatorCallback.shouldAggregateEvents(blockedGroup)).thenAnswer(new Answer<Boolean>()
+        {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable
+            {
+                blockedGroupEntered.countDown();
+                releaseBlockedGroup.await();
+                return false;
+            }
+        });
+
+        Thread blockedThread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    eventCorrelator.process(blockedEvent);
+                }
+                catch (Exception e)
+                {
+                    logger.debug("Blocked group processing failed", e);
+                }
+            }
+        };
+        Thread otherThread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    eventCorrelator.process(otherEvent);
+                    otherGroupProcessed.countDown();
+                }
+                catch (Exception e)
+                {
+                    logger.debug("Other group processing failed", e);
+                }
+            }
+        };
+
+        blockedThread.start();
+        try
+        {
+            assertThat(blockedGroupEntered.await(PROCESSING_TIMEOUT, TimeUnit.MILLISECONDS), is(true));
+            otherThread.start();
+            assertThat(otherGroupProcessed.await(PROCESSING_TIMEOUT, TimeUnit.MILLISECONDS), is(true));
+        }
+        finally
+        {
+            releaseBlockedGroup.countDown();
+            blockedThread.join();
+            otherThread.join();
+        }
+    }
+
     private EventCorrelator createEventCorrelator() throws Exception
     {
         when(mockMuleContext.getRegistry().get(MuleProperties.OBJECT_STORE_MANAGER)).thenReturn(mockObjectStoreManager);
@@ -48,6 +48,17 @@ public class ExpressionFilterTestCase extends AbstractMuleContextTestCase
         assertTrue(filter.accept(message));
     }
 
+    @Test
+    public void changingExpressionAfterEvaluationIsHonoured() throws Exception
+    {
+        ExpressionFilter filter = new ExpressionFilter("payload == 'blah'");
+        filter.setMuleContext(muleContext);
+        MuleMessage message = new DefaultMuleMessage("blah", muleContext);
+        assertTrue(filter.accept(message));
+        filter.setExpression("payload == 'other'");
+        assertFalse(filter.accept(message));
+    }
+
     @Test
     public void testVariableFilter() throws Exception
     {
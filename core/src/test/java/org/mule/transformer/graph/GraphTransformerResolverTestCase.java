@@ -25,6 +25,7 @@ import org.mule.tck.size.SmallTest;
 import org.mule.transformer.CompositeConverter;
 import org.mule.transformer.builder.MockConverterBuilder;
 import org.mule.transformer.builder.MockTransformerBuilder;
+import org.mule.transformer.types.DataTypeFactory;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -68,6 +69,10 @@ public class GraphTransformerResolverTestCase extends AbstractMuleTestCase
         doReturn(INPUT_STREAM_CLASS.class).when(INPUT_STREAM_DATA_TYPE).getType();
         doReturn(true).when(STRING_DATA_TYPE).isCompatibleWith(STRING_DATA_TYPE);
         doReturn(STRING_CLASS.class).when(STRING_DATA_TYPE).getType();
+        doReturn(XML_DATA_TYPE).when(XML_DATA_TYPE).cloneDataType();
+        doReturn(JSON_DATA_TYPE).when(JSON_DATA_TYPE).cloneDataType();
+        doReturn(INPUT_STREAM_DATA_TYPE).when(INPUT_STREAM_DATA_TYPE).cloneDataType();
+        doReturn(STRING_DATA_TYPE).when(STRING_DATA_TYPE).cloneDataType();
     }
 
     private GraphTransformerResolver graphResolver = new GraphTransformerResolver();
@@ -87,6 +92,22 @@ public class GraphTransformerResolverTestCase extends AbstractMuleTestCase
         assertSame(transformer1, transformer2);
     }
 
+    @Test
+    public void keepsResolutionWhenResolvedDataTypeChanges() throws ResolverException
+    {
+        DataType<String> source = DataTypeFactory.create(String.class, "text/plain");
+        DataType<byte[]> intermediate = DataTypeFactory.create(byte[].class);
+        DataType<Object> result = DataTypeFactory.create(Object.class, "application/json");
+        graphResolver.transformerChange(new MockConverterBuilder().from(source).to(intermediate).build(), TransformerResolver.RegistryAction.ADDED);
+        graphResolver.transformerChange(new MockConverterBuilder().from(intermediate).to(result).build(), TransformerResolver.RegistryAction.ADDED);
+
+        Transformer transformer = graphResolver.resolve(source, result);
+        assertTrue(transformer instanceof CompositeConverter);
+        source.setMimeType("application/xml");
+
+        assertSame(transformer, graphResolver.resolve(DataTypeFactory.create(String.class, "text/plain"), result));
+    }
+
     @Test
     public void clearsCacheWhenAddsConverter() throws ResolverException
     {
@@ -99,11 +120,84 @@ public class GraphTransformerResolverTestCase extends AbstractMuleTestCase
         Transformer transformer1 = graphResolver.resolve(INPUT_STREAM_DATA_TYPE, JSON_DATA_TYPE);
         assertNotNull(transformer1);
 
+        Converter inputStreamToJson = new MockConverterBuilder().named("inputStreamToJson").from(INPUT_STREAM_DATA_TYPE).to(JSON_DATA_TYPE).build();
+        graphResolver.transformerChange(inputStreamToJson, TransformerResolver.RegistryAction.ADDED);
+
+        Transformer transformer2 = graphResolver.resolve(INPUT_STREAM_DATA_TYPE, JSON_DATA_TYPE);
+        assertNotSame(transformer1, transformer2);
+        assertEquals(inputStreamToJson, transformer2);
+    }
+
+    @Test
+    public void keepsCacheWhenAddsConverterOutsideTransformationPath() throws ResolverException
+    {
+        Converter xmlToJson = new MockConverterBuilder().named("xmlToJson").from(XML_DATA_TYPE).to(JSON_DATA_TYPE).build();
+        Converter inputStreamToXml = new MockConverterBuilder().named("inputStreamToXml").from(INPUT_STREAM_DATA_TYPE).to(XML_DATA_TYPE).build();
+
+        graphResolver.transformerChange(inputStreamToXml, TransformerResolver.RegistryAction.ADDED);
+        graphResolver.transformerChange(xmlToJson, TransformerResolver.RegistryAction.ADDED);
+
+        Transformer transformer1 = graphResolver.resolve(INPUT_STREAM_DATA_TYPE, JSON_DATA_TYPE);
+        assertNotNull(transformer1);
+
         Converter xmlToString = new MockConverterBuilder().named("xmlToString").from(XML_DATA_TYPE).to(STRING_DATA_TYPE).build();
         graphResolver.transformerChange(xmlToString, TransformerResolver.RegistryAction.ADDED);
 
         Transformer transformer2 = graphResolver.resolve(INPUT_STREAM_DATA_TYPE, JSON_DATA_TYPE);
-        assertNotSame(transformer1, transformer2);
+        assertSame(transformer1, transformer2);
+        assertNotNull(graphResolver.resolve(INPUT_STREAM_DATA_TYPE, STRING_DATA_TYPE));
+    }
+
+    @Test
+    public void clearsCachedMissWhenAddsConverter() throws ResolverException
+    {
+        Converter inputStreamToXml = new MockConverterBuilder().named("inputStreamToXml").from(INPUT_STREAM_DATA_TYPE).to(XML_DATA_TYPE).build();
+        graphResolver.transformerChange(inputStreamToXml, TransformerResolver.RegistryAction.ADDED);
+
+        assertNull(graphResolver.resolve(INPUT_STREAM_DATA_TYPE, JSON_DATA_TYPE));
+
+        Converter xmlToJson = new MockConverterBuilder().named("xmlToJson").from(XML_DATA_TYPE).to(JSON_DATA_TYPE).build();
+        graphResolver.transformerChange(xmlToJson, TransformerResolver.RegistryAction.ADDED);
+
+        assertNotNull(graphResolver.resolve(INPUT_STREAM_DATA_TYPE, JSON_DATA_TYPE));
+    }
+
+    @Test
+    public void precomputesResolutions() throws ResolverException
+    {
+        Converter xmlToInputStream = new MockConverterBuilder().named("xmlToInputStream").from(XML_DATA_TYPE).to(INPUT_STREAM_DATA_TYPE).weighting(1).build();
+        Converter xmlToString = new MockConverterBuilder().named("xmlToString").from(XML_DATA_TYPE).to(STRING_DATA_TYPE).weighting(1).build();
+        Converter inputStreamToJson = new MockConverterBuilder().named("inputStreamToJson").from(INPUT_STREAM_DATA_TYPE).to(JSON_DATA_TYPE).weighting(2).build();
+        Converter stringToJson = new MockConverterBuilder().named("stringToJson").from(STRING_DATA_TYPE).to(JSON_DATA_TYPE).weighting(1).build();
+
+        graphResolver.transformerChange(xmlToInputStream, TransformerResolver.RegistryAction.ADDED);
+        graphResolver.transformerChange(xmlToString, TransformerResolver.RegistryAction.ADDED);
+        graphResolver.transformerChange(inputStreamToJson, TransformerResolver.RegistryAction.ADDED);
+        graphResolver.transformerChange(stringToJson, TransformerResolver.RegistryAction.ADDED);
+
+        graphResolver.precompute();
+
+        Transformer transformer = graphResolver.resolve(XML_DATA_TYPE, JSON_DATA_TYPE);
+        assertTrue(transformer instanceof CompositeConverter);
+        CompositeConverter compositeConverter = (CompositeConverter) transformer;
+        assertEquals(xmlToInputStream, compositeConverter.getConverters().get(0));
+        assertEquals(inputStreamToJson, compositeConverter.getConverters().get(1));
+        assertSame(transformer, graphResolver.resolve(XML_DATA_TYPE, JSON_DATA_TYPE));
+        assertEquals(stringToJson, graphResolver.resolve(STRING_DATA_TYPE, JSON_DATA_TYPE));
+        assertNull(graphResolver.resolve(JSON_DATA_TYPE, XML_DATA_TYPE));
+    }
+
+    @Test(expected = ResolverException.class)
+    public void precomputeSkipsAmbiguousResolutions() throws ResolverException
+    {
+        Converter xmlToInputStream1 = new MockConverterBuilder().named("xmlToInputStream").from(XML_DATA_TYPE).to(INPUT_STREAM_DATA_TYPE).weighting(1).build();
+        Converter xmlToInputStream2 = new MockConverterBuilder().named("xmlToInputStream").from(XML_DATA_TYPE).to(INPUT_STREAM_DATA_TYPE).weighting(1).build();
+
+        graphResolver.transformerChange(xmlToInputStream1, TransformerResolver.RegistryAction.ADDED);
+        graphResolver.transformerChange(xmlToInputStream2, TransformerResolver.RegistryAction.ADDED);
+        graphResolver.precompute();
+
+        graphResolver.resolve(XML_DATA_TYPE, INPUT_STREAM_DATA_TYPE);
     }
 
     @Test
@@ -7,6 +7,7 @@
 package org.mule.transformer.graph;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.fail;
 import static org.mockito.Mockito.mock;
 
@@ -18,6 +19,7 @@ import org.mule.transformer.CompositeConverter;
 import org.mule.transformer.builder.MockConverterBuilder;
 
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -121,6 +123,36 @@ public class TransformationGraphLookupStrategyTestCase extends AbstractMuleTestC
         assertContainsCompositeTransformer(converters, inputStreamToString, stringToJson, jsonToXml);
     }
 
+    @Test
+    public void findsConvertersForAllReachableDataTypes() throws Exception
+    {
+        Converter inputStreamToString = new MockConverterBuilder().named("inputStreamToString").from(INPUT_STREAM_DATA_TYPE).to(STRING_DATA_TYPE).build();
+        graph.addConverter(inputStreamToString);
+        Converter inputStreamToJson = new MockConverterBuilder().named("inputStreamToJson").from(INPUT_STREAM_DATA_TYPE).to(JSON_DATA_TYPE).build();
+        graph.addConverter(inputStreamToJson);
+        Converter jsonToXml = new MockConverterBuilder().named("jsonToXml").from(JSON_DATA_TYPE).to(XML_DATA_TYPE).build();
+        graph.addConverter(jsonToXml);
+        Converter jsonToString = new MockConverterBuilder().named("jsonToString").from(JSON_DATA_TYPE).to(STRING_DATA_TYPE).build();
+        graph.addConverter(jsonToString);
+        Converter stringToXml = new MockConverterBuilder().named("stringToXml").from(STRING_DATA_TYPE).to(XML_DATA_TYPE).build();
+        graph.addConverter(stringToXml);
+        Converter stringToJson = new MockConverterBuilder().named("stringToJson").from(STRING_DATA_TYPE).to(JSON_DATA_TYPE).build();
+        graph.addConverter(stringToJson);
+
+        Map<DataType<?>, List<Converter>> converters = lookupStrategyTransformation.lookupConverters(INPUT_STREAM_DATA_TYPE);
+
+        assertEquals(3, converters.size());
+        assertFalse(converters.containsKey(INPUT_STREAM_DATA_TYPE));
+        assertEquals(4, converters.get(XML_DATA_TYPE).size());
+        assertContainsCompositeTransformer(converters.get(XML_DATA_TYPE), inputStreamToString, stringToJson, jsonToXml);
+        assertEquals(lookupStrategyTransformation.lookupConverters(INPUT_STREAM_DATA_TYPE, STRING_DATA_TYPE).size(), converters.get(STRING_DATA_TYPE).size());
+        assertEquals(lookupStrategyTransformation.lookupConverters(INPUT_STREAM_DATA_TYPE, JSON_DATA_TYPE).size(), converters.get(JSON_DATA_TYPE).size());
+
+        Map<DataType<?>, List<Converter>> cycles = lookupStrategyTransformation.lookupConverters(STRING_DATA_TYPE);
+        assertEquals(lookupStrategyTransformation.lookupConverters(STRING_DATA_TYPE, STRING_DATA_TYPE).size(), cycles.get(STRING_DATA_TYPE).size());
+        assertContainsCompositeTransformer(cycles.get(STRING_DATA_TYPE), stringToJson, jsonToString);
+    }
+
     private void assertContainsCompositeTransformer(List<Converter> converters, Converter... composedConverters)
     {
         for (Converter converter : converters)
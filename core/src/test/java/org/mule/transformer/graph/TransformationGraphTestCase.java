@@ -282,6 +282,35 @@ public class TransformationGraphTestCase extends AbstractMuleTestCase
     }
 
 
+    @Test
+    public void findsReachableAndReachingDataTypes()
+    {
+        Converter inputStreamToXml = new MockConverterBuilder().from(INPUT_STREAM_DATA_TYPE).to(XML_DATA_TYPE).build();
+        Converter xmlToJson = new MockConverterBuilder().from(XML_DATA_TYPE).to(JSON_DATA_TYPE).build();
+        Converter stringToJson = new MockConverterBuilder().from(STRING_DATA_TYPE).to(JSON_DATA_TYPE).build();
+
+        TransformationGraph graph = new TransformationGraph();
+        graph.addConverter(inputStreamToXml);
+        graph.addConverter(xmlToJson);
+        graph.addConverter(stringToJson);
+
+        Set<DataType<?>> reachable = graph.getReachableDataTypes(XML_DATA_TYPE);
+        assertEquals(2, reachable.size());
+        assertTrue(reachable.contains(XML_DATA_TYPE));
+        assertTrue(reachable.contains(JSON_DATA_TYPE));
+
+        Set<DataType<?>> reaching = graph.getReachingDataTypes(JSON_DATA_TYPE);
+        assertEquals(4, reaching.size());
+
+        reaching = graph.getReachingDataTypes(XML_DATA_TYPE);
+        assertEquals(2, reaching.size());
+        assertTrue(reaching.contains(INPUT_STREAM_DATA_TYPE));
+        assertFalse(reaching.contains(STRING_DATA_TYPE));
+
+        graph.removeConverter(stringToJson);
+        assertTrue(graph.getReachableDataTypes(STRING_DATA_TYPE).isEmpty());
+    }
+
     private void assertContainsTransformer(Set<TransformationEdge> transformationEdges, Transformer transformer)
     {
         for (TransformationEdge edge : transformationEdges)
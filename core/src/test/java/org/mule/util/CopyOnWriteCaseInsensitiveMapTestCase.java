@@ -16,6 +16,8 @@ import static org.junit.Assert.assertTrue;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 import org.mule.tck.size.SmallTest;
 
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -534,4 +536,105 @@ public class CopyOnWriteCaseInsensitiveMapTestCase extends AbstractMuleTestCase
             assertThat(map.get(entry.getKey()), is(regularMap.get(entry.getKey())));
         }
     }
+
+    @Test
+    public void manyEntriesCopiedAndModified() throws Exception
+    {
+        CopyOnWriteCaseInsensitiveMap<String, Object> original = new CopyOnWriteCaseInsensitiveMap<String, Object>();
+        Map<String, Object> expected = new HashMap<String, Object>();
+        for (int i = 0; i < 5000; i++)
+        {
+            original.put("Key" + i, i);
+            expected.put("key" + i, i);
+        }
+        CopyOnWriteCaseInsensitiveMap<String, Object> copy = original.clone();
+        for (int i = 0; i < 5000; i += 2)
+        {
+            copy.remove("KEY" + i);
+            copy.put("key" + (i + 1), "modified");
+        }
+
+        assertThat(original.size(), is(5000));
+        assertThat(copy.size(), is(2500));
+        for (int i = 0; i < 5000; i++)
+        {
+            assertThat(original.get("kEy" + i), is(expected.get("key" + i)));
+            assertThat(copy.containsKey("key" + i), is(i % 2 == 1));
+        }
+        assertThat(copy.get("key1"), is((Object) "modified"));
+
+        Set<String> keys = new HashSet<String>(original.keySet());
+        assertThat(keys.size(), is(5000));
+        assertTrue(keys.contains("Key4999"));
+
+        for (int i = 1; i < 5000; i += 2)
+        {
+            copy.remove("key" + i);
+        }
+        assertTrue(copy.isEmpty());
+        assertFalse(copy.keySet().iterator().hasNext());
+        assertThat(original.size(), is(5000));
+    }
+
+    @Test
+    public void keysWithSameHash() throws Exception
+    {
+        // "Aa" and "BB" have the same hash code
+        CopyOnWriteCaseInsensitiveMap<String, Object> original = new CopyOnWriteCaseInsensitiveMap<String, Object>();
+        original.put("Aa", 1);
+        original.put("BB", 2);
+        original.put("AaBB", 3);
+        original.put("BBAa", 4);
+        CopyOnWriteCaseInsensitiveMap<String, Object> copy = original.clone();
+        copy.put("aa", 5);
+        copy.remove("bbaa");
+
+        assertThat(original.get("AA"), is((Object) 1));
+        assertThat(original.get("bb"), is((Object) 2));
+        assertThat(original.get("aabb"), is((Object) 3));
+        assertThat(original.get("BBAA"), is((Object) 4));
+        assertThat(original.size(), is(4));
+
+        assertThat(copy.get("AA"), is((Object) 5));
+        assertThat(copy.keySet().contains("Aa"), is(true));
+        assertThat(copy.containsKey("bbaa"), is(false));
+        assertThat(copy.size(), is(3));
+    }
+
+    @Test
+    public void keyKeepsCaseOfFirstPut() throws Exception
+    {
+        CopyOnWriteCaseInsensitiveMap<String, Object> map = createTestMap();
+        map.put("foo", "BAZ");
+
+        assertThat(map.size(), is(2));
+        assertThat(map.get("FOO"), is((Object) "BAZ"));
+        assertTrue(map.keySet().contains(KEY1));
+        assertTrue(new HashSet<String>(map.keySet()).contains(KEY1));
+    }
+
+    @Test
+    public void modifyWhileIterating() throws Exception
+    {
+        CopyOnWriteCaseInsensitiveMap<String, Object> map = createTestMap();
+        int iterated = 0;
+        for (Map.Entry<String, Object> entry : map.entrySet())
+        {
+            map.put(entry.getKey() + "Copy", entry.getValue());
+            iterated++;
+        }
+
+        assertThat(iterated, is(2));
+        assertThat(map.size(), is(4));
+        assertThat(map.get("fooCOPY"), is((Object) "BAR"));
+    }
+
+    @Test
+    public void keepsSerializedFormOfCaseInsensitiveHashMap() throws Exception
+    {
+        ObjectStreamField[] fields = ObjectStreamClass.lookup(CopyOnWriteCaseInsensitiveMap.class).getFields();
+        assertThat(fields.length, is(1));
+        assertThat(fields[0].getName(), is("core"));
+        assertThat(fields[0].getType(), is((Object) Map.class));
+    }
 }
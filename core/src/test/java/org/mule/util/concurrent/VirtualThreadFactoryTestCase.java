@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.concurrent;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+@SmallTest
+public class VirtualThreadFactoryTestCase extends AbstractMuleTestCase
+{
+
+    private static final String THREAD_NAME = "myThread";
+
+    private final ClassLoader testClassLoader = new ClassLoader()
+    {
+    };
+
+    @Test
+    public void createsVirtualThreadsWhenSupported() throws Exception
+    {
+        final Latch latch = new Latch();
+        final boolean[] virtual = new boolean[1];
+        Thread t = new VirtualThreadFactory(THREAD_NAME, testClassLoader).newThread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                virtual[0] = isVirtual(Thread.currentThread());
+                assertThat(Thread.currentThread().getName(), is(THREAD_NAME + ".01"));
+                assertThat(Thread.currentThread().getContextClassLoader(), is(testClassLoader));
+                latch.countDown();
+            }
+        });
+        t.start();
+        assertTrue(latch.await(1000, TimeUnit.MILLISECONDS));
+        assertThat(virtual[0], is(VirtualThreadFactory.isSupported()));
+    }
+
+    @Test
+    public void supportedFromJava21()
+    {
+        String specificationVersion = System.getProperty("java.specification.version");
+        boolean java21OrLater = !specificationVersion.startsWith("1.") && Integer.parseInt(specificationVersion) >= 21;
+        assertThat(VirtualThreadFactory.isSupported(), is(java21OrLater));
+    }
+
+    static boolean isVirtual(Thread thread)
+    {
+        try
+        {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        }
+        catch (NoSuchMethodException e)
+        {
+            return false;
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.concurrent;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mule.util.concurrent.VirtualThreadPerTaskExecutor.UNLIMITED;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+@SmallTest
+public class VirtualThreadPerTaskExecutorTestCase extends AbstractMuleTestCase
+{
+
+    private static final long TIMEOUT = 5000;
+
+    private final ThreadFactory threadFactory = new NamedThreadFactory("test", getClass().getClassLoader());
+    private final Latch blockingLatch = new Latch();
+    private VirtualThreadPerTaskExecutor executor;
+
+    @After
+    public void tearDown()
+    {
+        blockingLatch.release();
+        if (executor != null)
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void runsEachTaskInNewThread() throws Exception
+    {
+        executor = new VirtualThreadPerTaskExecutor(threadFactory, UNLIMITED, false, -1);
+        Thread first = executor.submit(currentThread()).get(TIMEOUT, TimeUnit.MILLISECONDS);
+        Thread second = executor.submit(currentThread()).get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+        assertThat(first, not(sameInstance(Thread.currentThread())));
+        assertThat(second, not(sameInstance(first)));
+    }
+
+    @Test
+    public void runsTaskInCallerThreadWhenExhausted() throws Exception
+    {
+        executor = new VirtualThreadPerTaskExecutor(threadFactory, 1, true, -1);
+        executor.execute(blockingTask());
+
+        assertThat(executor.submit(currentThread()).get(TIMEOUT, TimeUnit.MILLISECONDS), sameInstance(Thread.currentThread()));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void rejectsTaskWhenNoneCompletesInTime() throws Exception
+    {
+        executor = new VirtualThreadPerTaskExecutor(threadFactory, 1, false, 10);
+        executor.execute(blockingTask());
+        executor.execute(blockingTask());
+    }
+
+    @Test
+    public void runsWaitingTaskOnceRunningOneCompletes() throws Exception
+    {
+        executor = new VirtualThreadPerTaskExecutor(threadFactory, 1, false, TIMEOUT);
+        executor.execute(blockingTask());
+        new Thread()
+        {
+            @Override
+            public void run()
+            {
+                blockingLatch.release();
+            }
+        }.start();
+
+        Thread thread = executor.submit(currentThread()).get(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertThat(thread, not(sameInstance(Thread.currentThread())));
+    }
+
+    @Test
+    public void terminatesOnceRunningTasksComplete() throws Exception
+    {
+        executor = new VirtualThreadPerTaskExecutor(threadFactory, UNLIMITED, false, -1);
+        executor.execute(blockingTask());
+        executor.shutdown();
+
+        assertThat(executor.isShutdown(), is(true));
+        assertThat(executor.isTerminated(), is(false));
+        blockingLatch.release();
+        assertTrue(executor.awaitTermination(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertThat(executor.getActiveCount(), is(0));
+    }
+
+    @Test
+    public void shutdownNowInterruptsRunningTasks() throws Exception
+    {
+        executor = new VirtualThreadPerTaskExecutor(threadFactory, UNLIMITED, false, -1);
+        executor.execute(blockingTask());
+
+        assertThat(executor.shutdownNow().isEmpty(), is(true));
+        assertTrue(executor.awaitTermination(TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void rejectsTaskAfterShutdown()
+    {
+        executor = new VirtualThreadPerTaskExecutor(threadFactory, UNLIMITED, false, -1);
+        executor.shutdown();
+        executor.execute(blockingTask());
+    }
+
+    private Callable<Thread> currentThread()
+    {
+        return new Callable<Thread>()
+        {
+            @Override
+            public Thread call()
+            {
+                return Thread.currentThread();
+            }
+        };
+    }
+
+    private Runnable blockingTask()
+    {
+        return new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    blockingLatch.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.queue;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+import static org.mule.tck.SerializationTestUtils.addJavaSerializerToMockMuleContext;
+import org.mule.api.MuleContext;
+import org.mule.api.MuleRuntimeException;
+import org.mule.api.serialization.ObjectSerializer;
+import org.mule.api.serialization.SerializationException;
+import org.mule.tck.MuleTestUtils;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SmallTest
+public class SegmentedLogQueueStoreDelegateTestCase extends AbstractMuleTestCase
+{
+
+    private static final int MAXIMUM_NUMBER_OF_BYTES = 200;
+    private static final String TEST_QUEUE_NAME = "test-queue";
+
+    @Rule
+    public TemporaryFolder workingDirectory = new TemporaryFolder();
+
+    private MuleContext mockMuleContext;
+
+    @Before
+    public void before()
+    {
+        mockMuleContext = mock(MuleContext.class);
+        when(mockMuleContext.getExecutionClassLoader()).thenReturn(getClass().getClassLoader());
+        addJavaSerializerToMockMuleContext(mockMuleContext);
+    }
+
+    @Test
+    public void nameWithInvalidCharacters()
+    {
+        String[] testNames = new String[] {
+                "test-test",
+                "test:/test",
+                "test?test",
+                "test:\\test",
+                "test&test",
+                "test|test",
+                "seda.queue(post:\\Customer:ApiTest-config.1)"
+        };
+
+        for (String testName : testNames)
+        {
+            new SegmentedLogQueueStoreDelegate(testName, workingDirectory.getRoot().getAbsolutePath(), mockMuleContext, 1).dispose();
+        }
+    }
+
+    @Test
+    public void keepsFifoOrderWithUntake() throws Exception
+    {
+        SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+        queueStore.putNow("1");
+        queueStore.putNow("2");
+        assertThat((String) queueStore.poll(0), is("1"));
+        queueStore.untake("1");
+        queueStore.putNow("3");
+
+        assertThat(queueStore.getSize(), is(3));
+        assertThat((String) queueStore.peek(), is("1"));
+        assertThat((String) queueStore.poll(0), is("1"));
+        assertThat((String) queueStore.poll(0), is("2"));
+        assertThat((String) queueStore.poll(0), is("3"));
+        assertThat(queueStore.poll(0), nullValue());
+        queueStore.close();
+    }
+
+    @Test
+    public void recoversPendingItemsAfterRestart() throws Exception
+    {
+        MuleTestUtils.testWithSystemProperty(SegmentedLogQueueStoreDelegate.MAX_SEGMENT_LENGTH_PROPERTY_KEY,
+                                             String.valueOf(MAXIMUM_NUMBER_OF_BYTES), new MuleTestUtils.TestCallback()
+                {
+                    @Override
+                    public void run() throws Exception
+                    {
+                        SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+                        for (int i = 0; i < 20; i++)
+                        {
+                            queueStore.putNow(createTestDataForIndex(i));
+                        }
+                        for (int i = 0; i < 5; i++)
+                        {
+                            queueStore.poll(0);
+                        }
+                        queueStore.untake(createTestDataForIndex(4));
+                        queueStore.close();
+
+                        queueStore = createTestQueueStore();
+                        assertThat(queueStore.getSize(), is(16));
+                        for (int i = 4; i < 20; i++)
+                        {
+                            assertThat((String) queueStore.poll(0), is(createTestDataForIndex(i)));
+                        }
+                        queueStore.close();
+                    }
+                });
+    }
+
+    @Test
+    public void reclaimsConsumedSegments() throws Exception
+    {
+        MuleTestUtils.testWithSystemProperty(SegmentedLogQueueStoreDelegate.MAX_SEGMENT_LENGTH_PROPERTY_KEY,
+                                             String.valueOf(MAXIMUM_NUMBER_OF_BYTES), new MuleTestUtils.TestCallback()
+                {
+                    @Override
+                    public void run() throws Exception
+                    {
+                        SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+                        for (int i = 0; i < 50; i++)
+                        {
+                            queueStore.putNow(createTestDataForIndex(i));
+                        }
+                        assertThat(getSegmentFiles().length > 1, is(true));
+
+                        while (queueStore.poll(0) != null)
+                        {
+                        }
+                        assertThat(getSegmentFiles().length, is(1));
+                        queueStore.close();
+
+                        queueStore = createTestQueueStore();
+                        assertThat(queueStore.getSize(), is(0));
+                        queueStore.close();
+                    }
+                });
+    }
+
+    @Test
+    public void discardsIncompleteRecordAfterCrash() throws Exception
+    {
+        SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+        queueStore.putNow("1");
+        queueStore.putNow("2");
+        queueStore.close();
+
+        File[] segmentFiles = getSegmentFiles();
+        FileOutputStream segment = new FileOutputStream(segmentFiles[segmentFiles.length - 1], true);
+        try
+        {
+            segment.write(new byte[] {1, 0, 0, 0, 0, 0, 0, 0, 9, 0, 0});
+        }
+        finally
+        {
+            segment.close();
+        }
+
+        queueStore = createTestQueueStore();
+        assertThat(queueStore.getSize(), is(2));
+        queueStore.putNow("3");
+        queueStore.close();
+
+        queueStore = createTestQueueStore();
+        assertThat((String) queueStore.poll(0), is("1"));
+        assertThat((String) queueStore.poll(0), is("2"));
+        assertThat((String) queueStore.poll(0), is("3"));
+        queueStore.close();
+    }
+
+    @Test
+    public void removeAndContains() throws Exception
+    {
+        SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+        queueStore.addAll(Arrays.asList("1", "2", "3"));
+        assertThat(queueStore.contains("2"), is(true));
+
+        queueStore.remove("2");
+        assertThat(queueStore.contains("2"), is(false));
+        queueStore.close();
+
+        queueStore = createTestQueueStore();
+        assertThat(new ArrayList<Object>(queueStore.allElements()), is((List<Object>) Arrays.<Object>asList("1", "3")));
+        queueStore.close();
+    }
+
+    @Test
+    public void concurrentProducersShareFlushes() throws Exception
+    {
+        final SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+        final int producers = 4;
+        final int itemsPerProducer = 100;
+        final CountDownLatch latch = new CountDownLatch(producers);
+        for (int i = 0; i < producers; i++)
+        {
+            new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for (int j = 0; j < itemsPerProducer; j++)
+                    {
+                        queueStore.putNow(getName() + j);
+                    }
+                    latch.countDown();
+                }
+            }.start();
+        }
+        latch.await();
+        queueStore.close();
+
+        SegmentedLogQueueStoreDelegate recoveredQueueStore = createTestQueueStore();
+        assertThat(recoveredQueueStore.getSize(), is(producers * itemsPerProducer));
+        recoveredQueueStore.close();
+    }
+
+    @Test
+    public void keepsWorkingAfterInterruptedAppend() throws Exception
+    {
+        SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+        queueStore.putNow("1");
+
+        Thread.currentThread().interrupt();
+        try
+        {
+            queueStore.putNow("2");
+            fail("Expected the interrupted append to fail");
+        }
+        catch (MuleRuntimeException e)
+        {
+            // Expected
+        }
+        finally
+        {
+            Thread.interrupted();
+        }
+
+        queueStore.putNow("3");
+        assertThat(queueStore.getSize(), is(2));
+        assertThat((String) queueStore.peek(), is("1"));
+        assertThat((String) queueStore.poll(0), is("1"));
+        queueStore.close();
+
+        queueStore = createTestQueueStore();
+        assertThat(queueStore.getSize(), is(1));
+        assertThat((String) queueStore.poll(0), is("3"));
+        queueStore.close();
+    }
+
+    @Test
+    public void keepsItemWhenDeserializationFails() throws Exception
+    {
+        ObjectSerializer serializer = spy(mockMuleContext.getObjectSerializer());
+        when(mockMuleContext.getObjectSerializer()).thenReturn(serializer);
+        SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+        queueStore.putNow("1");
+        queueStore.putNow("2");
+
+        doThrow(new SerializationException("Class changed")).doCallRealMethod().when(serializer).deserialize(any(byte[].class));
+        try
+        {
+            queueStore.poll(0);
+            fail("Expected the deserialization to fail");
+        }
+        catch (SerializationException e)
+        {
+            // Expected
+        }
+
+        assertThat(queueStore.getSize(), is(2));
+        assertThat((String) queueStore.poll(0), is("1"));
+        queueStore.close();
+
+        queueStore = createTestQueueStore();
+        assertThat(queueStore.getSize(), is(1));
+        assertThat((String) queueStore.poll(0), is("2"));
+        queueStore.close();
+    }
+
+    @Test
+    public void allFilesDeletedAfterDispose() throws IOException
+    {
+        SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+        queueStore.putNow("item");
+        assertThat(getSegmentFiles().length, is(1));
+
+        queueStore.dispose();
+        assertThat(SegmentedLogQueueStoreDelegate.getSegmentsDirectoryForTesting(TEST_QUEUE_NAME, workingDirectory.getRoot().getAbsolutePath()).exists(), is(false));
+    }
+
+    private File[] getSegmentFiles()
+    {
+        return SegmentedLogQueueStoreDelegate.getSegmentsDirectoryForTesting(TEST_QUEUE_NAME, workingDirectory.getRoot().getAbsolutePath()).listFiles();
+    }
+
+    private String createTestDataForIndex(int index)
+    {
+        return "some value " + index;
+    }
+
+    private SegmentedLogQueueStoreDelegate createTestQueueStore()
+    {
+        return new SegmentedLogQueueStoreDelegate(TEST_QUEUE_NAME, workingDirectory.getRoot().getAbsolutePath(), mockMuleContext, 0);
+    }
+
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.util.store;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+import static org.mule.api.store.ObjectStoreManager.UNBOUNDED;
+import static org.mule.tck.SerializationTestUtils.addJavaSerializerToMockMuleContext;
+import org.mule.api.MuleContext;
+import org.mule.api.store.ObjectDoesNotExistException;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.tck.MuleTestUtils;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.util.FileUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@SmallTest
+@RunWith(MockitoJUnitRunner.class)
+public class LogStructuredObjectStorePartitionTestCase extends AbstractMuleTestCase
+{
+
+    private static final String KEY = "key";
+    private static final String VALUE = "value";
+
+    @Rule
+    public TemporaryFolder objectStoreFolder = new TemporaryFolder();
+
+    @Mock
+    private MuleContext muleContext;
+
+    private LogStructuredObjectStorePartition<Serializable> partition;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        when(muleContext.getExecutionClassLoader()).thenReturn(getClass().getClassLoader());
+        addJavaSerializerToMockMuleContext(muleContext);
+        partition = createPartition();
+    }
+
+    @Test
+    public void indicatesUnexistentKeyOnRetrieveError() throws ObjectStoreException
+    {
+        final String nonExistentKey = "nonExistentKey";
+
+        try
+        {
+            partition.retrieve(nonExistentKey);
+            fail("Supposed to thrown an exception as key is not valid");
+        }
+        catch (ObjectDoesNotExistException e)
+        {
+            assertThat(e.getMessage().contains(nonExistentKey), is(true));
+        }
+    }
+
+    @Test
+    public void storesAllEntriesInASingleFile() throws Exception
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            partition.store(KEY + i, VALUE + i);
+        }
+
+        assertThat(objectStoreFolder.getRoot().list().length, is(2));
+        assertThat(partition.retrieve(KEY + 50), is((Serializable) (VALUE + 50)));
+    }
+
+    @Test
+    public void restoresEntriesAfterRestart() throws Exception
+    {
+        partition.store(KEY, VALUE);
+        partition.store(1, VALUE);
+        partition.store("removed", VALUE);
+        partition.remove("removed");
+        partition.close();
+
+        LogStructuredObjectStorePartition<Serializable> restored = new LogStructuredObjectStorePartition<>(muleContext, objectStoreFolder.getRoot());
+        restored.open();
+        assertThat(restored.getPartitionName(), is("test"));
+        assertThat(restored.allKeys(), is(Arrays.<Serializable>asList(KEY, 1)));
+        assertThat(restored.retrieve(1), is((Serializable) VALUE));
+    }
+
+    @Test
+    public void discardsIncompleteRecordAfterCrash() throws Exception
+    {
+        partition.store(KEY, VALUE);
+        partition.close();
+        FileOutputStream dataFile = new FileOutputStream(new File(objectStoreFolder.getRoot(), "data.log"), true);
+        try
+        {
+            dataFile.write(new byte[] {1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 4});
+        }
+        finally
+        {
+            dataFile.close();
+        }
+
+        LogStructuredObjectStorePartition<Serializable> restored = createPartition();
+        assertThat(restored.allKeys(), is(Arrays.<Serializable>asList(KEY)));
+        restored.store("other", VALUE);
+        restored.close();
+
+        assertThat(createPartition().allKeys(), is(Arrays.<Serializable>asList(KEY, "other")));
+    }
+
+    @Test
+    public void expiresOldestEntriesOverMaxEntries() throws Exception
+    {
+        for (int i = 0; i < 10; i++)
+        {
+            partition.store(KEY + i, VALUE);
+        }
+
+        partition.expire(UNBOUNDED, 3);
+        assertThat(partition.allKeys(), is(Arrays.<Serializable>asList(KEY + 7, KEY + 8, KEY + 9)));
+    }
+
+    @Test
+    public void expiresEntriesOverTtl() throws Exception
+    {
+        partition.store(KEY + 1, VALUE);
+        partition.store(KEY + 2, VALUE);
+        Thread.sleep(50);
+        partition.store(KEY + 3, VALUE);
+
+        partition.expire(40, UNBOUNDED);
+        assertThat(partition.allKeys(), is(Arrays.<Serializable>asList(KEY + 3)));
+    }
+
+    @Test
+    public void compactsRemovedEntries() throws Exception
+    {
+        MuleTestUtils.testWithSystemProperty(LogStructuredObjectStorePartition.COMPACTION_THRESHOLD_PROPERTY_KEY, "100", new MuleTestUtils.TestCallback()
+        {
+            @Override
+            public void run() throws Exception
+            {
+                LogStructuredObjectStorePartition<Serializable> compacted = createPartition();
+                for (int i = 0; i < 100; i++)
+                {
+                    compacted.store(KEY + i, VALUE + i);
+                }
+                File dataFile = new File(objectStoreFolder.getRoot(), "data.log");
+                long fullLength = dataFile.length();
+
+                compacted.expire(UNBOUNDED, 10);
+                assertThat(dataFile.length() < fullLength / 5, is(true));
+                assertThat(compacted.retrieve(KEY + 95), is((Serializable) (VALUE + 95)));
+
+                compacted.store(KEY, VALUE);
+                compacted.close();
+                LogStructuredObjectStorePartition<Serializable> restored = createPartition();
+                assertThat(restored.allKeys().size(), is(11));
+                assertThat(restored.retrieve(KEY), is((Serializable) VALUE));
+            }
+        });
+    }
+
+    @Test
+    public void migratesFilePerEntryPartition() throws Exception
+    {
+        PersistentObjectStorePartition<Serializable> legacy = new PersistentObjectStorePartition<>(muleContext, "legacy", objectStoreFolder.newFolder("legacy"));
+        legacy.open();
+        legacy.store(KEY, VALUE);
+
+        LogStructuredObjectStorePartition<Serializable> migrated = new LogStructuredObjectStorePartition<>(muleContext, new File(objectStoreFolder.getRoot(), "legacy"));
+        migrated.open();
+        assertThat(migrated.getPartitionName(), is("legacy"));
+        assertThat(migrated.retrieve(KEY), is((Serializable) VALUE));
+        assertThat(new File(objectStoreFolder.getRoot(), "legacy").list().length, is(2));
+    }
+
+    @Test
+    public void filePerEntryPartitionDoesNotOpenMigratedPartition() throws Exception
+    {
+        File partitionFolder = objectStoreFolder.newFolder("legacy");
+        PersistentObjectStorePartition<Serializable> legacy = new PersistentObjectStorePartition<>(muleContext, "legacy", partitionFolder);
+        legacy.open();
+        legacy.store(KEY, VALUE);
+        LogStructuredObjectStorePartition<Serializable> migrated = new LogStructuredObjectStorePartition<>(muleContext, partitionFolder);
+        migrated.open();
+        assertThat(migrated.retrieve(KEY), is((Serializable) VALUE));
+
+        try
+        {
+            new PersistentObjectStorePartition<>(muleContext, "legacy", partitionFolder).open();
+            fail("Supposed to refuse opening a migrated partition");
+        }
+        catch (ObjectStoreException e)
+        {
+            assertThat(e.getMessage().contains(MuleDefaultObjectStoreFactory.FILE_PER_ENTRY_PERSISTENT_STORE_PROPERTY), is(true));
+        }
+    }
+
+    @Test
+    public void expiresMigratedEntriesOlderThanStoredOnes() throws Exception
+    {
+        File partitionFolder = objectStoreFolder.newFolder("legacy");
+        LogStructuredObjectStorePartition<Serializable> current = new LogStructuredObjectStorePartition<>(muleContext, "legacy", partitionFolder);
+        current.open();
+        current.store(KEY, VALUE);
+        current.close();
+        File legacyFolder = objectStoreFolder.newFolder("other");
+        PersistentObjectStorePartition<Serializable> legacy = new PersistentObjectStorePartition<>(muleContext, "legacy", legacyFolder);
+        legacy.open();
+        legacy.store("old", VALUE);
+        for (File file : legacyFolder.listFiles())
+        {
+            if (file.getName().endsWith(".obj"))
+            {
+                File moved = new File(partitionFolder, file.getName());
+                FileUtils.moveFile(file, moved);
+                moved.setLastModified(System.currentTimeMillis() - 3600000);
+            }
+        }
+
+        LogStructuredObjectStorePartition<Serializable> migrated = new LogStructuredObjectStorePartition<>(muleContext, partitionFolder);
+        migrated.open();
+        assertThat(migrated.allKeys(), is(Arrays.<Serializable>asList("old", KEY)));
+        migrated.expire(60000, UNBOUNDED);
+        assertThat(migrated.allKeys(), is(Arrays.<Serializable>asList(KEY)));
+    }
+
+    @Test
+    public void reloadsAfterClose() throws Exception
+    {
+        partition.store(KEY, VALUE);
+        partition.close();
+
+        partition.store("other", VALUE);
+        assertThat(partition.allKeys(), is(Arrays.<Serializable>asList(KEY, "other")));
+        assertThat(partition.retrieve(KEY), is((Serializable) VALUE));
+    }
+
+    @Test
+    public void keepsWorkingAfterInterruptedRetrieve() throws Exception
+    {
+        partition.store(KEY, VALUE);
+
+        Thread.currentThread().interrupt();
+        try
+        {
+            partition.retrieve(KEY);
+            fail("Expected the interrupted retrieve to fail");
+        }
+        catch (ObjectStoreException e)
+        {
+            // Expected
+        }
+        finally
+        {
+            Thread.interrupted();
+        }
+
+        partition.store("other", VALUE);
+        assertThat(partition.retrieve(KEY), is((Serializable) VALUE));
+        assertThat(partition.retrieve("other"), is((Serializable) VALUE));
+    }
+
+    @Test
+    public void clear() throws Exception
+    {
+        partition.store(KEY, VALUE);
+        partition.clear();
+        assertThat(partition.contains(KEY), is(false));
+
+        partition.store(KEY, VALUE);
+        assertThat(partition.retrieve(KEY), is((Serializable) VALUE));
+    }
+
+    private LogStructuredObjectStorePartition<Serializable> createPartition() throws ObjectStoreException
+    {
+        LogStructuredObjectStorePartition<Serializable> newPartition = new LogStructuredObjectStorePartition<>(muleContext, "test", objectStoreFolder.getRoot());
+        newPartition.open();
+        return newPartition;
+    }
+}
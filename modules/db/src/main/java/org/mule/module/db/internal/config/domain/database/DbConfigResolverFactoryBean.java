@@ -13,12 +13,15 @@ import org.mule.api.context.MuleContextAware;
 import org.mule.api.lifecycle.Disposable;
 import org.mule.api.retry.RetryPolicyTemplate;
 import org.mule.config.spring.factories.AnnotatedObjectFactoryBean;
+import org.mule.management.stats.StatisticsMBeanRegistrar;
 import org.mule.module.db.internal.domain.connection.DbPoolingProfile;
 import org.mule.module.db.internal.domain.database.ConfigurableDbConfigFactory;
 import org.mule.module.db.internal.domain.database.DataSourceConfig;
 import org.mule.module.db.internal.domain.database.DataSourceFactory;
 import org.mule.module.db.internal.domain.database.DbConfig;
 import org.mule.module.db.internal.domain.database.GenericDbConfigFactory;
+import org.mule.module.db.internal.domain.statement.StatementCacheStatistics;
+import org.mule.module.db.internal.domain.statement.StatementCacheStatisticsMBean;
 import org.mule.module.db.internal.domain.type.DbType;
 import org.mule.module.db.internal.resolver.database.DbConfigResolver;
 import org.mule.module.db.internal.resolver.database.DynamicDbConfigResolver;
@@ -28,6 +31,7 @@ import org.mule.util.Preconditions;
 import java.util.List;
 import java.util.Map;
 
+import javax.management.ObjectName;
 import javax.sql.DataSource;
 
 /**
@@ -43,6 +47,8 @@ public class DbConfigResolverFactoryBean extends AnnotatedObjectFactoryBean<DbCo
     private DataSourceFactory dataSourceFactory;
     private final DataSourceConfig dataSourceConfig = new DataSourceConfig();
     private final ConfigurableDbConfigFactory dbConfigFactory;
+    private int statementCacheSize;
+    private ObjectName statementCacheStatisticsObjectName;
 
     @SuppressWarnings("unused")
     public DbConfigResolverFactoryBean()
@@ -72,6 +78,24 @@ public class DbConfigResolverFactoryBean extends AnnotatedObjectFactoryBean<DbCo
 
         dataSourceFactory = createDataSourceFactory();
 
+        if (cachesStatementsInPool())
+        {
+            // Statements are cached by the pooled connections, so they survive returning the connection to the pool
+            dataSourceConfig.getPoolingProfile().setPreparedStatementCacheSize(statementCacheSize);
+            dbConfigFactory.setStatementCacheSize(0);
+        }
+        else
+        {
+            if (statementCacheSize > 0)
+            {
+                logger.warn(String.format("Database config %s caches statements only while a connection is in use, for example during a transaction, "
+                                          + "as its connections are not pooled by Mule. Configure a pooling-profile, or the statement cache of the data source, "
+                                          + "to reuse statements between messages", name));
+            }
+            dbConfigFactory.setStatementCacheSize(statementCacheSize);
+            registerStatementCacheStatistics();
+        }
+
         if (dataSourceConfig.isDynamic())
         {
             DataSourceFactory dataSourceFactory = new DataSourceFactory(name);
@@ -112,6 +136,31 @@ public class DbConfigResolverFactoryBean extends AnnotatedObjectFactoryBean<DbCo
         {
             Preconditions.checkState(connectionProperties.isEmpty(), "connection-properties cannot be specified when a DataSource was provided");
         }
+        Preconditions.checkState(statementCacheSize >= 0, "statementCacheSize cannot be negative");
+    }
+
+    /**
+     * @return true when statements must be cached by the pool created for this config, which keeps the physical
+     * connections open between messages
+     */
+    private boolean cachesStatementsInPool()
+    {
+        return statementCacheSize > 0 && dataSource == null && dataSourceConfig.getPoolingProfile() != null && !dataSourceConfig.isUseXaTransactions();
+    }
+
+    private void registerStatementCacheStatistics()
+    {
+        StatementCacheStatistics statistics = dbConfigFactory.getStatementCacheStatistics();
+        if (statistics != null && name != null && muleContext != null)
+        {
+            statementCacheStatisticsObjectName = StatisticsMBeanRegistrar.register(muleContext, StatementCacheStatisticsMBean.JMX_TYPE, name, statistics);
+        }
+    }
+
+    private void unregisterStatementCacheStatistics()
+    {
+        StatisticsMBeanRegistrar.unregister(statementCacheStatisticsObjectName);
+        statementCacheStatisticsObjectName = null;
     }
 
     protected String getEffectiveUrl()
@@ -206,9 +255,16 @@ public class DbConfigResolverFactoryBean extends AnnotatedObjectFactoryBean<DbCo
         this.dbConfigFactory.setRetryPolicyTemplate(retryPolicyTemplate);
     }
 
+    public void setStatementCacheSize(int statementCacheSize)
+    {
+        this.statementCacheSize = statementCacheSize;
+    }
+
     @Override
     public void dispose()
     {
+        unregisterStatementCacheStatistics();
+
         if (dataSourceFactory != null)
         {
             dataSourceFactory.dispose();
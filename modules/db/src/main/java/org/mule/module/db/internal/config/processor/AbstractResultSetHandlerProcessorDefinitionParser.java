@@ -11,7 +11,7 @@ import static org.springframework.beans.factory.support.BeanDefinitionBuilder.ge
 
 import org.mule.module.db.internal.result.resultset.IteratorResultSetHandler;
 import org.mule.module.db.internal.result.resultset.ListResultSetHandler;
-import org.mule.module.db.internal.result.row.InsensitiveMapRowHandler;
+import org.mule.module.db.internal.result.row.ColumnarRowHandler;
 
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
@@ -36,7 +36,7 @@ public abstract class AbstractResultSetHandlerProcessorDefinitionParser extends
     {
         super.processStreamingAttribute(streamingValue);
 
-        InsensitiveMapRowHandler recordHandler = new InsensitiveMapRowHandler();
+        ColumnarRowHandler recordHandler = new ColumnarRowHandler();
 
         BeanDefinition beanDefinition;
         if (Boolean.parseBoolean(streamingValue))
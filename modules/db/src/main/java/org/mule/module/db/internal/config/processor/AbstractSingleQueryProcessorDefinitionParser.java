@@ -18,6 +18,8 @@ import org.w3c.dom.Element;
 public abstract class AbstractSingleQueryProcessorDefinitionParser extends AbstractAdvancedDbProcessorDefinitionParser
 {
 
+    public static final String DYNAMIC_QUERY_CACHE_SIZE_ATTRIBUTE = "dynamicQueryCacheSize";
+
     protected BeanDefinition queryResolverBean;
     protected BeanDefinition queryBean;
 
@@ -36,7 +38,7 @@ public abstract class AbstractSingleQueryProcessorDefinitionParser extends Abstr
 
         queryBean = queryDefinitionParser.parseQuery(element, nestedCtx);
 
-        createQueryResolverBeanDefinition(sqlParamResolver);
+        createQueryResolverBeanDefinition(element, sqlParamResolver);
 
         builder.addConstructorArgValue(queryResolverBean);
 
@@ -48,12 +50,16 @@ public abstract class AbstractSingleQueryProcessorDefinitionParser extends Abstr
         configureStatementResultSetCloser(builder);
     }
 
-    protected void createQueryResolverBeanDefinition(BeanDefinition sqlParamResolver)
+    protected void createQueryResolverBeanDefinition(Element element, BeanDefinition sqlParamResolver)
     {
         BeanDefinitionBuilder queryResolverFactoryBean = BeanDefinitionBuilder.genericBeanDefinition(QueryResolverFactoryBean.class);
         queryResolverFactoryBean.addConstructorArgValue(queryBean);
         queryResolverFactoryBean.addConstructorArgValue(sqlParamResolver);
         queryResolverFactoryBean.addConstructorArgValue(dbConfigResolverFactoryBeanDefinition);
+        if (element.hasAttribute(DYNAMIC_QUERY_CACHE_SIZE_ATTRIBUTE))
+        {
+            queryResolverFactoryBean.addPropertyValue(DYNAMIC_QUERY_CACHE_SIZE_ATTRIBUTE, element.getAttribute(DYNAMIC_QUERY_CACHE_SIZE_ATTRIBUTE));
+        }
         queryResolverBean = queryResolverFactoryBean.getBeanDefinition();
     }
 
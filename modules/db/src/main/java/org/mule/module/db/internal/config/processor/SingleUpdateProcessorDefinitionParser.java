@@ -7,6 +7,7 @@
 
 package org.mule.module.db.internal.config.processor;
 
+import org.mule.module.db.internal.domain.executor.BulkUpdateExecutorFactory;
 import org.mule.module.db.internal.domain.executor.UpdateExecutorFactory;
 import org.mule.module.db.internal.domain.query.QueryType;
 import org.mule.module.db.internal.metadata.UpdateMetadataProvider;
@@ -21,6 +22,9 @@ import org.w3c.dom.Element;
 public class SingleUpdateProcessorDefinitionParser extends AbstractSingleQueryProcessorDefinitionParser
 {
 
+    public static final String BATCH_SIZE_ATTRIBUTE = "batchSize";
+    public static final String BATCH_MAX_DELAY_ATTRIBUTE = "batchMaxDelayMillis";
+
     private final List<QueryType> validQueryTypes;
 
     public SingleUpdateProcessorDefinitionParser(List<QueryType> validQueryTypes)
@@ -52,6 +56,25 @@ public class SingleUpdateProcessorDefinitionParser extends AbstractSingleQueryPr
         super.doParse(element, context, builder);
 
         builder.addConstructorArgValue(validQueryTypes);
+
+        parseBatching(element, builder);
+    }
+
+    protected void parseBatching(Element element, BeanDefinitionBuilder builder)
+    {
+        if (element.hasAttribute(BATCH_SIZE_ATTRIBUTE))
+        {
+            builder.addPropertyValue(BATCH_SIZE_ATTRIBUTE, element.getAttribute(BATCH_SIZE_ATTRIBUTE));
+
+            BeanDefinitionBuilder bulkExecutorFactoryBean = BeanDefinitionBuilder.genericBeanDefinition(BulkUpdateExecutorFactory.class);
+            bulkExecutorFactoryBean.addConstructorArgValue(parseStatementFactory(element));
+            builder.addPropertyValue("bulkQueryExecutorFactory", bulkExecutorFactoryBean.getBeanDefinition());
+        }
+
+        if (element.hasAttribute(BATCH_MAX_DELAY_ATTRIBUTE))
+        {
+            builder.addPropertyValue(BATCH_MAX_DELAY_ATTRIBUTE, element.getAttribute(BATCH_MAX_DELAY_ATTRIBUTE));
+        }
     }
 
     @Override
@@ -27,6 +27,7 @@ public class QueryResolverFactoryBean implements FactoryBean<QueryResolver>, Mul
     private final ParamValueResolver paramValueResolver;
     private final DbConfigResolver dbConfigResolver;
     private MuleContext muleContext;
+    private int dynamicQueryCacheSize;
 
     public QueryResolverFactoryBean(Query query, ParamValueResolver paramValueResolver, DbConfigResolver dbConfigResolver)
     {
@@ -40,7 +41,7 @@ public class QueryResolverFactoryBean implements FactoryBean<QueryResolver>, Mul
     {
         if (isDynamic(query))
         {
-            return new DynamicQueryResolver(query, new SimpleQueryTemplateParser(), muleContext.getExpressionManager());
+            return new DynamicQueryResolver(query, new SimpleQueryTemplateParser(), muleContext.getExpressionManager(), dynamicQueryCacheSize);
         }
         else if (hasParameters(query))
         {
@@ -80,4 +81,12 @@ public class QueryResolverFactoryBean implements FactoryBean<QueryResolver>, Mul
     {
         this.muleContext = muleContext;
     }
+
+    /**
+     * @param dynamicQueryCacheSize maximum amount of templates parsed from a dynamic query that are cached. Zero disables the cache.
+     */
+    public void setDynamicQueryCacheSize(int dynamicQueryCacheSize)
+    {
+        this.dynamicQueryCacheSize = dynamicQueryCacheSize;
+    }
 }
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.connection;
+
+/**
+ * Identifies the implementation used to pool the connections of a {@link DbPoolingProfile}
+ */
+public enum DbPoolType
+{
+    /**
+     * Pools connections using c3p0
+     */
+    C3P0,
+
+    /**
+     * Pools connections using {@link org.mule.module.db.internal.domain.connection.pool.ConnectionPool},
+     * which borrows and returns connections without locking
+     */
+    CONCURRENT_BAG
+}
@@ -20,6 +20,10 @@ public class DbPoolingProfile
     private int acquireIncrement = 1;
     private int preparedStatementCacheSize = 5;
     private int maxWaitMillis = 300000;  // 30 seconds
+    private DbPoolType poolType = DbPoolType.C3P0;
+    private int idleTimeoutMillis = 600000;
+    private int leakDetectionThresholdMillis = 0;
+    private int validationTimeoutSeconds = 5;
 
     public int getPreparedStatementCacheSize()
     {
@@ -72,11 +76,51 @@ public class DbPoolingProfile
         this.maxWaitMillis = maxWaitMillis;
     }
 
+    public DbPoolType getPoolType()
+    {
+        return poolType;
+    }
+
+    public void setPoolType(DbPoolType poolType)
+    {
+        this.poolType = poolType;
+    }
+
+    public int getIdleTimeoutMillis()
+    {
+        return idleTimeoutMillis;
+    }
+
+    public void setIdleTimeoutMillis(int idleTimeoutMillis)
+    {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public int getLeakDetectionThresholdMillis()
+    {
+        return leakDetectionThresholdMillis;
+    }
+
+    public void setLeakDetectionThresholdMillis(int leakDetectionThresholdMillis)
+    {
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+    }
+
+    public int getValidationTimeoutSeconds()
+    {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds)
+    {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(minPoolSize, maxPoolSize, acquireIncrement, preparedStatementCacheSize, maxWaitMillis);
+        return Objects.hash(minPoolSize, maxPoolSize, acquireIncrement, preparedStatementCacheSize, maxWaitMillis, poolType,
+                            idleTimeoutMillis, leakDetectionThresholdMillis, validationTimeoutSeconds);
     }
 
     @Override
@@ -109,7 +153,23 @@ public class DbPoolingProfile
         {
             return false;
         }
-        return maxWaitMillis == that.maxWaitMillis;
+        if (maxWaitMillis != that.maxWaitMillis)
+        {
+            return false;
+        }
+        if (poolType != that.poolType)
+        {
+            return false;
+        }
+        if (idleTimeoutMillis != that.idleTimeoutMillis)
+        {
+            return false;
+        }
+        if (leakDetectionThresholdMillis != that.leakDetectionThresholdMillis)
+        {
+            return false;
+        }
+        return validationTimeoutSeconds == that.validationTimeoutSeconds;
 
     }
 }
@@ -7,6 +7,7 @@
 
 package org.mule.module.db.internal.domain.connection;
 
+import org.mule.module.db.internal.domain.statement.StatementCache;
 import org.mule.module.db.internal.domain.transaction.TransactionalAction;
 import org.mule.module.db.internal.resolver.param.ParamTypeResolverFactory;
 
@@ -30,14 +31,23 @@ import java.util.Properties;
 import java.util.concurrent.Executor;
 
 /**
- * Delegates {@link Connection} behaviour to a delegate
+ * Delegates {@link Connection} behaviour to a delegate. Prepared and callable statements are
+ * obtained from a {@link StatementCache} when there is one for the delegate.
  */
 public class DefaultDbConnection extends AbstractDbConnection
 {
 
+    private final StatementCache statementCache;
+
     public DefaultDbConnection(Connection delegate, TransactionalAction transactionalAction, DefaultDbConnectionReleaser connectionReleaseListener, ParamTypeResolverFactory paramTypeResolverFactory)
+    {
+        this(delegate, transactionalAction, connectionReleaseListener, paramTypeResolverFactory, null);
+    }
+
+    public DefaultDbConnection(Connection delegate, TransactionalAction transactionalAction, DefaultDbConnectionReleaser connectionReleaseListener, ParamTypeResolverFactory paramTypeResolverFactory, StatementCache statementCache)
     {
         super(delegate, transactionalAction, connectionReleaseListener, paramTypeResolverFactory);
+        this.statementCache = statementCache;
     }
 
     @Override
@@ -49,13 +59,13 @@ public class DefaultDbConnection extends AbstractDbConnection
     @Override
     public PreparedStatement prepareStatement(String sql) throws SQLException
     {
-        return delegate.prepareStatement(sql);
+        return statementCache == null ? delegate.prepareStatement(sql) : statementCache.prepareStatement(delegate, sql);
     }
 
     @Override
     public CallableStatement prepareCall(String sql) throws SQLException
     {
-        return delegate.prepareCall(sql);
+        return statementCache == null ? delegate.prepareCall(sql) : statementCache.prepareCall(delegate, sql);
     }
 
     @Override
@@ -91,6 +101,12 @@ public class DefaultDbConnection extends AbstractDbConnection
     @Override
     public void close() throws SQLException
     {
+        if (statementCache != null)
+        {
+            // The statements cannot outlive the connection handed out by the data source. Configs pooled by Mule
+            // cache them in the pooled connections instead, so they are reused after the connection is returned
+            statementCache.clear();
+        }
         delegate.close();
     }
 
@@ -163,13 +179,13 @@ public class DefaultDbConnection extends AbstractDbConnection
     @Override
     public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException
     {
-        return delegate.prepareStatement(sql, resultSetType, resultSetConcurrency);
+        return statementCache == null ? delegate.prepareStatement(sql, resultSetType, resultSetConcurrency) : statementCache.prepareStatement(delegate, sql, resultSetType, resultSetConcurrency);
     }
 
     @Override
     public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException
     {
-        return delegate.prepareCall(sql, resultSetType, resultSetConcurrency);
+        return statementCache == null ? delegate.prepareCall(sql, resultSetType, resultSetConcurrency) : statementCache.prepareCall(delegate, sql, resultSetType, resultSetConcurrency);
     }
 
     @Override
@@ -229,31 +245,31 @@ public class DefaultDbConnection extends AbstractDbConnection
     @Override
     public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException
     {
-        return delegate.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+        return statementCache == null ? delegate.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability) : statementCache.prepareStatement(delegate, sql, resultSetType, resultSetConcurrency, resultSetHoldability);
     }
 
     @Override
     public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException
     {
-        return delegate.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+        return statementCache == null ? delegate.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability) : statementCache.prepareCall(delegate, sql, resultSetType, resultSetConcurrency, resultSetHoldability);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException
     {
-        return delegate.prepareStatement(sql, autoGeneratedKeys);
+        return statementCache == null ? delegate.prepareStatement(sql, autoGeneratedKeys) : statementCache.prepareStatement(delegate, sql, autoGeneratedKeys);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException
     {
-        return delegate.prepareStatement(sql, columnIndexes);
+        return statementCache == null ? delegate.prepareStatement(sql, columnIndexes) : statementCache.prepareStatement(delegate, sql, columnIndexes);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException
     {
-        return delegate.prepareStatement(sql, columnNames);
+        return statementCache == null ? delegate.prepareStatement(sql, columnNames) : statementCache.prepareStatement(delegate, sql, columnNames);
     }
 
     @Override
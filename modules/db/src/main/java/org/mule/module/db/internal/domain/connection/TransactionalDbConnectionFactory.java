@@ -9,6 +9,8 @@ package org.mule.module.db.internal.domain.connection;
 
 import org.mule.api.transaction.Transaction;
 import org.mule.api.transaction.TransactionException;
+import org.mule.module.db.internal.domain.statement.StatementCache;
+import org.mule.module.db.internal.domain.statement.StatementCacheStatistics;
 import org.mule.module.db.internal.domain.transaction.DbTransactionManager;
 import org.mule.module.db.internal.domain.transaction.TransactionalAction;
 import org.mule.module.db.internal.domain.type.DbTypeManager;
@@ -16,9 +18,16 @@ import org.mule.module.db.internal.resolver.param.GenericParamTypeResolverFactor
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import javax.sql.DataSource;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -34,13 +43,46 @@ public class TransactionalDbConnectionFactory implements DbConnectionFactory
     protected final DbTypeManager dbTypeManager;
     private final ConnectionFactory connectionFactory;
     private final DataSource dataSource;
+    private final int statementCacheSize;
+    private final StatementCacheStatistics statementCacheStatistics;
+    private final Cache<Connection, StatementCache> statementCaches;
 
     public TransactionalDbConnectionFactory(DbTransactionManager dbTransactionManager, DbTypeManager dbTypeManager, ConnectionFactory connectionFactory, DataSource dataSource)
+    {
+        this(dbTransactionManager, dbTypeManager, connectionFactory, dataSource, 0, null);
+    }
+
+    /**
+     * @param statementCacheSize maximum amount of prepared statements cached per connection, 0 to disable the cache
+     * @param statementCacheStatistics where the statement caches are measured. Non null when the cache is enabled
+     */
+    public TransactionalDbConnectionFactory(DbTransactionManager dbTransactionManager, DbTypeManager dbTypeManager, ConnectionFactory connectionFactory, DataSource dataSource,
+                                            int statementCacheSize, StatementCacheStatistics statementCacheStatistics)
     {
         this.dbTransactionManager = dbTransactionManager;
         this.dbTypeManager = dbTypeManager;
         this.connectionFactory = connectionFactory;
         this.dataSource = dataSource;
+        this.statementCacheSize = statementCacheSize;
+        this.statementCacheStatistics = statementCacheStatistics;
+
+        if (statementCacheSize > 0)
+        {
+            // A connection gets a new DbConnection each time it is used, so the caches are kept by the underlying
+            // connection, which is the same for all the operations of a transaction
+            statementCaches = CacheBuilder.newBuilder().weakKeys().removalListener(new RemovalListener<Connection, StatementCache>()
+            {
+                @Override
+                public void onRemoval(RemovalNotification<Connection, StatementCache> notification)
+                {
+                    notification.getValue().clear();
+                }
+            }).build();
+        }
+        else
+        {
+            statementCaches = null;
+        }
     }
 
     @Override
@@ -101,7 +143,39 @@ public class TransactionalDbConnectionFactory implements DbConnectionFactory
 
     protected DbConnection doCreateDbConnection(Connection connection, TransactionalAction transactionalAction)
     {
-        return new DefaultDbConnection(connection, transactionalAction, new DefaultDbConnectionReleaser(this), new GenericParamTypeResolverFactory(dbTypeManager));
+        return new DefaultDbConnection(connection, transactionalAction, new DefaultDbConnectionReleaser(this), new GenericParamTypeResolverFactory(dbTypeManager), getStatementCache(connection));
+    }
+
+    private StatementCache getStatementCache(Connection connection)
+    {
+        if (statementCaches == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            return statementCaches.get(connection, new Callable<StatementCache>()
+            {
+                @Override
+                public StatementCache call() throws Exception
+                {
+                    return new StatementCache(statementCacheSize, statementCacheStatistics);
+                }
+            });
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("Cannot create statement cache", e);
+        }
+    }
+
+    /**
+     * @return the statistics of the statement caches, null if statements are not cached
+     */
+    public StatementCacheStatistics getStatementCacheStatistics()
+    {
+        return statementCacheStatistics;
     }
 
     private Connection getConnectionFromTransaction(Transaction tx, DataSource dataSource) throws SQLException
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.connection.pool;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Holds the entries of a pool, which are borrowed and returned without locking.
+ * <p/>
+ * Borrowing first looks for an available entry among the ones the current thread returned before, then
+ * looks in the list shared by all the threads and finally waits for an entry to be handed off by a
+ * thread returning one. The {@link Listener} is told when a thread has to wait, so new entries can be
+ * added to the bag.
+ */
+public class ConcurrentBag<T extends ConcurrentBag.Entry>
+{
+
+    private static final int MAX_THREAD_ENTRIES = 16;
+
+    private final CopyOnWriteArrayList<T> sharedEntries = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<List<WeakReference<T>>> threadEntries;
+    private final SynchronousQueue<T> handoffQueue = new SynchronousQueue<>(true);
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final Listener listener;
+    private volatile boolean closed;
+
+    public ConcurrentBag(Listener listener)
+    {
+        this.listener = listener;
+        this.threadEntries = new ThreadLocal<List<WeakReference<T>>>()
+        {
+            @Override
+            protected List<WeakReference<T>> initialValue()
+            {
+                return new ArrayList<>(MAX_THREAD_ENTRIES);
+            }
+        };
+    }
+
+    /**
+     * Borrows an available entry, waiting for one up to the given timeout
+     *
+     * @return the borrowed entry or null if none became available before the timeout
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public T borrow(long timeout, TimeUnit timeUnit) throws InterruptedException
+    {
+        // Entries are kept as weak references so threads that outlive the pool do not retain them
+        List<WeakReference<T>> ownEntries = threadEntries.get();
+        for (int i = ownEntries.size() - 1; i >= 0; i--)
+        {
+            T entry = ownEntries.remove(i).get();
+            if (entry != null && entry.compareAndSetState(Entry.NOT_IN_USE, Entry.IN_USE))
+            {
+                return entry;
+            }
+        }
+
+        int waiting = waiters.incrementAndGet();
+        try
+        {
+            for (T entry : sharedEntries)
+            {
+                if (entry.compareAndSetState(Entry.NOT_IN_USE, Entry.IN_USE))
+                {
+                    // Another thread may have been handed off the entry this one is taking
+                    if (waiting > 1)
+                    {
+                        listener.entryRequested(waiting - 1);
+                    }
+                    return entry;
+                }
+            }
+
+            listener.entryRequested(waiting);
+
+            long remaining = timeUnit.toNanos(timeout);
+            while (!closed && remaining > 0)
+            {
+                long start = System.nanoTime();
+                T entry = handoffQueue.poll(remaining, NANOSECONDS);
+                if (entry == null)
+                {
+                    return null;
+                }
+                if (entry.compareAndSetState(Entry.NOT_IN_USE, Entry.IN_USE))
+                {
+                    return entry;
+                }
+                remaining -= System.nanoTime() - start;
+            }
+
+            return null;
+        }
+        finally
+        {
+            waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns a borrowed entry to the bag, handing it off to a waiting thread if there is any
+     */
+    public void requite(T entry)
+    {
+        entry.setState(Entry.NOT_IN_USE);
+
+        for (int i = 0; waiters.get() > 0; i++)
+        {
+            if (entry.getState() != Entry.NOT_IN_USE || handoffQueue.offer(entry))
+            {
+                return;
+            }
+            if ((i & 0xff) == 0xff)
+            {
+                LockSupport.parkNanos(MICROSECONDS.toNanos(10));
+            }
+            else
+            {
+                Thread.yield();
+            }
+        }
+
+        List<WeakReference<T>> ownEntries = threadEntries.get();
+        if (ownEntries.size() < MAX_THREAD_ENTRIES)
+        {
+            ownEntries.add(new WeakReference<>(entry));
+        }
+    }
+
+    /**
+     * Adds a new available entry to the bag
+     */
+    public void add(T entry)
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("Bag is closed");
+        }
+
+        sharedEntries.add(entry);
+
+        while (waiters.get() > 0 && entry.getState() == Entry.NOT_IN_USE && !handoffQueue.offer(entry))
+        {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Removes an entry that was borrowed or reserved
+     *
+     * @return true if the entry was removed, false if it was not borrowed nor reserved
+     */
+    public boolean remove(T entry)
+    {
+        if (!entry.compareAndSetState(Entry.IN_USE, Entry.REMOVED) && !entry.compareAndSetState(Entry.RESERVED, Entry.REMOVED))
+        {
+            return false;
+        }
+
+        return sharedEntries.remove(entry);
+    }
+
+    /**
+     * Reserves an available entry so it cannot be borrowed, for example to remove it from the bag
+     *
+     * @return true if the entry was reserved
+     */
+    public boolean reserve(T entry)
+    {
+        return entry.compareAndSetState(Entry.NOT_IN_USE, Entry.RESERVED);
+    }
+
+    /**
+     * Makes a reserved entry available again
+     */
+    public void unreserve(T entry)
+    {
+        if (entry.compareAndSetState(Entry.RESERVED, Entry.NOT_IN_USE))
+        {
+            requite(entry);
+        }
+    }
+
+    /**
+     * @return a snapshot of the entries in the given state
+     */
+    public List<T> values(int state)
+    {
+        List<T> values = new ArrayList<>();
+        for (T entry : sharedEntries)
+        {
+            if (entry.getState() == state)
+            {
+                values.add(entry);
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * @return a snapshot of all the entries
+     */
+    public List<T> values()
+    {
+        return new ArrayList<>(sharedEntries);
+    }
+
+    public int getCount(int state)
+    {
+        int count = 0;
+        for (T entry : sharedEntries)
+        {
+            if (entry.getState() == state)
+            {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    public int size()
+    {
+        return sharedEntries.size();
+    }
+
+    public int getWaitingThreadCount()
+    {
+        return waiters.get();
+    }
+
+    /**
+     * Stops handing entries to waiting threads and rejects new entries
+     */
+    public void close()
+    {
+        closed = true;
+    }
+
+    /**
+     * Notified when a thread could not find an available entry
+     */
+    public interface Listener
+    {
+
+        /**
+         * @param waiting number of threads currently waiting for an entry
+         */
+        void entryRequested(int waiting);
+    }
+
+    /**
+     * Element of a {@link ConcurrentBag}, which keeps its state so it can be borrowed without locking
+     */
+    public abstract static class Entry
+    {
+
+        public static final int NOT_IN_USE = 0;
+        public static final int IN_USE = 1;
+        public static final int REMOVED = -1;
+        public static final int RESERVED = -2;
+
+        private static final AtomicIntegerFieldUpdater<Entry> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        private volatile int state;
+
+        public int getState()
+        {
+            return state;
+        }
+
+        void setState(int state)
+        {
+            this.state = state;
+        }
+
+        boolean compareAndSetState(int expected, int state)
+        {
+            return STATE_UPDATER.compareAndSet(this, expected, state);
+        }
+    }
+}
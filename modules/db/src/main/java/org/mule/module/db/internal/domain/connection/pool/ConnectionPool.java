@@ -0,0 +1,496 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.connection.pool;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import org.mule.api.lifecycle.Disposable;
+import org.mule.module.db.internal.domain.connection.DbPoolingProfile;
+import org.mule.module.db.internal.domain.statement.StatementCache;
+import org.mule.module.db.internal.domain.statement.StatementCacheStatistics;
+import org.mule.util.concurrent.NamedThreadFactory;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link DataSource} that pools the connections of another, non XA, data source.
+ * <p/>
+ * Connections are kept in a {@link ConcurrentBag}, so borrowing and returning them does not lock.
+ * New connections are opened by a background thread when a borrowing thread finds none available, up to
+ * the maximum size of the {@link DbPoolingProfile}. The same thread periodically closes connections idle
+ * longer than the idle timeout, keeping at least the minimum size, and reports connections borrowed for
+ * longer than the leak detection threshold.
+ * <p/>
+ * Connections idle for a while are validated with {@link Connection#isValid(int)} before being handed
+ * out. Connections returned with a pending transaction are rolled back and their auto commit, isolation,
+ * read only and catalog settings are restored.
+ */
+public class ConnectionPool implements DataSource, Disposable, ConcurrentBag.Listener
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private static final long VALIDATION_BYPASS_NANOS = MILLISECONDS.toNanos(500);
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 30000;
+    private static final long MIN_HOUSEKEEPING_PERIOD_MILLIS = 100;
+    private static final long CREATION_RETRY_DELAY_MILLIS = 500;
+
+    private final String name;
+    private final DataSource dataSource;
+    private final DbPoolingProfile poolingProfile;
+    private final ConcurrentBag<PoolEntry> bag;
+    private final ConnectionPoolStatistics statistics;
+    private final StatementCacheStatistics statementCacheStatistics;
+    private final ScheduledThreadPoolExecutor executor;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger pendingConnections = new AtomicInteger();
+    private volatile Exception lastCreationFailure;
+    private volatile boolean closed;
+
+    public ConnectionPool(String name, DataSource dataSource, DbPoolingProfile poolingProfile)
+    {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.poolingProfile = poolingProfile;
+        this.bag = new ConcurrentBag<>(this);
+        this.statistics = new ConnectionPoolStatistics(this);
+        int statementCacheSize = poolingProfile.getPreparedStatementCacheSize();
+        this.statementCacheStatistics = statementCacheSize > 0 ? new StatementCacheStatistics(statementCacheSize) : null;
+
+        this.executor = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory(format("%s.pool", name), Thread.currentThread().getContextClassLoader())
+        {
+            @Override
+            protected void doConfigureThread(Thread t)
+            {
+                super.doConfigureThread(t);
+                t.setDaemon(true);
+            }
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+
+        long housekeepingPeriod = HOUSEKEEPING_PERIOD_MILLIS;
+        if (poolingProfile.getLeakDetectionThresholdMillis() > 0)
+        {
+            housekeepingPeriod = Math.max(MIN_HOUSEKEEPING_PERIOD_MILLIS, Math.min(housekeepingPeriod, poolingProfile.getLeakDetectionThresholdMillis() / 2));
+        }
+        executor.scheduleWithFixedDelay(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                houseKeep();
+            }
+        }, housekeepingPeriod, housekeepingPeriod, MILLISECONDS);
+
+        fillPool();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException
+    {
+        if (closed)
+        {
+            throw new SQLException(format("Connection pool %s is closed", name));
+        }
+
+        long start = System.nanoTime();
+        long timeout = poolingProfile.getMaxWaitMillis() <= 0 ? Long.MAX_VALUE : MILLISECONDS.toNanos(poolingProfile.getMaxWaitMillis());
+        long remaining = timeout;
+        try
+        {
+            while (remaining > 0)
+            {
+                PoolEntry entry = bag.borrow(remaining, NANOSECONDS);
+                if (entry == null)
+                {
+                    break;
+                }
+
+                long now = System.nanoTime();
+                if (now - entry.lastAccessed > VALIDATION_BYPASS_NANOS && !isValid(entry))
+                {
+                    statistics.validationFailed();
+                    closeEntry(entry);
+                }
+                else
+                {
+                    entry.borrowed(poolingProfile.getLeakDetectionThresholdMillis() > 0);
+                    statistics.borrowed(now - start);
+
+                    return PooledConnectionHandler.createProxy(this, entry);
+                }
+
+                remaining = timeout - (System.nanoTime() - start);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SQLException(format("Interrupted while waiting for a connection from pool %s", name), e);
+        }
+
+        statistics.borrowTimedOut();
+        throw new SQLTransientConnectionException(format("Timed out after %d ms waiting for a connection from pool %s",
+                                                         NANOSECONDS.toMillis(System.nanoTime() - start), name), lastCreationFailure);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException
+    {
+        throw new SQLFeatureNotSupportedException("Pooled connections cannot be requested for a different user");
+    }
+
+    private boolean isValid(PoolEntry entry)
+    {
+        try
+        {
+            return entry.connection.isValid(poolingProfile.getValidationTimeoutSeconds());
+        }
+        catch (SQLException e)
+        {
+            return false;
+        }
+        catch (AbstractMethodError e)
+        {
+            // Driver not implementing JDBC 4
+            try
+            {
+                return !entry.connection.isClosed();
+            }
+            catch (SQLException closedException)
+            {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Returns a connection to the pool
+     *
+     * @param entry connection being returned
+     * @param reusable false when the connection failed and must be closed
+     */
+    void release(PoolEntry entry, boolean reusable)
+    {
+        entry.returned();
+
+        if (!reusable || closed)
+        {
+            closeEntry(entry);
+        }
+        else
+        {
+            bag.requite(entry);
+        }
+    }
+
+    void logResetFailure(SQLException e)
+    {
+        logger.debug("Error resetting pooled connection, it will be closed", e);
+    }
+
+    @Override
+    public void entryRequested(int waiting)
+    {
+        int wanted = Math.max(waiting, poolingProfile.getAcquireIncrement());
+        while (pendingConnections.get() < wanted && addConnection())
+        {
+            // Keeps adding connections until there is one on the way for each waiting thread
+        }
+    }
+
+    private void fillPool()
+    {
+        while (totalConnections.get() < poolingProfile.getMinPoolSize() && addConnection())
+        {
+            // Keeps adding connections until reaching the minimum size
+        }
+    }
+
+    private boolean addConnection()
+    {
+        int total;
+        do
+        {
+            total = totalConnections.get();
+            if (closed || total >= poolingProfile.getMaxPoolSize())
+            {
+                return false;
+            }
+        }
+        while (!totalConnections.compareAndSet(total, total + 1));
+
+        pendingConnections.incrementAndGet();
+        try
+        {
+            executor.execute(new ConnectionCreator());
+            return true;
+        }
+        catch (RejectedExecutionException e)
+        {
+            pendingConnections.decrementAndGet();
+            totalConnections.decrementAndGet();
+            return false;
+        }
+    }
+
+    private void closeEntry(PoolEntry entry)
+    {
+        if (!bag.remove(entry))
+        {
+            return;
+        }
+        totalConnections.decrementAndGet();
+        statistics.connectionClosed();
+
+        if (entry.statementCache != null)
+        {
+            entry.statementCache.clear();
+        }
+        closeQuietly(entry.connection);
+    }
+
+    private void closeQuietly(Connection connection)
+    {
+        try
+        {
+            connection.close();
+        }
+        catch (SQLException e)
+        {
+            logger.debug("Error closing pooled connection", e);
+        }
+    }
+
+    private void houseKeep()
+    {
+        long now = System.nanoTime();
+
+        long leakThreshold = MILLISECONDS.toNanos(poolingProfile.getLeakDetectionThresholdMillis());
+        if (leakThreshold > 0)
+        {
+            for (PoolEntry entry : bag.values(ConcurrentBag.Entry.IN_USE))
+            {
+                if (!entry.leakReported && now - entry.borrowedAt > leakThreshold)
+                {
+                    Throwable borrowTrace = entry.borrowTrace;
+                    if (borrowTrace != null)
+                    {
+                        entry.leakReported = true;
+                        statistics.leakDetected();
+                        logger.warn(format("Connection %s of pool %s was borrowed %d ms ago and was not returned yet, it may have been leaked",
+                                           entry.connection, name, NANOSECONDS.toMillis(now - entry.borrowedAt)), borrowTrace);
+                    }
+                }
+            }
+        }
+
+        long idleTimeout = MILLISECONDS.toNanos(poolingProfile.getIdleTimeoutMillis());
+        if (idleTimeout > 0)
+        {
+            for (PoolEntry entry : bag.values(ConcurrentBag.Entry.NOT_IN_USE))
+            {
+                if (totalConnections.get() <= poolingProfile.getMinPoolSize())
+                {
+                    break;
+                }
+                if (now - entry.lastAccessed > idleTimeout && bag.reserve(entry))
+                {
+                    closeEntry(entry);
+                }
+            }
+        }
+
+        fillPool();
+    }
+
+    @Override
+    public void dispose()
+    {
+        closed = true;
+        bag.close();
+        executor.shutdownNow();
+
+        for (PoolEntry entry : bag.values())
+        {
+            // Borrowed connections are closed when they are returned
+            if (bag.reserve(entry))
+            {
+                closeEntry(entry);
+            }
+        }
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public DbPoolingProfile getPoolingProfile()
+    {
+        return poolingProfile;
+    }
+
+    public ConnectionPoolStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    /**
+     * @return the statistics of the statements cached by the pooled connections, null if statements are not cached
+     */
+    public StatementCacheStatistics getStatementCacheStatistics()
+    {
+        return statementCacheStatistics;
+    }
+
+    ConcurrentBag<PoolEntry> getBag()
+    {
+        return bag;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException
+    {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException
+    {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException
+    {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException
+    {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException
+    {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException
+    {
+        if (iface.isInstance(this))
+        {
+            return iface.cast(this);
+        }
+
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException
+    {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+
+    /**
+     * Opens a connection and adds it to the pool. Retries while there are threads waiting for it.
+     */
+    private class ConnectionCreator implements Runnable
+    {
+
+        @Override
+        public void run()
+        {
+            PoolEntry entry;
+            try
+            {
+                entry = createEntry();
+            }
+            catch (Exception e)
+            {
+                lastCreationFailure = e;
+                logger.debug(format("Error opening connection for pool %s", name), e);
+
+                if (closed || bag.getWaitingThreadCount() == 0 || !retry())
+                {
+                    totalConnections.decrementAndGet();
+                    pendingConnections.decrementAndGet();
+                }
+                return;
+            }
+
+            // No longer pending before being added, so a thread borrowing it right away can ask for another one
+            pendingConnections.decrementAndGet();
+            statistics.connectionCreated();
+            lastCreationFailure = null;
+            try
+            {
+                bag.add(entry);
+            }
+            catch (IllegalStateException e)
+            {
+                // Pool was closed while the connection was being opened
+                closeQuietly(entry.connection);
+                totalConnections.decrementAndGet();
+                statistics.connectionClosed();
+                return;
+            }
+
+            if (closed && bag.reserve(entry))
+            {
+                closeEntry(entry);
+            }
+        }
+
+        private PoolEntry createEntry() throws SQLException
+        {
+            Connection connection = dataSource.getConnection();
+            try
+            {
+                StatementCache statementCache = statementCacheStatistics == null ? null : new StatementCache(poolingProfile.getPreparedStatementCacheSize(), statementCacheStatistics);
+
+                return new PoolEntry(connection, statementCache);
+            }
+            catch (SQLException e)
+            {
+                closeQuietly(connection);
+                throw e;
+            }
+        }
+
+        private boolean retry()
+        {
+            try
+            {
+                executor.schedule(this, CREATION_RETRY_DELAY_MILLIS, MILLISECONDS);
+                return true;
+            }
+            catch (RejectedExecutionException e)
+            {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.connection.pool;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of a {@link ConnectionPool}
+ */
+public class ConnectionPoolStatistics implements ConnectionPoolStatisticsMBean
+{
+
+    private final ConnectionPool pool;
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong borrowWaitNanos = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong connectionsCreated = new AtomicLong();
+    private final AtomicLong connectionsClosed = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+
+    ConnectionPoolStatistics(ConnectionPool pool)
+    {
+        this.pool = pool;
+    }
+
+    void borrowed(long waitNanos)
+    {
+        borrows.incrementAndGet();
+        borrowWaitNanos.addAndGet(waitNanos);
+    }
+
+    void borrowTimedOut()
+    {
+        borrowTimeouts.incrementAndGet();
+    }
+
+    void connectionCreated()
+    {
+        connectionsCreated.incrementAndGet();
+    }
+
+    void connectionClosed()
+    {
+        connectionsClosed.incrementAndGet();
+    }
+
+    void validationFailed()
+    {
+        validationFailures.incrementAndGet();
+    }
+
+    void leakDetected()
+    {
+        leaksDetected.incrementAndGet();
+    }
+
+    @Override
+    public int getMaxPoolSize()
+    {
+        return pool.getPoolingProfile().getMaxPoolSize();
+    }
+
+    @Override
+    public int getMinPoolSize()
+    {
+        return pool.getPoolingProfile().getMinPoolSize();
+    }
+
+    @Override
+    public int getTotalConnections()
+    {
+        return pool.getBag().size();
+    }
+
+    @Override
+    public int getActiveConnections()
+    {
+        return pool.getBag().getCount(ConcurrentBag.Entry.IN_USE);
+    }
+
+    @Override
+    public int getIdleConnections()
+    {
+        return pool.getBag().getCount(ConcurrentBag.Entry.NOT_IN_USE);
+    }
+
+    @Override
+    public int getThreadsAwaitingConnection()
+    {
+        return pool.getBag().getWaitingThreadCount();
+    }
+
+    @Override
+    public long getBorrows()
+    {
+        return borrows.get();
+    }
+
+    @Override
+    public double getAverageBorrowWaitMillis()
+    {
+        long count = borrows.get();
+        return count == 0 ? 0 : (double) NANOSECONDS.toMicros(borrowWaitNanos.get()) / 1000 / count;
+    }
+
+    @Override
+    public long getBorrowTimeouts()
+    {
+        return borrowTimeouts.get();
+    }
+
+    @Override
+    public long getConnectionsCreated()
+    {
+        return connectionsCreated.get();
+    }
+
+    @Override
+    public long getConnectionsClosed()
+    {
+        return connectionsClosed.get();
+    }
+
+    @Override
+    public long getValidationFailures()
+    {
+        return validationFailures.get();
+    }
+
+    @Override
+    public long getLeaksDetected()
+    {
+        return leaksDetected.get();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.connection.pool;
+
+/**
+ * JMX view of a {@link ConnectionPool}. Registered as
+ * {@code Mule.<application>:type=DbConnectionPool,name=<config name>}.
+ */
+public interface ConnectionPoolStatisticsMBean
+{
+
+    String JMX_TYPE = "DbConnectionPool";
+
+    /**
+     * @return the maximum amount of connections of the pool
+     */
+    int getMaxPoolSize();
+
+    /**
+     * @return the amount of connections the pool keeps even when idle
+     */
+    int getMinPoolSize();
+
+    /**
+     * @return the amount of open connections, borrowed or idle
+     */
+    int getTotalConnections();
+
+    /**
+     * @return the amount of borrowed connections
+     */
+    int getActiveConnections();
+
+    /**
+     * @return the amount of connections available to be borrowed
+     */
+    int getIdleConnections();
+
+    /**
+     * @return the amount of threads that could not find an available connection and are waiting for one
+     */
+    int getThreadsAwaitingConnection();
+
+    /**
+     * @return the amount of connections borrowed from the pool
+     */
+    long getBorrows();
+
+    /**
+     * @return the average time, in milliseconds, threads waited to borrow a connection
+     */
+    double getAverageBorrowWaitMillis();
+
+    /**
+     * @return the amount of times a thread gave up waiting for a connection
+     */
+    long getBorrowTimeouts();
+
+    /**
+     * @return the amount of physical connections opened
+     */
+    long getConnectionsCreated();
+
+    /**
+     * @return the amount of physical connections closed, because they failed, were idle or the pool was closed
+     */
+    long getConnectionsClosed();
+
+    /**
+     * @return the amount of idle connections found invalid when borrowed
+     */
+    long getValidationFailures();
+
+    /**
+     * @return the amount of connections held longer than the leak detection threshold
+     */
+    long getLeaksDetected();
+}
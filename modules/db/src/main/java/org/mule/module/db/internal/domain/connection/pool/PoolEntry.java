@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.connection.pool;
+
+import org.mule.module.db.internal.domain.statement.StatementCache;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Physical connection held by a {@link ConnectionPool}, along with the state the pool needs to reset,
+ * validate and trim it
+ */
+class PoolEntry extends ConcurrentBag.Entry
+{
+
+    final Connection connection;
+    final StatementCache statementCache;
+    final boolean autoCommit;
+    final int transactionIsolation;
+    final boolean readOnly;
+    final String catalog;
+
+    volatile long lastAccessed;
+    volatile long borrowedAt;
+    volatile Throwable borrowTrace;
+    volatile boolean leakReported;
+
+    PoolEntry(Connection connection, StatementCache statementCache) throws SQLException
+    {
+        this.connection = connection;
+        this.statementCache = statementCache;
+        this.autoCommit = connection.getAutoCommit();
+        this.transactionIsolation = connection.getTransactionIsolation();
+        this.readOnly = connection.isReadOnly();
+        this.catalog = connection.getCatalog();
+        this.lastAccessed = System.nanoTime();
+    }
+
+    void borrowed(boolean traceBorrow)
+    {
+        borrowedAt = System.nanoTime();
+        borrowTrace = traceBorrow ? new Throwable("Connection borrowed here") : null;
+        leakReported = false;
+    }
+
+    void returned()
+    {
+        lastAccessed = System.nanoTime();
+        borrowTrace = null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PoolEntry{connection=" + connection + ", state=" + getState() + "}";
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.connection.pool;
+
+import org.mule.module.db.internal.domain.statement.StatementCache;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wrapper handed out by a {@link ConnectionPool} for each borrow of a pooled connection. Closing it
+ * returns the connection to the pool, after undoing the changes done to it while borrowed.
+ */
+class PooledConnectionHandler implements InvocationHandler
+{
+
+    private static final String CONNECTION_EXCEPTION_SQL_STATE_CLASS = "08";
+    private static final ConcurrentMap<Method, Method> statementCacheMethods = new ConcurrentHashMap<>();
+
+    private final ConnectionPool pool;
+    private final PoolEntry entry;
+    private boolean closed;
+    private boolean broken;
+    private boolean autoCommitChanged;
+    private boolean transactionIsolationChanged;
+    private boolean readOnlyChanged;
+    private boolean catalogChanged;
+
+    PooledConnectionHandler(ConnectionPool pool, PoolEntry entry)
+    {
+        this.pool = pool;
+        this.entry = entry;
+    }
+
+    static Connection createProxy(ConnectionPool pool, PoolEntry entry)
+    {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[] {Connection.class},
+                                                   new PooledConnectionHandler(pool, entry));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+    {
+        String name = method.getName();
+
+        if (name.equals("close"))
+        {
+            close();
+            return null;
+        }
+        if (name.equals("isClosed"))
+        {
+            return closed || entry.connection.isClosed();
+        }
+        if (name.equals("equals"))
+        {
+            return proxy == args[0];
+        }
+        if (name.equals("hashCode"))
+        {
+            return System.identityHashCode(proxy);
+        }
+        if (name.equals("toString"))
+        {
+            return "Pooled " + entry.connection;
+        }
+        if (closed)
+        {
+            throw new SQLException("Connection is closed");
+        }
+
+        trackChange(name);
+
+        try
+        {
+            if (entry.statementCache != null && (name.equals("prepareStatement") || name.equals("prepareCall")))
+            {
+                return prepare(method, args);
+            }
+
+            return method.invoke(entry.connection, args);
+        }
+        catch (InvocationTargetException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException && isConnectionException((SQLException) cause))
+            {
+                broken = true;
+            }
+            throw cause;
+        }
+    }
+
+    private void trackChange(String name)
+    {
+        if (name.equals("setAutoCommit"))
+        {
+            autoCommitChanged = true;
+        }
+        else if (name.equals("setTransactionIsolation"))
+        {
+            transactionIsolationChanged = true;
+        }
+        else if (name.equals("setReadOnly"))
+        {
+            readOnlyChanged = true;
+        }
+        else if (name.equals("setCatalog"))
+        {
+            catalogChanged = true;
+        }
+    }
+
+    private Object prepare(Method method, Object[] args) throws Throwable
+    {
+        Method cacheMethod = statementCacheMethods.get(method);
+        if (cacheMethod == null)
+        {
+            Class<?>[] parameterTypes = new Class<?>[method.getParameterTypes().length + 1];
+            parameterTypes[0] = Connection.class;
+            System.arraycopy(method.getParameterTypes(), 0, parameterTypes, 1, method.getParameterTypes().length);
+            cacheMethod = StatementCache.class.getMethod(method.getName(), parameterTypes);
+            statementCacheMethods.putIfAbsent(method, cacheMethod);
+        }
+
+        Object[] cacheArgs = new Object[args.length + 1];
+        cacheArgs[0] = entry.connection;
+        System.arraycopy(args, 0, cacheArgs, 1, args.length);
+
+        return cacheMethod.invoke(entry.statementCache, cacheArgs);
+    }
+
+    private boolean isConnectionException(SQLException e)
+    {
+        return e.getSQLState() != null && e.getSQLState().startsWith(CONNECTION_EXCEPTION_SQL_STATE_CLASS);
+    }
+
+    private void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+
+        pool.release(entry, !broken && reset());
+    }
+
+    private boolean reset()
+    {
+        Connection connection = entry.connection;
+        try
+        {
+            if (connection.isClosed())
+            {
+                return false;
+            }
+            if (!connection.getAutoCommit())
+            {
+                connection.rollback();
+            }
+            if (autoCommitChanged)
+            {
+                connection.setAutoCommit(entry.autoCommit);
+            }
+            if (transactionIsolationChanged)
+            {
+                connection.setTransactionIsolation(entry.transactionIsolation);
+            }
+            if (readOnlyChanged)
+            {
+                connection.setReadOnly(entry.readOnly);
+            }
+            if (catalogChanged && entry.catalog != null)
+            {
+                connection.setCatalog(entry.catalog);
+            }
+            connection.clearWarnings();
+
+            return true;
+        }
+        catch (SQLException e)
+        {
+            pool.logResetFailure(e);
+
+            return false;
+        }
+    }
+}
@@ -8,6 +8,7 @@
 package org.mule.module.db.internal.domain.database;
 
 import org.mule.api.retry.RetryPolicyTemplate;
+import org.mule.module.db.internal.domain.statement.StatementCacheStatistics;
 import org.mule.module.db.internal.domain.type.DbType;
 
 import java.util.List;
@@ -30,4 +31,17 @@ public interface ConfigurableDbConfigFactory extends DbConfigFactory
      * @param retryPolicyTemplate retry policety template. Can be null.
      */
     void setRetryPolicyTemplate(RetryPolicyTemplate retryPolicyTemplate);
+
+    /**
+     * Sets the maximum amount of prepared statements cached per connection of the created {@link DbConfig}
+     *
+     * @param statementCacheSize amount of statements, 0 to not cache them
+     */
+    void setStatementCacheSize(int statementCacheSize);
+
+    /**
+     * @return the statistics shared by the statement caches of the created {@link DbConfig}, null if
+     * statements are not cached
+     */
+    StatementCacheStatistics getStatementCacheStatistics();
 }
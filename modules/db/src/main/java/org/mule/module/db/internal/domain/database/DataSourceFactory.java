@@ -10,17 +10,25 @@ package org.mule.module.db.internal.domain.database;
 import org.mule.api.MuleContext;
 import org.mule.api.context.MuleContextAware;
 import org.mule.api.lifecycle.Disposable;
+import org.mule.management.stats.StatisticsMBeanRegistrar;
+import org.mule.module.db.internal.domain.connection.DbPoolType;
 import org.mule.module.db.internal.domain.connection.DbPoolingProfile;
+import org.mule.module.db.internal.domain.connection.pool.ConnectionPool;
+import org.mule.module.db.internal.domain.connection.pool.ConnectionPoolStatisticsMBean;
+import org.mule.module.db.internal.domain.statement.PooledDataSourceStatementCacheStatistics;
+import org.mule.module.db.internal.domain.statement.StatementCacheStatisticsMBean;
 import org.mule.module.db.internal.domain.xa.CompositeDataSourceDecorator;
 import org.mule.util.concurrent.ConcurrentHashSet;
 
 import com.mchange.v2.c3p0.DataSources;
+import com.mchange.v2.c3p0.PooledDataSource;
 
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import javax.management.ObjectName;
 import javax.sql.DataSource;
 
 import org.enhydra.jdbc.standard.StandardDataSource;
@@ -39,6 +47,7 @@ public class DataSourceFactory implements MuleContextAware, Disposable
     private final String name;
     private final Set<DataSource> pooledDataSources = new ConcurrentHashSet();
     private final Set<Disposable> disposableDataSources = new ConcurrentHashSet();
+    private final Set<ObjectName> registeredMBeans = new ConcurrentHashSet();
     private MuleContext muleContext;
 
     public DataSourceFactory(String name)
@@ -77,8 +86,14 @@ public class DataSourceFactory implements MuleContextAware, Disposable
             dataSource = decorateDataSource(dataSource, dataSourceConfig.getPoolingProfile(), getMuleContext());
         }
 
-        if (!(dataSourceConfig.getPoolingProfile() == null || dataSourceConfig.isUseXaTransactions()))
+        if (dataSource instanceof ConnectionPool)
         {
+            registerPoolStatistics((ConnectionPool) dataSource);
+            disposableDataSources.add((Disposable) dataSource);
+        }
+        else if (!(dataSourceConfig.getPoolingProfile() == null || dataSourceConfig.isUseXaTransactions()))
+        {
+            registerStatementCacheStatistics(dataSource, dataSourceConfig.getPoolingProfile());
             pooledDataSources.add(dataSource);
         }
         else if (dataSource instanceof Disposable)
@@ -119,12 +134,21 @@ public class DataSourceFactory implements MuleContextAware, Disposable
         {
             return createSingleDataSource(dataSourceConfig);
         }
+        else if (dataSourceConfig.getPoolingProfile().getPoolType() == DbPoolType.CONCURRENT_BAG)
+        {
+            return createConnectionPool(createSingleDataSource(dataSourceConfig), dataSourceConfig.getPoolingProfile());
+        }
         else
         {
             return createPooledStandardDataSource(createSingleDataSource(dataSourceConfig), dataSourceConfig.getPoolingProfile());
         }
     }
 
+    protected DataSource createConnectionPool(DataSource dataSource, DbPoolingProfile poolingProfile)
+    {
+        return new ConnectionPool(name, dataSource, poolingProfile);
+    }
+
     protected DataSource createPooledStandardDataSource(DataSource dataSource, DbPoolingProfile poolingProfile) throws SQLException
     {
         Map<String, Object> config = new HashMap<>();
@@ -139,9 +163,46 @@ public class DataSourceFactory implements MuleContextAware, Disposable
         return DataSources.pooledDataSource(dataSource, config);
     }
 
+    private void registerPoolStatistics(ConnectionPool pool)
+    {
+        if (muleContext == null)
+        {
+            return;
+        }
+        // Dynamic configs create a pool for each resolved data source config, the registrar gives each a unique name
+        registerStatistics(ConnectionPoolStatisticsMBean.JMX_TYPE, pool.getStatistics());
+        if (pool.getStatementCacheStatistics() != null)
+        {
+            registerStatistics(StatementCacheStatisticsMBean.JMX_TYPE, pool.getStatementCacheStatistics());
+        }
+    }
+
+    private void registerStatementCacheStatistics(DataSource dataSource, DbPoolingProfile poolingProfile)
+    {
+        if (muleContext != null && dataSource instanceof PooledDataSource && poolingProfile.getPreparedStatementCacheSize() > 0)
+        {
+            registerStatistics(StatementCacheStatisticsMBean.JMX_TYPE, new PooledDataSourceStatementCacheStatistics((PooledDataSource) dataSource, poolingProfile.getPreparedStatementCacheSize()));
+        }
+    }
+
+    private void registerStatistics(String type, Object statistics)
+    {
+        ObjectName objectName = StatisticsMBeanRegistrar.register(muleContext, type, name, statistics);
+        if (objectName != null)
+        {
+            registeredMBeans.add(objectName);
+        }
+    }
+
     @Override
     public void dispose()
     {
+        for (ObjectName registeredMBean : registeredMBeans)
+        {
+            StatisticsMBeanRegistrar.unregister(registeredMBean);
+        }
+        registeredMBeans.clear();
+
         for (DataSource pooledDataSource : pooledDataSources)
         {
             try
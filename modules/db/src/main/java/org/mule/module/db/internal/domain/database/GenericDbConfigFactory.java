@@ -16,6 +16,7 @@ import org.mule.module.db.internal.domain.connection.DbConnectionFactory;
 import org.mule.module.db.internal.domain.connection.RetryConnectionFactory;
 import org.mule.module.db.internal.domain.connection.SimpleConnectionFactory;
 import org.mule.module.db.internal.domain.connection.TransactionalDbConnectionFactory;
+import org.mule.module.db.internal.domain.statement.StatementCacheStatistics;
 import org.mule.module.db.internal.domain.transaction.TransactionCoordinationDbTransactionManager;
 import org.mule.module.db.internal.domain.type.CompositeDbTypeManager;
 import org.mule.module.db.internal.domain.type.DbType;
@@ -67,6 +68,8 @@ public class GenericDbConfigFactory implements ConfigurableDbConfigFactory
 
     private List<DbType> customDataTypes;
     private RetryPolicyTemplate retryPolicyTemplate;
+    private int statementCacheSize;
+    private StatementCacheStatistics statementCacheStatistics;
 
     @Override
     public DbConfig create(String name, Map<QName, Object> annotations, DataSource dataSource)
@@ -85,7 +88,8 @@ public class GenericDbConfigFactory implements ConfigurableDbConfigFactory
 
         DbTypeManager dbTypeManager = doCreateTypeManager();
 
-        DbConnectionFactory dbConnectionFactory = new TransactionalDbConnectionFactory(new TransactionCoordinationDbTransactionManager(), dbTypeManager, connectionFactory, dataSource);
+        DbConnectionFactory dbConnectionFactory = new TransactionalDbConnectionFactory(new TransactionCoordinationDbTransactionManager(), dbTypeManager, connectionFactory, dataSource,
+                                                                                       statementCacheSize, statementCacheStatistics);
 
         return doCreateDbConfig(dataSource, dbTypeManager, dbConnectionFactory, name);
     }
@@ -131,4 +135,15 @@ public class GenericDbConfigFactory implements ConfigurableDbConfigFactory
     {
         this.retryPolicyTemplate = retryPolicyTemplate;
     }
+
+    public void setStatementCacheSize(int statementCacheSize)
+    {
+        this.statementCacheSize = statementCacheSize;
+        this.statementCacheStatistics = statementCacheSize > 0 ? new StatementCacheStatistics(statementCacheSize) : null;
+    }
+
+    public StatementCacheStatistics getStatementCacheStatistics()
+    {
+        return statementCacheStatistics;
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.statement;
+
+import com.mchange.v2.c3p0.PooledDataSource;
+
+import java.sql.SQLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Statistics of the statement cache of a c3p0 {@link PooledDataSource}. c3p0 only reports the statements it
+ * keeps, so the counters it does not track are reported as {@link #NOT_COUNTED}. Extends
+ * {@link StatementCacheStatistics} so it is exposed with the same {@link StatementCacheStatisticsMBean} interface.
+ */
+public class PooledDataSourceStatementCacheStatistics extends StatementCacheStatistics
+{
+
+    public static final int NOT_COUNTED = -1;
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledDataSourceStatementCacheStatistics.class);
+
+    private final PooledDataSource dataSource;
+
+    public PooledDataSourceStatementCacheStatistics(PooledDataSource dataSource, int maxStatementsPerConnection)
+    {
+        super(maxStatementsPerConnection);
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public int getCachedStatements()
+    {
+        try
+        {
+            return dataSource.getStatementCacheNumStatementsAllUsers();
+        }
+        catch (SQLException e)
+        {
+            logger.debug("Could not read the statement cache of the pooled data source", e);
+            return NOT_COUNTED;
+        }
+    }
+
+    @Override
+    public long getHits()
+    {
+        return NOT_COUNTED;
+    }
+
+    @Override
+    public long getMisses()
+    {
+        return NOT_COUNTED;
+    }
+
+    @Override
+    public double getHitRatio()
+    {
+        return NOT_COUNTED;
+    }
+
+    @Override
+    public long getEvictions()
+    {
+        return NOT_COUNTED;
+    }
+}
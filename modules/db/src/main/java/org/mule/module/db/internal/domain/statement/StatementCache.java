@@ -0,0 +1,488 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.statement;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Keeps the prepared and callable statements of a connection open after they are closed, so preparing the
+ * same SQL with the same options again reuses them instead of having the database parse it again.
+ * <p/>
+ * Statements are handed out wrapped, closing the wrapper returns the statement to the cache after clearing
+ * its parameters and restoring the options that were changed. A statement is used by only one caller at a
+ * time, preparing a statement that is already in use creates a new one. When the cache is full the least
+ * recently used idle statement is closed.
+ */
+public class StatementCache
+{
+
+    private static final Log logger = LogFactory.getLog(StatementCache.class);
+
+    private static final int UNSPECIFIED = Integer.MIN_VALUE;
+
+    private final int maxSize;
+    private final StatementCacheStatistics statistics;
+    private final LinkedHashMap<StatementKey, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param maxSize maximum amount of statements kept open. Must be positive
+     * @param statistics where the hits and misses of the cache are counted. Non null
+     */
+    public StatementCache(int maxSize, StatementCacheStatistics statistics)
+    {
+        this.maxSize = maxSize;
+        this.statistics = statistics;
+    }
+
+    public PreparedStatement prepareStatement(Connection connection, String sql) throws SQLException
+    {
+        return prepare(connection, new StatementKey(false, sql, UNSPECIFIED, UNSPECIFIED, UNSPECIFIED, UNSPECIFIED, null, null));
+    }
+
+    public PreparedStatement prepareStatement(Connection connection, String sql, int autoGeneratedKeys) throws SQLException
+    {
+        return prepare(connection, new StatementKey(false, sql, UNSPECIFIED, UNSPECIFIED, UNSPECIFIED, autoGeneratedKeys, null, null));
+    }
+
+    public PreparedStatement prepareStatement(Connection connection, String sql, int[] columnIndexes) throws SQLException
+    {
+        return prepare(connection, new StatementKey(false, sql, UNSPECIFIED, UNSPECIFIED, UNSPECIFIED, UNSPECIFIED, columnIndexes.clone(), null));
+    }
+
+    public PreparedStatement prepareStatement(Connection connection, String sql, String[] columnNames) throws SQLException
+    {
+        return prepare(connection, new StatementKey(false, sql, UNSPECIFIED, UNSPECIFIED, UNSPECIFIED, UNSPECIFIED, null, columnNames.clone()));
+    }
+
+    public PreparedStatement prepareStatement(Connection connection, String sql, int resultSetType, int resultSetConcurrency) throws SQLException
+    {
+        return prepare(connection, new StatementKey(false, sql, resultSetType, resultSetConcurrency, UNSPECIFIED, UNSPECIFIED, null, null));
+    }
+
+    public PreparedStatement prepareStatement(Connection connection, String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException
+    {
+        return prepare(connection, new StatementKey(false, sql, resultSetType, resultSetConcurrency, resultSetHoldability, UNSPECIFIED, null, null));
+    }
+
+    public CallableStatement prepareCall(Connection connection, String sql) throws SQLException
+    {
+        return (CallableStatement) prepare(connection, new StatementKey(true, sql, UNSPECIFIED, UNSPECIFIED, UNSPECIFIED, UNSPECIFIED, null, null));
+    }
+
+    public CallableStatement prepareCall(Connection connection, String sql, int resultSetType, int resultSetConcurrency) throws SQLException
+    {
+        return (CallableStatement) prepare(connection, new StatementKey(true, sql, resultSetType, resultSetConcurrency, UNSPECIFIED, UNSPECIFIED, null, null));
+    }
+
+    public CallableStatement prepareCall(Connection connection, String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException
+    {
+        return (CallableStatement) prepare(connection, new StatementKey(true, sql, resultSetType, resultSetConcurrency, resultSetHoldability, UNSPECIFIED, null, null));
+    }
+
+    /**
+     * Closes all the statements of the cache, including the ones in use. The cache can still be used afterwards.
+     */
+    public void clear()
+    {
+        List<CachedStatement> removed;
+        synchronized (this)
+        {
+            removed = new ArrayList<>(statements.values());
+            statements.clear();
+            for (CachedStatement cachedStatement : removed)
+            {
+                cachedStatement.evicted = true;
+                statistics.statementRemoved();
+            }
+        }
+
+        for (CachedStatement cachedStatement : removed)
+        {
+            closeStatement(cachedStatement.statement);
+        }
+    }
+
+    /**
+     * @return the amount of statements in the cache, idle or in use
+     */
+    public synchronized int size()
+    {
+        return statements.size();
+    }
+
+    private PreparedStatement prepare(Connection connection, StatementKey key) throws SQLException
+    {
+        CachedStatement evicted = null;
+        CachedStatement cachedStatement;
+
+        synchronized (this)
+        {
+            cachedStatement = statements.get(key);
+            if (cachedStatement != null && !cachedStatement.inUse)
+            {
+                cachedStatement.inUse = true;
+                statistics.hit();
+
+                return cachedStatement.newHandle();
+            }
+            statistics.miss();
+
+            if (cachedStatement == null && statements.size() >= maxSize)
+            {
+                evicted = removeEldestIdle();
+            }
+        }
+
+        if (evicted != null)
+        {
+            closeStatement(evicted.statement);
+        }
+
+        PreparedStatement statement = key.create(connection);
+        CachedStatement newCachedStatement;
+        try
+        {
+            newCachedStatement = new CachedStatement(key, statement);
+        }
+        catch (SQLException e)
+        {
+            closeStatement(statement);
+            throw e;
+        }
+
+        synchronized (this)
+        {
+            // Statements are only cached when there is room and there is no other statement for the same key in use
+            if (cachedStatement != null || statements.size() >= maxSize || statements.containsKey(key))
+            {
+                return statement;
+            }
+
+            newCachedStatement.inUse = true;
+            statements.put(key, newCachedStatement);
+            statistics.statementAdded();
+
+            return newCachedStatement.newHandle();
+        }
+    }
+
+    private CachedStatement removeEldestIdle()
+    {
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext())
+        {
+            CachedStatement cachedStatement = iterator.next();
+            if (!cachedStatement.inUse)
+            {
+                iterator.remove();
+                cachedStatement.evicted = true;
+                statistics.statementEvicted();
+
+                return cachedStatement;
+            }
+        }
+
+        return null;
+    }
+
+    private void release(CachedStatement cachedStatement, boolean reusable)
+    {
+        synchronized (this)
+        {
+            if (cachedStatement.evicted)
+            {
+                // Already closed when it was removed from the cache
+                return;
+            }
+            if (reusable)
+            {
+                cachedStatement.inUse = false;
+                return;
+            }
+
+            statements.remove(cachedStatement.key);
+            cachedStatement.evicted = true;
+            statistics.statementRemoved();
+        }
+
+        closeStatement(cachedStatement.statement);
+    }
+
+    private void closeStatement(PreparedStatement statement)
+    {
+        try
+        {
+            statement.close();
+        }
+        catch (SQLException e)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Error closing cached statement. Ignored", e);
+            }
+        }
+    }
+
+    private class CachedStatement
+    {
+
+        private final StatementKey key;
+        private final PreparedStatement statement;
+        private final int maxRows;
+        private final int fetchSize;
+        private final int queryTimeout;
+        private boolean inUse;
+        private boolean evicted;
+
+        private CachedStatement(StatementKey key, PreparedStatement statement) throws SQLException
+        {
+            this.key = key;
+            this.statement = statement;
+            this.maxRows = statement.getMaxRows();
+            this.fetchSize = statement.getFetchSize();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+
+        private PreparedStatement newHandle()
+        {
+            Class<?> statementInterface = key.callable ? CallableStatement.class : PreparedStatement.class;
+
+            return (PreparedStatement) Proxy.newProxyInstance(statementInterface.getClassLoader(), new Class[] {statementInterface}, new StatementHandle(this));
+        }
+    }
+
+    /**
+     * Wrapper handed out for each use of a cached statement
+     */
+    private class StatementHandle implements InvocationHandler
+    {
+
+        private final CachedStatement cachedStatement;
+        private boolean closed;
+        private boolean failed;
+        private boolean batched;
+        private boolean optionsChanged;
+
+        private StatementHandle(CachedStatement cachedStatement)
+        {
+            this.cachedStatement = cachedStatement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            String name = method.getName();
+
+            if (name.equals("close"))
+            {
+                close();
+                return null;
+            }
+            if (name.equals("isClosed"))
+            {
+                return closed || cachedStatement.statement.isClosed();
+            }
+            if (name.equals("equals"))
+            {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode"))
+            {
+                return System.identityHashCode(proxy);
+            }
+            if (closed)
+            {
+                throw new SQLException("Statement is closed");
+            }
+
+            if (name.equals("addBatch"))
+            {
+                batched = true;
+            }
+            else if (name.equals("setMaxRows") || name.equals("setFetchSize") || name.equals("setQueryTimeout"))
+            {
+                optionsChanged = true;
+            }
+
+            try
+            {
+                return method.invoke(cachedStatement.statement, args);
+            }
+            catch (InvocationTargetException e)
+            {
+                if (e.getCause() instanceof SQLException)
+                {
+                    failed = true;
+                }
+                throw e.getCause();
+            }
+        }
+
+        private void close()
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+
+            release(cachedStatement, !failed && reset());
+        }
+
+        private boolean reset()
+        {
+            PreparedStatement statement = cachedStatement.statement;
+            try
+            {
+                if (statement.isClosed())
+                {
+                    return false;
+                }
+                statement.clearParameters();
+                statement.clearWarnings();
+                if (batched)
+                {
+                    statement.clearBatch();
+                }
+                if (optionsChanged)
+                {
+                    statement.setMaxRows(cachedStatement.maxRows);
+                    statement.setFetchSize(cachedStatement.fetchSize);
+                    statement.setQueryTimeout(cachedStatement.queryTimeout);
+                }
+
+                return true;
+            }
+            catch (SQLException e)
+            {
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Error resetting cached statement, it will be closed", e);
+                }
+
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Identifies statements by their SQL and the options they were prepared with
+     */
+    private static class StatementKey
+    {
+
+        private final boolean callable;
+        private final String sql;
+        private final int resultSetType;
+        private final int resultSetConcurrency;
+        private final int resultSetHoldability;
+        private final int autoGeneratedKeys;
+        private final int[] columnIndexes;
+        private final String[] columnNames;
+        private final int hashCode;
+
+        private StatementKey(boolean callable, String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability, int autoGeneratedKeys, int[] columnIndexes, String[] columnNames)
+        {
+            this.callable = callable;
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.resultSetHoldability = resultSetHoldability;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+            this.columnIndexes = columnIndexes;
+            this.columnNames = columnNames;
+
+            int result = sql.hashCode();
+            result = 31 * result + (callable ? 1 : 0);
+            result = 31 * result + resultSetType;
+            result = 31 * result + resultSetConcurrency;
+            result = 31 * result + resultSetHoldability;
+            result = 31 * result + autoGeneratedKeys;
+            result = 31 * result + Arrays.hashCode(columnIndexes);
+            result = 31 * result + Arrays.hashCode(columnNames);
+            this.hashCode = result;
+        }
+
+        private PreparedStatement create(Connection connection) throws SQLException
+        {
+            if (callable)
+            {
+                if (resultSetHoldability != UNSPECIFIED)
+                {
+                    return connection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+                }
+                if (resultSetType != UNSPECIFIED)
+                {
+                    return connection.prepareCall(sql, resultSetType, resultSetConcurrency);
+                }
+                return connection.prepareCall(sql);
+            }
+
+            if (resultSetHoldability != UNSPECIFIED)
+            {
+                return connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            }
+            if (resultSetType != UNSPECIFIED)
+            {
+                return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+            }
+            if (autoGeneratedKeys != UNSPECIFIED)
+            {
+                return connection.prepareStatement(sql, autoGeneratedKeys);
+            }
+            if (columnIndexes != null)
+            {
+                return connection.prepareStatement(sql, columnIndexes);
+            }
+            if (columnNames != null)
+            {
+                return connection.prepareStatement(sql, columnNames);
+            }
+            return connection.prepareStatement(sql);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof StatementKey))
+            {
+                return false;
+            }
+
+            StatementKey that = (StatementKey) o;
+            return callable == that.callable && resultSetType == that.resultSetType && resultSetConcurrency == that.resultSetConcurrency
+                   && resultSetHoldability == that.resultSetHoldability && autoGeneratedKeys == that.autoGeneratedKeys
+                   && sql.equals(that.sql) && Arrays.equals(columnIndexes, that.columnIndexes) && Arrays.equals(columnNames, that.columnNames);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.statement;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters shared by the {@link StatementCache} of every connection of a database config
+ */
+public class StatementCacheStatistics implements StatementCacheStatisticsMBean
+{
+
+    private final int maxStatementsPerConnection;
+    private final AtomicInteger cachedStatements = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public StatementCacheStatistics(int maxStatementsPerConnection)
+    {
+        this.maxStatementsPerConnection = maxStatementsPerConnection;
+    }
+
+    void hit()
+    {
+        hits.incrementAndGet();
+    }
+
+    void miss()
+    {
+        misses.incrementAndGet();
+    }
+
+    void statementAdded()
+    {
+        cachedStatements.incrementAndGet();
+    }
+
+    void statementEvicted()
+    {
+        evictions.incrementAndGet();
+        cachedStatements.decrementAndGet();
+    }
+
+    void statementRemoved()
+    {
+        cachedStatements.decrementAndGet();
+    }
+
+    @Override
+    public int getMaxStatementsPerConnection()
+    {
+        return maxStatementsPerConnection;
+    }
+
+    @Override
+    public int getCachedStatements()
+    {
+        return cachedStatements.get();
+    }
+
+    @Override
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    @Override
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    @Override
+    public double getHitRatio()
+    {
+        long requests = hits.get() + misses.get();
+        return requests == 0 ? 0 : (double) hits.get() / requests;
+    }
+
+    @Override
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+}
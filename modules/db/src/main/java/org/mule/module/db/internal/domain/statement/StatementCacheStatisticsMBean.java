@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.statement;
+
+/**
+ * JMX view of the statement caches of the connections of a database config. Registered as
+ * {@code Mule.<application>:type=DbStatementCache,name=<config name>}. The counters that the cache of a c3p0 pool
+ * does not track are -1.
+ */
+public interface StatementCacheStatisticsMBean
+{
+
+    String JMX_TYPE = "DbStatementCache";
+
+    /**
+     * @return the maximum amount of statements cached per connection
+     */
+    int getMaxStatementsPerConnection();
+
+    /**
+     * @return the amount of statements currently cached, adding the caches of all the open connections
+     */
+    int getCachedStatements();
+
+    /**
+     * @return the amount of statements reused from a cache
+     */
+    long getHits();
+
+    /**
+     * @return the amount of statements that had to be prepared because they were not cached or were in use
+     */
+    long getMisses();
+
+    /**
+     * @return the hits divided by the amount of statements requested
+     */
+    double getHitRatio();
+
+    /**
+     * @return the amount of statements closed to make room for others
+     */
+    long getEvictions();
+}
@@ -92,16 +92,7 @@ public abstract class AbstractDbMessageProcessor extends AbstractInterceptingMes
                 }
             }
 
-            if (target == null || "".equals(target) || "#[payload]".equals(target))
-            {
-                muleEvent.getMessage().setPayload(result);
-            }
-            else
-            {
-                muleContext.getExpressionManager().enrich(target, muleEvent, result);
-            }
-
-            return processNext(muleEvent);
+            return processResult(muleEvent, result);
         }
         catch (SQLException e)
         {
@@ -118,6 +109,24 @@ public abstract class AbstractDbMessageProcessor extends AbstractInterceptingMes
         }
     }
 
+    /**
+     * Sets the result of the query on the event, as payload or on the target expression, and continues
+     * processing it
+     */
+    protected MuleEvent processResult(MuleEvent muleEvent, Object result) throws MuleException
+    {
+        if (target == null || "".equals(target) || "#[payload]".equals(target))
+        {
+            muleEvent.getMessage().setPayload(result);
+        }
+        else
+        {
+            muleContext.getExpressionManager().enrich(target, muleEvent, result);
+        }
+
+        return processNext(muleEvent);
+    }
+
     protected boolean mustCloseConnection()
     {
         return true;
@@ -165,6 +174,11 @@ public abstract class AbstractDbMessageProcessor extends AbstractInterceptingMes
         return queryMetadataProvider.getInputMetaData();
     }
 
+    public TransactionalAction getTransactionalAction()
+    {
+        return transactionalAction;
+    }
+
     public String getSource()
     {
         return source;
@@ -42,6 +42,16 @@ public abstract class AbstractSingleQueryDbMessageProcessor extends AbstractDbMe
 
     @Override
     protected Object executeQuery(DbConnection connection, MuleEvent muleEvent) throws SQLException
+    {
+        Query resolvedQuery = resolveQuery(connection, muleEvent);
+
+        return doExecuteQuery(connection, resolvedQuery);
+    }
+
+    /**
+     * Resolves the query to execute for an event, using the source expression if there is one
+     */
+    protected Query resolveQuery(DbConnection connection, MuleEvent muleEvent)
     {
         MuleEvent eventToUse = resolveSource(muleEvent);
 
@@ -49,7 +59,7 @@ public abstract class AbstractSingleQueryDbMessageProcessor extends AbstractDbMe
 
         validateQueryType(resolvedQuery.getQueryTemplate());
 
-        return doExecuteQuery(connection, resolvedQuery);
+        return resolvedQuery;
     }
 
     protected abstract Object doExecuteQuery(DbConnection connection, Query query) throws SQLException;
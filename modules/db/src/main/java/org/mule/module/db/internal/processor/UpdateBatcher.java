@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.processor;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Coalesces updates executed concurrently into batches.
+ * <p/>
+ * The first thread submitting an update for a given key opens a batch and waits until it is full or the
+ * maximum delay elapses. Then it executes the whole batch while the threads that joined it wait for the
+ * outcome of their own update. No thread other than the submitting ones is involved.
+ */
+class UpdateBatcher<K, U>
+{
+
+    private final int maxSize;
+    private final long maxDelayNanos;
+    private final BatchExecutor<K, U> batchExecutor;
+    private final Map<K, Batch> openBatches = new HashMap<>();
+
+    UpdateBatcher(int maxSize, long maxDelayMillis, BatchExecutor<K, U> batchExecutor)
+    {
+        this.maxSize = maxSize;
+        this.maxDelayNanos = MILLISECONDS.toNanos(maxDelayMillis);
+        this.batchExecutor = batchExecutor;
+    }
+
+    /**
+     * Executes an update as part of a batch
+     *
+     * @param key identifies the updates that can be batched together
+     * @param update update to execute
+     * @return the result of the update
+     * @throws SQLException if the update failed
+     */
+    Object execute(K key, U update) throws SQLException
+    {
+        BatchedUpdate<U> batchedUpdate = new BatchedUpdate<>(update);
+        Batch batch;
+        boolean opened;
+
+        synchronized (openBatches)
+        {
+            batch = openBatches.get(key);
+            opened = batch == null;
+            if (opened)
+            {
+                batch = new Batch();
+                openBatches.put(key, batch);
+            }
+
+            batch.updates.add(batchedUpdate);
+            if (batch.updates.size() >= maxSize)
+            {
+                openBatches.remove(key);
+                batch.full.countDown();
+            }
+        }
+
+        if (opened)
+        {
+            awaitBatch(key, batch);
+            execute(key, batch.updates);
+        }
+
+        return batchedUpdate.getResult();
+    }
+
+    private void awaitBatch(K key, Batch batch)
+    {
+        boolean interrupted = false;
+        try
+        {
+            long remaining = maxDelayNanos;
+            long deadline = System.nanoTime() + remaining;
+            while (remaining > 0)
+            {
+                try
+                {
+                    if (batch.full.await(remaining, NANOSECONDS))
+                    {
+                        return;
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+                remaining = deadline - System.nanoTime();
+            }
+
+            synchronized (openBatches)
+            {
+                if (openBatches.get(key) == batch)
+                {
+                    openBatches.remove(key);
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void execute(K key, List<BatchedUpdate<U>> updates)
+    {
+        try
+        {
+            batchExecutor.execute(key, updates);
+        }
+        catch (RuntimeException | Error e)
+        {
+            for (BatchedUpdate<U> update : updates)
+            {
+                update.fail(e);
+            }
+        }
+        finally
+        {
+            // Updates left without an outcome must not keep their threads waiting
+            for (BatchedUpdate<U> update : updates)
+            {
+                update.fail(new IllegalStateException("Batch finished without executing the update"));
+            }
+        }
+    }
+
+    private class Batch
+    {
+
+        private final List<BatchedUpdate<U>> updates = new ArrayList<>(maxSize);
+        private final CountDownLatch full = new CountDownLatch(1);
+    }
+
+    /**
+     * Executes a batch of updates, completing each of them with its own result or failure
+     */
+    interface BatchExecutor<K, U>
+    {
+
+        void execute(K key, List<BatchedUpdate<U>> updates);
+    }
+
+    /**
+     * Update waiting for the batch it belongs to be executed
+     */
+    static class BatchedUpdate<U>
+    {
+
+        private final U update;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Object result;
+        private volatile Throwable failure;
+
+        BatchedUpdate(U update)
+        {
+            this.update = update;
+        }
+
+        U getUpdate()
+        {
+            return update;
+        }
+
+        boolean isDone()
+        {
+            return done.getCount() == 0;
+        }
+
+        synchronized void complete(Object result)
+        {
+            if (!isDone())
+            {
+                this.result = result;
+                done.countDown();
+            }
+        }
+
+        synchronized void fail(Throwable failure)
+        {
+            if (!isDone())
+            {
+                this.failure = failure;
+                done.countDown();
+            }
+        }
+
+        Object getResult() throws SQLException
+        {
+            boolean interrupted = false;
+            try
+            {
+                while (true)
+                {
+                    try
+                    {
+                        // The update is executed even if this thread is interrupted, so its outcome is awaited anyway
+                        done.await();
+                        break;
+                    }
+                    catch (InterruptedException e)
+                    {
+                        interrupted = true;
+                    }
+                }
+            }
+            finally
+            {
+                if (interrupted)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (failure instanceof SQLException)
+            {
+                throw (SQLException) failure;
+            }
+            if (failure instanceof RuntimeException)
+            {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error)
+            {
+                throw (Error) failure;
+            }
+
+            return result;
+        }
+    }
+}
@@ -7,19 +7,32 @@
 
 package org.mule.module.db.internal.processor;
 
+import static org.mule.config.i18n.MessageFactory.createStaticMessage;
+import static org.mule.module.db.internal.domain.transaction.TransactionalAction.ALWAYS_JOIN;
+import static org.mule.module.db.internal.domain.transaction.TransactionalAction.NOT_SUPPORTED;
+import org.mule.api.MessagingException;
 import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.lifecycle.InitialisationException;
 import org.mule.module.db.internal.domain.autogeneratedkey.AutoGeneratedKeyStrategy;
 import org.mule.module.db.internal.domain.autogeneratedkey.NoAutoGeneratedKeyStrategy;
 import org.mule.module.db.internal.domain.connection.DbConnection;
+import org.mule.module.db.internal.domain.database.DbConfig;
+import org.mule.module.db.internal.domain.executor.BulkQueryExecutorFactory;
 import org.mule.module.db.internal.domain.executor.QueryExecutor;
 import org.mule.module.db.internal.domain.executor.QueryExecutorFactory;
 import org.mule.module.db.internal.domain.query.Query;
+import org.mule.module.db.internal.domain.query.QueryParamValue;
 import org.mule.module.db.internal.domain.query.QueryType;
 import org.mule.module.db.internal.domain.transaction.TransactionalAction;
+import org.mule.module.db.internal.processor.UpdateBatcher.BatchedUpdate;
 import org.mule.module.db.internal.resolver.database.DbConfigResolver;
 import org.mule.module.db.internal.resolver.query.QueryResolver;
+import org.mule.transaction.TransactionCoordination;
 
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -30,13 +43,25 @@ import java.util.List;
  * <p/>
  * Both database and queries are resolved, if required, using the {@link MuleEvent}
  * being processed.
+ * <p/>
+ * When a batch size greater than one is configured, events processed concurrently outside a
+ * transaction are executed together in JDBC batches of up to that size, waiting at most the
+ * configured delay for a batch to fill up. Each event still gets its own update count. If a
+ * batch fails, it is rolled back and its updates are executed one at a time, so each event gets
+ * the same outcome it would have had without batching.
  */
 public class UpdateMessageProcessor extends AbstractSingleQueryDbMessageProcessor
 {
 
+    public static final long DEFAULT_BATCH_MAX_DELAY_MILLIS = 10;
+
     private AutoGeneratedKeyStrategy autoGeneratedKeyStrategy;
     private final QueryExecutorFactory queryExecutorFactory;
     private final List<QueryType> validQueryTypes;
+    private int batchSize;
+    private long batchMaxDelayMillis = DEFAULT_BATCH_MAX_DELAY_MILLIS;
+    private BulkQueryExecutorFactory bulkQueryExecutorFactory;
+    private UpdateBatcher<DbConfig, MuleEvent> batcher;
 
     public UpdateMessageProcessor(DbConfigResolver dbConfigResolver, QueryResolver queryResolver, QueryExecutorFactory queryExecutorFactory, TransactionalAction transactionalAction, List<QueryType> validQueryTypes)
     {
@@ -46,6 +71,204 @@ public class UpdateMessageProcessor extends AbstractSingleQueryDbMessageProcesso
         this.autoGeneratedKeyStrategy = new NoAutoGeneratedKeyStrategy();
     }
 
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        super.initialise();
+
+        if (batchSize > 1)
+        {
+            if (bulkQueryExecutorFactory == null)
+            {
+                throw new InitialisationException(createStaticMessage("A bulk query executor factory is required to batch updates"), this);
+            }
+            batcher = new UpdateBatcher<>(batchSize, batchMaxDelayMillis, new UpdateBatcher.BatchExecutor<DbConfig, MuleEvent>()
+            {
+                @Override
+                public void execute(DbConfig dbConfig, List<BatchedUpdate<MuleEvent>> updates)
+                {
+                    executeBatch(dbConfig, updates);
+                }
+            });
+        }
+    }
+
+    @Override
+    public MuleEvent process(MuleEvent muleEvent) throws MuleException
+    {
+        if (batcher == null || !canBatch())
+        {
+            return super.process(muleEvent);
+        }
+
+        DbConfig dbConfig = dbConfigResolver.resolve(muleEvent);
+
+        Object result;
+        try
+        {
+            result = batcher.execute(dbConfig, muleEvent);
+        }
+        catch (BatchConnectionException e)
+        {
+            throw new DbConnectionException(e.getCause(), dbConfig);
+        }
+        catch (SQLException e)
+        {
+            throw new MessagingException(muleEvent, e, this);
+        }
+
+        return processResult(muleEvent, result);
+    }
+
+    private boolean canBatch()
+    {
+        return !autoGeneratedKeyStrategy.returnsAutoGeneratedKeys() && getTransactionalAction() != ALWAYS_JOIN
+               && TransactionCoordination.getInstance().getTransaction() == null;
+    }
+
+    private void executeBatch(DbConfig dbConfig, List<BatchedUpdate<MuleEvent>> updates)
+    {
+        DbConnection connection;
+        try
+        {
+            connection = dbConfig.getConnectionFactory().createConnection(NOT_SUPPORTED);
+        }
+        catch (SQLException e)
+        {
+            for (BatchedUpdate<MuleEvent> update : updates)
+            {
+                update.fail(new BatchConnectionException(e));
+            }
+            return;
+        }
+
+        try
+        {
+            List<BatchedUpdate<MuleEvent>> group = new ArrayList<>(updates.size());
+            List<Query> queries = new ArrayList<>(updates.size());
+            for (BatchedUpdate<MuleEvent> update : updates)
+            {
+                Query query;
+                try
+                {
+                    query = resolveQuery(connection, update.getUpdate());
+                }
+                catch (RuntimeException e)
+                {
+                    update.fail(e);
+                    continue;
+                }
+
+                // Only consecutive updates with the same SQL go in the same JDBC batch
+                if (!queries.isEmpty() && !queries.get(0).getQueryTemplate().getSqlText().equals(query.getQueryTemplate().getSqlText()))
+                {
+                    executeGroup(connection, group, queries);
+                    group.clear();
+                    queries.clear();
+                }
+                group.add(update);
+                queries.add(query);
+            }
+
+            if (!group.isEmpty())
+            {
+                executeGroup(connection, group, queries);
+            }
+        }
+        finally
+        {
+            dbConfig.getConnectionFactory().releaseConnection(connection);
+        }
+    }
+
+    private void executeGroup(DbConnection connection, List<BatchedUpdate<MuleEvent>> group, List<Query> queries)
+    {
+        if (group.size() == 1)
+        {
+            executeEach(connection, group, queries);
+            return;
+        }
+
+        List<List<QueryParamValue>> paramSets = new ArrayList<>(queries.size());
+        for (Query query : queries)
+        {
+            paramSets.add(query.getParamValues());
+        }
+
+        Object updateCounts;
+        try
+        {
+            updateCounts = executeInLocalTransaction(connection, queries.get(0), paramSets);
+        }
+        catch (SQLException e)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Batch update failed, executing its updates one at a time", e);
+            }
+            executeEach(connection, group, queries);
+            return;
+        }
+
+        // The batch is already committed, so counts the driver does not report are returned as SUCCESS_NO_INFO
+        // instead of executing the updates again to get them
+        int[] counts = (int[]) updateCounts;
+        for (int i = 0; i < group.size(); i++)
+        {
+            group.get(i).complete(i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO);
+        }
+    }
+
+    private Object executeInLocalTransaction(DbConnection connection, Query query, List<List<QueryParamValue>> paramSets) throws SQLException
+    {
+        boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit)
+        {
+            connection.setAutoCommit(false);
+        }
+        try
+        {
+            Object updateCounts = bulkQueryExecutorFactory.create().execute(connection, query, paramSets);
+            connection.commit();
+
+            return updateCounts;
+        }
+        catch (SQLException e)
+        {
+            try
+            {
+                connection.rollback();
+            }
+            catch (SQLException rollbackException)
+            {
+                logger.debug("Error rolling back failed batch update", rollbackException);
+            }
+            throw e;
+        }
+        finally
+        {
+            if (autoCommit)
+            {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void executeEach(DbConnection connection, List<BatchedUpdate<MuleEvent>> group, List<Query> queries)
+    {
+        for (int i = 0; i < group.size(); i++)
+        {
+            try
+            {
+                group.get(i).complete(doExecuteQuery(connection, queries.get(i)));
+            }
+            catch (SQLException | RuntimeException e)
+            {
+                group.get(i).fail(e);
+            }
+        }
+    }
+
     @Override
     protected List<QueryType> getValidQueryTypes()
     {
@@ -68,4 +291,55 @@ public class UpdateMessageProcessor extends AbstractSingleQueryDbMessageProcesso
     {
         this.autoGeneratedKeyStrategy = autoGeneratedKeyStrategy;
     }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * @param batchSize maximum amount of events executed in the same JDBC batch. Values lower than two disable batching.
+     * The update count of a batched event is {@link Statement#SUCCESS_NO_INFO} when the driver does not report the
+     * count of each statement in a batch.
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    public long getBatchMaxDelayMillis()
+    {
+        return batchMaxDelayMillis;
+    }
+
+    /**
+     * @param batchMaxDelayMillis maximum time the first event of a batch waits for other events to join it
+     */
+    public void setBatchMaxDelayMillis(long batchMaxDelayMillis)
+    {
+        this.batchMaxDelayMillis = batchMaxDelayMillis;
+    }
+
+    public void setBulkQueryExecutorFactory(BulkQueryExecutorFactory bulkQueryExecutorFactory)
+    {
+        this.bulkQueryExecutorFactory = bulkQueryExecutorFactory;
+    }
+
+    /**
+     * Failure to get the connection a batch is executed on
+     */
+    private static class BatchConnectionException extends SQLException
+    {
+
+        private BatchConnectionException(SQLException cause)
+        {
+            super(cause);
+        }
+
+        @Override
+        public synchronized SQLException getCause()
+        {
+            return (SQLException) super.getCause();
+        }
+    }
 }
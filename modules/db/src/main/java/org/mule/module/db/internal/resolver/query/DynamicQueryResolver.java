@@ -19,6 +19,10 @@ import java.util.Collections;
 
 /**
  * Resolves a dynamic query evaluating expressions using a given event
+ * <p/>
+ * When a template cache size is given, the templates parsed from the most recently resolved SQL texts
+ * are cached, so queries that resolve to a small set of SQL texts are parsed only once. The cache is
+ * disabled by default, as queries that embed literal values seldom resolve to the same SQL text twice.
  */
 public class DynamicQueryResolver implements QueryResolver
 {
@@ -26,12 +30,22 @@ public class DynamicQueryResolver implements QueryResolver
     private final Query query;
     private final QueryTemplateParser queryTemplateParser;
     private final ExpressionManager expressionManager;
+    private final QueryTemplateCache templateCache;
 
     public DynamicQueryResolver(Query query, QueryTemplateParser queryTemplateParser, ExpressionManager expressionManager)
+    {
+        this(query, queryTemplateParser, expressionManager, 0);
+    }
+
+    /**
+     * @param templateCacheSize maximum amount of parsed templates to cache. Zero disables the cache.
+     */
+    public DynamicQueryResolver(Query query, QueryTemplateParser queryTemplateParser, ExpressionManager expressionManager, int templateCacheSize)
     {
         this.query = query;
         this.queryTemplateParser = queryTemplateParser;
         this.expressionManager = expressionManager;
+        this.templateCache = templateCacheSize > 0 ? new QueryTemplateCache(templateCacheSize, queryTemplateParser) : null;
     }
 
     @Override
@@ -41,7 +55,7 @@ public class DynamicQueryResolver implements QueryResolver
         {
             QueryTemplate queryTemplate = query.getQueryTemplate();
             String resolvedSqlText = expressionManager.parse(queryTemplate.getSqlText(), muleEvent);
-            queryTemplate = queryTemplateParser.parse(resolvedSqlText);
+            queryTemplate = templateCache == null ? queryTemplateParser.parse(resolvedSqlText) : templateCache.get(resolvedSqlText);
 
             return new Query(queryTemplate, Collections.<QueryParamValue>emptyList());
         }
@@ -50,4 +64,12 @@ public class DynamicQueryResolver implements QueryResolver
             throw new QueryResolutionException("Error parsing query", e);
         }
     }
+
+    /**
+     * @return the statistics of the parsed template cache or null if the cache is disabled
+     */
+    public QueryTemplateCacheStatistics getTemplateCacheStatistics()
+    {
+        return templateCache == null ? null : templateCache.getStatistics();
+    }
 }
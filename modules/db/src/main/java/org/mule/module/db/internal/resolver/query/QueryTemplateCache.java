@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.resolver.query;
+
+import org.mule.module.db.internal.domain.query.QueryTemplate;
+import org.mule.module.db.internal.parser.QueryTemplateParser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the templates parsed from the most recently used SQL texts.
+ * <p/>
+ * Templates are immutable, so a cached one is shared by all the queries resolved to the same SQL text,
+ * including its parsed parameters. When the cache is full the least recently used template is discarded.
+ * Parsing happens outside the lock, so concurrent misses for the same text may parse it more than once.
+ */
+class QueryTemplateCache
+{
+
+    private final QueryTemplateParser queryTemplateParser;
+    private final QueryTemplateCacheStatistics statistics;
+    private final Map<String, QueryTemplate> templates;
+
+    QueryTemplateCache(final int maxSize, QueryTemplateParser queryTemplateParser)
+    {
+        this.queryTemplateParser = queryTemplateParser;
+        this.statistics = new QueryTemplateCacheStatistics(maxSize);
+        this.templates = new LinkedHashMap<String, QueryTemplate>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, QueryTemplate> eldest)
+            {
+                if (size() > maxSize)
+                {
+                    statistics.templateEvicted();
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the template for a SQL text, parsing it only if it is not cached
+     *
+     * @param sqlText SQL text to parse
+     * @return the parsed template
+     */
+    QueryTemplate get(String sqlText)
+    {
+        QueryTemplate queryTemplate;
+        synchronized (templates)
+        {
+            queryTemplate = templates.get(sqlText);
+        }
+
+        if (queryTemplate != null)
+        {
+            statistics.hit();
+            return queryTemplate;
+        }
+
+        statistics.miss();
+        queryTemplate = queryTemplateParser.parse(sqlText);
+
+        synchronized (templates)
+        {
+            if (templates.put(sqlText, queryTemplate) == null)
+            {
+                statistics.templateAdded();
+            }
+        }
+
+        return queryTemplate;
+    }
+
+    int size()
+    {
+        synchronized (templates)
+        {
+            return templates.size();
+        }
+    }
+
+    QueryTemplateCacheStatistics getStatistics()
+    {
+        return statistics;
+    }
+}
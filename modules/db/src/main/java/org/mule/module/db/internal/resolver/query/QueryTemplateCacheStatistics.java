@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.resolver.query;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the {@link QueryTemplateCache} used by a {@link DynamicQueryResolver}
+ */
+public class QueryTemplateCacheStatistics
+{
+
+    private final int maxSize;
+    private final AtomicInteger cachedTemplates = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public QueryTemplateCacheStatistics(int maxSize)
+    {
+        this.maxSize = maxSize;
+    }
+
+    void hit()
+    {
+        hits.incrementAndGet();
+    }
+
+    void miss()
+    {
+        misses.incrementAndGet();
+    }
+
+    void templateAdded()
+    {
+        cachedTemplates.incrementAndGet();
+    }
+
+    void templateEvicted()
+    {
+        evictions.incrementAndGet();
+        cachedTemplates.decrementAndGet();
+    }
+
+    /**
+     * @return the maximum amount of parsed templates kept in the cache
+     */
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * @return the amount of parsed templates currently cached
+     */
+    public int getCachedTemplates()
+    {
+        return cachedTemplates.get();
+    }
+
+    /**
+     * @return the amount of resolved queries that reused a parsed template
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return the amount of resolved queries that had to be parsed
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * @return the hits divided by the amount of resolved queries
+     */
+    public double getHitRatio()
+    {
+        long requests = hits.get() + misses.get();
+        return requests == 0 ? 0 : (double) hits.get() / requests;
+    }
+
+    /**
+     * @return the amount of parsed templates discarded to make room for others
+     */
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+}
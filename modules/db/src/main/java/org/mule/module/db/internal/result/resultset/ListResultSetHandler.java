@@ -7,6 +7,7 @@
 
 package org.mule.module.db.internal.result.resultset;
 
+import static org.mule.module.db.internal.result.row.RowHandlerUtils.createRowHandler;
 import org.mule.module.db.internal.domain.connection.DbConnection;
 import org.mule.module.db.internal.result.row.RowHandler;
 
@@ -37,9 +38,14 @@ public class ListResultSetHandler implements ResultSetHandler
         List<Map<String, Object>> results = new LinkedList<Map<String, Object>>();
         try
         {
+            RowHandler resultSetRowHandler = null;
             while (resultSet.next())
             {
-                results.add(rowHandler.process(resultSet));
+                if (resultSetRowHandler == null)
+                {
+                    resultSetRowHandler = createRowHandler(rowHandler, resultSet);
+                }
+                results.add(resultSetRowHandler.process(resultSet));
             }
         }
         finally
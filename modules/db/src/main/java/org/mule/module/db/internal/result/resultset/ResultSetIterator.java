@@ -7,6 +7,7 @@
 
 package org.mule.module.db.internal.result.resultset;
 
+import static org.mule.module.db.internal.result.row.RowHandlerUtils.createRowHandler;
 import org.mule.api.Closeable;
 import org.mule.api.MuleException;
 import org.mule.module.db.internal.domain.connection.DbConnection;
@@ -31,6 +32,7 @@ public class ResultSetIterator implements Iterator<Map<String, Object>>, Closeab
 
     private final ResultSet resultSet;
     private final RowHandler rowHandler;
+    private RowHandler resultSetRowHandler;
     private final StreamingResultSetCloser streamingResultSetCloser;
     private DbConnection connection;
     private Boolean cachedNext = null;
@@ -104,7 +106,11 @@ public class ResultSetIterator implements Iterator<Map<String, Object>>, Closeab
                 cachedNext = null;
             }
 
-            return rowHandler.process(resultSet);
+            if (resultSetRowHandler == null)
+            {
+                resultSetRowHandler = createRowHandler(rowHandler, resultSet);
+            }
+            return resultSetRowHandler.process(resultSet);
         }
         catch (SQLException e)
         {
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.result.row;
+
+import java.io.Serializable;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable position of the columns of a result set, looked up by label ignoring case. Shared by all the
+ * {@link ColumnarRow} of a result set.
+ */
+class ColumnIndex implements Serializable
+{
+
+    private static final long serialVersionUID = 6512470587463458174L;
+
+    private final String[] labels;
+    private final Map<String, Integer> positions;
+
+    ColumnIndex(String[] labels)
+    {
+        this.labels = labels;
+        this.positions = new HashMap<>(labels.length * 4);
+
+        for (int i = 0; i < labels.length; i++)
+        {
+            String lowerCaseLabel = labels[i].toLowerCase();
+            if (positions.containsKey(lowerCaseLabel))
+            {
+                throw new IllegalArgumentException("Record cannot be mapped as it contains multiple columns with the same label. Define column aliases to solve this problem");
+            }
+            // Keeps the original label too, so lookups using the same case as the query do not need to convert the key
+            positions.put(labels[i], i);
+            positions.put(lowerCaseLabel, i);
+        }
+    }
+
+    /**
+     * Creates an index with the column labels of a result set
+     *
+     * @param metaData metadata of the result set. Non null
+     * @return a new index
+     * @throws SQLException if the metadata cannot be read
+     * @throws IllegalArgumentException if two columns have the same label
+     */
+    static ColumnIndex create(ResultSetMetaData metaData) throws SQLException
+    {
+        String[] labels = new String[metaData.getColumnCount()];
+        for (int i = 0; i < labels.length; i++)
+        {
+            labels[i] = metaData.getColumnLabel(i + 1);
+        }
+
+        return new ColumnIndex(labels);
+    }
+
+    /**
+     * @return the position of the column with the given label, ignoring case, or -1 if there is none
+     */
+    int indexOf(Object label)
+    {
+        if (label == null)
+        {
+            return -1;
+        }
+
+        String key = label.toString();
+        Integer position = positions.get(key);
+        if (position == null)
+        {
+            position = positions.get(key.toLowerCase());
+        }
+
+        return position == null ? -1 : position;
+    }
+
+    String getLabel(int index)
+    {
+        return labels[index];
+    }
+
+    int size()
+    {
+        return labels.length;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass())
+        {
+            return false;
+        }
+
+        return Arrays.equals(labels, ((ColumnIndex) o).labels);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode(labels);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.result.row;
+
+import org.mule.util.CaseInsensitiveHashMap;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Case insensitive map with the values of a row, which keeps only the values and shares the column
+ * labels with the rest of the rows of the result set.
+ * <p/>
+ * Changing the value of a column is done in place. Adding a new key or removing one copies the row to a
+ * {@link CaseInsensitiveHashMap} which is used from then on.
+ */
+class ColumnarRow extends AbstractMap<String, Object> implements Serializable
+{
+
+    private static final long serialVersionUID = -2891487339140612350L;
+
+    private final ColumnIndex index;
+    private final Object[] values;
+    private Map<String, Object> delegate;
+
+    ColumnarRow(ColumnIndex index, Object[] values)
+    {
+        this.index = index;
+        this.values = values;
+    }
+
+    @Override
+    public int size()
+    {
+        return delegate == null ? values.length : delegate.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return delegate == null ? index.indexOf(key) != -1 : delegate.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+        if (delegate != null)
+        {
+            return delegate.get(key);
+        }
+
+        int position = index.indexOf(key);
+        return position == -1 ? null : values[position];
+    }
+
+    @Override
+    public Object put(String key, Object value)
+    {
+        if (delegate == null)
+        {
+            int position = index.indexOf(key);
+            if (position != -1)
+            {
+                Object previous = values[position];
+                values[position] = value;
+                return previous;
+            }
+        }
+
+        return getDelegate().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key)
+    {
+        if (delegate == null && index.indexOf(key) == -1)
+        {
+            return null;
+        }
+
+        return getDelegate().remove(key);
+    }
+
+    @Override
+    public void clear()
+    {
+        getDelegate().clear();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet()
+    {
+        if (delegate != null)
+        {
+            return delegate.entrySet();
+        }
+
+        return new AbstractSet<Entry<String, Object>>()
+        {
+            @Override
+            public Iterator<Entry<String, Object>> iterator()
+            {
+                return new ColumnIterator();
+            }
+
+            @Override
+            public int size()
+            {
+                return ColumnarRow.this.size();
+            }
+        };
+    }
+
+    ColumnIndex getIndex()
+    {
+        return index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getDelegate()
+    {
+        if (delegate == null)
+        {
+            Map<String, Object> copy = new CaseInsensitiveHashMap();
+            for (int i = 0; i < values.length; i++)
+            {
+                copy.put(index.getLabel(i), values[i]);
+            }
+            delegate = copy;
+        }
+
+        return delegate;
+    }
+
+    /**
+     * Iterates the columns in the order of the result set. The row can still be modified through the
+     * iterator and its entries after it stopped using the column index.
+     */
+    private class ColumnIterator implements Iterator<Entry<String, Object>>
+    {
+
+        private int next;
+        private int current = -1;
+
+        @Override
+        public boolean hasNext()
+        {
+            return next < values.length;
+        }
+
+        @Override
+        public Entry<String, Object> next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            current = next++;
+
+            return new ColumnEntry(current);
+        }
+
+        @Override
+        public void remove()
+        {
+            if (current == -1)
+            {
+                throw new IllegalStateException();
+            }
+            ColumnarRow.this.remove(index.getLabel(current));
+            current = -1;
+        }
+    }
+
+    private class ColumnEntry implements Entry<String, Object>
+    {
+
+        private final int position;
+
+        private ColumnEntry(int position)
+        {
+            this.position = position;
+        }
+
+        @Override
+        public String getKey()
+        {
+            return index.getLabel(position);
+        }
+
+        @Override
+        public Object getValue()
+        {
+            return delegate == null ? values[position] : delegate.get(getKey());
+        }
+
+        @Override
+        public Object setValue(Object value)
+        {
+            return put(getKey(), value);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Entry))
+            {
+                return false;
+            }
+            Entry<?, ?> entry = (Entry<?, ?>) o;
+
+            return getKey().equals(entry.getKey()) && (getValue() == null ? entry.getValue() == null : getValue().equals(entry.getValue()));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            Object value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString()
+        {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.result.row;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLXML;
+import java.util.Map;
+
+/**
+ * Maps a row to a case insensitive map that only holds the values of the row. The column labels are
+ * indexed once per result set by the handler created for it, and the index is shared by all of its rows,
+ * and by the rows of later result sets with the same columns.
+ * <p/>
+ * Processing rows with this handler directly indexes the column labels of each row.
+ */
+public class ColumnarRowHandler implements ResultSetRowHandlerFactory
+{
+
+    private volatile ColumnIndex lastIndex;
+
+    @Override
+    public Map<String, Object> process(ResultSet resultSet) throws SQLException
+    {
+        return createRowHandler(resultSet).process(resultSet);
+    }
+
+    @Override
+    public RowHandler createRowHandler(ResultSet resultSet) throws SQLException
+    {
+        ColumnIndex index = ColumnIndex.create(resultSet.getMetaData());
+        ColumnIndex last = lastIndex;
+        if (last != null && last.equals(index))
+        {
+            index = last;
+        }
+        else
+        {
+            lastIndex = index;
+        }
+
+        return new IndexedRowHandler(index);
+    }
+
+    private static class IndexedRowHandler implements RowHandler
+    {
+
+        private final ColumnIndex index;
+
+        private IndexedRowHandler(ColumnIndex index)
+        {
+            this.index = index;
+        }
+
+        @Override
+        public Map<String, Object> process(ResultSet resultSet) throws SQLException
+        {
+            Object[] values = new Object[index.size()];
+
+            for (int i = 0; i < values.length; i++)
+            {
+                Object value = resultSet.getObject(i + 1);
+
+                if (value instanceof SQLXML)
+                {
+                    SQLXML sqlxml = (SQLXML) value;
+
+                    values[i] = sqlxml.getString();
+                }
+                else
+                {
+                    values[i] = value;
+                }
+            }
+
+            return new ColumnarRow(index, values);
+        }
+    }
+}
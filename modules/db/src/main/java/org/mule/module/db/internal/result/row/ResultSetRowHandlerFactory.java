@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.result.row;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A {@link RowHandler} that resolves what only depends on the result set, such as its column labels,
+ * once before the rows of the result set are processed.
+ */
+public interface ResultSetRowHandlerFactory extends RowHandler
+{
+
+    /**
+     * Creates the handler for the rows of a result set
+     *
+     * @param resultSet resultset whose rows will be processed. Non null
+     * @return a handler that only processes rows of the given result set. Non null.
+     * @throws SQLException if a database access error occurs or this method is called
+     * on a closed result set
+     */
+    RowHandler createRowHandler(ResultSet resultSet) throws SQLException;
+}
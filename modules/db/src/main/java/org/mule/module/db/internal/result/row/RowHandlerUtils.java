@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.result.row;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class RowHandlerUtils
+{
+
+    private RowHandlerUtils()
+    {
+
+    }
+
+    /**
+     * Resolves the handler for the rows of a result set
+     *
+     * @param rowHandler handler configured to process the rows
+     * @param resultSet resultset whose rows will be processed
+     * @return the handler created for the result set when rowHandler is a {@link ResultSetRowHandlerFactory},
+     * rowHandler otherwise
+     * @throws SQLException if a database access error occurs
+     */
+    public static RowHandler createRowHandler(RowHandler rowHandler, ResultSet resultSet) throws SQLException
+    {
+        if (rowHandler instanceof ResultSetRowHandlerFactory)
+        {
+            return ((ResultSetRowHandlerFactory) rowHandler).createRowHandler(resultSet);
+        }
+        return rowHandler;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.integration.config;
+
+import static java.lang.String.format;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static org.mule.module.db.integration.TestRecordUtil.assertMessageContains;
+import static org.mule.module.db.integration.TestRecordUtil.getAllPlanetRecords;
+import org.mule.api.MuleMessage;
+import org.mule.api.client.LocalMuleClient;
+import org.mule.module.db.integration.AbstractDbIntegrationTestCase;
+import org.mule.module.db.integration.TestDbConfig;
+import org.mule.module.db.integration.model.AbstractTestDatabase;
+import org.mule.module.db.internal.domain.connection.pool.ConnectionPoolStatisticsMBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import org.junit.runners.Parameterized;
+
+public class ConcurrentBagPoolingTestCase extends AbstractDbIntegrationTestCase
+{
+
+    public ConcurrentBagPoolingTestCase(String dataSourceConfigResource, AbstractTestDatabase testDatabase)
+    {
+        super(dataSourceConfigResource, testDatabase);
+    }
+
+    @Parameterized.Parameters
+    public static List<Object[]> parameters()
+    {
+        return TestDbConfig.getDerbyResource();
+    }
+
+    @Override
+    protected String[] getFlowConfigurationResources()
+    {
+        return new String[] {"integration/config/concurrent-bag-pooling-config.xml"};
+    }
+
+    @Test
+    public void reusesPooledConnection() throws Exception
+    {
+        LocalMuleClient client = muleContext.getClient();
+
+        for (int i = 0; i < 3; i++)
+        {
+            MuleMessage response = client.send("vm://selectPlanets", TEST_MESSAGE, null);
+            assertMessageContains(response, getAllPlanetRecords());
+        }
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(format("Mule.%s:type=%s,name=%s", muleContext.getConfiguration().getId(),
+                                                      ConnectionPoolStatisticsMBean.JMX_TYPE, ObjectName.quote("concurrentBagPoolConfig")));
+
+        assertThat((Integer) mBeanServer.getAttribute(objectName, "MaxPoolSize"), equalTo(2));
+        assertThat((Integer) mBeanServer.getAttribute(objectName, "ActiveConnections"), is(0));
+        assertThat((Long) mBeanServer.getAttribute(objectName, "ConnectionsCreated"), equalTo(1L));
+        assertThat((Long) mBeanServer.getAttribute(objectName, "Borrows"), greaterThanOrEqualTo(3L));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.integration.config;
+
+import static java.lang.String.format;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import org.mule.api.MuleMessage;
+import org.mule.api.client.LocalMuleClient;
+import org.mule.module.db.integration.AbstractDbIntegrationTestCase;
+import org.mule.module.db.integration.TestDbConfig;
+import org.mule.module.db.integration.model.AbstractTestDatabase;
+import org.mule.module.db.internal.domain.connection.pool.ConnectionPool;
+import org.mule.module.db.internal.domain.statement.PooledDataSourceStatementCacheStatistics;
+import org.mule.module.db.internal.domain.statement.StatementCacheStatistics;
+import org.mule.module.db.internal.domain.statement.StatementCacheStatisticsMBean;
+import org.mule.module.db.internal.resolver.database.DbConfigResolver;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import org.junit.runners.Parameterized;
+
+public class StatementCacheConfigTestCase extends AbstractDbIntegrationTestCase
+{
+
+    public StatementCacheConfigTestCase(String dataSourceConfigResource, AbstractTestDatabase testDatabase)
+    {
+        super(dataSourceConfigResource, testDatabase);
+    }
+
+    @Parameterized.Parameters
+    public static List<Object[]> parameters()
+    {
+        return TestDbConfig.getDerbyResource();
+    }
+
+    @Override
+    protected String[] getFlowConfigurationResources()
+    {
+        return new String[] {"integration/config/statement-cache-config.xml"};
+    }
+
+    @Test
+    public void reusesStatementsInTransaction() throws Exception
+    {
+        LocalMuleClient client = muleContext.getClient();
+        MuleMessage response = client.send("vm://selectInTransaction", Arrays.asList(2, 3, 4), null);
+
+        assertThat(response.getExceptionPayload(), is((Object) null));
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = getStatementCacheObjectName("cachedStatementsConfig");
+
+        assertThat((Integer) mBeanServer.getAttribute(objectName, "MaxStatementsPerConnection"), equalTo(5));
+        assertThat((Long) mBeanServer.getAttribute(objectName, "Misses"), equalTo(1L));
+        assertThat((Long) mBeanServer.getAttribute(objectName, "Hits"), greaterThanOrEqualTo(2L));
+    }
+
+    @Test
+    public void reusesStatementsOfPooledConnectionBetweenMessages() throws Exception
+    {
+        DbConfigResolver dbConfigResolver = muleContext.getRegistry().get("pooledCachedStatementsConfig");
+        ConnectionPool pool = (ConnectionPool) resolveConfig(dbConfigResolver).getDataSource();
+        StatementCacheStatistics statistics = pool.getStatementCacheStatistics();
+
+        LocalMuleClient client = muleContext.getClient();
+        assertThat(client.send("vm://selectWithPooledConnection", 2, null).getExceptionPayload(), is((Object) null));
+        long hits = statistics.getHits();
+        assertThat(statistics.getMisses(), equalTo(1L));
+
+        assertThat(client.send("vm://selectWithPooledConnection", 3, null).getExceptionPayload(), is((Object) null));
+        assertThat(pool.getStatistics().getConnectionsCreated(), equalTo(1L));
+        assertThat(statistics.getMisses(), equalTo(1L));
+        assertThat(statistics.getHits(), greaterThan(hits));
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = getStatementCacheObjectName("pooledCachedStatementsConfig");
+        assertThat((Long) mBeanServer.getAttribute(objectName, "Hits"), equalTo(statistics.getHits()));
+    }
+
+    @Test
+    public void exposesStatementCacheOfC3p0Pool() throws Exception
+    {
+        LocalMuleClient client = muleContext.getClient();
+        assertThat(client.send("vm://selectWithC3p0PooledConnection", 2, null).getExceptionPayload(), is((Object) null));
+        assertThat(client.send("vm://selectWithC3p0PooledConnection", 3, null).getExceptionPayload(), is((Object) null));
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = getStatementCacheObjectName("c3p0CachedStatementsConfig");
+        assertThat((Integer) mBeanServer.getAttribute(objectName, "MaxStatementsPerConnection"), equalTo(5));
+        assertThat((Integer) mBeanServer.getAttribute(objectName, "CachedStatements"), equalTo(1));
+        assertThat((Long) mBeanServer.getAttribute(objectName, "Hits"), equalTo((long) PooledDataSourceStatementCacheStatistics.NOT_COUNTED));
+    }
+
+    private ObjectName getStatementCacheObjectName(String configName) throws Exception
+    {
+        return new ObjectName(format("Mule.%s:type=%s,name=%s", muleContext.getConfiguration().getId(),
+                                     StatementCacheStatisticsMBean.JMX_TYPE, ObjectName.quote(configName)));
+    }
+}
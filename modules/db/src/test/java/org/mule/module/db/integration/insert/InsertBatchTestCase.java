@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.integration.insert;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mule.module.db.integration.DbTestUtil.selectData;
+import static org.mule.module.db.integration.TestRecordUtil.assertRecords;
+import org.mule.api.MuleMessage;
+import org.mule.api.client.LocalMuleClient;
+import org.mule.module.db.integration.AbstractDbIntegrationTestCase;
+import org.mule.module.db.integration.TestDbConfig;
+import org.mule.module.db.integration.model.AbstractTestDatabase;
+import org.mule.module.db.integration.model.Field;
+import org.mule.module.db.integration.model.Record;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runners.Parameterized;
+
+public class InsertBatchTestCase extends AbstractDbIntegrationTestCase
+{
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    public InsertBatchTestCase(String dataSourceConfigResource, AbstractTestDatabase testDatabase)
+    {
+        super(dataSourceConfigResource, testDatabase);
+    }
+
+    @Parameterized.Parameters
+    public static List<Object[]> parameters()
+    {
+        return TestDbConfig.getDerbyResource();
+    }
+
+    @Override
+    protected String[] getFlowConfigurationResources()
+    {
+        return new String[] {"integration/insert/insert-batch-config.xml"};
+    }
+
+    @After
+    public void shutdownExecutor()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void batchesConcurrentInserts() throws Exception
+    {
+        List<Future<MuleMessage>> responses = new ArrayList<Future<MuleMessage>>();
+        responses.add(insert("Pluto", 10));
+        responses.add(insert("Vulcan", 11));
+        responses.add(insert("Krypton", 12));
+
+        for (Future<MuleMessage> response : responses)
+        {
+            assertThat(response.get(RECEIVE_TIMEOUT, MILLISECONDS).getPayload(), equalTo((Object) 1));
+        }
+        assertInsertedPlanets(new Record(new Field("NAME", "Pluto")), new Record(new Field("NAME", "Vulcan")), new Record(new Field("NAME", "Krypton")));
+    }
+
+    @Test
+    public void failsOnlyInvalidInsertOfBatch() throws Exception
+    {
+        Future<MuleMessage> plutoResponse = insert("Pluto", 10);
+        Future<MuleMessage> invalidResponse = insert("Vulcan", "notANumber");
+        Future<MuleMessage> kryptonResponse = insert("Krypton", 12);
+
+        assertThat(plutoResponse.get(RECEIVE_TIMEOUT, MILLISECONDS).getExceptionPayload(), is(nullValue()));
+        assertThat(kryptonResponse.get(RECEIVE_TIMEOUT, MILLISECONDS).getExceptionPayload(), is(nullValue()));
+        assertThat(invalidResponse.get(RECEIVE_TIMEOUT, MILLISECONDS).getExceptionPayload(), is(notNullValue()));
+        assertInsertedPlanets(new Record(new Field("NAME", "Pluto")), new Record(new Field("NAME", "Krypton")));
+    }
+
+    private void assertInsertedPlanets(Record... records) throws SQLException
+    {
+        List<Map<String, String>> result = selectData("select * from PLANET where POSITION >= 10 order by POSITION", getDefaultDataSource());
+        assertRecords(result, records);
+    }
+
+    private Future<MuleMessage> insert(final String name, final Object position)
+    {
+        return executor.submit(new Callable<MuleMessage>()
+        {
+            @Override
+            public MuleMessage call() throws Exception
+            {
+                LocalMuleClient client = muleContext.getClient();
+                return client.send("vm://insertBatch", name, Collections.singletonMap("position", position));
+            }
+        });
+    }
+}
@@ -49,4 +49,17 @@ public class SelectDynamicQueryTestCase extends AbstractDbIntegrationTestCase
 
         assertMessageContains(response, getAllPlanetRecords());
     }
+
+    @Test
+    public void usesCachedDynamicQuery() throws Exception
+    {
+        LocalMuleClient client = muleContext.getClient();
+
+        for (int i = 0; i < 2; i++)
+        {
+            MuleMessage response = client.send("vm://selectCachedDynamicQuery", TEST_MESSAGE, null);
+
+            assertMessageContains(response, getAllPlanetRecords());
+        }
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.connection.pool;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+@SmallTest
+public class ConcurrentBagTestCase extends AbstractMuleTestCase
+{
+
+    private final ConcurrentBag.Listener listener = mock(ConcurrentBag.Listener.class);
+    private final ConcurrentBag<TestEntry> bag = new ConcurrentBag<>(listener);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void shutdownExecutor()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void borrowsAvailableEntry() throws Exception
+    {
+        TestEntry entry = new TestEntry();
+        bag.add(entry);
+
+        assertThat(bag.borrow(0, MILLISECONDS), is(sameInstance(entry)));
+        assertThat(entry.getState(), is(ConcurrentBag.Entry.IN_USE));
+        assertThat(bag.borrow(0, MILLISECONDS), is(nullValue()));
+        verify(listener).entryRequested(1);
+    }
+
+    @Test
+    public void borrowsEntryReturnedByCurrentThread() throws Exception
+    {
+        TestEntry first = new TestEntry();
+        TestEntry second = new TestEntry();
+        bag.add(first);
+        bag.add(second);
+
+        TestEntry borrowed = bag.borrow(0, MILLISECONDS);
+        TestEntry other = bag.borrow(0, MILLISECONDS);
+        bag.requite(other);
+        bag.requite(borrowed);
+
+        assertThat(bag.borrow(0, MILLISECONDS), is(sameInstance(borrowed)));
+        verify(listener, never()).entryRequested(1);
+    }
+
+    @Test
+    public void handsOffReturnedEntryToWaitingThread() throws Exception
+    {
+        final TestEntry entry = new TestEntry();
+        bag.add(entry);
+        bag.borrow(0, MILLISECONDS);
+
+        Future<TestEntry> waiting = executor.submit(new Callable<TestEntry>()
+        {
+            @Override
+            public TestEntry call() throws Exception
+            {
+                return bag.borrow(10, SECONDS);
+            }
+        });
+        while (bag.getWaitingThreadCount() == 0)
+        {
+            Thread.yield();
+        }
+        bag.requite(entry);
+
+        assertThat(waiting.get(10, SECONDS), is(sameInstance(entry)));
+        assertThat(entry.getState(), is(ConcurrentBag.Entry.IN_USE));
+    }
+
+    @Test
+    public void removesOnlyBorrowedOrReservedEntries() throws Exception
+    {
+        TestEntry entry = new TestEntry();
+        bag.add(entry);
+
+        assertThat(bag.remove(entry), is(false));
+        assertThat(bag.reserve(entry), is(true));
+        assertThat(bag.borrow(0, MILLISECONDS), is(nullValue()));
+        assertThat(bag.remove(entry), is(true));
+        assertThat(entry.getState(), is(ConcurrentBag.Entry.REMOVED));
+        assertThat(bag.size(), is(0));
+    }
+
+    @Test
+    public void unreservedEntryCanBeBorrowed() throws Exception
+    {
+        TestEntry entry = new TestEntry();
+        bag.add(entry);
+
+        bag.reserve(entry);
+        bag.unreserve(entry);
+
+        assertThat(bag.borrow(0, MILLISECONDS), is(sameInstance(entry)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsEntriesOnceClosed() throws Exception
+    {
+        bag.close();
+        bag.add(new TestEntry());
+    }
+
+    private static class TestEntry extends ConcurrentBag.Entry
+    {
+
+    }
+}
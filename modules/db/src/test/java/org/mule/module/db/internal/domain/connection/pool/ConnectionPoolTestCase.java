@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.connection.pool;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mule.module.db.internal.domain.connection.DbPoolType;
+import org.mule.module.db.internal.domain.connection.DbPoolingProfile;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.probe.JUnitProbe;
+import org.mule.tck.probe.PollingProber;
+import org.mule.tck.size.SmallTest;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class ConnectionPoolTestCase extends AbstractMuleTestCase
+{
+
+    private static final String SQL = "select * from PLANET";
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final Connection otherConnection = mock(Connection.class);
+    private final DbPoolingProfile poolingProfile = new DbPoolingProfile();
+    private ConnectionPool pool;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        when(dataSource.getConnection()).thenReturn(connection, otherConnection);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        when(otherConnection.getAutoCommit()).thenReturn(true);
+        when(otherConnection.isValid(anyInt())).thenReturn(true);
+
+        poolingProfile.setPoolType(DbPoolType.CONCURRENT_BAG);
+        poolingProfile.setMaxPoolSize(1);
+        poolingProfile.setMaxWaitMillis(1000);
+        poolingProfile.setPreparedStatementCacheSize(0);
+    }
+
+    @After
+    public void disposePool()
+    {
+        if (pool != null)
+        {
+            pool.dispose();
+        }
+    }
+
+    @Test
+    public void reusesReturnedConnection() throws Exception
+    {
+        pool = new ConnectionPool("test", dataSource, poolingProfile);
+
+        Connection first = pool.getConnection();
+        first.close();
+        Connection second = pool.getConnection();
+
+        verify(dataSource, times(1)).getConnection();
+        verify(connection, never()).close();
+        assertThat(first.isClosed(), is(true));
+        assertThat(second.isClosed(), is(false));
+        assertThat(pool.getStatistics().getBorrows(), is(2L));
+        assertThat(pool.getStatistics().getActiveConnections(), is(1));
+    }
+
+    @Test
+    public void timesOutWhenPoolIsExhausted() throws Exception
+    {
+        poolingProfile.setMaxWaitMillis(100);
+        pool = new ConnectionPool("test", dataSource, poolingProfile);
+
+        pool.getConnection();
+        try
+        {
+            pool.getConnection();
+            fail("Expected the pool to be exhausted");
+        }
+        catch (SQLTransientConnectionException e)
+        {
+            assertThat(pool.getStatistics().getBorrowTimeouts(), is(1L));
+            assertThat(pool.getStatistics().getTotalConnections(), is(1));
+        }
+    }
+
+    @Test
+    public void closesBrokenConnection() throws Exception
+    {
+        when(connection.prepareStatement(SQL)).thenThrow(new SQLException("Connection reset", "08006"));
+        pool = new ConnectionPool("test", dataSource, poolingProfile);
+
+        Connection pooled = pool.getConnection();
+        try
+        {
+            pooled.prepareStatement(SQL);
+            fail("Expected the connection to fail");
+        }
+        catch (SQLException e)
+        {
+            pooled.close();
+        }
+        pool.getConnection();
+
+        verify(connection).close();
+        assertThat(pool.getStatistics().getConnectionsCreated(), is(2L));
+        assertThat(pool.getStatistics().getConnectionsClosed(), is(1L));
+    }
+
+    @Test
+    public void restoresConnectionSettings() throws Exception
+    {
+        when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+        pool = new ConnectionPool("test", dataSource, poolingProfile);
+
+        Connection pooled = pool.getConnection();
+        pooled.setAutoCommit(false);
+        pooled.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+        when(connection.getAutoCommit()).thenReturn(false);
+        pooled.close();
+
+        verify(connection).rollback();
+        verify(connection).setAutoCommit(true);
+        verify(connection).setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        verify(connection, never()).setReadOnly(false);
+    }
+
+    @Test
+    public void replacesInvalidIdleConnection() throws Exception
+    {
+        when(connection.isValid(anyInt())).thenReturn(false);
+        pool = new ConnectionPool("test", dataSource, poolingProfile);
+
+        pool.getConnection().close();
+        Thread.sleep(600);
+        Connection pooled = pool.getConnection();
+        pooled.prepareStatement(SQL);
+
+        verify(connection).close();
+        verify(otherConnection).prepareStatement(SQL);
+        assertThat(pool.getStatistics().getValidationFailures(), is(1L));
+    }
+
+    @Test
+    public void cachesStatementsPerConnection() throws Exception
+    {
+        poolingProfile.setPreparedStatementCacheSize(5);
+        when(connection.prepareStatement(SQL)).thenReturn(mock(PreparedStatement.class));
+        pool = new ConnectionPool("test", dataSource, poolingProfile);
+
+        Connection pooled = pool.getConnection();
+        pooled.prepareStatement(SQL).close();
+        pooled.close();
+        pooled = pool.getConnection();
+        pooled.prepareStatement(SQL).close();
+
+        verify(connection, times(1)).prepareStatement(SQL);
+        assertThat(pool.getStatementCacheStatistics().getHits(), is(1L));
+    }
+
+    @Test
+    public void detectsLeakedConnection() throws Exception
+    {
+        poolingProfile.setLeakDetectionThresholdMillis(200);
+        pool = new ConnectionPool("test", dataSource, poolingProfile);
+
+        pool.getConnection();
+
+        new PollingProber(5000, 100).check(new JUnitProbe()
+        {
+            @Override
+            protected boolean test() throws Exception
+            {
+                assertThat(pool.getStatistics().getLeaksDetected(), is(1L));
+                return true;
+            }
+        });
+    }
+
+    @Test
+    public void closesIdleConnections() throws Exception
+    {
+        poolingProfile.setLeakDetectionThresholdMillis(200);
+        poolingProfile.setIdleTimeoutMillis(100);
+        pool = new ConnectionPool("test", dataSource, poolingProfile);
+
+        pool.getConnection().close();
+
+        new PollingProber(5000, 100).check(new JUnitProbe()
+        {
+            @Override
+            protected boolean test() throws Exception
+            {
+                assertThat(pool.getStatistics().getTotalConnections(), is(0));
+                return true;
+            }
+        });
+        verify(connection).close();
+    }
+
+    @Test
+    public void keepsMinimumConnections() throws Exception
+    {
+        poolingProfile.setMaxPoolSize(2);
+        poolingProfile.setMinPoolSize(2);
+        pool = new ConnectionPool("test", dataSource, poolingProfile);
+
+        new PollingProber(5000, 100).check(new JUnitProbe()
+        {
+            @Override
+            protected boolean test() throws Exception
+            {
+                assertThat(pool.getStatistics().getIdleConnections(), is(2));
+                return true;
+            }
+        });
+    }
+
+    @Test
+    public void closesIdleConnectionsOnDispose() throws Exception
+    {
+        pool = new ConnectionPool("test", dataSource, poolingProfile);
+        Connection pooled = pool.getConnection();
+
+        pool.dispose();
+        verify(connection, never()).close();
+
+        pooled.close();
+        verify(connection).close();
+        assertThat(pool.getStatistics().getTotalConnections(), is(0));
+    }
+}
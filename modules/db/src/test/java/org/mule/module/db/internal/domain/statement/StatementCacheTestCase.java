@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.statement;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.Test;
+
+@SmallTest
+public class StatementCacheTestCase extends AbstractMuleTestCase
+{
+
+    private static final String SQL = "select * from PLANET where POSITION = ?";
+    private static final String OTHER_SQL = "select * from PLANET where NAME = ?";
+
+    private final Connection connection = mock(Connection.class);
+    private final StatementCacheStatistics statistics = new StatementCacheStatistics(2);
+    private final StatementCache cache = new StatementCache(2, statistics);
+
+    @Test
+    public void reusesClosedStatement() throws Exception
+    {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(SQL)).thenReturn(statement);
+
+        PreparedStatement first = cache.prepareStatement(connection, SQL);
+        first.setInt(1, 4);
+        first.close();
+        PreparedStatement second = cache.prepareStatement(connection, SQL);
+        second.executeQuery();
+
+        verify(connection, times(1)).prepareStatement(SQL);
+        verify(statement).clearParameters();
+        verify(statement, never()).close();
+        verify(statement).executeQuery();
+        assertThat(first.isClosed(), is(true));
+        assertThat(statistics.getHits(), is(1L));
+        assertThat(statistics.getMisses(), is(1L));
+    }
+
+    @Test
+    public void preparesNewStatementWhenCachedOneIsInUse() throws Exception
+    {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        PreparedStatement otherStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(SQL)).thenReturn(statement, otherStatement);
+
+        cache.prepareStatement(connection, SQL);
+        PreparedStatement second = cache.prepareStatement(connection, SQL);
+
+        assertThat(second, is(sameInstance(otherStatement)));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void distinguishesStatementOptions() throws Exception
+    {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        PreparedStatement keysStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(SQL)).thenReturn(statement);
+        when(connection.prepareStatement(SQL, Statement.RETURN_GENERATED_KEYS)).thenReturn(keysStatement);
+
+        cache.prepareStatement(connection, SQL).close();
+        cache.prepareStatement(connection, SQL, Statement.RETURN_GENERATED_KEYS).executeUpdate();
+
+        verify(keysStatement).executeUpdate();
+        verify(statement, never()).executeUpdate();
+        assertThat(statistics.getMisses(), is(2L));
+    }
+
+    @Test
+    public void cachesCallableStatements() throws Exception
+    {
+        CallableStatement statement = mock(CallableStatement.class);
+        when(connection.prepareCall("{ call test() }")).thenReturn(statement);
+
+        cache.prepareCall(connection, "{ call test() }").close();
+        CallableStatement cached = cache.prepareCall(connection, "{ call test() }");
+        cached.registerOutParameter(1, 4);
+
+        verify(statement).registerOutParameter(1, 4);
+        assertThat(statistics.getHits(), is(1L));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedIdleStatement() throws Exception
+    {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        PreparedStatement otherStatement = mock(PreparedStatement.class);
+        PreparedStatement thirdStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(SQL)).thenReturn(statement);
+        when(connection.prepareStatement(OTHER_SQL)).thenReturn(otherStatement);
+        when(connection.prepareStatement("select * from PLANET")).thenReturn(thirdStatement);
+
+        cache.prepareStatement(connection, SQL).close();
+        cache.prepareStatement(connection, OTHER_SQL).close();
+        cache.prepareStatement(connection, SQL).close();
+        cache.prepareStatement(connection, "select * from PLANET").close();
+
+        verify(otherStatement).close();
+        verify(statement, never()).close();
+        assertThat(cache.size(), is(2));
+        assertThat(statistics.getEvictions(), is(1L));
+        assertThat(statistics.getCachedStatements(), is(2));
+    }
+
+    @Test
+    public void discardsStatementThatFailed() throws Exception
+    {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.executeUpdate()).thenThrow(new SQLException("Connection reset"));
+        when(connection.prepareStatement(SQL)).thenReturn(statement);
+
+        PreparedStatement cached = cache.prepareStatement(connection, SQL);
+        try
+        {
+            cached.executeUpdate();
+            fail("Expected the statement to fail");
+        }
+        catch (SQLException e)
+        {
+            cached.close();
+        }
+
+        verify(statement).close();
+        assertThat(cache.size(), is(0));
+        assertThat(statistics.getCachedStatements(), is(0));
+    }
+
+    @Test
+    public void restoresChangedOptions() throws Exception
+    {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.getFetchSize()).thenReturn(10);
+        when(connection.prepareStatement(SQL)).thenReturn(statement);
+
+        PreparedStatement cached = cache.prepareStatement(connection, SQL);
+        cached.setMaxRows(5);
+        cached.setFetchSize(100);
+        cached.close();
+
+        verify(statement).setMaxRows(0);
+        verify(statement).setFetchSize(10);
+    }
+
+    @Test
+    public void closesAllStatementsOnClear() throws Exception
+    {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        PreparedStatement otherStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(SQL)).thenReturn(statement);
+        when(connection.prepareStatement(OTHER_SQL)).thenReturn(otherStatement);
+
+        cache.prepareStatement(connection, SQL).close();
+        PreparedStatement inUse = cache.prepareStatement(connection, OTHER_SQL);
+        cache.clear();
+        inUse.close();
+
+        verify(statement).close();
+        verify(otherStatement).close();
+        assertThat(cache.size(), is(0));
+        assertThat(statistics.getCachedStatements(), is(0));
+
+        cache.prepareStatement(connection, SQL);
+        verify(connection, times(2)).prepareStatement(SQL);
+    }
+}
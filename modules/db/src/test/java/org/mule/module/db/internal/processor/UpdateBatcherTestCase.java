@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.processor;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.mule.module.db.internal.processor.UpdateBatcher.BatchExecutor;
+import org.mule.module.db.internal.processor.UpdateBatcher.BatchedUpdate;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+@SmallTest
+public class UpdateBatcherTestCase extends AbstractMuleTestCase
+{
+
+    private static final long LONG_DELAY = 60000;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<List<String>> executedBatches = Collections.synchronizedList(new ArrayList<List<String>>());
+
+    @After
+    public void shutdownExecutor()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void coalescesConcurrentUpdatesUntilBatchIsFull() throws Exception
+    {
+        UpdateBatcher<String, String> batcher = new UpdateBatcher<>(3, LONG_DELAY, new RecordingExecutor());
+
+        List<Future<Object>> results = submit(batcher, "key", "a", "b", "c");
+
+        for (Future<Object> result : results)
+        {
+            assertThat(result.get(10, SECONDS), equalTo((Object) 1));
+        }
+        assertThat(executedBatches.size(), is(1));
+        assertThat(executedBatches.get(0), containsInAnyOrder("a", "b", "c"));
+    }
+
+    @Test
+    public void executesIncompleteBatchAfterMaxDelay() throws Exception
+    {
+        UpdateBatcher<String, String> batcher = new UpdateBatcher<>(3, 10, new RecordingExecutor());
+
+        assertThat(batcher.execute("key", "a"), equalTo((Object) 1));
+        assertThat(batcher.execute("key", "b"), equalTo((Object) 1));
+
+        assertThat(executedBatches.size(), is(2));
+        assertThat(executedBatches.get(0), containsInAnyOrder("a"));
+        assertThat(executedBatches.get(1), containsInAnyOrder("b"));
+    }
+
+    @Test
+    public void batchesEachKeySeparately() throws Exception
+    {
+        UpdateBatcher<String, String> batcher = new UpdateBatcher<>(2, LONG_DELAY, new RecordingExecutor());
+
+        List<Future<Object>> results = submit(batcher, "first", "a", "b");
+        results.addAll(submit(batcher, "second", "c", "d"));
+
+        for (Future<Object> result : results)
+        {
+            assertThat(result.get(10, SECONDS), equalTo((Object) 1));
+        }
+        assertThat(executedBatches.size(), is(2));
+        assertThat(executedBatches, containsInAnyOrder(containsInAnyOrder("a", "b"), containsInAnyOrder("c", "d")));
+    }
+
+    @Test
+    public void deliversEachUpdateItsOwnOutcome() throws Exception
+    {
+        final SQLException error = new SQLException("Duplicate key");
+        UpdateBatcher<String, String> batcher = new UpdateBatcher<>(2, LONG_DELAY, new BatchExecutor<String, String>()
+        {
+            @Override
+            public void execute(String key, List<BatchedUpdate<String>> updates)
+            {
+                for (BatchedUpdate<String> update : updates)
+                {
+                    if (update.getUpdate().equals("bad"))
+                    {
+                        update.fail(error);
+                    }
+                    else
+                    {
+                        update.complete(update.getUpdate().length());
+                    }
+                }
+            }
+        });
+
+        List<Future<Object>> results = submit(batcher, "key", "good", "bad");
+
+        assertThat(results.get(0).get(10, SECONDS), equalTo((Object) 4));
+        assertFailure(results.get(1), error);
+    }
+
+    @Test
+    public void failsAllUpdatesWhenBatchExecutionFails() throws Exception
+    {
+        final RuntimeException error = new IllegalArgumentException("Invalid batch");
+        UpdateBatcher<String, String> batcher = new UpdateBatcher<>(2, LONG_DELAY, new BatchExecutor<String, String>()
+        {
+            @Override
+            public void execute(String key, List<BatchedUpdate<String>> updates)
+            {
+                throw error;
+            }
+        });
+
+        List<Future<Object>> results = submit(batcher, "key", "a", "b");
+
+        for (Future<Object> result : results)
+        {
+            assertFailure(result, error);
+        }
+    }
+
+    @Test
+    public void failsUpdatesLeftWithoutOutcome() throws Exception
+    {
+        UpdateBatcher<String, String> batcher = new UpdateBatcher<>(1, LONG_DELAY, new BatchExecutor<String, String>()
+        {
+            @Override
+            public void execute(String key, List<BatchedUpdate<String>> updates)
+            {
+            }
+        });
+
+        try
+        {
+            batcher.execute("key", "a");
+            fail("Expected the update to fail");
+        }
+        catch (IllegalStateException e)
+        {
+            // Expected
+        }
+    }
+
+    private List<Future<Object>> submit(final UpdateBatcher<String, String> batcher, final String key, String... updates)
+    {
+        List<Future<Object>> results = new ArrayList<>();
+        for (final String update : updates)
+        {
+            results.add(executor.submit(new Callable<Object>()
+            {
+                @Override
+                public Object call() throws Exception
+                {
+                    return batcher.execute(key, update);
+                }
+            }));
+        }
+
+        return results;
+    }
+
+    private void assertFailure(Future<Object> result, Throwable expected) throws Exception
+    {
+        try
+        {
+            result.get(10, SECONDS);
+            fail("Expected the update to fail");
+        }
+        catch (ExecutionException e)
+        {
+            assertThat(e.getCause(), sameInstance(expected));
+        }
+    }
+
+    private class RecordingExecutor implements BatchExecutor<String, String>
+    {
+
+        @Override
+        public void execute(String key, List<BatchedUpdate<String>> updates)
+        {
+            List<String> batch = new ArrayList<>();
+            for (BatchedUpdate<String> update : updates)
+            {
+                batch.add(update.getUpdate());
+                update.complete(1);
+            }
+            executedBatches.add(batch);
+        }
+    }
+}
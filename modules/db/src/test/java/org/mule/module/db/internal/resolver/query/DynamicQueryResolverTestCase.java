@@ -7,9 +7,13 @@
 
 package org.mule.module.db.internal.resolver.query;
 
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.hamcrest.core.IsSame.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mule.api.expression.ExpressionManager;
 import org.mule.api.expression.ExpressionRuntimeException;
@@ -26,6 +30,8 @@ import org.junit.Test;
 public class DynamicQueryResolverTestCase extends AbstractQueryResolverTestCase
 {
 
+    private static final int TEMPLATE_CACHE_SIZE = 10;
+
     private final Query query = createQuery(createQueryTemplate(DYNAMIC_SQL_TEXT));
 
     @Test
@@ -71,4 +77,90 @@ public class DynamicQueryResolverTestCase extends AbstractQueryResolverTestCase
 
         queryResolver.resolve(null, muleEvent);
     }
+
+    @Test
+    public void reusesParsedTemplateForSameSqlText() throws Exception
+    {
+        ExpressionManager expressionManager = mock(ExpressionManager.class);
+        when(expressionManager.parse(DYNAMIC_SQL_TEXT, muleEvent)).thenReturn(STATIC_SQL_TEXT);
+
+        QueryTemplate expectedQueryTemplate = createQueryTemplate(STATIC_SQL_TEXT);
+        QueryTemplateParser queryTemplateParser = mock(QueryTemplateParser.class);
+        when(queryTemplateParser.parse(STATIC_SQL_TEXT)).thenReturn(expectedQueryTemplate);
+
+        DynamicQueryResolver queryResolver = new DynamicQueryResolver(query, queryTemplateParser, expressionManager, TEMPLATE_CACHE_SIZE);
+
+        queryResolver.resolve(null, muleEvent);
+        Query resolvedQuery = queryResolver.resolve(null, muleEvent);
+
+        assertThat(resolvedQuery.getQueryTemplate(), sameInstance(expectedQueryTemplate));
+        verify(queryTemplateParser, times(1)).parse(STATIC_SQL_TEXT);
+        QueryTemplateCacheStatistics statistics = queryResolver.getTemplateCacheStatistics();
+        assertThat(statistics.getHits(), is(1L));
+        assertThat(statistics.getMisses(), is(1L));
+        assertThat(statistics.getCachedTemplates(), is(1));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedTemplate() throws Exception
+    {
+        String otherSqlText = "select * from other";
+        String thirdSqlText = "select * from third";
+        ExpressionManager expressionManager = mock(ExpressionManager.class);
+        when(expressionManager.parse(DYNAMIC_SQL_TEXT, muleEvent)).thenReturn(STATIC_SQL_TEXT, otherSqlText, STATIC_SQL_TEXT, thirdSqlText, otherSqlText);
+
+        QueryTemplateParser queryTemplateParser = mock(QueryTemplateParser.class);
+        when(queryTemplateParser.parse(STATIC_SQL_TEXT)).thenReturn(createQueryTemplate(STATIC_SQL_TEXT));
+        when(queryTemplateParser.parse(otherSqlText)).thenReturn(createQueryTemplate(otherSqlText));
+        when(queryTemplateParser.parse(thirdSqlText)).thenReturn(createQueryTemplate(thirdSqlText));
+
+        DynamicQueryResolver queryResolver = new DynamicQueryResolver(query, queryTemplateParser, expressionManager, 2);
+
+        for (int i = 0; i < 5; i++)
+        {
+            queryResolver.resolve(null, muleEvent);
+        }
+
+        verify(queryTemplateParser, times(1)).parse(STATIC_SQL_TEXT);
+        verify(queryTemplateParser, times(2)).parse(otherSqlText);
+        QueryTemplateCacheStatistics statistics = queryResolver.getTemplateCacheStatistics();
+        assertThat(statistics.getEvictions(), is(2L));
+        assertThat(statistics.getCachedTemplates(), is(2));
+    }
+
+    @Test
+    public void doesNotCacheTemplatesByDefault() throws Exception
+    {
+        ExpressionManager expressionManager = mock(ExpressionManager.class);
+        when(expressionManager.parse(DYNAMIC_SQL_TEXT, muleEvent)).thenReturn(STATIC_SQL_TEXT);
+
+        QueryTemplateParser queryTemplateParser = mock(QueryTemplateParser.class);
+        when(queryTemplateParser.parse(STATIC_SQL_TEXT)).thenReturn(createQueryTemplate(STATIC_SQL_TEXT));
+
+        DynamicQueryResolver queryResolver = new DynamicQueryResolver(query, queryTemplateParser, expressionManager);
+
+        queryResolver.resolve(null, muleEvent);
+        queryResolver.resolve(null, muleEvent);
+
+        verify(queryTemplateParser, times(2)).parse(STATIC_SQL_TEXT);
+        assertThat(queryResolver.getTemplateCacheStatistics(), nullValue());
+    }
+
+    @Test
+    public void parsesEveryQueryWhenCacheIsDisabled() throws Exception
+    {
+        ExpressionManager expressionManager = mock(ExpressionManager.class);
+        when(expressionManager.parse(DYNAMIC_SQL_TEXT, muleEvent)).thenReturn(STATIC_SQL_TEXT);
+
+        QueryTemplateParser queryTemplateParser = mock(QueryTemplateParser.class);
+        when(queryTemplateParser.parse(STATIC_SQL_TEXT)).thenReturn(createQueryTemplate(STATIC_SQL_TEXT));
+
+        DynamicQueryResolver queryResolver = new DynamicQueryResolver(query, queryTemplateParser, expressionManager, 0);
+
+        queryResolver.resolve(null, muleEvent);
+        queryResolver.resolve(null, muleEvent);
+
+        verify(queryTemplateParser, times(2)).parse(STATIC_SQL_TEXT);
+        assertThat(queryResolver.getTemplateCacheStatistics(), nullValue());
+    }
 }
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.result.row;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+import org.mule.module.db.integration.TestRecordUtil;
+import org.mule.module.db.integration.model.Field;
+import org.mule.module.db.integration.model.Record;
+import org.mule.module.db.test.util.ColumnMetadata;
+import org.mule.module.db.test.util.ResultSetBuilder;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.util.SerializationUtils;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+@SmallTest
+public class ColumnarRowHandlerTestCase extends AbstractMuleTestCase
+{
+
+    public static final String COLUMN_NAME = "columnName";
+    public static final String COLUMN_LABEL = "columnLabel";
+    public static final String COLUMN_VALUE = "columnValue";
+    public static final String OTHER_COLUMN_NAME = "otherColumnName";
+    public static final String OTHER_COLUMN_LABEL = "otherColumnLabel";
+
+    private final ColumnarRowHandler rowHandler = new ColumnarRowHandler();
+
+    @Test
+    public void usesColumnLabel() throws Exception
+    {
+        ResultSet resultSet = createResultSet(Collections.<String, Object>singletonMap(COLUMN_NAME, COLUMN_VALUE));
+        resultSet.next();
+
+        Map<String, Object> record = rowHandler.process(resultSet);
+
+        TestRecordUtil.assertRecord(new Record(new Field(COLUMN_LABEL, COLUMN_VALUE)), new Record(record));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void detectColumnLabelDuplication() throws Exception
+    {
+        List<ColumnMetadata> columns = new ArrayList<ColumnMetadata>();
+        columns.add(new ColumnMetadata(COLUMN_NAME, COLUMN_LABEL, 1));
+        columns.add(new ColumnMetadata(COLUMN_NAME, COLUMN_LABEL.toUpperCase(), 2));
+
+        ResultSetBuilder resultSetBuilder = new ResultSetBuilder(columns);
+        resultSetBuilder.with(Collections.<String, Object>emptyMap());
+        ResultSet build = resultSetBuilder.build();
+        build.next();
+
+        rowHandler.process(build);
+    }
+
+    @Test
+    public void accessesColumnsIgnoringCase() throws Exception
+    {
+        ResultSet resultSet = createResultSet(Collections.<String, Object>singletonMap(COLUMN_NAME, COLUMN_VALUE));
+        resultSet.next();
+
+        Map<String, Object> record = rowHandler.process(resultSet);
+
+        assertThat(record.get(COLUMN_LABEL.toUpperCase()), equalTo((Object) COLUMN_VALUE));
+        assertThat(record.containsKey(COLUMN_LABEL.toLowerCase()), is(true));
+        assertThat(record.containsKey(COLUMN_NAME), is(false));
+        assertThat(record.get(COLUMN_NAME), nullValue());
+        assertThat(record.keySet(), contains(COLUMN_LABEL, OTHER_COLUMN_LABEL));
+    }
+
+    @Test
+    public void sharesColumnIndexBetweenRows() throws Exception
+    {
+        ResultSet resultSet = createResultSet(Collections.<String, Object>singletonMap(COLUMN_NAME, "first"), Collections.<String, Object>singletonMap(COLUMN_NAME, "second"));
+        RowHandler resultSetRowHandler = rowHandler.createRowHandler(resultSet);
+        resultSet.next();
+        Map<String, Object> firstRecord = resultSetRowHandler.process(resultSet);
+        resultSet.next();
+        Map<String, Object> secondRecord = resultSetRowHandler.process(resultSet);
+
+        ResultSet otherResultSet = createResultSet(Collections.<String, Object>singletonMap(COLUMN_NAME, "third"));
+        otherResultSet.next();
+        Map<String, Object> thirdRecord = rowHandler.process(otherResultSet);
+
+        assertThat(firstRecord.get(COLUMN_LABEL), equalTo((Object) "first"));
+        assertThat(secondRecord.get(COLUMN_LABEL), equalTo((Object) "second"));
+        assertThat(thirdRecord.get(COLUMN_LABEL), equalTo((Object) "third"));
+        assertThat(((ColumnarRow) secondRecord).getIndex(), sameInstance(((ColumnarRow) firstRecord).getIndex()));
+        assertThat(((ColumnarRow) thirdRecord).getIndex(), sameInstance(((ColumnarRow) firstRecord).getIndex()));
+    }
+
+    @Test
+    public void keepsColumnIndexPerResultSet() throws Exception
+    {
+        ResultSet resultSet = createResultSet(Collections.<String, Object>singletonMap(COLUMN_NAME, "first"), Collections.<String, Object>singletonMap(COLUMN_NAME, "second"));
+        RowHandler resultSetRowHandler = rowHandler.createRowHandler(resultSet);
+
+        List<ColumnMetadata> otherColumns = new ArrayList<ColumnMetadata>();
+        otherColumns.add(new ColumnMetadata(OTHER_COLUMN_NAME, OTHER_COLUMN_LABEL, 1));
+        ResultSet otherResultSet = new ResultSetBuilder(otherColumns).with(Collections.<String, Object>singletonMap(OTHER_COLUMN_NAME, "other")).build();
+        RowHandler otherResultSetRowHandler = rowHandler.createRowHandler(otherResultSet);
+
+        resultSet.next();
+        otherResultSet.next();
+        Map<String, Object> firstRecord = resultSetRowHandler.process(resultSet);
+        Map<String, Object> otherRecord = otherResultSetRowHandler.process(otherResultSet);
+        resultSet.next();
+        Map<String, Object> secondRecord = resultSetRowHandler.process(resultSet);
+
+        assertThat(firstRecord.get(COLUMN_LABEL), equalTo((Object) "first"));
+        assertThat(secondRecord.get(COLUMN_LABEL), equalTo((Object) "second"));
+        assertThat(otherRecord.get(OTHER_COLUMN_LABEL), equalTo((Object) "other"));
+        assertThat(otherRecord.containsKey(COLUMN_LABEL), is(false));
+        assertThat(((ColumnarRow) secondRecord).getIndex(), sameInstance(((ColumnarRow) firstRecord).getIndex()));
+    }
+
+    @Test
+    public void behavesAsAMapWhenModified() throws Exception
+    {
+        ResultSet resultSet = createResultSet(Collections.<String, Object>singletonMap(COLUMN_NAME, COLUMN_VALUE));
+        resultSet.next();
+
+        Map<String, Object> record = rowHandler.process(resultSet);
+        Map<String, Object> expected = new HashMap<String, Object>();
+        expected.put(COLUMN_LABEL, COLUMN_VALUE);
+        expected.put(OTHER_COLUMN_LABEL, null);
+        assertThat(record, equalTo(expected));
+        assertThat(record.hashCode(), equalTo(expected.hashCode()));
+
+        assertThat(record.put(OTHER_COLUMN_LABEL.toUpperCase(), 1), nullValue());
+        assertThat(record.get(OTHER_COLUMN_LABEL), equalTo((Object) 1));
+
+        record.put("newColumn", 2);
+        assertThat(record.size(), equalTo(3));
+        assertThat(record.get("NEWCOLUMN"), equalTo((Object) 2));
+        assertThat(record.get(OTHER_COLUMN_LABEL), equalTo((Object) 1));
+
+        assertThat(record.remove(COLUMN_LABEL), equalTo((Object) COLUMN_VALUE));
+        assertThat(record.containsKey(COLUMN_LABEL), is(false));
+        assertThat(record.size(), equalTo(2));
+    }
+
+    @Test
+    public void isSerializable() throws Exception
+    {
+        ResultSet resultSet = createResultSet(Collections.<String, Object>singletonMap(COLUMN_NAME, COLUMN_VALUE));
+        resultSet.next();
+
+        Map<String, Object> record = rowHandler.process(resultSet);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> deserialized = (Map<String, Object>) SerializationUtils.deserialize(SerializationUtils.serialize((ColumnarRow) record));
+
+        assertThat(deserialized, equalTo(record));
+        assertThat(deserialized.get(COLUMN_LABEL.toUpperCase()), equalTo((Object) COLUMN_VALUE));
+    }
+
+    private ResultSet createResultSet(Map<String, Object>... records)
+    {
+        List<ColumnMetadata> columns = new ArrayList<ColumnMetadata>();
+        columns.add(new ColumnMetadata(COLUMN_NAME, COLUMN_LABEL, 1));
+        columns.add(new ColumnMetadata(OTHER_COLUMN_NAME, OTHER_COLUMN_LABEL, 2));
+
+        ResultSetBuilder resultSetBuilder = new ResultSetBuilder(columns);
+        for (Map<String, Object> record : records)
+        {
+            resultSetBuilder.with(record);
+        }
+
+        return resultSetBuilder.build();
+    }
+}
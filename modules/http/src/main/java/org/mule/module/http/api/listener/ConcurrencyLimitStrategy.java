@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.api.listener;
+
+/**
+ * How the amount of requests a listener processes at the same time is limited.
+ */
+public enum ConcurrencyLimitStrategy
+{
+    /**
+     * The limit is always the configured maximum.
+     */
+    FIXED,
+    /**
+     * The limit is lowered when the latency of the requests grows and raised again when it recovers,
+     * never going above the configured maximum.
+     */
+    ADAPTIVE;
+}
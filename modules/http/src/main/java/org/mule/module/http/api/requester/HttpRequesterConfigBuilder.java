@@ -97,6 +97,37 @@ public class HttpRequesterConfigBuilder
         return this;
     }
 
+    /**
+     * @param maxConnectionsPerHost the maximum number of outgoing connections opened to the same host
+     * @return the builder
+     */
+    public HttpRequesterConfigBuilder setMaxConnectionsPerHost(int maxConnectionsPerHost)
+    {
+        defaultHttpRequesterConfig.setMaxConnectionsPerHost(maxConnectionsPerHost);
+        return this;
+    }
+
+    /**
+     * @param connectionWaitTimeout the maximum time in milliseconds a request waits for a connection when the
+     *                              limits are reached, or -1 to wait up to the response timeout
+     * @return the builder
+     */
+    public HttpRequesterConfigBuilder setConnectionWaitTimeout(int connectionWaitTimeout)
+    {
+        defaultHttpRequesterConfig.setConnectionWaitTimeout(connectionWaitTimeout);
+        return this;
+    }
+
+    /**
+     * @param prewarmConnections the number of connections opened to the configured host when the config is started
+     * @return the builder
+     */
+    public HttpRequesterConfigBuilder setPrewarmConnections(int prewarmConnections)
+    {
+        defaultHttpRequesterConfig.setPrewarmConnections(prewarmConnections);
+        return this;
+    }
+
     /**
      * @param usePersistentConnections true to reuse a connection for several request,
      *                                 false to discard a connection after the first request.
@@ -118,6 +149,37 @@ public class HttpRequesterConfigBuilder
         return this;
     }
 
+    /**
+     * @param enableHttp2 true to multiplex the requests to each host over a single HTTP/2 connection. HTTP/2 support
+     *                    is experimental and only implements draft 14 of the protocol (h2-14 and h2c-14).
+     * @return the builder
+     */
+    public HttpRequesterConfigBuilder setEnableHttp2(boolean enableHttp2)
+    {
+        defaultHttpRequesterConfig.setEnableHttp2(enableHttp2);
+        return this;
+    }
+
+    /**
+     * @param enableCompression true to ask for gzip or deflate compressed responses and decompress them as they are consumed.
+     * @return the builder
+     */
+    public HttpRequesterConfigBuilder setEnableCompression(boolean enableCompression)
+    {
+        defaultHttpRequesterConfig.setEnableCompression(enableCompression);
+        return this;
+    }
+
+    /**
+     * @param enableResponseCache true to reuse the responses to GET requests as the HTTP caching headers allow.
+     * @return the builder
+     */
+    public HttpRequesterConfigBuilder setEnableResponseCache(boolean enableResponseCache)
+    {
+        defaultHttpRequesterConfig.setEnableResponseCache(enableResponseCache);
+        return this;
+    }
+
     /**
      * @param protocol protocol to use, HTTP or HTTPS. Needs to be HTTPS to establish HTTPS connections
      * @return the builder
@@ -9,11 +9,15 @@ package org.mule.module.http.internal;
 import static org.mule.util.StringUtils.WHITE_SPACE;
 import org.mule.api.MuleRuntimeException;
 import org.mule.module.http.internal.multipart.HttpPart;
+import org.mule.module.http.internal.multipart.MultipartStreamReader;
+import org.mule.module.http.internal.multipart.PartContentBuffer;
 import org.mule.util.StringUtils;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
@@ -21,18 +25,15 @@ import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.mail.BodyPart;
-import javax.mail.Header;
 import javax.mail.MessagingException;
+import javax.mail.internet.ContentDisposition;
 import javax.mail.internet.ContentType;
-import javax.mail.internet.MimeMultipart;
+import javax.mail.internet.MimeUtility;
 import javax.mail.internet.ParseException;
-import javax.mail.util.ByteArrayDataSource;
 
 import org.apache.commons.io.IOUtils;
 
@@ -42,7 +43,13 @@ public class HttpParser
     private static final String SPACE_ENTITY = "%20";
     private static final String PLUS_SIGN = "\\+";
     private static final String CONTENT_DISPOSITION_PART_HEADER = "Content-Disposition";
+    private static final String CONTENT_TYPE_PART_HEADER = "Content-Type";
+    private static final String CONTENT_TRANSFER_ENCODING_PART_HEADER = "Content-Transfer-Encoding";
     private static final String NAME_ATTRIBUTE = "name";
+    private static final String FILENAME_ATTRIBUTE = "filename";
+    private static final String BOUNDARY_PARAMETER = "boundary";
+    private static final String DEFAULT_PART_CONTENT_TYPE = "text/plain";
+    private static final Set<String> IDENTITY_TRANSFER_ENCODINGS = ImmutableSet.of("7bit", "8bit", "binary");
 
     public static String extractPath(String uri)
     {
@@ -68,58 +75,118 @@ public class HttpParser
 
     public static Collection<HttpPart> parseMultipartContent(InputStream content, String contentType) throws IOException
     {
-        MimeMultipart mimeMultipart = null;
-        List<HttpPart> parts = Lists.newArrayList();
+        return parseMultipartContent(content, contentType, PartContentBuffer.UNLIMITED_THRESHOLD, null);
+    }
 
+    /**
+     * Parses a multipart body as it is read from the stream. The content of each part is kept in memory up to
+     * the given threshold, larger parts are written to temporary files that are removed by {@link HttpPart#delete()}.
+     *
+     * @param content the multipart body
+     * @param contentType the content type of the body, the boundary is taken from the body if it has none
+     * @param inMemoryThreshold the maximum number of bytes of a part kept in memory, or
+     *                          {@link PartContentBuffer#UNLIMITED_THRESHOLD} to keep every part in memory
+     * @param tempDirectory the directory of the temporary files, may be null if the threshold is unlimited
+     * @return the parts of the body, in the order they were sent
+     * @throws IOException if the body cannot be read or is not a valid multipart body
+     */
+    public static Collection<HttpPart> parseMultipartContent(InputStream content, String contentType, long inMemoryThreshold, File tempDirectory) throws IOException
+    {
+        String boundary;
         try
         {
-            mimeMultipart = new MimeMultipart(new ByteArrayDataSource(content, contentType));
+            boundary = new ContentType(contentType).getParameter(BOUNDARY_PARAMETER);
         }
-        catch (MessagingException e)
+        catch (ParseException e)
         {
             throw new IOException(e);
         }
-
+        List<HttpPart> parts = Lists.newArrayList();
+        MultipartStreamReader reader = new MultipartStreamReader(content, boundary);
         try
         {
-            int partCount = mimeMultipart.getCount();
-
-            for (int i = 0; i < partCount; i++)
+            while (reader.nextPart())
             {
-                BodyPart part = mimeMultipart.getBodyPart(i);
+                List<String[]> headers = reader.getHeaders();
+                PartContentBuffer partContent = readPartContent(reader, getHeader(headers, CONTENT_TRANSFER_ENCODING_PART_HEADER), inMemoryThreshold, tempDirectory);
 
-                String filename = part.getFileName();
-                String partName = filename;
-                String[] contentDispositions = part.getHeader(CONTENT_DISPOSITION_PART_HEADER);
-                if (contentDispositions != null)
+                String filename = null;
+                String partName = null;
+                String contentDisposition = getHeader(headers, CONTENT_DISPOSITION_PART_HEADER);
+                if (contentDisposition != null)
                 {
-                    String contentDisposition = contentDispositions[0];
-                    if (contentDisposition.contains(NAME_ATTRIBUTE))
-                    {
-                        partName = contentDisposition.substring(contentDisposition.indexOf(NAME_ATTRIBUTE) + NAME_ATTRIBUTE.length() + 2);
-                        partName = partName.substring(0, partName.indexOf("\""));
-                    }
+                    ContentDisposition disposition = new ContentDisposition(contentDisposition);
+                    filename = disposition.getParameter(FILENAME_ATTRIBUTE);
+                    partName = disposition.getParameter(NAME_ATTRIBUTE);
                 }
-                HttpPart httpPart = new HttpPart(partName, filename, IOUtils.toByteArray(part.getInputStream()), part.getContentType(), part.getSize());
-
-                Enumeration<Header> headers = part.getAllHeaders();
-
-                while (headers.hasMoreElements())
+                if (partName == null)
+                {
+                    partName = filename;
+                }
+                String partContentType = getHeader(headers, CONTENT_TYPE_PART_HEADER);
+                HttpPart httpPart = new HttpPart(partName, filename, partContent, partContentType != null ? partContentType : DEFAULT_PART_CONTENT_TYPE);
+                for (String[] header : headers)
                 {
-                    Header header = headers.nextElement();
-                    httpPart.addHeader(header.getName(), header.getValue());
+                    httpPart.addHeader(header[0], header[1]);
                 }
                 parts.add(httpPart);
             }
         }
-        catch (MessagingException e)
+        catch (IOException | MessagingException e)
         {
-            throw new IOException(e);
+            for (HttpPart part : parts)
+            {
+                part.delete();
+            }
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
         }
 
         return parts;
     }
 
+    private static PartContentBuffer readPartContent(MultipartStreamReader reader, String transferEncoding, long inMemoryThreshold, File tempDirectory) throws IOException, MessagingException
+    {
+        PartContentBuffer partContent = new PartContentBuffer(inMemoryThreshold, tempDirectory);
+        try
+        {
+            reader.readContent(partContent);
+            partContent.close();
+        }
+        catch (IOException e)
+        {
+            partContent.delete();
+            throw e;
+        }
+        if (transferEncoding == null || IDENTITY_TRANSFER_ENCODINGS.contains(transferEncoding.toLowerCase()))
+        {
+            return partContent;
+        }
+
+        PartContentBuffer decodedContent = new PartContentBuffer(inMemoryThreshold, tempDirectory);
+        try (InputStream encodedStream = MimeUtility.decode(partContent.getInputStream(), transferEncoding))
+        {
+            IOUtils.copyLarge(encodedStream, decodedContent);
+        }
+        finally
+        {
+            decodedContent.close();
+            partContent.delete();
+        }
+        return decodedContent;
+    }
+
+    private static String getHeader(List<String[]> headers, String name)
+    {
+        for (String[] header : headers)
+        {
+            if (header[0].equalsIgnoreCase(name))
+            {
+                return header[1];
+            }
+        }
+        return null;
+    }
+
     public static String sanitizePathWithStartSlash(String path)
     {
         if (path == null)
@@ -287,6 +354,10 @@ public class HttpParser
      */
     public static String normalizePathWithSpacesOrEncodedSpaces(String path)
     {
+        if (path.indexOf('%') == -1 && path.indexOf('+') == -1)
+        {
+            return path;
+        }
         return path.replaceAll(SPACE_ENTITY, WHITE_SPACE).replaceAll(PLUS_SIGN, WHITE_SPACE);
     }
 
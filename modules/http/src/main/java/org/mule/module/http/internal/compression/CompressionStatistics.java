@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.compression;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the message bodies compressed by a listener or decompressed by a requester.
+ */
+public class CompressionStatistics
+{
+
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+
+    public void messageCompleted()
+    {
+        messages.incrementAndGet();
+    }
+
+    public void addBytes(long uncompressed, long compressed)
+    {
+        uncompressedBytes.addAndGet(uncompressed);
+        compressedBytes.addAndGet(compressed);
+    }
+
+    /**
+     * @return the amount of message bodies that were fully compressed or decompressed
+     */
+    public long getMessages()
+    {
+        return messages.get();
+    }
+
+    /**
+     * @return the amount of bytes sent or received on the wire
+     */
+    public long getCompressedBytes()
+    {
+        return compressedBytes.get();
+    }
+
+    /**
+     * @return the amount of bytes of the bodies before compressing or after decompressing them
+     */
+    public long getUncompressedBytes()
+    {
+        return uncompressedBytes.get();
+    }
+
+    /**
+     * @return the amount of bytes that were not transferred thanks to the compression
+     */
+    public long getBytesSaved()
+    {
+        return getUncompressedBytes() - getCompressedBytes();
+    }
+}
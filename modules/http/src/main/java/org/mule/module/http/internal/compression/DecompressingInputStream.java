@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.compression;
+
+import static org.mule.module.http.internal.compression.ResponseCompression.DEFLATE;
+import static org.mule.module.http.internal.compression.ResponseCompression.GZIP;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decompresses a gzip or deflate encoded body as it is read. The decompressing stream is created on the first
+ * read so no data is consumed from the body until the stream is used.
+ */
+class DecompressingInputStream extends InputStream
+{
+
+    private static final String X_GZIP = "x-gzip";
+
+    private final String encoding;
+    private final CountingInputStream compressedStream;
+    private final CompressionStatistics statistics;
+    private InputStream decompressedStream;
+    private Inflater inflater;
+    private long uncompressedBytes;
+    private boolean completed;
+
+    /**
+     * @param contentEncoding the value of the Content-Encoding header of the message, must be supported
+     * @param compressedStream the body of the message
+     * @param statistics the statistics to update once the body is consumed
+     */
+    DecompressingInputStream(String contentEncoding, InputStream compressedStream, CompressionStatistics statistics)
+    {
+        this.encoding = normalize(contentEncoding);
+        this.compressedStream = new CountingInputStream(compressedStream);
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return true if the content coding can be decompressed
+     */
+    static boolean isSupported(String contentEncoding)
+    {
+        return contentEncoding != null && normalize(contentEncoding) != null;
+    }
+
+    private static String normalize(String contentEncoding)
+    {
+        String encoding = contentEncoding.trim().toLowerCase();
+        if (GZIP.equals(encoding) || X_GZIP.equals(encoding))
+        {
+            return GZIP;
+        }
+        return DEFLATE.equals(encoding) ? DEFLATE : null;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (completed)
+        {
+            return -1;
+        }
+        int read = getDecompressedStream().read(b, off, len);
+        if (read == -1)
+        {
+            complete();
+        }
+        else
+        {
+            uncompressedBytes += read;
+        }
+        return read;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return decompressedStream == null ? 0 : decompressedStream.available();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            if (decompressedStream != null)
+            {
+                decompressedStream.close();
+            }
+            else
+            {
+                compressedStream.close();
+            }
+        }
+        finally
+        {
+            if (inflater != null)
+            {
+                inflater.end();
+            }
+            complete();
+        }
+    }
+
+    private void complete()
+    {
+        if (!completed)
+        {
+            completed = true;
+            statistics.addBytes(uncompressedBytes, compressedStream.count);
+            statistics.messageCompleted();
+        }
+    }
+
+    private InputStream getDecompressedStream() throws IOException
+    {
+        if (decompressedStream == null)
+        {
+            if (GZIP.equals(encoding))
+            {
+                decompressedStream = new GZIPInputStream(compressedStream);
+            }
+            else
+            {
+                decompressedStream = createInflaterStream();
+            }
+        }
+        return decompressedStream;
+    }
+
+    /**
+     * The deflate coding should be a zlib stream but some servers send raw deflate data, so the zlib
+     * header is checked before choosing how to inflate the body.
+     */
+    private InputStream createInflaterStream() throws IOException
+    {
+        PushbackInputStream pushbackStream = new PushbackInputStream(compressedStream, 2);
+        byte[] header = new byte[2];
+        int read = 0;
+        while (read < header.length)
+        {
+            int count = pushbackStream.read(header, read, header.length - read);
+            if (count == -1)
+            {
+                break;
+            }
+            read += count;
+        }
+        pushbackStream.unread(header, 0, read);
+        boolean zlibWrapped = read == 2 && (header[0] & 0x0F) == 8 && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+        inflater = new Inflater(!zlibWrapped);
+        return new InflaterInputStream(pushbackStream, inflater);
+    }
+
+    private static class CountingInputStream extends FilterInputStream
+    {
+
+        private long count;
+
+        CountingInputStream(InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int read = super.read();
+            if (read != -1)
+            {
+                count++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            int read = super.read(b, off, len);
+            if (read != -1)
+            {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
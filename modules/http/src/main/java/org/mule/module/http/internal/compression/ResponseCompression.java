@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.compression;
+
+import static org.mule.module.http.api.HttpConstants.HttpStatus.NOT_MODIFIED;
+import static org.mule.module.http.api.HttpConstants.HttpStatus.NO_CONTENT;
+import static org.mule.module.http.api.HttpConstants.Methods.HEAD;
+
+import org.mule.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decides which responses of a listener get compressed and with which content coding, based on the
+ * Accept-Encoding header of the request and the content type and length of the response.
+ */
+public class ResponseCompression
+{
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    public static final int DEFAULT_MIN_SIZE = 1024;
+    public static final String DEFAULT_MIME_TYPES = "text/*, application/json, application/xml, application/javascript, application/x-www-form-urlencoded";
+
+    // Supported content codings, in order of preference
+    private static final List<String> ENCODINGS = Arrays.asList(GZIP, DEFLATE);
+    private static final String X_GZIP = "x-gzip";
+    private static final String ANY = "*";
+
+    private final int minSize;
+    private final List<String> mimeTypes;
+    private final CompressionStatistics statistics = new CompressionStatistics();
+
+    /**
+     * @param minSize responses with a known length smaller than this amount of bytes are not compressed
+     * @param mimeTypes comma separated list of the compressible mime types, a subtype can be '*'
+     */
+    public ResponseCompression(int minSize, String mimeTypes)
+    {
+        this.minSize = minSize;
+        List<String> types = new ArrayList<>();
+        for (String mimeType : StringUtils.splitAndTrim(mimeTypes, ","))
+        {
+            types.add(mimeType.toLowerCase());
+        }
+        this.mimeTypes = Collections.unmodifiableList(types);
+    }
+
+    /**
+     * @param method the method of the request
+     * @param statusCode the status code of the response
+     * @param contentType the content type of the response, may be null
+     * @param contentLength the length of the response body or -1 if it is not known
+     * @return true if the body of the response is worth compressing
+     */
+    public boolean isCompressible(String method, int statusCode, String contentType, long contentLength)
+    {
+        if (HEAD.name().equalsIgnoreCase(method) || statusCode < 200 || statusCode == NO_CONTENT.getStatusCode()
+            || statusCode == NOT_MODIFIED.getStatusCode())
+        {
+            return false;
+        }
+        if (contentLength >= 0 && contentLength < minSize)
+        {
+            return false;
+        }
+        return contentType != null && matchesMimeType(contentType);
+    }
+
+    private boolean matchesMimeType(String contentType)
+    {
+        String mimeType = contentType.toLowerCase();
+        int parametersIndex = mimeType.indexOf(';');
+        if (parametersIndex != -1)
+        {
+            mimeType = mimeType.substring(0, parametersIndex);
+        }
+        mimeType = mimeType.trim();
+        for (String compressibleType : mimeTypes)
+        {
+            if (compressibleType.endsWith("/*") ? mimeType.startsWith(compressibleType.substring(0, compressibleType.length() - 1))
+                                                : mimeType.equals(compressibleType))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param acceptEncoding the value of the Accept-Encoding header of the request, may be null
+     * @return the content coding with the highest quality value for the client, or null if the client does not
+     * accept any of the supported ones
+     */
+    public String selectEncoding(String acceptEncoding)
+    {
+        if (StringUtils.isBlank(acceptEncoding))
+        {
+            return null;
+        }
+        float[] qualities = new float[ENCODINGS.size()];
+        boolean[] listed = new boolean[ENCODINGS.size()];
+        float anyQuality = 0;
+        for (String coding : StringUtils.splitAndTrim(acceptEncoding, ","))
+        {
+            String[] parts = StringUtils.splitAndTrim(coding, ";");
+            if (parts.length == 0)
+            {
+                continue;
+            }
+            String name = parts[0].toLowerCase();
+            float quality = parseQuality(parts);
+            if (ANY.equals(name))
+            {
+                anyQuality = quality;
+            }
+            else
+            {
+                int index = ENCODINGS.indexOf(X_GZIP.equals(name) ? GZIP : name);
+                if (index != -1)
+                {
+                    qualities[index] = quality;
+                    listed[index] = true;
+                }
+            }
+        }
+
+        String selected = null;
+        float selectedQuality = 0;
+        for (int i = 0; i < ENCODINGS.size(); i++)
+        {
+            float quality = listed[i] ? qualities[i] : anyQuality;
+            if (quality > selectedQuality)
+            {
+                selected = ENCODINGS.get(i);
+                selectedQuality = quality;
+            }
+        }
+        return selected;
+    }
+
+    private float parseQuality(String[] parts)
+    {
+        for (int i = 1; i < parts.length; i++)
+        {
+            if (parts[i].startsWith("q=") || parts[i].startsWith("Q="))
+            {
+                try
+                {
+                    return Float.parseFloat(parts[i].substring(2).trim());
+                }
+                catch (NumberFormatException e)
+                {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    public CompressionStatistics getStatistics()
+    {
+        return statistics;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.compression;
+
+import static org.mule.module.http.api.HttpHeaders.Names.ACCEPT_ENCODING;
+import static org.mule.module.http.api.HttpHeaders.Names.CONTENT_ENCODING;
+import static org.mule.module.http.api.HttpHeaders.Names.CONTENT_LENGTH;
+import static org.mule.module.http.internal.compression.ResponseCompression.DEFLATE;
+import static org.mule.module.http.internal.compression.ResponseCompression.GZIP;
+
+import org.mule.module.http.internal.domain.request.HttpRequest;
+
+import java.io.InputStream;
+
+/**
+ * Asks servers for compressed responses on behalf of a requester and decompresses their bodies as they
+ * are consumed, so the flow receives the same content it would have received uncompressed.
+ */
+public class ResponseDecompression
+{
+
+    /**
+     * Value of the Accept-Encoding header added to the requests that don't have one.
+     */
+    public static final String ACCEPT_ENCODING_VALUE = GZIP + ", " + DEFLATE;
+
+    private final CompressionStatistics statistics = new CompressionStatistics();
+
+    /**
+     * @return true if the request does not state the content codings it accepts, so {@link #ACCEPT_ENCODING_VALUE} has to be sent
+     */
+    public boolean isAcceptEncodingRequired(HttpRequest request)
+    {
+        for (String headerName : request.getHeaderNames())
+        {
+            if (ACCEPT_ENCODING.equalsIgnoreCase(headerName))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param contentEncoding the value of the Content-Encoding header of the response, may be null
+     * @return true if the body of the response has to be decompressed
+     */
+    public boolean isCompressed(String contentEncoding)
+    {
+        return DecompressingInputStream.isSupported(contentEncoding);
+    }
+
+    /**
+     * @return a stream that decompresses the body as it is read
+     */
+    public InputStream decompress(String contentEncoding, InputStream body)
+    {
+        return new DecompressingInputStream(contentEncoding, body, statistics);
+    }
+
+    /**
+     * @return true if the header describes the compressed body, so it must not be propagated with the decompressed one
+     */
+    public boolean isCompressedBodyHeader(String headerName)
+    {
+        return CONTENT_ENCODING.equalsIgnoreCase(headerName) || CONTENT_LENGTH.equalsIgnoreCase(headerName);
+    }
+
+    public CompressionStatistics getStatistics()
+    {
+        return statistics;
+    }
+}
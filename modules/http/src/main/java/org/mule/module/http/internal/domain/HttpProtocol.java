@@ -11,7 +11,7 @@ package org.mule.module.http.internal.domain;
  */
 public enum HttpProtocol
 {
-    HTTP_0_9("HTTP/0.9"), HTTP_1_0("HTTP/1.0"), HTTP_1_1("HTTP/1.1");
+    HTTP_0_9("HTTP/0.9"), HTTP_1_0("HTTP/1.0"), HTTP_1_1("HTTP/1.1"), HTTP_2_0("HTTP/2.0");
 
     private final String protocolName;
 
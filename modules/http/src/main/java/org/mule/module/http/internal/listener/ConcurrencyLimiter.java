@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener;
+
+import org.mule.module.http.api.listener.ConcurrencyLimitStrategy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the amount of requests a listener processes at the same time so requests over the limit can be
+ * rejected right away instead of being queued until they time out.
+ * <p/>
+ * With the {@link ConcurrencyLimitStrategy#ADAPTIVE} strategy the limit follows an AIMD scheme: it is cut by
+ * {@link #DECREASE_FACTOR} when the recent latency is more than {@link #LATENCY_TOLERANCE} times the baseline
+ * latency, and it grows by one when requests complete close to the baseline while the limit is being used.
+ * The baseline is the lowest latency observed, slowly drifting towards the latest ones so it follows changes in
+ * the workload.
+ * <p/>
+ * The limit is cut at most once per round trip: the requests that were in flight when it was cut complete with
+ * the latency that caused it, so their releases do not cut it again.
+ */
+public class ConcurrencyLimiter implements ConcurrencyLimiterMBean
+{
+
+    static final int MIN_LIMIT = 1;
+    static final double DECREASE_FACTOR = 0.9;
+    static final double LATENCY_TOLERANCE = 2;
+    private static final double RECENT_LATENCY_WEIGHT = 0.1;
+    private static final long BASELINE_DRIFT = 1000;
+
+    private final int maxLimit;
+    private final boolean adaptive;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile int limit;
+
+    private long baselineLatency = Long.MAX_VALUE;
+    private double recentLatency;
+    private int releasesBeforeNextDecrease;
+
+    /**
+     * @param maxLimit the maximum amount of requests processed at the same time
+     * @param strategy whether the limit is fixed or adapts to the latency of the requests
+     */
+    public ConcurrencyLimiter(int maxLimit, ConcurrencyLimitStrategy strategy)
+    {
+        this.maxLimit = maxLimit;
+        this.adaptive = strategy == ConcurrencyLimitStrategy.ADAPTIVE;
+        this.limit = maxLimit;
+    }
+
+    /**
+     * @return true if the request is admitted, in which case {@link #release(long)} must be called once it completes
+     */
+    public boolean tryAcquire()
+    {
+        while (true)
+        {
+            int current = inFlight.get();
+            if (current >= limit)
+            {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1))
+            {
+                admitted.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param latency the time, in nanoseconds, since the request was admitted until its response was sent
+     */
+    public void release(long latency)
+    {
+        int inFlightBeforeRelease = inFlight.getAndDecrement();
+        if (adaptive)
+        {
+            adjustLimit(latency, inFlightBeforeRelease);
+        }
+    }
+
+    private synchronized void adjustLimit(long latency, int inFlightBeforeRelease)
+    {
+        if (baselineLatency == Long.MAX_VALUE)
+        {
+            baselineLatency = latency;
+            recentLatency = latency;
+            return;
+        }
+        baselineLatency = Math.min(latency, baselineLatency + (latency - baselineLatency) / BASELINE_DRIFT);
+        recentLatency += (latency - recentLatency) * RECENT_LATENCY_WEIGHT;
+
+        boolean congested = recentLatency > baselineLatency * LATENCY_TOLERANCE;
+        if (releasesBeforeNextDecrease > 0)
+        {
+            releasesBeforeNextDecrease--;
+            if (congested)
+            {
+                return;
+            }
+        }
+        if (congested)
+        {
+            limit = Math.max(MIN_LIMIT, (int) (limit * DECREASE_FACTOR));
+            releasesBeforeNextDecrease = inFlightBeforeRelease - 1;
+        }
+        else if (inFlightBeforeRelease * 2 >= limit)
+        {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    @Override
+    public int getLimit()
+    {
+        return limit;
+    }
+
+    @Override
+    public int getInFlightRequests()
+    {
+        return inFlight.get();
+    }
+
+    @Override
+    public long getAdmittedRequests()
+    {
+        return admitted.get();
+    }
+
+    @Override
+    public long getRejectedRequests()
+    {
+        return rejected.get();
+    }
+}
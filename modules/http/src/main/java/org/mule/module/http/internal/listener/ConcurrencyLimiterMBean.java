@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener;
+
+/**
+ * JMX view of the concurrency limit of an HTTP listener. Registered as
+ * {@code Mule.<application>:type=HttpListenerConcurrencyLimit,name=<flow name>}.
+ */
+public interface ConcurrencyLimiterMBean
+{
+
+    String JMX_TYPE = "HttpListenerConcurrencyLimit";
+
+    /**
+     * @return the amount of requests currently allowed to be processed at the same time
+     */
+    int getLimit();
+
+    /**
+     * @return the amount of requests being processed
+     */
+    int getInFlightRequests();
+
+    /**
+     * @return the amount of requests that were admitted
+     */
+    long getAdmittedRequests();
+
+    /**
+     * @return the amount of requests that were rejected because the limit was reached
+     */
+    long getRejectedRequests();
+}
@@ -8,6 +8,8 @@ package org.mule.module.http.internal.listener;
 
 import static org.mule.module.http.api.HttpConstants.HttpStatus.BAD_REQUEST;
 import static org.mule.module.http.api.HttpConstants.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.mule.module.http.api.HttpConstants.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.mule.module.http.api.HttpHeaders.Names.RETRY_AFTER;
 
 import org.mule.OptimizedRequestContext;
 import org.mule.RequestContext;
@@ -23,13 +25,16 @@ import org.mule.api.lifecycle.LifecycleUtils;
 import org.mule.api.processor.MessageProcessor;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.execution.MessageProcessingManager;
+import org.mule.management.stats.StatisticsMBeanRegistrar;
 import org.mule.module.http.api.HttpConstants.HttpStatus;
+import org.mule.module.http.api.listener.ConcurrencyLimitStrategy;
 import org.mule.module.http.api.listener.HttpListener;
 import org.mule.module.http.api.listener.HttpListenerConfig;
 import org.mule.module.http.api.requester.HttpStreamingType;
 import org.mule.module.http.internal.HttpParser;
 import org.mule.module.http.internal.domain.ByteArrayHttpEntity;
 import org.mule.module.http.internal.domain.request.HttpRequestContext;
+import org.mule.module.http.internal.domain.response.HttpResponse;
 import org.mule.module.http.internal.listener.async.HttpResponseReadyCallback;
 import org.mule.module.http.internal.listener.async.RequestHandler;
 import org.mule.module.http.internal.listener.async.ResponseStatusCallback;
@@ -40,6 +45,8 @@ import org.mule.module.http.internal.listener.matcher.MethodRequestMatcher;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.management.ObjectName;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,6 +56,7 @@ public class DefaultHttpListener implements HttpListener, Initialisable, MuleCon
     private static final Logger logger = LoggerFactory.getLogger(DefaultHttpListener.class);
 
     public static final String SERVER_PROBLEM = "Server encountered a problem";
+    public static final int DEFAULT_RETRY_AFTER = 1;
 
     private String path;
     private String allowedMethods;
@@ -65,6 +73,11 @@ public class DefaultHttpListener implements HttpListener, Initialisable, MuleCon
     private MessageProcessingManager messageProcessingManager;
     private String[] parsedAllowedMethods;
     private ListenerPath listenerPath;
+    private Integer maxConcurrentRequests;
+    private ConcurrencyLimitStrategy concurrencyLimitStrategy = ConcurrencyLimitStrategy.FIXED;
+    private int retryAfter = DEFAULT_RETRY_AFTER;
+    private ConcurrencyLimiter concurrencyLimiter;
+    private ObjectName concurrencyLimiterObjectName;
 
     @Override
     public void setListener(final MessageProcessor messageProcessor)
@@ -107,6 +120,36 @@ public class DefaultHttpListener implements HttpListener, Initialisable, MuleCon
         this.parseRequest = parseRequest;
     }
 
+    /**
+     * @param maxConcurrentRequests the maximum amount of requests processed at the same time, requests over it are
+     *                              rejected with a 503 status code. There is no limit if it is not set.
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests)
+    {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public void setConcurrencyLimitStrategy(ConcurrencyLimitStrategy concurrencyLimitStrategy)
+    {
+        this.concurrencyLimitStrategy = concurrencyLimitStrategy;
+    }
+
+    /**
+     * @param retryAfter the seconds sent in the Retry-After header of the responses to rejected requests
+     */
+    public void setRetryAfter(int retryAfter)
+    {
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return the limiter of concurrent requests, or null if they are not limited
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter()
+    {
+        return concurrencyLimiter;
+    }
+
     @Override
     public HttpListenerConfig getConfig()
     {
@@ -117,6 +160,10 @@ public class DefaultHttpListener implements HttpListener, Initialisable, MuleCon
     public synchronized void start() throws MuleException
     {
         requestHandlerManager.start();
+        if (concurrencyLimiter != null && flowConstruct != null)
+        {
+            concurrencyLimiterObjectName = StatisticsMBeanRegistrar.register(muleContext, ConcurrencyLimiterMBean.JMX_TYPE, flowConstruct.getName(), concurrencyLimiter);
+        }
     }
 
     private RequestHandler getRequestHandler()
@@ -126,6 +173,16 @@ public class DefaultHttpListener implements HttpListener, Initialisable, MuleCon
             @Override
             public void handleRequest(HttpRequestContext requestContext, HttpResponseReadyCallback responseCallback)
             {
+                if (concurrencyLimiter != null)
+                {
+                    // Checked before the request is parsed so rejecting it is as cheap as possible
+                    if (!concurrencyLimiter.tryAcquire())
+                    {
+                        sendRejectedResponse(responseCallback);
+                        return;
+                    }
+                    responseCallback = releaseOnResponseSent(responseCallback);
+                }
                 try
                 {
                     final HttpMessageProcessorTemplate httpMessageProcessorTemplate = new HttpMessageProcessorTemplate(createEvent(requestContext), messageProcessor, responseCallback, responseBuilder, errorResponseBuilder);
@@ -148,13 +205,27 @@ public class DefaultHttpListener implements HttpListener, Initialisable, MuleCon
                 }
             }
 
+            private void sendRejectedResponse(HttpResponseReadyCallback responseCallback)
+            {
+                sendResponse(SERVICE_UNAVAILABLE, new org.mule.module.http.internal.domain.response.HttpResponseBuilder()
+                                                          .setStatusCode(SERVICE_UNAVAILABLE.getStatusCode())
+                                                          .setReasonPhrase(SERVICE_UNAVAILABLE.getReasonPhrase())
+                                                          .addHeader(RETRY_AFTER, String.valueOf(retryAfter))
+                                                          .build(), responseCallback);
+            }
+
             private void sendErrorResponse(final HttpStatus status, String message, HttpResponseReadyCallback responseCallback)
             {
-                responseCallback.responseReady(new org.mule.module.http.internal.domain.response.HttpResponseBuilder()
-                                                       .setStatusCode(status.getStatusCode())
-                                                       .setReasonPhrase(status.getReasonPhrase())
-                                                       .setEntity(new ByteArrayHttpEntity(message.getBytes()))
-                                                       .build(), new ResponseStatusCallback()
+                sendResponse(status, new org.mule.module.http.internal.domain.response.HttpResponseBuilder()
+                                             .setStatusCode(status.getStatusCode())
+                                             .setReasonPhrase(status.getReasonPhrase())
+                                             .setEntity(new ByteArrayHttpEntity(message.getBytes()))
+                                             .build(), responseCallback);
+            }
+
+            private void sendResponse(final HttpStatus status, HttpResponse response, HttpResponseReadyCallback responseCallback)
+            {
+                responseCallback.responseReady(response, new ResponseStatusCallback()
                 {
                     @Override
                     public void responseSendFailure(Throwable exception)
@@ -175,6 +246,34 @@ public class DefaultHttpListener implements HttpListener, Initialisable, MuleCon
         };
     }
 
+    private HttpResponseReadyCallback releaseOnResponseSent(final HttpResponseReadyCallback responseCallback)
+    {
+        final long admissionTime = System.nanoTime();
+        return new HttpResponseReadyCallback()
+        {
+            @Override
+            public void responseReady(HttpResponse response, final ResponseStatusCallback responseStatusCallback)
+            {
+                responseCallback.responseReady(response, new ResponseStatusCallback()
+                {
+                    @Override
+                    public void responseSendFailure(Throwable exception)
+                    {
+                        concurrencyLimiter.release(System.nanoTime() - admissionTime);
+                        responseStatusCallback.responseSendFailure(exception);
+                    }
+
+                    @Override
+                    public void responseSendSuccessfully()
+                    {
+                        concurrencyLimiter.release(System.nanoTime() - admissionTime);
+                        responseStatusCallback.responseSendSuccessfully();
+                    }
+                });
+            }
+        };
+    }
+
     private MuleEvent createEvent(HttpRequestContext requestContext) throws HttpRequestParsingException
     {
         MuleEvent muleEvent = HttpRequestToMuleEvent.transform(requestContext, muleContext, flowConstruct, parseRequest, listenerPath);
@@ -211,6 +310,14 @@ public class DefaultHttpListener implements HttpListener, Initialisable, MuleCon
         responseBuilder.setResponseStreaming(responseStreamingMode);
         validatePath();
         parseRequest = config.resolveParseRequest(parseRequest);
+        if (maxConcurrentRequests != null)
+        {
+            if (maxConcurrentRequests <= 0)
+            {
+                throw new InitialisationException(CoreMessages.createStaticMessage(String.format("Http Listener with path %s has an invalid maxConcurrentRequests %d, it must be greater than zero", this.path, maxConcurrentRequests)), this);
+            }
+            concurrencyLimiter = new ConcurrencyLimiter(maxConcurrentRequests, concurrencyLimitStrategy);
+        }
         try
         {
             messageProcessingManager = DefaultHttpListener.this.muleContext.getRegistry().lookupObject(MessageProcessingManager.class);
@@ -275,6 +382,8 @@ public class DefaultHttpListener implements HttpListener, Initialisable, MuleCon
     @Override
     public synchronized void stop() throws MuleException
     {
+        StatisticsMBeanRegistrar.unregister(concurrencyLimiterObjectName);
+        concurrencyLimiterObjectName = null;
         requestHandlerManager.stop();
     }
 
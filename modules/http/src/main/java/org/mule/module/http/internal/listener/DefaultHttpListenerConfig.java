@@ -22,9 +22,12 @@ import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.lifecycle.LifecycleUtils;
 import org.mule.config.MutableThreadingProfile;
 import org.mule.config.i18n.CoreMessages;
+import org.mule.management.stats.StatisticsMBeanRegistrar;
 import org.mule.module.http.api.HttpConstants;
 import org.mule.module.http.api.listener.HttpListenerConfig;
 import org.mule.module.http.internal.HttpParser;
+import org.mule.module.http.internal.compression.CompressionStatistics;
+import org.mule.module.http.internal.compression.ResponseCompression;
 import org.mule.module.http.internal.listener.async.RequestHandler;
 import org.mule.module.http.internal.listener.matcher.ListenerRequestMatcher;
 import org.mule.transport.ssl.api.TlsContextFactory;
@@ -39,6 +42,7 @@ import java.io.IOException;
 import java.net.UnknownHostException;
 
 import javax.inject.Inject;
+import javax.management.ObjectName;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +54,7 @@ public class DefaultHttpListenerConfig extends AbstractAnnotatedObject implement
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     public static final int DEFAULT_CONNECTION_IDLE_TIMEOUT = 30 * 1000;
+    public static final int DEFAULT_MAX_KEEP_ALIVE_REQUESTS = -1;
 
     private HttpConstants.Protocols protocol = HttpConstants.Protocols.HTTP;
     private String name;
@@ -70,6 +75,14 @@ public class DefaultHttpListenerConfig extends AbstractAnnotatedObject implement
 
     private boolean usePersistentConnections = true;
     private int connectionIdleTimeout = DEFAULT_CONNECTION_IDLE_TIMEOUT;
+    private int maxKeepAliveRequests = DEFAULT_MAX_KEEP_ALIVE_REQUESTS;
+    private boolean enableHttp2 = false;
+    private boolean enableCompression = false;
+    private int compressionMinSize = ResponseCompression.DEFAULT_MIN_SIZE;
+    private String compressibleMimeTypes = ResponseCompression.DEFAULT_MIME_TYPES;
+    private ResponseCompression responseCompression;
+    private HttpListenerStatistics statistics;
+    private ObjectName statisticsObjectName;
 
     public DefaultHttpListenerConfig()
     {
@@ -178,14 +191,21 @@ public class DefaultHttpListenerConfig extends AbstractAnnotatedObject implement
             throw new InitialisationException(CoreMessages.createStaticMessage("Cannot resolve host %s", host), e, this);
         }
 
+        if (enableCompression)
+        {
+            responseCompression = new ResponseCompression(compressionMinSize, compressibleMimeTypes);
+        }
+
+        statistics = new HttpListenerStatistics(usePersistentConnections ? maxKeepAliveRequests : DEFAULT_MAX_KEEP_ALIVE_REQUESTS, connectionIdleTimeout);
+
         if (tlsContext == null)
         {
-            server = connectionManager.createServer(serverAddress, createWorkManagerSource(), usePersistentConnections, connectionIdleTimeout);
+            server = connectionManager.createServer(serverAddress, createWorkManagerSource(), usePersistentConnections, connectionIdleTimeout, maxKeepAliveRequests, enableHttp2, responseCompression, statistics);
         }
         else
         {
             LifecycleUtils.initialiseIfNeeded(tlsContext);
-            server = connectionManager.createSslServer(serverAddress, createWorkManagerSource(), tlsContext, usePersistentConnections, connectionIdleTimeout);
+            server = connectionManager.createSslServer(serverAddress, createWorkManagerSource(), tlsContext, usePersistentConnections, connectionIdleTimeout, maxKeepAliveRequests, enableHttp2, responseCompression, statistics);
         }
         initialised = true;
     }
@@ -205,6 +225,11 @@ public class DefaultHttpListenerConfig extends AbstractAnnotatedObject implement
 
     private void verifyConnectionsParameters() throws InitialisationException
     {
+        if (maxKeepAliveRequests == 0 || maxKeepAliveRequests < DEFAULT_MAX_KEEP_ALIVE_REQUESTS)
+        {
+            throw new InitialisationException(CoreMessages.createStaticMessage("The maxKeepAliveRequests parameter only allows positive values or -1 for unlimited, " +
+                                                                               "set usePersistentConnections to false to close each connection after its first request."), this);
+        }
         if (!usePersistentConnections)
         {
             connectionIdleTimeout = 0;
@@ -278,9 +303,24 @@ public class DefaultHttpListenerConfig extends AbstractAnnotatedObject implement
             throw new DefaultMuleException(e);
         }
         started = true;
+        registerStatistics();
         logger.info("Listening for requests on " + listenerUrl());
     }
 
+    private void registerStatistics()
+    {
+        if (statistics != null && name != null)
+        {
+            statisticsObjectName = StatisticsMBeanRegistrar.register(muleContext, HttpListenerStatisticsMBean.JMX_TYPE, name, statistics);
+        }
+    }
+
+    private void unregisterStatistics()
+    {
+        StatisticsMBeanRegistrar.unregister(statisticsObjectName);
+        statisticsObjectName = null;
+    }
+
     @Override
     public boolean hasTlsConfig()
     {
@@ -292,6 +332,7 @@ public class DefaultHttpListenerConfig extends AbstractAnnotatedObject implement
     {
         if (started)
         {
+            unregisterStatistics();
             try
             {
                 workManager.dispose();
@@ -338,4 +379,45 @@ public class DefaultHttpListenerConfig extends AbstractAnnotatedObject implement
     {
         this.connectionIdleTimeout = connectionIdleTimeout;
     }
+
+    public void setMaxKeepAliveRequests(int maxKeepAliveRequests)
+    {
+        this.maxKeepAliveRequests = maxKeepAliveRequests;
+    }
+
+    public void setEnableHttp2(boolean enableHttp2)
+    {
+        this.enableHttp2 = enableHttp2;
+    }
+
+    public void setEnableCompression(boolean enableCompression)
+    {
+        this.enableCompression = enableCompression;
+    }
+
+    public void setCompressionMinSize(int compressionMinSize)
+    {
+        this.compressionMinSize = compressionMinSize;
+    }
+
+    public void setCompressibleMimeTypes(String compressibleMimeTypes)
+    {
+        this.compressibleMimeTypes = compressibleMimeTypes;
+    }
+
+    /**
+     * @return the counters of the compressed responses, or null if compression is not enabled
+     */
+    public CompressionStatistics getCompressionStatistics()
+    {
+        return responseCompression != null ? responseCompression.getStatistics() : null;
+    }
+
+    /**
+     * @return the counters of the connections and requests of this config
+     */
+    public HttpListenerStatistics getStatistics()
+    {
+        return statistics;
+    }
 }
@@ -9,11 +9,13 @@ package org.mule.module.http.internal.listener;
 public class DefaultRequestHandlerManager implements RequestHandlerManager
 {
 
+    private final HttpListenerRegistry.ServerAddressRequestHandlerRegistry registry;
     private final HttpListenerRegistry.PathMap requestHandlerOwner;
     private final HttpListenerRegistry.RequestHandlerMatcherPair requestHandlerMatcherPair;
 
-    public DefaultRequestHandlerManager(HttpListenerRegistry.PathMap requestHandlerOwner, HttpListenerRegistry.RequestHandlerMatcherPair requestHandlerMatcherPair)
+    public DefaultRequestHandlerManager(HttpListenerRegistry.ServerAddressRequestHandlerRegistry registry, HttpListenerRegistry.PathMap requestHandlerOwner, HttpListenerRegistry.RequestHandlerMatcherPair requestHandlerMatcherPair)
     {
+        this.registry = registry;
         this.requestHandlerOwner = requestHandlerOwner;
         this.requestHandlerMatcherPair = requestHandlerMatcherPair;
     }
@@ -33,6 +35,6 @@ public class DefaultRequestHandlerManager implements RequestHandlerManager
     @Override
     public void dispose()
     {
-        requestHandlerOwner.removeRequestHandlerMatcherPair(requestHandlerMatcherPair);
+        registry.removeRequestHandler(requestHandlerOwner, requestHandlerMatcherPair);
     }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The last {@link #SAMPLES} durations of an operation, to compute their percentiles, and the longest one.
+ */
+class DurationSamples
+{
+
+    static final int SAMPLES = 1024;
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+
+    void add(long duration)
+    {
+        samples.set((int) (count.getAndIncrement() % SAMPLES), duration);
+
+        long currentMax = max.get();
+        while (duration > currentMax && !max.compareAndSet(currentMax, duration))
+        {
+            currentMax = max.get();
+        }
+    }
+
+    long getCount()
+    {
+        return count.get();
+    }
+
+    long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * @param percentile a value between 0 and 100
+     * @return the duration under which the given percentage of the recent samples are
+     */
+    long getPercentile(double percentile)
+    {
+        int size = (int) Math.min(count.get(), SAMPLES);
+        if (size == 0)
+        {
+            return 0;
+        }
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++)
+        {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * size) - 1;
+        return sorted[Math.min(size - 1, Math.max(0, index))];
+    }
+}
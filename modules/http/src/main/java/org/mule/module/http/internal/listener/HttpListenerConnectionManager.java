@@ -15,7 +15,9 @@ import org.mule.api.lifecycle.Disposable;
 import org.mule.api.lifecycle.Initialisable;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.config.i18n.CoreMessages;
+import org.mule.module.http.internal.compression.ResponseCompression;
 import org.mule.module.http.internal.listener.grizzly.GrizzlyServerManager;
+import org.mule.module.http.internal.multipart.PartContentBuffer;
 import org.mule.transport.ssl.api.TlsContextFactory;
 import org.mule.transport.tcp.DefaultTcpServerSocketProperties;
 import org.mule.transport.tcp.TcpServerSocketProperties;
@@ -23,6 +25,7 @@ import org.mule.util.concurrent.ThreadNameHelper;
 
 import com.google.common.collect.Iterables;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 
@@ -32,9 +35,11 @@ public class HttpListenerConnectionManager implements Initialisable, Disposable,
     public static final String HTTP_LISTENER_CONNECTION_MANAGER = "_httpListenerConnectionManager";
     public static final String SERVER_ALREADY_EXISTS_FORMAT = "A server in port(%s) already exists for ip(%s) or one overlapping it (0.0.0.0).";
     private static final String LISTENER_THREAD_NAME_PREFIX = "http.listener";
+    private static final String MULTIPART_DIRECTORY_NAME = "http-multipart";
 
     private HttpListenerRegistry httpListenerRegistry = new HttpListenerRegistry();
     private HttpServerManager httpServerManager;
+    private File multipartDirectory;
 
     private MuleContext muleContext;
 
@@ -53,10 +58,15 @@ public class HttpListenerConnectionManager implements Initialisable, Disposable,
             throw new InitialisationException(CoreMessages.createStaticMessage("Only one global TCP server socket properties bean should be defined in the config"), this);
         }
 
+        // Large parts of multipart requests are kept in files of the working directory, the ones left by a
+        // previous run that did not shut down cleanly are deleted here
+        multipartDirectory = new File(muleContext.getConfiguration().getWorkingDirectory(), MULTIPART_DIRECTORY_NAME);
+        PartContentBuffer.deleteTempFiles(multipartDirectory);
+
         String threadNamePrefix = ThreadNameHelper.getPrefix(muleContext) + LISTENER_THREAD_NAME_PREFIX;
         try
         {
-            httpServerManager = new GrizzlyServerManager(threadNamePrefix, httpListenerRegistry, tcpServerSocketProperties);
+            httpServerManager = new GrizzlyServerManager(threadNamePrefix, httpListenerRegistry, tcpServerSocketProperties, multipartDirectory);
         }
         catch (IOException e)
         {
@@ -69,6 +79,7 @@ public class HttpListenerConnectionManager implements Initialisable, Disposable,
     public synchronized void dispose()
     {
         httpServerManager.dispose();
+        PartContentBuffer.deleteTempFiles(multipartDirectory);
     }
 
     @Override
@@ -77,13 +88,13 @@ public class HttpListenerConnectionManager implements Initialisable, Disposable,
         this.muleContext = muleContext;
     }
 
-    public Server createServer(ServerAddress serverAddress, WorkManagerSource workManagerSource, boolean usePersistentConnections, int connectionIdleTimeout)
+    public Server createServer(ServerAddress serverAddress, WorkManagerSource workManagerSource, boolean usePersistentConnections, int connectionIdleTimeout, int maxKeepAliveRequests, boolean enableHttp2, ResponseCompression responseCompression, HttpListenerStatistics statistics)
     {
         if (!containsServerFor(serverAddress))
         {
             try
             {
-                return httpServerManager.createServerFor(serverAddress, workManagerSource, usePersistentConnections, connectionIdleTimeout);
+                return httpServerManager.createServerFor(serverAddress, workManagerSource, usePersistentConnections, connectionIdleTimeout, maxKeepAliveRequests, enableHttp2, responseCompression, statistics);
             }
             catch (IOException e)
             {
@@ -101,13 +112,13 @@ public class HttpListenerConnectionManager implements Initialisable, Disposable,
         return httpServerManager.containsServerFor(serverAddress);
     }
 
-    public Server createSslServer(ServerAddress serverAddress, WorkManagerSource workManagerSource, TlsContextFactory tlsContext, boolean usePersistentConnections, int connectionIdleTimeout)
+    public Server createSslServer(ServerAddress serverAddress, WorkManagerSource workManagerSource, TlsContextFactory tlsContext, boolean usePersistentConnections, int connectionIdleTimeout, int maxKeepAliveRequests, boolean enableHttp2, ResponseCompression responseCompression, HttpListenerStatistics statistics)
     {
         if (!containsServerFor(serverAddress))
         {
             try
             {
-                return httpServerManager.createSslServerFor(tlsContext, workManagerSource, serverAddress, usePersistentConnections, connectionIdleTimeout);
+                return httpServerManager.createSslServerFor(tlsContext, workManagerSource, serverAddress, usePersistentConnections, connectionIdleTimeout, maxKeepAliveRequests, enableHttp2, responseCompression, statistics);
             }
             catch (IOException e)
             {
@@ -16,9 +16,6 @@ import org.mule.util.Preconditions;
 import org.mule.util.StringUtils;
 
 import com.google.common.base.Joiner;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -27,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,8 +36,8 @@ public class HttpListenerRegistry implements RequestHandlerProvider
     private static final String SLASH = "/";
     private Logger logger = LoggerFactory.getLogger(getClass());
 
-    private final ServerAddressMap<Server> serverAddressToServerMap = new ServerAddressMap<>();
-    private final Map<Server, ServerAddressRequestHandlerRegistry> requestHandlerPerServerAddress = new HashMap<>();
+    private final ServerAddressMap<Server> serverAddressToServerMap = new ServerAddressMap<>(new ConcurrentHashMap<ServerAddress, Server>());
+    private final Map<Server, ServerAddressRequestHandlerRegistry> requestHandlerPerServerAddress = new ConcurrentHashMap<>();
 
     public synchronized RequestHandlerManager addRequestHandler(final Server server, final RequestHandler requestHandler, final ListenerRequestMatcher requestMatcher)
     {
@@ -83,15 +81,12 @@ public class HttpListenerRegistry implements RequestHandlerProvider
         private PathMap rootPathMap = new PathMap();
         private PathMap catchAllPathMap = new PathMap();
         private Set<String> paths = new HashSet<>();
-        private LoadingCache<String, Stack<PathMap>> pathMapSearchCache = CacheBuilder.newBuilder().maximumSize(1000).build(new CacheLoader<String, Stack<PathMap>>() {
-            public Stack<PathMap> load(String path) {
-                return findPossibleRequestHandlers(path);
-            }
-        });
+        // compiled from the path maps on the first request after they change, requests are routed with it without locking
+        private volatile ListenerRouteTable routeTable;
+        private volatile String availableListeners;
 
         public synchronized RequestHandlerManager addRequestHandler(final ListenerRequestMatcher requestMatcher, final RequestHandler requestHandler)
         {
-            pathMapSearchCache.invalidateAll();
             String requestMatcherPath = normalizePathWithSpacesOrEncodedSpaces(requestMatcher.getPath());
             Preconditions.checkArgument(requestMatcherPath.startsWith(SLASH) || requestMatcherPath.equals(WILDCARD_CHARACTER), "path parameter must start with /");
             validateCollision(requestMatcher);
@@ -157,13 +152,39 @@ public class HttpListenerRegistry implements RequestHandlerProvider
                     requestHandlerOwner = pathMap;
                 }
             }
-            return new DefaultRequestHandlerManager(requestHandlerOwner, addedRequestHandlerMatcherPair);
+            routeTable = null;
+            return new DefaultRequestHandlerManager(this, requestHandlerOwner, addedRequestHandlerMatcherPair);
+        }
+
+        synchronized void removeRequestHandler(final PathMap requestHandlerOwner, final RequestHandlerMatcherPair requestHandlerMatcherPair)
+        {
+            requestHandlerOwner.removeRequestHandlerMatcherPair(requestHandlerMatcherPair);
+            routeTable = null;
+        }
+
+        private ListenerRouteTable getRouteTable()
+        {
+            ListenerRouteTable currentRouteTable = routeTable;
+            if (currentRouteTable == null)
+            {
+                synchronized (this)
+                {
+                    currentRouteTable = routeTable;
+                    if (currentRouteTable == null)
+                    {
+                        currentRouteTable = new ListenerRouteTable(rootPathMap, catchAllPathMap);
+                        availableListeners = Joiner.on(", ").join(this.paths);
+                        routeTable = currentRouteTable;
+                    }
+                }
+            }
+            return currentRouteTable;
         }
 
         private void validateCollision(ListenerRequestMatcher newListenerRequestMatcher)
         {
             final String newListenerRequestMatcherPath = newListenerRequestMatcher.getPath();
-            final Stack<PathMap> possibleRequestHandlers = findPossibleRequestHandlersFromCache(newListenerRequestMatcherPath);
+            final Stack<PathMap> possibleRequestHandlers = findPossibleRequestHandlers(newListenerRequestMatcherPath);
             for (PathMap possibleRequestHandler : possibleRequestHandlers)
             {
                 final List<RequestHandlerMatcherPair> requestHandlerMatcherPairs = possibleRequestHandler.getRequestHandlerMatcherPairs();
@@ -195,34 +216,18 @@ public class HttpListenerRegistry implements RequestHandlerProvider
         {
             final String path = normalizePathWithSpacesOrEncodedSpaces(request.getPath());
             Preconditions.checkArgument(path.startsWith(SLASH), "path parameter must start with /");
-            Stack<PathMap> foundPaths = findPossibleRequestHandlersFromCache(path);
-
-            boolean methodNotAllowed = false;
-            RequestHandlerMatcherPair requestHandlerMatcherPair = null;
-            while (!foundPaths.empty())
-            {
-                final PathMap pathMap = foundPaths.pop();
-                List<RequestHandlerMatcherPair> requestHandlerMatcherPairs = pathMap.getRequestHandlerMatcherPairs();
-                requestHandlerMatcherPair = findRequestHandlerMatcherPair(requestHandlerMatcherPairs, request);
-                if (requestHandlerMatcherPair != null)
-                {
-                    break;
-                }
-                if (!requestHandlerMatcherPairs.isEmpty())
-                {
-                    //there were matching paths but no matching methods
-                    methodNotAllowed = true;
-                }
-            }
+            final ListenerRouteTable currentRouteTable = getRouteTable();
+            final RequestHandlerMatcherPair requestHandlerMatcherPair = currentRouteTable.findRequestHandlerMatcherPair(path, request);
             if (requestHandlerMatcherPair == null)
             {
                 if (logger.isInfoEnabled())
                 {
                     logger.info("No listener found for request: " + getMethodAndPath(request.getMethod(), request.getPath()));
-                    logger.info("Available listeners are: [{}]", Joiner.on(", ").join(this.paths));
+                    logger.info("Available listeners are: [{}]", availableListeners);
                 }
-                if(methodNotAllowed)
+                if (currentRouteTable.hasRequestHandlers(path))
                 {
+                    //there were matching paths but no matching methods
                     return NoMethodRequestHandler.getInstance();
                 }
                 return NoListenerRequestHandler.getInstance();
@@ -239,11 +244,6 @@ public class HttpListenerRegistry implements RequestHandlerProvider
             return "(" + method + ")" + path;
         }
 
-        private Stack<PathMap> findPossibleRequestHandlersFromCache(String path)
-        {
-            return findPossibleRequestHandlers(path);
-        }
-
         private Stack<PathMap> findPossibleRequestHandlers(String path)
         {
             PathMap currentPathMap = rootPathMap;
@@ -294,18 +294,6 @@ public class HttpListenerRegistry implements RequestHandlerProvider
                 foundPaths.push(catchAllPathMap);
             }
         }
-
-        private RequestHandlerMatcherPair findRequestHandlerMatcherPair(List<RequestHandlerMatcherPair> requestHandlerMatcherPairs, HttpRequest request)
-        {
-            for (RequestHandlerMatcherPair requestHandlerMatcherPair : requestHandlerMatcherPairs)
-            {
-                if (requestHandlerMatcherPair.getRequestMatcher().matches(request))
-                {
-                    return requestHandlerMatcherPair;
-                }
-            }
-            return null;
-        }
     }
 
     private boolean isUriParameter(String pathPart)
@@ -414,6 +402,11 @@ public class HttpListenerRegistry implements RequestHandlerProvider
             return requestHandlerMatcherPairs;
         }
 
+        Map<String, PathMap> getChildPathMaps()
+        {
+            return subPaths;
+        }
+
         public void addWildcardRequestHandler(RequestHandlerMatcherPair requestHandlerMatcherPair)
         {
             if (this.catchAllPathMap == null)
@@ -451,7 +444,7 @@ public class HttpListenerRegistry implements RequestHandlerProvider
 
         private ListenerRequestMatcher requestMatcher;
         private RequestHandler requestHandler;
-        private boolean running = true;
+        private volatile boolean running = true;
 
         private RequestHandlerMatcherPair(ListenerRequestMatcher requestMatcher, RequestHandler requestHandler)
         {
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the connections and requests of an HTTP listener config. The time percentiles are computed over
+ * the last {@link DurationSamples#SAMPLES} measures of each stage a request goes through: waiting for a worker
+ * thread, parsing its headers and writing its response.
+ */
+public class HttpListenerStatistics implements HttpListenerStatisticsMBean
+{
+
+    private final int maxKeepAliveRequests;
+    private final int connectionIdleTimeout;
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicLong acceptedConnections = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong keepAliveRequests = new AtomicLong();
+    private final AtomicLong pipelinedRequests = new AtomicLong();
+    private final AtomicInteger maxRequestsPerConnection = new AtomicInteger();
+    private final AtomicLong keepAliveRefusals = new AtomicLong();
+    private final AtomicLong idleTimeouts = new AtomicLong();
+
+    private final DurationSamples headerParseTimes = new DurationSamples();
+    private final DurationSamples queueWaitTimes = new DurationSamples();
+    private final DurationSamples responseWriteTimes = new DurationSamples();
+
+    /**
+     * @param maxKeepAliveRequests the maximum amount of requests a connection is kept alive for, or -1 if unlimited
+     *                             or connections are not persistent
+     * @param connectionIdleTimeout the milliseconds a connection can remain idle before it is closed
+     */
+    public HttpListenerStatistics(int maxKeepAliveRequests, int connectionIdleTimeout)
+    {
+        this.maxKeepAliveRequests = maxKeepAliveRequests;
+        this.connectionIdleTimeout = connectionIdleTimeout;
+    }
+
+    public void connectionOpened()
+    {
+        acceptedConnections.incrementAndGet();
+        openConnections.incrementAndGet();
+    }
+
+    public void connectionClosed()
+    {
+        openConnections.decrementAndGet();
+    }
+
+    /**
+     * @param connectionRequests the amount of requests received on the connection, including this one
+     * @param pipelined if the request arrived along with the previous one of the connection
+     */
+    public void requestReceived(int connectionRequests, boolean pipelined)
+    {
+        requests.incrementAndGet();
+        if (connectionRequests > 1)
+        {
+            keepAliveRequests.incrementAndGet();
+        }
+        // The connection is closed after the response to its last allowed request
+        if (connectionRequests == maxKeepAliveRequests)
+        {
+            keepAliveRefusals.incrementAndGet();
+        }
+        if (pipelined)
+        {
+            pipelinedRequests.incrementAndGet();
+        }
+
+        int max = maxRequestsPerConnection.get();
+        while (connectionRequests > max && !maxRequestsPerConnection.compareAndSet(max, connectionRequests))
+        {
+            max = maxRequestsPerConnection.get();
+        }
+    }
+
+    public void idleTimedOut()
+    {
+        idleTimeouts.incrementAndGet();
+    }
+
+    public void headerParsed(long nanos)
+    {
+        headerParseTimes.add(NANOSECONDS.toMicros(nanos));
+    }
+
+    public void queueWaited(long nanos)
+    {
+        queueWaitTimes.add(NANOSECONDS.toMicros(nanos));
+    }
+
+    public void responseWritten(long nanos)
+    {
+        responseWriteTimes.add(NANOSECONDS.toMicros(nanos));
+    }
+
+    @Override
+    public int getOpenConnections()
+    {
+        return openConnections.get();
+    }
+
+    @Override
+    public long getAcceptedConnections()
+    {
+        return acceptedConnections.get();
+    }
+
+    @Override
+    public long getRequests()
+    {
+        return requests.get();
+    }
+
+    @Override
+    public long getKeepAliveRequests()
+    {
+        return keepAliveRequests.get();
+    }
+
+    @Override
+    public long getPipelinedRequests()
+    {
+        return pipelinedRequests.get();
+    }
+
+    @Override
+    public double getAverageRequestsPerConnection()
+    {
+        long connections = acceptedConnections.get();
+        return connections == 0 ? 0 : (double) requests.get() / connections;
+    }
+
+    @Override
+    public int getMaxRequestsPerConnection()
+    {
+        return maxRequestsPerConnection.get();
+    }
+
+    @Override
+    public long getKeepAliveRefusals()
+    {
+        return keepAliveRefusals.get();
+    }
+
+    @Override
+    public long getIdleTimeouts()
+    {
+        return idleTimeouts.get();
+    }
+
+    @Override
+    public int getMaxKeepAliveRequests()
+    {
+        return maxKeepAliveRequests;
+    }
+
+    @Override
+    public int getConnectionIdleTimeout()
+    {
+        return connectionIdleTimeout;
+    }
+
+    @Override
+    public long getHeaderParseTimeMedian()
+    {
+        return headerParseTimes.getPercentile(50);
+    }
+
+    @Override
+    public long getHeaderParseTime95thPercentile()
+    {
+        return headerParseTimes.getPercentile(95);
+    }
+
+    @Override
+    public long getHeaderParseTime99thPercentile()
+    {
+        return headerParseTimes.getPercentile(99);
+    }
+
+    @Override
+    public long getMaxHeaderParseTime()
+    {
+        return headerParseTimes.getMax();
+    }
+
+    @Override
+    public long getQueueWaitTimeMedian()
+    {
+        return queueWaitTimes.getPercentile(50);
+    }
+
+    @Override
+    public long getQueueWaitTime95thPercentile()
+    {
+        return queueWaitTimes.getPercentile(95);
+    }
+
+    @Override
+    public long getQueueWaitTime99thPercentile()
+    {
+        return queueWaitTimes.getPercentile(99);
+    }
+
+    @Override
+    public long getMaxQueueWaitTime()
+    {
+        return queueWaitTimes.getMax();
+    }
+
+    @Override
+    public long getResponseWriteTimeMedian()
+    {
+        return responseWriteTimes.getPercentile(50);
+    }
+
+    @Override
+    public long getResponseWriteTime95thPercentile()
+    {
+        return responseWriteTimes.getPercentile(95);
+    }
+
+    @Override
+    public long getResponseWriteTime99thPercentile()
+    {
+        return responseWriteTimes.getPercentile(99);
+    }
+
+    @Override
+    public long getMaxResponseWriteTime()
+    {
+        return responseWriteTimes.getMax();
+    }
+
+    /**
+     * @return the amount of responses written
+     */
+    public long getResponsesWritten()
+    {
+        return responseWriteTimes.getCount();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener;
+
+/**
+ * JMX view of the connections and requests of an HTTP listener config. Registered as
+ * {@code Mule.<application>:type=HttpListener,name=<config name>}. Times are in microseconds.
+ */
+public interface HttpListenerStatisticsMBean
+{
+
+    String JMX_TYPE = "HttpListener";
+
+    /**
+     * @return the amount of client connections currently open
+     */
+    int getOpenConnections();
+
+    /**
+     * @return the amount of client connections accepted
+     */
+    long getAcceptedConnections();
+
+    /**
+     * @return the amount of requests received
+     */
+    long getRequests();
+
+    /**
+     * @return the amount of requests received on a connection that was kept alive after a previous request
+     */
+    long getKeepAliveRequests();
+
+    /**
+     * @return the amount of requests that arrived in the same read from the socket as the previous request of
+     *         their connection, that is, sent by the client before getting the previous response
+     */
+    long getPipelinedRequests();
+
+    /**
+     * @return the amount of requests received divided by the amount of connections accepted
+     */
+    double getAverageRequestsPerConnection();
+
+    /**
+     * @return the most requests received on a single connection
+     */
+    int getMaxRequestsPerConnection();
+
+    /**
+     * @return the amount of connections closed because they reached the maximum amount of keep alive requests
+     */
+    long getKeepAliveRefusals();
+
+    /**
+     * @return the amount of connections closed because they were idle longer than the idle timeout
+     */
+    long getIdleTimeouts();
+
+    /**
+     * @return the maximum amount of requests a connection is kept alive for, or -1 if unlimited
+     */
+    int getMaxKeepAliveRequests();
+
+    /**
+     * @return the milliseconds a connection can remain idle before it is closed
+     */
+    int getConnectionIdleTimeout();
+
+    /**
+     * @return the median of the time from the first bytes of recent requests until their headers were parsed
+     */
+    long getHeaderParseTimeMedian();
+
+    long getHeaderParseTime95thPercentile();
+
+    long getHeaderParseTime99thPercentile();
+
+    long getMaxHeaderParseTime();
+
+    /**
+     * @return the median of the time recent reads from a connection waited for a worker thread
+     */
+    long getQueueWaitTimeMedian();
+
+    long getQueueWaitTime95thPercentile();
+
+    long getQueueWaitTime99thPercentile();
+
+    long getMaxQueueWaitTime();
+
+    /**
+     * @return the median of the time from when the flow produced recent responses until they were written
+     */
+    long getResponseWriteTimeMedian();
+
+    long getResponseWriteTime95thPercentile();
+
+    long getResponseWriteTime99thPercentile();
+
+    long getMaxResponseWriteTime();
+}
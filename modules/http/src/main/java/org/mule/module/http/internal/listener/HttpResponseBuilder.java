@@ -24,6 +24,7 @@ import org.mule.api.context.MuleContextAware;
 import org.mule.api.lifecycle.Initialisable;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.transformer.DataType;
+import org.mule.model.streaming.FileBackedInputStream;
 import org.mule.module.http.api.HttpHeaders;
 import org.mule.module.http.api.requester.HttpStreamingType;
 import org.mule.module.http.internal.HttpMessageBuilder;
@@ -47,6 +48,8 @@ import org.mule.util.IOUtils;
 import org.mule.util.NumberUtils;
 import org.mule.util.UUID;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
 import java.util.HashMap;
@@ -167,6 +170,20 @@ public class HttpResponseBuilder extends HttpMessageBuilder implements Initialis
                 }
                 httpEntity = createUrlEncodedEntity(event, (Map) payload);
             }
+            else if (payload instanceof File || payload instanceof FileBackedInputStream)
+            {
+                FileBackedInputStream fileInputStream = null;
+                try
+                {
+                    fileInputStream = payload instanceof File ? new FileBackedInputStream((File) payload) : (FileBackedInputStream) payload;
+                    httpEntity = createFileEntity(httpResponseHeaderBuilder, existingTransferEncoding, existingContentLength, supportsTransferEncoding(event), fileInputStream);
+                }
+                catch (IOException e)
+                {
+                    IOUtils.closeQuietly(fileInputStream);
+                    throw new MessagingException(event, e);
+                }
+            }
             else if (payload instanceof InputStream)
             {
                 if (responseStreaming == ALWAYS || (responseStreaming == AUTO && existingContentLength == null))
@@ -194,7 +211,7 @@ public class HttpResponseBuilder extends HttpMessageBuilder implements Initialis
                 }
                 catch (Exception e)
                 {
-                    throw new RuntimeException(e);
+                    throw new MessagingException(event, e);
                 }
             }
         }
@@ -223,6 +240,27 @@ public class HttpResponseBuilder extends HttpMessageBuilder implements Initialis
         return httpResponseBuilder.build();
     }
 
+    /**
+     * The length of a file is known, so unless chunking is required it's sent with a content length. This allows
+     * the listener to transfer it without copying it through the heap.
+     */
+    private HttpEntity createFileEntity(HttpResponseHeaderBuilder httpResponseHeaderBuilder,
+                                        String existingTransferEncoding,
+                                        String existingContentLength,
+                                        boolean supportsTranferEncoding,
+                                        FileBackedInputStream fileInputStream) throws IOException
+    {
+        if (supportsTranferEncoding && (responseStreaming == ALWAYS || (responseStreaming == AUTO && existingContentLength == null && CHUNKED.equals(existingTransferEncoding))))
+        {
+            setupChunkedEncoding(httpResponseHeaderBuilder);
+        }
+        else
+        {
+            setupContentLengthEncoding(httpResponseHeaderBuilder, fileInputStream.getChannel().size() - fileInputStream.getChannel().position());
+        }
+        return new InputStreamHttpEntity(fileInputStream);
+    }
+
     private boolean supportsTransferEncoding(MuleEvent event)
     {
         String httpVersion = event.getMessage().<String> getInboundProperty(HTTP_VERSION_PROPERTY);
@@ -253,7 +291,7 @@ public class HttpResponseBuilder extends HttpMessageBuilder implements Initialis
         return !outboundPropertyName.startsWith(HTTP_PREFIX) && !outboundPropertyName.equalsIgnoreCase(CONNECTION) && !outboundPropertyName.equalsIgnoreCase(TRANSFER_ENCODING);
     }
 
-    private void setupContentLengthEncoding(HttpResponseHeaderBuilder httpResponseHeaderBuilder, int contentLength)
+    private void setupContentLengthEncoding(HttpResponseHeaderBuilder httpResponseHeaderBuilder, long contentLength)
     {
         if (httpResponseHeaderBuilder.getTransferEncoding() != null)
         {
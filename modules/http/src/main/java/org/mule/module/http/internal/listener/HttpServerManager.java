@@ -7,6 +7,7 @@
 package org.mule.module.http.internal.listener;
 
 import org.mule.api.context.WorkManagerSource;
+import org.mule.module.http.internal.compression.ResponseCompression;
 import org.mule.transport.ssl.api.TlsContextFactory;
 
 import java.io.IOException;
@@ -29,10 +30,15 @@ public interface HttpServerManager
      * @param serverAddress address of the server
      * @param workManagerSource work manager source to use for retrieving a {@link org.mule.api.context.WorkManager} for processing this server requests
      * @param usePersistentConnections if true, the connections will be kept open for subsequent requests
-     * @param connectionIdleTimeout the amount of milliseconds to keep open an idle connection   @return the create Server handler
+     * @param connectionIdleTimeout the amount of milliseconds to keep open an idle connection
+     * @param maxKeepAliveRequests the maximum amount of requests a connection is kept open for, or -1 if unlimited
+     * @param enableHttp2 if true, clients may upgrade their connections to HTTP/2 (h2c)
+     * @param responseCompression the compression to apply to the responses, or null if they must not be compressed
+     * @param statistics where the connections and requests of the server are counted, or null if they must not be counted
+     * @return the create Server handler
      * @throws IOException if it was not possible to create the Server. Most likely because the host and port is already in use.
      */
-    Server createServerFor(ServerAddress serverAddress, WorkManagerSource workManagerSource, boolean usePersistentConnections, int connectionIdleTimeout) throws IOException;
+    Server createServerFor(ServerAddress serverAddress, WorkManagerSource workManagerSource, boolean usePersistentConnections, int connectionIdleTimeout, int maxKeepAliveRequests, boolean enableHttp2, ResponseCompression responseCompression, HttpListenerStatistics statistics) throws IOException;
 
     /**
      *
@@ -41,10 +47,14 @@ public interface HttpServerManager
      * @param workManagerSource work manager source to use for retrieving a {@link org.mule.api.context.WorkManager} for processing this server requests
      * @param usePersistentConnections if true, the connections will be kept open for subsequent requests
      * @param connectionIdleTimeout the amount of milliseconds to keep open an idle connection
+     * @param maxKeepAliveRequests the maximum amount of requests a connection is kept open for, or -1 if unlimited
+     * @param enableHttp2 if true, clients may negotiate HTTP/2 (h2) through ALPN
+     * @param responseCompression the compression to apply to the responses, or null if they must not be compressed
+     * @param statistics where the connections and requests of the server are counted, or null if they must not be counted
      * @return the create Server handler
      * @throws IOException if it was not possible to create the Server. Most likely because the host and port is already in use.
      */
-    Server createSslServerFor(TlsContextFactory tlsContextFactory, WorkManagerSource workManagerSource, ServerAddress serverAddress, boolean usePersistentConnections, int connectionIdleTimeout) throws IOException;
+    Server createSslServerFor(TlsContextFactory tlsContextFactory, WorkManagerSource workManagerSource, ServerAddress serverAddress, boolean usePersistentConnections, int connectionIdleTimeout, int maxKeepAliveRequests, boolean enableHttp2, ResponseCompression responseCompression, HttpListenerStatistics statistics) throws IOException;
 
     /**
      *
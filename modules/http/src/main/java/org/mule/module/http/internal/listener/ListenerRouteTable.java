@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener;
+
+import org.mule.module.http.internal.domain.request.HttpRequest;
+import org.mule.module.http.internal.listener.HttpListenerRegistry.PathMap;
+import org.mule.module.http.internal.listener.HttpListenerRegistry.RequestHandlerMatcherPair;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the listeners registered for a server address, compiled from the
+ * {@link PathMap} tree used to register them.
+ * <p/>
+ * Each node of the table keeps its child path segments sorted so they can be matched
+ * against a region of the request path, so a request is routed without locking and
+ * without splitting its path. Routing follows the same precedence rules as the
+ * {@link PathMap} tree: the most specific path is tried first and then the wildcard
+ * listeners found on the way back to the root, ending with the root catch all listener.
+ * <p/>
+ * Tables are never modified, a new one is compiled every time a listener is added or
+ * removed.
+ */
+class ListenerRouteTable
+{
+
+    private static final RequestHandlerMatcherPair[] NO_HANDLERS = new RequestHandlerMatcherPair[0];
+
+    private final Node root;
+    private final RequestHandlerMatcherPair[] catchAllHandlers;
+
+    /**
+     * @param rootPathMap the tree of listeners with a path
+     * @param catchAllPathMap the listeners for every path (/*)
+     */
+    ListenerRouteTable(PathMap rootPathMap, PathMap catchAllPathMap)
+    {
+        this.root = new Node(rootPathMap);
+        this.catchAllHandlers = handlersOf(catchAllPathMap);
+    }
+
+    /**
+     * Finds the listener for a request.
+     *
+     * @param path the normalized request path, must start with /
+     * @param request the request, used to match the listener methods
+     * @return the listener accepting the request, or null if there's none
+     */
+    RequestHandlerMatcherPair findRequestHandlerMatcherPair(String path, HttpRequest request)
+    {
+        return find(path, request, false);
+    }
+
+    /**
+     * @param path the normalized request path, must start with /
+     * @return true if there's a listener for the path, regardless of the methods it accepts
+     */
+    boolean hasRequestHandlers(String path)
+    {
+        return find(path, null, true) != null;
+    }
+
+    private RequestHandlerMatcherPair find(String path, HttpRequest request, boolean anyMethod)
+    {
+        RequestHandlerMatcherPair found;
+        if (path.length() == 1)
+        {
+            found = match(root.handlers, request, anyMethod);
+        }
+        else
+        {
+            // a trailing slash is ignored
+            int end = path.charAt(path.length() - 1) == '/' ? path.length() - 1 : path.length();
+            found = find(root, path, 1, end, request, anyMethod);
+        }
+        return found != null ? found : match(catchAllHandlers, request, anyMethod);
+    }
+
+    /**
+     * Walks down the table one segment at a time. The handlers found in the deepest node
+     * take precedence so they are checked once the recursion returns.
+     */
+    private RequestHandlerMatcherPair find(Node node, String path, int start, int end, HttpRequest request, boolean anyMethod)
+    {
+        int segmentEnd = path.indexOf('/', start);
+        if (segmentEnd == -1 || segmentEnd > end)
+        {
+            segmentEnd = end;
+        }
+
+        Node child = node.getChild(path, start, segmentEnd);
+        RequestHandlerMatcherPair[] wildcardHandlers = NO_HANDLERS;
+        if (child == null)
+        {
+            wildcardHandlers = node.wildcardHandlers;
+            child = node.parameter;
+        }
+
+        RequestHandlerMatcherPair found = null;
+        if (segmentEnd == end)
+        {
+            if (child != null)
+            {
+                found = match(child.handlers, request, anyMethod);
+                if (found == null)
+                {
+                    found = match(child.wildcardHandlers, request, anyMethod);
+                }
+            }
+            else
+            {
+                found = match(node.wildcardHandlers, request, anyMethod);
+            }
+        }
+        else if (child != null)
+        {
+            found = find(child, path, segmentEnd + 1, end, request, anyMethod);
+        }
+        return found != null ? found : match(wildcardHandlers, request, anyMethod);
+    }
+
+    private RequestHandlerMatcherPair match(RequestHandlerMatcherPair[] handlers, HttpRequest request, boolean anyMethod)
+    {
+        for (RequestHandlerMatcherPair handler : handlers)
+        {
+            if (anyMethod || handler.getRequestMatcher().matches(request))
+            {
+                return handler;
+            }
+        }
+        return null;
+    }
+
+    private static RequestHandlerMatcherPair[] handlersOf(PathMap pathMap)
+    {
+        if (pathMap == null)
+        {
+            return NO_HANDLERS;
+        }
+        List<RequestHandlerMatcherPair> handlers = pathMap.getRequestHandlerMatcherPairs();
+        return handlers.isEmpty() ? NO_HANDLERS : handlers.toArray(new RequestHandlerMatcherPair[handlers.size()]);
+    }
+
+    private static class Node
+    {
+
+        private final String[] segments;
+        private final Node[] children;
+        private final Node parameter;
+        private final RequestHandlerMatcherPair[] handlers;
+        private final RequestHandlerMatcherPair[] wildcardHandlers;
+
+        Node(PathMap pathMap)
+        {
+            Map<String, PathMap> childPathMaps = pathMap.getChildPathMaps();
+            segments = childPathMaps.keySet().toArray(new String[childPathMaps.size()]);
+            Arrays.sort(segments);
+            children = new Node[segments.length];
+            for (int i = 0; i < segments.length; i++)
+            {
+                children[i] = new Node(childPathMaps.get(segments[i]));
+            }
+            parameter = pathMap.getCatchAllCurrentPathMap() != null ? new Node(pathMap.getCatchAllCurrentPathMap()) : null;
+            handlers = handlersOf(pathMap);
+            wildcardHandlers = handlersOf(pathMap.getCatchAllPathMap());
+        }
+
+        /**
+         * @return the node for the path segment between start and end, null if there's none
+         */
+        Node getChild(String path, int start, int end)
+        {
+            if (isParameter(path, start, end))
+            {
+                return parameter;
+            }
+            int low = 0;
+            int high = segments.length - 1;
+            while (low <= high)
+            {
+                int middle = (low + high) >>> 1;
+                int comparison = compare(segments[middle], path, start, end);
+                if (comparison < 0)
+                {
+                    low = middle + 1;
+                }
+                else if (comparison > 0)
+                {
+                    high = middle - 1;
+                }
+                else
+                {
+                    return children[middle];
+                }
+            }
+            return null;
+        }
+
+        private boolean isParameter(String path, int start, int end)
+        {
+            int length = end - start;
+            return (length == 1 && path.charAt(start) == '*')
+                   || (length > 1 && path.charAt(start) == '{' && path.charAt(end - 1) == '}');
+        }
+
+        /**
+         * Compares a segment with a region of the path the same way {@link String#compareTo(String)} does.
+         */
+        private int compare(String segment, String path, int start, int end)
+        {
+            int length = end - start;
+            int limit = Math.min(segment.length(), length);
+            for (int i = 0; i < limit; i++)
+            {
+                int difference = segment.charAt(i) - path.charAt(start + i);
+                if (difference != 0)
+                {
+                    return difference;
+                }
+            }
+            return segment.length() - length;
+        }
+    }
+}
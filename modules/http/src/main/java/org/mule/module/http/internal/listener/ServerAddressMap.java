@@ -34,6 +34,11 @@ public class ServerAddressMap<T>
         internalMap.put(serverAddress, value);
     }
 
+    public T remove(ServerAddress serverAddress)
+    {
+        return internalMap.remove(serverAddress);
+    }
+
     public T get(Object key)
     {
         T value = internalMap.get(key);
@@ -16,8 +16,11 @@ import java.util.Collection;
 
 import org.glassfish.grizzly.EmptyCompletionHandler;
 import org.glassfish.grizzly.WriteResult;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.HttpServerFilter;
+import org.glassfish.grizzly.http.Protocol;
 
 public abstract class BaseResponseCompletionHandler extends EmptyCompletionHandler<WriteResult>
 {
@@ -51,4 +54,16 @@ public abstract class BaseResponseCompletionHandler extends EmptyCompletionHandl
         return httpResponsePacket;
     }
 
+    /**
+     * Notifies the HTTP/1.1 filter that the response was sent so it handles the keep alive of the connection.
+     * An HTTP/2 response just ends its stream, the connection is handled by the HTTP/2 filter.
+     */
+    protected void notifyResponseComplete(FilterChainContext ctx, HttpResponsePacket httpResponsePacket)
+    {
+        if (httpResponsePacket.getProtocol() != Protocol.HTTP_2_0)
+        {
+            ctx.notifyDownstream(HttpServerFilter.RESPONSE_COMPLETE_EVENT);
+        }
+    }
+
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener.grizzly;
+
+import org.mule.module.http.internal.compression.ResponseCompression;
+
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.http.ContentEncoding;
+import org.glassfish.grizzly.http.HttpContent;
+import org.glassfish.grizzly.http.HttpHeader;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.ParsingResult;
+import org.glassfish.grizzly.http.Protocol;
+import org.glassfish.grizzly.http.util.Header;
+
+/**
+ * Compresses the responses of a listener with the coding of the delegate when the {@link ResponseCompression}
+ * of the listener selects it for the request. Every coding of the listener is wrapped, so at most one of them
+ * is applied to a response, and the bytes written before and after compressing are counted.
+ */
+class CompressionContentEncoding implements ContentEncoding
+{
+
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    private final ContentEncoding delegate;
+    private final ResponseCompression compression;
+
+    CompressionContentEncoding(ContentEncoding delegate, ResponseCompression compression)
+    {
+        this.delegate = delegate;
+        this.compression = compression;
+    }
+
+    @Override
+    public String getName()
+    {
+        return delegate.getName();
+    }
+
+    @Override
+    public String[] getAliases()
+    {
+        return delegate.getAliases();
+    }
+
+    @Override
+    public boolean wantDecode(HttpHeader header)
+    {
+        return false;
+    }
+
+    @Override
+    public boolean wantEncode(HttpHeader header)
+    {
+        if (!(header instanceof HttpResponsePacket) || header.getHeaders().contains(Header.ContentEncoding))
+        {
+            return false;
+        }
+        HttpResponsePacket response = (HttpResponsePacket) header;
+        HttpRequestPacket request = response.getRequest();
+        if (request.getProtocol() != Protocol.HTTP_1_1 || !compression.isCompressible(request.getMethod().getMethodString(), response.getStatus(), getContentType(response), response.getContentLength()))
+        {
+            return false;
+        }
+        addVaryHeader(response);
+        if (!getName().equals(compression.selectEncoding(request.getHeader(Header.AcceptEncoding))))
+        {
+            return false;
+        }
+        // The compressed length is unknown until the content is written, so the response is sent chunked
+        response.getHeaders().removeHeader(Header.ContentLength);
+        response.setContentLengthLong(-1);
+        response.setChunked(true);
+        return true;
+    }
+
+    /**
+     * The content type of the listener responses is set as a plain header, so it is not always parsed yet.
+     */
+    private String getContentType(HttpResponsePacket response)
+    {
+        String contentType = response.getContentType();
+        return contentType != null ? contentType : response.getHeader(Header.ContentType);
+    }
+
+    /**
+     * Compressible responses vary on the Accept-Encoding header, whether they end up compressed or not.
+     */
+    private void addVaryHeader(HttpResponsePacket response)
+    {
+        String vary = response.getHeader(Header.Vary);
+        if (vary == null)
+        {
+            response.setHeader(Header.Vary, ACCEPT_ENCODING);
+        }
+        else if (!vary.toLowerCase().contains(ACCEPT_ENCODING.toLowerCase()) && !vary.trim().equals("*"))
+        {
+            response.setHeader(Header.Vary, vary + ", " + ACCEPT_ENCODING);
+        }
+    }
+
+    @Override
+    public ParsingResult decode(Connection connection, HttpContent httpContent)
+    {
+        return delegate.decode(connection, httpContent);
+    }
+
+    @Override
+    public HttpContent encode(Connection connection, HttpContent httpContent)
+    {
+        boolean last = httpContent.isLast();
+        int uncompressedBytes = httpContent.getContent() != null ? httpContent.getContent().remaining() : 0;
+        HttpContent encodedContent = delegate.encode(connection, httpContent);
+        compression.getStatistics().addBytes(uncompressedBytes, encodedContent.getContent().remaining());
+        if (last)
+        {
+            compression.getStatistics().messageCompleted();
+        }
+        return encodedContent;
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener.grizzly;
+
+import static org.mule.module.http.internal.compression.ResponseCompression.DEFLATE;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.CloseListener;
+import org.glassfish.grizzly.CloseType;
+import org.glassfish.grizzly.Closeable;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.attributes.Attribute;
+import org.glassfish.grizzly.http.ContentEncoding;
+import org.glassfish.grizzly.http.HttpContent;
+import org.glassfish.grizzly.http.HttpHeader;
+import org.glassfish.grizzly.http.ParsingResult;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+
+/**
+ * Encodes HTTP content with the deflate coding (a zlib stream) as it is written. The {@link Deflater} of each
+ * message is kept in the message header until its last content is encoded, or released if the connection is
+ * closed before that. Every content that is not the last one is flushed, so a streamed response never stalls in
+ * the deflater and never produces an empty chunk, which would end a chunked message. The content is compressed
+ * straight from the buffer it is written with into the array of the encoded buffer.
+ * <p/>
+ * The listener never asks this coding to decode requests, but deflated content is inflated if it does.
+ */
+class DeflateContentEncoding implements ContentEncoding
+{
+
+    private static final int MIN_OUTPUT_SIZE = 512;
+
+    private final Attribute<DeflaterHolder> deflaterAttribute = Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute(getClass().getName() + ".deflater");
+    private final Attribute<Inflater> inflaterAttribute = Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute(getClass().getName() + ".inflater");
+
+    @Override
+    public String getName()
+    {
+        return DEFLATE;
+    }
+
+    @Override
+    public String[] getAliases()
+    {
+        return new String[] {getName()};
+    }
+
+    @Override
+    public boolean wantDecode(HttpHeader header)
+    {
+        return false;
+    }
+
+    @Override
+    public boolean wantEncode(HttpHeader header)
+    {
+        return true;
+    }
+
+    @Override
+    public ParsingResult decode(Connection connection, HttpContent httpContent)
+    {
+        HttpHeader header = httpContent.getHttpHeader();
+        Inflater inflater = inflaterAttribute.get(header);
+        if (inflater == null)
+        {
+            inflater = new Inflater();
+            inflaterAttribute.set(header, inflater);
+        }
+
+        Buffer input = toHeapBuffer(connection, httpContent.getContent());
+        EncodedOutput output = new EncodedOutput(input.remaining() * 2);
+        inflater.setInput(input.array(), input.arrayOffset() + input.position(), input.remaining());
+        try
+        {
+            output.inflate(inflater);
+        }
+        catch (DataFormatException e)
+        {
+            releaseInflater(header, inflater);
+            throw new IllegalStateException("Invalid " + getName() + " content", e);
+        }
+        finally
+        {
+            input.tryDispose();
+        }
+        if (httpContent.isLast())
+        {
+            releaseInflater(header, inflater);
+        }
+        HttpContent decoded = HttpContent.builder(header).content(output.toBuffer(connection.getMemoryManager())).last(httpContent.isLast()).build();
+        return ParsingResult.create(decoded, null);
+    }
+
+    private void releaseInflater(HttpHeader header, Inflater inflater)
+    {
+        inflater.end();
+        inflaterAttribute.remove(header);
+    }
+
+    @Override
+    public HttpContent encode(Connection connection, HttpContent httpContent)
+    {
+        HttpHeader header = httpContent.getHttpHeader();
+        Buffer input = httpContent.getContent();
+        EncodedOutput output = new EncodedOutput(input != null ? input.remaining() / 2 : 0);
+        DeflaterHolder holder = deflaterAttribute.get(header);
+        if (holder == null)
+        {
+            holder = new DeflaterHolder(connection, createDeflater());
+            deflaterAttribute.set(header, holder);
+            writeHeader(header, output);
+        }
+        Deflater deflater = holder.deflater;
+
+        if (input != null)
+        {
+            input = toHeapBuffer(connection, input);
+            int offset = input.arrayOffset() + input.position();
+            update(header, input.array(), offset, input.remaining());
+            deflater.setInput(input.array(), offset, input.remaining());
+        }
+
+        if (httpContent.isLast())
+        {
+            deflater.finish();
+            while (!deflater.finished())
+            {
+                output.deflate(deflater, Deflater.NO_FLUSH);
+            }
+            writeTrailer(header, deflater, output);
+            holder.release();
+            deflaterAttribute.remove(header);
+        }
+        else
+        {
+            // The output is filled completely while there is still compressed content pending
+            while (output.deflate(deflater, Deflater.SYNC_FLUSH))
+            {
+            }
+        }
+        if (input != null)
+        {
+            input.tryDispose();
+        }
+
+        Buffer encoded = output.size() > 0 ? output.toBuffer(connection.getMemoryManager()) : Buffers.EMPTY_BUFFER;
+        return HttpContent.builder(header).content(encoded).last(httpContent.isLast()).build();
+    }
+
+    /**
+     * @return the buffer if it has an array the compressed or decompressed content can be read from, or a
+     *         copy of it otherwise
+     */
+    private Buffer toHeapBuffer(Connection connection, Buffer buffer)
+    {
+        if (buffer.hasArray())
+        {
+            return buffer;
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        buffer.tryDispose();
+        return Buffers.wrap(connection.getMemoryManager(), bytes);
+    }
+
+    /**
+     * @return the deflater that compresses the content of a new message
+     */
+    protected Deflater createDeflater()
+    {
+        return new Deflater();
+    }
+
+    /**
+     * Writes the bytes that precede the compressed content of a message.
+     */
+    protected void writeHeader(HttpHeader header, ByteArrayOutputStream output)
+    {
+    }
+
+    /**
+     * Receives the uncompressed bytes of a message before they are compressed.
+     */
+    protected void update(HttpHeader header, byte[] bytes, int offset, int length)
+    {
+    }
+
+    /**
+     * Writes the bytes that follow the compressed content of a message.
+     */
+    protected void writeTrailer(HttpHeader header, Deflater deflater, ByteArrayOutputStream output)
+    {
+    }
+
+    /**
+     * The deflater of a message, which is ended when the message is completed or the connection is closed,
+     * whatever happens first.
+     */
+    private static class DeflaterHolder implements CloseListener<Closeable, CloseType>
+    {
+
+        private final Connection connection;
+        private final Deflater deflater;
+
+        DeflaterHolder(Connection connection, Deflater deflater)
+        {
+            this.connection = connection;
+            this.deflater = deflater;
+            connection.addCloseListener(this);
+        }
+
+        void release()
+        {
+            connection.removeCloseListener(this);
+            deflater.end();
+        }
+
+        @Override
+        public void onClosed(Closeable closeable, CloseType type) throws IOException
+        {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Output stream that compresses and decompresses into its own array, which is then wrapped by the encoded
+     * buffer without copying it.
+     */
+    private static class EncodedOutput extends ByteArrayOutputStream
+    {
+
+        EncodedOutput(int size)
+        {
+            super(Math.max(size, MIN_OUTPUT_SIZE));
+        }
+
+        /**
+         * @return true if the output was filled, so there may be compressed content still pending
+         */
+        boolean deflate(Deflater deflater, int flush)
+        {
+            ensureAvailable();
+            int available = buf.length - count;
+            int length = deflater.deflate(buf, count, available, flush);
+            count += length;
+            return length == available;
+        }
+
+        void inflate(Inflater inflater) throws DataFormatException
+        {
+            while (!inflater.finished() && !inflater.needsInput())
+            {
+                if (inflater.needsDictionary())
+                {
+                    throw new DataFormatException("Preset dictionaries are not supported");
+                }
+                ensureAvailable();
+                count += inflater.inflate(buf, count, buf.length - count);
+            }
+        }
+
+        private void ensureAvailable()
+        {
+            if (count == buf.length)
+            {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+        }
+
+        Buffer toBuffer(MemoryManager memoryManager)
+        {
+            return Buffers.wrap(memoryManager, buf, 0, count);
+        }
+    }
+}
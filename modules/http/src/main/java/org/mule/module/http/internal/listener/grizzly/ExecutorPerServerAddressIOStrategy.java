@@ -6,6 +6,7 @@
  */
 package org.mule.module.http.internal.listener.grizzly;
 
+import org.mule.module.http.internal.listener.HttpListenerStatistics;
 import org.mule.module.http.internal.listener.ServerAddress;
 
 import java.io.IOException;
@@ -26,6 +27,8 @@ import org.glassfish.grizzly.strategies.AbstractIOStrategy;
  * <p/>
  * There's logic from {@link org.glassfish.grizzly.strategies.WorkerThreadIOStrategy} that need to be reused but unfortunately
  * that class cannot be override.
+ * <p/>
+ * The time each read waits for a thread of the executor is added to the statistics of the listener, if any.
  */
 public class ExecutorPerServerAddressIOStrategy extends AbstractIOStrategy
 {
@@ -35,10 +38,21 @@ public class ExecutorPerServerAddressIOStrategy extends AbstractIOStrategy
 
     private static final Logger logger = Grizzly.logger(ExecutorPerServerAddressIOStrategy.class);
     private final ExecutorProvider executorProvider;
+    private final ListenerStatisticsProbe statisticsProbe;
 
     public ExecutorPerServerAddressIOStrategy(final ExecutorProvider executorProvider)
+    {
+        this(executorProvider, null);
+    }
+
+    /**
+     * @param executorProvider provides the executor of each server address
+     * @param statisticsProbe provides the statistics of the listener of each connection, may be null
+     */
+    public ExecutorPerServerAddressIOStrategy(final ExecutorProvider executorProvider, final ListenerStatisticsProbe statisticsProbe)
     {
         this.executorProvider = executorProvider;
+        this.statisticsProbe = statisticsProbe;
     }
 
     @Override
@@ -67,8 +81,9 @@ public class ExecutorPerServerAddressIOStrategy extends AbstractIOStrategy
         final Executor threadPool = getThreadPoolFor(connection, ioEvent);
         if (threadPool != null)
         {
+            final HttpListenerStatistics statistics = ioEvent == IOEvent.READ && statisticsProbe != null ? statisticsProbe.getStatisticsFor(connection) : null;
             threadPool.execute(
-                    new WorkerThreadRunnable(connection, ioEvent, listener));
+                    new WorkerThreadRunnable(connection, ioEvent, listener, statistics));
         }
         else
         {
@@ -109,19 +124,28 @@ public class ExecutorPerServerAddressIOStrategy extends AbstractIOStrategy
         final Connection connection;
         final IOEvent ioEvent;
         final IOEventLifeCycleListener lifeCycleListener;
+        final HttpListenerStatistics statistics;
+        final long queuedTime;
 
         private WorkerThreadRunnable(final Connection connection,
                                      final IOEvent ioEvent,
-                                     final IOEventLifeCycleListener lifeCycleListener)
+                                     final IOEventLifeCycleListener lifeCycleListener,
+                                     final HttpListenerStatistics statistics)
         {
             this.connection = connection;
             this.ioEvent = ioEvent;
             this.lifeCycleListener = lifeCycleListener;
+            this.statistics = statistics;
+            this.queuedTime = statistics != null ? System.nanoTime() : 0;
         }
 
         @Override
         public void run()
         {
+            if (statistics != null)
+            {
+                statistics.queueWaited(System.nanoTime() - queuedTime);
+            }
             run0(connection, ioEvent, lifeCycleListener);
         }
     }
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener.grizzly;
+
+import static org.mule.module.http.api.HttpHeaders.Names.CONTENT_ENCODING;
+import static org.mule.module.http.api.HttpHeaders.Names.CONTENT_LENGTH;
+import org.mule.api.DefaultMuleException;
+import org.mule.config.i18n.CoreMessages;
+import org.mule.model.streaming.FileBackedInputStream;
+import org.mule.module.http.internal.domain.InputStreamHttpEntity;
+import org.mule.module.http.internal.domain.response.HttpResponse;
+import org.mule.module.http.internal.listener.async.ResponseStatusCallback;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+import org.glassfish.grizzly.FileTransfer;
+import org.glassfish.grizzly.WriteResult;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.Protocol;
+import org.glassfish.grizzly.http.util.Header;
+
+/**
+ * {@link org.glassfish.grizzly.CompletionHandler}, responsible for asynchronous http response transferring
+ * when the response body is a file. The headers are written first and then the file is written to the socket
+ * with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}, so its content is
+ * not copied through the heap.
+ */
+public class FileTransferCompletionHandler extends BaseResponseCompletionHandler
+{
+
+    private final FilterChainContext ctx;
+    private final HttpResponsePacket httpResponsePacket;
+    private final FileBackedInputStream inputStream;
+    private final ResponseStatusCallback responseStatusCallback;
+
+    private volatile boolean headersSent;
+
+    public FileTransferCompletionHandler(final FilterChainContext ctx, final HttpRequestPacket request, final HttpResponse httpResponse,
+                                         ResponseStatusCallback responseStatusCallback)
+    {
+        Preconditions.checkArgument((httpResponse.getEntity() instanceof InputStreamHttpEntity)
+                                    && ((InputStreamHttpEntity) httpResponse.getEntity()).getInputStream() instanceof FileBackedInputStream,
+                                    "http response must have a file input stream entity");
+        this.ctx = ctx;
+        this.httpResponsePacket = buildHttpResponsePacket(request, httpResponse);
+        this.inputStream = (FileBackedInputStream) ((InputStreamHttpEntity) httpResponse.getEntity()).getInputStream();
+        this.responseStatusCallback = responseStatusCallback;
+    }
+
+    /**
+     * The file can only be written as is when the connection neither encrypts nor frames the content,
+     * the response has a content length so it does not need to be chunked, and it won't be compressed.
+     *
+     * @param secure whether the connection uses TLS
+     * @param compressionEnabled whether the listener compresses the responses of the clients that accept it
+     * @param request the request being answered
+     * @param httpResponse the response to send
+     * @return whether the response can be sent by this handler
+     */
+    public static boolean canTransfer(boolean secure, boolean compressionEnabled, HttpRequestPacket request, HttpResponse httpResponse)
+    {
+        return !secure
+               && request.getProtocol() != Protocol.HTTP_2_0
+               && !(compressionEnabled && request.getHeaders().contains(Header.AcceptEncoding))
+               && httpResponse.getEntity() instanceof InputStreamHttpEntity
+               && ((InputStreamHttpEntity) httpResponse.getEntity()).getInputStream() instanceof FileBackedInputStream
+               && hasHeader(httpResponse, CONTENT_LENGTH)
+               && !hasHeader(httpResponse, CONTENT_ENCODING);
+    }
+
+    private static boolean hasHeader(HttpResponse httpResponse, String headerName)
+    {
+        for (String name : httpResponse.getHeaderNames())
+        {
+            if (name.equalsIgnoreCase(headerName))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void start() throws IOException
+    {
+        ctx.write(httpResponsePacket, this);
+    }
+
+    /**
+     * Method gets called, when the headers or the file were successfully sent.
+     *
+     * @param result the result
+     */
+    @Override
+    public void completed(WriteResult result)
+    {
+        if (!headersSent)
+        {
+            headersSent = true;
+            try
+            {
+                FileChannel fileChannel = inputStream.getChannel();
+                long position = fileChannel.position();
+                ctx.write(new FileTransfer(inputStream.getFile(), position, fileChannel.size() - position), this);
+            }
+            catch (Exception e)
+            {
+                failed(e);
+            }
+        }
+        else
+        {
+            close();
+            responseStatusCallback.responseSendSuccessfully();
+            notifyResponseComplete(ctx, httpResponsePacket);
+            resume();
+        }
+    }
+
+    /**
+     * The method will be called, when file transferring was canceled
+     */
+    @Override
+    public void cancelled()
+    {
+        close();
+        responseStatusCallback.responseSendFailure(new DefaultMuleException(CoreMessages.createStaticMessage("Http response sending task was cancelled")));
+        resume();
+    }
+
+    /**
+     * The method will be called, if file transferring was failed.
+     *
+     * @param throwable the cause
+     */
+    @Override
+    public void failed(Throwable throwable)
+    {
+        close();
+        responseStatusCallback.responseSendFailure(throwable);
+        resume();
+    }
+
+    /**
+     * Close the file input stream, which may move or delete the file.
+     */
+    private void close()
+    {
+        try
+        {
+            inputStream.close();
+        }
+        catch (IOException e)
+        {
+
+        }
+    }
+
+    /**
+     * Resume the HttpRequestPacket processing
+     */
+    private void resume()
+    {
+        ctx.resume(ctx.getStopAction());
+    }
+}
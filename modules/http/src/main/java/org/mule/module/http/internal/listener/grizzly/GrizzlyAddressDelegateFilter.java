@@ -139,6 +139,24 @@ public class GrizzlyAddressDelegateFilter<F extends BaseFilter> extends BaseFilt
     }
 
 
+    /**
+     * @param connection the connection being processed
+     * @return true if there's a filter for the server address the connection was accepted on
+     */
+    public boolean hasFilterFor(Connection connection)
+    {
+        return retrieveFilter(connection) != null;
+    }
+
+    /**
+     * @param connection the connection being processed
+     * @return the filter for the server address the connection was accepted on, or null if there's none
+     */
+    public F getFilterFor(Connection connection)
+    {
+        return retrieveFilter(connection);
+    }
+
     private F retrieveFilter(Connection connection)
     {
         final InetSocketAddress inetAddress = (InetSocketAddress) connection.getLocalAddress();
@@ -6,6 +6,7 @@
  */
 package org.mule.module.http.internal.listener.grizzly;
 
+import static org.mule.api.config.MuleProperties.SYSTEM_PROPERTY_PREFIX;
 import org.mule.api.MuleRuntimeException;
 import org.mule.module.http.api.HttpHeaders;
 import org.mule.module.http.internal.HttpParser;
@@ -19,6 +20,7 @@ import org.mule.module.http.internal.domain.request.HttpRequest;
 import org.mule.module.http.internal.multipart.HttpPart;
 import org.mule.util.StringUtils;
 
+import java.io.File;
 import java.io.InputStream;
 import java.util.Collection;
 
@@ -31,11 +33,15 @@ import org.glassfish.grizzly.utils.BufferInputStream;
 public class GrizzlyHttpRequestAdapter implements HttpRequest
 {
 
+    public static final String MULTIPART_IN_MEMORY_THRESHOLD_PROPERTY_KEY = SYSTEM_PROPERTY_PREFIX + "http.multipart.inMemoryThreshold";
+    private static final long DEFAULT_MULTIPART_IN_MEMORY_THRESHOLD = 1024 * 1024;
+
     private final HttpRequestPacket requestPacket;
     private final InputStream requestContent;
     private final FilterChainContext filterChainContext;
     private final int contentLength;
     private final boolean isTransferEncodingChunked;
+    private final File multipartDirectory;
     private HttpProtocol protocol;
     private String uri;
     private String path;
@@ -43,9 +49,15 @@ public class GrizzlyHttpRequestAdapter implements HttpRequest
     private HttpEntity body;
     private ParameterMap headers;
 
-    public GrizzlyHttpRequestAdapter(FilterChainContext filterChainContext, HttpContent httpContent)
+    /**
+     * @param filterChainContext the context of the request
+     * @param httpContent the content received so far
+     * @param multipartDirectory the directory of the temporary files of large multipart parts
+     */
+    public GrizzlyHttpRequestAdapter(FilterChainContext filterChainContext, HttpContent httpContent, File multipartDirectory)
     {
         this.filterChainContext = filterChainContext;
+        this.multipartDirectory = multipartDirectory;
         this.requestPacket = (HttpRequestPacket) httpContent.getHttpHeader();
         isTransferEncodingChunked = httpContent.getHttpHeader().isChunked();
         int contentLengthAsInt = 0;
@@ -69,7 +81,18 @@ public class GrizzlyHttpRequestAdapter implements HttpRequest
     {
         if (this.protocol == null)
         {
-            this.protocol = requestPacket.getProtocol() == Protocol.HTTP_1_0 ? HttpProtocol.HTTP_1_0 : HttpProtocol.HTTP_1_1;
+            if (requestPacket.getProtocol() == Protocol.HTTP_1_0)
+            {
+                this.protocol = HttpProtocol.HTTP_1_0;
+            }
+            else if (requestPacket.getProtocol() == Protocol.HTTP_2_0)
+            {
+                this.protocol = HttpProtocol.HTTP_2_0;
+            }
+            else
+            {
+                this.protocol = HttpProtocol.HTTP_1_1;
+            }
         }
         return this.protocol;
     }
@@ -128,12 +151,15 @@ public class GrizzlyHttpRequestAdapter implements HttpRequest
     private void initializeHeaders()
     {
         this.headers = new ParameterMap();
+        // The HTTP/1.1 codec already lower cases the names, but the HTTP/2 one adds the host from the :authority as "Host"
+        final boolean lowerCaseNames = requestPacket.getProtocol() == Protocol.HTTP_2_0;
         for (String grizzlyHeaderName : requestPacket.getHeaders().names())
         {
             final Iterable<String> headerValues = requestPacket.getHeaders().values(grizzlyHeaderName);
+            final String headerName = lowerCaseNames ? grizzlyHeaderName.toLowerCase() : grizzlyHeaderName;
             for (String headerValue : headerValues)
             {
-                this.headers.put(grizzlyHeaderName, headerValue);
+                this.headers.put(headerName, headerValue);
             }
         }
         this.headers = this.headers.toImmutableParameterMap();
@@ -149,7 +175,7 @@ public class GrizzlyHttpRequestAdapter implements HttpRequest
                 final String contentTypeValue = getHeaderValue(HttpHeaders.Names.CONTENT_TYPE);
                 if (contentTypeValue != null && contentTypeValue.contains("multipart"))
                 {
-                    final Collection<HttpPart> parts = HttpParser.parseMultipartContent(requestContent, contentTypeValue);
+                    final Collection<HttpPart> parts = HttpParser.parseMultipartContent(requestContent, contentTypeValue, getMultipartInMemoryThreshold(), multipartDirectory);
                     this.body = new MultipartHttpEntity(parts);
                 }
                 else
@@ -176,6 +202,14 @@ public class GrizzlyHttpRequestAdapter implements HttpRequest
         }
     }
 
+    /**
+     * Parts of a multipart request larger than this number of bytes are kept in temporary files.
+     */
+    private long getMultipartInMemoryThreshold()
+    {
+        return Long.getLong(MULTIPART_IN_MEMORY_THRESHOLD_PROPERTY_KEY, DEFAULT_MULTIPART_IN_MEMORY_THRESHOLD);
+    }
+
     @Override
     public String getUri()
     {
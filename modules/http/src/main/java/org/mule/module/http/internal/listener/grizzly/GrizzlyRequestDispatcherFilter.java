@@ -8,6 +8,8 @@ package org.mule.module.http.internal.listener.grizzly;
 
 import static org.glassfish.grizzly.http.util.HttpStatus.CONINTUE_100;
 import static org.glassfish.grizzly.http.util.HttpStatus.EXPECTATION_FAILED_417;
+import static org.glassfish.grizzly.http.util.HttpStatus.REQUEST_ENTITY_TOO_LARGE_413;
+import static org.mule.api.config.MuleProperties.SYSTEM_PROPERTY_PREFIX;
 import static org.mule.module.http.api.HttpConstants.Protocols.HTTP;
 import static org.mule.module.http.api.HttpConstants.Protocols.HTTPS;
 import static org.mule.module.http.api.HttpHeaders.Names.EXPECT;
@@ -18,22 +20,28 @@ import org.mule.module.http.internal.domain.InputStreamHttpEntity;
 import org.mule.module.http.internal.domain.request.ClientConnection;
 import org.mule.module.http.internal.domain.request.HttpRequestContext;
 import org.mule.module.http.internal.domain.response.HttpResponse;
+import org.mule.module.http.internal.listener.HttpListenerStatistics;
 import org.mule.module.http.internal.listener.RequestHandlerProvider;
 import org.mule.module.http.internal.listener.async.HttpResponseReadyCallback;
 import org.mule.module.http.internal.listener.async.RequestHandler;
 import org.mule.module.http.internal.listener.async.ResponseStatusCallback;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 
 import javax.net.ssl.SSLSession;
 
+import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.filterchain.BaseFilter;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
 import org.glassfish.grizzly.filterchain.NextAction;
 import org.glassfish.grizzly.http.HttpContent;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.HttpServerFilter;
+import org.glassfish.grizzly.http.Protocol;
+import org.glassfish.grizzly.memory.Buffers;
 
 /**
  * Grizzly filter that dispatches the request to the right request handler
@@ -41,11 +49,27 @@ import org.glassfish.grizzly.http.HttpResponsePacket;
 public class GrizzlyRequestDispatcherFilter extends BaseFilter
 {
 
+    public static final String MAXIMUM_HTTP2_CONTENT_SIZE_PROPERTY_KEY = SYSTEM_PROPERTY_PREFIX + "http.http2.maxContentSize";
+    private static final long DEFAULT_MAXIMUM_HTTP2_CONTENT_SIZE = 10 * 1024 * 1024;
+
+    private static final String HTTP2_CONTENT_ATTRIBUTE = GrizzlyRequestDispatcherFilter.class.getName() + ".http2Content";
+    // Marks a stream whose content was rejected, so the parts still to arrive are discarded
+    private static final Object REJECTED_HTTP2_CONTENT = new Object();
+
     private final RequestHandlerProvider requestHandlerProvider;
+    private final GrizzlyAddressDelegateFilter<HttpServerFilter> httpServerFilterDelegate;
+    private final ListenerStatisticsProbe statisticsProbe;
+    private final long maxHttp2ContentSize;
+    private final File multipartDirectory;
 
-    GrizzlyRequestDispatcherFilter(final RequestHandlerProvider requestHandlerProvider)
+    GrizzlyRequestDispatcherFilter(final RequestHandlerProvider requestHandlerProvider, GrizzlyAddressDelegateFilter<HttpServerFilter> httpServerFilterDelegate,
+                                   ListenerStatisticsProbe statisticsProbe, File multipartDirectory)
     {
         this.requestHandlerProvider = requestHandlerProvider;
+        this.httpServerFilterDelegate = httpServerFilterDelegate;
+        this.statisticsProbe = statisticsProbe;
+        this.multipartDirectory = multipartDirectory;
+        this.maxHttp2ContentSize = Long.getLong(MAXIMUM_HTTP2_CONTENT_SIZE_PROPERTY_KEY, DEFAULT_MAXIMUM_HTTP2_CONTENT_SIZE);
     }
 
     @Override
@@ -54,8 +78,12 @@ public class GrizzlyRequestDispatcherFilter extends BaseFilter
         final String scheme = (ctx.getAttributes().getAttribute(HTTPS.getScheme()) == null) ? HTTP.getScheme() : HTTPS.getScheme();
         final String ip = ((InetSocketAddress) ctx.getConnection().getLocalAddress()).getAddress().getHostAddress();
         final int port = ((InetSocketAddress) ctx.getConnection().getLocalAddress()).getPort();
-        final HttpContent httpContent = ctx.getMessage();
-        final HttpRequestPacket request = (HttpRequestPacket) httpContent.getHttpHeader();
+        final HttpRequestPacket request = (HttpRequestPacket) ((HttpContent) ctx.getMessage()).getHttpHeader();
+        final HttpContent httpContent = request.getProtocol() == Protocol.HTTP_2_0 ? aggregateHttp2Content(ctx, request) : (HttpContent) ctx.getMessage();
+        if (httpContent == null)
+        {
+            return ctx.getStopAction();
+        }
 
         // Handle Expect Continue
         if (request.requiresAcknowledgement())
@@ -77,7 +105,7 @@ public class GrizzlyRequestDispatcherFilter extends BaseFilter
             }
         }
 
-        final GrizzlyHttpRequestAdapter httpRequest = new GrizzlyHttpRequestAdapter(ctx, httpContent);
+        final GrizzlyHttpRequestAdapter httpRequest = new GrizzlyHttpRequestAdapter(ctx, httpContent, multipartDirectory);
         HttpRequestContext requestContext = createRequestContext(ctx, scheme, httpRequest);
         final RequestHandler requestHandler = requestHandlerProvider.getRequestHandler(ip, port, httpRequest);
         requestHandler.handleRequest(requestContext, new HttpResponseReadyCallback()
@@ -85,9 +113,14 @@ public class GrizzlyRequestDispatcherFilter extends BaseFilter
             @Override
             public void responseReady(HttpResponse httpResponse, ResponseStatusCallback responseStatusCallback)
             {
+                responseStatusCallback = measureResponseWrite(ctx, responseStatusCallback);
                 try
                 {
-                    if (httpResponse.getEntity() instanceof InputStreamHttpEntity)
+                    if (FileTransferCompletionHandler.canTransfer(HTTPS.getScheme().equals(scheme), isCompressionEnabled(ctx), request, httpResponse))
+                    {
+                        new FileTransferCompletionHandler(ctx, request, httpResponse, responseStatusCallback).start();
+                    }
+                    else if (httpResponse.getEntity() instanceof InputStreamHttpEntity)
                     {
                         new ResponseStreamingCompletionHandler(ctx, request, httpResponse, responseStatusCallback).start();
                     }
@@ -105,6 +138,94 @@ public class GrizzlyRequestDispatcherFilter extends BaseFilter
         return ctx.getSuspendAction();
     }
 
+    /**
+     * Adds the time from now until the response is written to the statistics of the listener, if there are.
+     */
+    private ResponseStatusCallback measureResponseWrite(FilterChainContext ctx, final ResponseStatusCallback responseStatusCallback)
+    {
+        final HttpListenerStatistics statistics = statisticsProbe.getStatisticsFor(ctx.getConnection());
+        if (statistics == null)
+        {
+            return responseStatusCallback;
+        }
+        final long responseReadyTime = System.nanoTime();
+        return new ResponseStatusCallback()
+        {
+            @Override
+            public void responseSendFailure(Throwable throwable)
+            {
+                statistics.responseWritten(System.nanoTime() - responseReadyTime);
+                responseStatusCallback.responseSendFailure(throwable);
+            }
+
+            @Override
+            public void responseSendSuccessfully()
+            {
+                statistics.responseWritten(System.nanoTime() - responseReadyTime);
+                responseStatusCallback.responseSendSuccessfully();
+            }
+        };
+    }
+
+    private boolean isCompressionEnabled(FilterChainContext ctx)
+    {
+        HttpServerFilter httpServerFilter = httpServerFilterDelegate.getFilterFor(ctx.getConnection());
+        return httpServerFilter != null && httpServerFilter.getContentEncodings().length > 0;
+    }
+
+    /**
+     * The content of an HTTP/2 stream can't be read with a blocking read since it's delivered by the filter
+     * that decodes the frames of every stream of the connection, so it's collected until the last part arrives.
+     * Requests with more content than {@link #MAXIMUM_HTTP2_CONTENT_SIZE_PROPERTY_KEY} allows are answered
+     * with a 413 status without being dispatched.
+     *
+     * @return the whole content of the request, or null if there are parts still to arrive
+     */
+    private HttpContent aggregateHttp2Content(FilterChainContext ctx, HttpRequestPacket request)
+    {
+        HttpContent httpContent = ctx.getMessage();
+        Object received = request.getAttributes().getAttribute(HTTP2_CONTENT_ATTRIBUTE);
+        if (received == REJECTED_HTTP2_CONTENT)
+        {
+            if (httpContent.isLast())
+            {
+                request.getAttributes().removeAttribute(HTTP2_CONTENT_ATTRIBUTE);
+            }
+            return null;
+        }
+
+        Buffer receivedContent = (Buffer) received;
+        long contentSize = (receivedContent == null ? 0 : receivedContent.remaining()) + httpContent.getContent().remaining();
+        if (contentSize > maxHttp2ContentSize)
+        {
+            if (httpContent.isLast())
+            {
+                request.getAttributes().removeAttribute(HTTP2_CONTENT_ATTRIBUTE);
+            }
+            else
+            {
+                request.getAttributes().setAttribute(HTTP2_CONTENT_ATTRIBUTE, REJECTED_HTTP2_CONTENT);
+            }
+            if (receivedContent != null)
+            {
+                receivedContent.tryDispose();
+            }
+            HttpResponsePacket response = HttpResponsePacket.builder(request).status(REQUEST_ENTITY_TOO_LARGE_413.getStatusCode()).contentLength(0).build();
+            ctx.write(HttpContent.builder(response).last(true).build());
+            return null;
+        }
+
+        Buffer content = receivedContent == null ? Buffers.cloneBuffer(httpContent.getContent())
+                                                 : Buffers.appendBuffers(ctx.getMemoryManager(), receivedContent, Buffers.cloneBuffer(httpContent.getContent()));
+        if (!httpContent.isLast())
+        {
+            request.getAttributes().setAttribute(HTTP2_CONTENT_ATTRIBUTE, content);
+            return null;
+        }
+        request.getAttributes().removeAttribute(HTTP2_CONTENT_ATTRIBUTE);
+        return HttpContent.builder(request).content(content).last(true).build();
+    }
+
     private HttpRequestContext createRequestContext(FilterChainContext ctx, String scheme, GrizzlyHttpRequestAdapter httpRequest)
     {
         ClientConnection clientConnection;
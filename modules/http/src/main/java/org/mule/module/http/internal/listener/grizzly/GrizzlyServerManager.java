@@ -15,7 +15,9 @@ import org.mule.api.MuleRuntimeException;
 import org.mule.api.context.WorkManagerSource;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.module.http.internal.HttpMessageLogger;
+import org.mule.module.http.internal.compression.ResponseCompression;
 import org.mule.module.http.internal.listener.HttpListenerRegistry;
+import org.mule.module.http.internal.listener.HttpListenerStatistics;
 import org.mule.module.http.internal.listener.HttpServerManager;
 import org.mule.module.http.internal.listener.Server;
 import org.mule.module.http.internal.listener.ServerAddress;
@@ -23,6 +25,7 @@ import org.mule.transport.ssl.api.TlsContextFactory;
 import org.mule.transport.tcp.TcpServerSocketProperties;
 import org.mule.util.concurrent.NamedThreadFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -33,6 +36,8 @@ import org.glassfish.grizzly.filterchain.FilterChainBuilder;
 import org.glassfish.grizzly.filterchain.TransportFilter;
 import org.glassfish.grizzly.http.HttpServerFilter;
 import org.glassfish.grizzly.http.KeepAlive;
+import org.glassfish.grizzly.http2.AlpnSupport;
+import org.glassfish.grizzly.http2.Http2ServerFilter;
 import org.glassfish.grizzly.nio.RoundRobinConnectionDistributor;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
@@ -48,44 +53,50 @@ public class GrizzlyServerManager implements HttpServerManager
 
     //Defines the maximum size in bytes accepted for the http request header section (request line + headers)
     public static final String MAXIMUM_HEADER_SECTION_SIZE_PROPERTY_KEY = SYSTEM_PROPERTY_PREFIX + "http.headerSectionSize";
-    private static final int MAX_KEEP_ALIVE_REQUESTS = -1;
     private static final String IDLE_TIMEOUT_THREADS_PREFIX_NAME = ".HttpIdleConnectionCloser";
     private static final String LISTENER_WORKER_THREAD_NAME_SUFFIX = ".worker";
     private final GrizzlyAddressDelegateFilter<SSLFilter> sslFilterDelegate;
     private final GrizzlyAddressDelegateFilter<HttpServerFilter> httpServerFilterDelegate;
+    private final GrizzlyAddressDelegateFilter<Http2ServerFilter> http2ServerFilterDelegate;
     private final TCPNIOTransport transport;
     private final GrizzlyRequestDispatcherFilter requestHandlerFilter;
     private final HttpListenerRegistry httpListenerRegistry;
     private final WorkManagerSourceExecutorProvider executorProvider;
+    private final ListenerStatisticsProbe statisticsProbe = new ListenerStatisticsProbe();
     private Logger logger = LoggerFactory.getLogger(GrizzlyServerManager.class);
     private Map<ServerAddress, GrizzlyServer> servers = new ConcurrentHashMap<>();
     private ExecutorService idleTimeoutExecutorService;
     private DelayedExecutor idleTimeoutDelayedExecutor;
     private boolean transportStarted;
 
-    public GrizzlyServerManager(String threadNamePrefix, HttpListenerRegistry httpListenerRegistry, TcpServerSocketProperties serverSocketProperties) throws IOException
+    public GrizzlyServerManager(String threadNamePrefix, HttpListenerRegistry httpListenerRegistry, TcpServerSocketProperties serverSocketProperties,
+                                File multipartDirectory) throws IOException
     {
         this.httpListenerRegistry = httpListenerRegistry;
-        requestHandlerFilter = new GrizzlyRequestDispatcherFilter(httpListenerRegistry);
         sslFilterDelegate = new GrizzlyAddressDelegateFilter<>();
         httpServerFilterDelegate = new GrizzlyAddressDelegateFilter<>();
+        requestHandlerFilter = new GrizzlyRequestDispatcherFilter(httpListenerRegistry, httpServerFilterDelegate, statisticsProbe, multipartDirectory);
+        http2ServerFilterDelegate = new GrizzlyAddressDelegateFilter<>();
 
         FilterChainBuilder serverFilterChainBuilder = FilterChainBuilder.stateless();
         serverFilterChainBuilder.add(new TransportFilter());
         serverFilterChainBuilder.add(sslFilterDelegate);
         serverFilterChainBuilder.add(httpServerFilterDelegate);
+        serverFilterChainBuilder.add(http2ServerFilterDelegate);
         serverFilterChainBuilder.add(requestHandlerFilter);
 
         //Initialize Transport
         executorProvider = new WorkManagerSourceExecutorProvider();
         TCPNIOTransportBuilder transportBuilder = TCPNIOTransportBuilder.newInstance()
                 .setOptimizedForMultiplexing(true)
-                .setIOStrategy(new ExecutorPerServerAddressIOStrategy(executorProvider));
+                .setIOStrategy(new ExecutorPerServerAddressIOStrategy(executorProvider, statisticsProbe));
 
         configureServerSocketProperties(transportBuilder, serverSocketProperties);
 
         transport = transportBuilder.build();
 
+        transport.getConnectionMonitoringConfig().addProbes(statisticsProbe);
+
         transport.setNIOChannelDistributor(new RoundRobinConnectionDistributor(transport, true, true));
 
         transport.getWorkerThreadPoolConfig().setPoolName(threadNamePrefix + LISTENER_WORKER_THREAD_NAME_SUFFIX);
@@ -99,6 +110,11 @@ public class GrizzlyServerManager implements HttpServerManager
         // Set filterchain as a Transport Processor
         transport.setProcessor(serverFilterChainBuilder.build());
 
+        if (AlpnSupport.isEnabled())
+        {
+            AlpnSupport.getInstance().setServerSideNegotiator(transport, new Http2AlpnServerNegotiator(http2ServerFilterDelegate));
+        }
+
         idleTimeoutExecutorService = Executors.newCachedThreadPool(new NamedThreadFactory(threadNamePrefix + IDLE_TIMEOUT_THREADS_PREFIX_NAME));
         idleTimeoutDelayedExecutor = new DelayedExecutor(idleTimeoutExecutorService);
 
@@ -177,7 +193,7 @@ public class GrizzlyServerManager implements HttpServerManager
         return false;
     }
 
-    public Server createSslServerFor(TlsContextFactory tlsContextFactory, WorkManagerSource workManagerSource, final ServerAddress serverAddress, boolean usePersistentConnections, int connectionIdleTimeout) throws IOException
+    public Server createSslServerFor(TlsContextFactory tlsContextFactory, WorkManagerSource workManagerSource, final ServerAddress serverAddress, boolean usePersistentConnections, int connectionIdleTimeout, int maxKeepAliveRequests, boolean enableHttp2, ResponseCompression responseCompression, HttpListenerStatistics statistics) throws IOException
     {
         if (logger.isDebugEnabled())
         {
@@ -188,15 +204,34 @@ public class GrizzlyServerManager implements HttpServerManager
             throw new IllegalStateException(String.format("Could not create a server for %s since there's already one.", serverAddress));
         }
         startTransportIfNotStarted();
-        sslFilterDelegate.addFilterForAddress(serverAddress, createSslFilter(tlsContextFactory));
-        httpServerFilterDelegate.addFilterForAddress(serverAddress, createHttpServerFilter(usePersistentConnections, connectionIdleTimeout));
+        SSLFilter sslFilter = createSslFilter(tlsContextFactory);
+        if (enableHttp2)
+        {
+            warnHttp2Draft(serverAddress);
+            if (AlpnSupport.isEnabled())
+            {
+                AlpnSupport.getInstance().configure(sslFilter);
+            }
+            else
+            {
+                logger.warn("ALPN is not available in this JVM, so HTTPS clients won't be able to negotiate HTTP/2 with the server on {}. "
+                            + "Only clients with prior knowledge of HTTP/2 support will use it.", serverAddress);
+            }
+            http2ServerFilterDelegate.addFilterForAddress(serverAddress, createHttp2ServerFilter());
+        }
+        sslFilterDelegate.addFilterForAddress(serverAddress, sslFilter);
+        httpServerFilterDelegate.addFilterForAddress(serverAddress, createHttpServerFilter(usePersistentConnections, connectionIdleTimeout, maxKeepAliveRequests, responseCompression));
         executorProvider.addExecutor(serverAddress, workManagerSource);
+        if (statistics != null)
+        {
+            statisticsProbe.addStatistics(serverAddress, statistics);
+        }
         final GrizzlyServer grizzlyServer = new GrizzlyServer(serverAddress, transport, httpListenerRegistry);
         servers.put(serverAddress, grizzlyServer);
         return grizzlyServer;
     }
 
-    public Server createServerFor(ServerAddress serverAddress, WorkManagerSource workManagerSource, boolean usePersistentConnections, int connectionIdleTimeout) throws IOException
+    public Server createServerFor(ServerAddress serverAddress, WorkManagerSource workManagerSource, boolean usePersistentConnections, int connectionIdleTimeout, int maxKeepAliveRequests, boolean enableHttp2, ResponseCompression responseCompression, HttpListenerStatistics statistics) throws IOException
     {
         if (logger.isDebugEnabled())
         {
@@ -207,8 +242,17 @@ public class GrizzlyServerManager implements HttpServerManager
             throw new IllegalStateException(String.format("Could not create a server for %s since there's already one.", serverAddress));
         }
         startTransportIfNotStarted();
-        httpServerFilterDelegate.addFilterForAddress(serverAddress, createHttpServerFilter(usePersistentConnections, connectionIdleTimeout));
+        if (enableHttp2)
+        {
+            warnHttp2Draft(serverAddress);
+            http2ServerFilterDelegate.addFilterForAddress(serverAddress, createHttp2ServerFilter());
+        }
+        httpServerFilterDelegate.addFilterForAddress(serverAddress, createHttpServerFilter(usePersistentConnections, connectionIdleTimeout, maxKeepAliveRequests, responseCompression));
         executorProvider.addExecutor(serverAddress, workManagerSource);
+        if (statistics != null)
+        {
+            statisticsProbe.addStatistics(serverAddress, statistics);
+        }
         final GrizzlyServer grizzlyServer = new GrizzlyServer(serverAddress, transport, httpListenerRegistry);
         servers.put(serverAddress, grizzlyServer);
         return grizzlyServer;
@@ -220,6 +264,11 @@ public class GrizzlyServerManager implements HttpServerManager
         if (transportStarted)
         {
             transport.shutdown();
+            transport.getConnectionMonitoringConfig().removeProbes(statisticsProbe);
+            for (ServerAddress serverAddress : servers.keySet())
+            {
+                statisticsProbe.removeStatistics(serverAddress);
+            }
             servers.clear();
             idleTimeoutDelayedExecutor.destroy();
             idleTimeoutExecutorService.shutdown();
@@ -251,21 +300,47 @@ public class GrizzlyServerManager implements HttpServerManager
         }
     }
 
-    private HttpServerFilter createHttpServerFilter(boolean usePersistentConnections, int connectionIdleTimeout)
+    private HttpServerFilter createHttpServerFilter(boolean usePersistentConnections, int connectionIdleTimeout, int maxKeepAliveRequests, ResponseCompression responseCompression)
     {
         KeepAlive ka = null;
         if (usePersistentConnections)
         {
             ka = new KeepAlive();
-            ka.setMaxRequestsCount(MAX_KEEP_ALIVE_REQUESTS);
+            ka.setMaxRequestsCount(maxKeepAliveRequests);
             ka.setIdleTimeoutInSeconds(convertToSeconds(connectionIdleTimeout));
+            ka.getMonitoringConfig().addProbes(statisticsProbe);
         }
         HttpServerFilter httpServerFilter = new HttpServerFilter(true, retrieveMaximumHeaderSectionSize(), ka, idleTimeoutDelayedExecutor);
-        httpServerFilter.getMonitoringConfig().addProbes(new HttpMessageLogger(LISTENER));
+        httpServerFilter.getMonitoringConfig().addProbes(new HttpMessageLogger(LISTENER), statisticsProbe);
         httpServerFilter.setAllowPayloadForUndefinedHttpMethods(true);
+        if (responseCompression != null)
+        {
+            // Responses are compressed as they are written, each content coding decides if it applies to the response
+            httpServerFilter.addContentEncoding(new CompressionContentEncoding(new GzipContentEncoding(), responseCompression));
+            httpServerFilter.addContentEncoding(new CompressionContentEncoding(new DeflateContentEncoding(), responseCompression));
+        }
         return httpServerFilter;
     }
 
+    /**
+     * Creates the filter that upgrades connections to HTTP/2 draft 14, either through ALPN, the HTTP/1.1 upgrade mechanism (h2c)
+     * or when the client sends the HTTP/2 connection preface right away. Streams are decoded into the same
+     * {@link org.glassfish.grizzly.http.HttpContent} messages the HTTP/1.1 codec produces, so requests are dispatched
+     * exactly as HTTP/1.1 ones. HPACK and flow control are handled by the filter.
+     */
+    private Http2ServerFilter createHttp2ServerFilter()
+    {
+        Http2ServerFilter http2ServerFilter = new Http2ServerFilter();
+        http2ServerFilter.setAllowPayloadForUndefinedHttpMethods(true);
+        return http2ServerFilter;
+    }
+
+    private void warnHttp2Draft(ServerAddress serverAddress)
+    {
+        logger.warn("HTTP/2 support is experimental and only implements draft 14 of the protocol (h2-14 and h2c-14). "
+                    + "Clients implementing RFC 7540 will keep using HTTP/1.1 with the server on {}.", serverAddress);
+    }
+
     private int retrieveMaximumHeaderSectionSize()
     {
         try
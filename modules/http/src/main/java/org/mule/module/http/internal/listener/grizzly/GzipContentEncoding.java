@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener.grizzly;
+
+import static org.mule.module.http.internal.compression.ResponseCompression.GZIP;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.attributes.Attribute;
+import org.glassfish.grizzly.http.GZipContentEncoding;
+import org.glassfish.grizzly.http.HttpContent;
+import org.glassfish.grizzly.http.HttpHeader;
+import org.glassfish.grizzly.http.ParsingResult;
+
+/**
+ * Encodes HTTP content with the gzip coding: a raw deflate stream wrapped with the gzip header and a
+ * trailer with the CRC-32 and the size of the uncompressed content. Grizzly provides a gzip coding but
+ * its encoder buffers the content instead of flushing it, which stalls streamed responses.
+ */
+class GzipContentEncoding extends DeflateContentEncoding
+{
+
+    private static final byte[] GZIP_HEADER = new byte[] {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final Attribute<CRC32> crcAttribute = Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute(getClass().getName() + ".crc");
+    private final GZipContentEncoding decoder = new GZipContentEncoding();
+
+    @Override
+    public String getName()
+    {
+        return GZIP;
+    }
+
+    /**
+     * Grizzly's gzip coding is only used to decode, which is done without buffering.
+     */
+    @Override
+    public ParsingResult decode(Connection connection, HttpContent httpContent)
+    {
+        return decoder.decode(connection, httpContent);
+    }
+
+    @Override
+    protected Deflater createDeflater()
+    {
+        return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+
+    @Override
+    protected void writeHeader(HttpHeader header, ByteArrayOutputStream output)
+    {
+        crcAttribute.set(header, new CRC32());
+        output.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+    }
+
+    @Override
+    protected void update(HttpHeader header, byte[] bytes, int offset, int length)
+    {
+        crcAttribute.get(header).update(bytes, offset, length);
+    }
+
+    @Override
+    protected void writeTrailer(HttpHeader header, Deflater deflater, ByteArrayOutputStream output)
+    {
+        writeInt(output, (int) crcAttribute.remove(header).getValue());
+        writeInt(output, (int) deflater.getBytesRead());
+    }
+
+    private void writeInt(ByteArrayOutputStream output, int value)
+    {
+        output.write(value);
+        output.write(value >> 8);
+        output.write(value >> 16);
+        output.write(value >> 24);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener.grizzly;
+
+import java.util.Arrays;
+
+import javax.net.ssl.SSLEngine;
+
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.http2.AlpnSupport;
+import org.glassfish.grizzly.http2.DraftVersion;
+import org.glassfish.grizzly.http2.Http2ServerFilter;
+import org.glassfish.grizzly.npn.AlpnServerNegotiator;
+
+/**
+ * Selects the protocol of TLS connections during the ALPN handshake. Since the transport is shared
+ * by every listener config, HTTP/2 is only selected for connections accepted on a server address that
+ * has HTTP/2 enabled, the rest keep using HTTP/1.1. Once selected, the client starts the connection with
+ * the HTTP/2 preface which is handled by the {@link Http2ServerFilter} of the address.
+ */
+class Http2AlpnServerNegotiator implements AlpnServerNegotiator
+{
+
+    private static final String HTTP_1_1 = "http/1.1";
+
+    private final GrizzlyAddressDelegateFilter<Http2ServerFilter> http2ServerFilterDelegate;
+
+    Http2AlpnServerNegotiator(GrizzlyAddressDelegateFilter<Http2ServerFilter> http2ServerFilterDelegate)
+    {
+        this.http2ServerFilterDelegate = http2ServerFilterDelegate;
+    }
+
+    @Override
+    public String selectProtocol(SSLEngine sslEngine, String[] clientProtocols)
+    {
+        Connection connection = AlpnSupport.getConnection(sslEngine);
+        if (connection != null && http2ServerFilterDelegate.hasFilterFor(connection))
+        {
+            for (DraftVersion version : DraftVersion.values())
+            {
+                if (Arrays.asList(clientProtocols).contains(version.getTlsId()))
+                {
+                    return version.getTlsId();
+                }
+            }
+        }
+        return HTTP_1_1;
+    }
+}
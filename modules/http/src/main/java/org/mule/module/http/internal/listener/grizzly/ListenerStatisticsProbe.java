@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener.grizzly;
+
+import org.mule.module.http.internal.listener.HttpListenerStatistics;
+import org.mule.module.http.internal.listener.ServerAddress;
+import org.mule.module.http.internal.listener.ServerAddressMap;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.ConnectionProbe;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.IOEvent;
+import org.glassfish.grizzly.attributes.Attribute;
+import org.glassfish.grizzly.http.HttpHeader;
+import org.glassfish.grizzly.http.HttpProbe;
+import org.glassfish.grizzly.http.KeepAliveProbe;
+
+/**
+ * Grizzly probe that updates the {@link HttpListenerStatistics} of the server address each connection was
+ * accepted on. It is registered in the transport to follow the connections and in the HTTP filter and keep
+ * alive of each server to follow the requests.
+ * <p/>
+ * The header parse time of a request is measured from the first data received after the previous response
+ * started to be written, so a slow client sending its headers counts as parse time. A request is considered
+ * pipelined when no read was done from the socket since the previous request of the connection was parsed.
+ */
+public class ListenerStatisticsProbe extends HttpProbe.Adapter implements ConnectionProbe, KeepAliveProbe
+{
+
+    private static final long NOT_STARTED = -1;
+
+    private final Attribute<ConnectionStatistics> connectionStatisticsAttribute = Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute(getClass().getName() + ".connectionStatistics");
+    private final ServerAddressMap<HttpListenerStatistics> statisticsPerServerAddress = new ServerAddressMap<>(new ConcurrentHashMap<ServerAddress, HttpListenerStatistics>());
+
+    /**
+     * @param serverAddress the address of a server
+     * @param statistics where the connections accepted by the server are counted
+     */
+    public void addStatistics(ServerAddress serverAddress, HttpListenerStatistics statistics)
+    {
+        statisticsPerServerAddress.put(serverAddress, statistics);
+    }
+
+    /**
+     * Stops counting the connections accepted by the server, the ones already open keep their statistics.
+     *
+     * @param serverAddress the address of a server
+     */
+    public void removeStatistics(ServerAddress serverAddress)
+    {
+        statisticsPerServerAddress.remove(serverAddress);
+    }
+
+    /**
+     * @return the statistics of the server the connection was accepted on, or null if it has none
+     */
+    public HttpListenerStatistics getStatisticsFor(Connection connection)
+    {
+        ConnectionStatistics connectionStatistics = connectionStatisticsAttribute.get(connection);
+        return connectionStatistics != null ? connectionStatistics.listenerStatistics : null;
+    }
+
+    @Override
+    public void onAcceptEvent(Connection serverConnection, Connection clientConnection)
+    {
+        final InetSocketAddress localAddress = (InetSocketAddress) clientConnection.getLocalAddress();
+        HttpListenerStatistics statistics = statisticsPerServerAddress.get(new ServerAddress(localAddress.getAddress().getHostAddress(), localAddress.getPort()));
+        if (statistics != null)
+        {
+            connectionStatisticsAttribute.set(clientConnection, new ConnectionStatistics(statistics));
+            statistics.connectionOpened();
+        }
+    }
+
+    @Override
+    public void onReadEvent(Connection connection, Buffer data, int size)
+    {
+        ConnectionStatistics connectionStatistics = connectionStatisticsAttribute.get(connection);
+        if (connectionStatistics != null)
+        {
+            connectionStatistics.reads++;
+        }
+    }
+
+    @Override
+    public void onCloseEvent(Connection connection)
+    {
+        ConnectionStatistics connectionStatistics = connectionStatisticsAttribute.remove(connection);
+        if (connectionStatistics != null)
+        {
+            connectionStatistics.listenerStatistics.connectionClosed();
+        }
+    }
+
+    @Override
+    public void onDataReceivedEvent(Connection connection, Buffer buffer)
+    {
+        ConnectionStatistics connectionStatistics = connectionStatisticsAttribute.get(connection);
+        if (connectionStatistics != null && connectionStatistics.awaitingHeaders && connectionStatistics.headerParseStart == NOT_STARTED)
+        {
+            connectionStatistics.headerParseStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void onHeaderParseEvent(Connection connection, HttpHeader header, int size)
+    {
+        ConnectionStatistics connectionStatistics = connectionStatisticsAttribute.get(connection);
+        if (connectionStatistics == null || !header.isRequest())
+        {
+            return;
+        }
+        boolean pipelined = connectionStatistics.requests > 0 && connectionStatistics.reads == connectionStatistics.readsAtLastRequest;
+        connectionStatistics.requests++;
+        connectionStatistics.readsAtLastRequest = connectionStatistics.reads;
+        connectionStatistics.awaitingHeaders = false;
+        connectionStatistics.listenerStatistics.requestReceived(connectionStatistics.requests, pipelined);
+        if (connectionStatistics.headerParseStart != NOT_STARTED)
+        {
+            connectionStatistics.listenerStatistics.headerParsed(System.nanoTime() - connectionStatistics.headerParseStart);
+            connectionStatistics.headerParseStart = NOT_STARTED;
+        }
+    }
+
+    @Override
+    public void onHeaderSerializeEvent(Connection connection, HttpHeader header, Buffer buffer)
+    {
+        ConnectionStatistics connectionStatistics = connectionStatisticsAttribute.get(connection);
+        if (connectionStatistics != null && !header.isRequest())
+        {
+            connectionStatistics.awaitingHeaders = true;
+        }
+    }
+
+    @Override
+    public void onTimeoutEvent(Connection connection)
+    {
+        HttpListenerStatistics statistics = getStatisticsFor(connection);
+        if (statistics != null)
+        {
+            statistics.idleTimedOut();
+        }
+    }
+
+    @Override
+    public void onConnectionAcceptEvent(Connection connection)
+    {
+    }
+
+    @Override
+    public void onHitEvent(Connection connection, int requestNumber)
+    {
+    }
+
+    @Override
+    public void onRefuseEvent(Connection connection)
+    {
+    }
+
+    @Override
+    public void onBindEvent(Connection connection)
+    {
+    }
+
+    @Override
+    public void onConnectEvent(Connection connection)
+    {
+    }
+
+    @Override
+    public void onWriteEvent(Connection connection, Buffer data, long size)
+    {
+    }
+
+    @Override
+    public void onErrorEvent(Connection connection, Throwable error)
+    {
+    }
+
+    @Override
+    public void onIOEventReadyEvent(Connection connection, IOEvent ioEvent)
+    {
+    }
+
+    @Override
+    public void onIOEventEnableEvent(Connection connection, IOEvent ioEvent)
+    {
+    }
+
+    @Override
+    public void onIOEventDisableEvent(Connection connection, IOEvent ioEvent)
+    {
+    }
+
+    /**
+     * The state of a connection, only updated by the thread processing its reads and the one writing its responses.
+     */
+    private static class ConnectionStatistics
+    {
+
+        private final HttpListenerStatistics listenerStatistics;
+        private volatile int requests;
+        private volatile long reads;
+        private volatile long readsAtLastRequest;
+        private volatile boolean awaitingHeaders = true;
+        private volatile long headerParseStart = NOT_STARTED;
+
+        private ConnectionStatistics(HttpListenerStatistics listenerStatistics)
+        {
+            this.listenerStatistics = listenerStatistics;
+        }
+    }
+}
@@ -6,8 +6,6 @@
  */
 package org.mule.module.http.internal.listener.grizzly;
 
-import static org.mule.module.http.api.HttpHeaders.Names.CONTENT_LENGTH;
-
 import org.mule.api.MuleRuntimeException;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.module.http.api.HttpConstants;
@@ -29,7 +27,6 @@ import org.glassfish.grizzly.http.HttpContent;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.HttpResponsePacket;
 import org.glassfish.grizzly.memory.Buffers;
-import org.glassfish.grizzly.http.HttpServerFilter;
 
 /**
  * {@link org.glassfish.grizzly.CompletionHandler}, responsible for asynchronous response writing
@@ -71,7 +68,8 @@ public class ResponseCompletionHandler
         }
         HttpContent.Builder contentBuilder = HttpContent.builder(httpResponsePacket);
         //For some reason, grizzly tries to send Transfer-Encoding: chunk even if the content-length is set.
-        if (httpResponse.getHeaderValue(CONTENT_LENGTH.toLowerCase()) != null)
+        //The content is also the last one when a compressing content encoding drops the content-length.
+        if (httpResponsePacket.getContentLength() != -1)
         {
             contentBuilder.last(true);
         }
@@ -122,7 +120,8 @@ public class ResponseCompletionHandler
             }
             else
             {
-                ctx.notifyDownstream(HttpServerFilter.RESPONSE_COMPLETE_EVENT);
+                responseStatusCallback.responseSendSuccessfully();
+                notifyResponseComplete(ctx, httpResponsePacket);
                 resume();
             }
         }
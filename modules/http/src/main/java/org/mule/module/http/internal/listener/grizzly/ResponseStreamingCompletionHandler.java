@@ -6,7 +6,6 @@
  */
 package org.mule.module.http.internal.listener.grizzly;
 
-import static org.glassfish.grizzly.http.HttpServerFilter.RESPONSE_COMPLETE_EVENT;
 import org.mule.api.DefaultMuleException;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.module.http.internal.domain.InputStreamHttpEntity;
@@ -119,7 +118,7 @@ public class ResponseStreamingCompletionHandler
     {
         close();
         responseStatusCallback.responseSendSuccessfully();
-        ctx.notifyDownstream(RESPONSE_COMPLETE_EVENT);
+        notifyResponseComplete(ctx, httpResponsePacket);
         resume();
     }
 
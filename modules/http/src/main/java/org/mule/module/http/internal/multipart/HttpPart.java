@@ -24,10 +24,11 @@ public class HttpPart implements Part
     public static final int NO_SIZE = -1;
 
     private final byte[] content;
+    private final PartContentBuffer contentBuffer;
     private final String contentType;
     private final String partName;
     private final String fileName;
-    private final int size;
+    private final long size;
     private Map<String, Object> headers = new HashMap<>();
 
     public HttpPart(String partName, byte[] content, String contentType, int size)
@@ -40,14 +41,32 @@ public class HttpPart implements Part
         this.partName = partName;
         this.fileName = fileName;
         this.content = content;
+        this.contentBuffer = null;
         this.contentType = contentType;
         this.size = size;
     }
 
+    /**
+     * Creates a part whose content is read from a buffer, which may be backed by a temporary file.
+     */
+    public HttpPart(String partName, String fileName, PartContentBuffer contentBuffer, String contentType)
+    {
+        this.partName = partName;
+        this.fileName = fileName;
+        this.content = null;
+        this.contentBuffer = contentBuffer;
+        this.contentType = contentType;
+        this.size = contentBuffer.getSize();
+    }
+
     @Override
     public void delete() throws IOException
     {
-        throw new UnsupportedOperationException();
+        if (contentBuffer == null)
+        {
+            throw new UnsupportedOperationException();
+        }
+        contentBuffer.delete();
     }
 
     @Override
@@ -109,7 +128,7 @@ public class HttpPart implements Part
     @Override
     public InputStream getInputStream() throws IOException
     {
-        return new ByteArrayInputStream(content);
+        return contentBuffer != null ? contentBuffer.getInputStream() : new ByteArrayInputStream(content);
     }
 
     @Override
@@ -6,13 +6,11 @@
  */
 package org.mule.module.http.internal.multipart;
 
-import org.mule.api.MuleRuntimeException;
 import org.mule.message.ds.ByteArrayDataSource;
 import org.mule.message.ds.StringDataSource;
 import org.mule.module.http.internal.HttpParam;
 import org.mule.util.IOUtils;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -30,30 +28,27 @@ public class HttpPartDataSource implements DataSource
 {
 
     private final HttpPart part;
-    private byte[] content;
 
     private HttpPartDataSource(HttpPart part)
     {
-        try
-        {
-            this.part = part;
-            this.content = IOUtils.toByteArray(part.getInputStream());
-        }
-        catch (IOException e)
-        {
-            throw new MuleRuntimeException(e);
-        }
+        this.part = part;
     }
 
     public byte[] getContent() throws IOException
     {
-        return this.content;
+        try (InputStream content = getInputStream())
+        {
+            return IOUtils.toByteArray(content);
+        }
     }
 
+    /**
+     * @return a new stream over the content of the part, which is not copied so large parts can be streamed
+     */
     @Override
     public InputStream getInputStream() throws IOException
     {
-        return new ByteArrayInputStream(getContent());
+        return part.getInputStream();
     }
 
     @Override
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.multipart;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the parts of a multipart body from a stream one at a time, without holding more than a small buffer
+ * of the body in memory. The headers of each part are parsed by {@link #nextPart()} and its content is written
+ * by {@link #readContent(OutputStream)}, which stops at the next boundary. Content that is not read is skipped
+ * when moving to the next part.
+ */
+public class MultipartStreamReader
+{
+
+    private static final Charset HEADER_CHARSET = Charset.forName("ISO-8859-1");
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_HEADER_LINE_SIZE = 8 * 1024;
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte DASH = '-';
+
+    private final InputStream input;
+    private byte[] delimiter;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean atDelimiter;
+    private boolean finished;
+    private List<String[]> headers;
+
+    /**
+     * @param input the multipart body
+     * @param boundary the boundary of the parts, from the content type of the body, or null to take it from
+     *                 the first boundary line of the body
+     */
+    public MultipartStreamReader(InputStream input, String boundary)
+    {
+        this.input = input;
+        this.delimiter = boundary != null ? toDelimiter("--" + boundary) : null;
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter != null ? delimiter.length * 2 : 0)];
+        // The first boundary is not preceded by a line break, so one is assumed before the body
+        buffer[limit++] = CR;
+        buffer[limit++] = LF;
+    }
+
+    /**
+     * Moves to the next part, skipping the preamble or the unread content of the current part.
+     *
+     * @return true if there is a part, false if the closing boundary was reached
+     * @throws IOException if the body cannot be read or does not end with a closing boundary
+     */
+    public boolean nextPart() throws IOException
+    {
+        if (finished)
+        {
+            return false;
+        }
+        if (delimiter == null)
+        {
+            detectDelimiter();
+            headers = readHeaders();
+            return true;
+        }
+        if (!atDelimiter)
+        {
+            copyUntilDelimiter(null);
+        }
+        atDelimiter = false;
+        if (!fill(2))
+        {
+            throw unexpectedEnd();
+        }
+        if (buffer[position] == DASH && buffer[position + 1] == DASH)
+        {
+            finished = true;
+            headers = null;
+            return false;
+        }
+        // Transport padding after the boundary
+        readLine();
+        headers = readHeaders();
+        return true;
+    }
+
+    /**
+     * @return the headers of the current part as name and value pairs, in the order they were sent
+     */
+    public List<String[]> getHeaders()
+    {
+        return headers;
+    }
+
+    /**
+     * Writes the content of the current part up to the next boundary.
+     *
+     * @param output where the content is written
+     * @throws IOException if the body cannot be read or the output cannot be written
+     */
+    public void readContent(OutputStream output) throws IOException
+    {
+        if (atDelimiter || headers == null)
+        {
+            throw new IllegalStateException("There is no part content to read");
+        }
+        copyUntilDelimiter(output);
+        atDelimiter = true;
+    }
+
+    /**
+     * Takes the boundary from the first line of the body that starts like one, leaving the reader at the
+     * headers of the first part.
+     */
+    private void detectDelimiter() throws IOException
+    {
+        String line;
+        do
+        {
+            line = readLine();
+        }
+        while (!line.startsWith("--"));
+        delimiter = toDelimiter(line.trim());
+        if (delimiter.length * 2 > buffer.length)
+        {
+            throw new IOException("Multipart boundary is too long");
+        }
+    }
+
+    private byte[] toDelimiter(String boundaryLine)
+    {
+        return ("\r\n" + boundaryLine).getBytes(HEADER_CHARSET);
+    }
+
+    private void copyUntilDelimiter(OutputStream output) throws IOException
+    {
+        while (true)
+        {
+            int index = indexOfDelimiter();
+            if (index != -1)
+            {
+                write(output, index - position);
+                position = index + delimiter.length;
+                return;
+            }
+            // The end of the buffer may hold the beginning of the delimiter, so it is kept
+            int safeLength = limit - position - (delimiter.length - 1);
+            if (safeLength > 0)
+            {
+                write(output, safeLength);
+            }
+            if (!read())
+            {
+                throw unexpectedEnd();
+            }
+        }
+    }
+
+    private int indexOfDelimiter()
+    {
+        int last = limit - delimiter.length;
+        for (int i = position; i <= last; i++)
+        {
+            int j = 0;
+            while (j < delimiter.length && buffer[i + j] == delimiter[j])
+            {
+                j++;
+            }
+            if (j == delimiter.length)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void write(OutputStream output, int length) throws IOException
+    {
+        if (output != null)
+        {
+            output.write(buffer, position, length);
+        }
+        position += length;
+    }
+
+    private List<String[]> readHeaders() throws IOException
+    {
+        List<String[]> partHeaders = new ArrayList<>();
+        String line = readLine();
+        while (line.length() > 0)
+        {
+            StringBuilder header = new StringBuilder(line);
+            line = readLine();
+            // Folded header values continue in lines starting with white space
+            while (line.length() > 0 && (line.charAt(0) == ' ' || line.charAt(0) == '\t'))
+            {
+                header.append(' ').append(line.trim());
+                line = readLine();
+            }
+            int separator = header.indexOf(":");
+            if (separator > 0)
+            {
+                partHeaders.add(new String[] {header.substring(0, separator).trim(), header.substring(separator + 1).trim()});
+            }
+        }
+        return partHeaders;
+    }
+
+    private String readLine() throws IOException
+    {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true)
+        {
+            if (position == limit && !read())
+            {
+                throw unexpectedEnd();
+            }
+            byte b = buffer[position++];
+            if (b == LF)
+            {
+                return new String(line.toByteArray(), HEADER_CHARSET);
+            }
+            if (b != CR)
+            {
+                line.write(b);
+            }
+            if (line.size() > MAX_HEADER_LINE_SIZE)
+            {
+                throw new IOException("Multipart header line is longer than " + MAX_HEADER_LINE_SIZE + " bytes");
+            }
+        }
+    }
+
+    private boolean fill(int length) throws IOException
+    {
+        while (limit - position < length)
+        {
+            if (!read())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves the unread bytes to the beginning of the buffer and reads more after them.
+     *
+     * @return false if the end of the body was reached
+     */
+    private boolean read() throws IOException
+    {
+        if (position > 0)
+        {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        int read = input.read(buffer, limit, buffer.length - limit);
+        if (read == -1)
+        {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private IOException unexpectedEnd()
+    {
+        return new IOException("Unexpected end of multipart content, the closing boundary was not found");
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.multipart;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the content of a multipart part. The content is kept in memory until it exceeds a threshold, then
+ * it is moved to a temporary file and the rest of it is written there, so large parts never live in the heap.
+ * <p/>
+ * Parts may outlive the request that created them, for example when the message is sent to a queue, so the
+ * temporary file of a buffer is deleted by a reaper thread once the buffer and the streams over its content are
+ * no longer reachable, or earlier by {@link #delete()}. The files left in a directory when its owner shuts down
+ * are deleted by {@link #deleteTempFiles(File)}.
+ */
+public class PartContentBuffer extends OutputStream
+{
+
+    public static final long UNLIMITED_THRESHOLD = -1;
+
+    private static final Logger logger = LoggerFactory.getLogger(PartContentBuffer.class);
+
+    private static final String TEMP_FILE_PREFIX = "mule-http-part";
+    private static final String REAPER_THREAD_NAME = "mule.http.multipart.reaper";
+
+    private static final ReferenceQueue<PartContentBuffer> unreachableBuffers = new ReferenceQueue<>();
+    private static final Set<TempFileReference> tempFileReferences = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<TempFileReference, Boolean>()));
+    private static Thread reaperThread;
+
+    private final long inMemoryThreshold;
+    private final File tempDirectory;
+    private ByteArrayOutputStream memoryContent = new ByteArrayOutputStream();
+    private File file;
+    private OutputStream fileOutput;
+    private long size;
+
+    /**
+     * @param inMemoryThreshold the maximum number of bytes kept in memory, or {@link #UNLIMITED_THRESHOLD}
+     * @param tempDirectory the directory of the temporary file, created if it does not exist. Only used when the
+     *                      content exceeds the threshold, so it may be null if the threshold is unlimited
+     */
+    public PartContentBuffer(long inMemoryThreshold, File tempDirectory)
+    {
+        this.inMemoryThreshold = inMemoryThreshold;
+        this.tempDirectory = tempDirectory;
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException
+    {
+        if (file == null && inMemoryThreshold != UNLIMITED_THRESHOLD && size + length > inMemoryThreshold)
+        {
+            spill();
+        }
+        if (file == null)
+        {
+            memoryContent.write(bytes, offset, length);
+        }
+        else
+        {
+            fileOutput.write(bytes, offset, length);
+        }
+        size += length;
+    }
+
+    private void spill() throws IOException
+    {
+        if (!tempDirectory.isDirectory() && !tempDirectory.mkdirs() && !tempDirectory.isDirectory())
+        {
+            throw new IOException("Could not create temporary directory " + tempDirectory.getAbsolutePath());
+        }
+        file = File.createTempFile(TEMP_FILE_PREFIX, null, tempDirectory);
+        startReaper();
+        tempFileReferences.add(new TempFileReference(this, file));
+        fileOutput = new BufferedOutputStream(new FileOutputStream(file));
+        memoryContent.writeTo(fileOutput);
+        memoryContent = null;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (fileOutput != null)
+        {
+            fileOutput.close();
+            fileOutput = null;
+        }
+    }
+
+    /**
+     * @return a new stream over the content, which must be closed before reading it
+     */
+    public InputStream getInputStream() throws IOException
+    {
+        if (file == null)
+        {
+            return new ByteArrayInputStream(memoryContent.toByteArray());
+        }
+        return new FileContentInputStream();
+    }
+
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * @return the temporary file with the content, or null if it is kept in memory
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Releases the content, deleting its temporary file if there is one.
+     */
+    public void delete() throws IOException
+    {
+        close();
+        if (file != null && file.exists() && !file.delete())
+        {
+            throw new IOException("Could not delete temporary file " + file.getAbsolutePath());
+        }
+        memoryContent = new ByteArrayOutputStream();
+    }
+
+    /**
+     * Deletes the temporary files of the buffers in a directory, including the ones left by a previous run.
+     * The buffers whose file is deleted can no longer be read.
+     *
+     * @param tempDirectory the directory the buffers were created with
+     */
+    public static void deleteTempFiles(File tempDirectory)
+    {
+        synchronized (tempFileReferences)
+        {
+            for (Iterator<TempFileReference> iterator = tempFileReferences.iterator(); iterator.hasNext(); )
+            {
+                if (tempDirectory.equals(iterator.next().file.getParentFile()))
+                {
+                    iterator.remove();
+                }
+            }
+        }
+
+        File[] files = tempDirectory.listFiles(new FilenameFilter()
+        {
+            @Override
+            public boolean accept(File dir, String name)
+            {
+                return name.startsWith(TEMP_FILE_PREFIX);
+            }
+        });
+        if (files != null)
+        {
+            for (File leftover : files)
+            {
+                if (!leftover.delete())
+                {
+                    logger.warn("Could not delete temporary file " + leftover.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    private static synchronized void startReaper()
+    {
+        if (reaperThread == null)
+        {
+            reaperThread = new Thread(new TempFileReaper(), REAPER_THREAD_NAME);
+            reaperThread.setDaemon(true);
+            reaperThread.start();
+        }
+    }
+
+    /**
+     * Deletes the temporary files of the buffers as they are garbage collected.
+     */
+    private static class TempFileReaper implements Runnable
+    {
+
+        @Override
+        public void run()
+        {
+            while (true)
+            {
+                try
+                {
+                    TempFileReference reference = (TempFileReference) unreachableBuffers.remove();
+                    tempFileReferences.remove(reference);
+                    if (reference.file.exists() && !reference.file.delete())
+                    {
+                        logger.warn("Could not delete temporary file " + reference.file.getAbsolutePath());
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                catch (Exception e)
+                {
+                    // Don't let exception escape -- it kills the thread
+                    logger.error("Error deleting the temporary file of a multipart part", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps the buffer reachable while its content is read, so the reaper does not delete the file under the reader.
+     */
+    private class FileContentInputStream extends FileInputStream
+    {
+
+        FileContentInputStream() throws FileNotFoundException
+        {
+            super(file);
+        }
+    }
+
+    private static class TempFileReference extends PhantomReference<PartContentBuffer>
+    {
+
+        private final File file;
+
+        TempFileReference(PartContentBuffer buffer, File file)
+        {
+            super(buffer, unreachableBuffers);
+            this.file = file;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.request;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.glassfish.grizzly.connectionpool.MultiEndpointPool;
+
+/**
+ * Counters of the connections leased by the requests of an HTTP requester config. The wait time percentiles
+ * are computed over the last {@link #WAIT_TIME_SAMPLES} leases.
+ */
+public class ConnectionPoolStatistics implements ConnectionPoolStatisticsMBean
+{
+
+    static final int WAIT_TIME_SAMPLES = 1024;
+
+    private final int maxConnections;
+    private final int maxConnectionsPerHost;
+
+    private final AtomicInteger leased = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong leaseCount = new AtomicLong();
+    private final AtomicLong leaseTimeouts = new AtomicLong();
+    private final AtomicLong idleEvictions = new AtomicLong();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+    private final AtomicLongArray waitTimes = new AtomicLongArray(WAIT_TIME_SAMPLES);
+
+    private volatile MultiEndpointPool<?> connectionPool;
+
+    public ConnectionPoolStatistics(int maxConnections, int maxConnectionsPerHost)
+    {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * @param connectionPool the pool that keeps the idle connections, null if connections are not persistent
+     */
+    public void setConnectionPool(MultiEndpointPool<?> connectionPool)
+    {
+        this.connectionPool = connectionPool;
+    }
+
+    public void requestQueued()
+    {
+        pending.incrementAndGet();
+    }
+
+    public void requestDequeued()
+    {
+        pending.decrementAndGet();
+    }
+
+    public void connectionLeased(long waitTime)
+    {
+        long count = leaseCount.getAndIncrement();
+        waitTimes.set((int) (count % WAIT_TIME_SAMPLES), waitTime);
+        leased.incrementAndGet();
+
+        long max = maxWaitTime.get();
+        while (waitTime > max && !maxWaitTime.compareAndSet(max, waitTime))
+        {
+            max = maxWaitTime.get();
+        }
+    }
+
+    public void connectionReleased()
+    {
+        leased.decrementAndGet();
+    }
+
+    public void leaseTimedOut()
+    {
+        leaseTimeouts.incrementAndGet();
+    }
+
+    public void connectionEvicted()
+    {
+        idleEvictions.incrementAndGet();
+    }
+
+    @Override
+    public int getLeasedConnections()
+    {
+        return leased.get();
+    }
+
+    @Override
+    public int getIdleConnections()
+    {
+        MultiEndpointPool<?> pool = connectionPool;
+        return pool == null ? 0 : Math.max(0, pool.getOpenConnectionsCount() - leased.get());
+    }
+
+    @Override
+    public int getPendingRequests()
+    {
+        return pending.get();
+    }
+
+    @Override
+    public long getLeaseCount()
+    {
+        return leaseCount.get();
+    }
+
+    @Override
+    public long getLeaseTimeouts()
+    {
+        return leaseTimeouts.get();
+    }
+
+    @Override
+    public long getIdleEvictions()
+    {
+        return idleEvictions.get();
+    }
+
+    @Override
+    public long getWaitTimeMedian()
+    {
+        return getWaitTimePercentile(50);
+    }
+
+    @Override
+    public long getWaitTime95thPercentile()
+    {
+        return getWaitTimePercentile(95);
+    }
+
+    @Override
+    public long getWaitTime99thPercentile()
+    {
+        return getWaitTimePercentile(99);
+    }
+
+    /**
+     * @param percentile a value between 0 and 100
+     * @return the wait time, in milliseconds, under which the given percentage of the recent leases got their connection
+     */
+    public long getWaitTimePercentile(double percentile)
+    {
+        int samples = (int) Math.min(leaseCount.get(), WAIT_TIME_SAMPLES);
+        if (samples == 0)
+        {
+            return 0;
+        }
+        long[] sorted = new long[samples];
+        for (int i = 0; i < samples; i++)
+        {
+            sorted[i] = waitTimes.get(i);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * samples) - 1;
+        return sorted[Math.min(samples - 1, Math.max(0, index))];
+    }
+
+    @Override
+    public long getMaxWaitTime()
+    {
+        return maxWaitTime.get();
+    }
+
+    @Override
+    public int getMaxConnections()
+    {
+        return maxConnections;
+    }
+
+    @Override
+    public int getMaxConnectionsPerHost()
+    {
+        return maxConnectionsPerHost;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.request;
+
+/**
+ * JMX view of the connections of an HTTP requester config. Registered as
+ * {@code Mule.<application>:type=HttpRequesterConnectionPool,name=<config name>}.
+ */
+public interface ConnectionPoolStatisticsMBean
+{
+
+    String JMX_TYPE = "HttpRequesterConnectionPool";
+
+    /**
+     * @return the amount of requests that currently hold a connection
+     */
+    int getLeasedConnections();
+
+    /**
+     * @return the amount of open connections that are not used by any request
+     */
+    int getIdleConnections();
+
+    /**
+     * @return the amount of requests waiting for a connection to be available
+     */
+    int getPendingRequests();
+
+    /**
+     * @return the amount of requests that got a connection
+     */
+    long getLeaseCount();
+
+    /**
+     * @return the amount of requests that failed because no connection was available in time
+     */
+    long getLeaseTimeouts();
+
+    /**
+     * @return the amount of connections closed by the pool because they were idle longer than the idle timeout
+     *         or reached their maximum lifetime
+     */
+    long getIdleEvictions();
+
+    /**
+     * @return the median of the time, in milliseconds, that recent requests waited for a connection
+     */
+    long getWaitTimeMedian();
+
+    /**
+     * @return the 95th percentile of the time, in milliseconds, that recent requests waited for a connection
+     */
+    long getWaitTime95thPercentile();
+
+    /**
+     * @return the 99th percentile of the time, in milliseconds, that recent requests waited for a connection
+     */
+    long getWaitTime99thPercentile();
+
+    /**
+     * @return the longest time, in milliseconds, that a request waited for a connection
+     */
+    long getMaxWaitTime();
+
+    /**
+     * @return the maximum amount of connections, or -1 if unlimited
+     */
+    int getMaxConnections();
+
+    /**
+     * @return the maximum amount of connections to a single host, or -1 if unlimited
+     */
+    int getMaxConnectionsPerHost();
+}
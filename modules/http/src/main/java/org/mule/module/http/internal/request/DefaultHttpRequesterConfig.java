@@ -19,14 +19,22 @@ import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.lifecycle.LifecycleUtils;
 import org.mule.api.lifecycle.Startable;
 import org.mule.api.lifecycle.Stoppable;
+import org.mule.api.store.ObjectStore;
 import org.mule.config.i18n.CoreMessages;
+import org.mule.management.stats.StatisticsMBeanRegistrar;
 import org.mule.module.http.api.HttpAuthentication;
 import org.mule.module.http.api.HttpConstants;
 import org.mule.module.http.api.requester.HttpRequesterConfig;
 import org.mule.module.http.api.requester.HttpSendBodyMode;
 import org.mule.module.http.api.requester.HttpStreamingType;
 import org.mule.module.http.api.requester.proxy.ProxyConfig;
+import org.mule.module.http.internal.compression.CompressionStatistics;
+import org.mule.module.http.internal.compression.ResponseDecompression;
+import org.mule.module.http.internal.request.cache.CachingHttpClient;
+import org.mule.module.http.internal.request.cache.ResponseCache;
+import org.mule.module.http.internal.request.cache.ResponseCacheStatistics;
 import org.mule.module.http.internal.request.grizzly.GrizzlyHttpClient;
+import org.mule.module.http.internal.request.grizzly.GrizzlyHttp2Client;
 import org.mule.module.http.internal.request.grizzly.GrizzlyHttpClientConfiguration;
 import org.mule.transport.ssl.api.TlsContextFactory;
 import org.mule.transport.ssl.api.TlsContextFactoryBuilder;
@@ -34,12 +42,17 @@ import org.mule.transport.tcp.DefaultTcpClientSocketProperties;
 import org.mule.transport.tcp.TcpClientSocketProperties;
 import org.mule.util.concurrent.ThreadNameHelper;
 
+import java.io.Serializable;
 import java.net.CookieManager;
 
+import javax.management.ObjectName;
 
 public class DefaultHttpRequesterConfig extends AbstractAnnotatedObject implements HttpRequesterConfig, Initialisable, Stoppable, Startable, MuleContextAware
 {
     private static final int UNLIMITED_CONNECTIONS = -1;
+    private static final int DEFAULT_CONNECTION_WAIT_TIMEOUT = -1;
+    private static final int DEFAULT_RESPONSE_CACHE_MAX_ENTRIES = 1000;
+    private static final int DEFAULT_RESPONSE_CACHE_MAX_ENTRY_SIZE = 1024 * 1024;
     private static final int DEFAULT_CONNECTION_IDLE_TIMEOUT = 30 * 1000;
     private static final String THREAD_NAME_PREFIX_PATTERN = "%shttp.requester.%s";
 
@@ -63,11 +76,23 @@ public class DefaultHttpRequesterConfig extends AbstractAnnotatedObject implemen
     private HttpClient httpClient;
 
     private int maxConnections = UNLIMITED_CONNECTIONS;
+    private int maxConnectionsPerHost = UNLIMITED_CONNECTIONS;
+    private int connectionWaitTimeout = DEFAULT_CONNECTION_WAIT_TIMEOUT;
     private boolean usePersistentConnections = true;
     private int connectionIdleTimeout = DEFAULT_CONNECTION_IDLE_TIMEOUT;
+    private int prewarmConnections = 0;
 
     private boolean enableCookies = false;
+    private boolean enableHttp2 = false;
+    private boolean enableCompression = false;
+    private boolean enableResponseCache = false;
+    private int responseCacheMaxEntries = DEFAULT_RESPONSE_CACHE_MAX_ENTRIES;
+    private int responseCacheMaxEntrySize = DEFAULT_RESPONSE_CACHE_MAX_ENTRY_SIZE;
+    private ObjectStore<Serializable> responseCacheObjectStore;
+    private ResponseDecompression responseDecompression;
     private CookieManager cookieManager;
+    private ConnectionPoolStatistics connectionPoolStatistics;
+    private ObjectName connectionPoolObjectName;
 
     private MuleContext muleContext;
 
@@ -98,6 +123,13 @@ public class DefaultHttpRequesterConfig extends AbstractAnnotatedObject implemen
             cookieManager = new CookieManager();
         }
 
+        if (enableCompression)
+        {
+            responseDecompression = new ResponseDecompression();
+        }
+
+        connectionPoolStatistics = new ConnectionPoolStatistics(maxConnections, maxConnectionsPerHost);
+
         String threadNamePrefix = format(THREAD_NAME_PREFIX_PATTERN, ThreadNameHelper.getPrefix(muleContext), name);
 
         GrizzlyHttpClientConfiguration configuration = new GrizzlyHttpClientConfiguration.Builder()
@@ -105,13 +137,39 @@ public class DefaultHttpRequesterConfig extends AbstractAnnotatedObject implemen
                 .setProxyConfig(proxyConfig)
                 .setClientSocketProperties(clientSocketProperties)
                 .setMaxConnections(maxConnections)
+                .setMaxConnectionsPerHost(maxConnectionsPerHost)
+                .setConnectionWaitTimeout(connectionWaitTimeout)
                 .setUsePersistentConnections(usePersistentConnections)
                 .setConnectionIdleTimeout(connectionIdleTimeout)
                 .setThreadNamePrefix(threadNamePrefix)
                 .setOwnerName(name)
+                .setResponseDecompression(responseDecompression)
+                .setConnectionPoolStatistics(connectionPoolStatistics)
+                .setPrewarmUrl(prewarmConnections > 0 ? format("%s://%s:%s", getScheme(), host, port) : null)
+                .setPrewarmConnections(prewarmConnections)
                 .build();
 
-        httpClient = new GrizzlyHttpClient(configuration);
+        if (enableHttp2)
+        {
+            if (proxyConfig != null)
+            {
+                throw new InitialisationException(CoreMessages.createStaticMessage("Proxies are not supported when HTTP/2 is enabled"), this);
+            }
+            if (authentication instanceof DefaultHttpAuthentication)
+            {
+                throw new InitialisationException(CoreMessages.createStaticMessage("Basic, digest and NTLM authentication are not supported when HTTP/2 is enabled"), this);
+            }
+            httpClient = new GrizzlyHttp2Client(configuration);
+        }
+        else
+        {
+            httpClient = new GrizzlyHttpClient(configuration);
+        }
+
+        if (enableResponseCache)
+        {
+            httpClient = new CachingHttpClient(httpClient, new ResponseCache(responseCacheMaxEntries, responseCacheObjectStore), responseCacheMaxEntrySize);
+        }
 
         httpClient.initialise();
     }
@@ -123,6 +181,37 @@ public class DefaultHttpRequesterConfig extends AbstractAnnotatedObject implemen
             throw new InitialisationException(CoreMessages.createStaticMessage("The maxConnections parameter only allows positive values or -1 for unlimited concurrent connections."), this);
         }
 
+        if (maxConnectionsPerHost < UNLIMITED_CONNECTIONS || maxConnectionsPerHost == 0)
+        {
+            throw new InitialisationException(CoreMessages.createStaticMessage("The maxConnectionsPerHost parameter only allows positive values or -1 for unlimited concurrent connections per host."), this);
+        }
+
+        if (maxConnections != UNLIMITED_CONNECTIONS && maxConnectionsPerHost > maxConnections)
+        {
+            throw new InitialisationException(CoreMessages.createStaticMessage("The maxConnectionsPerHost parameter cannot be greater than maxConnections."), this);
+        }
+
+        if (enableResponseCache && (responseCacheMaxEntries <= 0 || responseCacheMaxEntrySize <= 0))
+        {
+            throw new InitialisationException(CoreMessages.createStaticMessage("The responseCacheMaxEntries and responseCacheMaxEntrySize parameters only allow positive values."), this);
+        }
+
+        if (connectionWaitTimeout < DEFAULT_CONNECTION_WAIT_TIMEOUT)
+        {
+            throw new InitialisationException(CoreMessages.createStaticMessage("The connectionWaitTimeout parameter only allows positive values, 0 to fail immediately or -1 to wait for the response timeout."), this);
+        }
+
+        if (prewarmConnections < 0)
+        {
+            throw new InitialisationException(CoreMessages.createStaticMessage("The prewarmConnections parameter only allows positive values or 0 to not open connections on start."), this);
+        }
+
+        if (prewarmConnections > 0 && (host == null || muleContext.getExpressionManager().isExpression(host)
+                                       || (port != null && muleContext.getExpressionManager().isExpression(port))))
+        {
+            throw new InitialisationException(CoreMessages.createStaticMessage("The prewarmConnections parameter requires a host and port that are not expressions."), this);
+        }
+
         if (!usePersistentConnections)
         {
             connectionIdleTimeout = 0;
@@ -132,6 +221,7 @@ public class DefaultHttpRequesterConfig extends AbstractAnnotatedObject implemen
     @Override
     public void stop() throws MuleException
     {
+        unregisterConnectionPoolStatistics();
         httpClient.stop();
         if (this.authentication instanceof Stoppable)
         {
@@ -317,6 +407,22 @@ public class DefaultHttpRequesterConfig extends AbstractAnnotatedObject implemen
         {
             ((Startable) this.authentication).start();
         }
+        registerConnectionPoolStatistics();
+        httpClient.start();
+    }
+
+    private void registerConnectionPoolStatistics()
+    {
+        if (connectionPoolStatistics != null && name != null)
+        {
+            connectionPoolObjectName = StatisticsMBeanRegistrar.register(muleContext, ConnectionPoolStatisticsMBean.JMX_TYPE, name, connectionPoolStatistics);
+        }
+    }
+
+    private void unregisterConnectionPoolStatistics()
+    {
+        StatisticsMBeanRegistrar.unregister(connectionPoolObjectName);
+        connectionPoolObjectName = null;
     }
 
     public void setMaxConnections(int maxConnections)
@@ -324,6 +430,16 @@ public class DefaultHttpRequesterConfig extends AbstractAnnotatedObject implemen
         this.maxConnections = maxConnections;
     }
 
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost)
+    {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public void setConnectionWaitTimeout(int connectionWaitTimeout)
+    {
+        this.connectionWaitTimeout = connectionWaitTimeout;
+    }
+
     public void setUsePersistentConnections(boolean usePersistentConnections)
     {
         this.usePersistentConnections = usePersistentConnections;
@@ -334,6 +450,11 @@ public class DefaultHttpRequesterConfig extends AbstractAnnotatedObject implemen
         this.connectionIdleTimeout = connectionIdleTimeout;
     }
 
+    public void setPrewarmConnections(int prewarmConnections)
+    {
+        this.prewarmConnections = prewarmConnections;
+    }
+
     public boolean isEnableCookies()
     {
         return enableCookies;
@@ -344,6 +465,75 @@ public class DefaultHttpRequesterConfig extends AbstractAnnotatedObject implemen
         this.enableCookies = enableCookies;
     }
 
+    public boolean isEnableHttp2()
+    {
+        return enableHttp2;
+    }
+
+    public void setEnableHttp2(boolean enableHttp2)
+    {
+        this.enableHttp2 = enableHttp2;
+    }
+
+    public boolean isEnableCompression()
+    {
+        return enableCompression;
+    }
+
+    public void setEnableCompression(boolean enableCompression)
+    {
+        this.enableCompression = enableCompression;
+    }
+
+    /**
+     * @return the counters of the decompressed responses, or null if compression is not enabled
+     */
+    public CompressionStatistics getCompressionStatistics()
+    {
+        return responseDecompression != null ? responseDecompression.getStatistics() : null;
+    }
+
+    public boolean isEnableResponseCache()
+    {
+        return enableResponseCache;
+    }
+
+    public void setEnableResponseCache(boolean enableResponseCache)
+    {
+        this.enableResponseCache = enableResponseCache;
+    }
+
+    public void setResponseCacheMaxEntries(int responseCacheMaxEntries)
+    {
+        this.responseCacheMaxEntries = responseCacheMaxEntries;
+    }
+
+    public void setResponseCacheMaxEntrySize(int responseCacheMaxEntrySize)
+    {
+        this.responseCacheMaxEntrySize = responseCacheMaxEntrySize;
+    }
+
+    public void setResponseCacheObjectStore(ObjectStore<Serializable> responseCacheObjectStore)
+    {
+        this.responseCacheObjectStore = responseCacheObjectStore;
+    }
+
+    /**
+     * @return the counters of the responses served from the cache, or null if the response cache is not enabled
+     */
+    public ResponseCacheStatistics getResponseCacheStatistics()
+    {
+        return httpClient instanceof CachingHttpClient ? ((CachingHttpClient) httpClient).getStatistics() : null;
+    }
+
+    /**
+     * @return the counters of the connections leased by the requester, or null if HTTP/2 is enabled
+     */
+    public ConnectionPoolStatistics getConnectionPoolStatistics()
+    {
+        return connectionPoolStatistics;
+    }
+
     @Override
     public void setMuleContext(MuleContext muleContext)
     {
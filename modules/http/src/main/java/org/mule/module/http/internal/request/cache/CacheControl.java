@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.request.cache;
+
+import static org.mule.module.http.api.HttpHeaders.Values.MAX_AGE;
+import static org.mule.module.http.api.HttpHeaders.Values.MUST_REVALIDATE;
+import static org.mule.module.http.api.HttpHeaders.Values.NO_CACHE;
+import static org.mule.module.http.api.HttpHeaders.Values.NO_STORE;
+import static org.mule.module.http.api.HttpHeaders.Values.PUBLIC;
+
+import java.util.Collection;
+
+/**
+ * The directives of the Cache-Control headers of a request or a response that are relevant to a private cache.
+ */
+class CacheControl
+{
+
+    static final long NO_MAX_AGE = -1;
+
+    private boolean noStore;
+    private boolean noCache;
+    private boolean isPublic;
+    private boolean mustRevalidate;
+    private long maxAge = NO_MAX_AGE;
+
+    private CacheControl()
+    {
+    }
+
+    /**
+     * @param values the values of the Cache-Control headers of a message, may be null
+     */
+    static CacheControl parse(Collection<String> values)
+    {
+        CacheControl cacheControl = new CacheControl();
+        if (values == null)
+        {
+            return cacheControl;
+        }
+        for (String value : values)
+        {
+            for (String directive : value.split(","))
+            {
+                cacheControl.addDirective(directive.trim());
+            }
+        }
+        return cacheControl;
+    }
+
+    private void addDirective(String directive)
+    {
+        int separator = directive.indexOf('=');
+        String name = (separator == -1 ? directive : directive.substring(0, separator)).trim().toLowerCase();
+        if (NO_STORE.equals(name))
+        {
+            noStore = true;
+        }
+        // Field names may follow no-cache, but the whole response is revalidated anyway
+        else if (NO_CACHE.equals(name))
+        {
+            noCache = true;
+        }
+        else if (PUBLIC.equals(name))
+        {
+            isPublic = true;
+        }
+        else if (MUST_REVALIDATE.equals(name))
+        {
+            mustRevalidate = true;
+        }
+        else if (MAX_AGE.equals(name) && separator != -1)
+        {
+            try
+            {
+                maxAge = Math.max(0, Long.parseLong(directive.substring(separator + 1).trim().replace("\"", "")));
+            }
+            catch (NumberFormatException e)
+            {
+                // An invalid max-age makes the message stale
+                maxAge = 0;
+            }
+        }
+    }
+
+    boolean isNoStore()
+    {
+        return noStore;
+    }
+
+    boolean isNoCache()
+    {
+        return noCache;
+    }
+
+    boolean isPublic()
+    {
+        return isPublic;
+    }
+
+    boolean isMustRevalidate()
+    {
+        return mustRevalidate;
+    }
+
+    /**
+     * @return the max-age in seconds, or {@link #NO_MAX_AGE} if there is none
+     */
+    long getMaxAge()
+    {
+        return maxAge;
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.request.cache;
+
+import static org.mule.module.http.api.HttpHeaders.Names.AGE;
+import static org.mule.module.http.api.HttpHeaders.Names.CACHE_CONTROL;
+import static org.mule.module.http.api.HttpHeaders.Names.CONTENT_LENGTH;
+import static org.mule.module.http.api.HttpHeaders.Names.DATE;
+import static org.mule.module.http.api.HttpHeaders.Names.ETAG;
+import static org.mule.module.http.api.HttpHeaders.Names.EXPIRES;
+import static org.mule.module.http.api.HttpHeaders.Names.LAST_MODIFIED;
+import static org.mule.module.http.api.HttpHeaders.Names.TRANSFER_ENCODING;
+
+import org.mule.module.http.internal.domain.InputStreamHttpEntity;
+import org.mule.module.http.internal.domain.response.HttpResponse;
+import org.mule.module.http.internal.domain.response.HttpResponseBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.Serializable;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * A response kept by the {@link ResponseCache}, with the times it was requested and received so its age can be
+ * calculated as described in RFC 7234. Entries are serializable so they can be moved to an object store.
+ */
+public class CachedResponse implements Serializable
+{
+
+    private static final long serialVersionUID = 6542378423901563140L;
+
+    private static final String HTTP_DATE_PATTERN = "EEE, dd MMM yyyy HH:mm:ss zzz";
+    private static final long NO_DATE = -1;
+    private static final long HEURISTIC_FRESHNESS_FRACTION = 10;
+
+    private final int statusCode;
+    private final String reasonPhrase;
+    private final LinkedHashMap<String, ArrayList<String>> headers;
+    private final byte[] body;
+    private final HashMap<String, String> varyValues;
+    private final long requestTime;
+    private final long responseTime;
+
+    /**
+     * @param response the response received, its entity is not read
+     * @param body the content of the response
+     * @param varyValues the values of the request headers listed by the Vary header of the response
+     * @param requestTime the time the request was sent
+     * @param responseTime the time the response was received
+     */
+    CachedResponse(HttpResponse response, byte[] body, HashMap<String, String> varyValues, long requestTime, long responseTime)
+    {
+        this(response.getStatusCode(), response.getReasonPhrase(), copyHeaders(response), body, varyValues, requestTime, responseTime);
+    }
+
+    private CachedResponse(int statusCode, String reasonPhrase, LinkedHashMap<String, ArrayList<String>> headers, byte[] body,
+                           HashMap<String, String> varyValues, long requestTime, long responseTime)
+    {
+        this.statusCode = statusCode;
+        this.reasonPhrase = reasonPhrase;
+        this.headers = headers;
+        this.body = body;
+        this.varyValues = varyValues;
+        this.requestTime = requestTime;
+        this.responseTime = responseTime;
+    }
+
+    private static LinkedHashMap<String, ArrayList<String>> copyHeaders(HttpResponse response)
+    {
+        LinkedHashMap<String, ArrayList<String>> headers = new LinkedHashMap<>();
+        for (String headerName : response.getHeaderNames())
+        {
+            headers.put(headerName, new ArrayList<>(response.getHeaderValues(headerName)));
+        }
+        return headers;
+    }
+
+    /**
+     * Creates the entry that replaces this one after a 304 response, with the headers sent in that response.
+     */
+    CachedResponse revalidate(HttpResponse notModifiedResponse, long requestTime, long responseTime)
+    {
+        LinkedHashMap<String, ArrayList<String>> updatedHeaders = new LinkedHashMap<>(headers);
+        for (String headerName : notModifiedResponse.getHeaderNames())
+        {
+            if (CONTENT_LENGTH.equalsIgnoreCase(headerName) || TRANSFER_ENCODING.equalsIgnoreCase(headerName))
+            {
+                continue;
+            }
+            removeHeader(updatedHeaders, headerName);
+            updatedHeaders.put(headerName, new ArrayList<>(notModifiedResponse.getHeaderValues(headerName)));
+        }
+        return new CachedResponse(statusCode, reasonPhrase, updatedHeaders, body, varyValues, requestTime, responseTime);
+    }
+
+    private static void removeHeader(Map<String, ArrayList<String>> headers, String headerName)
+    {
+        Iterator<String> names = headers.keySet().iterator();
+        while (names.hasNext())
+        {
+            if (names.next().equalsIgnoreCase(headerName))
+            {
+                names.remove();
+            }
+        }
+    }
+
+    /**
+     * @return a new response with the cached content and its current Age header
+     */
+    HttpResponse toHttpResponse(long now)
+    {
+        HttpResponseBuilder builder = new HttpResponseBuilder().setStatusCode(statusCode).setReasonPhrase(reasonPhrase);
+        for (Map.Entry<String, ArrayList<String>> header : headers.entrySet())
+        {
+            if (!AGE.equalsIgnoreCase(header.getKey()))
+            {
+                for (String value : header.getValue())
+                {
+                    builder.addHeader(header.getKey(), value);
+                }
+            }
+        }
+        builder.addHeader(AGE.toLowerCase(), String.valueOf(getCurrentAge(now) / 1000));
+        return builder.setEntity(new InputStreamHttpEntity(new ByteArrayInputStream(body))).build();
+    }
+
+    /**
+     * @return true if the response can be used without contacting the server at the given time
+     */
+    boolean isFresh(long now)
+    {
+        return !getCacheControl().isNoCache() && getCurrentAge(now) < getFreshnessLifetime();
+    }
+
+    /**
+     * @return true if the response has an ETag or Last-Modified header to revalidate it
+     */
+    boolean hasValidators()
+    {
+        return getETag() != null || getLastModified() != null;
+    }
+
+    String getETag()
+    {
+        return getHeader(ETAG);
+    }
+
+    String getLastModified()
+    {
+        return getHeader(LAST_MODIFIED);
+    }
+
+    /**
+     * @return how long the response is fresh since it was generated, in milliseconds
+     */
+    long getFreshnessLifetime()
+    {
+        long maxAge = getCacheControl().getMaxAge();
+        if (maxAge != CacheControl.NO_MAX_AGE)
+        {
+            return maxAge * 1000;
+        }
+        long date = getDate();
+        String expiresHeader = getHeader(EXPIRES);
+        if (expiresHeader != null)
+        {
+            // An invalid Expires means already expired
+            long expires = parseDate(expiresHeader);
+            return expires == NO_DATE ? 0 : Math.max(0, expires - date);
+        }
+        long lastModified = parseDate(getLastModified());
+        if (lastModified != NO_DATE)
+        {
+            return Math.max(0, (date - lastModified) / HEURISTIC_FRESHNESS_FRACTION);
+        }
+        return 0;
+    }
+
+    /**
+     * @return the age of the response at the given time, in milliseconds
+     */
+    long getCurrentAge(long now)
+    {
+        long apparentAge = Math.max(0, responseTime - getDate());
+        long correctedAge = getAgeHeader() + (responseTime - requestTime);
+        return Math.max(apparentAge, correctedAge) + (now - responseTime);
+    }
+
+    private long getDate()
+    {
+        long date = parseDate(getHeader(DATE));
+        return date != NO_DATE ? date : responseTime;
+    }
+
+    private long getAgeHeader()
+    {
+        String age = getHeader(AGE);
+        if (age != null)
+        {
+            try
+            {
+                return Math.max(0, Long.parseLong(age.trim())) * 1000;
+            }
+            catch (NumberFormatException e)
+            {
+                // Ignored as if it was not sent
+            }
+        }
+        return 0;
+    }
+
+    CacheControl getCacheControl()
+    {
+        return CacheControl.parse(getHeaders(CACHE_CONTROL));
+    }
+
+    /**
+     * @return the values of the request headers the response varies on, by lower case header name
+     */
+    Map<String, String> getVaryValues()
+    {
+        return varyValues;
+    }
+
+    int getBodySize()
+    {
+        return body.length;
+    }
+
+    private String getHeader(String headerName)
+    {
+        Collection<String> values = getHeaders(headerName);
+        return values == null || values.isEmpty() ? null : values.iterator().next();
+    }
+
+    private Collection<String> getHeaders(String headerName)
+    {
+        List<String> values = null;
+        for (Map.Entry<String, ArrayList<String>> header : headers.entrySet())
+        {
+            if (header.getKey().equalsIgnoreCase(headerName))
+            {
+                if (values == null)
+                {
+                    values = new ArrayList<>();
+                }
+                values.addAll(header.getValue());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return the time in an HTTP date header, or {@link #NO_DATE} if it is missing or invalid
+     */
+    static long parseDate(String value)
+    {
+        if (value == null)
+        {
+            return NO_DATE;
+        }
+        SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_PATTERN, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try
+        {
+            return format.parse(value.trim()).getTime();
+        }
+        catch (ParseException e)
+        {
+            return NO_DATE;
+        }
+    }
+}
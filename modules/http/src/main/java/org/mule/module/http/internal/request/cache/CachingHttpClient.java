@@ -0,0 +1,405 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.request.cache;
+
+import static org.mule.module.http.api.HttpConstants.HttpStatus.NOT_MODIFIED;
+import static org.mule.module.http.api.HttpConstants.HttpStatus.OK;
+import static org.mule.module.http.api.HttpHeaders.Names.AUTHORIZATION;
+import static org.mule.module.http.api.HttpHeaders.Names.CACHE_CONTROL;
+import static org.mule.module.http.api.HttpHeaders.Names.IF_MODIFIED_SINCE;
+import static org.mule.module.http.api.HttpHeaders.Names.IF_NONE_MATCH;
+import static org.mule.module.http.api.HttpHeaders.Names.PRAGMA;
+import static org.mule.module.http.api.HttpHeaders.Names.VARY;
+import static org.mule.module.http.api.HttpHeaders.Values.NO_CACHE;
+
+import org.mule.api.CompletionHandler;
+import org.mule.api.MuleException;
+import org.mule.api.context.WorkManager;
+import org.mule.api.lifecycle.InitialisationException;
+import org.mule.module.http.internal.HttpParser;
+import org.mule.module.http.internal.ParameterMap;
+import org.mule.module.http.internal.domain.HttpMessage;
+import org.mule.module.http.internal.domain.InputStreamHttpEntity;
+import org.mule.module.http.internal.domain.request.DefaultHttpRequest;
+import org.mule.module.http.internal.domain.request.HttpRequest;
+import org.mule.module.http.internal.domain.request.HttpRequestAuthentication;
+import org.mule.module.http.internal.domain.request.HttpRequestBuilder;
+import org.mule.module.http.internal.domain.response.HttpResponse;
+import org.mule.module.http.internal.domain.response.HttpResponseBuilder;
+import org.mule.module.http.internal.request.HttpClient;
+import org.mule.util.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * An {@link HttpClient} that serves GET requests from a {@link ResponseCache} following the HTTP caching rules
+ * of a private cache. Fresh responses are served without contacting the server, stale responses with an ETag or
+ * Last-Modified header are revalidated with a conditional request, and the rest are requested again. Requests
+ * that already have conditions or ask not to store the response are sent as they are.
+ */
+public class CachingHttpClient implements HttpClient
+{
+
+    private static final String GET = "GET";
+    private static final String HEAD = "HEAD";
+    private static final String VARY_ANY = "*";
+
+    private final HttpClient delegate;
+    private final ResponseCache cache;
+    private final int maxEntrySize;
+    private final ResponseCacheStatistics statistics = new ResponseCacheStatistics();
+
+    /**
+     * @param delegate the client that sends the requests
+     * @param cache where the responses are kept
+     * @param maxEntrySize the maximum amount of bytes of a response body to cache it
+     */
+    public CachingHttpClient(HttpClient delegate, ResponseCache cache, int maxEntrySize)
+    {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        delegate.initialise();
+    }
+
+    @Override
+    public void start() throws MuleException
+    {
+        delegate.start();
+    }
+
+    @Override
+    public void stop() throws MuleException
+    {
+        delegate.stop();
+    }
+
+    @Override
+    public HttpResponse send(HttpRequest request, int responseTimeout, boolean followRedirects, HttpRequestAuthentication authentication) throws IOException, TimeoutException
+    {
+        if (!isCacheable(request))
+        {
+            invalidate(request);
+            return delegate.send(request, responseTimeout, followRedirects, authentication);
+        }
+
+        String key = getKey(request);
+        CachedResponse cachedResponse = lookup(key, request);
+        long requestTime = System.currentTimeMillis();
+        if (isServable(cachedResponse, request, requestTime))
+        {
+            statistics.hit();
+            return cachedResponse.toHttpResponse(requestTime);
+        }
+        HttpResponse response = delegate.send(createConditionalRequest(request, cachedResponse), responseTimeout, followRedirects, authentication);
+        return processResponse(key, request, authentication, cachedResponse, response, requestTime);
+    }
+
+    @Override
+    public void send(final HttpRequest request, int responseTimeout, boolean followRedirects, final HttpRequestAuthentication authentication,
+                     final CompletionHandler<HttpResponse, Exception> handler, WorkManager responseWorkManager)
+    {
+        if (!isCacheable(request))
+        {
+            invalidate(request);
+            delegate.send(request, responseTimeout, followRedirects, authentication, handler, responseWorkManager);
+            return;
+        }
+
+        final String key = getKey(request);
+        final CachedResponse cachedResponse = lookup(key, request);
+        final long requestTime = System.currentTimeMillis();
+        if (isServable(cachedResponse, request, requestTime))
+        {
+            statistics.hit();
+            handler.onCompletion(cachedResponse.toHttpResponse(requestTime));
+            return;
+        }
+        delegate.send(createConditionalRequest(request, cachedResponse), responseTimeout, followRedirects, authentication, new CompletionHandler<HttpResponse, Exception>()
+        {
+            @Override
+            public void onCompletion(HttpResponse response)
+            {
+                HttpResponse processedResponse;
+                try
+                {
+                    processedResponse = processResponse(key, request, authentication, cachedResponse, response, requestTime);
+                }
+                catch (IOException e)
+                {
+                    handler.onFailure(e);
+                    return;
+                }
+                handler.onCompletion(processedResponse);
+            }
+
+            @Override
+            public void onFailure(Exception exception)
+            {
+                handler.onFailure(exception);
+            }
+        }, responseWorkManager);
+    }
+
+    /**
+     * @return the counters of the responses served from the cache
+     */
+    public ResponseCacheStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    private boolean isCacheable(HttpRequest request)
+    {
+        return GET.equalsIgnoreCase(request.getMethod())
+               && !CacheControl.parse(getHeaderValues(request, CACHE_CONTROL)).isNoStore()
+               && getHeaderValue(request, IF_NONE_MATCH) == null
+               && getHeaderValue(request, IF_MODIFIED_SINCE) == null;
+    }
+
+    /**
+     * Requests with other methods may change the resource, so its cached response is no longer used.
+     */
+    private void invalidate(HttpRequest request)
+    {
+        if (!GET.equalsIgnoreCase(request.getMethod()) && !HEAD.equalsIgnoreCase(request.getMethod()))
+        {
+            cache.remove(getKey(request));
+        }
+    }
+
+    private String getKey(HttpRequest request)
+    {
+        ParameterMap queryParams = request instanceof DefaultHttpRequest ? ((DefaultHttpRequest) request).getQueryParams() : null;
+        if (queryParams == null || queryParams.isEmpty())
+        {
+            return request.getUri();
+        }
+        return request.getUri() + (request.getUri().contains("?") ? "&" : "?") + HttpParser.encodeQueryString(queryParams.toListValuesMap());
+    }
+
+    private CachedResponse lookup(String key, HttpRequest request)
+    {
+        CachedResponse cachedResponse = cache.get(key);
+        if (cachedResponse == null)
+        {
+            return null;
+        }
+        for (String headerName : cachedResponse.getVaryValues().keySet())
+        {
+            if (!StringUtils.equals(cachedResponse.getVaryValues().get(headerName), getJoinedHeaderValues(request, headerName)))
+            {
+                return null;
+            }
+        }
+        return cachedResponse;
+    }
+
+    private boolean isServable(CachedResponse cachedResponse, HttpRequest request, long now)
+    {
+        if (cachedResponse == null || !cachedResponse.isFresh(now))
+        {
+            return false;
+        }
+        CacheControl requestCacheControl = CacheControl.parse(getHeaderValues(request, CACHE_CONTROL));
+        boolean pragmaNoCache = NO_CACHE.equalsIgnoreCase(StringUtils.trimToEmpty(getHeaderValue(request, PRAGMA)));
+        if (requestCacheControl.isNoCache() || pragmaNoCache)
+        {
+            return false;
+        }
+        return requestCacheControl.getMaxAge() == CacheControl.NO_MAX_AGE || cachedResponse.getCurrentAge(now) <= requestCacheControl.getMaxAge() * 1000;
+    }
+
+    private HttpRequest createConditionalRequest(HttpRequest request, CachedResponse cachedResponse)
+    {
+        if (cachedResponse == null || !cachedResponse.hasValidators())
+        {
+            return request;
+        }
+        ParameterMap headers = new ParameterMap();
+        for (String headerName : request.getHeaderNames())
+        {
+            for (String headerValue : request.getHeaderValues(headerName))
+            {
+                headers.put(headerName, headerValue);
+            }
+        }
+        if (cachedResponse.getETag() != null)
+        {
+            headers.put(IF_NONE_MATCH, cachedResponse.getETag());
+        }
+        if (cachedResponse.getLastModified() != null)
+        {
+            headers.put(IF_MODIFIED_SINCE, cachedResponse.getLastModified());
+        }
+        HttpRequestBuilder builder = new HttpRequestBuilder().setUri(request.getUri())
+                                                             .setMethod(request.getMethod())
+                                                             .setHeaders(headers)
+                                                             .setEntity(request.getEntity());
+        if (request instanceof DefaultHttpRequest)
+        {
+            builder.setQueryParams(((DefaultHttpRequest) request).getQueryParams());
+        }
+        return builder.build();
+    }
+
+    private HttpResponse processResponse(String key, HttpRequest request, HttpRequestAuthentication authentication, CachedResponse cachedResponse,
+                                         HttpResponse response, long requestTime) throws IOException
+    {
+        long responseTime = System.currentTimeMillis();
+        if (cachedResponse != null && cachedResponse.hasValidators() && response.getStatusCode() == NOT_MODIFIED.getStatusCode())
+        {
+            statistics.revalidated();
+            closeEntity(response);
+            CachedResponse revalidatedResponse = cachedResponse.revalidate(response, requestTime, responseTime);
+            cache.put(key, revalidatedResponse);
+            return revalidatedResponse.toHttpResponse(responseTime);
+        }
+
+        statistics.miss();
+        if (!isStorable(request, authentication, response))
+        {
+            cache.remove(key);
+            return response;
+        }
+
+        InputStream body = ((InputStreamHttpEntity) response.getEntity()).getInputStream();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4 * 1024];
+        int read;
+        while ((read = body.read(buffer)) != -1)
+        {
+            content.write(buffer, 0, read);
+            if (content.size() > maxEntrySize)
+            {
+                // Too large to cache, the bytes already read are put back in front of the rest of the body
+                cache.remove(key);
+                return copyResponse(response, new SequenceInputStream(new ByteArrayInputStream(content.toByteArray()), body));
+            }
+        }
+        body.close();
+
+        CachedResponse newCachedResponse = new CachedResponse(response, content.toByteArray(), getVaryValues(request, response), requestTime, responseTime);
+        if (newCachedResponse.getFreshnessLifetime() > 0 || newCachedResponse.hasValidators())
+        {
+            cache.put(key, newCachedResponse);
+        }
+        else
+        {
+            cache.remove(key);
+        }
+        return newCachedResponse.toHttpResponse(responseTime);
+    }
+
+    private boolean isStorable(HttpRequest request, HttpRequestAuthentication authentication, HttpResponse response)
+    {
+        if (response.getStatusCode() != OK.getStatusCode() || !(response.getEntity() instanceof InputStreamHttpEntity))
+        {
+            return false;
+        }
+        CacheControl responseCacheControl = CacheControl.parse(getHeaderValues(response, CACHE_CONTROL));
+        if (responseCacheControl.isNoStore())
+        {
+            return false;
+        }
+        String vary = getHeaderValue(response, VARY);
+        if (vary != null && vary.contains(VARY_ANY))
+        {
+            return false;
+        }
+        // Responses to authenticated requests are only reused when the server allows it explicitly
+        boolean authenticated = authentication != null || getHeaderValue(request, AUTHORIZATION) != null;
+        return !authenticated || responseCacheControl.isPublic() || responseCacheControl.isMustRevalidate();
+    }
+
+    private HashMap<String, String> getVaryValues(HttpRequest request, HttpResponse response)
+    {
+        HashMap<String, String> varyValues = new HashMap<>();
+        Collection<String> varyHeaders = getHeaderValues(response, VARY);
+        if (varyHeaders != null)
+        {
+            for (String vary : varyHeaders)
+            {
+                for (String headerName : vary.split(","))
+                {
+                    if (!headerName.trim().isEmpty())
+                    {
+                        varyValues.put(headerName.trim().toLowerCase(), getJoinedHeaderValues(request, headerName.trim()));
+                    }
+                }
+            }
+        }
+        return varyValues;
+    }
+
+    private HttpResponse copyResponse(HttpResponse response, InputStream body)
+    {
+        HttpResponseBuilder builder = new HttpResponseBuilder().setStatusCode(response.getStatusCode()).setReasonPhrase(response.getReasonPhrase());
+        for (String headerName : response.getHeaderNames())
+        {
+            for (String headerValue : response.getHeaderValues(headerName))
+            {
+                builder.addHeader(headerName, headerValue);
+            }
+        }
+        return builder.setEntity(new InputStreamHttpEntity(body)).build();
+    }
+
+    private void closeEntity(HttpResponse response) throws IOException
+    {
+        if (response.getEntity() instanceof InputStreamHttpEntity)
+        {
+            ((InputStreamHttpEntity) response.getEntity()).getInputStream().close();
+        }
+    }
+
+    private String getJoinedHeaderValues(HttpRequest request, String headerName)
+    {
+        Collection<String> values = getHeaderValues(request, headerName);
+        return values == null || values.isEmpty() ? null : StringUtils.join(values, ",");
+    }
+
+    private String getHeaderValue(HttpMessage message, String headerName)
+    {
+        Collection<String> values = getHeaderValues(message, headerName);
+        return values == null || values.isEmpty() ? null : values.iterator().next();
+    }
+
+    /**
+     * Header names are compared ignoring case, as requests keep the case they were configured with.
+     */
+    private Collection<String> getHeaderValues(HttpMessage message, String headerName)
+    {
+        List<String> values = null;
+        for (String name : message.getHeaderNames())
+        {
+            if (name.equalsIgnoreCase(headerName))
+            {
+                if (values == null)
+                {
+                    values = new ArrayList<>();
+                }
+                values.addAll(message.getHeaderValues(name));
+            }
+        }
+        return values;
+    }
+}
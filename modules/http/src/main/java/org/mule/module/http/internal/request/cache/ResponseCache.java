@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.request.cache;
+
+import org.mule.api.store.ObjectDoesNotExistException;
+import org.mule.api.store.ObjectStore;
+import org.mule.api.store.ObjectStoreException;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the most recently used responses of a requester in memory, up to a maximum amount of entries. When an
+ * {@link ObjectStore} is set, the entries evicted from memory are moved to it and brought back when they are
+ * used again, otherwise they are discarded.
+ * <p/>
+ * The lock only guards the in memory entries. The object store is accessed outside of it, so a slow store does
+ * not block the requests served from memory. Evicted entries stay reachable while they are being stored.
+ */
+public class ResponseCache
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+    private final ObjectStore<Serializable> objectStore;
+    private final LruEntries entries;
+    private final ConcurrentMap<String, CachedResponse> spilling = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxEntries the maximum amount of responses kept in memory
+     * @param objectStore the store for the responses evicted from memory, or null to discard them
+     */
+    public ResponseCache(int maxEntries, ObjectStore<Serializable> objectStore)
+    {
+        this.objectStore = objectStore;
+        this.entries = new LruEntries(maxEntries);
+    }
+
+    public CachedResponse get(String key)
+    {
+        CachedResponse entry;
+        synchronized (entries)
+        {
+            entry = entries.get(key);
+        }
+        if (entry == null && objectStore != null)
+        {
+            entry = spilling.remove(key);
+            if (entry == null)
+            {
+                entry = unspill(key);
+            }
+            if (entry != null)
+            {
+                put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    public void put(String key, CachedResponse entry)
+    {
+        Map.Entry<String, CachedResponse> eldest;
+        synchronized (entries)
+        {
+            entries.put(key, entry);
+            eldest = entries.evicted;
+            entries.evicted = null;
+        }
+        if (objectStore != null)
+        {
+            spilling.remove(key);
+            if (eldest != null)
+            {
+                spill(eldest.getKey(), eldest.getValue());
+            }
+        }
+    }
+
+    public void remove(String key)
+    {
+        CachedResponse entry;
+        synchronized (entries)
+        {
+            entry = entries.remove(key);
+        }
+        if (entry == null && objectStore != null)
+        {
+            spilling.remove(key);
+            try
+            {
+                if (objectStore.contains(key))
+                {
+                    objectStore.remove(key);
+                }
+            }
+            catch (ObjectDoesNotExistException e)
+            {
+                // removed concurrently
+            }
+            catch (ObjectStoreException e)
+            {
+                logger.warn("Could not remove cached response " + key, e);
+            }
+        }
+    }
+
+    private CachedResponse unspill(String key)
+    {
+        try
+        {
+            if (objectStore.contains(key))
+            {
+                return (CachedResponse) objectStore.remove(key);
+            }
+        }
+        catch (ObjectDoesNotExistException e)
+        {
+            // retrieved concurrently
+        }
+        catch (ObjectStoreException e)
+        {
+            logger.warn("Could not retrieve cached response " + key, e);
+        }
+        return null;
+    }
+
+    private void spill(String key, CachedResponse entry)
+    {
+        spilling.put(key, entry);
+        try
+        {
+            if (objectStore.contains(key))
+            {
+                objectStore.remove(key);
+            }
+            objectStore.store(key, entry);
+            if (!spilling.remove(key, entry))
+            {
+                // the entry was used, replaced or removed while it was being stored
+                objectStore.remove(key);
+            }
+        }
+        catch (ObjectStoreException e)
+        {
+            spilling.remove(key, entry);
+            logger.warn("Could not store cached response " + key, e);
+        }
+    }
+
+    /**
+     * The in memory entries in access order, keeps the last entry evicted by a put until the cache takes it.
+     */
+    private static class LruEntries extends LinkedHashMap<String, CachedResponse>
+    {
+
+        private static final long serialVersionUID = -3925474361380328137L;
+
+        private final int maxEntries;
+        private Map.Entry<String, CachedResponse> evicted;
+
+        LruEntries(int maxEntries)
+        {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest)
+        {
+            if (size() > maxEntries)
+            {
+                evicted = eldest;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.request.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the responses a requester served from its {@link ResponseCache}.
+ */
+public class ResponseCacheStatistics
+{
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+
+    void hit()
+    {
+        hits.incrementAndGet();
+    }
+
+    void miss()
+    {
+        misses.incrementAndGet();
+    }
+
+    void revalidated()
+    {
+        revalidations.incrementAndGet();
+    }
+
+    /**
+     * @return the amount of responses served from the cache without contacting the server
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return the amount of cacheable requests whose response was sent by the server
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * @return the amount of responses served from the cache after the server confirmed they were not modified
+     */
+    public long getRevalidations()
+    {
+        return revalidations.get();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.request.grizzly;
+
+import org.mule.module.http.internal.request.ConnectionPoolStatistics;
+
+import com.ning.http.client.providers.grizzly.TransportCustomizer;
+
+import java.net.SocketAddress;
+
+import org.glassfish.grizzly.CloseType;
+import org.glassfish.grizzly.Closeable;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.ConnectionProbe;
+import org.glassfish.grizzly.GenericCloseListener;
+import org.glassfish.grizzly.connectionpool.MultiEndpointPool;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+
+/**
+ * Transport customizer that keeps the transport of the client, so connections can be opened before the first
+ * request, and counts the connections the pool closes because they were idle for too long or reached their
+ * lifetime.
+ */
+public class ConnectionPoolTransportCustomizer implements TransportCustomizer
+{
+
+    private final MultiEndpointPool<SocketAddress> connectionPool;
+    private final ConnectionPoolStatistics statistics;
+    private volatile TCPNIOTransport transport;
+    private volatile boolean stopped;
+
+    private final GenericCloseListener evictionListener = new GenericCloseListener()
+    {
+        @Override
+        public void onClosed(Closeable closeable, CloseType type)
+        {
+            // The pool detaches the connections it evicts before closing them, any other connection is still
+            // registered when it is closed
+            if (!stopped && !connectionPool.isRegistered((Connection) closeable))
+            {
+                statistics.connectionEvicted();
+            }
+        }
+    };
+
+    public ConnectionPoolTransportCustomizer(MultiEndpointPool<SocketAddress> connectionPool, ConnectionPoolStatistics statistics)
+    {
+        this.connectionPool = connectionPool;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void customize(TCPNIOTransport transport, FilterChainBuilder filterChainBuilder)
+    {
+        this.transport = transport;
+        transport.getConnectionMonitoringConfig().addProbes(new ConnectionProbe.Adapter()
+        {
+            @Override
+            public void onConnectEvent(Connection connection)
+            {
+                // Added before the pool registers the connection, so it is notified first when the connection is closed
+                connection.addCloseListener(evictionListener);
+            }
+        });
+    }
+
+    /**
+     * @return the transport of the client, or null if the client was not initialised yet
+     */
+    public TCPNIOTransport getTransport()
+    {
+        return transport;
+    }
+
+    /**
+     * Stops counting evictions, since the pool closes all its connections when the client is stopped.
+     */
+    public void stop()
+    {
+        stopped = true;
+    }
+}
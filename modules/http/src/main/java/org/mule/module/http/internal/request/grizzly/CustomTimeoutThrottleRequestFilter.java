@@ -8,6 +8,8 @@ package org.mule.module.http.internal.request.grizzly;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+import org.mule.module.http.internal.request.ConnectionPoolStatistics;
+
 import com.ning.http.client.AsyncHandler;
 import com.ning.http.client.HttpResponseBodyPart;
 import com.ning.http.client.HttpResponseHeaders;
@@ -15,7 +17,10 @@ import com.ning.http.client.HttpResponseStatus;
 import com.ning.http.client.filter.FilterContext;
 import com.ning.http.client.filter.FilterException;
 import com.ning.http.client.filter.RequestFilter;
+import com.ning.http.util.AsyncHttpProviderUtils;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -26,34 +31,65 @@ import org.slf4j.LoggerFactory;
  * A {@link com.ning.http.client.filter.RequestFilter} that throttles requests and blocks when the number of permits
  * is reached, waiting for the response to arrive before executing the next request.
  *
+ * Permits are partitioned by host: a request first waits for a permit of its host and then for one of the total
+ * limit, so the requests queued for a slow host never hold connections that other hosts could use. The permits of a
+ * host are dropped once none of its requests is waiting or in flight, so hosts that are no longer used are not
+ * kept. Requests wait for the connection wait timeout, or for their request timeout if there is none.
+ *
  * This is based on {@code com.ning.http.client.extra.ThrottleRequestFilter} from Async Http Client, but uses the
  * request timeout from each request.
  */
 public class CustomTimeoutThrottleRequestFilter implements RequestFilter
 {
 
+    private static final int UNLIMITED = -1;
+
     private final static Logger logger = LoggerFactory.getLogger(CustomTimeoutThrottleRequestFilter.class);
     private final Semaphore available;
+    private final int maxConnectionsPerHost;
+    private final int connectionWaitTimeout;
+    private final ConnectionPoolStatistics statistics;
+    private final ConcurrentMap<String, HostPermits> availablePerHost = new ConcurrentHashMap<>();
 
     public CustomTimeoutThrottleRequestFilter(int maxConnections)
     {
-        available = new Semaphore(maxConnections, true);
+        this(maxConnections, UNLIMITED, UNLIMITED, new ConnectionPoolStatistics(maxConnections, UNLIMITED));
+    }
+
+    /**
+     * @param maxConnections maximum amount of concurrent requests, or -1 if unlimited
+     * @param maxConnectionsPerHost maximum amount of concurrent requests to a single host, or -1 if unlimited
+     * @param connectionWaitTimeout milliseconds a request waits for a permit, or -1 to wait for the request timeout
+     * @param statistics the counters to update as permits are taken and released
+     */
+    public CustomTimeoutThrottleRequestFilter(int maxConnections, int maxConnectionsPerHost, int connectionWaitTimeout, ConnectionPoolStatistics statistics)
+    {
+        this.available = maxConnections > 0 ? new Semaphore(maxConnections, true) : null;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.connectionWaitTimeout = connectionWaitTimeout;
+        this.statistics = statistics;
     }
 
     @Override
     public FilterContext filter(FilterContext ctx) throws FilterException
     {
+        long timeout = connectionWaitTimeout != UNLIMITED ? connectionWaitTimeout : ctx.getRequest().getRequestTimeout();
+        HostPermits hostAvailable = getHostPermits(ctx);
+        long start = System.currentTimeMillis();
+        boolean hostAcquired = false;
+        boolean acquired = false;
+        statistics.requestQueued();
         try
         {
             if (logger.isDebugEnabled())
             {
-                logger.debug("Current Throttling Status {}", available.availablePermits());
+                logger.debug("Current Throttling Status {}", available != null ? available.availablePermits() : "unlimited");
             }
-            if (!available.tryAcquire(ctx.getRequest().getRequestTimeout(), MILLISECONDS))
+            hostAcquired = hostAvailable == null || tryAcquire(hostAvailable.semaphore, timeout);
+            acquired = hostAcquired && tryAcquire(available, timeout - (System.currentTimeMillis() - start));
+            if (!acquired)
             {
-                throw new FilterException(
-                        String.format("No slot available for processing Request %s with AsyncHandler %s",
-                                      ctx.getRequest(), ctx.getAsyncHandler()));
+                throw noSlotAvailable(ctx);
             }
         }
         catch (InterruptedException e)
@@ -61,30 +97,152 @@ public class CustomTimeoutThrottleRequestFilter implements RequestFilter
             throw new FilterException(
                     String.format("Interrupted Request %s with AsyncHandler %s", ctx.getRequest(), ctx.getAsyncHandler()));
         }
+        finally
+        {
+            statistics.requestDequeued();
+            if (!acquired && hostAvailable != null)
+            {
+                hostAvailable.release(hostAcquired);
+            }
+        }
+        statistics.connectionLeased(System.currentTimeMillis() - start);
+
+        return new FilterContext.FilterContextBuilder(ctx).asyncHandler(new AsyncHandlerWrapper(ctx.getAsyncHandler(), hostAvailable)).build();
+    }
+
+    /**
+     * @return the permits of the host of the request, retained until the request is completed or fails to take one
+     */
+    private HostPermits getHostPermits(FilterContext ctx)
+    {
+        if (maxConnectionsPerHost <= 0)
+        {
+            return null;
+        }
+        String baseUrl = AsyncHttpProviderUtils.getBaseUrl(ctx.getRequest().getUri());
+        while (true)
+        {
+            HostPermits hostAvailable = availablePerHost.get(baseUrl);
+            if (hostAvailable == null)
+            {
+                HostPermits newHostAvailable = new HostPermits(baseUrl);
+                hostAvailable = availablePerHost.putIfAbsent(baseUrl, newHostAvailable);
+                if (hostAvailable == null)
+                {
+                    hostAvailable = newHostAvailable;
+                }
+            }
+            // The permits may have been dropped since they were looked up, then they are created again
+            if (hostAvailable.retain())
+            {
+                return hostAvailable;
+            }
+        }
+    }
+
+    /**
+     * @return the amount of hosts whose permits are kept
+     */
+    int getHostsCount()
+    {
+        return availablePerHost.size();
+    }
+
+    private boolean tryAcquire(Semaphore semaphore, long timeout) throws InterruptedException
+    {
+        return semaphore == null || semaphore.tryAcquire(Math.max(0, timeout), MILLISECONDS);
+    }
+
+    private void release(Semaphore semaphore)
+    {
+        if (semaphore != null)
+        {
+            semaphore.release();
+        }
+    }
 
-        return new FilterContext.FilterContextBuilder(ctx).asyncHandler(new AsyncHandlerWrapper(ctx.getAsyncHandler())).build();
+    private FilterException noSlotAvailable(FilterContext ctx)
+    {
+        statistics.leaseTimedOut();
+        return new FilterException(
+                String.format("No slot available for processing Request %s with AsyncHandler %s",
+                              ctx.getRequest(), ctx.getAsyncHandler()));
+    }
+
+    /**
+     * The permits of a host, along with the amount of requests that are waiting for one or holding one.
+     */
+    private class HostPermits
+    {
+
+        private final String baseUrl;
+        private final Semaphore semaphore = new Semaphore(maxConnectionsPerHost, true);
+        private int users;
+        private boolean dropped;
+
+        HostPermits(String baseUrl)
+        {
+            this.baseUrl = baseUrl;
+        }
+
+        synchronized boolean retain()
+        {
+            if (dropped)
+            {
+                return false;
+            }
+            users++;
+            return true;
+        }
+
+        /**
+         * @param permitTaken whether the request took a permit that has to be given back
+         */
+        void release(boolean permitTaken)
+        {
+            if (permitTaken)
+            {
+                semaphore.release();
+            }
+            synchronized (this)
+            {
+                if (--users == 0)
+                {
+                    // Every permit is available, so the host is not kept until it's requested again
+                    dropped = true;
+                    availablePerHost.remove(baseUrl, this);
+                }
+            }
+        }
     }
 
     private class AsyncHandlerWrapper<T> implements AsyncHandler<T>
     {
 
         private final AsyncHandler<T> asyncHandler;
+        private final HostPermits hostAvailable;
         private final AtomicBoolean complete = new AtomicBoolean(false);
 
-        public AsyncHandlerWrapper(AsyncHandler<T> asyncHandler)
+        public AsyncHandlerWrapper(AsyncHandler<T> asyncHandler, HostPermits hostAvailable)
         {
             this.asyncHandler = asyncHandler;
+            this.hostAvailable = hostAvailable;
         }
 
         private void complete()
         {
             if (complete.compareAndSet(false, true))
             {
-                available.release();
+                release(available);
+                if (hostAvailable != null)
+                {
+                    hostAvailable.release(true);
+                }
+                statistics.connectionReleased();
             }
             if (logger.isDebugEnabled())
             {
-                logger.debug("Current Throttling Status after onThrowable {}", available.availablePermits());
+                logger.debug("Current Throttling Status after onThrowable {}", available != null ? available.availablePermits() : "unlimited");
             }
         }
 
@@ -0,0 +1,904 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.request.grizzly;
+
+import static org.mule.module.http.api.HttpHeaders.Names.ACCEPT_ENCODING;
+import static org.mule.module.http.api.HttpHeaders.Names.CONNECTION;
+import static org.mule.module.http.api.HttpHeaders.Names.CONTENT_ENCODING;
+import static org.mule.module.http.api.HttpHeaders.Names.CONTENT_LENGTH;
+import static org.mule.module.http.api.HttpHeaders.Names.CONTENT_TYPE;
+import static org.mule.module.http.api.HttpHeaders.Names.HOST;
+import static org.mule.module.http.api.HttpHeaders.Names.TRANSFER_ENCODING;
+import static org.mule.module.http.api.HttpHeaders.Names.UPGRADE;
+import org.mule.api.CompletionHandler;
+import org.mule.api.MuleException;
+import org.mule.api.context.WorkManager;
+import org.mule.api.lifecycle.InitialisationException;
+import org.mule.api.lifecycle.LifecycleUtils;
+import org.mule.config.i18n.CoreMessages;
+import org.mule.module.http.internal.HttpParser;
+import org.mule.module.http.internal.compression.ResponseDecompression;
+import org.mule.module.http.internal.domain.ByteArrayHttpEntity;
+import org.mule.module.http.internal.domain.EmptyHttpEntity;
+import org.mule.module.http.internal.domain.HttpEntity;
+import org.mule.module.http.internal.domain.InputStreamHttpEntity;
+import org.mule.module.http.internal.domain.MultipartHttpEntity;
+import org.mule.module.http.internal.domain.request.DefaultHttpRequest;
+import org.mule.module.http.internal.domain.request.HttpRequest;
+import org.mule.module.http.internal.domain.request.HttpRequestAuthentication;
+import org.mule.module.http.internal.domain.response.HttpResponse;
+import org.mule.module.http.internal.domain.response.HttpResponseBuilder;
+import org.mule.module.http.internal.multipart.HttpMultipartEncoder;
+import org.mule.module.http.internal.request.HttpClient;
+import org.mule.transport.ssl.api.TlsContextFactory;
+import org.mule.transport.ssl.api.TlsContextTrustStoreConfiguration;
+import org.mule.transport.tcp.TcpClientSocketProperties;
+import org.mule.util.IOUtils;
+import org.mule.util.concurrent.NamedThreadFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.mail.internet.MimeMultipart;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.CloseListener;
+import org.glassfish.grizzly.CloseType;
+import org.glassfish.grizzly.Closeable;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.EmptyCompletionHandler;
+import org.glassfish.grizzly.WriteResult;
+import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.filterchain.NextAction;
+import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.http.HttpBrokenContent;
+import org.glassfish.grizzly.http.HttpClientFilter;
+import org.glassfish.grizzly.http.HttpContent;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.Protocol;
+import org.glassfish.grizzly.http2.AlpnSupport;
+import org.glassfish.grizzly.http2.Http2ClientFilter;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
+import org.glassfish.grizzly.ssl.SSLFilter;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link HttpClient} that multiplexes all the requests to a host over a single HTTP/2 connection.
+ * <p/>
+ * The connection to a host is opened by the first request that can negotiate the protocol: over TLS Grizzly's
+ * HTTP/2 filter selects it with ALPN, otherwise the request carries an HTTP/1.1 upgrade to h2c, which Grizzly
+ * only supports for requests without body. Requests sent to the host until the server accepts HTTP/2, and all
+ * the requests to hosts that don't, are sent by a {@link GrizzlyHttpClient} with its own pool of HTTP/1.1
+ * connections. ALPN needs the Grizzly NPN bootstrap in the boot classpath, without it requests over TLS are
+ * always sent using HTTP/1.1.
+ * <p/>
+ * Framing, HPACK and flow control are handled by Grizzly's HTTP/2 filter. Request bodies are sent with a
+ * known length and responses are buffered before being handed to the requester. Redirects are only followed
+ * for requests sent using HTTP/1.1, and proxies and authentication are not supported by this client.
+ */
+public class GrizzlyHttp2Client implements HttpClient
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(GrizzlyHttp2Client.class);
+
+    private static final String EXCHANGE_ATTRIBUTE = GrizzlyHttp2Client.class.getName() + ".exchange";
+    private static final String REQUESTER_WORKER_THREAD_NAME_SUFFIX = ".worker";
+    private static final String REQUESTER_TIMER_THREAD_NAME_SUFFIX = ".timer";
+    private static final String HTTPS = "https";
+    private static final String DEFAULT_MULTIPART_CONTENT_TYPE = "multipart/form-data";
+    private static final String ENDPOINT_IDENTIFICATION_ALGORITHM = "HTTPS";
+    private static final long IDLE_CONNECTIONS_CHECK_INTERVAL = 1000;
+
+    // Headers that only apply to an HTTP/1.1 connection, HTTP/2 forbids them
+    private static final Set<String> CONNECTION_SPECIFIC_HEADERS = new HashSet<>(Arrays.asList(
+            CONNECTION.toLowerCase(), "keep-alive", "proxy-connection", TRANSFER_ENCODING.toLowerCase(), UPGRADE.toLowerCase(),
+            HOST.toLowerCase(), CONTENT_LENGTH.toLowerCase()));
+
+    private final TlsContextFactory tlsContextFactory;
+    private final TcpClientSocketProperties clientSocketProperties;
+    private final int connectionIdleTimeout;
+    private final String threadNamePrefix;
+    private final String ownerName;
+    private final ResponseDecompression responseDecompression;
+    private final GrizzlyHttpClient http1Client;
+
+    private final ConcurrentMap<String, MultiplexedConnection> connections = new ConcurrentHashMap<>();
+    private final Set<String> http1Authorities = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private TCPNIOTransport transport;
+    private ScheduledExecutorService timer;
+    private boolean http2Enabled;
+
+    public GrizzlyHttp2Client(GrizzlyHttpClientConfiguration config)
+    {
+        this.tlsContextFactory = config.getTlsContextFactory();
+        this.clientSocketProperties = config.getClientSocketProperties();
+        this.connectionIdleTimeout = config.getConnectionIdleTimeout();
+        this.threadNamePrefix = config.getThreadNamePrefix();
+        this.ownerName = config.getOwnerName();
+        this.responseDecompression = config.getResponseDecompression();
+        this.http1Client = new GrizzlyHttpClient(config);
+    }
+
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        http1Client.initialise();
+
+        logger.warn(String.format("HTTP/2 support is experimental and only implements draft 14 of the protocol (h2-14 and h2c-14), "
+                                  + "requester %s will use HTTP/1.1 with servers implementing RFC 7540", ownerName));
+        if (tlsContextFactory != null && !AlpnSupport.isEnabled())
+        {
+            logger.warn(String.format("ALPN is not available, requester %s will send its requests using HTTP/1.1", ownerName));
+            return;
+        }
+        http2Enabled = true;
+
+        FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        if (tlsContextFactory != null)
+        {
+            filterChainBuilder.add(createSslFilter());
+        }
+        filterChainBuilder.add(new HttpClientFilter());
+        Http2ClientFilter http2ClientFilter = new Http2ClientFilter();
+        // Over TLS the protocol is selected with ALPN, servers ignore an h2c upgrade
+        http2ClientFilter.setNeverForceUpgrade(tlsContextFactory != null);
+        filterChainBuilder.add(http2ClientFilter);
+        filterChainBuilder.add(new ResponseFilter());
+
+        transport = TCPNIOTransportBuilder.newInstance().build();
+        transport.getWorkerThreadPoolConfig().setPoolName(threadNamePrefix + REQUESTER_WORKER_THREAD_NAME_SUFFIX);
+        // No kernel thread pool config is set in the transport at this point. Need to set one to define the pool name.
+        transport.setKernelThreadPoolConfig(ThreadPoolConfig.defaultConfig()
+                                                    .setCorePoolSize(transport.getSelectorRunnersCount())
+                                                    .setMaxPoolSize(transport.getSelectorRunnersCount())
+                                                    .setPoolName(threadNamePrefix));
+        CompositeTransportCustomizer compositeTransportCustomizer = new CompositeTransportCustomizer();
+        compositeTransportCustomizer.addTransportCustomizer(new LoggerTransportCustomizer());
+        if (clientSocketProperties != null)
+        {
+            compositeTransportCustomizer.addTransportCustomizer(new SocketConfigTransportCustomizer(clientSocketProperties));
+        }
+        compositeTransportCustomizer.customize(transport, filterChainBuilder);
+        transport.setProcessor(filterChainBuilder.build());
+
+        try
+        {
+            transport.start();
+        }
+        catch (IOException e)
+        {
+            throw new InitialisationException(CoreMessages.createStaticMessage("Cannot start HTTP/2 client transport"), e, this);
+        }
+
+        timer = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(threadNamePrefix + REQUESTER_TIMER_THREAD_NAME_SUFFIX));
+        timer.scheduleWithFixedDelay(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                closeIdleConnections();
+            }
+        }, IDLE_CONNECTIONS_CHECK_INTERVAL, IDLE_CONNECTIONS_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private SSLFilter createSslFilter() throws InitialisationException
+    {
+        LifecycleUtils.initialiseIfNeeded(tlsContextFactory);
+        final boolean verifyHostName;
+        SSLEngineConfigurator clientConfig;
+        try
+        {
+            TlsContextTrustStoreConfiguration trustStoreConfiguration = tlsContextFactory.getTrustStoreConfiguration();
+            verifyHostName = trustStoreConfiguration == null || !trustStoreConfiguration.isInsecure();
+            if (!verifyHostName)
+            {
+                logger.warn(String.format("TLS configuration for requester %s has been set to use an insecure trust store. This means no certificate validations will be performed, rendering connections vulnerable to attacks. Use at own risk.", ownerName));
+            }
+            clientConfig = new SSLEngineConfigurator(tlsContextFactory.createSslContext(), true, false, false)
+            {
+                @Override
+                public SSLEngine configure(SSLEngine sslEngine)
+                {
+                    super.configure(sslEngine);
+                    if (verifyHostName)
+                    {
+                        SSLParameters sslParameters = sslEngine.getSSLParameters();
+                        sslParameters.setEndpointIdentificationAlgorithm(ENDPOINT_IDENTIFICATION_ALGORITHM);
+                        sslEngine.setSSLParameters(sslParameters);
+                    }
+                    return sslEngine;
+                }
+            };
+        }
+        catch (Exception e)
+        {
+            throw new InitialisationException(CoreMessages.createStaticMessage("Cannot initialize SSL context"), e, this);
+        }
+        if (tlsContextFactory.getEnabledProtocols() != null)
+        {
+            clientConfig.setEnabledProtocols(tlsContextFactory.getEnabledProtocols());
+        }
+        if (tlsContextFactory.getEnabledCipherSuites() != null)
+        {
+            clientConfig.setEnabledCipherSuites(tlsContextFactory.getEnabledCipherSuites());
+        }
+        return new SSLFilter(clientConfig.copy().setClientMode(false), clientConfig);
+    }
+
+    @Override
+    public HttpResponse send(HttpRequest request, int responseTimeout, boolean followRedirects, HttpRequestAuthentication authentication) throws IOException, TimeoutException
+    {
+        BlockingCompletionHandler completionHandler = new BlockingCompletionHandler();
+        send(request, responseTimeout, followRedirects, authentication, completionHandler, null);
+        try
+        {
+            return completionHandler.getResponse();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof TimeoutException)
+            {
+                throw (TimeoutException) e.getCause();
+            }
+            else if (e.getCause() instanceof IOException)
+            {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public void send(HttpRequest request, int responseTimeout, boolean followRedirects, HttpRequestAuthentication authentication,
+                     CompletionHandler<HttpResponse, Exception> completionHandler, WorkManager workManager)
+    {
+        try
+        {
+            Exchange exchange = new Exchange(request, completionHandler, workManager);
+            MultiplexedConnection connection = null;
+            boolean negotiable = tlsContextFactory != null || !hasBody(request);
+            if (http2Enabled && !http1Authorities.contains(exchange.authority))
+            {
+                connection = negotiable ? getConnection(exchange) : connections.get(exchange.authority);
+            }
+            if (connection == null || !connection.reserve(negotiable))
+            {
+                // The host only accepts HTTP/1.1, or the protocol of its connection is not negotiated yet
+                http1Client.send(request, responseTimeout, followRedirects, authentication, completionHandler, workManager);
+                return;
+            }
+            if (responseTimeout > 0)
+            {
+                exchange.scheduleTimeout(responseTimeout);
+            }
+            connection.send(exchange);
+        }
+        catch (Exception e)
+        {
+            completionHandler.onFailure(e);
+        }
+    }
+
+    private boolean hasBody(HttpRequest request)
+    {
+        return request.getEntity() != null && !(request.getEntity() instanceof EmptyHttpEntity);
+    }
+
+    private MultiplexedConnection getConnection(Exchange exchange) throws IOException
+    {
+        MultiplexedConnection connection = connections.get(exchange.authority);
+        if (connection == null || connection.isClosed())
+        {
+            synchronized (connections)
+            {
+                connection = connections.get(exchange.authority);
+                if (connection == null || connection.isClosed())
+                {
+                    connection = new MultiplexedConnection(exchange.authority, connect(exchange.host, exchange.port));
+                    connections.put(exchange.authority, connection);
+                }
+            }
+        }
+        return connection;
+    }
+
+    private Connection connect(String host, int port) throws IOException
+    {
+        try
+        {
+            return transport.connect(new InetSocketAddress(host, port)).get(transport.getConnectionTimeout(), TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        catch (ExecutionException e)
+        {
+            throw new IOException(String.format("Could not connect to %s:%d", host, port), e.getCause());
+        }
+        catch (TimeoutException e)
+        {
+            throw new IOException(String.format("Timeout connecting to %s:%d", host, port), e);
+        }
+    }
+
+    private void closeIdleConnections()
+    {
+        long now = System.currentTimeMillis();
+        for (MultiplexedConnection connection : connections.values())
+        {
+            if (connection.isIdleSince(now - connectionIdleTimeout))
+            {
+                connection.close();
+            }
+        }
+    }
+
+    @Override
+    public void start() throws MuleException
+    {
+        // Pre-warms the connections used for the hosts that don't support HTTP/2
+        http1Client.start();
+    }
+
+    @Override
+    public void stop()
+    {
+        if (http2Enabled)
+        {
+            timer.shutdownNow();
+            for (MultiplexedConnection connection : connections.values())
+            {
+                connection.close();
+            }
+            connections.clear();
+            try
+            {
+                transport.shutdownNow();
+            }
+            catch (IOException e)
+            {
+                logger.warn("Error stopping HTTP/2 client transport", e);
+            }
+        }
+        http1Client.stop();
+    }
+
+    private enum ConnectionState
+    {
+        NEW, NEGOTIATING, HTTP_2, HTTP_1_1
+    }
+
+    /**
+     * A connection to a host shared by every request sent to it. Only the request that negotiates the protocol
+     * is sent until the server accepts HTTP/2, if it doesn't the connection is closed once its response arrives.
+     */
+    private class MultiplexedConnection implements CloseListener<Closeable, CloseType>
+    {
+
+        private final String authority;
+        private final Connection connection;
+        private final Set<Exchange> exchanges = Collections.newSetFromMap(new ConcurrentHashMap<Exchange, Boolean>());
+        private ConnectionState state = ConnectionState.NEW;
+        private boolean retired;
+        private volatile boolean closed;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        MultiplexedConnection(String authority, Connection connection)
+        {
+            this.authority = authority;
+            this.connection = connection;
+            connection.addCloseListener(this);
+        }
+
+        /**
+         * @param negotiable whether the request can negotiate the protocol if it's the first one
+         * @return true if the request can be sent through this connection
+         */
+        synchronized boolean reserve(boolean negotiable)
+        {
+            if (closed || retired)
+            {
+                return false;
+            }
+            if (state == ConnectionState.NEW)
+            {
+                if (negotiable)
+                {
+                    state = ConnectionState.NEGOTIATING;
+                }
+                return negotiable;
+            }
+            return state == ConnectionState.HTTP_2;
+        }
+
+        void send(final Exchange exchange)
+        {
+            exchange.connection = this;
+            exchanges.add(exchange);
+            lastUsed = System.currentTimeMillis();
+            if (closed)
+            {
+                exchange.fail(new IOException(String.format("Connection to %s is closed", authority)));
+                return;
+            }
+            try
+            {
+                HttpContent content = exchange.createRequestContent(transport);
+                connection.write(content, new EmptyCompletionHandler<WriteResult>()
+                {
+                    @Override
+                    public void failed(Throwable throwable)
+                    {
+                        exchange.fail(new IOException(String.format("Could not send request to %s", authority), throwable));
+                    }
+                });
+            }
+            catch (IOException e)
+            {
+                exchange.fail(e);
+            }
+        }
+
+        synchronized void onResponseHeader(HttpResponsePacket response)
+        {
+            if (state == ConnectionState.NEGOTIATING)
+            {
+                if (response.getProtocol() == Protocol.HTTP_2_0)
+                {
+                    state = ConnectionState.HTTP_2;
+                }
+                else
+                {
+                    if (logger.isDebugEnabled())
+                    {
+                        logger.debug("Server {} did not accept HTTP/2, requests will be sent using {}", authority, response.getProtocolString());
+                    }
+                    http1Authorities.add(authority);
+                    state = ConnectionState.HTTP_1_1;
+                }
+            }
+        }
+
+        void onResponseComplete(Exchange exchange, HttpResponsePacket response)
+        {
+            exchanges.remove(exchange);
+            lastUsed = System.currentTimeMillis();
+            if (response.getProtocol() != Protocol.HTTP_2_0)
+            {
+                // The server may still consider the connection upgraded, so it is not used again
+                retire();
+                close();
+            }
+        }
+
+        void onTimeout(Exchange exchange)
+        {
+            exchanges.remove(exchange);
+            synchronized (this)
+            {
+                if (state == ConnectionState.HTTP_2)
+                {
+                    return;
+                }
+            }
+            // The protocol is unknown until the response arrives, so it's negotiated again by a new connection
+            retire();
+            close();
+        }
+
+        /**
+         * Stops using the connection for new requests.
+         */
+        private void retire()
+        {
+            connections.remove(authority, this);
+            synchronized (this)
+            {
+                retired = true;
+            }
+        }
+
+        boolean isClosed()
+        {
+            return closed;
+        }
+
+        boolean isIdleSince(long time)
+        {
+            return exchanges.isEmpty() && lastUsed < time;
+        }
+
+        void close()
+        {
+            connection.closeSilently();
+        }
+
+        @Override
+        public void onClosed(Closeable closeable, CloseType type) throws IOException
+        {
+            closed = true;
+            boolean negotiating;
+            synchronized (this)
+            {
+                negotiating = state == ConnectionState.NEGOTIATING && !retired;
+            }
+            if (negotiating)
+            {
+                // The server closed the connection instead of answering the upgrade
+                http1Authorities.add(authority);
+            }
+            retire();
+            List<Exchange> pending = new ArrayList<>(exchanges);
+            exchanges.clear();
+            IOException failure = new IOException(String.format("Connection to %s was closed before the response arrived", authority));
+            for (Exchange exchange : pending)
+            {
+                exchange.fail(failure);
+            }
+        }
+    }
+
+    /**
+     * A request and the response being received for it.
+     */
+    private class Exchange
+    {
+
+        private final String method;
+        private final String path;
+        private final String query;
+        private final String host;
+        private final int port;
+        private final String authority;
+        private final HttpRequest request;
+        private final CompletionHandler<HttpResponse, Exception> completionHandler;
+        private final WorkManager workManager;
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        private volatile MultiplexedConnection connection;
+        private volatile ScheduledFuture<?> timeout;
+        private HttpResponsePacket response;
+        private byte[] body;
+        private String multipartContentType;
+
+        Exchange(HttpRequest request, CompletionHandler<HttpResponse, Exception> completionHandler, WorkManager workManager)
+        {
+            this.request = request;
+            this.completionHandler = completionHandler;
+            this.workManager = workManager;
+
+            URI uri = URI.create(request.getUri());
+            this.method = request.getMethod();
+            this.host = uri.getHost();
+            this.port = uri.getPort() != -1 ? uri.getPort() : (HTTPS.equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+            this.authority = host + ":" + port;
+            this.path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            this.query = createQuery(uri.getRawQuery(), request);
+        }
+
+        private String createQuery(String uriQuery, HttpRequest request)
+        {
+            String query = uriQuery;
+            if (request instanceof DefaultHttpRequest && !((DefaultHttpRequest) request).getQueryParams().isEmpty())
+            {
+                String queryParams = HttpParser.encodeQueryString(((DefaultHttpRequest) request).getQueryParams().toListValuesMap());
+                query = query == null ? queryParams : query + "&" + queryParams;
+            }
+            return query;
+        }
+
+        HttpContent createRequestContent(TCPNIOTransport transport) throws IOException
+        {
+            // The HTTP/2 codec builds the :path pseudo header from the URI alone, so the query is part of it
+            HttpRequestPacket.Builder builder = HttpRequestPacket.builder()
+                    .method(method)
+                    .uri(query != null ? path + "?" + query : path)
+                    .protocol(Protocol.HTTP_1_1);
+            String contentType = request.getHeaderValue(CONTENT_TYPE);
+            byte[] requestBody = getBody(contentType);
+            if (requestBody.length > 0 || request.getEntity() != null)
+            {
+                builder.contentLength(requestBody.length);
+            }
+            HttpRequestPacket requestPacket = builder.build();
+
+            String hostHeader = request.getHeaderValue(HOST);
+            requestPacket.addHeader(HOST, hostHeader != null ? hostHeader : authority);
+            for (String headerName : request.getHeaderNames())
+            {
+                if (!CONNECTION_SPECIFIC_HEADERS.contains(headerName.toLowerCase()))
+                {
+                    for (String headerValue : request.getHeaderValues(headerName))
+                    {
+                        requestPacket.addHeader(headerName, headerValue);
+                    }
+                }
+            }
+            if (responseDecompression != null && responseDecompression.isAcceptEncodingRequired(request))
+            {
+                requestPacket.addHeader(ACCEPT_ENCODING, ResponseDecompression.ACCEPT_ENCODING_VALUE);
+            }
+            if (multipartContentType != null)
+            {
+                requestPacket.setHeader(CONTENT_TYPE, multipartContentType);
+            }
+            requestPacket.getAttributes().setAttribute(EXCHANGE_ATTRIBUTE, this);
+
+            Buffer buffer = Buffers.wrap(transport.getMemoryManager(), requestBody);
+            return HttpContent.builder(requestPacket).content(buffer).last(true).build();
+        }
+
+        private byte[] getBody(String contentType) throws IOException
+        {
+            if (body == null)
+            {
+                HttpEntity entity = request.getEntity();
+                if (entity instanceof ByteArrayHttpEntity)
+                {
+                    body = ((ByteArrayHttpEntity) entity).getContent();
+                }
+                else if (entity instanceof InputStreamHttpEntity)
+                {
+                    body = IOUtils.toByteArray(((InputStreamHttpEntity) entity).getInputStream());
+                }
+                else if (entity instanceof MultipartHttpEntity)
+                {
+                    body = encodeMultipart((MultipartHttpEntity) entity, contentType != null ? contentType : DEFAULT_MULTIPART_CONTENT_TYPE);
+                }
+                else
+                {
+                    body = new byte[0];
+                }
+            }
+            return body;
+        }
+
+        private byte[] encodeMultipart(MultipartHttpEntity entity, String contentType) throws IOException
+        {
+            try
+            {
+                MimeMultipart mimeMultipart = HttpMultipartEncoder.createMultpartContent(entity, contentType);
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                mimeMultipart.writeTo(outputStream);
+                multipartContentType = mimeMultipart.getContentType();
+                return outputStream.toByteArray();
+            }
+            catch (Exception e)
+            {
+                throw new IOException("Could not encode multipart request", e);
+            }
+        }
+
+        void scheduleTimeout(final int responseTimeout)
+        {
+            timeout = timer.schedule(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    if (fail(new TimeoutException(String.format("Timeout exceeded waiting %d milliseconds for the response to %s %s",
+                                                                responseTimeout, method, request.getUri()))))
+                    {
+                        MultiplexedConnection currentConnection = connection;
+                        if (currentConnection != null)
+                        {
+                            currentConnection.onTimeout(Exchange.this);
+                        }
+                    }
+                }
+            }, responseTimeout, TimeUnit.MILLISECONDS);
+        }
+
+        void onContent(HttpResponsePacket responsePacket, HttpContent httpContent)
+        {
+            if (HttpContent.isBroken(httpContent))
+            {
+                fail(new IOException(String.format("Error receiving the response to %s %s", method, request.getUri()),
+                                     ((HttpBrokenContent) httpContent).getException()));
+                return;
+            }
+            if (response == null)
+            {
+                response = responsePacket;
+                connection.onResponseHeader(responsePacket);
+            }
+            Buffer buffer = httpContent.getContent();
+            if (buffer.hasRemaining())
+            {
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                content.write(bytes, 0, bytes.length);
+            }
+            if (httpContent.isLast())
+            {
+                connection.onResponseComplete(this, responsePacket);
+                complete(createMuleResponse(responsePacket, content.toByteArray()));
+            }
+        }
+
+        private void complete(final HttpResponse httpResponse)
+        {
+            if (completed.compareAndSet(false, true))
+            {
+                cancelTimeout();
+                execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        completionHandler.onCompletion(httpResponse);
+                    }
+                });
+            }
+        }
+
+        boolean fail(final Exception failure)
+        {
+            if (completed.compareAndSet(false, true))
+            {
+                cancelTimeout();
+                execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        completionHandler.onFailure(failure);
+                    }
+                });
+                return true;
+            }
+            return false;
+        }
+
+        private void cancelTimeout()
+        {
+            if (timeout != null)
+            {
+                timeout.cancel(false);
+            }
+        }
+
+        private void execute(Runnable runnable)
+        {
+            if (workManager != null)
+            {
+                try
+                {
+                    workManager.execute(runnable);
+                    return;
+                }
+                catch (Exception e)
+                {
+                    logger.warn("Could not schedule HTTP response processing, it will be processed by the I/O thread", e);
+                }
+            }
+            runnable.run();
+        }
+    }
+
+    private HttpResponse createMuleResponse(HttpResponsePacket response, byte[] content)
+    {
+        HttpResponseBuilder responseBuilder = new HttpResponseBuilder();
+        responseBuilder.setStatusCode(response.getStatus());
+        responseBuilder.setReasonPhrase(response.getReasonPhrase());
+        InputStream body = new ByteArrayInputStream(content);
+        String contentEncoding = response.getHeader(CONTENT_ENCODING);
+        boolean decompress = responseDecompression != null && responseDecompression.isCompressed(contentEncoding);
+        if (decompress)
+        {
+            body = responseDecompression.decompress(contentEncoding, body);
+        }
+        responseBuilder.setEntity(new InputStreamHttpEntity(body));
+        for (String headerName : response.getHeaders().names())
+        {
+            if (decompress && responseDecompression.isCompressedBodyHeader(headerName))
+            {
+                continue;
+            }
+            for (String headerValue : response.getHeaders().values(headerName))
+            {
+                responseBuilder.addHeader(headerName, headerValue);
+            }
+        }
+        return responseBuilder.build();
+    }
+
+    /**
+     * Dispatches the response of each stream to the request it belongs to.
+     */
+    private class ResponseFilter extends BaseFilter
+    {
+
+        @Override
+        public NextAction handleRead(FilterChainContext ctx) throws IOException
+        {
+            HttpContent httpContent = ctx.getMessage();
+            HttpResponsePacket response = (HttpResponsePacket) httpContent.getHttpHeader();
+            Exchange exchange = (Exchange) response.getRequest().getAttributes().getAttribute(EXCHANGE_ATTRIBUTE);
+            if (exchange != null)
+            {
+                exchange.onContent(response, httpContent);
+            }
+            else if (logger.isDebugEnabled())
+            {
+                logger.debug("Discarding response to unknown request {}", response.getRequest().getRequestURI());
+            }
+            return ctx.getStopAction();
+        }
+    }
+
+    private static class BlockingCompletionHandler implements CompletionHandler<HttpResponse, Exception>
+    {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile HttpResponse response;
+        private volatile Exception failure;
+
+        @Override
+        public void onCompletion(HttpResponse response)
+        {
+            this.response = response;
+            latch.countDown();
+        }
+
+        @Override
+        public void onFailure(Exception failure)
+        {
+            this.failure = failure;
+            latch.countDown();
+        }
+
+        HttpResponse getResponse() throws InterruptedException, ExecutionException
+        {
+            latch.await();
+            if (failure != null)
+            {
+                throw new ExecutionException(failure);
+            }
+            return response;
+        }
+    }
+}
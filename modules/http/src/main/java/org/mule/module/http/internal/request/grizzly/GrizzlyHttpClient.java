@@ -7,7 +7,11 @@
 package org.mule.module.http.internal.request.grizzly;
 
 import static com.ning.http.client.Realm.AuthScheme.NTLM;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.mule.module.http.api.HttpHeaders.Names.ACCEPT_ENCODING;
 import static org.mule.module.http.api.HttpHeaders.Names.CONNECTION;
+import static org.mule.module.http.api.HttpHeaders.Names.CONTENT_ENCODING;
 import static org.mule.module.http.api.HttpHeaders.Values.CLOSE;
 import org.mule.api.CompletionHandler;
 import org.mule.api.MuleException;
@@ -17,6 +21,7 @@ import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.lifecycle.LifecycleUtils;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.module.http.api.requester.proxy.ProxyConfig;
+import org.mule.module.http.internal.compression.ResponseDecompression;
 import org.mule.module.http.internal.domain.ByteArrayHttpEntity;
 import org.mule.module.http.internal.domain.InputStreamHttpEntity;
 import org.mule.module.http.internal.domain.MultipartHttpEntity;
@@ -26,6 +31,7 @@ import org.mule.module.http.internal.domain.request.HttpRequestAuthentication;
 import org.mule.module.http.internal.domain.response.HttpResponse;
 import org.mule.module.http.internal.domain.response.HttpResponseBuilder;
 import org.mule.module.http.internal.multipart.HttpPart;
+import org.mule.module.http.internal.request.ConnectionPoolStatistics;
 import org.mule.module.http.internal.request.HttpAuthenticationType;
 import org.mule.module.http.internal.request.HttpClient;
 import org.mule.module.http.internal.request.NtlmProxyConfig;
@@ -38,6 +44,7 @@ import org.mule.util.StringUtils;
 import com.ning.http.client.AsyncCompletionHandler;
 import com.ning.http.client.AsyncHttpClient;
 import com.ning.http.client.AsyncHttpClientConfig;
+import com.ning.http.client.ConnectionPoolPartitioning.PerHostConnectionPoolPartitioning;
 import com.ning.http.client.ListenableFuture;
 import com.ning.http.client.ProxyServer;
 import com.ning.http.client.Realm;
@@ -48,15 +55,27 @@ import com.ning.http.client.generators.InputStreamBodyGenerator;
 import com.ning.http.client.multipart.ByteArrayPart;
 import com.ning.http.client.providers.grizzly.GrizzlyAsyncHttpProvider;
 import com.ning.http.client.providers.grizzly.GrizzlyAsyncHttpProviderConfig;
+import com.ning.http.client.uri.Uri;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
 import javax.net.ssl.SSLContext;
 
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.GrizzlyFuture;
+import org.glassfish.grizzly.connectionpool.Endpoint;
+import org.glassfish.grizzly.connectionpool.MultiEndpointPool;
+import org.glassfish.grizzly.nio.transport.TCPNIOConnectorHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -72,13 +91,23 @@ public class GrizzlyHttpClient implements HttpClient
     private final TcpClientSocketProperties clientSocketProperties;
 
     private int maxConnections;
+    private int maxConnectionsPerHost;
+    private int connectionWaitTimeout;
     private boolean usePersistentConnections;
     private int connectionIdleTimeout;
     private String threadNamePrefix;
     private String ownerName;
+    private ResponseDecompression responseDecompression;
+    private ConnectionPoolStatistics connectionPoolStatistics;
+    private String prewarmUrl;
+    private int prewarmConnections;
 
     private AsyncHttpClient asyncHttpClient;
     private SSLContext sslContext;
+    private ProxyServer proxyServer;
+    private CompositeTransportCustomizer compositeTransportCustomizer;
+    private MultiEndpointPool<SocketAddress> connectionPool;
+    private ConnectionPoolTransportCustomizer connectionPoolTransportCustomizer;
 
     public GrizzlyHttpClient(GrizzlyHttpClientConfiguration config)
     {
@@ -86,10 +115,20 @@ public class GrizzlyHttpClient implements HttpClient
         this.proxyConfig = config.getProxyConfig();
         this.clientSocketProperties = config.getClientSocketProperties();
         this.maxConnections = config.getMaxConnections();
+        this.maxConnectionsPerHost = config.getMaxConnectionsPerHost();
+        this.connectionWaitTimeout = config.getConnectionWaitTimeout();
         this.usePersistentConnections = config.isUsePersistentConnections();
         this.connectionIdleTimeout = config.getConnectionIdleTimeout();
         this.threadNamePrefix = config.getThreadNamePrefix();
         this.ownerName = config.getOwnerName();
+        this.responseDecompression = config.getResponseDecompression();
+        this.connectionPoolStatistics = config.getConnectionPoolStatistics();
+        if (connectionPoolStatistics == null)
+        {
+            connectionPoolStatistics = new ConnectionPoolStatistics(maxConnections, maxConnectionsPerHost);
+        }
+        this.prewarmUrl = config.getPrewarmUrl();
+        this.prewarmConnections = config.getPrewarmConnections();
     }
 
     @Override
@@ -108,6 +147,8 @@ public class GrizzlyHttpClient implements HttpClient
 
         AsyncHttpClientConfig config = builder.build();
 
+        configureConnectionPool(config);
+
         asyncHttpClient = new AsyncHttpClient(new GrizzlyAsyncHttpProvider(config), config);
     }
 
@@ -150,7 +191,6 @@ public class GrizzlyHttpClient implements HttpClient
     {
         if (proxyConfig != null)
         {
-            ProxyServer proxyServer;
             if (!StringUtils.isEmpty(proxyConfig.getUsername()))
             {
                 proxyServer = new ProxyServer(
@@ -183,7 +223,7 @@ public class GrizzlyHttpClient implements HttpClient
     private void configureTransport(AsyncHttpClientConfig.Builder builder)
     {
         GrizzlyAsyncHttpProviderConfig providerConfig = new GrizzlyAsyncHttpProviderConfig();
-        CompositeTransportCustomizer compositeTransportCustomizer = new CompositeTransportCustomizer();
+        compositeTransportCustomizer = new CompositeTransportCustomizer();
         compositeTransportCustomizer.addTransportCustomizer(new IOStrategyTransportCustomizer
                                                                     (threadNamePrefix));
         compositeTransportCustomizer.addTransportCustomizer(new LoggerTransportCustomizer());
@@ -201,13 +241,11 @@ public class GrizzlyHttpClient implements HttpClient
 
     private void configureConnections(AsyncHttpClientConfig.Builder builder) throws InitialisationException
     {
-        if (maxConnections > 0)
-        {
-            builder.addRequestFilter(new CustomTimeoutThrottleRequestFilter(maxConnections));
-        }
+        // Always throttled, even without limits, so the leased connections are counted
+        builder.addRequestFilter(new CustomTimeoutThrottleRequestFilter(maxConnections, maxConnectionsPerHost, connectionWaitTimeout, connectionPoolStatistics));
 
         builder.setMaxConnections(maxConnections);
-        builder.setMaxConnectionsPerHost(maxConnections);
+        builder.setMaxConnectionsPerHost(maxConnectionsPerHost > 0 ? maxConnectionsPerHost : maxConnections);
 
         builder.setAllowPoolingConnections(usePersistentConnections);
         builder.setAllowPoolingSslConnections(usePersistentConnections);
@@ -218,6 +256,134 @@ public class GrizzlyHttpClient implements HttpClient
         builder.setIOThreadMultiplier(1);
     }
 
+    /**
+     * Creates the same pool the provider would create for persistent connections, so the statistics can tell
+     * how many of its connections are idle or were evicted, and connections can be opened before the first request.
+     */
+    private void configureConnectionPool(AsyncHttpClientConfig config)
+    {
+        if (!usePersistentConnections)
+        {
+            return;
+        }
+        connectionPool = MultiEndpointPool.builder(SocketAddress.class)
+                .connectTimeout(config.getConnectTimeout(), MILLISECONDS)
+                .asyncPollTimeout(config.getConnectTimeout(), MILLISECONDS)
+                .maxConnectionsTotal(config.getMaxConnections())
+                .maxConnectionsPerEndpoint(config.getMaxConnectionsPerHost())
+                .keepAliveTimeout(config.getPooledConnectionIdleTimeout(), MILLISECONDS)
+                .keepAliveCheckInterval(1, SECONDS)
+                .connectionTTL(config.getConnectionTTL(), MILLISECONDS)
+                .failFastWhenMaxSizeReached(true)
+                .build();
+        ((GrizzlyAsyncHttpProviderConfig) config.getAsyncHttpProviderConfig()).setConnectionPool(connectionPool);
+        connectionPoolStatistics.setConnectionPool(connectionPool);
+        connectionPoolTransportCustomizer = new ConnectionPoolTransportCustomizer(connectionPool, connectionPoolStatistics);
+        compositeTransportCustomizer.addTransportCustomizer(connectionPoolTransportCustomizer);
+    }
+
+    @Override
+    public void start() throws MuleException
+    {
+        if (prewarmConnections > 0 && prewarmUrl != null)
+        {
+            prewarmConnections();
+        }
+    }
+
+    /**
+     * Opens connections to the pre-warmed host and leaves them idle in the pool, so the first requests don't
+     * wait for them to be established. HTTPS connections do their TLS handshake with their first request. A
+     * failure is only logged, since the host may not be reachable yet.
+     */
+    private void prewarmConnections()
+    {
+        if (connectionPool == null || connectionIdleTimeout <= 0)
+        {
+            logger.warn(String.format("Requester %s does not pre-warm connections since they are not kept open", ownerName));
+            return;
+        }
+        if (proxyServer != null)
+        {
+            // Connections through a proxy may need a tunnel that is only established by a request
+            logger.warn(String.format("Requester %s does not pre-warm connections since it uses a proxy", ownerName));
+            return;
+        }
+        if (asyncHttpClient.isClosed() || connectionPoolTransportCustomizer.getTransport() == null)
+        {
+            return;
+        }
+
+        int connections = prewarmConnections;
+        if (maxConnectionsPerHost > 0 || maxConnections > 0)
+        {
+            connections = Math.min(connections, maxConnectionsPerHost > 0 ? maxConnectionsPerHost : maxConnections);
+        }
+
+        Uri uri = Uri.create(prewarmUrl);
+        String partitionId = PerHostConnectionPoolPartitioning.INSTANCE.getPartitionKey(uri, null).toString();
+        Endpoint<SocketAddress> endpoint = new PrewarmEndpoint(partitionId, uri.getHost(), uri.getPort());
+
+        List<Future<Connection>> pending = new ArrayList<>(connections);
+        List<Connection> opened = new ArrayList<>(connections);
+        try
+        {
+            for (int i = 0; i < connections; i++)
+            {
+                pending.add(connectionPool.take(endpoint));
+            }
+            for (Future<Connection> connection : pending)
+            {
+                opened.add(connection.get(connectionPool.getConnectTimeout(MILLISECONDS), MILLISECONDS));
+            }
+        }
+        catch (Exception e)
+        {
+            logger.warn(String.format("Requester %s could only pre-warm %d of %d connections to %s: %s", ownerName,
+                                      opened.size(), connections, prewarmUrl, e.getMessage()));
+        }
+        finally
+        {
+            for (Connection connection : opened)
+            {
+                connectionPool.release(connection);
+            }
+        }
+    }
+
+    /**
+     * Endpoint with the same id the provider uses for requests to the host, so both share the same connections.
+     * Like the endpoints of the provider, it resolves the host every time it connects.
+     */
+    private class PrewarmEndpoint extends Endpoint<SocketAddress>
+    {
+
+        private final String partitionId;
+        private final String host;
+        private final int port;
+        private final TCPNIOConnectorHandler connectorHandler;
+
+        PrewarmEndpoint(String partitionId, String host, int port)
+        {
+            this.partitionId = partitionId;
+            this.host = host;
+            this.port = port;
+            this.connectorHandler = TCPNIOConnectorHandler.builder(connectionPoolTransportCustomizer.getTransport()).build();
+        }
+
+        @Override
+        public Object getId()
+        {
+            return partitionId;
+        }
+
+        @Override
+        public GrizzlyFuture<Connection> connect()
+        {
+            return connectorHandler.connect(new InetSocketAddress(host, port));
+        }
+    }
+
     @Override
     public HttpResponse send(HttpRequest request, int responseTimeout, boolean followRedirects, HttpRequestAuthentication authentication) throws IOException, TimeoutException
     {
@@ -311,12 +477,23 @@ public class GrizzlyHttpClient implements HttpClient
         HttpResponseBuilder responseBuilder = new HttpResponseBuilder();
         responseBuilder.setStatusCode(response.getStatusCode());
         responseBuilder.setReasonPhrase(response.getStatusText());
-        responseBuilder.setEntity(new InputStreamHttpEntity(response.getResponseBodyAsStream()));
+        InputStream body = response.getResponseBodyAsStream();
+        String contentEncoding = response.getHeader(CONTENT_ENCODING);
+        boolean decompress = responseDecompression != null && responseDecompression.isCompressed(contentEncoding);
+        if (decompress)
+        {
+            body = responseDecompression.decompress(contentEncoding, body);
+        }
+        responseBuilder.setEntity(new InputStreamHttpEntity(body));
 
         if (response.hasResponseHeaders())
         {
             for (String header : response.getHeaders().keySet())
             {
+                if (decompress && responseDecompression.isCompressedBodyHeader(header))
+                {
+                    continue;
+                }
                 for (String headerValue : response.getHeaders(header))
                 {
                     responseBuilder.addHeader(header, headerValue);
@@ -358,6 +535,11 @@ public class GrizzlyHttpClient implements HttpClient
             builder.setHeader(CONNECTION, CLOSE);
         }
 
+        if (responseDecompression != null && responseDecompression.isAcceptEncodingRequired(request))
+        {
+            builder.addHeader(ACCEPT_ENCODING, ResponseDecompression.ACCEPT_ENCODING_VALUE);
+        }
+
         DefaultHttpRequest defaultHttpRequest = (DefaultHttpRequest) request;
 
         for (String queryParamName : defaultHttpRequest.getQueryParams().keySet())
@@ -443,6 +625,11 @@ public class GrizzlyHttpClient implements HttpClient
     @Override
     public void stop()
     {
+        if (connectionPoolTransportCustomizer != null)
+        {
+            connectionPoolTransportCustomizer.stop();
+        }
+        connectionPoolStatistics.setConnectionPool(null);
         asyncHttpClient.close();
     }
 }
@@ -7,6 +7,8 @@
 package org.mule.module.http.internal.request.grizzly;
 
 import org.mule.module.http.api.requester.proxy.ProxyConfig;
+import org.mule.module.http.internal.compression.ResponseDecompression;
+import org.mule.module.http.internal.request.ConnectionPoolStatistics;
 import org.mule.transport.ssl.api.TlsContextFactory;
 import org.mule.transport.tcp.TcpClientSocketProperties;
 
@@ -17,22 +19,37 @@ public class GrizzlyHttpClientConfiguration
     private final ProxyConfig proxyConfig;
     private final TcpClientSocketProperties clientSocketProperties;
     private final int maxConnections;
+    private final int maxConnectionsPerHost;
+    private final int connectionWaitTimeout;
     private final boolean usePersistentConnections;
     private final int connectionIdleTimeout;
     private final String threadNamePrefix;
     private final String ownerName;
+    private final ResponseDecompression responseDecompression;
+    private final ConnectionPoolStatistics connectionPoolStatistics;
+    private final String prewarmUrl;
+    private final int prewarmConnections;
 
     private GrizzlyHttpClientConfiguration(TlsContextFactory tlsContextFactory, ProxyConfig proxyConfig, TcpClientSocketProperties clientSocketProperties,
-                                           int maxConnections, boolean usePersistentConnections, int connectionIdleTimeout, String threadNamePrefix, String ownerName)
+                                           int maxConnections, int maxConnectionsPerHost, int connectionWaitTimeout, boolean usePersistentConnections,
+                                           int connectionIdleTimeout, String threadNamePrefix, String ownerName,
+                                           ResponseDecompression responseDecompression, ConnectionPoolStatistics connectionPoolStatistics,
+                                           String prewarmUrl, int prewarmConnections)
     {
         this.tlsContextFactory = tlsContextFactory;
         this.proxyConfig = proxyConfig;
         this.clientSocketProperties = clientSocketProperties;
         this.maxConnections = maxConnections;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.connectionWaitTimeout = connectionWaitTimeout;
         this.usePersistentConnections = usePersistentConnections;
         this.connectionIdleTimeout = connectionIdleTimeout;
         this.threadNamePrefix = threadNamePrefix;
         this.ownerName = ownerName;
+        this.responseDecompression = responseDecompression;
+        this.connectionPoolStatistics = connectionPoolStatistics;
+        this.prewarmUrl = prewarmUrl;
+        this.prewarmConnections = prewarmConnections;
     }
 
     public TlsContextFactory getTlsContextFactory()
@@ -55,6 +72,22 @@ public class GrizzlyHttpClientConfiguration
         return maxConnections;
     }
 
+    /**
+     * @return the maximum amount of connections to a single host, or -1 to use the maximum amount of connections
+     */
+    public int getMaxConnectionsPerHost()
+    {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * @return the milliseconds a request waits for a connection, or -1 to wait for the response timeout
+     */
+    public int getConnectionWaitTimeout()
+    {
+        return connectionWaitTimeout;
+    }
+
     public boolean isUsePersistentConnections()
     {
         return usePersistentConnections;
@@ -75,16 +108,54 @@ public class GrizzlyHttpClientConfiguration
         return ownerName;
     }
 
+    /**
+     * @return the decompression of the responses, or null if they are not decompressed
+     */
+    public ResponseDecompression getResponseDecompression()
+    {
+        return responseDecompression;
+    }
+
+    /**
+     * @return the counters to update as connections are leased, or null if they are not collected
+     */
+    public ConnectionPoolStatistics getConnectionPoolStatistics()
+    {
+        return connectionPoolStatistics;
+    }
+
+    /**
+     * @return the base URL of the host to open connections to when the client is started, or null if none
+     */
+    public String getPrewarmUrl()
+    {
+        return prewarmUrl;
+    }
+
+    /**
+     * @return the amount of connections to open when the client is started
+     */
+    public int getPrewarmConnections()
+    {
+        return prewarmConnections;
+    }
+
     public static class Builder
     {
         private TlsContextFactory tlsContextFactory;
         private ProxyConfig proxyConfig;
         private TcpClientSocketProperties clientSocketProperties;
         private int maxConnections;
+        private int maxConnectionsPerHost = -1;
+        private int connectionWaitTimeout = -1;
         private boolean usePersistentConnections;
         private int connectionIdleTimeout;
         private String threadNamePrefix;
         private String ownerName;
+        private ResponseDecompression responseDecompression;
+        private ConnectionPoolStatistics connectionPoolStatistics;
+        private String prewarmUrl;
+        private int prewarmConnections;
 
         public Builder setTlsContextFactory(TlsContextFactory tlsContextFactory)
         {
@@ -110,6 +181,18 @@ public class GrizzlyHttpClientConfiguration
             return this;
         }
 
+        public Builder setMaxConnectionsPerHost(int maxConnectionsPerHost)
+        {
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            return this;
+        }
+
+        public Builder setConnectionWaitTimeout(int connectionWaitTimeout)
+        {
+            this.connectionWaitTimeout = connectionWaitTimeout;
+            return this;
+        }
+
         public Builder setUsePersistentConnections(boolean usePersistentConnections)
         {
             this.usePersistentConnections = usePersistentConnections;
@@ -134,10 +217,36 @@ public class GrizzlyHttpClientConfiguration
             return this;
         }
 
+        public Builder setResponseDecompression(ResponseDecompression responseDecompression)
+        {
+            this.responseDecompression = responseDecompression;
+            return this;
+        }
+
+        public Builder setConnectionPoolStatistics(ConnectionPoolStatistics connectionPoolStatistics)
+        {
+            this.connectionPoolStatistics = connectionPoolStatistics;
+            return this;
+        }
+
+        public Builder setPrewarmUrl(String prewarmUrl)
+        {
+            this.prewarmUrl = prewarmUrl;
+            return this;
+        }
+
+        public Builder setPrewarmConnections(int prewarmConnections)
+        {
+            this.prewarmConnections = prewarmConnections;
+            return this;
+        }
+
         public GrizzlyHttpClientConfiguration build()
         {
             return new GrizzlyHttpClientConfiguration(tlsContextFactory, proxyConfig, clientSocketProperties, maxConnections,
-                                                      usePersistentConnections, connectionIdleTimeout, threadNamePrefix, ownerName);
+                                                      maxConnectionsPerHost, connectionWaitTimeout, usePersistentConnections,
+                                                      connectionIdleTimeout, threadNamePrefix, ownerName, responseDecompression,
+                                                      connectionPoolStatistics, prewarmUrl, prewarmConnections);
         }
     }
 }
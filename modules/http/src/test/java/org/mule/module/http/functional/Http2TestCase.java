@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.functional;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mule.module.http.api.HttpConstants.HttpStatus.OK;
+import static org.mule.module.http.api.HttpConstants.HttpStatus.REQUEST_TOO_LONG;
+import static org.mule.module.http.api.HttpConstants.ResponseProperties.HTTP_STATUS_PROPERTY;
+import static org.mule.module.http.internal.listener.grizzly.GrizzlyRequestDispatcherFilter.MAXIMUM_HTTP2_CONTENT_SIZE_PROPERTY_KEY;
+import org.mule.api.MuleEvent;
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+import org.mule.tck.junit4.rule.SystemProperty;
+import org.mule.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class Http2TestCase extends FunctionalTestCase
+{
+
+    private static final String HTTP_2 = "HTTP/2.0";
+    private static final String HTTP_1_1 = "HTTP/1.1";
+    private static final int CONCURRENT_REQUESTS = 10;
+    private static final int MAX_CONTENT_SIZE = 512 * 1024;
+
+    @Rule
+    public DynamicPort http2Port = new DynamicPort("http2Port");
+
+    @Rule
+    public DynamicPort http1Port = new DynamicPort("http1Port");
+
+    @Rule
+    public SystemProperty maxContentSize = new SystemProperty(MAXIMUM_HTTP2_CONTENT_SIZE_PROPERTY_KEY, String.valueOf(MAX_CONTENT_SIZE));
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "http2-config.xml";
+    }
+
+    @Test
+    public void requestIsSentOverHttp2() throws Exception
+    {
+        assertThat(upgrade()[0], is(HTTP_2));
+
+        String[] response = sendRequest("http2RequestFlow", "1", TEST_MESSAGE);
+        assertThat(response[0], is(HTTP_2));
+        assertThat(response[2], is("1"));
+        assertThat(response[3], is(TEST_MESSAGE));
+    }
+
+    @Test
+    public void requestsWithBodyAreSentOverHttp1UntilUpgraded() throws Exception
+    {
+        assertThat(sendRequest("http2RequestFlow", "1", TEST_MESSAGE)[0], is(HTTP_1_1));
+        assertThat(upgrade()[0], is(HTTP_2));
+        assertThat(sendRequest("http2RequestFlow", "2", TEST_MESSAGE)[0], is(HTTP_2));
+    }
+
+    @Test
+    public void concurrentRequestsShareConnection() throws Exception
+    {
+        String upgradeClientAddress = upgrade()[1];
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+        try
+        {
+            List<Future<String[]>> responses = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++)
+            {
+                final String id = String.valueOf(i);
+                responses.add(executor.submit(new Callable<String[]>()
+                {
+                    @Override
+                    public String[] call() throws Exception
+                    {
+                        return sendRequest("http2RequestFlow", id, TEST_MESSAGE + id);
+                    }
+                }));
+            }
+
+            Set<String> clientAddresses = new HashSet<>();
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++)
+            {
+                String[] response = responses.get(i).get(RECEIVE_TIMEOUT, MILLISECONDS);
+                assertThat(response[0], is(HTTP_2));
+                assertThat(response[2], is(String.valueOf(i)));
+                assertThat(response[3], is(TEST_MESSAGE + i));
+                clientAddresses.add(response[1]);
+            }
+            assertThat(clientAddresses.size(), is(1));
+            assertThat(clientAddresses.iterator().next(), equalTo(upgradeClientAddress));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void largeBodiesAreSentWithFlowControl() throws Exception
+    {
+        // Bigger than the default stream window
+        upgrade();
+        String payload = StringUtils.repeat('a', 200 * 1024);
+        String[] response = sendRequest("http2RequestFlow", "1", payload);
+        assertThat(response[0], is(HTTP_2));
+        assertThat(response[3].length(), is(payload.length()));
+    }
+
+    @Test
+    public void requestBodyBiggerThanMaximumIsRejected() throws Exception
+    {
+        upgrade();
+        MuleEvent event = getTestEvent(StringUtils.repeat('a', 2 * MAX_CONTENT_SIZE));
+        event.setFlowVariable("id", "1");
+        MuleEvent response = runFlow("http2AnyStatusRequestFlow", event);
+        assertThat(response.getMessage().<Integer>getInboundProperty(HTTP_STATUS_PROPERTY), is(REQUEST_TOO_LONG.getStatusCode()));
+
+        // The connection is still usable by the rest of the streams
+        assertThat(sendRequest("http2RequestFlow", "2", TEST_MESSAGE)[3], is(TEST_MESSAGE));
+    }
+
+    @Test
+    public void fallsBackToHttp1WhenServerDoesNotSupportHttp2() throws Exception
+    {
+        assertThat(sendRequest("http1ServerGetRequestFlow", null, TEST_MESSAGE)[0], is(HTTP_1_1));
+
+        Set<String> clientAddresses = new HashSet<>();
+        for (int i = 0; i < 3; i++)
+        {
+            String[] response = sendRequest("http1ServerRequestFlow", null, TEST_MESSAGE);
+            assertThat(response[0], is(HTTP_1_1));
+            assertThat(response[3], is(TEST_MESSAGE));
+            clientAddresses.add(response[1]);
+        }
+        // Once the upgrade is rejected, requests are sent through a pooled HTTP/1.1 connection
+        assertThat(clientAddresses.size(), is(1));
+    }
+
+    /**
+     * Sends a request without body, which negotiates HTTP/2 if the connection is not upgraded yet.
+     */
+    private String[] upgrade() throws Exception
+    {
+        return sendRequest("http2GetRequestFlow", "0", TEST_MESSAGE);
+    }
+
+    private String[] sendRequest(String flowName, String id, String payload) throws Exception
+    {
+        MuleEvent event = getTestEvent(payload);
+        event.setFlowVariable("id", id);
+        MuleEvent response = runFlow(flowName, event);
+        assertThat(response.getMessage().<Integer>getInboundProperty(HTTP_STATUS_PROPERTY), is(OK.getStatusCode()));
+        return response.getMessageAsString().split("\\|", 4);
+    }
+}
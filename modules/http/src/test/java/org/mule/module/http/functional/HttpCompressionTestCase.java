@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.functional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+import static org.mule.module.http.api.HttpHeaders.Names.ACCEPT_ENCODING;
+import static org.mule.module.http.api.HttpHeaders.Names.CONTENT_ENCODING;
+import static org.mule.module.http.api.HttpHeaders.Names.TRANSFER_ENCODING;
+import static org.mule.module.http.api.HttpHeaders.Names.VARY;
+import static org.mule.module.http.api.HttpHeaders.Values.CHUNKED;
+
+import org.mule.api.MuleEvent;
+import org.mule.module.http.internal.compression.CompressionStatistics;
+import org.mule.module.http.internal.listener.DefaultHttpListenerConfig;
+import org.mule.module.http.internal.request.DefaultHttpRequesterConfig;
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+import org.mule.util.IOUtils;
+import org.mule.util.StringUtils;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class HttpCompressionTestCase extends FunctionalTestCase
+{
+
+    public static final String TEST_BODY = StringUtils.repeat("This text compresses well. ", 1000);
+
+    @Rule
+    public DynamicPort listenPort = new DynamicPort("port");
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "http-compression-config.xml";
+    }
+
+    @Test
+    public void responseIsCompressedWithGzip() throws Exception
+    {
+        HttpURLConnection connection = openConnection("text", "gzip, deflate");
+        assertThat(connection.getHeaderField(CONTENT_ENCODING), is("gzip"));
+        assertThat(connection.getHeaderField(VARY), containsString(ACCEPT_ENCODING));
+        assertThat(IOUtils.toString(new GZIPInputStream(connection.getInputStream())), is(TEST_BODY));
+
+        CompressionStatistics statistics = muleContext.getRegistry().<DefaultHttpListenerConfig>lookupObject("listenerConfig").getCompressionStatistics();
+        assertThat(statistics.getMessages(), is(1L));
+        assertThat(statistics.getUncompressedBytes(), is((long) TEST_BODY.length()));
+        assertThat(statistics.getBytesSaved(), greaterThan(0L));
+    }
+
+    @Test
+    public void encodingWithHighestQualityIsSelected() throws Exception
+    {
+        HttpURLConnection connection = openConnection("text", "gzip;q=0.5, deflate");
+        assertThat(connection.getHeaderField(CONTENT_ENCODING), is("deflate"));
+        assertThat(IOUtils.toString(new InflaterInputStream(connection.getInputStream())), is(TEST_BODY));
+    }
+
+    @Test
+    public void responseIsNotCompressedWhenClientDoesNotAcceptIt() throws Exception
+    {
+        assertNotCompressed(openConnection("text", null));
+        assertNotCompressed(openConnection("text", "gzip;q=0, identity"));
+    }
+
+    @Test
+    public void smallResponseIsNotCompressed() throws Exception
+    {
+        HttpURLConnection connection = openConnection("smallText", "gzip");
+        assertThat(connection.getHeaderField(CONTENT_ENCODING), is(nullValue()));
+        assertThat(IOUtils.toString(connection.getInputStream()), is("small"));
+    }
+
+    @Test
+    public void responseWithNotCompressibleMimeTypeIsNotCompressed() throws Exception
+    {
+        assertNotCompressed(openConnection("binary", "gzip"));
+    }
+
+    @Test
+    public void streamedResponseIsCompressed() throws Exception
+    {
+        HttpURLConnection connection = openConnection("stream", "gzip");
+        assertThat(connection.getHeaderField(CONTENT_ENCODING), is("gzip"));
+        assertThat(connection.getHeaderField(TRANSFER_ENCODING), is(CHUNKED));
+        assertThat(IOUtils.toString(new GZIPInputStream(connection.getInputStream())), is(TEST_BODY));
+    }
+
+    @Test
+    public void requesterDecompressesResponse() throws Exception
+    {
+        MuleEvent event = runFlow("requestFlow");
+        assertThat(event.getMessage().getPayloadAsString(), is(TEST_BODY));
+        assertThat(event.getMessage().getInboundProperty(CONTENT_ENCODING.toLowerCase()), is(nullValue()));
+
+        CompressionStatistics statistics = muleContext.getRegistry().<DefaultHttpRequesterConfig>lookupObject("requestConfig").getCompressionStatistics();
+        assertThat(statistics.getMessages(), is(1L));
+        assertThat(statistics.getUncompressedBytes(), is((long) TEST_BODY.length()));
+        assertThat(statistics.getBytesSaved(), greaterThan(0L));
+    }
+
+    private HttpURLConnection openConnection(String path, String acceptEncoding) throws Exception
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL(String.format("http://localhost:%s/%s", listenPort.getNumber(), path)).openConnection();
+        if (acceptEncoding != null)
+        {
+            connection.setRequestProperty(ACCEPT_ENCODING, acceptEncoding);
+        }
+        return connection;
+    }
+
+    private void assertNotCompressed(HttpURLConnection connection) throws Exception
+    {
+        assertThat(connection.getHeaderField(CONTENT_ENCODING), is(nullValue()));
+        assertThat(IOUtils.toString(connection.getInputStream()), is(TEST_BODY));
+    }
+}
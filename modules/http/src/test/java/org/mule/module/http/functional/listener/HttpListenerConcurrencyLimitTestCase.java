@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.functional.listener;
+
+import static java.lang.String.format;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mule.module.http.api.HttpConstants.HttpStatus.OK;
+import static org.mule.module.http.api.HttpConstants.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.mule.module.http.api.HttpHeaders.Names.RETRY_AFTER;
+import org.mule.api.MuleEventContext;
+import org.mule.construct.Flow;
+import org.mule.module.http.internal.listener.ConcurrencyLimiter;
+import org.mule.module.http.internal.listener.ConcurrencyLimiterMBean;
+import org.mule.module.http.internal.listener.DefaultHttpListener;
+import org.mule.tck.functional.EventCallback;
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+import org.mule.tck.junit4.rule.SystemProperty;
+import org.mule.util.concurrent.Latch;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.fluent.Executor;
+import org.apache.http.client.fluent.Request;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class HttpListenerConcurrencyLimitTestCase extends FunctionalTestCase
+{
+
+    private static final int MAX_CONCURRENT_REQUESTS = 2;
+
+    @Rule
+    public DynamicPort listenPort = new DynamicPort("port");
+    @Rule
+    public SystemProperty maxConcurrentRequests = new SystemProperty("max.concurrent.requests", String.valueOf(MAX_CONCURRENT_REQUESTS));
+
+    private final CountDownLatch processingLatch = new CountDownLatch(MAX_CONCURRENT_REQUESTS);
+    private final Latch waitingLatch = new Latch();
+    private final Executor httpClientExecutor = Executor.newInstance(HttpClientBuilder.create().setMaxConnPerRoute(MAX_CONCURRENT_REQUESTS + 1).build());
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "http-listener-concurrency-limit-config.xml";
+    }
+
+    @Test
+    public void rejectsRequestsOverLimit() throws Exception
+    {
+        blockFlow("limitedFlow");
+        String url = getUrl("limited");
+        CountDownLatch completedLatch = new CountDownLatch(MAX_CONCURRENT_REQUESTS);
+        for (int i = 0; i < MAX_CONCURRENT_REQUESTS; i++)
+        {
+            executeRequestInAnotherThread(url, completedLatch);
+        }
+        if (!processingLatch.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS))
+        {
+            fail("Requests were not processed");
+        }
+
+        try
+        {
+            HttpResponse response = httpClientExecutor.execute(Request.Post(url).bodyString(TEST_MESSAGE, null)).returnResponse();
+            assertThat(response.getStatusLine().getStatusCode(), is(SERVICE_UNAVAILABLE.getStatusCode()));
+            assertThat(response.getFirstHeader(RETRY_AFTER).getValue(), is("5"));
+        }
+        finally
+        {
+            waitingLatch.release();
+        }
+
+        assertThat(completedLatch.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS), is(true));
+        HttpResponse response = httpClientExecutor.execute(Request.Get(url)).returnResponse();
+        assertThat(response.getStatusLine().getStatusCode(), is(OK.getStatusCode()));
+
+        ConcurrencyLimiter limiter = getConcurrencyLimiter("limitedFlow");
+        assertThat(limiter.getAdmittedRequests(), is(3L));
+        assertThat(limiter.getRejectedRequests(), is(1L));
+        assertThat(limiter.getInFlightRequests(), is(0));
+
+        ObjectName objectName = new ObjectName(format("Mule.%s:type=%s,name=%s", muleContext.getConfiguration().getId(),
+                                                      ConcurrencyLimiterMBean.JMX_TYPE, ObjectName.quote("limitedFlow")));
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        assertThat(mBeanServer.getAttribute(objectName, "AdmittedRequests"), is((Object) 3L));
+        assertThat(mBeanServer.getAttribute(objectName, "RejectedRequests"), is((Object) 1L));
+        assertThat(mBeanServer.getAttribute(objectName, "Limit"), is((Object) MAX_CONCURRENT_REQUESTS));
+    }
+
+    @Test
+    public void adaptiveLimitNeverExceedsMaximum() throws Exception
+    {
+        for (int i = 0; i < 20; i++)
+        {
+            HttpResponse response = httpClientExecutor.execute(Request.Post(getUrl("adaptive")).bodyString(TEST_MESSAGE, null)).returnResponse();
+            assertThat(response.getStatusLine().getStatusCode(), is(OK.getStatusCode()));
+        }
+        ConcurrencyLimiter limiter = getConcurrencyLimiter("adaptiveFlow");
+        assertThat(limiter.getLimit() <= 10, is(true));
+        assertThat(limiter.getAdmittedRequests(), is(20L));
+    }
+
+    private String getUrl(String path)
+    {
+        return String.format("http://localhost:%s/%s", listenPort.getNumber(), path);
+    }
+
+    private ConcurrencyLimiter getConcurrencyLimiter(String flowName) throws Exception
+    {
+        Flow flow = (Flow) getFlowConstruct(flowName);
+        return ((DefaultHttpListener) flow.getMessageSource()).getConcurrencyLimiter();
+    }
+
+    private void executeRequestInAnotherThread(final String url, final CountDownLatch completedLatch)
+    {
+        new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    httpClientExecutor.execute(Request.Get(url).connectTimeout(RECEIVE_TIMEOUT)).discardContent();
+                    completedLatch.countDown();
+                }
+                catch (IOException e)
+                {
+                    throw new RuntimeException(e);
+                }
+            }
+        }.start();
+    }
+
+    private void blockFlow(String flowName) throws Exception
+    {
+        getFunctionalTestComponent(flowName).setEventCallback(new EventCallback()
+        {
+            @Override
+            public void eventReceived(MuleEventContext context, Object component) throws Exception
+            {
+                processingLatch.countDown();
+                waitingLatch.await();
+            }
+        });
+    }
+}
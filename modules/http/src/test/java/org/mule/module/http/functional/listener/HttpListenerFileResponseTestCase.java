@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.functional.listener;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mule.module.http.api.HttpConstants.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.mule.module.http.api.HttpHeaders.Names.CONTENT_LENGTH;
+import static org.mule.module.http.api.HttpHeaders.Names.TRANSFER_ENCODING;
+import static org.mule.module.http.api.HttpHeaders.Values.CHUNKED;
+
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+import org.mule.tck.probe.JUnitProbe;
+import org.mule.tck.probe.PollingProber;
+import org.mule.util.FileUtils;
+import org.mule.util.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.lang.RandomStringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.fluent.Request;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HttpListenerFileResponseTestCase extends FunctionalTestCase
+{
+
+    private static final String TEST_BODY = RandomStringUtils.randomAlphabetic(512 * 1024);
+
+    public static File file;
+    public static File temporaryFile;
+
+    @Rule
+    public DynamicPort listenPort = new DynamicPort("port");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "http-listener-file-response-config.xml";
+    }
+
+    @Before
+    public void createFiles() throws IOException
+    {
+        file = temporaryFolder.newFile("file.txt");
+        FileUtils.writeStringToFile(file, TEST_BODY);
+        temporaryFile = temporaryFolder.newFile("temporary.txt");
+        FileUtils.writeStringToFile(temporaryFile, TEST_BODY);
+    }
+
+    @Test
+    public void filePayloadIsSentWithContentLength() throws Exception
+    {
+        // The connection is reused, so the second request checks the first response was completed
+        for (int i = 0; i < 2; i++)
+        {
+            assertContentLengthResponse(getUrl("file"), HttpVersion.HTTP_1_1);
+        }
+    }
+
+    @Test
+    public void filePayloadIsSentWithContentLengthToHttp10Clients() throws Exception
+    {
+        assertContentLengthResponse(getUrl("file"), HttpVersion.HTTP_1_0);
+    }
+
+    @Test
+    public void fileInputStreamPayloadIsClosedAfterBeingSent() throws Exception
+    {
+        assertContentLengthResponse(getUrl("fileInputStream"), HttpVersion.HTTP_1_1);
+        new PollingProber(1000, 50).check(new JUnitProbe()
+        {
+            @Override
+            protected boolean test() throws Exception
+            {
+                return !temporaryFile.exists();
+            }
+
+            @Override
+            public String describeFailure()
+            {
+                return "The stream should have been closed, deleting the file.";
+            }
+        });
+    }
+
+    @Test
+    public void filePayloadIsChunkedWhenStreamingIsAlways() throws Exception
+    {
+        final HttpResponse httpResponse = Request.Get(getUrl("alwaysStreamingFile")).connectTimeout(1000).socketTimeout(1000).execute().returnResponse();
+        final Header transferEncodingHeader = httpResponse.getFirstHeader(TRANSFER_ENCODING);
+        assertThat(httpResponse.getFirstHeader(CONTENT_LENGTH), nullValue());
+        assertThat(transferEncodingHeader, notNullValue());
+        assertThat(transferEncodingHeader.getValue(), is(CHUNKED));
+        assertThat(IOUtils.toString(httpResponse.getEntity().getContent()), is(TEST_BODY));
+    }
+
+    @Test
+    public void missingFilePayloadFailsResponse() throws Exception
+    {
+        final HttpResponse httpResponse = Request.Get(getUrl("missingFile")).connectTimeout(1000).socketTimeout(1000).execute().returnResponse();
+        assertThat(httpResponse.getStatusLine().getStatusCode(), is(INTERNAL_SERVER_ERROR.getStatusCode()));
+    }
+
+    private void assertContentLengthResponse(String url, HttpVersion httpVersion) throws IOException
+    {
+        final HttpResponse httpResponse = Request.Get(url).version(httpVersion).connectTimeout(1000).socketTimeout(1000).execute().returnResponse();
+        final Header contentLengthHeader = httpResponse.getFirstHeader(CONTENT_LENGTH);
+        assertThat(httpResponse.getFirstHeader(TRANSFER_ENCODING), nullValue());
+        assertThat(contentLengthHeader, notNullValue());
+        assertThat(contentLengthHeader.getValue(), is(String.valueOf(TEST_BODY.length())));
+        assertThat(IOUtils.toString(httpResponse.getEntity().getContent()), is(TEST_BODY));
+    }
+
+    private String getUrl(String path)
+    {
+        return String.format("http://localhost:%s/%s", listenPort.getNumber(), path);
+    }
+}
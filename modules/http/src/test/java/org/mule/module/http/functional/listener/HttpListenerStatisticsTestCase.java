@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.functional.listener;
+
+import static java.lang.String.format;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import org.mule.module.http.internal.listener.DefaultHttpListenerConfig;
+import org.mule.module.http.internal.listener.HttpListenerStatistics;
+import org.mule.module.http.internal.listener.HttpListenerStatisticsMBean;
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+import org.mule.tck.probe.JUnitProbe;
+import org.mule.tck.probe.PollingProber;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+
+import javax.management.ObjectName;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class HttpListenerStatisticsTestCase extends FunctionalTestCase
+{
+
+    private static final String REQUEST = "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n";
+    private static final String CONTENT_LENGTH_HEADER = "content-length:";
+
+    @Rule
+    public DynamicPort listenPort = new DynamicPort("port");
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "http-listener-statistics-config.xml";
+    }
+
+    @Test
+    public void countsKeepAliveRequestsUntilMaximum() throws Exception
+    {
+        try (Socket socket = new Socket("localhost", listenPort.getNumber()))
+        {
+            for (int i = 0; i < 3; i++)
+            {
+                send(socket, REQUEST);
+                assertThat(readResponseBody(socket.getInputStream()), is("OK"));
+            }
+            assertThat(socket.getInputStream().read(), is(-1));
+        }
+
+        final HttpListenerStatistics statistics = getStatistics();
+        assertThat(statistics.getAcceptedConnections(), is(1L));
+        assertThat(statistics.getRequests(), is(3L));
+        assertThat(statistics.getKeepAliveRequests(), is(2L));
+        assertThat(statistics.getMaxRequestsPerConnection(), is(3));
+        assertThat(statistics.getAverageRequestsPerConnection(), is(3.0));
+        assertThat(statistics.getKeepAliveRefusals(), is(1L));
+        assertThat(statistics.getMaxKeepAliveRequests(), is(3));
+        new PollingProber(RECEIVE_TIMEOUT, 50).check(new JUnitProbe()
+        {
+            @Override
+            protected boolean test() throws Exception
+            {
+                assertThat(statistics.getOpenConnections(), is(0));
+                assertThat(statistics.getResponsesWritten(), is(3L));
+                return true;
+            }
+        });
+    }
+
+    @Test
+    public void countsPipelinedRequests() throws Exception
+    {
+        try (Socket socket = new Socket("localhost", listenPort.getNumber()))
+        {
+            send(socket, REQUEST + REQUEST);
+            assertThat(readResponseBody(socket.getInputStream()), is("OK"));
+            assertThat(readResponseBody(socket.getInputStream()), is("OK"));
+            assertThat(getStatistics().getOpenConnections(), is(1));
+        }
+
+        HttpListenerStatistics statistics = getStatistics();
+        assertThat(statistics.getRequests(), is(2L));
+        assertThat(statistics.getPipelinedRequests(), is(1L));
+    }
+
+    @Test
+    public void registersStatisticsInJmx() throws Exception
+    {
+        try (Socket socket = new Socket("localhost", listenPort.getNumber()))
+        {
+            send(socket, REQUEST);
+            assertThat(readResponseBody(socket.getInputStream()), is("OK"));
+        }
+
+        ObjectName objectName = new ObjectName(format("Mule.%s:type=%s,name=%s", muleContext.getConfiguration().getId(),
+                                                      HttpListenerStatisticsMBean.JMX_TYPE, ObjectName.quote("statisticsConfig")));
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "Requests"), is((Object) 1L));
+    }
+
+    private HttpListenerStatistics getStatistics() throws Exception
+    {
+        return ((DefaultHttpListenerConfig) muleContext.getRegistry().lookupObject("statisticsConfig")).getStatistics();
+    }
+
+    private void send(Socket socket, String request) throws IOException
+    {
+        OutputStream output = socket.getOutputStream();
+        output.write(request.getBytes());
+        output.flush();
+    }
+
+    private String readResponseBody(InputStream input) throws IOException
+    {
+        int contentLength = 0;
+        String line;
+        while (!(line = readLine(input)).isEmpty())
+        {
+            if (line.toLowerCase().startsWith(CONTENT_LENGTH_HEADER))
+            {
+                contentLength = Integer.parseInt(line.substring(CONTENT_LENGTH_HEADER.length()).trim());
+            }
+        }
+        byte[] body = new byte[contentLength];
+        int read = 0;
+        while (read < contentLength)
+        {
+            read += input.read(body, read, contentLength - read);
+        }
+        return new String(body);
+    }
+
+    private String readLine(InputStream input) throws IOException
+    {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = input.read()) != '\n')
+        {
+            if (b != '\r')
+            {
+                line.write(b);
+            }
+        }
+        return line.toString();
+    }
+}
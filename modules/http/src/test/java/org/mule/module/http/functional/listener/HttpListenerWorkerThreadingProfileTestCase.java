@@ -19,6 +19,7 @@ import org.mule.tck.junit4.FunctionalTestCase;
 import org.mule.tck.junit4.rule.DynamicPort;
 import org.mule.tck.junit4.rule.SystemProperty;
 import org.mule.util.concurrent.Latch;
+import org.mule.util.concurrent.VirtualThreadFactory;
 
 import java.io.IOException;
 import java.net.SocketException;
@@ -52,6 +53,8 @@ public class HttpListenerWorkerThreadingProfileTestCase extends FunctionalTestCa
     @Rule
     public DynamicPort listenPort3 = new DynamicPort("port3");
     @Rule
+    public DynamicPort listenPort4 = new DynamicPort("port4");
+    @Rule
     public SystemProperty maxThreadsActive = new SystemProperty("max.threads.active", String.valueOf(CUSTOM_MAX_THREADS_ACTIVE));
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
@@ -131,6 +134,37 @@ public class HttpListenerWorkerThreadingProfileTestCase extends FunctionalTestCa
         }
     }
 
+    @Test
+    public void useVirtualThreadsThreadingProfile() throws Exception
+    {
+        final Thread[] workerThread = new Thread[1];
+        getFunctionalTestComponent("virtualThreadsConfigFlow").setEventCallback(new EventCallback()
+        {
+            @Override
+            public void eventReceived(MuleEventContext context, Object component) throws Exception
+            {
+                workerThread[0] = Thread.currentThread();
+            }
+        });
+
+        String url = String.format("http://localhost:%s", listenPort4.getNumber());
+        final HttpResponse httpResponse = httpClientExecutor.execute(Request.Get(url)).returnResponse();
+        assertThat(httpResponse.getStatusLine().getStatusCode(), is(OK.getStatusCode()));
+        assertThat(isVirtual(workerThread[0]), is(VirtualThreadFactory.isSupported()));
+    }
+
+    private boolean isVirtual(Thread thread) throws Exception
+    {
+        try
+        {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        }
+        catch (NoSuchMethodException e)
+        {
+            return false;
+        }
+    }
+
     private void sendRequestUntilNoMoreWorkers(String flowName, String url, int maxThreadsActive) throws Exception
     {
         configureTestComponent(flowName, maxThreadsActive);
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.functional.requester;
+
+import static junit.framework.TestCase.fail;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.mule.api.MessagingException;
+import org.mule.api.MuleEvent;
+import org.mule.construct.Flow;
+import org.mule.module.http.internal.ParameterMap;
+import org.mule.module.http.internal.domain.request.HttpRequestBuilder;
+import org.mule.module.http.internal.request.ConnectionPoolStatistics;
+import org.mule.module.http.internal.request.ConnectionPoolStatisticsMBean;
+import org.mule.module.http.internal.request.DefaultHttpRequesterConfig;
+import org.mule.module.http.internal.request.grizzly.GrizzlyHttpClient;
+import org.mule.module.http.internal.request.grizzly.GrizzlyHttpClientConfiguration;
+import org.mule.tck.probe.JUnitProbe;
+import org.mule.tck.probe.PollingProber;
+import org.mule.util.concurrent.Latch;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+
+import javax.management.ObjectName;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.junit.Test;
+
+public class HttpRequestConnectionPoolTestCase extends AbstractHttpRequestTestCase
+{
+
+    private CountDownLatch messagesArrived = new CountDownLatch(2);
+    private Latch messageHold = new Latch();
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "http-request-connection-pool-config.xml";
+    }
+
+    @Test
+    public void connectionsArePartitionedByHost() throws Exception
+    {
+        Thread localhostRequest = processAsynchronously((Flow) getFlowConstruct("localhost"));
+        Thread loopbackAddressRequest = processAsynchronously((Flow) getFlowConstruct("loopbackAddress"));
+        messagesArrived.await();
+
+        ConnectionPoolStatistics statistics = getStatistics();
+        assertThat(statistics.getLeasedConnections(), is(2));
+        try
+        {
+            // The connection to localhost is taken and maxConnectionsPerHost=1, so this waits for the
+            // connection wait timeout and fails even if the request timeout is much longer
+            ((Flow) getFlowConstruct("localhost")).process(getTestEvent(TEST_MESSAGE));
+            fail("Max connections per host should be reached.");
+        }
+        catch (MessagingException e)
+        {
+            assertThat(e.getCause(), instanceOf(IOException.class));
+        }
+        assertThat(statistics.getLeaseTimeouts(), is(1L));
+        assertThat(statistics.getPendingRequests(), is(0));
+
+        messageHold.release();
+        localhostRequest.join();
+        loopbackAddressRequest.join();
+        assertThat(statistics.getLeasedConnections(), is(0));
+        assertThat(statistics.getLeaseCount(), is(2L));
+    }
+
+    @Test
+    public void statisticsAreRegisteredInJmx() throws Exception
+    {
+        ObjectName objectName = new ObjectName(String.format("Mule.%s:type=%s,name=%s", muleContext.getConfiguration().getId(),
+                                                             ConnectionPoolStatisticsMBean.JMX_TYPE, ObjectName.quote("requestConfig")));
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName), is(true));
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "MaxConnectionsPerHost"), is((Object) 1));
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "IdleEvictions"), is((Object) 0L));
+
+        muleContext.getRegistry().<DefaultHttpRequesterConfig>lookupObject("requestConfig").stop();
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName), is(false));
+    }
+
+    @Test
+    public void prewarmedConnectionsAreReusedAndEvictedWhenIdle() throws Exception
+    {
+        messageHold.release();
+        final ConnectionPoolStatistics statistics = new ConnectionPoolStatistics(-1, -1);
+        // The config is started before the test server, so the client is started here
+        GrizzlyHttpClient client = new GrizzlyHttpClient(new GrizzlyHttpClientConfiguration.Builder()
+                .setMaxConnections(-1)
+                .setUsePersistentConnections(true)
+                .setConnectionIdleTimeout(1000)
+                .setThreadNamePrefix("prewarm")
+                .setOwnerName("prewarm")
+                .setConnectionPoolStatistics(statistics)
+                .setPrewarmUrl("http://localhost:" + httpPort.getNumber())
+                .setPrewarmConnections(2)
+                .build());
+        client.initialise();
+        try
+        {
+            client.start();
+            assertThat(statistics.getIdleConnections(), is(2));
+
+            client.send(new HttpRequestBuilder().setUri("http://localhost:" + httpPort.getNumber() + "/testPath").setMethod("GET")
+                                .setHeaders(new ParameterMap()).setQueryParams(new ParameterMap()).build(), RECEIVE_TIMEOUT, false, null);
+            new PollingProber(RECEIVE_TIMEOUT, 50).check(new JUnitProbe()
+            {
+                @Override
+                protected boolean test() throws Exception
+                {
+                    // The request used a pre-warmed connection instead of opening a new one
+                    assertThat(statistics.getLeasedConnections(), is(0));
+                    assertThat(statistics.getIdleConnections(), is(2));
+                    return true;
+                }
+            });
+
+            new PollingProber(RECEIVE_TIMEOUT, 100).check(new JUnitProbe()
+            {
+                @Override
+                protected boolean test() throws Exception
+                {
+                    assertThat(statistics.getIdleEvictions(), is(2L));
+                    assertThat(statistics.getIdleConnections(), is(0));
+                    return true;
+                }
+            });
+        }
+        finally
+        {
+            client.stop();
+        }
+    }
+
+    private ConnectionPoolStatistics getStatistics()
+    {
+        return muleContext.getRegistry().<DefaultHttpRequesterConfig>lookupObject("requestConfig").getConnectionPoolStatistics();
+    }
+
+    private Thread processAsynchronously(final Flow flow)
+    {
+        Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    MuleEvent event = getTestEvent(TEST_MESSAGE);
+                    event.setTimeout(RECEIVE_TIMEOUT);
+                    flow.process(event);
+                }
+                catch (Exception e)
+                {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Override
+    protected void handleRequest(Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        super.handleRequest(baseRequest, request, response);
+        messagesArrived.countDown();
+        try
+        {
+            messageHold.await();
+        }
+        catch (InterruptedException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
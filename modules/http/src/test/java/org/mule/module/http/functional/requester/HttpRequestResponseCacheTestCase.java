@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.functional.requester;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.mule.module.http.api.HttpHeaders.Names.CACHE_CONTROL;
+import static org.mule.module.http.api.HttpHeaders.Names.ETAG;
+import static org.mule.module.http.api.HttpHeaders.Names.IF_NONE_MATCH;
+import org.mule.api.MuleEvent;
+import org.mule.module.http.internal.request.DefaultHttpRequesterConfig;
+import org.mule.module.http.internal.request.cache.ResponseCacheStatistics;
+
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.Multiset;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.junit.Test;
+
+public class HttpRequestResponseCacheTestCase extends AbstractHttpRequestTestCase
+{
+
+    private static final String ETAG_VALUE = "\"v1\"";
+
+    private Multiset<String> requestsByPath = ConcurrentHashMultiset.create();
+    private String lastIfNoneMatch;
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "http-request-response-cache-config.xml";
+    }
+
+    @Test
+    public void freshResponseIsServedFromCache() throws Exception
+    {
+        assertThat(getPayload("fresh"), is("/fresh 1"));
+        MuleEvent event = runFlow("fresh");
+        assertThat(event.getMessage().getPayloadAsString(), is("/fresh 1"));
+        assertThat(event.getMessage().getInboundProperty("age"), notNullValue());
+
+        assertThat(requestsByPath.count("/fresh"), is(1));
+        assertThat(getStatistics().getHits(), is(1L));
+        assertThat(getStatistics().getMisses(), is(1L));
+    }
+
+    @Test
+    public void staleResponseIsRevalidated() throws Exception
+    {
+        assertThat(getPayload("validated"), is("/validated 1"));
+        assertThat(getPayload("validated"), is("/validated 1"));
+
+        assertThat(requestsByPath.count("/validated"), is(2));
+        assertThat(lastIfNoneMatch, is(ETAG_VALUE));
+        assertThat(getStatistics().getRevalidations(), is(1L));
+        assertThat(getStatistics().getHits(), is(0L));
+    }
+
+    @Test
+    public void noStoreResponseIsNotCached() throws Exception
+    {
+        assertThat(getPayload("noStore"), is("/noStore 1"));
+        assertThat(getPayload("noStore"), is("/noStore 2"));
+        assertThat(getStatistics().getMisses(), is(2L));
+    }
+
+    @Test
+    public void evictedResponseIsServedFromObjectStore() throws Exception
+    {
+        getPayload("fresh");
+        // Only one response is kept in memory, so this one moves the previous one to the object store
+        getPayload("other");
+        assertThat(getPayload("fresh"), is("/fresh 1"));
+        assertThat(requestsByPath.count("/fresh"), is(1));
+    }
+
+    @Test
+    public void unsafeRequestInvalidatesCachedResponse() throws Exception
+    {
+        getPayload("fresh");
+        runFlow("updateFresh");
+        assertThat(getPayload("fresh"), is("/fresh 3"));
+    }
+
+    private String getPayload(String flowName) throws Exception
+    {
+        return runFlow(flowName).getMessage().getPayloadAsString();
+    }
+
+    private ResponseCacheStatistics getStatistics()
+    {
+        return muleContext.getRegistry().<DefaultHttpRequesterConfig>lookupObject("requestConfig").getResponseCacheStatistics();
+    }
+
+    @Override
+    protected void handleRequest(Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        String path = request.getRequestURI();
+        requestsByPath.add(path);
+        response.setContentType("text/plain");
+        if (path.equals("/validated"))
+        {
+            lastIfNoneMatch = request.getHeader(IF_NONE_MATCH);
+            response.setHeader(CACHE_CONTROL, "no-cache");
+            response.setHeader(ETAG, ETAG_VALUE);
+            if (ETAG_VALUE.equals(lastIfNoneMatch))
+            {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        else if (path.equals("/noStore"))
+        {
+            response.setHeader(CACHE_CONTROL, "no-store");
+        }
+        else
+        {
+            response.setHeader(CACHE_CONTROL, "max-age=60");
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.getWriter().print(path + " " + requestsByPath.count(path));
+    }
+}
@@ -7,18 +7,40 @@
 package org.mule.module.http.internal;
 
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mule.module.http.internal.HttpParser.normalizePathWithSpacesOrEncodedSpaces;
+import static org.mule.module.http.internal.HttpParser.parseMultipartContent;
 
+import org.mule.module.http.internal.multipart.HttpPart;
+import org.mule.module.http.internal.multipart.PartContentBuffer;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 import org.mule.tck.size.SmallTest;
+import org.mule.util.IOUtils;
+import org.mule.util.StringUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 @SmallTest
 public class HttpParserTestCase extends AbstractMuleTestCase
 {
 
+    private static final String BOUNDARY = "----boundary";
+
+    @Rule
+    public TemporaryFolder tempDirectory = new TemporaryFolder();
+
     @Test
     public void normalizePath()
     {
@@ -30,4 +52,118 @@ public class HttpParserTestCase extends AbstractMuleTestCase
         assertThat(normalizePathWithSpacesOrEncodedSpaces("+some%20path"), is(expectedNormalizedPath));
     }
 
+    @Test
+    public void parseMultipartContentAsItIsRead() throws Exception
+    {
+        String body = "preamble\r\n" +
+                      "--" + BOUNDARY + "\r\n" +
+                      "Content-Disposition: form-data; name=\"field\"\r\n" +
+                      "\r\n" +
+                      "value\r\n" +
+                      "--" + BOUNDARY + "\r\n" +
+                      "Content-Disposition: form-data; name=\"file\"; filename=\"file.txt\"\r\n" +
+                      "Content-Type: application/octet-stream\r\n" +
+                      "\r\n" +
+                      "line 1\r\nline 2 --" + BOUNDARY.substring(1) + "\r\n" +
+                      "--" + BOUNDARY + "--\r\n";
+
+        List<HttpPart> parts = parse(body, PartContentBuffer.UNLIMITED_THRESHOLD);
+
+        assertThat(parts.size(), is(2));
+        assertThat(parts.get(0).getName(), is("field"));
+        assertThat(parts.get(0).getFileName(), is(nullValue()));
+        assertThat(parts.get(0).getContentType(), is("text/plain"));
+        assertThat(contentOf(parts.get(0)), is("value"));
+        assertThat(parts.get(1).getName(), is("file"));
+        assertThat(parts.get(1).getFileName(), is("file.txt"));
+        assertThat(parts.get(1).getContentType(), is("application/octet-stream"));
+        assertThat(parts.get(1).getHeader("Content-Type"), is("application/octet-stream"));
+        assertThat(contentOf(parts.get(1)), is("line 1\r\nline 2 --" + BOUNDARY.substring(1)));
+    }
+
+    @Test
+    public void largePartIsSpilledToTemporaryFile() throws Exception
+    {
+        String largeContent = StringUtils.repeat("large part content ", 10000);
+        String body = "--" + BOUNDARY + "\r\n" +
+                      "Content-Disposition: form-data; name=\"small\"\r\n" +
+                      "\r\n" +
+                      "small\r\n" +
+                      "--" + BOUNDARY + "\r\n" +
+                      "Content-Disposition: form-data; name=\"large\"\r\n" +
+                      "\r\n" +
+                      largeContent + "\r\n" +
+                      "--" + BOUNDARY + "--";
+
+        int temporaryFiles = countTemporaryFiles();
+        List<HttpPart> parts = parse(body, 1024);
+
+        assertThat(countTemporaryFiles(), is(temporaryFiles + 1));
+        assertThat(contentOf(parts.get(0)), is("small"));
+        assertThat(parts.get(1).getSize(), is((long) largeContent.length()));
+        assertThat(contentOf(parts.get(1)), is(largeContent));
+
+        parts.get(0).delete();
+        parts.get(1).delete();
+        assertThat(countTemporaryFiles(), is(temporaryFiles));
+    }
+
+    @Test
+    public void base64PartIsDecoded() throws Exception
+    {
+        String body = "--" + BOUNDARY + "\r\n" +
+                      "Content-Disposition: form-data; name=\"encoded\"\r\n" +
+                      "Content-Transfer-Encoding: base64\r\n" +
+                      "\r\n" +
+                      "ZW5jb2RlZCB2YWx1ZQ==\r\n" +
+                      "--" + BOUNDARY + "--\r\n";
+
+        assertThat(contentOf(parse(body, PartContentBuffer.UNLIMITED_THRESHOLD).get(0)), is("encoded value"));
+    }
+
+    @Test
+    public void boundaryIsTakenFromContentWhenMissingInContentType() throws Exception
+    {
+        String body = "--" + BOUNDARY + "\r\n" +
+                      "Content-Disposition: form-data; name=\"field\"\r\n" +
+                      "\r\n" +
+                      "value\r\n" +
+                      "--" + BOUNDARY + "--\r\n";
+
+        Collection<HttpPart> parts = parseMultipartContent(new ByteArrayInputStream(body.getBytes()), "multipart/form-data");
+        assertThat(parts.size(), is(1));
+        assertThat(contentOf(parts.iterator().next()), is("value"));
+    }
+
+    @Test(expected = IOException.class)
+    public void multipartContentWithoutClosingBoundaryFails() throws Exception
+    {
+        parse("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"field\"\r\n\r\nvalue", PartContentBuffer.UNLIMITED_THRESHOLD);
+    }
+
+    private List<HttpPart> parse(String body, long inMemoryThreshold) throws IOException
+    {
+        return new ArrayList<>(parseMultipartContent(new ByteArrayInputStream(body.getBytes()), "multipart/form-data; boundary=" + BOUNDARY, inMemoryThreshold, tempDirectory.getRoot()));
+    }
+
+    private String contentOf(HttpPart part) throws IOException
+    {
+        try (InputStream content = part.getInputStream())
+        {
+            return IOUtils.toString(content);
+        }
+    }
+
+    private int countTemporaryFiles()
+    {
+        String[] files = tempDirectory.getRoot().list(new FilenameFilter()
+        {
+            @Override
+            public boolean accept(File dir, String name)
+            {
+                return name.startsWith("mule-http-part");
+            }
+        });
+        return files != null ? files.length : 0;
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.compression;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mule.module.http.internal.compression.ResponseCompression.DEFAULT_MIME_TYPES;
+import static org.mule.module.http.internal.compression.ResponseCompression.DEFAULT_MIN_SIZE;
+import static org.mule.module.http.internal.compression.ResponseCompression.DEFLATE;
+import static org.mule.module.http.internal.compression.ResponseCompression.GZIP;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import org.junit.Test;
+
+@SmallTest
+public class ResponseCompressionTestCase extends AbstractMuleTestCase
+{
+
+    private ResponseCompression compression = new ResponseCompression(DEFAULT_MIN_SIZE, DEFAULT_MIME_TYPES);
+
+    @Test
+    public void selectsPreferredEncodingOnTie()
+    {
+        assertThat(compression.selectEncoding("deflate, gzip"), is(GZIP));
+    }
+
+    @Test
+    public void selectsEncodingWithHighestQuality()
+    {
+        assertThat(compression.selectEncoding("gzip;q=0.2, deflate;q=0.8"), is(DEFLATE));
+    }
+
+    @Test
+    public void selectsAliasAndWildcard()
+    {
+        assertThat(compression.selectEncoding("x-gzip"), is(GZIP));
+        assertThat(compression.selectEncoding("gzip;q=0, *"), is(DEFLATE));
+    }
+
+    @Test
+    public void selectsNothingWhenNoEncodingIsAccepted()
+    {
+        assertThat(compression.selectEncoding(null), is(nullValue()));
+        assertThat(compression.selectEncoding("identity"), is(nullValue()));
+        assertThat(compression.selectEncoding("gzip;q=0, deflate;q=0"), is(nullValue()));
+    }
+
+    @Test
+    public void compressesMatchingMimeTypes()
+    {
+        assertThat(compression.isCompressible("GET", 200, "text/html; charset=UTF-8", -1), is(true));
+        assertThat(compression.isCompressible("GET", 200, "application/json", DEFAULT_MIN_SIZE), is(true));
+        assertThat(compression.isCompressible("GET", 200, "image/png", -1), is(false));
+        assertThat(compression.isCompressible("GET", 200, null, -1), is(false));
+    }
+
+    @Test
+    public void doesNotCompressSmallOrEmptyResponses()
+    {
+        assertThat(compression.isCompressible("GET", 200, "text/plain", DEFAULT_MIN_SIZE - 1), is(false));
+        assertThat(compression.isCompressible("HEAD", 200, "text/plain", -1), is(false));
+        assertThat(compression.isCompressible("GET", 204, "text/plain", -1), is(false));
+        assertThat(compression.isCompressible("GET", 304, "text/plain", -1), is(false));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mule.module.http.api.listener.ConcurrencyLimitStrategy.ADAPTIVE;
+import static org.mule.module.http.api.listener.ConcurrencyLimitStrategy.FIXED;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import org.junit.Test;
+
+@SmallTest
+public class ConcurrencyLimiterTestCase extends AbstractMuleTestCase
+{
+
+    private static final int MAX_LIMIT = 10;
+
+    @Test
+    public void fixedLimitRejectsOverMaximum()
+    {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(MAX_LIMIT, FIXED);
+        acquire(limiter, MAX_LIMIT);
+        assertThat(limiter.tryAcquire(), is(false));
+
+        limiter.release(MILLISECONDS.toNanos(500));
+        assertThat(limiter.tryAcquire(), is(true));
+        assertThat(limiter.getLimit(), is(MAX_LIMIT));
+        assertThat(limiter.getAdmittedRequests(), is((long) MAX_LIMIT + 1));
+        assertThat(limiter.getRejectedRequests(), is(1L));
+    }
+
+    @Test
+    public void adaptiveLimitDecreasesWhenLatencyGrows()
+    {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(MAX_LIMIT, ADAPTIVE);
+        complete(limiter, 5, 10);
+        complete(limiter, 20, 100);
+
+        int decreasedLimit = limiter.getLimit();
+        assertThat(decreasedLimit < MAX_LIMIT, is(true));
+        acquire(limiter, decreasedLimit);
+        assertThat(limiter.tryAcquire(), is(false));
+    }
+
+    @Test
+    public void adaptiveLimitDecreasesOnceForBurstOfSlowReleases()
+    {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(MAX_LIMIT, ADAPTIVE);
+        complete(limiter, 5, 10);
+
+        acquire(limiter, MAX_LIMIT);
+        for (int i = 0; i < MAX_LIMIT; i++)
+        {
+            limiter.release(MILLISECONDS.toNanos(1000));
+        }
+        int decreasedLimit = (int) (MAX_LIMIT * ConcurrencyLimiter.DECREASE_FACTOR);
+        assertThat(limiter.getLimit(), is(decreasedLimit));
+
+        complete(limiter, 1, 1000);
+        assertThat(limiter.getLimit(), is((int) (decreasedLimit * ConcurrencyLimiter.DECREASE_FACTOR)));
+    }
+
+    @Test
+    public void adaptiveLimitRecoversWhenLatencyDrops()
+    {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(MAX_LIMIT, ADAPTIVE);
+        complete(limiter, 5, 10);
+        complete(limiter, 20, 100);
+        assertThat(limiter.getLimit() < MAX_LIMIT, is(true));
+
+        for (int i = 0; i < 100; i++)
+        {
+            acquire(limiter, limiter.getLimit());
+            for (int j = limiter.getInFlightRequests(); j > 0; j--)
+            {
+                limiter.release(MILLISECONDS.toNanos(10));
+            }
+        }
+        assertThat(limiter.getLimit(), is(MAX_LIMIT));
+    }
+
+    @Test
+    public void adaptiveLimitNeverGoesBelowMinimum()
+    {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(MAX_LIMIT, ADAPTIVE);
+        complete(limiter, 1, 1);
+        complete(limiter, 200, 1000);
+        assertThat(limiter.getLimit(), is(ConcurrencyLimiter.MIN_LIMIT));
+    }
+
+    private void acquire(ConcurrencyLimiter limiter, int requests)
+    {
+        for (int i = 0; i < requests; i++)
+        {
+            assertThat(limiter.tryAcquire(), is(true));
+        }
+    }
+
+    private void complete(ConcurrencyLimiter limiter, int requests, long latencyMillis)
+    {
+        for (int i = 0; i < requests; i++)
+        {
+            assertThat(limiter.tryAcquire(), is(true));
+            limiter.release(MILLISECONDS.toNanos(latencyMillis));
+        }
+    }
+}
@@ -8,6 +8,7 @@ package org.mule.module.http.internal.listener;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.mule.module.http.internal.listener.DefaultHttpListenerConfig.DEFAULT_MAX_KEEP_ALIVE_REQUESTS;
 
 import org.mule.api.MuleContext;
 import org.mule.api.MuleException;
@@ -59,13 +60,13 @@ public class HttpListenerConnectionManagerTestCase extends AbstractMuleTestCase
         when((Object) (mockMuleContext.getRegistry().lookupObject(TcpServerSocketProperties.class))).thenReturn(mock(TcpServerSocketProperties.class));
 
         connectionManager.initialise();
-        connectionManager.createServer(new ServerAddress(firstIp, PORT), mockWorkManagerSource, false, CONNECTION_IDLE_TIMEOUT);
+        connectionManager.createServer(new ServerAddress(firstIp, PORT), mockWorkManagerSource, false, CONNECTION_IDLE_TIMEOUT, DEFAULT_MAX_KEEP_ALIVE_REQUESTS, false, null, null);
         expectedException.expect(MuleRuntimeException.class);
         expectedException.expectMessage(String.format(HttpListenerConnectionManager.SERVER_ALREADY_EXISTS_FORMAT, PORT, secondIp));
 
         try
         {
-            connectionManager.createServer(new ServerAddress(secondIp, PORT), mockWorkManagerSource, false, CONNECTION_IDLE_TIMEOUT);
+            connectionManager.createServer(new ServerAddress(secondIp, PORT), mockWorkManagerSource, false, CONNECTION_IDLE_TIMEOUT, DEFAULT_MAX_KEEP_ALIVE_REQUESTS, false, null, null);
         }
         finally
         {
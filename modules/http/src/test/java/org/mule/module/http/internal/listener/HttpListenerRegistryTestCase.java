@@ -283,6 +283,58 @@ public class HttpListenerRegistryTestCase extends AbstractMuleTestCase
         assertThat(requestHandler, is(instanceOf(NoListenerRequestHandler.class)));
     }
 
+    @Test
+    public void methodNotAllowed()
+    {
+        httpListenerRegistry = new HttpListenerRegistry();
+        httpListenerRegistry.addRequestHandler(testServer, mock(RequestHandler.class), new ListenerRequestMatcher(new MethodRequestMatcher(GET_METHOD), SECOND_LEVEL_URI_PARAM));
+        final HttpRequest mockRequest = createMockRequestWithPath(SECOND_LEVEL_URI_PARAM.replace(URI_PARAM, "1"));
+        when(mockRequest.getMethod()).thenReturn(POST_METHOD);
+        assertThat(httpListenerRegistry.getRequestHandler(TEST_IP, TEST_PORT, mockRequest), is(instanceOf(NoMethodRequestHandler.class)));
+    }
+
+    @Test
+    public void stoppedRequestHandlerIsUnavailable()
+    {
+        httpListenerRegistry = new HttpListenerRegistry();
+        RequestHandlerManager requestHandlerManager = httpListenerRegistry.addRequestHandler(testServer, mockRequestHandler, new ListenerRequestMatcher(AcceptsAllMethodsRequestMatcher.instance(), ANOTHER_PATH));
+        requestHandlerManager.stop();
+        assertThat(httpListenerRegistry.getRequestHandler(TEST_IP, TEST_PORT, createMockRequestWithPath(ANOTHER_PATH)), is(instanceOf(ServiceTemporarilyUnavailableListenerRequestHandler.class)));
+        requestHandlerManager.start();
+        assertThat(httpListenerRegistry.getRequestHandler(TEST_IP, TEST_PORT, createMockRequestWithPath(ANOTHER_PATH)), is(mockRequestHandler));
+    }
+
+    @Test
+    public void disposedRequestHandlerIsNotRouted()
+    {
+        httpListenerRegistry = new HttpListenerRegistry();
+        RequestHandlerManager requestHandlerManager = httpListenerRegistry.addRequestHandler(testServer, mockRequestHandler, new ListenerRequestMatcher(AcceptsAllMethodsRequestMatcher.instance(), SECOND_LEVEL_URI_PARAM));
+        final String requestPath = SECOND_LEVEL_URI_PARAM.replace(URI_PARAM, "1");
+        assertThat(httpListenerRegistry.getRequestHandler(TEST_IP, TEST_PORT, createMockRequestWithPath(requestPath)), is(mockRequestHandler));
+        requestHandlerManager.dispose();
+        assertThat(httpListenerRegistry.getRequestHandler(TEST_IP, TEST_PORT, createMockRequestWithPath(requestPath)), is(instanceOf(NoListenerRequestHandler.class)));
+    }
+
+    @Test
+    public void routeWithManyRegisteredPaths()
+    {
+        httpListenerRegistry = new HttpListenerRegistry();
+        final int paths = 2000;
+        for (int i = 0; i < paths; i++)
+        {
+            requestHandlerPerPath.put("/resource" + i + PATH_SEPARATOR + URI_PARAM, mock(RequestHandler.class));
+        }
+        for (String path : requestHandlerPerPath.keySet())
+        {
+            httpListenerRegistry.addRequestHandler(testServer, requestHandlerPerPath.get(path), new ListenerRequestMatcher(AcceptsAllMethodsRequestMatcher.instance(), path));
+        }
+        for (int i = 0; i < paths; i++)
+        {
+            routePath("/resource" + i + "/" + i, "/resource" + i + PATH_SEPARATOR + URI_PARAM);
+        }
+        assertThat(httpListenerRegistry.getRequestHandler(TEST_IP, TEST_PORT, createMockRequestWithPath("/resource" + paths + "/1")), is(instanceOf(NoListenerRequestHandler.class)));
+    }
+
     private void routePath(String requestPath, String listenerPath)
     {
         assertThat(httpListenerRegistry.getRequestHandler(TEST_IP, TEST_PORT, createMockRequestWithPath(requestPath)), is(requestHandlerPerPath.get(listenerPath)));
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener.grizzly;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.util.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.lang.RandomStringUtils;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.CloseListener;
+import org.glassfish.grizzly.CloseType;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.http.HttpContent;
+import org.glassfish.grizzly.http.HttpHeader;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.ByteBufferWrapper;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@SmallTest
+@RunWith(MockitoJUnitRunner.class)
+public class DeflateContentEncodingTestCase extends AbstractMuleTestCase
+{
+
+    private static final String CONTENT = RandomStringUtils.randomAlphanumeric(64 * 1024);
+
+    @Mock
+    private Connection connection;
+
+    private HttpHeader header;
+
+    @Before
+    public void before()
+    {
+        when(connection.getMemoryManager()).thenReturn(MemoryManager.DEFAULT_MEMORY_MANAGER);
+        header = HttpResponsePacket.builder(HttpRequestPacket.builder().method("GET").uri("/").protocol("HTTP/1.1").build()).build();
+    }
+
+    @Test
+    public void deflatedContentIsInflatedBack() throws IOException
+    {
+        byte[] encoded = encode(new DeflateContentEncoding());
+        assertThat(IOUtils.toString(new InflaterInputStream(new ByteArrayInputStream(encoded))), is(CONTENT));
+    }
+
+    @Test
+    public void gzippedContentIsInflatedBack() throws IOException
+    {
+        byte[] encoded = encode(new GzipContentEncoding());
+        assertThat(IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(encoded))), is(CONTENT));
+    }
+
+    @Test
+    public void decodesDeflatedContent() throws IOException
+    {
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+        DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(deflated);
+        deflaterOutputStream.write(CONTENT.getBytes());
+        deflaterOutputStream.close();
+        byte[] bytes = deflated.toByteArray();
+        int half = bytes.length / 2;
+
+        DeflateContentEncoding encoding = new DeflateContentEncoding();
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        decoded.write(toBytes(encoding.decode(connection, content(Buffers.wrap(null, bytes, 0, half), false)).getHttpContent()));
+        decoded.write(toBytes(encoding.decode(connection, content(Buffers.wrap(null, bytes, half, bytes.length - half), true)).getHttpContent()));
+        assertThat(new String(decoded.toByteArray()), is(CONTENT));
+    }
+
+    @Test
+    public void deflaterIsEndedWhenConnectionIsClosedBeforeLastContent() throws IOException
+    {
+        final EndTrackingDeflater deflater = new EndTrackingDeflater();
+        DeflateContentEncoding encoding = new DeflateContentEncoding()
+        {
+            @Override
+            protected Deflater createDeflater()
+            {
+                return deflater;
+            }
+        };
+        encoding.encode(connection, content(Buffers.wrap(null, CONTENT.getBytes()), false));
+        assertThat(deflater.ended, is(false));
+
+        ArgumentCaptor<CloseListener> closeListener = ArgumentCaptor.forClass(CloseListener.class);
+        verify(connection).addCloseListener(closeListener.capture());
+        closeListener.getValue().onClosed(connection, CloseType.REMOTELY);
+        assertThat(deflater.ended, is(true));
+    }
+
+    @Test
+    public void closeListenerIsRemovedWhenLastContentIsEncoded()
+    {
+        new DeflateContentEncoding().encode(connection, content(Buffers.wrap(null, CONTENT.getBytes()), true));
+        verify(connection).removeCloseListener(any(CloseListener.class));
+    }
+
+    /**
+     * Encodes the content in three parts: a heap buffer, a direct buffer and an empty last content.
+     */
+    private byte[] encode(DeflateContentEncoding encoding) throws IOException
+    {
+        byte[] bytes = CONTENT.getBytes();
+        int half = bytes.length / 2;
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length - half);
+        direct.put(bytes, half, bytes.length - half).flip();
+
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        encoded.write(toBytes(encoding.encode(connection, content(Buffers.wrap(null, bytes, 0, half), false))));
+        encoded.write(toBytes(encoding.encode(connection, content(new ByteBufferWrapper(direct), false))));
+        encoded.write(toBytes(encoding.encode(connection, content(Buffers.EMPTY_BUFFER, true))));
+        return encoded.toByteArray();
+    }
+
+    private HttpContent content(Buffer buffer, boolean last)
+    {
+        return HttpContent.builder(header).content(buffer).last(last).build();
+    }
+
+    private byte[] toBytes(HttpContent httpContent) throws IOException
+    {
+        Buffer buffer = httpContent.getContent();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static class EndTrackingDeflater extends Deflater
+    {
+
+        private boolean ended;
+
+        @Override
+        public void end()
+        {
+            ended = true;
+            super.end();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.multipart;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.probe.JUnitProbe;
+import org.mule.tck.probe.PollingProber;
+import org.mule.tck.size.SmallTest;
+import org.mule.util.IOUtils;
+
+import java.io.File;
+import java.io.InputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SmallTest
+public class PartContentBufferTestCase extends AbstractMuleTestCase
+{
+
+    private static final byte[] CONTENT = "part content".getBytes();
+
+    @Rule
+    public TemporaryFolder tempDirectory = new TemporaryFolder();
+
+    @Test
+    public void keepsSmallContentInMemory() throws Exception
+    {
+        PartContentBuffer buffer = writeContent(CONTENT.length);
+        assertThat(buffer.getFile(), is(nullValue()));
+        assertContent(buffer);
+    }
+
+    @Test
+    public void spillsLargeContentToFile() throws Exception
+    {
+        PartContentBuffer buffer = writeContent(CONTENT.length - 1);
+        File file = buffer.getFile();
+        assertThat(file, is(notNullValue()));
+        assertContent(buffer);
+
+        buffer.delete();
+        assertThat(file.exists(), is(false));
+    }
+
+    @Test
+    public void spillsToTempDirectory() throws Exception
+    {
+        File directory = new File(tempDirectory.getRoot(), "parts");
+        PartContentBuffer buffer = new PartContentBuffer(0, directory);
+        buffer.write(CONTENT);
+        buffer.close();
+
+        assertThat(buffer.getFile().getParentFile(), is(directory));
+        assertContent(buffer);
+    }
+
+    @Test
+    public void keepsFileWhileItsContentIsRead() throws Exception
+    {
+        PartContentBuffer buffer = writeContent(CONTENT.length - 1);
+        File file = buffer.getFile();
+        try (InputStream content = buffer.getInputStream())
+        {
+            buffer = null;
+            for (int i = 0; i < 5; i++)
+            {
+                System.gc();
+                Thread.sleep(20);
+            }
+            assertThat(file.exists(), is(true));
+            assertThat(IOUtils.toByteArray(content), is(CONTENT));
+        }
+    }
+
+    @Test
+    public void deletesTempFilesOfDirectory() throws Exception
+    {
+        File file = writeContent(CONTENT.length - 1).getFile();
+        File leftover = File.createTempFile("mule-http-part", null, tempDirectory.getRoot());
+        File other = tempDirectory.newFile("other");
+
+        PartContentBuffer.deleteTempFiles(tempDirectory.getRoot());
+
+        assertThat(file.exists(), is(false));
+        assertThat(leftover.exists(), is(false));
+        assertThat(other.exists(), is(true));
+    }
+
+    @Test
+    public void deletesFileOfUnreachableBuffer() throws Exception
+    {
+        final File file = writeContent(CONTENT.length - 1).getFile();
+        assertThat(file.exists(), is(true));
+
+        new PollingProber(10000, 100).check(new JUnitProbe()
+        {
+            @Override
+            protected boolean test() throws Exception
+            {
+                System.gc();
+                return !file.exists();
+            }
+
+            @Override
+            public String describeFailure()
+            {
+                return "The temporary file of the unreachable buffer should have been deleted.";
+            }
+        });
+    }
+
+    private PartContentBuffer writeContent(long inMemoryThreshold) throws Exception
+    {
+        PartContentBuffer buffer = new PartContentBuffer(inMemoryThreshold, tempDirectory.getRoot());
+        buffer.write(CONTENT);
+        buffer.close();
+        return buffer;
+    }
+
+    private void assertContent(PartContentBuffer buffer) throws Exception
+    {
+        try (InputStream content = buffer.getInputStream())
+        {
+            assertThat(IOUtils.toByteArray(content), is(CONTENT));
+        }
+        assertThat(buffer.getSize(), is((long) CONTENT.length));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.request.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.mule.api.store.ObjectStoreException;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.util.store.SimpleMemoryObjectStore;
+
+import java.io.Serializable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+@SmallTest
+public class ResponseCacheTestCase extends AbstractMuleTestCase
+{
+
+    private static final long TIMEOUT = 5;
+
+    private final CountDownLatch storeStarted = new CountDownLatch(1);
+    private final CountDownLatch storeReleased = new CountDownLatch(1);
+    private final BlockingObjectStore objectStore = new BlockingObjectStore();
+    private final ResponseCache cache = new ResponseCache(1, objectStore);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final CachedResponse first = mock(CachedResponse.class);
+    private final CachedResponse second = mock(CachedResponse.class);
+
+    @After
+    public void after()
+    {
+        storeReleased.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void evictedEntriesAreMovedToTheObjectStoreAndBack() throws Exception
+    {
+        storeReleased.countDown();
+        cache.put("first", first);
+        cache.put("second", second);
+        assertThat(objectStore.contains("first"), is(true));
+
+        assertThat(cache.get("first"), is(sameInstance(first)));
+        assertThat(objectStore.contains("first"), is(false));
+        assertThat(objectStore.contains("second"), is(true));
+    }
+
+    @Test
+    public void memoryEntriesAreServedWhileTheObjectStoreIsBusy() throws Exception
+    {
+        cache.put("first", first);
+        Future<?> eviction = evictFirstInBackground();
+
+        assertThat(cache.get("second"), is(sameInstance(second)));
+        assertThat(cache.get("first"), is(sameInstance(first)));
+
+        storeReleased.countDown();
+        eviction.get(TIMEOUT, TimeUnit.SECONDS);
+        assertThat(objectStore.contains("first"), is(false));
+    }
+
+    @Test
+    public void entriesRemovedWhileBeingStoredAreNotKept() throws Exception
+    {
+        cache.put("first", first);
+        Future<?> eviction = evictFirstInBackground();
+
+        cache.remove("first");
+        storeReleased.countDown();
+        eviction.get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertThat(objectStore.contains("first"), is(false));
+        assertThat(cache.get("first"), is(nullValue()));
+    }
+
+    private Future<?> evictFirstInBackground() throws InterruptedException
+    {
+        Future<?> eviction = executor.submit(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                cache.put("second", second);
+            }
+        });
+        assertThat(storeStarted.await(TIMEOUT, TimeUnit.SECONDS), is(true));
+        return eviction;
+    }
+
+    private class BlockingObjectStore extends SimpleMemoryObjectStore<Serializable>
+    {
+
+        @Override
+        protected void doStore(Serializable key, Serializable value) throws ObjectStoreException
+        {
+            if ("first".equals(key))
+            {
+                storeStarted.countDown();
+                try
+                {
+                    storeReleased.await(TIMEOUT, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            super.doStore(key, value);
+        }
+    }
+}
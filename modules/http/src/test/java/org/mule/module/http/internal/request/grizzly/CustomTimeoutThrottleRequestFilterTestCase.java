@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.request.grizzly;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import org.mule.module.http.internal.request.ConnectionPoolStatistics;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import com.ning.http.client.AsyncHandler;
+import com.ning.http.client.RequestBuilder;
+import com.ning.http.client.filter.FilterContext;
+import com.ning.http.client.filter.FilterException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+@SmallTest
+public class CustomTimeoutThrottleRequestFilterTestCase extends AbstractMuleTestCase
+{
+
+    private static final int MAX_CONNECTIONS = 2;
+    private static final int MAX_CONNECTIONS_PER_HOST = 1;
+    private static final int CONNECTION_WAIT_TIMEOUT = 10;
+
+    @Mock
+    private AsyncHandler<Object> asyncHandler;
+
+    private CustomTimeoutThrottleRequestFilter filter = new CustomTimeoutThrottleRequestFilter(MAX_CONNECTIONS, MAX_CONNECTIONS_PER_HOST, CONNECTION_WAIT_TIMEOUT,
+                                                                                               new ConnectionPoolStatistics(MAX_CONNECTIONS, MAX_CONNECTIONS_PER_HOST));
+
+    @Test
+    public void hostPermitsAreDroppedWhenRequestCompletes() throws Exception
+    {
+        FilterContext<Object> first = filter.filter(createContext("http://host1/path"));
+        FilterContext<Object> second = filter.filter(createContext("http://host2/path"));
+        assertThat(filter.getHostsCount(), is(2));
+
+        first.getAsyncHandler().onCompleted();
+        assertThat(filter.getHostsCount(), is(1));
+        second.getAsyncHandler().onThrowable(new Exception());
+        assertThat(filter.getHostsCount(), is(0));
+    }
+
+    @Test
+    public void hostPermitsAreDroppedWhenNoSlotIsAvailable() throws Exception
+    {
+        filter.filter(createContext("http://host1/path"));
+        filter.filter(createContext("http://host2/path"));
+        assertNoSlotAvailable("http://host3/path");
+        assertThat(filter.getHostsCount(), is(2));
+    }
+
+    @Test
+    public void hostLimitIsKeptUntilRequestCompletes() throws Exception
+    {
+        FilterContext<Object> first = filter.filter(createContext("http://host1/path"));
+        assertNoSlotAvailable("http://host1/other");
+        assertThat(filter.getHostsCount(), is(1));
+
+        first.getAsyncHandler().onCompleted();
+        filter.filter(createContext("http://host1/other"));
+        assertNoSlotAvailable("http://host1/path");
+    }
+
+    private void assertNoSlotAvailable(String url)
+    {
+        try
+        {
+            filter.filter(createContext(url));
+            fail("No slot should be available for " + url);
+        }
+        catch (FilterException e)
+        {
+            // expected
+        }
+    }
+
+    private FilterContext<Object> createContext(String url)
+    {
+        return new FilterContext.FilterContextBuilder<Object>().asyncHandler(asyncHandler).request(new RequestBuilder("GET").setUrl(url).build()).build();
+    }
+}
@@ -11,6 +11,7 @@ import org.mule.api.config.MuleProperties;
 import org.mule.api.context.MuleContextAware;
 import org.mule.api.store.QueueStore;
 import org.mule.config.QueueProfile;
+import org.mule.util.queue.DefaultQueueConfiguration;
 
 import java.io.Serializable;
 
@@ -21,6 +22,7 @@ public class QueueProfileFactoryBean extends AbstractFactoryBean<QueueProfile> i
     private int maxOutstandingMessages;
     private MuleContext muleContext;
     private QueueStore<Serializable> queueStore;
+    private boolean segmentedLog = Boolean.getBoolean(DefaultQueueConfiguration.SEGMENTED_LOG_PROPERTY_KEY);
 
     @Override
     public Class<?> getObjectType()
@@ -37,7 +39,9 @@ public class QueueProfileFactoryBean extends AbstractFactoryBean<QueueProfile> i
             objectStore = muleContext.getRegistry().lookupObject(MuleProperties.QUEUE_STORE_DEFAULT_IN_MEMORY_NAME);
         }
 
-        return new QueueProfile(getMaxOutstandingMessages(), objectStore);
+        QueueProfile queueProfile = new QueueProfile(getMaxOutstandingMessages(), objectStore);
+        queueProfile.setSegmentedLog(segmentedLog);
+        return queueProfile;
     }
 
     @Override
@@ -65,6 +69,16 @@ public class QueueProfileFactoryBean extends AbstractFactoryBean<QueueProfile> i
     {
         return queueStore;
     }
+
+    public boolean isSegmentedLog()
+    {
+        return segmentedLog;
+    }
+
+    public void setSegmentedLog(boolean segmentedLog)
+    {
+        this.segmentedLog = segmentedLog;
+    }
 }
 
 
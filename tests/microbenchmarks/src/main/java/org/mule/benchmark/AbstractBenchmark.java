@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.benchmark;
+
+import org.mule.DefaultMuleEvent;
+import org.mule.DefaultMuleMessage;
+import org.mule.MessageExchangePattern;
+import org.mule.api.MuleContext;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.config.DefaultMuleConfiguration;
+import org.mule.config.builders.DefaultsConfigurationBuilder;
+import org.mule.construct.Flow;
+import org.mule.context.DefaultMuleContextBuilder;
+import org.mule.context.DefaultMuleContextFactory;
+import org.mule.util.FileUtils;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base class for benchmarks that need a started {@link MuleContext}. Every benchmark runs with the
+ * same fork, warm up and measurement settings and builds its fixtures from constant data, so that
+ * results are comparable between runs and between releases.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public abstract class AbstractBenchmark
+{
+
+    protected static final String PAYLOAD = "{\"id\":1,\"name\":\"benchmark\",\"items\":[\"one\",\"two\",\"three\"]}";
+    protected static final String FLOW_NAME = "benchmark";
+
+    protected MuleContext muleContext;
+    protected Flow flow;
+    private File workingDirectory;
+
+    @Setup(Level.Trial)
+    public void setUpMuleContext() throws Exception
+    {
+        workingDirectory = File.createTempFile("mule-benchmark", "");
+        workingDirectory.delete();
+        workingDirectory.mkdirs();
+
+        DefaultMuleConfiguration configuration = new DefaultMuleConfiguration();
+        configuration.setWorkingDirectory(workingDirectory.getAbsolutePath());
+        DefaultMuleContextBuilder contextBuilder = new DefaultMuleContextBuilder();
+        contextBuilder.setMuleConfiguration(configuration);
+
+        muleContext = new DefaultMuleContextFactory().createMuleContext(new DefaultsConfigurationBuilder(), contextBuilder);
+        flow = new Flow(FLOW_NAME, muleContext);
+        muleContext.getRegistry().registerFlowConstruct(flow);
+        muleContext.start();
+
+        doSetUp();
+    }
+
+    /**
+     * Creates the fixtures of the benchmark once the {@link MuleContext} is started.
+     */
+    protected void doSetUp() throws Exception
+    {
+        // template method
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownMuleContext() throws Exception
+    {
+        if (muleContext != null)
+        {
+            muleContext.dispose();
+        }
+        FileUtils.deleteTree(workingDirectory);
+    }
+
+    protected MuleMessage createMuleMessage()
+    {
+        return new DefaultMuleMessage(PAYLOAD, muleContext);
+    }
+
+    protected MuleEvent createMuleEvent()
+    {
+        return new DefaultMuleEvent(createMuleMessage(), MessageExchangePattern.REQUEST_RESPONSE, flow);
+    }
+
+    /**
+     * Creates an event with the given number of flow variables and outbound properties.
+     */
+    protected MuleEvent createMuleEventWithProperties(int numProperties)
+    {
+        MuleEvent event = createMuleEvent();
+        for (int i = 0; i < numProperties; i++)
+        {
+            event.setFlowVariable("flowVar" + i, "value" + i);
+            event.getMessage().setOutboundProperty("outboundProperty" + i, "value" + i);
+        }
+        return event;
+    }
+}
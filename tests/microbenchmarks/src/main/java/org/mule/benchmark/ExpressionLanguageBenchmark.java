@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.benchmark;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.expression.ExpressionManager;
+import org.mule.expression.CompiledExpression;
+import org.mule.expression.CompiledExpressionFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures evaluation of typical MEL expressions through the {@link ExpressionManager}, both from the
+ * expression string and through a {@link CompiledExpression} obtained once at set up.
+ */
+@State(Scope.Benchmark)
+public class ExpressionLanguageBenchmark extends AbstractBenchmark
+{
+
+    private ExpressionManager expressionManager;
+    private MuleEvent event;
+    private CompiledExpression compiledFlowVar;
+    private CompiledExpression compiledCondition;
+
+    @Override
+    protected void doSetUp() throws Exception
+    {
+        expressionManager = muleContext.getExpressionManager();
+        event = createMuleEventWithProperties(10);
+        CompiledExpressionFactory compiledExpressionFactory = (CompiledExpressionFactory) expressionManager;
+        compiledFlowVar = compiledExpressionFactory.compile("#[flowVars.flowVar5]");
+        compiledCondition = compiledExpressionFactory.compile("#[payload.length() > 10 && flowVars.flowVar1 == 'value1']");
+    }
+
+    @Benchmark
+    public Object payload()
+    {
+        return expressionManager.evaluate("#[payload]", event);
+    }
+
+    @Benchmark
+    public Object flowVar()
+    {
+        return expressionManager.evaluate("#[flowVars.flowVar5]", event);
+    }
+
+    @Benchmark
+    public Object compiledFlowVar()
+    {
+        return compiledFlowVar.evaluate(event);
+    }
+
+    @Benchmark
+    public Object outboundProperty()
+    {
+        return expressionManager.evaluate("#[message.outboundProperties.outboundProperty5]", event);
+    }
+
+    @Benchmark
+    public Object condition()
+    {
+        return expressionManager.evaluateBoolean("#[payload.length() > 10 && flowVars.flowVar1 == 'value1']", event);
+    }
+
+    @Benchmark
+    public Object compiledCondition()
+    {
+        return compiledCondition.evaluateBoolean(event, false, false);
+    }
+
+    @Benchmark
+    public Object stringTemplate()
+    {
+        return expressionManager.parse("id=#[flowVars.flowVar1], property=#[message.outboundProperties.outboundProperty2]", event);
+    }
+}
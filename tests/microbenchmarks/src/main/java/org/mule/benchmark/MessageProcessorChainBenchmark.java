@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.benchmark;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.api.processor.MessageProcessorChain;
+import org.mule.processor.chain.DefaultMessageProcessorChain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the overhead of executing a {@link DefaultMessageProcessorChain} made of processors
+ * that do no work themselves.
+ */
+@State(Scope.Benchmark)
+public class MessageProcessorChainBenchmark extends AbstractBenchmark
+{
+
+    @Param({"1", "10", "50"})
+    public int chainLength;
+
+    private MessageProcessorChain chain;
+    private MuleEvent event;
+
+    @Override
+    protected void doSetUp() throws Exception
+    {
+        List<MessageProcessor> processors = new ArrayList<>(chainLength);
+        for (int i = 0; i < chainLength; i++)
+        {
+            processors.add(new PassThroughMessageProcessor());
+        }
+        chain = DefaultMessageProcessorChain.from(processors);
+        event = createMuleEvent();
+    }
+
+    @Benchmark
+    public MuleEvent process() throws MuleException
+    {
+        return chain.process(event);
+    }
+
+    private static class PassThroughMessageProcessor implements MessageProcessor
+    {
+
+        @Override
+        public MuleEvent process(MuleEvent event) throws MuleException
+        {
+            return event;
+        }
+    }
+}
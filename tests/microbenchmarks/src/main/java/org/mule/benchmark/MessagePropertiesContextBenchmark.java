@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.benchmark;
+
+import org.mule.MessagePropertiesContext;
+import org.mule.api.transport.PropertyScope;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures property lookups and updates on a {@link MessagePropertiesContext}, including the case
+ * insensitive lookups done for transport headers. It does not need a {@link org.mule.api.MuleContext},
+ * so it uses the settings of {@link AbstractBenchmark} without extending it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class MessagePropertiesContextBenchmark
+{
+
+    @Param({"10", "50"})
+    public int numProperties;
+
+    private MessagePropertiesContext properties;
+    private String existingKey;
+    private String existingKeyOtherCase;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        properties = new MessagePropertiesContext();
+        for (int i = 0; i < numProperties; i++)
+        {
+            properties.setProperty("Property" + i, "value" + i, PropertyScope.OUTBOUND);
+            properties.setProperty("Property" + i, "value" + i, PropertyScope.INBOUND);
+        }
+        existingKey = "Property" + numProperties / 2;
+        existingKeyOtherCase = existingKey.toUpperCase();
+    }
+
+    @Benchmark
+    public Object getOutboundProperty()
+    {
+        return properties.getProperty(existingKey, PropertyScope.OUTBOUND);
+    }
+
+    @Benchmark
+    public Object getInboundPropertyIgnoringCase()
+    {
+        return properties.getProperty(existingKeyOtherCase, PropertyScope.INBOUND);
+    }
+
+    @Benchmark
+    public Object getMissingProperty()
+    {
+        return properties.getProperty("missing", PropertyScope.OUTBOUND);
+    }
+
+    @Benchmark
+    public MessagePropertiesContext copyAndSetProperty()
+    {
+        MessagePropertiesContext copy = new MessagePropertiesContext(properties);
+        copy.setProperty(existingKey, "newValue", PropertyScope.OUTBOUND);
+        return copy;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.benchmark;
+
+import org.mule.DefaultMuleEvent;
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.api.ThreadSafeAccess;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures copying of {@link DefaultMuleEvent} and {@link DefaultMuleMessage} instances holding a
+ * varying number of flow variables and message properties.
+ */
+@State(Scope.Benchmark)
+public class MuleEventCopyBenchmark extends AbstractBenchmark
+{
+
+    @Param({"0", "10", "50"})
+    public int numProperties;
+
+    private MuleEvent event;
+
+    @Override
+    protected void doSetUp() throws Exception
+    {
+        event = createMuleEventWithProperties(numProperties);
+    }
+
+    @Benchmark
+    public MuleEvent copyEvent()
+    {
+        return DefaultMuleEvent.copy(event);
+    }
+
+    @Benchmark
+    public Object newThreadCopy()
+    {
+        return ((ThreadSafeAccess) event).newThreadCopy();
+    }
+
+    @Benchmark
+    public MuleEvent newThreadCopyAndWrite()
+    {
+        MuleEvent copy = (MuleEvent) ((ThreadSafeAccess) event).newThreadCopy();
+        copy.setFlowVariable("newFlowVar", "value");
+        copy.getMessage().setOutboundProperty("newOutboundProperty", "value");
+        return copy;
+    }
+
+    @Benchmark
+    public MuleMessage copyMessage()
+    {
+        return new DefaultMuleMessage(event.getMessage());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.benchmark;
+
+import org.mule.api.config.MuleProperties;
+import org.mule.api.store.ObjectStore;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.api.store.ObjectStoreManager;
+
+import java.io.Serializable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the default in memory and persistent object stores, as used by components such as the
+ * idempotent message filter and the aggregators.
+ */
+@State(Scope.Benchmark)
+public class ObjectStoreBenchmark extends AbstractBenchmark
+{
+
+    private static final int NUM_KEYS = 1000;
+
+    @Param({"false", "true"})
+    public boolean persistent;
+
+    private ObjectStore<Serializable> objectStore;
+    private String[] keys;
+    private int next;
+
+    @Override
+    protected void doSetUp() throws Exception
+    {
+        ObjectStoreManager objectStoreManager = muleContext.getRegistry().lookupObject(MuleProperties.OBJECT_STORE_MANAGER);
+        objectStore = objectStoreManager.getObjectStore("benchmark", persistent);
+
+        keys = new String[NUM_KEYS];
+        for (int i = 0; i < NUM_KEYS; i++)
+        {
+            keys[i] = "key" + i;
+            objectStore.store(keys[i], PAYLOAD);
+        }
+    }
+
+    @Benchmark
+    public Serializable retrieve() throws ObjectStoreException
+    {
+        return objectStore.retrieve(nextKey());
+    }
+
+    @Benchmark
+    public boolean contains() throws ObjectStoreException
+    {
+        return objectStore.contains(nextKey());
+    }
+
+    @Benchmark
+    public Serializable removeAndStore() throws ObjectStoreException
+    {
+        String key = nextKey();
+        Serializable value = objectStore.remove(key);
+        objectStore.store(key, value);
+        return value;
+    }
+
+    private String nextKey()
+    {
+        next = (next + 1) % NUM_KEYS;
+        return keys[next];
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.benchmark;
+
+import org.mule.api.transformer.DataType;
+import org.mule.api.transformer.Transformer;
+import org.mule.api.transformer.TransformerException;
+import org.mule.transformer.types.DataTypeFactory;
+
+import java.io.InputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures transformer resolution through the registry for source and result types that have
+ * a direct transformer and for types that need a transformer chain.
+ */
+@State(Scope.Benchmark)
+public class TransformerLookupBenchmark extends AbstractBenchmark
+{
+
+    private static final DataType<String> STRING = DataTypeFactory.create(String.class);
+    private static final DataType<byte[]> BYTE_ARRAY = DataTypeFactory.create(byte[].class);
+    private static final DataType<InputStream> INPUT_STREAM = DataTypeFactory.create(InputStream.class);
+
+    @Benchmark
+    public Transformer lookupDirectTransformer() throws TransformerException
+    {
+        return muleContext.getRegistry().lookupTransformer(STRING, BYTE_ARRAY);
+    }
+
+    @Benchmark
+    public Transformer lookupInputStreamToString() throws TransformerException
+    {
+        return muleContext.getRegistry().lookupTransformer(INPUT_STREAM, STRING);
+    }
+
+    @Benchmark
+    public Transformer lookupSameType() throws TransformerException
+    {
+        return muleContext.getRegistry().lookupTransformer(STRING, STRING);
+    }
+}
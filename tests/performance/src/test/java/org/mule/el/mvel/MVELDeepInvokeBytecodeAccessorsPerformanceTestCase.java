@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.el.mvel;
+
+import org.mule.tck.junit4.rule.SystemProperty;
+
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.Required;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Runs the same deep invocation scenarios as {@link MVELDeepInvokePerformanceTestCase} with byte-code
+ * generated MEL accessors enabled, so that both reports can be compared. Cold starts never reach the
+ * threshold for generating accessors, while warm and hot starts run on generated ones, so the required
+ * medians are tighter than the reflective ones.
+ */
+public class MVELDeepInvokeBytecodeAccessorsPerformanceTestCase extends MVELDeepInvokePerformanceTestCase
+{
+
+    @Rule
+    public SystemProperty bytecodeAccessors = new SystemProperty(MVELExpressionExecutor.MEL_BYTECODE_ACCESSORS, "true");
+
+    @Override
+    @Test
+    @PerfTest(duration = 30000, threads = 1, warmUp = 10000)
+    @Required(median = 1000)
+    public void mvelColdStart()
+    {
+        super.mvelColdStart();
+    }
+
+    @Override
+    @Test
+    @PerfTest(duration = 30000, threads = 1, warmUp = 10000)
+    @Required(median = 5)
+    public void mvelWarmStart()
+    {
+        super.mvelWarmStart();
+    }
+
+    @Override
+    @Test
+    @PerfTest(duration = 30000, threads = 1, warmUp = 10000)
+    @Required(median = 5)
+    public void mvelHotStart()
+    {
+        super.mvelHotStart();
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.http.internal.listener;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import org.mule.module.http.internal.domain.request.HttpRequest;
+import org.mule.module.http.internal.domain.request.HttpRequestBuilder;
+import org.mule.module.http.internal.listener.async.RequestHandler;
+import org.mule.module.http.internal.listener.matcher.AcceptsAllMethodsRequestMatcher;
+import org.mule.module.http.internal.listener.matcher.ListenerRequestMatcher;
+import org.mule.module.http.internal.listener.matcher.MethodRequestMatcher;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Routes requests with a registry holding thousands of listeners, most of them with uri
+ * parameters, which is what APIs with many resources usually look like.
+ */
+public class HttpListenerRegistryPerformanceTestCase extends AbstractMuleTestCase
+{
+
+    private static final String IP = "0.0.0.0";
+    private static final int PORT = 8081;
+    private static final int RESOURCES = 2500;
+
+    @Rule
+    public ContiPerfRule rule = new ContiPerfRule();
+
+    private final HttpListenerRegistry registry = new HttpListenerRegistry();
+    private final RequestHandler[] getHandlers = new RequestHandler[RESOURCES];
+    private final RequestHandler[] postHandlers = new RequestHandler[RESOURCES];
+    private final HttpRequest[] requests = new HttpRequest[RESOURCES * 3];
+    private final RequestHandler[] expectedHandlers = new RequestHandler[RESOURCES * 3];
+
+    @Override
+    public int getTestTimeoutSecs()
+    {
+        return 180;
+    }
+
+    @Before
+    public void before()
+    {
+        Server server = new TestServer();
+        RequestHandler catchAllHandler = mock(RequestHandler.class);
+        registry.addRequestHandler(server, catchAllHandler, new ListenerRequestMatcher(AcceptsAllMethodsRequestMatcher.instance(), "/*"));
+        for (int i = 0; i < RESOURCES; i++)
+        {
+            getHandlers[i] = mock(RequestHandler.class);
+            postHandlers[i] = mock(RequestHandler.class);
+            registry.addRequestHandler(server, getHandlers[i], new ListenerRequestMatcher(new MethodRequestMatcher("GET"), "/api/resource" + i + "/{id}"));
+            registry.addRequestHandler(server, postHandlers[i], new ListenerRequestMatcher(new MethodRequestMatcher("POST"), "/api/resource" + i + "/{id}"));
+            registry.addRequestHandler(server, getHandlers[i], new ListenerRequestMatcher(AcceptsAllMethodsRequestMatcher.instance(), "/api/resource" + i + "/{id}/items/*"));
+        }
+
+        for (int i = 0; i < RESOURCES; i++)
+        {
+            requests[i * 3] = createRequest("GET", "/api/resource" + i + "/" + i);
+            expectedHandlers[i * 3] = getHandlers[i];
+            requests[i * 3 + 1] = createRequest("POST", "/api/resource" + i + "/" + i);
+            expectedHandlers[i * 3 + 1] = postHandlers[i];
+            requests[i * 3 + 2] = createRequest("GET", "/api/other" + i + "/" + i);
+            expectedHandlers[i * 3 + 2] = catchAllHandler;
+        }
+        route();
+    }
+
+    @Test
+    @PerfTest(duration = 15000, threads = 1, warmUp = 5000)
+    public void singleThread()
+    {
+        route();
+    }
+
+    @Test
+    @PerfTest(duration = 15000, threads = 10, warmUp = 5000)
+    public void tenThreads()
+    {
+        route();
+    }
+
+    @Test
+    @PerfTest(duration = 15000, threads = 50, warmUp = 5000)
+    public void fiftyThreads()
+    {
+        route();
+    }
+
+    private void route()
+    {
+        for (int i = 0; i < requests.length; i++)
+        {
+            assertSame(expectedHandlers[i], registry.getRequestHandler(IP, PORT, requests[i]));
+        }
+    }
+
+    private HttpRequest createRequest(String method, String path)
+    {
+        return new HttpRequestBuilder().setMethod(method).setUri(path).build();
+    }
+
+    private static class TestServer implements Server
+    {
+
+        private final ServerAddress serverAddress = new ServerAddress(IP, PORT);
+
+        @Override
+        public void start()
+        {
+        }
+
+        @Override
+        public void stop()
+        {
+        }
+
+        @Override
+        public ServerAddress getServerAddress()
+        {
+            return serverAddress;
+        }
+
+        @Override
+        public boolean isStopping()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isStopped()
+        {
+            return false;
+        }
+
+        @Override
+        public RequestHandlerManager addRequestHandler(ListenerRequestMatcher listenerRequestMatcher, RequestHandler requestHandler)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.routing;
+
+import org.mule.DefaultMuleEvent;
+import org.mule.DefaultMuleMessage;
+import org.mule.MessageExchangePattern;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.construct.Flow;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.util.UUID;
+
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.Required;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Measures how correlation throughput scales with the number of threads when every thread feeds
+ * its own correlation groups. Comparing the single threaded and the multi threaded results of the
+ * same router shows whether events for different groups are correlated in parallel. Every test
+ * requires the same minimum throughput, so contention between threads cannot make the multi
+ * threaded tests correlate fewer groups than a single thread does.
+ */
+public class AggregatorConcurrencyPerformanceTestCase extends AbstractMuleContextTestCase
+{
+
+    private static final int GROUPS_PER_INVOCATION = 100;
+    private static final int GROUP_SIZE = 4;
+
+    private static final int MIN_THROUGHPUT = 50;
+    private static final int SINGLE_THREAD_MEDIAN = 25;
+    private static final int EIGHT_THREADS_MEDIAN = 100;
+
+    @Rule
+    public ContiPerfRule rule = new ContiPerfRule();
+
+    private Flow flow;
+    private SimpleCollectionAggregator aggregator;
+    private Resequencer resequencer;
+
+    public AggregatorConcurrencyPerformanceTestCase()
+    {
+        setStartContext(true);
+    }
+
+    @Override
+    public int getTestTimeoutSecs()
+    {
+        return 120;
+    }
+
+    @Before
+    public void before() throws Exception
+    {
+        flow = new Flow("aggregatorConcurrency", muleContext);
+
+        aggregator = new SimpleCollectionAggregator();
+        initialiseRouter(aggregator);
+
+        resequencer = new Resequencer();
+        initialiseRouter(resequencer);
+    }
+
+    @Test
+    @PerfTest(duration = 15000, threads = 1, warmUp = 5000)
+    @Required(throughput = MIN_THROUGHPUT, median = SINGLE_THREAD_MEDIAN)
+    public void collectionAggregatorSingleThread() throws Exception
+    {
+        correlateGroups(aggregator);
+    }
+
+    @Test
+    @PerfTest(duration = 15000, threads = 8, warmUp = 5000)
+    @Required(throughput = MIN_THROUGHPUT, median = EIGHT_THREADS_MEDIAN)
+    public void collectionAggregatorEightThreads() throws Exception
+    {
+        correlateGroups(aggregator);
+    }
+
+    @Test
+    @PerfTest(duration = 15000, threads = 1, warmUp = 5000)
+    @Required(throughput = MIN_THROUGHPUT, median = SINGLE_THREAD_MEDIAN)
+    public void resequencerSingleThread() throws Exception
+    {
+        correlateGroups(resequencer);
+    }
+
+    @Test
+    @PerfTest(duration = 15000, threads = 8, warmUp = 5000)
+    @Required(throughput = MIN_THROUGHPUT, median = EIGHT_THREADS_MEDIAN)
+    public void resequencerEightThreads() throws Exception
+    {
+        correlateGroups(resequencer);
+    }
+
+    private void initialiseRouter(AbstractAggregator router) throws Exception
+    {
+        router.setMuleContext(muleContext);
+        router.setFlowConstruct(flow);
+        router.setTimeout(0);
+        router.setListener(new MessageProcessor()
+        {
+            @Override
+            public MuleEvent process(MuleEvent event)
+            {
+                return event;
+            }
+        });
+        router.initialise();
+    }
+
+    private void correlateGroups(MessageProcessor router) throws Exception
+    {
+        for (int i = 0; i < GROUPS_PER_INVOCATION; i++)
+        {
+            String correlationId = UUID.getUUID();
+            // parts arrive in reverse order so that the resequencer has actual work to do
+            for (int sequence = GROUP_SIZE; sequence > 0; sequence--)
+            {
+                MuleMessage message = new DefaultMuleMessage("part " + sequence, muleContext);
+                message.setCorrelationId(correlationId);
+                message.setCorrelationGroupSize(GROUP_SIZE);
+                message.setCorrelationSequence(sequence);
+                router.process(new DefaultMuleEvent(message, MessageExchangePattern.ONE_WAY, flow));
+            }
+        }
+    }
+}
@@ -7,11 +7,11 @@
 package org.mule.transport.file;
 
 import org.mule.api.DefaultMuleException;
+import org.mule.model.streaming.FileBackedInputStream;
 import org.mule.transport.file.i18n.FileMessages;
 import org.mule.util.FileUtils;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -23,7 +23,7 @@ import org.apache.commons.logging.LogFactory;
  * This implementation is used when streaming and will move or delete the source file
  * when the stream is closed.
  */
-class ReceiverFileInputStream extends FileInputStream
+class ReceiverFileInputStream extends FileBackedInputStream
 {
     protected transient Log logger = LogFactory.getLog(getClass());
 
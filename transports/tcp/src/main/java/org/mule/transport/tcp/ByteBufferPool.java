@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of heap {@link ByteBuffer} of a fixed size used to read data from non blocking
+ * connections. Connections only hold a buffer while they have data pending to decode,
+ * so idle connections do not retain any memory. Buffers that are not of the pool size,
+ * for example those grown to hold a big frame, are not pooled.
+ */
+public class ByteBufferPool
+{
+
+    private final int bufferSize;
+    private final int maxIdle;
+    private final Queue<ByteBuffer> idle = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    public ByteBufferPool(int bufferSize, int maxIdle)
+    {
+        this.bufferSize = bufferSize;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * @return an empty buffer of the pool size
+     */
+    public ByteBuffer borrow()
+    {
+        ByteBuffer buffer = idle.poll();
+        if (buffer == null)
+        {
+            return ByteBuffer.allocate(bufferSize);
+        }
+
+        idleCount.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool, it must not be used after this call.
+     *
+     * @param buffer the buffer to return
+     */
+    public void release(ByteBuffer buffer)
+    {
+        if (buffer.capacity() != bufferSize)
+        {
+            return;
+        }
+
+        if (idleCount.incrementAndGet() <= maxIdle)
+        {
+            buffer.clear();
+            idle.offer(buffer);
+        }
+        else
+        {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    /**
+     * @return the number of buffers available in the pool
+     */
+    public int getIdleCount()
+    {
+        return idleCount.get();
+    }
+}
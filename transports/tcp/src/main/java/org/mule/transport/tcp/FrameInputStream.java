@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import java.io.IOException;
+import java.io.PushbackInputStream;
+
+/**
+ * Exposes the bytes received so far on a non blocking connection to a {@link TcpProtocol},
+ * so the protocol can decode a message as if it were reading a blocking socket stream.
+ * <p/>
+ * Reading past the received bytes before the end of the stream was reached does not
+ * block: the read fails and the stream is marked as {@link #isUnderflow() underflown},
+ * meaning the frame is not complete yet and has to be decoded again once more data
+ * arrives. Protocols that know in advance the size of the data they need can call
+ * {@link #require(int)} so decoding is not retried before that amount of data was
+ * received.
+ * <p/>
+ * Protocols that do not know the size of their frames can avoid going through the whole
+ * frame every time more data arrives: frames that only end with the stream are not
+ * decoded again before the end of the stream once the protocol calls
+ * {@link #requireEndOfStream()}, and protocols that look for the end of the frame can
+ * fail with {@link #resumeAt(int)} and continue from the returned
+ * {@link #getResumeOffset() offset} the next time the frame is decoded.
+ * <p/>
+ * The stream supports marking and pushing back data, which just moves the read position
+ * back over the received bytes, so protocols that look ahead can do it without keeping
+ * state between reads.
+ */
+public class FrameInputStream extends PushbackInputStream
+{
+
+    private static final byte[] NO_DATA = new byte[0];
+
+    private byte[] data = NO_DATA;
+    private int start;
+    private int position;
+    private int limit;
+    private int markPosition;
+    private boolean endOfStream;
+    private boolean underflow;
+    private int requiredLimit;
+    private boolean endOfStreamRequired;
+    private int resumeOffset;
+    private int nextResumeOffset;
+
+    public FrameInputStream()
+    {
+        super(null, 1);
+    }
+
+    /**
+     * Sets the frame this stream reads.
+     *
+     * @param data the received bytes
+     * @param start the position where the frame starts
+     * @param limit the position after the last received byte
+     * @param endOfStream whether no more data is going to be received
+     */
+    public void setFrame(byte[] data, int start, int limit, boolean endOfStream)
+    {
+        setFrame(data, start, limit, endOfStream, 0);
+    }
+
+    /**
+     * Sets the frame this stream reads, which a previous attempt already decoded up to the
+     * given offset.
+     *
+     * @param data the received bytes
+     * @param start the position where the frame starts
+     * @param limit the position after the last received byte
+     * @param endOfStream whether no more data is going to be received
+     * @param resumeOffset the offset from the start of the frame returned by the previous
+     *            attempt to decode it through {@link #resumeAt(int)}
+     */
+    public void setFrame(byte[] data, int start, int limit, boolean endOfStream, int resumeOffset)
+    {
+        this.data = data;
+        this.start = start;
+        this.position = start;
+        this.markPosition = start;
+        this.limit = limit;
+        this.endOfStream = endOfStream;
+        this.underflow = false;
+        this.requiredLimit = limit + 1;
+        this.endOfStreamRequired = false;
+        this.resumeOffset = resumeOffset;
+        this.nextResumeOffset = 0;
+    }
+
+    /**
+     * Fails if less than the given amount of bytes are available to read, so the
+     * frame is not decoded again until they are received.
+     *
+     * @param length the number of bytes the protocol needs to read next
+     * @throws IOException if the bytes were not received yet
+     */
+    public void require(int length) throws IOException
+    {
+        if (limit - position < length && !endOfStream)
+        {
+            throw underflow(position + length);
+        }
+    }
+
+    /**
+     * Fails unless the end of the stream was reached, so the frame is not decoded again
+     * until then. Meant for protocols whose frames end with the stream.
+     *
+     * @throws IOException if the end of the stream was not reached yet
+     */
+    public void requireEndOfStream() throws IOException
+    {
+        if (!endOfStream)
+        {
+            endOfStreamRequired = true;
+            throw underflow(limit + 1);
+        }
+    }
+
+    /**
+     * Returns the exception a protocol throws when the frame is not complete yet, after
+     * having read the frame from its start up to the given offset. The next time the frame
+     * is decoded the offset is available through {@link #getResumeOffset()}, so the
+     * protocol can continue from there.
+     *
+     * @param offset the offset from the start of the frame up to which it was decoded
+     * @return the exception to throw
+     */
+    public IOException resumeAt(int offset)
+    {
+        nextResumeOffset = offset;
+        return underflow(limit + 1);
+    }
+
+    /**
+     * @return the offset from the start of the frame up to which a previous attempt
+     *         decoded it, or 0 if the frame is decoded for the first time
+     */
+    public int getResumeOffset()
+    {
+        return resumeOffset;
+    }
+
+    /**
+     * @return the offset the last decoding attempt asked to resume from
+     */
+    public int getNextResumeOffset()
+    {
+        return nextResumeOffset;
+    }
+
+    /**
+     * @return true if no more data is going to be received after the current frame data
+     */
+    public boolean isEndOfStream()
+    {
+        return endOfStream;
+    }
+
+    /**
+     * @return true if the last decoding attempt asked not to decode the frame again
+     *         before the end of the stream
+     */
+    public boolean isEndOfStreamRequired()
+    {
+        return endOfStreamRequired;
+    }
+
+    /**
+     * Looks for a sequence of bytes in the data received after the current position,
+     * without reading it.
+     *
+     * @param pattern the bytes to look for
+     * @param offset the offset from the current position where the search starts
+     * @return the offset from the current position where the sequence starts, or -1 if it
+     *         was not received
+     */
+    public int indexOf(byte[] pattern, int offset)
+    {
+        int last = limit - pattern.length;
+        for (int i = position + offset; i <= last; i++)
+        {
+            int j = 0;
+            while (j < pattern.length && data[i + j] == pattern[j])
+            {
+                j++;
+            }
+            if (j == pattern.length)
+            {
+                return i - position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if the last decoding attempt needed data that was not received yet
+     */
+    public boolean isUnderflow()
+    {
+        return underflow;
+    }
+
+    /**
+     * @return the position of the received data that must be reached before it makes
+     *         sense to decode the current frame again
+     */
+    public int getRequiredLimit()
+    {
+        return requiredLimit;
+    }
+
+    /**
+     * @return the position of the next byte to read
+     */
+    public int getPosition()
+    {
+        return position;
+    }
+
+    private FrameUnderflowException underflow(int required)
+    {
+        underflow = true;
+        requiredLimit = Math.max(required, limit + 1);
+        return new FrameUnderflowException();
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (position < limit)
+        {
+            return data[position++] & 0xff;
+        }
+        if (endOfStream)
+        {
+            return -1;
+        }
+        throw underflow(limit + 1);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        int available = limit - position;
+        if (available == 0)
+        {
+            if (endOfStream)
+            {
+                return -1;
+            }
+            throw underflow(limit + 1);
+        }
+        int count = Math.min(available, len);
+        System.arraycopy(data, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        int count = (int) Math.max(0, Math.min(n, limit - position));
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return limit - position;
+    }
+
+    @Override
+    public void unread(int b) throws IOException
+    {
+        moveBack(1);
+    }
+
+    @Override
+    public void unread(byte[] b) throws IOException
+    {
+        moveBack(b.length);
+    }
+
+    @Override
+    public void unread(byte[] b, int off, int len) throws IOException
+    {
+        moveBack(len);
+    }
+
+    private void moveBack(int length) throws IOException
+    {
+        if (position - length < start)
+        {
+            throw new IOException("Push back buffer is full");
+        }
+        position -= length;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit)
+    {
+        markPosition = position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException
+    {
+        position = markPosition;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        // the connection owns the received data
+    }
+
+    /**
+     * Signals that a frame can not be decoded until more data is received.
+     */
+    private static class FrameUnderflowException extends IOException
+    {
+
+        private static final long serialVersionUID = -3557546423620935512L;
+
+        public FrameUnderflowException()
+        {
+            super("Frame is not complete yet");
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A non blocking client connection of a {@link NioTcpConnector}. Requests are written by
+ * the dispatching thread as far as the socket accepts them right away, the selector
+ * thread of the {@link NioTcpClientConnectionPool} writes the rest and decodes the
+ * responses, which are handed to the thread waiting for them.
+ * <p/>
+ * While the connection is idle in the pool the data it receives is discarded, since no
+ * request is waiting for it, and the connection is closed when the server closes it.
+ */
+class NioTcpClientConnection
+{
+
+    private static final Log logger = LogFactory.getLog(NioTcpClientConnection.class);
+
+    /**
+     * Queued when no more responses are going to be received
+     */
+    private static final Object END_OF_STREAM = new Object();
+
+    private final NioTcpClientConnectionPool pool;
+    private final SocketChannel channel;
+    private final TcpFrameDecoder decoder;
+    private final SocketAddress remoteAddress;
+    private final BlockingQueue<Object> responses = new LinkedBlockingQueue<Object>();
+    private final Queue<ByteBuffer> pendingWrites = new LinkedList<ByteBuffer>();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile boolean idle;
+    private volatile IOException failure;
+    private boolean closeWhenWritten;
+    private SelectionKey key;
+
+    NioTcpClientConnection(NioTcpClientConnectionPool pool, SocketChannel channel, TcpFrameDecoder decoder)
+    {
+        this.pool = pool;
+        this.channel = channel;
+        this.decoder = decoder;
+        this.remoteAddress = channel.socket().getRemoteSocketAddress();
+    }
+
+    /**
+     * Registers the connection with the selector, must be called from the selector thread.
+     */
+    void register(Selector selector) throws IOException
+    {
+        key = channel.register(selector, SelectionKey.OP_READ, this);
+        if (hasPendingWrites())
+        {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Hands the connection to a new request.
+     *
+     * @return false if the connection was closed while it was idle
+     */
+    synchronized boolean activate()
+    {
+        if (closed.get())
+        {
+            return false;
+        }
+        idle = false;
+        responses.clear();
+        return true;
+    }
+
+    /**
+     * Marks the connection as idle once its request was completed.
+     *
+     * @return false if the connection can not be reused
+     */
+    synchronized boolean passivate()
+    {
+        if (closed.get())
+        {
+            return false;
+        }
+        idle = true;
+        return true;
+    }
+
+    /**
+     * Writes data to the socket, the data that can not be written right away is written
+     * by the selector thread once the socket is ready.
+     *
+     * @param data the encoded request
+     * @throws IOException if the connection is closed or the socket fails
+     */
+    synchronized void write(byte[] data) throws IOException
+    {
+        if (closed.get())
+        {
+            throw new IOException("Connection to " + remoteAddress + " is closed", failure);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (pendingWrites.isEmpty())
+        {
+            try
+            {
+                channel.write(buffer);
+            }
+            catch (IOException e)
+            {
+                close(e);
+                throw e;
+            }
+        }
+
+        if (buffer.hasRemaining())
+        {
+            pendingWrites.add(buffer);
+            pool.execute(new Runnable()
+            {
+                public void run()
+                {
+                    if (key != null && key.isValid())
+                    {
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits for the next response.
+     *
+     * @param timeout the time to wait in milliseconds, a value that is not positive waits
+     *            until the response arrives or the connection is closed
+     * @return the decoded response, or null if the server closed the connection
+     * @throws SocketTimeoutException if the response did not arrive in time
+     * @throws IOException if the connection fails before the response arrives
+     */
+    Object receive(int timeout) throws IOException
+    {
+        Object response;
+        try
+        {
+            response = timeout > 0 ? responses.poll(timeout, TimeUnit.MILLISECONDS) : responses.take();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+
+        if (response == null)
+        {
+            throw new SocketTimeoutException("No response from " + remoteAddress + " after " + timeout + " ms");
+        }
+        if (response == END_OF_STREAM)
+        {
+            // keep answering the same to anyone else waiting
+            responses.add(END_OF_STREAM);
+            if (failure != null)
+            {
+                throw new IOException("Connection to " + remoteAddress + " failed", failure);
+            }
+            return null;
+        }
+        return response;
+    }
+
+    /**
+     * Reads the data available in the socket, called from the selector thread.
+     */
+    void read()
+    {
+        boolean endOfStream;
+        List<Object> decoded;
+        try
+        {
+            endOfStream = channel.read(decoder.getReadBuffer()) < 0;
+            decoded = decoder.decode(endOfStream);
+        }
+        catch (IOException e)
+        {
+            close(e);
+            return;
+        }
+
+        if (idle)
+        {
+            if (!decoded.isEmpty() && logger.isDebugEnabled())
+            {
+                logger.debug("Discarding " + decoded.size() + " responses received by idle connection to " + remoteAddress);
+            }
+        }
+        else
+        {
+            responses.addAll(decoded);
+        }
+
+        if (endOfStream || decoder.isFinished())
+        {
+            close(null);
+        }
+    }
+
+    /**
+     * Writes the pending data, called from the selector thread.
+     */
+    synchronized void flush()
+    {
+        try
+        {
+            while (!pendingWrites.isEmpty())
+            {
+                ByteBuffer buffer = pendingWrites.peek();
+                channel.write(buffer);
+                if (buffer.hasRemaining())
+                {
+                    return;
+                }
+                pendingWrites.remove();
+            }
+        }
+        catch (IOException e)
+        {
+            close(e);
+            return;
+        }
+
+        if (key.isValid())
+        {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+        if (closeWhenWritten)
+        {
+            close(null);
+        }
+    }
+
+    private synchronized boolean hasPendingWrites()
+    {
+        return !pendingWrites.isEmpty();
+    }
+
+    /**
+     * Closes the connection once the data written so far reached the socket.
+     */
+    synchronized void closeWhenWritten()
+    {
+        if (pendingWrites.isEmpty())
+        {
+            close(null);
+        }
+        else
+        {
+            closeWhenWritten = true;
+        }
+    }
+
+    boolean isClosed()
+    {
+        return closed.get();
+    }
+
+    void close()
+    {
+        close(null);
+    }
+
+    private void close(IOException cause)
+    {
+        if (!closed.compareAndSet(false, true))
+        {
+            return;
+        }
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Closing connection to " + remoteAddress);
+        }
+
+        failure = cause;
+        pool.closed(this);
+        if (key != null)
+        {
+            key.cancel();
+        }
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            logger.debug("Failed to close socket: " + e.getMessage());
+        }
+        pool.execute(new Runnable()
+        {
+            public void run()
+            {
+                // the decoder buffers are only used by the selector thread
+                decoder.release();
+            }
+        });
+        responses.add(END_OF_STREAM);
+    }
+
+    SocketAddress getRemoteAddress()
+    {
+        return remoteAddress;
+    }
+}
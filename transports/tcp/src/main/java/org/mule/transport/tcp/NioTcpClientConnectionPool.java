@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import org.mule.api.endpoint.ImmutableEndpoint;
+import org.mule.api.transport.Connector;
+import org.mule.util.MapUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.resource.spi.work.Work;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Keeps the client connections of a {@link NioTcpConnector}. All the connections are read
+ * and written by a single selector thread, this pool running as a {@link Work}, so neither
+ * the connections waiting for a response nor the ones kept open between requests hold a
+ * thread.
+ * <p/>
+ * When the connector keeps the send sockets open the connections are kept per remote
+ * address once their request completed, and reused by the next request to the same
+ * address. Otherwise they are closed as soon as the request was written.
+ */
+class NioTcpClientConnectionPool implements Work
+{
+
+    private static final Log logger = LogFactory.getLog(NioTcpClientConnectionPool.class);
+
+    private final NioTcpConnector connector;
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    private final ConcurrentMap<TcpSocketKey, Queue<NioTcpClientConnection>> idleConnections = new ConcurrentHashMap<TcpSocketKey, Queue<NioTcpClientConnection>>();
+    private final Set<NioTcpClientConnection> connections = Collections.newSetFromMap(new ConcurrentHashMap<NioTcpClientConnection, Boolean>());
+    private volatile boolean running = true;
+    private volatile boolean started;
+
+    NioTcpClientConnectionPool(NioTcpConnector connector) throws IOException
+    {
+        this.connector = connector;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Returns an idle connection to the endpoint address, or opens a new one.
+     *
+     * @param endpoint the endpoint to send a request to
+     * @return a connection used only by the caller until it is released
+     * @throws IOException if the connection can not be opened
+     */
+    NioTcpClientConnection getConnection(ImmutableEndpoint endpoint) throws IOException
+    {
+        if (!running)
+        {
+            throw new IOException("Client connections of " + connector.getName() + " are closed");
+        }
+        TcpSocketKey socketKey = new TcpSocketKey(endpoint);
+        Queue<NioTcpClientConnection> idle = idleConnections.get(socketKey);
+        if (idle != null)
+        {
+            NioTcpClientConnection connection;
+            while ((connection = idle.poll()) != null)
+            {
+                if (connection.activate())
+                {
+                    return connection;
+                }
+            }
+        }
+        return open(socketKey);
+    }
+
+    /**
+     * Keeps the connection for the next request to the endpoint address, or closes it
+     * once its data was written if the send sockets are not kept open.
+     *
+     * @param connection a connection returned by {@link #getConnection(ImmutableEndpoint)}
+     * @param endpoint the endpoint the request was sent to
+     */
+    void releaseConnection(NioTcpClientConnection connection, ImmutableEndpoint endpoint)
+    {
+        boolean keepSocketOpen = MapUtils.getBooleanValue(endpoint.getProperties(),
+            TcpConnector.KEEP_SEND_SOCKET_OPEN_PROPERTY, connector.isKeepSendSocketOpen());
+
+        if (keepSocketOpen && running && connection.passivate())
+        {
+            TcpSocketKey socketKey = new TcpSocketKey(endpoint);
+            Queue<NioTcpClientConnection> idle = idleConnections.get(socketKey);
+            if (idle == null)
+            {
+                idle = new ConcurrentLinkedQueue<NioTcpClientConnection>();
+                Queue<NioTcpClientConnection> previous = idleConnections.putIfAbsent(socketKey, idle);
+                idle = previous == null ? idle : previous;
+            }
+            idle.add(connection);
+        }
+        else
+        {
+            connection.closeWhenWritten();
+        }
+    }
+
+    private NioTcpClientConnection open(TcpSocketKey socketKey) throws IOException
+    {
+        SocketChannel channel = SocketChannel.open();
+        try
+        {
+            channel.socket().setReuseAddress(true);
+            connector.configureSocket(TcpConnector.CLIENT, channel.socket());
+            int timeout = connector.getConnectionTimeout() != Connector.INT_VALUE_NOT_SET
+                          ? connector.getConnectionTimeout() : socketKey.getEndpoint().getResponseTimeout();
+            // connecting blocks like the blocking dispatcher does, only the established connection is non blocking
+            channel.socket().connect(new InetSocketAddress(socketKey.getInetAddress(), socketKey.getPort()), timeout);
+            channel.configureBlocking(false);
+        }
+        catch (IOException e)
+        {
+            closeQuietly(channel);
+            throw e;
+        }
+
+        final NioTcpClientConnection connection = new NioTcpClientConnection(this, channel,
+            new TcpFrameDecoder(connector.getTcpProtocol(), connector.getBufferPool()));
+        connections.add(connection);
+        execute(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    connection.register(selector);
+                }
+                catch (IOException e)
+                {
+                    // closed before it was registered
+                    connection.close();
+                }
+            }
+        });
+        return connection;
+    }
+
+    public void run()
+    {
+        started = true;
+        try
+        {
+            while (running)
+            {
+                selector.select();
+                runTasks();
+                processSelectedKeys();
+            }
+        }
+        catch (ClosedSelectorException e)
+        {
+            // stopped
+        }
+        catch (Exception e)
+        {
+            if (running)
+            {
+                connector.getMuleContext().getExceptionListener().handleException(e);
+            }
+        }
+        finally
+        {
+            running = false;
+            for (NioTcpClientConnection connection : new ArrayList<NioTcpClientConnection>(connections))
+            {
+                connection.close();
+            }
+            idleConnections.clear();
+            closeSelector();
+        }
+    }
+
+    private void runTasks()
+    {
+        Runnable task;
+        while ((task = tasks.poll()) != null)
+        {
+            task.run();
+        }
+    }
+
+    private void processSelectedKeys()
+    {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext())
+        {
+            SelectionKey key = keys.next();
+            keys.remove();
+
+            if (!key.isValid())
+            {
+                continue;
+            }
+
+            NioTcpClientConnection connection = (NioTcpClientConnection) key.attachment();
+            if (key.isWritable())
+            {
+                connection.flush();
+            }
+            if (key.isValid() && key.isReadable())
+            {
+                connection.read();
+            }
+        }
+    }
+
+    /**
+     * Runs a task in the selector thread.
+     */
+    void execute(Runnable task)
+    {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Called by a connection once it was closed.
+     */
+    void closed(NioTcpClientConnection connection)
+    {
+        connections.remove(connection);
+    }
+
+    /**
+     * @return the number of open connections, either in use or idle
+     */
+    int getOpenConnections()
+    {
+        return connections.size();
+    }
+
+    /**
+     * Stops the selector thread, which closes every connection.
+     */
+    void close()
+    {
+        running = false;
+        if (started)
+        {
+            selector.wakeup();
+        }
+        else
+        {
+            // never ran, so no connection was registered
+            closeSelector();
+        }
+    }
+
+    private void closeSelector()
+    {
+        try
+        {
+            selector.close();
+        }
+        catch (IOException e)
+        {
+            logger.debug("Failed to close selector: " + e.getMessage());
+        }
+    }
+
+    public void release()
+    {
+        // nothing to do
+    }
+
+    private void closeQuietly(SocketChannel channel)
+    {
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            logger.debug("Failed to close socket: " + e.getMessage());
+        }
+    }
+}
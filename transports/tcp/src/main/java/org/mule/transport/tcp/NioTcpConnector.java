@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import org.mule.api.MuleContext;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.endpoint.ImmutableEndpoint;
+import org.mule.api.lifecycle.InitialisationException;
+
+import java.util.Properties;
+
+import javax.resource.spi.work.WorkManager;
+
+/**
+ * <code>NioTcpConnector</code> receives messages using non blocking sockets. All the
+ * connections of an inbound endpoint are handled by a single selector thread and a
+ * worker is only used while there are messages to process, so idle connections do not
+ * use any thread.
+ * <p/>
+ * Outbound endpoints send their requests over non blocking connections too. They are all
+ * read and written by another selector thread, so connections kept open between requests
+ * and requests waiting for a response do not use a thread of their own either. Pipelined
+ * connectors and the streaming protocol use the same blocking dispatcher as the
+ * {@link TcpConnector}.
+ * <p/>
+ * Messages are decoded with the configured {@link TcpProtocol} from buffers taken from
+ * a pool shared by all the connections.
+ */
+public class NioTcpConnector extends TcpConnector
+{
+
+    public static final int DEFAULT_READ_BUFFER_SIZE = 8192;
+    public static final int DEFAULT_MAX_IDLE_BUFFERS = 256;
+
+    private int readBufferSize = DEFAULT_READ_BUFFER_SIZE;
+    private int maxIdleBuffers = DEFAULT_MAX_IDLE_BUFFERS;
+    private ByteBufferPool bufferPool;
+    private NioTcpClientConnectionPool clientConnectionPool;
+
+    public NioTcpConnector(MuleContext context)
+    {
+        super(context);
+        serviceOverrides = new Properties();
+        serviceOverrides.setProperty(MuleProperties.CONNECTOR_MESSAGE_RECEIVER_CLASS,
+            NioTcpMessageReceiver.class.getName());
+        serviceOverrides.setProperty(MuleProperties.CONNECTOR_DISPATCHER_FACTORY,
+            NioTcpMessageDispatcherFactory.class.getName());
+    }
+
+    @Override
+    protected void doInitialise() throws InitialisationException
+    {
+        super.doInitialise();
+        bufferPool = new ByteBufferPool(readBufferSize, maxIdleBuffers);
+    }
+
+    @Override
+    protected void doDispose()
+    {
+        synchronized (this)
+        {
+            if (clientConnectionPool != null)
+            {
+                clientConnectionPool.close();
+                clientConnectionPool = null;
+            }
+        }
+        super.doDispose();
+    }
+
+    NioTcpClientConnection getClientConnection(ImmutableEndpoint endpoint) throws Exception
+    {
+        return getClientConnectionPool().getConnection(endpoint);
+    }
+
+    void releaseClientConnection(NioTcpClientConnection connection, ImmutableEndpoint endpoint)
+    {
+        NioTcpClientConnectionPool pool = clientConnectionPool;
+        if (pool != null)
+        {
+            pool.releaseConnection(connection, endpoint);
+        }
+        else
+        {
+            connection.close();
+        }
+    }
+
+    /**
+     * Starts the selector thread of the client connections the first time a request is sent.
+     */
+    synchronized NioTcpClientConnectionPool getClientConnectionPool() throws Exception
+    {
+        if (clientConnectionPool == null)
+        {
+            NioTcpClientConnectionPool pool = new NioTcpClientConnectionPool(this);
+            try
+            {
+                getDispatcherWorkManager().scheduleWork(pool, WorkManager.INDEFINITE, null, this);
+            }
+            catch (Exception e)
+            {
+                pool.close();
+                throw e;
+            }
+            clientConnectionPool = pool;
+        }
+        return clientConnectionPool;
+    }
+
+    public ByteBufferPool getBufferPool()
+    {
+        return bufferPool;
+    }
+
+    /**
+     * @return the size in bytes of the buffers used to read from the connections
+     */
+    public int getReadBufferSize()
+    {
+        return readBufferSize;
+    }
+
+    public void setReadBufferSize(int readBufferSize)
+    {
+        this.readBufferSize = readBufferSize;
+    }
+
+    /**
+     * @return the maximum number of read buffers kept in the pool while not used
+     */
+    public int getMaxIdleBuffers()
+    {
+        return maxIdleBuffers;
+    }
+
+    public void setMaxIdleBuffers(int maxIdleBuffers)
+    {
+        this.maxIdleBuffers = maxIdleBuffers;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.api.endpoint.OutboundEndpoint;
+import org.mule.api.retry.RetryContext;
+import org.mule.transport.AbstractMessageDispatcher;
+import org.mule.transport.NullPayload;
+
+import java.io.ByteArrayOutputStream;
+import java.net.SocketTimeoutException;
+
+/**
+ * Sends transformed Mule events over the non blocking client connections of a
+ * {@link NioTcpConnector}. Responses are decoded by the selector thread of the connector
+ * and handed to the thread that sent the request.
+ */
+public class NioTcpMessageDispatcher extends AbstractMessageDispatcher
+{
+
+    private final NioTcpConnector connector;
+
+    public NioTcpMessageDispatcher(OutboundEndpoint endpoint)
+    {
+        super(endpoint);
+        this.connector = (NioTcpConnector) endpoint.getConnector();
+    }
+
+    @Override
+    protected void doDispatch(MuleEvent event) throws Exception
+    {
+        NioTcpClientConnection connection = connector.getClientConnection(endpoint);
+        try
+        {
+            write(connection, event.getMessage().getPayload());
+        }
+        finally
+        {
+            connector.releaseClientConnection(connection, endpoint);
+        }
+    }
+
+    @Override
+    protected MuleMessage doSend(MuleEvent event) throws Exception
+    {
+        NioTcpClientConnection connection = connector.getClientConnection(endpoint);
+        boolean reusable = true;
+        try
+        {
+            write(connection, event.getMessage().getPayload());
+            if (!returnResponse(event))
+            {
+                return new DefaultMuleMessage(NullPayload.getInstance(), getEndpoint().getMuleContext());
+            }
+
+            int timeout = endpoint.getResponseTimeout() != 0 ? endpoint.getResponseTimeout() : event.getTimeout();
+            try
+            {
+                Object result = connection.receive(timeout);
+                if (result == null)
+                {
+                    return new DefaultMuleMessage(NullPayload.getInstance(), getEndpoint().getMuleContext());
+                }
+
+                if (result instanceof MuleMessage)
+                {
+                    return (MuleMessage) result;
+                }
+
+                return createMuleMessage(result, endpoint.getEncoding());
+            }
+            catch (SocketTimeoutException e)
+            {
+                // the late response would be taken for the response to the next request
+                reusable = false;
+                // we don't necessarily expect to receive a response here
+                logger.info("Socket timed out normally while doing a synchronous receive on endpointUri: "
+                            + endpoint.getEndpointURI());
+                return new DefaultMuleMessage(NullPayload.getInstance(), getEndpoint().getMuleContext());
+            }
+        }
+        finally
+        {
+            if (reusable)
+            {
+                connector.releaseClientConnection(connection, endpoint);
+            }
+            else
+            {
+                connection.close();
+            }
+        }
+    }
+
+    private void write(NioTcpClientConnection connection, Object data) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        connector.getTcpProtocol().write(out, data);
+        connection.write(out.toByteArray());
+    }
+
+    @Override
+    protected void doDispose()
+    {
+        // connections belong to the connector
+    }
+
+    @Override
+    protected void doConnect() throws Exception
+    {
+        // nothing, there is an optional validation in validateConnection()
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception
+    {
+        // nothing to do
+    }
+
+    @Override
+    public RetryContext validateConnection(RetryContext retryContext)
+    {
+        try
+        {
+            connector.releaseClientConnection(connector.getClientConnection(endpoint), endpoint);
+            retryContext.setOk();
+        }
+        catch (Exception ex)
+        {
+            retryContext.setFailed(ex);
+        }
+        return retryContext;
+    }
+}
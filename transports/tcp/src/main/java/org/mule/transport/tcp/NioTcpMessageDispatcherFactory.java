@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import org.mule.api.MuleException;
+import org.mule.api.endpoint.OutboundEndpoint;
+import org.mule.api.transport.MessageDispatcher;
+import org.mule.transport.AbstractMessageDispatcherFactory;
+import org.mule.transport.tcp.protocols.StreamingProtocol;
+
+/**
+ * Creates {@link NioTcpMessageDispatcher} instances. Pipelined connectors, which already
+ * share their sockets between requests, and the {@link StreamingProtocol}, which needs a
+ * blocking socket to return the response stream, keep using the {@link TcpMessageDispatcher}.
+ */
+public class NioTcpMessageDispatcherFactory extends AbstractMessageDispatcherFactory
+{
+
+    public MessageDispatcher create(OutboundEndpoint endpoint) throws MuleException
+    {
+        TcpConnector connector = (TcpConnector) endpoint.getConnector();
+        if (connector.isPipelined() || connector.getTcpProtocol() instanceof StreamingProtocol)
+        {
+            return new TcpMessageDispatcher(endpoint);
+        }
+        return new NioTcpMessageDispatcher(endpoint);
+    }
+
+}
@@ -0,0 +1,761 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.construct.FlowConstruct;
+import org.mule.api.endpoint.InboundEndpoint;
+import org.mule.api.lifecycle.CreateException;
+import org.mule.api.transaction.Transaction;
+import org.mule.api.transaction.TransactionException;
+import org.mule.api.transport.Connector;
+import org.mule.config.i18n.CoreMessages;
+import org.mule.transport.AbstractMessageReceiver;
+import org.mule.transport.AbstractReceiverResourceWorker;
+import org.mule.transport.ConnectException;
+import org.mule.transport.tcp.i18n.TcpMessages;
+import org.mule.transport.tcp.protocols.StreamingProtocol;
+import org.mule.util.NetworkUtils;
+import org.mule.util.StringUtils;
+import org.mule.util.monitor.Expirable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkException;
+import javax.resource.spi.work.WorkManager;
+
+/**
+ * <code>NioTcpMessageReceiver</code> acts like a TCP server that handles all its
+ * connections from a single selector thread.
+ * <p/>
+ * Data received on a connection is decoded by a {@link TcpFrameDecoder} and the decoded
+ * messages are processed by a worker scheduled only while the connection has messages
+ * pending, one worker at a time per connection so messages are processed in order. The
+ * connection is not read while it has messages pending, so a client sending faster than
+ * the messages are processed is slowed down by TCP flow control instead of filling the
+ * memory with decoded messages.
+ * Responses are written back without blocking the worker, the selector thread takes
+ * care of the data the socket could not accept right away.
+ */
+public class NioTcpMessageReceiver extends AbstractMessageReceiver
+{
+
+    private NioTcpConnector connector;
+
+    private SelectorLoop selectorLoop;
+
+    public NioTcpMessageReceiver(Connector connector, FlowConstruct flowConstruct, InboundEndpoint endpoint)
+        throws CreateException
+    {
+        super(connector, flowConstruct, endpoint);
+
+        if (connector instanceof NioTcpConnector)
+        {
+            this.connector = (NioTcpConnector) connector;
+        }
+        else
+        {
+            throw new CreateException(TcpMessages.nonBlockingReceiverCannotBeUsed(), this);
+        }
+
+        TcpProtocol protocol = this.connector.getTcpProtocol();
+        if (protocol instanceof StreamingProtocol)
+        {
+            throw new CreateException(TcpMessages.protocolCannotBeUsedWithNonBlockingConnections(protocol), this);
+        }
+    }
+
+    @Override
+    protected void doConnect() throws ConnectException
+    {
+        URI uri = endpoint.getEndpointURI().getUri();
+
+        try
+        {
+            selectorLoop = new SelectorLoop(uri);
+        }
+        catch (Exception e)
+        {
+            throw new ConnectException(TcpMessages.failedToBindToUri(uri), e, this);
+        }
+
+        try
+        {
+            getWorkManager().scheduleWork(selectorLoop, WorkManager.INDEFINITE, null, connector);
+        }
+        catch (WorkException e)
+        {
+            selectorLoop.stop();
+            throw new ConnectException(CoreMessages.failedToScheduleWork(), e, this);
+        }
+    }
+
+    @Override
+    protected void doDisconnect() throws ConnectException
+    {
+        if (selectorLoop != null)
+        {
+            selectorLoop.stop();
+            selectorLoop = null;
+        }
+    }
+
+    @Override
+    protected void doStart() throws MuleException
+    {
+        selectorLoop.setAccepting(true);
+    }
+
+    @Override
+    protected void doStop() throws MuleException
+    {
+        if (selectorLoop != null)
+        {
+            selectorLoop.setAccepting(false);
+        }
+    }
+
+    @Override
+    protected void doDispose()
+    {
+        if (selectorLoop != null)
+        {
+            selectorLoop.stop();
+            selectorLoop = null;
+        }
+        logger.info("Closed Tcp port");
+    }
+
+    /**
+     * @return the address the receiver is listening on, or null if it is not connected
+     */
+    public SocketAddress getLocalAddress()
+    {
+        SelectorLoop loop = selectorLoop;
+        return loop == null ? null : loop.serverChannel.socket().getLocalSocketAddress();
+    }
+
+    protected InetSocketAddress getBindAddress(URI uri) throws IOException
+    {
+        String host = StringUtils.defaultIfEmpty(uri.getHost(), "localhost");
+        InetAddress inetAddress = InetAddress.getByName(host);
+
+        if ((inetAddress.equals(NetworkUtils.getLocalHost()) || host.trim().equals("localhost"))
+            && TcpPropertyHelper.isBindingLocalhostToAllLocalInterfaces())
+        {
+            logger.warn(TcpMessages.localhostBoundToAllLocalInterfaces());
+            return new InetSocketAddress(uri.getPort());
+        }
+        else
+        {
+            return new InetSocketAddress(inetAddress, uri.getPort());
+        }
+    }
+
+    /**
+     * Accepts the connections and reads and writes their data. Every operation on the
+     * selection keys and on the read buffers happens in this thread, other threads
+     * submit tasks to it.
+     */
+    protected class SelectorLoop implements Work
+    {
+
+        private final Selector selector;
+        private final ServerSocketChannel serverChannel;
+        private final SelectionKey acceptKey;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+        private final Set<NioTcpConnection> connections = new HashSet<NioTcpConnection>();
+        private volatile boolean running = true;
+
+        public SelectorLoop(URI uri) throws IOException
+        {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            try
+            {
+                serverChannel.configureBlocking(false);
+                Boolean reuse = connector.isReuseAddress();
+                if (reuse != null && reuse.booleanValue() != serverChannel.socket().getReuseAddress())
+                {
+                    serverChannel.socket().setReuseAddress(reuse.booleanValue());
+                }
+                // bind *after* setting so_reuseaddress
+                serverChannel.socket().bind(getBindAddress(uri), connector.getReceiveBacklog());
+                acceptKey = serverChannel.register(selector, 0);
+            }
+            catch (IOException e)
+            {
+                closeQuietly();
+                throw e;
+            }
+        }
+
+        public void run()
+        {
+            try
+            {
+                while (running)
+                {
+                    selector.select();
+                    runTasks();
+                    processSelectedKeys();
+                }
+            }
+            catch (ClosedSelectorException e)
+            {
+                // stopped
+            }
+            catch (Exception e)
+            {
+                if (running)
+                {
+                    getEndpoint().getMuleContext().getExceptionListener().handleException(e);
+                }
+            }
+            finally
+            {
+                for (NioTcpConnection connection : new ArrayList<NioTcpConnection>(connections))
+                {
+                    connection.close();
+                }
+                closeQuietly();
+            }
+        }
+
+        private void runTasks()
+        {
+            Runnable task;
+            while ((task = tasks.poll()) != null)
+            {
+                task.run();
+            }
+        }
+
+        private void processSelectedKeys()
+        {
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext())
+            {
+                SelectionKey key = keys.next();
+                keys.remove();
+
+                if (!key.isValid())
+                {
+                    continue;
+                }
+                if (key.isAcceptable())
+                {
+                    accept();
+                    continue;
+                }
+
+                NioTcpConnection connection = (NioTcpConnection) key.attachment();
+                if (key.isWritable())
+                {
+                    connection.flush();
+                }
+                if (key.isValid() && key.isReadable())
+                {
+                    connection.read();
+                }
+            }
+        }
+
+        private void accept()
+        {
+            SocketChannel channel;
+            try
+            {
+                channel = serverChannel.accept();
+            }
+            catch (IOException e)
+            {
+                if (running)
+                {
+                    getEndpoint().getMuleContext().getExceptionListener().handleException(
+                        new ConnectException(e, NioTcpMessageReceiver.this));
+                }
+                return;
+            }
+
+            if (channel == null)
+            {
+                return;
+            }
+
+            try
+            {
+                channel.configureBlocking(false);
+                connector.configureSocket(TcpConnector.SERVER, channel.socket());
+                NioTcpConnection connection = new NioTcpConnection(this, channel);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connections.add(connection);
+                connection.waitForData();
+            }
+            catch (IOException e)
+            {
+                logger.warn("Failed to accept connection: " + e.getMessage());
+                try
+                {
+                    channel.close();
+                }
+                catch (IOException e1)
+                {
+                    // ignore
+                }
+            }
+        }
+
+        /**
+         * Runs a task in the selector thread.
+         */
+        public void execute(Runnable task)
+        {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        public void setAccepting(final boolean accepting)
+        {
+            execute(new Runnable()
+            {
+                public void run()
+                {
+                    if (acceptKey.isValid())
+                    {
+                        acceptKey.interestOps(accepting ? SelectionKey.OP_ACCEPT : 0);
+                    }
+                }
+            });
+        }
+
+        public boolean isRunning()
+        {
+            return running;
+        }
+
+        /**
+         * Stops listening, the connections are closed by the selector thread.
+         */
+        public void stop()
+        {
+            running = false;
+            try
+            {
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Closing: " + serverChannel);
+                }
+                serverChannel.close();
+            }
+            catch (IOException e)
+            {
+                logger.warn("Failed to close server socket: " + e.getMessage(), e);
+            }
+            selector.wakeup();
+        }
+
+        private void closeQuietly()
+        {
+            try
+            {
+                serverChannel.close();
+            }
+            catch (IOException e)
+            {
+                logger.debug("Failed to close server socket: " + e.getMessage());
+            }
+            try
+            {
+                selector.close();
+            }
+            catch (IOException e)
+            {
+                logger.debug("Failed to close selector: " + e.getMessage());
+            }
+        }
+
+        public void release()
+        {
+            // template method
+        }
+    }
+
+    /**
+     * A connection accepted by the receiver. Reads and writes to the socket are done by
+     * the selector thread, the decoded messages are handed to a {@link NioTcpWorker}.
+     */
+    protected class NioTcpConnection implements Expirable
+    {
+
+        private final SelectorLoop loop;
+        private final SocketChannel channel;
+        private final TcpFrameDecoder decoder;
+        private final Queue<Object> messages = new ConcurrentLinkedQueue<Object>();
+        private final Queue<ByteBuffer> pendingWrites = new LinkedList<ByteBuffer>();
+        private final AtomicBoolean processing = new AtomicBoolean(false);
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private final SocketAddress remoteAddress;
+        private volatile boolean inputClosed;
+        private SelectionKey key;
+
+        public NioTcpConnection(SelectorLoop loop, SocketChannel channel)
+        {
+            this.loop = loop;
+            this.channel = channel;
+            this.decoder = new TcpFrameDecoder(connector.getTcpProtocol(), connector.getBufferPool());
+            this.remoteAddress = channel.socket().getRemoteSocketAddress();
+        }
+
+        /**
+         * Reads the data available in the socket and schedules the processing of the
+         * messages it completes.
+         */
+        protected void read()
+        {
+            boolean endOfStream;
+            try
+            {
+                endOfStream = channel.read(decoder.getReadBuffer()) < 0;
+            }
+            catch (IOException e)
+            {
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Failed to read from " + remoteAddress + ": " + e.getMessage());
+                }
+                close();
+                return;
+            }
+
+            List<Object> decoded;
+            try
+            {
+                decoded = decoder.decode(endOfStream);
+            }
+            catch (IOException e)
+            {
+                getEndpoint().getMuleContext().getExceptionListener().handleException(e);
+                close();
+                return;
+            }
+
+            if (endOfStream || decoder.isFinished())
+            {
+                // protocols return null when no more messages are going to be read
+                inputClosed = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                decoder.release();
+            }
+
+            if (decoded.isEmpty())
+            {
+                closeIfDone();
+            }
+            else
+            {
+                connector.getKeepAliveMonitor().removeExpirable(this);
+                messages.addAll(decoded);
+                // Resumed once the worker processed all the messages
+                suspendReading();
+                schedule();
+            }
+        }
+
+        private void suspendReading()
+        {
+            if (key.isValid())
+            {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+        }
+
+        private void resumeReading()
+        {
+            loop.execute(new Runnable()
+            {
+                public void run()
+                {
+                    if (key.isValid() && !inputClosed)
+                    {
+                        key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                    }
+                }
+            });
+        }
+
+        private void schedule()
+        {
+            if (processing.compareAndSet(false, true))
+            {
+                try
+                {
+                    getWorkManager().scheduleWork(new NioTcpWorker(this), WorkManager.INDEFINITE, null, connector);
+                }
+                catch (WorkException e)
+                {
+                    processing.set(false);
+                    getEndpoint().getMuleContext().getExceptionListener().handleException(e);
+                    requestClose();
+                }
+            }
+        }
+
+        /**
+         * Called by the worker once it processed all the messages.
+         */
+        protected void processed()
+        {
+            processing.set(false);
+
+            if (!messages.isEmpty())
+            {
+                schedule();
+            }
+            else if (inputClosed)
+            {
+                loop.execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        closeIfDone();
+                    }
+                });
+            }
+            else
+            {
+                resumeReading();
+                waitForData();
+            }
+        }
+
+        protected void waitForData()
+        {
+            long keepAliveTimeout = connector.getKeepAliveTimeout();
+            if (keepAliveTimeout > 0 && !closed.get())
+            {
+                connector.getKeepAliveMonitor().addExpirable(keepAliveTimeout, TimeUnit.MILLISECONDS, this);
+            }
+        }
+
+        /**
+         * Writes data to the socket, the data that can not be written right away is
+         * written by the selector thread once the socket is ready.
+         */
+        public synchronized void write(byte[] data) throws IOException
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            if (pendingWrites.isEmpty())
+            {
+                channel.write(buffer);
+            }
+
+            if (buffer.hasRemaining())
+            {
+                pendingWrites.add(buffer);
+                loop.execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        if (key.isValid())
+                        {
+                            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                        }
+                    }
+                });
+            }
+        }
+
+        protected synchronized void flush()
+        {
+            try
+            {
+                while (!pendingWrites.isEmpty())
+                {
+                    ByteBuffer buffer = pendingWrites.peek();
+                    channel.write(buffer);
+                    if (buffer.hasRemaining())
+                    {
+                        return;
+                    }
+                    pendingWrites.remove();
+                }
+            }
+            catch (IOException e)
+            {
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Failed to write to " + remoteAddress + ": " + e.getMessage());
+                }
+                close();
+                return;
+            }
+
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            closeIfDone();
+        }
+
+        private synchronized boolean hasPendingWrites()
+        {
+            return !pendingWrites.isEmpty();
+        }
+
+        private void closeIfDone()
+        {
+            if (inputClosed && messages.isEmpty() && !processing.get() && !hasPendingWrites())
+            {
+                close();
+            }
+        }
+
+        private void requestClose()
+        {
+            loop.execute(new Runnable()
+            {
+                public void run()
+                {
+                    close();
+                }
+            });
+        }
+
+        /**
+         * Closes the connection, must be called from the selector thread.
+         */
+        protected void close()
+        {
+            if (!closed.compareAndSet(false, true))
+            {
+                return;
+            }
+
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Closing connection: " + remoteAddress);
+            }
+
+            connector.getKeepAliveMonitor().removeExpirable(this);
+            loop.connections.remove(this);
+            messages.clear();
+            decoder.release();
+            if (key != null)
+            {
+                key.cancel();
+            }
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                logger.warn("Socket close failed with: " + e);
+            }
+        }
+
+        public void expired()
+        {
+            if (loop.isRunning())
+            {
+                requestClose();
+            }
+        }
+
+        public SocketAddress getRemoteAddress()
+        {
+            return remoteAddress;
+        }
+    }
+
+    protected class NioTcpWorker extends AbstractReceiverResourceWorker
+    {
+
+        private final NioTcpConnection connection;
+        private final TcpProtocol protocol;
+
+        public NioTcpWorker(NioTcpConnection connection)
+        {
+            super(connection, NioTcpMessageReceiver.this);
+            this.connection = connection;
+            this.protocol = connector.getTcpProtocol();
+        }
+
+        @Override
+        protected void bindTransaction(Transaction tx) throws TransactionException
+        {
+            //nothing to do
+        }
+
+        @Override
+        protected Object getNextMessage(Object resource) throws Exception
+        {
+            return connection.messages.poll();
+        }
+
+        @Override
+        protected boolean hasMoreMessages(Object message)
+        {
+            return !connection.messages.isEmpty() && !connection.closed.get();
+        }
+
+        @Override
+        protected void handleResults(List messages) throws Exception
+        {
+            //should send back only if remote synch is set or no outbound endpoints
+            if (endpoint.getExchangePattern().hasResponse())
+            {
+                for (Object message : messages)
+                {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    protocol.write(out, message);
+                    connection.write(out.toByteArray());
+                }
+            }
+        }
+
+        @Override
+        protected void preRouteMuleMessage(final MuleMessage message) throws Exception
+        {
+            super.preRouteMuleMessage(message);
+
+            final SocketAddress clientAddress = connection.getRemoteAddress();
+            if (clientAddress != null)
+            {
+                message.setOutboundProperty(MuleProperties.MULE_REMOTE_CLIENT_ADDRESS, clientAddress.toString());
+            }
+        }
+
+        @Override
+        public void release()
+        {
+            connection.processed();
+        }
+    }
+}
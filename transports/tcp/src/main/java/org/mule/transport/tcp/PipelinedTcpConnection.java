@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import org.mule.api.MuleMessage;
+import org.mule.transport.tcp.protocols.CorrelatedLengthProtocol;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.resource.spi.work.Work;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A client socket shared by several requests at the same time. Every request is sent
+ * with a new correlation id using the {@link CorrelatedLengthProtocol} and the thread
+ * that sent it waits until a response with the same id is read, so requests do not
+ * have to wait for the responses to the previous ones.
+ * <p/>
+ * Responses are read by this connection running as a {@link Work}, only their payload is
+ * handed to the waiting thread, which owns the message it creates with it. When the
+ * socket fails or is closed by the server every request waiting for a response fails.
+ */
+public class PipelinedTcpConnection implements Work
+{
+
+    private static final Log logger = LogFactory.getLog(PipelinedTcpConnection.class);
+
+    private final Socket socket;
+    private final CorrelatedLengthProtocol protocol;
+    private final InputStream in;
+    private final OutputStream out;
+    private final AtomicLong nextCorrelationId = new AtomicLong();
+    private final ConcurrentMap<Long, PendingResponse> pendingResponses = new ConcurrentHashMap<Long, PendingResponse>();
+    private volatile boolean closed;
+
+    public PipelinedTcpConnection(Socket socket, CorrelatedLengthProtocol protocol) throws IOException
+    {
+        this.socket = socket;
+        this.protocol = protocol;
+        this.in = new BufferedInputStream(socket.getInputStream());
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    /**
+     * Sends a request without waiting for a response.
+     *
+     * @param payload the request payload
+     * @throws IOException if the request can not be written
+     */
+    public void dispatch(byte[] payload) throws IOException
+    {
+        write(nextCorrelationId.incrementAndGet(), payload);
+    }
+
+    /**
+     * Sends a request and waits for its response.
+     *
+     * @param payload the request payload
+     * @param timeout the time to wait for the response in milliseconds, a negative value
+     *            waits until the response arrives or the connection is closed
+     * @return the payload of the response, or null if it did not arrive in time
+     * @throws IOException if the request can not be written or the connection fails
+     *             before the response arrives
+     */
+    public byte[] send(byte[] payload, int timeout) throws IOException
+    {
+        Long correlationId = nextCorrelationId.incrementAndGet();
+        PendingResponse response = new PendingResponse();
+        pendingResponses.put(correlationId, response);
+        try
+        {
+            write(correlationId, payload);
+            return response.await(timeout);
+        }
+        finally
+        {
+            pendingResponses.remove(correlationId);
+        }
+    }
+
+    private void write(long correlationId, byte[] payload) throws IOException
+    {
+        synchronized (out)
+        {
+            if (closed)
+            {
+                throw new IOException("Connection to " + socket.getRemoteSocketAddress() + " is closed");
+            }
+            try
+            {
+                protocol.write(out, correlationId, payload);
+            }
+            catch (IOException e)
+            {
+                close(e);
+                throw e;
+            }
+        }
+    }
+
+    public void run()
+    {
+        IOException failure = null;
+        try
+        {
+            Object response;
+            while (!closed && (response = protocol.read(in)) != null)
+            {
+                MuleMessage message = (MuleMessage) response;
+                Object correlationId = message.getInboundProperty(CorrelatedLengthProtocol.CORRELATION_ID_PROPERTY);
+                PendingResponse pendingResponse = pendingResponses.get(correlationId);
+                if (pendingResponse != null)
+                {
+                    pendingResponse.complete((byte[]) message.getPayload());
+                }
+                else if (logger.isDebugEnabled())
+                {
+                    logger.debug("Discarding response with unknown correlation id " + correlationId + " from "
+                                 + socket.getRemoteSocketAddress());
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            failure = e;
+        }
+        finally
+        {
+            close(failure);
+        }
+    }
+
+    public void release()
+    {
+        // nothing to do
+    }
+
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    /**
+     * @return the number of requests waiting for a response
+     */
+    public int getPendingResponses()
+    {
+        return pendingResponses.size();
+    }
+
+    public void close()
+    {
+        close(null);
+    }
+
+    private void close(IOException cause)
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Closing pipelined connection to " + socket.getRemoteSocketAddress());
+        }
+        try
+        {
+            socket.close();
+        }
+        catch (IOException e)
+        {
+            logger.debug("Failed to close socket: " + e.getMessage());
+        }
+
+        IOException failure = new IOException("Connection to " + socket.getRemoteSocketAddress()
+                                              + " was closed before the response arrived", cause);
+        for (PendingResponse pendingResponse : pendingResponses.values())
+        {
+            pendingResponse.fail(failure);
+        }
+    }
+
+    private static class PendingResponse
+    {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile byte[] payload;
+        private volatile IOException failure;
+
+        void complete(byte[] payload)
+        {
+            this.payload = payload;
+            latch.countDown();
+        }
+
+        void fail(IOException failure)
+        {
+            this.failure = failure;
+            latch.countDown();
+        }
+
+        byte[] await(int timeout) throws IOException
+        {
+            try
+            {
+                if (timeout < 0)
+                {
+                    latch.await();
+                }
+                else if (!latch.await(timeout, TimeUnit.MILLISECONDS))
+                {
+                    return null;
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+
+            if (failure != null)
+            {
+                throw failure;
+            }
+            return payload;
+        }
+    }
+}
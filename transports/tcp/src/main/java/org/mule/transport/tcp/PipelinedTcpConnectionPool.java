@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import org.mule.api.endpoint.ImmutableEndpoint;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps a fixed number of {@link PipelinedTcpConnection} per remote address and hands
+ * them out in turn. Connections are opened the first time they are needed and replaced
+ * once they get closed.
+ */
+class PipelinedTcpConnectionPool
+{
+
+    private final TcpConnector connector;
+    private final int connectionsPerAddress;
+    private final ConcurrentMap<TcpSocketKey, AtomicReferenceArray<PipelinedTcpConnection>> connections = new ConcurrentHashMap<TcpSocketKey, AtomicReferenceArray<PipelinedTcpConnection>>();
+    private final AtomicInteger nextConnection = new AtomicInteger();
+
+    PipelinedTcpConnectionPool(TcpConnector connector, int connectionsPerAddress)
+    {
+        this.connector = connector;
+        this.connectionsPerAddress = Math.max(1, connectionsPerAddress);
+    }
+
+    PipelinedTcpConnection getConnection(ImmutableEndpoint endpoint) throws Exception
+    {
+        TcpSocketKey key = new TcpSocketKey(endpoint);
+        AtomicReferenceArray<PipelinedTcpConnection> slots = connections.get(key);
+        if (slots == null)
+        {
+            slots = new AtomicReferenceArray<PipelinedTcpConnection>(connectionsPerAddress);
+            AtomicReferenceArray<PipelinedTcpConnection> previous = connections.putIfAbsent(key, slots);
+            slots = previous == null ? slots : previous;
+        }
+
+        int index = (nextConnection.getAndIncrement() & Integer.MAX_VALUE) % connectionsPerAddress;
+        PipelinedTcpConnection connection = slots.get(index);
+        if (connection == null || connection.isClosed())
+        {
+            synchronized (slots)
+            {
+                connection = slots.get(index);
+                if (connection == null || connection.isClosed())
+                {
+                    connection = connector.openPipelinedConnection(key);
+                    slots.set(index, connection);
+                }
+            }
+        }
+        return connection;
+    }
+
+    void close()
+    {
+        for (AtomicReferenceArray<PipelinedTcpConnection> slots : connections.values())
+        {
+            for (int i = 0; i < slots.length(); i++)
+            {
+                PipelinedTcpConnection connection = slots.getAndSet(i, null);
+                if (connection != null)
+                {
+                    connection.close();
+                }
+            }
+        }
+        connections.clear();
+    }
+}
@@ -19,6 +19,7 @@ import org.mule.config.i18n.CoreMessages;
 import org.mule.model.streaming.CallbackOutputStream;
 import org.mule.transport.AbstractConnector;
 import org.mule.transport.ConfigurableKeyedObjectPool;
+import org.mule.transport.tcp.protocols.CorrelatedLengthProtocol;
 import org.mule.transport.tcp.protocols.SafeProtocol;
 import org.mule.util.concurrent.ThreadNameHelper;
 import org.mule.util.monitor.ExpiryMonitor;
@@ -32,6 +33,8 @@ import java.net.Socket;
 import java.net.SocketException;
 import java.net.URI;
 
+import javax.resource.spi.work.WorkManager;
+
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 
 /**
@@ -53,6 +56,7 @@ public class TcpConnector extends AbstractConnector
     public static final int DEFAULT_BUFFER_SIZE = INT_VALUE_NOT_SET;
     public static final int DEFAULT_BACKLOG = INT_VALUE_NOT_SET;
     public static final int DEFAULT_WAIT_TIMEOUT = INT_VALUE_NOT_SET;
+    public static final int DEFAULT_PIPELINED_CONNECTIONS = 1;
 
     // to clarify arg to configureSocket
     public static final boolean SERVER = false;
@@ -75,6 +79,8 @@ public class TcpConnector extends AbstractConnector
     private int keepAliveTimeout = 0;
     private ExpiryMonitor keepAliveMonitor;
     private Boolean failOnUnresolvedHost = Boolean.TRUE;
+    private int pipelinedConnections = DEFAULT_PIPELINED_CONNECTIONS;
+    private PipelinedTcpConnectionPool pipelinedConnectionPool;
 
     /** 
      * If set, the socket is not closed after sending a message.  This attribute 
@@ -182,6 +188,8 @@ public class TcpConnector extends AbstractConnector
                                                  ThreadNameHelper.getPrefix(muleContext),
                                                  getName());
         keepAliveMonitor = new ExpiryMonitor(monitorName, 1000, this.getClass().getClassLoader(), muleContext, false);
+
+        pipelinedConnectionPool = new PipelinedTcpConnectionPool(this, pipelinedConnections);
     }
 
     @Override
@@ -196,6 +204,10 @@ public class TcpConnector extends AbstractConnector
         {
             logger.warn("Failed to close dispatcher socket pool: " + e.getMessage());
         }
+        if (pipelinedConnectionPool != null)
+        {
+            pipelinedConnectionPool.close();
+        }
         
         keepAliveMonitor.dispose();
     }
@@ -237,6 +249,44 @@ public class TcpConnector extends AbstractConnector
         }
     }
 
+    /**
+     * @return true if dispatchers send several requests over the same socket without
+     *         waiting for the responses, which requires the
+     *         {@link CorrelatedLengthProtocol}
+     */
+    public boolean isPipelined()
+    {
+        return tcpProtocol instanceof CorrelatedLengthProtocol;
+    }
+
+    /**
+     * Returns one of the sockets shared by the dispatchers of the endpoint address when
+     * the connector is {@link #isPipelined() pipelined}.
+     */
+    PipelinedTcpConnection getPipelinedConnection(ImmutableEndpoint endpoint) throws Exception
+    {
+        return pipelinedConnectionPool.getConnection(endpoint);
+    }
+
+    PipelinedTcpConnection openPipelinedConnection(TcpSocketKey socketKey) throws Exception
+    {
+        Socket socket = (Socket) getSocketFactory().makeObject(socketKey);
+        // responses are read continuously, the response timeout is applied per request
+        socket.setSoTimeout(0);
+
+        PipelinedTcpConnection connection = new PipelinedTcpConnection(socket, (CorrelatedLengthProtocol) tcpProtocol);
+        try
+        {
+            getDispatcherWorkManager().scheduleWork(connection, WorkManager.INDEFINITE, null, this);
+        }
+        catch (Exception e)
+        {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
     public OutputStream getOutputStream(final ImmutableEndpoint endpoint, MuleMessage message)
             throws MuleException
     {
@@ -283,6 +333,10 @@ public class TcpConnector extends AbstractConnector
     protected void doDisconnect() throws Exception
     {
         socketsPool.clear();
+        if (pipelinedConnectionPool != null)
+        {
+            pipelinedConnectionPool.close();
+        }
     }
 
     @Override
@@ -530,6 +584,20 @@ public class TcpConnector extends AbstractConnector
         this.reuseAddress = reuseAddress;
     }
 
+    /**
+     * @return the number of sockets opened to each address when the connector is
+     *         {@link #isPipelined() pipelined}
+     */
+    public int getPipelinedConnections()
+    {
+        return pipelinedConnections;
+    }
+
+    public void setPipelinedConnections(int pipelinedConnections)
+    {
+        this.pipelinedConnections = pipelinedConnections;
+    }
+
     public ExpiryMonitor getKeepAliveMonitor()
     {
         return keepAliveMonitor;
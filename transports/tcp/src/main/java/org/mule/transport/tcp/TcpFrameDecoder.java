@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import org.mule.transport.tcp.i18n.TcpMessages;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decodes the messages received on a non blocking connection using a {@link TcpProtocol}.
+ * <p/>
+ * Data is read into a buffer borrowed from a {@link ByteBufferPool}, and every time new
+ * data arrives the protocol reads the pending frames through a {@link FrameInputStream}.
+ * When a frame is not complete the protocol fails reading it and the frame is decoded
+ * again once more data was received: protocols that declare the size of the frame are not
+ * retried before it was received, frames that end with the stream are not retried before
+ * the end of the stream, and protocols that look for the end of the frame continue from
+ * where the previous attempt stopped. The buffer is returned to the pool as soon as all
+ * the received data was decoded.
+ * <p/>
+ * Protocols that return the stream itself, like the
+ * {@link org.mule.transport.tcp.protocols.StreamingProtocol}, need a blocking stream and
+ * can not be used with this decoder.
+ */
+public class TcpFrameDecoder
+{
+
+    private final TcpProtocol protocol;
+    private final ByteBufferPool bufferPool;
+    private final FrameInputStream frameStream = new FrameInputStream();
+
+    private ByteBuffer buffer;
+    private int requiredLimit;
+    private boolean endOfStreamRequired;
+    private int resumeOffset;
+    private boolean finished;
+
+    public TcpFrameDecoder(TcpProtocol protocol, ByteBufferPool bufferPool)
+    {
+        this.protocol = protocol;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Returns the buffer where the received data must be put, with room for at least one
+     * more byte.
+     *
+     * @return the buffer to read data into
+     */
+    public ByteBuffer getReadBuffer()
+    {
+        if (buffer == null)
+        {
+            buffer = bufferPool.borrow();
+        }
+
+        if (!buffer.hasRemaining())
+        {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, requiredLimit));
+            buffer.flip();
+            grown.put(buffer);
+            bufferPool.release(buffer);
+            buffer = grown;
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Decodes the complete messages available in the data read so far.
+     *
+     * @param endOfStream whether the remote end closed the connection, so no more data
+     *            is going to be received
+     * @return the decoded messages, in the order they were received
+     * @throws IOException if the protocol fails reading a message
+     */
+    public List<Object> decode(boolean endOfStream) throws IOException
+    {
+        int limit = buffer == null ? 0 : buffer.position();
+        if (finished || (!endOfStream && (limit < requiredLimit || endOfStreamRequired)))
+        {
+            return Collections.emptyList();
+        }
+
+        List<Object> messages = new ArrayList<Object>(1);
+        byte[] data = buffer == null ? null : buffer.array();
+        int start = 0;
+
+        try
+        {
+            while (start < limit || endOfStream)
+            {
+                frameStream.setFrame(data, start, limit, endOfStream, resumeOffset);
+
+                Object message;
+                try
+                {
+                    message = protocol.read(frameStream);
+                }
+                catch (IOException e)
+                {
+                    if (frameStream.isUnderflow())
+                    {
+                        break;
+                    }
+                    throw e;
+                }
+
+                if (frameStream.isUnderflow())
+                {
+                    // the protocol gave up reading the incomplete frame by itself
+                    break;
+                }
+                if (message == null)
+                {
+                    finished = true;
+                    break;
+                }
+                if (message == frameStream || message instanceof InputStream)
+                {
+                    throw new IOException(
+                        TcpMessages.protocolCannotBeUsedWithNonBlockingConnections(protocol).getMessage());
+                }
+
+                messages.add(message);
+                resumeOffset = 0;
+
+                if (frameStream.getPosition() == start)
+                {
+                    // nothing was consumed so reading again would return the same message
+                    break;
+                }
+                start = frameStream.getPosition();
+            }
+        }
+        finally
+        {
+            boolean underflow = frameStream.isUnderflow();
+            requiredLimit = underflow ? frameStream.getRequiredLimit() - start : 0;
+            endOfStreamRequired = underflow && frameStream.isEndOfStreamRequired();
+            resumeOffset = underflow ? frameStream.getNextResumeOffset() : 0;
+            compact(start, limit);
+        }
+
+        return messages;
+    }
+
+    private void compact(int start, int limit)
+    {
+        if (buffer == null)
+        {
+            return;
+        }
+
+        if (start == limit)
+        {
+            release();
+        }
+        else if (start > 0)
+        {
+            buffer.limit(limit);
+            buffer.position(start);
+            buffer.compact();
+        }
+    }
+
+    /**
+     * @return true if the protocol signalled that no more messages are going to be read
+     */
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    /**
+     * @return true if there is received data that was not decoded yet
+     */
+    public boolean hasPendingData()
+    {
+        return buffer != null && buffer.position() > 0;
+    }
+
+    /**
+     * Discards any pending data and returns the buffer to the pool.
+     */
+    public void release()
+    {
+        if (buffer != null)
+        {
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+    }
+}
@@ -40,6 +40,12 @@ public class TcpMessageDispatcher extends AbstractMessageDispatcher
     @Override
     protected synchronized void doDispatch(MuleEvent event) throws Exception
     {
+        if (connector.isPipelined())
+        {
+            connector.getPipelinedConnection(endpoint).dispatch(event.getMessage().getPayloadAsBytes());
+            return;
+        }
+
         Socket socket = connector.getSocket(endpoint);
         try 
         {
@@ -67,6 +73,11 @@ public class TcpMessageDispatcher extends AbstractMessageDispatcher
     @Override
     protected synchronized MuleMessage doSend(MuleEvent event) throws Exception
     {
+        if (connector.isPipelined())
+        {
+            return doSendPipelined(event);
+        }
+
         Socket socket = connector.getSocket(endpoint);
         doDispatchToSocket(socket, event);
         try
@@ -111,6 +122,29 @@ public class TcpMessageDispatcher extends AbstractMessageDispatcher
         
     }
 
+    private MuleMessage doSendPipelined(MuleEvent event) throws Exception
+    {
+        PipelinedTcpConnection connection = connector.getPipelinedConnection(endpoint);
+        byte[] payload = event.getMessage().getPayloadAsBytes();
+
+        if (!returnResponse(event))
+        {
+            connection.dispatch(payload);
+            return new DefaultMuleMessage(NullPayload.getInstance(), getEndpoint().getMuleContext());
+        }
+
+        int timeout = endpoint.getResponseTimeout() != 0 ? endpoint.getResponseTimeout() : event.getTimeout();
+        byte[] result = connection.send(payload, timeout);
+        if (result == null)
+        {
+            // we don't necessarily expect to receive a response here
+            logger.info("Timed out waiting for a pipelined response on endpointUri: "
+                        + endpoint.getEndpointURI());
+            return new DefaultMuleMessage(NullPayload.getInstance(), getEndpoint().getMuleContext());
+        }
+        return createMuleMessage(result, endpoint.getEncoding());
+    }
+
     // Socket management (get and release) is handled outside this method
     private void dispatchToSocket(Socket socket, MuleEvent event) throws Exception
     {
@@ -14,9 +14,11 @@ import org.mule.config.spring.parsers.generic.MuleOrphanDefinitionParser;
 import org.mule.endpoint.URIBuilder;
 import org.mule.transport.tcp.DefaultTcpClientSocketProperties;
 import org.mule.transport.tcp.DefaultTcpServerSocketProperties;
+import org.mule.transport.tcp.NioTcpConnector;
 import org.mule.transport.tcp.PollingTcpConnector;
 import org.mule.transport.tcp.TcpConnector;
 import org.mule.transport.tcp.TcpProtocol;
+import org.mule.transport.tcp.protocols.CorrelatedLengthProtocol;
 import org.mule.transport.tcp.protocols.CustomClassLoadingLengthProtocol;
 import org.mule.transport.tcp.protocols.DirectProtocol;
 import org.mule.transport.tcp.protocols.EOFProtocol;
@@ -43,11 +45,13 @@ public class TcpNamespaceHandler extends AbstractMuleNamespaceHandler
         registerConnectorDefinitionParser(TcpConnector.class);
 
         registerBeanDefinitionParser("polling-connector", new MuleOrphanDefinitionParser(PollingTcpConnector.class, true));
+        registerBeanDefinitionParser("nio-connector", new MuleOrphanDefinitionParser(NioTcpConnector.class, true));
         registerBeanDefinitionParser("custom-protocol", new ChildDefinitionParser("tcpProtocol", null, TcpProtocol.class, true));
         registerBeanDefinitionParser("xml-protocol", new ChildDefinitionParser("tcpProtocol", XmlMessageProtocol.class));
         registerBeanDefinitionParser("xml-eof-protocol", new ChildDefinitionParser("tcpProtocol", XmlMessageEOFProtocol.class));
         registerBeanDefinitionParser("safe-protocol", new ByteOrMessageProtocolDefinitionParser(SafeProtocol.class, MuleMessageSafeProtocol.class));
         registerBeanDefinitionParser("length-protocol", new ByteOrMessageProtocolDefinitionParser(LengthProtocol.class, MuleMessageLengthProtocol.class));
+        registerBeanDefinitionParser("correlated-length-protocol", new ChildDefinitionParser("tcpProtocol", CorrelatedLengthProtocol.class));
         registerBeanDefinitionParser("eof-protocol", new ByteOrMessageProtocolDefinitionParser(EOFProtocol.class, MuleMessageEOFProtocol.class));
         registerBeanDefinitionParser("direct-protocol", new ByteOrMessageProtocolDefinitionParser(DirectProtocol.class, MuleMessageDirectProtocol.class));
         registerBeanDefinitionParser("streaming-protocol", new ByteOrMessageProtocolDefinitionParser(StreamingProtocol.class, MuleMessageDirectProtocol.class));
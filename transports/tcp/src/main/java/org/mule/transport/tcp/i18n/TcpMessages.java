@@ -10,6 +10,8 @@ import org.mule.config.i18n.Message;
 import org.mule.config.i18n.MessageFactory;
 import org.mule.transport.tcp.TcpConnector;
 import org.mule.transport.tcp.TcpPropertyHelper;
+import org.mule.transport.tcp.TcpProtocol;
+import org.mule.util.ClassUtils;
 
 import java.net.URI;
 
@@ -48,6 +50,14 @@ public class TcpMessages extends MessageFactory
     {
         return factory.createMessage(BUNDLE_PATH, 6, TcpPropertyHelper.MULE_TCP_BIND_LOCALHOST_TO_ALL_LOCAL_INTERFACES_PROPERTY);
     }
-}
 
+    public static Message nonBlockingReceiverCannotBeUsed()
+    {
+        return factory.createMessage(BUNDLE_PATH, 7);
+    }
 
+    public static Message protocolCannotBeUsedWithNonBlockingConnections(TcpProtocol protocol)
+    {
+        return factory.createMessage(BUNDLE_PATH, 8, ClassUtils.getSimpleName(protocol.getClass()));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp.protocols;
+
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleContext;
+import org.mule.api.MuleMessage;
+import org.mule.api.context.MuleContextAware;
+import org.mule.util.ClassUtils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+
+/**
+ * Length protocol that includes a correlation id in every frame, so several requests
+ * can be sent over the same socket without waiting for the previous responses. The
+ * frame is the length of the rest of the frame, the correlation id (a long) and the
+ * payload.
+ * <p/>
+ * Messages read are returned with the correlation id in the
+ * {@link #CORRELATION_ID_PROPERTY} inbound property. When a message is written back
+ * the id is taken from that property, or from the outbound property of the same name
+ * if a flow replaced the inbound message, so the response can be matched by the
+ * sender regardless of the order responses are written in.
+ *
+ * <p>Note that use of this protocol must be symmetric - both the sending and receiving
+ * connectors must use the same protocol.</p>
+ */
+public class CorrelatedLengthProtocol extends LengthProtocol implements MuleContextAware
+{
+
+    public static final String CORRELATION_ID_PROPERTY = "MULE_TCP_CORRELATION_ID";
+
+    private static final int SIZE_LONG = 8;
+
+    private MuleContext muleContext;
+
+    public CorrelatedLengthProtocol()
+    {
+        super();
+    }
+
+    public CorrelatedLengthProtocol(int maxMessageLength)
+    {
+        super(maxMessageLength);
+    }
+
+    @Override
+    public Object read(InputStream is) throws IOException
+    {
+        byte[] frame = (byte[]) super.read(is);
+        if (frame == null)
+        {
+            return null;
+        }
+        if (frame.length < SIZE_LONG)
+        {
+            throw new IOException("Frame of length " + frame.length + " does not include a correlation id");
+        }
+
+        long correlationId = 0;
+        for (int i = 0; i < SIZE_LONG; i++)
+        {
+            correlationId = (correlationId << 8) | (frame[i] & 0xff);
+        }
+        byte[] payload = new byte[frame.length - SIZE_LONG];
+        System.arraycopy(frame, SIZE_LONG, payload, 0, payload.length);
+
+        return new DefaultMuleMessage(payload, Collections.<String, Object>singletonMap(CORRELATION_ID_PROPERTY,
+            correlationId), null, null, muleContext);
+    }
+
+    @Override
+    public void write(OutputStream os, Object data) throws IOException
+    {
+        if (!(data instanceof MuleMessage))
+        {
+            throw new IOException("TCP protocol " + ClassUtils.getSimpleName(getClass())
+                                  + " can only write messages with a correlation id");
+        }
+
+        MuleMessage message = (MuleMessage) data;
+        Object correlationId = message.getOutboundProperty(CORRELATION_ID_PROPERTY);
+        if (correlationId == null)
+        {
+            correlationId = message.getInboundProperty(CORRELATION_ID_PROPERTY);
+        }
+        if (correlationId == null)
+        {
+            throw new IOException("Message has no " + CORRELATION_ID_PROPERTY + " property");
+        }
+
+        byte[] payload;
+        try
+        {
+            payload = message.getPayloadAsBytes();
+        }
+        catch (Exception e)
+        {
+            throw new IOException(e);
+        }
+        write(os, Long.parseLong(correlationId.toString()), payload);
+    }
+
+    /**
+     * Writes a frame with the given correlation id.
+     *
+     * @param os the stream to write to
+     * @param correlationId the id the response to this frame will include
+     * @param payload the payload of the frame
+     * @throws IOException if the frame can not be written
+     */
+    public void write(OutputStream os, long correlationId, byte[] payload) throws IOException
+    {
+        DataOutputStream dos = new DataOutputStream(os);
+        dos.writeInt(payload.length + SIZE_LONG);
+        dos.writeLong(correlationId);
+        dos.write(payload);
+        dos.flush();
+    }
+
+    @Override
+    public void setMuleContext(MuleContext context)
+    {
+        this.muleContext = context;
+    }
+}
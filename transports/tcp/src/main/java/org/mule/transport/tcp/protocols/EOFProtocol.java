@@ -6,6 +6,11 @@
  */
 package org.mule.transport.tcp.protocols;
 
+import org.mule.transport.tcp.FrameInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * The EOFProtocol class is an application level tcp protocol that does nothing.
  * Reading is terminated by the stream being closed by the client.
@@ -13,6 +18,17 @@ package org.mule.transport.tcp.protocols;
 public class EOFProtocol extends DirectProtocol
 {
 
+    @Override
+    public Object read(InputStream is) throws IOException
+    {
+        if (is instanceof FrameInputStream)
+        {
+            // the message ends with the stream, there is no point in reading it as it arrives
+            ((FrameInputStream) is).requireEndOfStream();
+        }
+        return super.read(is);
+    }
+
     /**
      * Repeat until end of file
      *
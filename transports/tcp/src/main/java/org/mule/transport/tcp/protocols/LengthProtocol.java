@@ -6,6 +6,8 @@
  */
 package org.mule.transport.tcp.protocols;
 
+import org.mule.transport.tcp.FrameInputStream;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -71,6 +73,12 @@ public class LengthProtocol extends DirectProtocol
             throw new IOException("Length " + length + " exceeds limit: " + getMaxMessageLength());
         }
 
+        if (is instanceof FrameInputStream)
+        {
+            // avoid allocating the payload until it was completely received
+            ((FrameInputStream) is).require(length);
+        }
+
         // finally read the rest of the data
         byte[] buffer = new byte[length];
         dis.readFully(buffer);
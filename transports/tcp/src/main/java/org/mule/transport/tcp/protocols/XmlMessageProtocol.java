@@ -6,6 +6,8 @@
  */
 package org.mule.transport.tcp.protocols;
 
+import org.mule.transport.tcp.FrameInputStream;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
@@ -42,13 +44,16 @@ import java.util.concurrent.ConcurrentMap;
  * messages. The stream stores any pushed-back bytes into it's own internal buffer
  * and not the original stream. Therefore, the read buffer size is intentionally
  * limited to insure that unread characters remain on the stream so that all data may
- * be read later.
+ * be read later. Streams that already support pushing back data are used directly, and the
+ * data received on non blocking connections is searched in place, continuing where the
+ * previous search stopped when the message is not complete yet.
  * </p>
  */
 public class XmlMessageProtocol extends AbstractByteProtocol
 {
     
     private static final String XML_PATTERN = "<?xml";
+    private static final byte[] XML_PATTERN_BYTES = XML_PATTERN.getBytes();
 
     private static final int READ_BUFFER_SIZE = 4096;
     private static final int PUSHBACK_BUFFER_SIZE = READ_BUFFER_SIZE * 2;
@@ -62,7 +67,12 @@ public class XmlMessageProtocol extends AbstractByteProtocol
 
     public Object read(InputStream is) throws IOException
     {
-        PushbackInputStream pbis = (PushbackInputStream) pbMap.get(is);
+        if (is instanceof FrameInputStream)
+        {
+            return read((FrameInputStream) is);
+        }
+
+        PushbackInputStream pbis = is instanceof PushbackInputStream ? (PushbackInputStream) is : (PushbackInputStream) pbMap.get(is);
         if (null == pbis)
         {
             pbis = new PushbackInputStream(is, PUSHBACK_BUFFER_SIZE);
@@ -127,6 +137,29 @@ public class XmlMessageProtocol extends AbstractByteProtocol
         }
     }
 
+    private Object read(FrameInputStream frame) throws IOException
+    {
+        int available = frame.available();
+        if (available == 0)
+        {
+            // fails until more data arrives, unless the stream ended
+            frame.read();
+            return null;
+        }
+
+        // the start of the next message can not be at the first character, and was not
+        // received before the point where the previous attempt stopped looking for it
+        int patternIndex = frame.indexOf(XML_PATTERN_BYTES, Math.max(1, frame.getResumeOffset()));
+        if (patternIndex < 0 && isRepeat(patternIndex, available, 0) && !frame.isEndOfStream())
+        {
+            throw frame.resumeAt(Math.max(1, available - XML_PATTERN_BYTES.length + 1));
+        }
+
+        byte[] message = new byte[patternIndex < 0 ? available : patternIndex];
+        frame.read(message, 0, message.length);
+        return message;
+    }
+
     /**
      * Show we continue reading?  This class, following previous implementations, only
      * reads while input is saturated.
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.client.MuleClient;
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+import org.mule.transport.tcp.protocols.LengthProtocol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class NioTcpFunctionalTestCase extends FunctionalTestCase
+{
+
+    private static final String TEST_MESSAGE = "Test TCP Request";
+    private static final int IDLE_CONNECTIONS = 200;
+
+    @Rule
+    public DynamicPort dynamicPort = new DynamicPort("port1");
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "nio-tcp-functional-test-config.xml";
+    }
+
+    @Test
+    public void configuresConnector() throws Exception
+    {
+        NioTcpConnector connector = (NioTcpConnector) muleContext.getRegistry().lookupConnector("nioConnector");
+        assertEquals(64, connector.getReadBufferSize());
+        assertEquals(8, connector.getMaxIdleBuffers());
+    }
+
+    @Test
+    public void send() throws Exception
+    {
+        MuleClient client = muleContext.getClient();
+        MuleMessage result = client.send(getEndpointAddress(), TEST_MESSAGE, null);
+        assertEquals(TEST_MESSAGE + " Received", result.getPayloadAsString());
+    }
+
+    @Test
+    public void sendsLargeMessage() throws Exception
+    {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+        {
+            message.append(TEST_MESSAGE);
+        }
+
+        MuleClient client = muleContext.getClient();
+        MuleMessage result = client.send(getEndpointAddress(), message.toString(), null);
+        assertEquals(message + " Received", result.getPayloadAsString());
+    }
+
+    @Test
+    public void answersPipelinedMessagesInOrder() throws Exception
+    {
+        LengthProtocol protocol = new LengthProtocol();
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        for (int i = 0; i < 10; i++)
+        {
+            protocol.write(requests, (TEST_MESSAGE + i).getBytes());
+        }
+        byte[] data = requests.toByteArray();
+
+        Socket socket = new Socket("localhost", dynamicPort.getNumber());
+        try
+        {
+            // split the frames to make sure they are decoded across reads
+            OutputStream out = socket.getOutputStream();
+            out.write(data, 0, 7);
+            out.flush();
+            Thread.sleep(50);
+            out.write(data, 7, data.length - 7);
+            out.flush();
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            for (int i = 0; i < 10; i++)
+            {
+                byte[] response = new byte[in.readInt()];
+                in.readFully(response);
+                assertArrayEquals((TEST_MESSAGE + i + " Received").getBytes(), response);
+            }
+        }
+        finally
+        {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void answersBurstOfPipelinedMessagesReadInManyChunks() throws Exception
+    {
+        int count = 500;
+        LengthProtocol protocol = new LengthProtocol();
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++)
+        {
+            protocol.write(requests, (TEST_MESSAGE + i).getBytes());
+        }
+
+        Socket socket = new Socket("localhost", dynamicPort.getNumber());
+        try
+        {
+            // reading stops while the decoded messages are processed, so the
+            // burst is only consumed if reading is resumed every time
+            OutputStream out = socket.getOutputStream();
+            out.write(requests.toByteArray());
+            out.flush();
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            for (int i = 0; i < count; i++)
+            {
+                byte[] response = new byte[in.readInt()];
+                in.readFully(response);
+                assertArrayEquals((TEST_MESSAGE + i + " Received").getBytes(), response);
+            }
+        }
+        finally
+        {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void sendsThroughNonBlockingClientConnections() throws Exception
+    {
+        MuleClient client = muleContext.getClient();
+        String address = "tcp://localhost:" + dynamicPort.getNumber() + "?connector=nioClientConnector";
+        for (int i = 0; i < 5; i++)
+        {
+            MuleMessage result = client.send(address, TEST_MESSAGE + i, null);
+            assertEquals(TEST_MESSAGE + i + " Received", result.getPayloadAsString());
+        }
+
+        // the connection is kept open and reused by every request
+        NioTcpConnector connector = (NioTcpConnector) muleContext.getRegistry().lookupConnector("nioClientConnector");
+        assertEquals(1, connector.getClientConnectionPool().getOpenConnections());
+    }
+
+    @Test
+    public void idleConnectionsDoNotBlockOtherClients() throws Exception
+    {
+        int threads = Thread.activeCount();
+        List<Socket> idle = new ArrayList<Socket>(IDLE_CONNECTIONS);
+        try
+        {
+            for (int i = 0; i < IDLE_CONNECTIONS; i++)
+            {
+                idle.add(new Socket("localhost", dynamicPort.getNumber()));
+            }
+
+            MuleClient client = muleContext.getClient();
+            MuleMessage result = client.send(getEndpointAddress(), TEST_MESSAGE, null);
+            assertEquals(TEST_MESSAGE + " Received", result.getPayloadAsString());
+
+            // accepted connections do not hold a thread while they wait for data
+            assertTrue(Thread.activeCount() - threads < IDLE_CONNECTIONS / 4);
+        }
+        finally
+        {
+            for (Socket socket : idle)
+            {
+                socket.close();
+            }
+        }
+    }
+
+    private String getEndpointAddress()
+    {
+        return "tcp://localhost:" + dynamicPort.getNumber() + "?connector=clientConnector";
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.mule.api.MuleMessage;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.transport.tcp.protocols.CorrelatedLengthProtocol;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class PipelinedTcpConnectionTestCase extends AbstractMuleContextTestCase
+{
+
+    private CorrelatedLengthProtocol protocol = new CorrelatedLengthProtocol();
+    private ServerSocket serverSocket;
+    private PipelinedTcpConnection connection;
+    private ExecutorService executor = Executors.newCachedThreadPool();
+
+    @Override
+    protected void doSetUp() throws Exception
+    {
+        protocol.setMuleContext(muleContext);
+        serverSocket = new ServerSocket(0, 10, InetAddress.getByName("localhost"));
+        connection = new PipelinedTcpConnection(new Socket("localhost", serverSocket.getLocalPort()), protocol);
+        executor.submit(new Runnable()
+        {
+            public void run()
+            {
+                connection.run();
+            }
+        });
+    }
+
+    @Override
+    protected void doTearDown() throws Exception
+    {
+        connection.close();
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void matchesResponsesArrivingOutOfOrder() throws Exception
+    {
+        final int requests = 5;
+        Future<?> server = executor.submit(new Callable<Object>()
+        {
+            public Object call() throws Exception
+            {
+                Socket socket = serverSocket.accept();
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                List<MuleMessage> received = new ArrayList<MuleMessage>();
+                for (int i = 0; i < requests; i++)
+                {
+                    received.add((MuleMessage) protocol.read(in));
+                }
+                for (int i = requests - 1; i >= 0; i--)
+                {
+                    MuleMessage request = received.get(i);
+                    request.setPayload(request.getPayloadAsString() + " Received");
+                    protocol.write(socket.getOutputStream(), request);
+                }
+                return null;
+            }
+        });
+
+        List<Future<byte[]>> responses = new ArrayList<Future<byte[]>>();
+        for (int i = 0; i < requests; i++)
+        {
+            final String payload = TEST_MESSAGE + i;
+            responses.add(executor.submit(new Callable<byte[]>()
+            {
+                public byte[] call() throws Exception
+                {
+                    return connection.send(payload.getBytes(), RECEIVE_TIMEOUT);
+                }
+            }));
+        }
+
+        for (int i = 0; i < requests; i++)
+        {
+            assertArrayEquals((TEST_MESSAGE + i + " Received").getBytes(), responses.get(i).get());
+        }
+        server.get();
+        assertEquals(0, connection.getPendingResponses());
+    }
+
+    @Test
+    public void returnsNullWhenResponseTimesOut() throws Exception
+    {
+        assertNull(connection.send(TEST_MESSAGE.getBytes(), 100));
+        assertEquals(0, connection.getPendingResponses());
+    }
+
+    @Test
+    public void failsPendingRequestsWhenConnectionIsClosed() throws Exception
+    {
+        executor.submit(new Callable<Object>()
+        {
+            public Object call() throws Exception
+            {
+                Socket socket = serverSocket.accept();
+                protocol.read(new BufferedInputStream(socket.getInputStream()));
+                socket.close();
+                return null;
+            }
+        });
+
+        try
+        {
+            connection.send(TEST_MESSAGE.getBytes(), RECEIVE_TIMEOUT);
+            fail("expected the request to fail");
+        }
+        catch (IOException e)
+        {
+            assertTrue(connection.isClosed());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.client.MuleClient;
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class PipelinedTcpFunctionalTestCase extends FunctionalTestCase
+{
+
+    private static final int CONCURRENT_REQUESTS = 50;
+
+    @Rule
+    public DynamicPort dynamicPort = new DynamicPort("port1");
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "pipelined-tcp-functional-test-config.xml";
+    }
+
+    @Test
+    public void send() throws Exception
+    {
+        MuleClient client = muleContext.getClient();
+        MuleMessage result = client.send(getEndpointAddress(), TEST_MESSAGE, null);
+        assertEquals(TEST_MESSAGE + " Received", result.getPayloadAsString());
+    }
+
+    @Test
+    public void concurrentRequestsShareConnections() throws Exception
+    {
+        assertTrue(((TcpConnector) muleContext.getRegistry().lookupConnector("pipelinedConnector")).isPipelined());
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try
+        {
+            List<Future<MuleMessage>> results = new ArrayList<Future<MuleMessage>>();
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++)
+            {
+                final String payload = TEST_MESSAGE + i;
+                results.add(executor.submit(new Callable<MuleMessage>()
+                {
+                    public MuleMessage call() throws Exception
+                    {
+                        return muleContext.getClient().send(getEndpointAddress(), payload, null);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++)
+            {
+                assertEquals(TEST_MESSAGE + i + " Received", results.get(i).get().getPayloadAsString());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private String getEndpointAddress()
+    {
+        return "tcp://localhost:" + dynamicPort.getNumber() + "?connector=pipelinedConnector";
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.transport.tcp.protocols.EOFProtocol;
+import org.mule.transport.tcp.protocols.LengthProtocol;
+import org.mule.transport.tcp.protocols.SafeProtocol;
+import org.mule.transport.tcp.protocols.StreamingProtocol;
+import org.mule.transport.tcp.protocols.XmlMessageEOFProtocol;
+import org.mule.transport.tcp.protocols.XmlMessageProtocol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+@SmallTest
+public class TcpFrameDecoderTestCase extends AbstractMuleTestCase
+{
+
+    private static final String FIRST_MESSAGE = "first message";
+    private static final String SECOND_MESSAGE = "second message";
+
+    private ByteBufferPool bufferPool = new ByteBufferPool(16, 4);
+
+    @Test
+    public void decodesLengthFramesReceivedByteByByte() throws Exception
+    {
+        LengthProtocol protocol = new LengthProtocol();
+        List<Object> messages = receive(protocol, encode(protocol, FIRST_MESSAGE, SECOND_MESSAGE), 1);
+
+        assertMessages(messages, FIRST_MESSAGE, SECOND_MESSAGE);
+    }
+
+    @Test
+    public void decodesSafeFramesReceivedInChunks() throws Exception
+    {
+        SafeProtocol protocol = new SafeProtocol();
+        List<Object> messages = receive(protocol, encode(protocol, FIRST_MESSAGE, SECOND_MESSAGE), 5);
+
+        assertMessages(messages, FIRST_MESSAGE, SECOND_MESSAGE);
+    }
+
+    @Test
+    public void decodesXmlMessagesReceivedTogether() throws Exception
+    {
+        String first = "<?xml version=\"1.0\"?><first/>";
+        String second = "<?xml version=\"1.0\"?><second/>";
+        // the protocol only reads the data available, so all of it must fit in the buffer
+        bufferPool = new ByteBufferPool(1024, 4);
+        List<Object> messages = receive(new XmlMessageProtocol(), (first + second).getBytes(), 1024);
+
+        assertMessages(messages, first, second);
+    }
+
+    @Test
+    public void decodesEofMessageOnlyAtEndOfStream() throws Exception
+    {
+        TcpFrameDecoder decoder = new TcpFrameDecoder(new EOFProtocol(), bufferPool);
+
+        assertThat(feed(decoder, FIRST_MESSAGE.getBytes(), 4), empty());
+        assertFalse(decoder.isFinished());
+
+        List<Object> messages = decoder.decode(true);
+        assertMessages(messages, FIRST_MESSAGE);
+        assertTrue(decoder.isFinished());
+    }
+
+    @Test
+    public void doesNotDecodeEofMessageAgainBeforeEndOfStream() throws Exception
+    {
+        final List<Integer> attempts = new ArrayList<Integer>();
+        TcpFrameDecoder decoder = new TcpFrameDecoder(new EOFProtocol()
+        {
+            @Override
+            public Object read(InputStream is) throws IOException
+            {
+                attempts.add(((FrameInputStream) is).available());
+                return super.read(is);
+            }
+        }, bufferPool);
+
+        assertThat(feed(decoder, FIRST_MESSAGE.getBytes(), 1), empty());
+        assertMessages(decoder.decode(true), FIRST_MESSAGE);
+        // the first byte, the end of the stream and the read that finds nothing else to decode
+        assertEquals(3, attempts.size());
+    }
+
+    @Test
+    public void resumesLookingForNextXmlMessageWhereItStopped() throws Exception
+    {
+        String first = "<?xml version=\"1.0\"?><first/>";
+        String second = "<?xml version=\"1.0\"?><second/>";
+        final List<Integer> resumeOffsets = new ArrayList<Integer>();
+        TcpFrameDecoder decoder = new TcpFrameDecoder(new XmlMessageEOFProtocol()
+        {
+            @Override
+            public Object read(InputStream is) throws IOException
+            {
+                resumeOffsets.add(((FrameInputStream) is).getResumeOffset());
+                return super.read(is);
+            }
+        }, bufferPool);
+
+        List<Object> messages = feed(decoder, (first + second).getBytes(), 3);
+        messages.addAll(decoder.decode(true));
+
+        assertMessages(messages, first, second);
+        // the last search for the end of the first message started right before it
+        assertThat(Collections.max(resumeOffsets), greaterThan(first.length() - "<?xml".length()));
+    }
+
+    @Test
+    public void growsBufferForFramesBiggerThanPooledBuffers() throws Exception
+    {
+        String message = "a message that does not fit in a single pooled buffer";
+        LengthProtocol protocol = new LengthProtocol();
+
+        List<Object> messages = receive(protocol, encode(protocol, message), 7);
+
+        assertMessages(messages, message);
+    }
+
+    @Test
+    public void keepsIncompleteFrameUntilRestIsReceived() throws Exception
+    {
+        LengthProtocol protocol = new LengthProtocol();
+        byte[] data = encode(protocol, FIRST_MESSAGE);
+        TcpFrameDecoder decoder = new TcpFrameDecoder(protocol, bufferPool);
+
+        assertThat(feed(decoder, copy(data, 0, data.length - 1), data.length), empty());
+        assertTrue(decoder.hasPendingData());
+
+        List<Object> messages = feed(decoder, copy(data, data.length - 1, data.length), 1);
+        assertMessages(messages, FIRST_MESSAGE);
+        assertFalse(decoder.hasPendingData());
+    }
+
+    @Test
+    public void returnsBufferToPoolOnceDataIsDecoded() throws Exception
+    {
+        LengthProtocol protocol = new LengthProtocol();
+        TcpFrameDecoder decoder = new TcpFrameDecoder(protocol, bufferPool);
+
+        feed(decoder, encode(protocol, "short"), 16);
+
+        assertFalse(decoder.hasPendingData());
+        assertEquals(1, bufferPool.getIdleCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsProtocolsReturningStreams() throws Exception
+    {
+        receive(new StreamingProtocol(), FIRST_MESSAGE.getBytes(), 1024);
+    }
+
+    private List<Object> receive(TcpProtocol protocol, byte[] data, int chunkSize) throws IOException
+    {
+        TcpFrameDecoder decoder = new TcpFrameDecoder(protocol, bufferPool);
+        List<Object> messages = feed(decoder, data, chunkSize);
+        messages.addAll(decoder.decode(true));
+        return messages;
+    }
+
+    private List<Object> feed(TcpFrameDecoder decoder, byte[] data, int chunkSize) throws IOException
+    {
+        List<Object> messages = new ArrayList<Object>();
+        int position = 0;
+        while (position < data.length)
+        {
+            ByteBuffer buffer = decoder.getReadBuffer();
+            int length = Math.min(Math.min(chunkSize, buffer.remaining()), data.length - position);
+            buffer.put(data, position, length);
+            position += length;
+            messages.addAll(decoder.decode(false));
+        }
+        return messages;
+    }
+
+    private byte[] encode(TcpProtocol protocol, String... messages) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String message : messages)
+        {
+            protocol.write(out, message.getBytes());
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] copy(byte[] data, int from, int to)
+    {
+        byte[] result = new byte[to - from];
+        System.arraycopy(data, from, result, 0, result.length);
+        return result;
+    }
+
+    private void assertMessages(List<Object> messages, String... expected)
+    {
+        assertEquals(expected.length, messages.size());
+        for (int i = 0; i < expected.length; i++)
+        {
+            assertArrayEquals(expected[i].getBytes(), (byte[]) messages.get(i));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp.protocols;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleMessage;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class CorrelatedLengthProtocolTestCase extends AbstractMuleContextTestCase
+{
+
+    private CorrelatedLengthProtocol protocol = new CorrelatedLengthProtocol();
+
+    @Override
+    protected void doSetUp() throws Exception
+    {
+        protocol.setMuleContext(muleContext);
+    }
+
+    @Test
+    public void readsCorrelationIdAndPayload() throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        protocol.write(out, 42L, TEST_MESSAGE.getBytes());
+        protocol.write(out, 43L, new byte[0]);
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+
+        assertMessage((MuleMessage) protocol.read(in), 42L, TEST_MESSAGE);
+        assertMessage((MuleMessage) protocol.read(in), 43L, "");
+        assertNull(protocol.read(in));
+    }
+
+    @Test
+    public void writesResponseWithInboundCorrelationId() throws Exception
+    {
+        MuleMessage request = new DefaultMuleMessage(TEST_MESSAGE, Collections.<String, Object>singletonMap(
+            CorrelatedLengthProtocol.CORRELATION_ID_PROPERTY, 7L), null, null, muleContext);
+
+        assertMessage(writeAndRead(request), 7L, TEST_MESSAGE);
+    }
+
+    @Test
+    public void outboundCorrelationIdTakesPrecedence() throws Exception
+    {
+        MuleMessage request = new DefaultMuleMessage(TEST_MESSAGE, Collections.<String, Object>singletonMap(
+            CorrelatedLengthProtocol.CORRELATION_ID_PROPERTY, 7L), null, null, muleContext);
+        request.setOutboundProperty(CorrelatedLengthProtocol.CORRELATION_ID_PROPERTY, "8");
+
+        assertMessage(writeAndRead(request), 8L, TEST_MESSAGE);
+    }
+
+    @Test(expected = IOException.class)
+    public void failsWritingMessageWithoutCorrelationId() throws Exception
+    {
+        protocol.write(new ByteArrayOutputStream(), new DefaultMuleMessage(TEST_MESSAGE, muleContext));
+    }
+
+    @Test(expected = IOException.class)
+    public void failsReadingFrameWithoutCorrelationId() throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new LengthProtocol().write(out, "short".getBytes());
+
+        protocol.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private MuleMessage writeAndRead(MuleMessage message) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        protocol.write(out, message);
+        return (MuleMessage) protocol.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private void assertMessage(MuleMessage message, long correlationId, String payload)
+    {
+        assertEquals(correlationId, message.getInboundProperty(CorrelatedLengthProtocol.CORRELATION_ID_PROPERTY));
+        assertArrayEquals(payload.getBytes(), (byte[]) message.getPayload());
+    }
+}